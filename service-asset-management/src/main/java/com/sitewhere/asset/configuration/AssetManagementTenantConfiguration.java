@@ -29,6 +29,12 @@ public class AssetManagementTenantConfiguration implements ITenantEngineConfigur
     /** Datastore definition */
     private DatastoreDefinition datastore;
 
+    /** Bulk import settings */
+    private BulkImport bulkImport = new BulkImport();
+
+    /** Asset caching settings */
+    private AssetCaching assetCaching = new AssetCaching();
+
     public DatastoreDefinition getDatastore() {
 	return datastore;
     }
@@ -36,4 +42,20 @@ public class AssetManagementTenantConfiguration implements ITenantEngineConfigur
     public void setDatastore(DatastoreDefinition datastore) {
 	this.datastore = datastore;
     }
+
+    public BulkImport getBulkImport() {
+	return bulkImport;
+    }
+
+    public void setBulkImport(BulkImport bulkImport) {
+	this.bulkImport = bulkImport;
+    }
+
+    public AssetCaching getAssetCaching() {
+	return assetCaching;
+    }
+
+    public void setAssetCaching(AssetCaching assetCaching) {
+	this.assetCaching = assetCaching;
+    }
 }
@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.grpc;
+
+
+import com.sitewhere.asset.persistence.bulk.AssetBulkRequest;
+import com.sitewhere.asset.persistence.bulk.AssetBulkResponse;
+import com.sitewhere.asset.persistence.bulk.AssetTypeBulkRequest;
+import com.sitewhere.grpc.service.AssetManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for bulk asset calls. They are served alongside the generated
+ * asset management methods and use JSON payloads so that they do not require
+ * changes to the shared protocol definitions.
+ */
+public class AssetBulkGrpc {
+
+    /** Method for creating or updating asset types in bulk */
+    private static final MethodDescriptor<AssetTypeBulkRequest, AssetBulkResponse> BULK_UPSERT_ASSET_TYPES = MethodDescriptor
+	    .<AssetTypeBulkRequest, AssetBulkResponse>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(AssetManagementGrpc.SERVICE_NAME, "BulkUpsertAssetTypes"))
+	    .setRequestMarshaller(new JsonMarshaller<>(AssetTypeBulkRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(AssetBulkResponse.class)).build();
+
+    /** Method for creating or updating assets in bulk */
+    private static final MethodDescriptor<AssetBulkRequest, AssetBulkResponse> BULK_UPSERT_ASSETS = MethodDescriptor
+	    .<AssetBulkRequest, AssetBulkResponse>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(AssetManagementGrpc.SERVICE_NAME, "BulkUpsertAssets"))
+	    .setRequestMarshaller(new JsonMarshaller<>(AssetBulkRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(AssetBulkResponse.class)).build();
+
+    public static MethodDescriptor<AssetTypeBulkRequest, AssetBulkResponse> getBulkUpsertAssetTypesMethod() {
+	return BULK_UPSERT_ASSET_TYPES;
+    }
+
+    public static MethodDescriptor<AssetBulkRequest, AssetBulkResponse> getBulkUpsertAssetsMethod() {
+	return BULK_UPSERT_ASSETS;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.grpc;
+
+import com.sitewhere.asset.persistence.bulk.AssetBulkRequest;
+import com.sitewhere.asset.persistence.bulk.AssetBulkResponse;
+import com.sitewhere.asset.persistence.bulk.AssetTypeBulkRequest;
+import com.sitewhere.asset.spi.microservice.IAssetManagementMicroservice;
+import com.sitewhere.asset.spi.persistence.IBulkAssetManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.microservice.api.asset.IAssetManagement;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for bulk asset and asset type requests.
+ */
+public class AssetBulkImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IAssetManagementMicroservice microservice;
+
+    /** Asset management implementation */
+    private IAssetManagement assetManagement;
+
+    public AssetBulkImpl(IAssetManagementMicroservice microservice, IAssetManagement assetManagement) {
+	this.microservice = microservice;
+	this.assetManagement = assetManagement;
+    }
+
+    /**
+     * Create or update asset types in bulk.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void bulkUpsertAssetTypes(AssetTypeBulkRequest request,
+	    StreamObserver<AssetBulkResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, AssetBulkGrpc.getBulkUpsertAssetTypesMethod());
+	    responseObserver.onNext(getBulkAssetManagement().bulkUpsertAssetTypes(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(AssetBulkGrpc.getBulkUpsertAssetTypesMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(AssetBulkGrpc.getBulkUpsertAssetTypesMethod());
+	}
+    }
+
+    /**
+     * Create or update assets in bulk.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void bulkUpsertAssets(AssetBulkRequest request, StreamObserver<AssetBulkResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, AssetBulkGrpc.getBulkUpsertAssetsMethod());
+	    responseObserver.onNext(getBulkAssetManagement().bulkUpsertAssets(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(AssetBulkGrpc.getBulkUpsertAssetsMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(AssetBulkGrpc.getBulkUpsertAssetsMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    /**
+     * Get bulk operations supported by the configured asset management
+     * implementation.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IBulkAssetManagement getBulkAssetManagement() throws SiteWhereException {
+	if (!(assetManagement instanceof IBulkAssetManagement)) {
+	    throw new SiteWhereException("Asset management implementation does not support bulk requests.");
+	}
+	return (IBulkAssetManagement) assetManagement;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.grpc;
+
+import com.sitewhere.asset.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.asset.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.grpc.service.AssetManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for calls that load many assets or asset types by id or token.
+ * Served alongside the generated asset management methods and uses JSON
+ * payloads.
+ */
+public class AssetLookupGrpc {
+
+    /** Method for looking up assets */
+    private static final MethodDescriptor<EntityLookupRequest, EntityLookupResponse> LOOKUP_ASSETS = buildMethod(
+	    "LookupAssets");
+
+    /** Method for looking up asset types */
+    private static final MethodDescriptor<EntityLookupRequest, EntityLookupResponse> LOOKUP_ASSET_TYPES = buildMethod(
+	    "LookupAssetTypes");
+
+    /**
+     * Build descriptor for a lookup method.
+     * 
+     * @param name
+     * @return
+     */
+    private static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> buildMethod(String name) {
+	return MethodDescriptor.<EntityLookupRequest, EntityLookupResponse>newBuilder()
+		.setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(AssetManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<>(EntityLookupRequest.class))
+		.setResponseMarshaller(new JsonMarshaller<>(EntityLookupResponse.class)).build();
+    }
+
+    public static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> getLookupAssetsMethod() {
+	return LOOKUP_ASSETS;
+    }
+
+    public static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> getLookupAssetTypesMethod() {
+	return LOOKUP_ASSET_TYPES;
+    }
+}
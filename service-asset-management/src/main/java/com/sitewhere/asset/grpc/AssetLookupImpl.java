@@ -0,0 +1,106 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.grpc;
+
+import com.sitewhere.asset.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.asset.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.asset.spi.microservice.IAssetManagementMicroservice;
+import com.sitewhere.asset.spi.persistence.IAssetLookupManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.microservice.api.asset.IAssetManagement;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for calls that load many assets or asset types by id
+ * or token. Asset entities have no lazy associations, so they are returned
+ * as-is.
+ */
+public class AssetLookupImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IAssetManagementMicroservice microservice;
+
+    /** Asset management implementation */
+    private IAssetManagement assetManagement;
+
+    public AssetLookupImpl(IAssetManagementMicroservice microservice, IAssetManagement assetManagement) {
+	this.microservice = microservice;
+	this.assetManagement = assetManagement;
+    }
+
+    /**
+     * Get assets by id or token.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupAssets(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, AssetLookupGrpc.getLookupAssetsMethod());
+	    responseObserver.onNext(getLookupManagement().lookupAssets(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(AssetLookupGrpc.getLookupAssetsMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(AssetLookupGrpc.getLookupAssetsMethod());
+	}
+    }
+
+    /**
+     * Get asset types by id or token.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupAssetTypes(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, AssetLookupGrpc.getLookupAssetTypesMethod());
+	    responseObserver.onNext(getLookupManagement().lookupAssetTypes(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(AssetLookupGrpc.getLookupAssetTypesMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(AssetLookupGrpc.getLookupAssetTypesMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    /**
+     * Get lookup operations supported by the configured asset management
+     * implementation.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IAssetLookupManagement getLookupManagement() throws SiteWhereException {
+	if (!(assetManagement instanceof IAssetLookupManagement)) {
+	    throw new SiteWhereException("Asset management implementation does not support batch lookups.");
+	}
+	return (IAssetLookupManagement) assetManagement;
+    }
+}
@@ -18,6 +18,11 @@ package com.sitewhere.asset.grpc;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.asset.persistence.bulk.AssetBulkRequest;
+import com.sitewhere.asset.persistence.bulk.AssetBulkResponse;
+import com.sitewhere.asset.persistence.bulk.AssetTypeBulkRequest;
+import com.sitewhere.asset.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.asset.persistence.lookup.EntityLookupResponse;
 import com.sitewhere.asset.spi.microservice.IAssetManagementMicroservice;
 import com.sitewhere.asset.spi.microservice.IAssetManagementTenantEngine;
 import com.sitewhere.grpc.service.AssetManagementGrpc;
@@ -48,6 +53,9 @@ import com.sitewhere.grpc.service.GUpdateAssetTypeResponse;
 import com.sitewhere.microservice.grpc.GrpcTenantEngineProvider;
 import com.sitewhere.spi.microservice.grpc.ITenantEngineCallback;
 
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
 import io.grpc.stub.StreamObserver;
 
 /**
@@ -275,6 +283,100 @@ public class AssetManagementRouter extends AssetManagementGrpc.AssetManagementIm
 	}, responseObserver);
     }
 
+    /**
+     * Handle request for creating or updating asset types in bulk. This method is
+     * not part of the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void bulkUpsertAssetTypes(AssetTypeBulkRequest request,
+	    StreamObserver<AssetBulkResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IAssetManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IAssetManagementTenantEngine tenantEngine) {
+		tenantEngine.getAssetBulkImpl().bulkUpsertAssetTypes(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for creating or updating assets in bulk. This method is not
+     * part of the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void bulkUpsertAssets(AssetBulkRequest request, StreamObserver<AssetBulkResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IAssetManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IAssetManagementTenantEngine tenantEngine) {
+		tenantEngine.getAssetBulkImpl().bulkUpsertAssets(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for assets by id or token. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupAssets(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IAssetManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IAssetManagementTenantEngine tenantEngine) {
+		tenantEngine.getAssetLookupImpl().lookupAssets(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for asset types by id or token. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupAssetTypes(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IAssetManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IAssetManagementTenantEngine tenantEngine) {
+		tenantEngine.getAssetLookupImpl().lookupAssetTypes(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.AssetManagementGrpc.AssetManagementImplBase#
+     * bindService()
+     */
+    @Override
+    public ServerServiceDefinition bindService() {
+	ServerServiceDefinition generated = super.bindService();
+	ServerServiceDefinition.Builder builder = ServerServiceDefinition
+		.builder(generated.getServiceDescriptor().getName());
+	for (ServerMethodDefinition<?, ?> method : generated.getMethods()) {
+	    builder.addMethod(method);
+	}
+	builder.addMethod(AssetBulkGrpc.getBulkUpsertAssetTypesMethod(),
+		ServerCalls.asyncUnaryCall(this::bulkUpsertAssetTypes));
+	builder.addMethod(AssetBulkGrpc.getBulkUpsertAssetsMethod(), ServerCalls.asyncUnaryCall(this::bulkUpsertAssets));
+	builder.addMethod(AssetLookupGrpc.getLookupAssetsMethod(), ServerCalls.asyncUnaryCall(this::lookupAssets));
+	builder.addMethod(AssetLookupGrpc.getLookupAssetTypesMethod(),
+		ServerCalls.asyncUnaryCall(this::lookupAssetTypes));
+	return builder.build();
+    }
+
     protected IAssetManagementMicroservice getMicroservice() {
 	return microservice;
     }
@@ -17,7 +17,13 @@ package com.sitewhere.asset.microservice;
 
 import com.sitewhere.asset.configuration.AssetManagementTenantConfiguration;
 import com.sitewhere.asset.configuration.AssetManagementTenantEngineModule;
+import com.sitewhere.asset.grpc.AssetBulkImpl;
+import com.sitewhere.asset.grpc.AssetLookupImpl;
 import com.sitewhere.asset.grpc.AssetManagementImpl;
+import com.sitewhere.asset.kafka.AssetChangesConsumer;
+import com.sitewhere.asset.kafka.AssetChangesProducer;
+import com.sitewhere.asset.spi.kafka.IAssetChangesConsumer;
+import com.sitewhere.asset.spi.kafka.IAssetChangesProducer;
 import com.sitewhere.asset.spi.microservice.IAssetManagementMicroservice;
 import com.sitewhere.asset.spi.microservice.IAssetManagementTenantEngine;
 import com.sitewhere.grpc.service.AssetManagementGrpc;
@@ -52,6 +58,18 @@ public class AssetManagementTenantEngine extends RdbTenantEngine<AssetManagement
     /** Responds to asset management GRPC requests */
     private AssetManagementGrpc.AssetManagementImplBase assetManagementImpl;
 
+    /** Responds to bulk asset GRPC requests */
+    private AssetBulkImpl assetBulkImpl;
+
+    /** Responds to asset lookup GRPC requests */
+    private AssetLookupImpl assetLookupImpl;
+
+    /** Publishes changes to assets and asset types */
+    private IAssetChangesProducer assetChangesProducer;
+
+    /** Consumes asset changes made by other replicas */
+    private IAssetChangesConsumer assetChangesConsumer;
+
     public AssetManagementTenantEngine(SiteWhereTenantEngine tenantEngineResource) {
 	super(tenantEngineResource);
     }
@@ -99,6 +117,10 @@ public class AssetManagementTenantEngine extends RdbTenantEngine<AssetManagement
 	this.assetManagement = getInjector().getInstance(IAssetManagement.class);
 	this.assetManagementImpl = new AssetManagementImpl((IAssetManagementMicroservice) getMicroservice(),
 		getAssetManagement());
+	this.assetBulkImpl = new AssetBulkImpl((IAssetManagementMicroservice) getMicroservice(),
+		getAssetManagement());
+	this.assetLookupImpl = new AssetLookupImpl((IAssetManagementMicroservice) getMicroservice(),
+		getAssetManagement());
     }
 
     /*
@@ -131,12 +153,24 @@ public class AssetManagementTenantEngine extends RdbTenantEngine<AssetManagement
     public void tenantInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	super.tenantInitialize(monitor);
 
+	// Asset change producer.
+	this.assetChangesProducer = new AssetChangesProducer();
+
+	// Asset change consumer.
+	this.assetChangesConsumer = new AssetChangesConsumer();
+
 	// Create step that will initialize components.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getComponentName());
 
+	// Initialize asset change producer.
+	init.addInitializeStep(this, getAssetChangesProducer(), true);
+
 	// Initialize asset management persistence.
 	init.addInitializeStep(this, getAssetManagement(), true);
 
+	// Initialize asset change consumer.
+	init.addInitializeStep(this, getAssetChangesConsumer(), true);
+
 	// Execute initialization steps.
 	init.execute(monitor);
     }
@@ -153,9 +187,15 @@ public class AssetManagementTenantEngine extends RdbTenantEngine<AssetManagement
 	// Create step that will start components.
 	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getComponentName());
 
+	// Start asset change producer.
+	start.addStartStep(this, getAssetChangesProducer(), true);
+
 	// Start asset management persistence.
 	start.addStartStep(this, getAssetManagement(), true);
 
+	// Start asset change consumer.
+	start.addStartStep(this, getAssetChangesConsumer(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
     }
@@ -170,9 +210,15 @@ public class AssetManagementTenantEngine extends RdbTenantEngine<AssetManagement
 	// Create step that will stop components.
 	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getComponentName());
 
+	// Stop asset change consumer.
+	stop.addStopStep(this, getAssetChangesConsumer());
+
 	// Stop asset management persistence.
 	stop.addStopStep(this, getAssetManagement());
 
+	// Stop asset change producer.
+	stop.addStopStep(this, getAssetChangesProducer());
+
 	// Execute shutdown steps.
 	stop.execute(monitor);
 
@@ -196,4 +242,40 @@ public class AssetManagementTenantEngine extends RdbTenantEngine<AssetManagement
     public AssetManagementGrpc.AssetManagementImplBase getAssetManagementImpl() {
 	return assetManagementImpl;
     }
+
+    /*
+     * @see com.sitewhere.asset.spi.microservice.IAssetManagementTenantEngine#
+     * getAssetBulkImpl()
+     */
+    @Override
+    public AssetBulkImpl getAssetBulkImpl() {
+	return assetBulkImpl;
+    }
+
+    /*
+     * @see com.sitewhere.asset.spi.microservice.IAssetManagementTenantEngine#
+     * getAssetLookupImpl()
+     */
+    @Override
+    public AssetLookupImpl getAssetLookupImpl() {
+	return assetLookupImpl;
+    }
+
+    /*
+     * @see com.sitewhere.asset.spi.microservice.IAssetManagementTenantEngine#
+     * getAssetChangesProducer()
+     */
+    @Override
+    public IAssetChangesProducer getAssetChangesProducer() {
+	return assetChangesProducer;
+    }
+
+    /*
+     * @see com.sitewhere.asset.spi.microservice.IAssetManagementTenantEngine#
+     * getAssetChangesConsumer()
+     */
+    @Override
+    public IAssetChangesConsumer getAssetChangesConsumer() {
+	return assetChangesConsumer;
+    }
 }
\ No newline at end of file
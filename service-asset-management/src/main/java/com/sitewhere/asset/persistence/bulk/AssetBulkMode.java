@@ -0,0 +1,32 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.persistence.bulk;
+
+/**
+ * Indicates how entries in a bulk request are matched against existing assets
+ * or asset types.
+ */
+public enum AssetBulkMode {
+
+    /** Only create entities (existing tokens fail) */
+    Create,
+
+    /** Only update entities (unknown tokens fail) */
+    Update,
+
+    /** Create entities that do not exist and update those that do */
+    Upsert;
+}
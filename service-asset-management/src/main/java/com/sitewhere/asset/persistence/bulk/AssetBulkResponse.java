@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.persistence.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response for a bulk asset or asset type request. Contains one result per
+ * entry in request order.
+ */
+public class AssetBulkResponse {
+
+    /** Number of entities created */
+    private int createdCount;
+
+    /** Number of entities updated */
+    private int updatedCount;
+
+    /** Number of entries that failed */
+    private int failedCount;
+
+    /** Result for each entry */
+    private List<AssetBulkResult> results = new ArrayList<>();
+
+    /**
+     * Add a result and update counts.
+     * 
+     * @param result
+     */
+    public void add(AssetBulkResult result) {
+	getResults().add(result);
+	if (result.getAction() == AssetBulkAction.Created) {
+	    createdCount++;
+	} else if (result.getAction() == AssetBulkAction.Updated) {
+	    updatedCount++;
+	} else {
+	    failedCount++;
+	}
+    }
+
+    public int getCreatedCount() {
+	return createdCount;
+    }
+
+    public void setCreatedCount(int createdCount) {
+	this.createdCount = createdCount;
+    }
+
+    public int getUpdatedCount() {
+	return updatedCount;
+    }
+
+    public void setUpdatedCount(int updatedCount) {
+	this.updatedCount = updatedCount;
+    }
+
+    public int getFailedCount() {
+	return failedCount;
+    }
+
+    public void setFailedCount(int failedCount) {
+	this.failedCount = failedCount;
+    }
+
+    public List<AssetBulkResult> getResults() {
+	return results;
+    }
+
+    public void setResults(List<AssetBulkResult> results) {
+	this.results = results;
+    }
+}
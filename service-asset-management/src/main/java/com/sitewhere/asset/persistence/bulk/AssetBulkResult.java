@@ -0,0 +1,102 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.persistence.bulk;
+
+import java.util.UUID;
+
+/**
+ * Result for a single entry in a bulk asset or asset type request.
+ */
+public class AssetBulkResult {
+
+    /** Index of entry in request */
+    private int index;
+
+    /** Token of entry */
+    private String token;
+
+    /** Id of stored entity (null if failed) */
+    private UUID id;
+
+    /** Outcome for entry */
+    private AssetBulkAction action;
+
+    /** Reason entry failed (null if stored) */
+    private String error;
+
+    public AssetBulkResult() {
+    }
+
+    public AssetBulkResult(int index, String token) {
+	this.index = index;
+	this.token = token;
+    }
+
+    /**
+     * Mark entry as failed.
+     * 
+     * @param error
+     */
+    public void fail(String error) {
+	this.id = null;
+	this.action = AssetBulkAction.Failed;
+	this.error = error;
+    }
+
+    public boolean isFailed() {
+	return getAction() == AssetBulkAction.Failed;
+    }
+
+    public int getIndex() {
+	return index;
+    }
+
+    public void setIndex(int index) {
+	this.index = index;
+    }
+
+    public String getToken() {
+	return token;
+    }
+
+    public void setToken(String token) {
+	this.token = token;
+    }
+
+    public UUID getId() {
+	return id;
+    }
+
+    public void setId(UUID id) {
+	this.id = id;
+    }
+
+    public AssetBulkAction getAction() {
+	return action;
+    }
+
+    public void setAction(AssetBulkAction action) {
+	this.action = action;
+    }
+
+    public String getError() {
+	return error;
+    }
+
+    public void setError(String error) {
+	this.error = error;
+    }
+}
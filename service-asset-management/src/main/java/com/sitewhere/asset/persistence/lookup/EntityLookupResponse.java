@@ -0,0 +1,59 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.persistence.lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response to an entity lookup. Results are in request order.
+ */
+public class EntityLookupResponse {
+
+    /** One result per requested key */
+    private List<EntityLookupResult> results = new ArrayList<>();
+
+    /** Number of keys that did not match an entity */
+    private int missingCount;
+
+    /**
+     * Add the result for the next requested key.
+     * 
+     * @param result
+     */
+    public void add(EntityLookupResult result) {
+	getResults().add(result);
+	if (!result.isFound()) {
+	    missingCount++;
+	}
+    }
+
+    public List<EntityLookupResult> getResults() {
+	return results;
+    }
+
+    public void setResults(List<EntityLookupResult> results) {
+	this.results = results;
+    }
+
+    public int getMissingCount() {
+	return missingCount;
+    }
+
+    public void setMissingCount(int missingCount) {
+	this.missingCount = missingCount;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.persistence.lookup;
+
+/**
+ * Result of looking up a single key. The entity is null if no entity matched
+ * the key.
+ */
+public class EntityLookupResult {
+
+    /** Requested id or token */
+    private String key;
+
+    /** Indicates whether an entity matched the key */
+    private boolean found;
+
+    /** Matching entity (null if not found) */
+    private Object entity;
+
+    public EntityLookupResult() {
+    }
+
+    public EntityLookupResult(String key, Object entity) {
+	this.key = key;
+	this.found = (entity != null);
+	this.entity = entity;
+    }
+
+    public String getKey() {
+	return key;
+    }
+
+    public void setKey(String key) {
+	this.key = key;
+    }
+
+    public boolean isFound() {
+	return found;
+    }
+
+    public void setFound(boolean found) {
+	this.found = found;
+    }
+
+    public Object getEntity() {
+	return entity;
+    }
+
+    public void setEntity(Object entity) {
+	this.entity = entity;
+    }
+}
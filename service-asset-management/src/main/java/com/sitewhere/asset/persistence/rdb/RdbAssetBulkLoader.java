@@ -0,0 +1,501 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.Session;
+
+import com.sitewhere.asset.configuration.BulkImport;
+import com.sitewhere.asset.persistence.AssetManagementPersistence;
+import com.sitewhere.asset.persistence.bulk.AssetBulkAction;
+import com.sitewhere.asset.persistence.bulk.AssetBulkMode;
+import com.sitewhere.asset.persistence.bulk.AssetBulkRequest;
+import com.sitewhere.asset.persistence.bulk.AssetBulkResponse;
+import com.sitewhere.asset.persistence.bulk.AssetBulkResult;
+import com.sitewhere.asset.persistence.bulk.AssetTypeBulkRequest;
+import com.sitewhere.asset.persistence.rdb.entity.Queries;
+import com.sitewhere.asset.persistence.rdb.entity.RdbAsset;
+import com.sitewhere.asset.persistence.rdb.entity.RdbAssetType;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rdb.spi.ITransactionCallback;
+import com.sitewhere.rest.model.asset.Asset;
+import com.sitewhere.rest.model.asset.AssetType;
+import com.sitewhere.rest.model.asset.request.AssetCreateRequest;
+import com.sitewhere.rest.model.asset.request.AssetTypeCreateRequest;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.common.IPersistentEntity;
+
+/**
+ * Stores the entries of a bulk asset or asset type request. Asset types
+ * referenced by asset entries are resolved once for the whole request. Entries
+ * are then stored in transactions of a configurable size. Existing entities
+ * for a transaction are loaded with one query, and inserts and updates are
+ * flushed in JDBC batches.
+ */
+public class RdbAssetBulkLoader {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(RdbAssetBulkLoader.class);
+
+    /** Maximum number of values bound to a single IN clause */
+    private static final int MAX_IN_CLAUSE_SIZE = 1000;
+
+    /** Asset management implementation */
+    private RdbAssetManagement assetManagement;
+
+    /** Bulk import settings */
+    private BulkImport settings;
+
+    /** Asset types by token */
+    private Map<String, RdbAssetType> assetTypes = new HashMap<>();
+
+    public RdbAssetBulkLoader(RdbAssetManagement assetManagement, BulkImport settings) {
+	this.assetManagement = assetManagement;
+	this.settings = settings;
+    }
+
+    /**
+     * Store all entries in an asset type request.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public AssetBulkResponse loadAssetTypes(AssetTypeBulkRequest request) throws SiteWhereException {
+	return load("Asset type", request.getEntries(), request.getMode(), Queries.QUERY_ASSET_TYPES_BY_TOKENS,
+		RdbAssetType.class, new EntityWriter<AssetTypeCreateRequest, RdbAssetType>() {
+
+		    /*
+		     * @see com.sitewhere.asset.persistence.rdb.RdbAssetBulkLoader.EntityWriter#
+		     * getToken(java.lang.Object)
+		     */
+		    @Override
+		    public String getToken(AssetTypeCreateRequest request) {
+			return request.getToken();
+		    }
+
+		    /*
+		     * @see com.sitewhere.asset.persistence.rdb.RdbAssetBulkLoader.EntityWriter#
+		     * validate(java.lang.Object, java.lang.Object)
+		     */
+		    @Override
+		    public String validate(AssetTypeCreateRequest request, RdbAssetType existing) {
+			return null;
+		    }
+
+		    /*
+		     * @see com.sitewhere.asset.persistence.rdb.RdbAssetBulkLoader.EntityWriter#
+		     * store(java.lang.Object, java.lang.Object)
+		     */
+		    @Override
+		    public RdbAssetType store(AssetTypeCreateRequest request, RdbAssetType existing)
+			    throws SiteWhereException {
+			if (existing == null) {
+			    AssetType created = AssetManagementPersistence.assetTypeCreateLogic(request);
+			    RdbAssetType assetType = new RdbAssetType();
+			    RdbAssetType.copy(created, assetType);
+			    return getEntityManagerProvider().persist(assetType);
+			}
+			AssetType updates = new AssetType();
+			AssetManagementPersistence.assetTypeUpdateLogic(updates, request);
+			RdbAssetType.copy(updates, existing);
+			return getEntityManagerProvider().merge(existing);
+		    }
+		});
+    }
+
+    /**
+     * Store all entries in an asset request.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public AssetBulkResponse loadAssets(AssetBulkRequest request) throws SiteWhereException {
+	Set<String> assetTypeTokens = new HashSet<>();
+	if (request.getEntries() != null) {
+	    for (AssetCreateRequest entry : request.getEntries()) {
+		if (entry != null && entry.getAssetTypeToken() != null) {
+		    assetTypeTokens.add(entry.getAssetTypeToken());
+		}
+	    }
+	}
+	for (RdbAssetType assetType : findByTokens(Queries.QUERY_ASSET_TYPES_BY_TOKENS, assetTypeTokens,
+		RdbAssetType.class)) {
+	    getAssetTypes().put(assetType.getToken(), assetType);
+	}
+
+	return load("Asset", request.getEntries(), request.getMode(), Queries.QUERY_ASSETS_BY_TOKENS, RdbAsset.class,
+		new EntityWriter<AssetCreateRequest, RdbAsset>() {
+
+		    /*
+		     * @see com.sitewhere.asset.persistence.rdb.RdbAssetBulkLoader.EntityWriter#
+		     * getToken(java.lang.Object)
+		     */
+		    @Override
+		    public String getToken(AssetCreateRequest request) {
+			return request.getToken();
+		    }
+
+		    /*
+		     * @see com.sitewhere.asset.persistence.rdb.RdbAssetBulkLoader.EntityWriter#
+		     * validate(java.lang.Object, java.lang.Object)
+		     */
+		    @Override
+		    public String validate(AssetCreateRequest request, RdbAsset existing) {
+			if (request.getAssetTypeToken() == null) {
+			    return (existing == null) ? "Asset type token is required." : null;
+			}
+			if (!getAssetTypes().containsKey(request.getAssetTypeToken())) {
+			    return "Invalid asset type token: " + request.getAssetTypeToken();
+			}
+			return null;
+		    }
+
+		    /*
+		     * @see com.sitewhere.asset.persistence.rdb.RdbAssetBulkLoader.EntityWriter#
+		     * store(java.lang.Object, java.lang.Object)
+		     */
+		    @Override
+		    public RdbAsset store(AssetCreateRequest request, RdbAsset existing) throws SiteWhereException {
+			RdbAssetType assetType = (request.getAssetTypeToken() != null)
+				? getAssetTypes().get(request.getAssetTypeToken())
+				: null;
+			if (existing == null) {
+			    Asset created = AssetManagementPersistence.assetCreateLogic(assetType, request);
+			    RdbAsset asset = new RdbAsset();
+			    RdbAsset.copy(created, asset);
+			    return getEntityManagerProvider().persist(asset);
+			}
+			Asset updates = new Asset();
+			AssetManagementPersistence.assetUpdateLogic(assetType, updates, request);
+			RdbAsset.copy(updates, existing);
+			return getEntityManagerProvider().merge(existing);
+		    }
+		});
+    }
+
+    /**
+     * Store entries in transactions of the configured size.
+     * 
+     * @param label
+     * @param entries
+     * @param mode
+     * @param tokensQuery
+     * @param type
+     * @param writer
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <R, E extends IPersistentEntity> AssetBulkResponse load(String label, List<R> entries,
+	    AssetBulkMode mode, String tokensQuery, Class<E> type, EntityWriter<R, E> writer)
+	    throws SiteWhereException {
+	entries = (entries != null) ? entries : Collections.emptyList();
+	if (entries.size() > getSettings().getMaxEntriesPerRequest()) {
+	    throw new SiteWhereException(
+		    String.format("Bulk %s request contains %d entries which exceeds the limit of %d.",
+			    label.toLowerCase(), entries.size(), getSettings().getMaxEntriesPerRequest()));
+	}
+	mode = (mode != null) ? mode : AssetBulkMode.Upsert;
+
+	AssetBulkResult[] results = new AssetBulkResult[entries.size()];
+	Set<String> seen = new HashSet<>();
+	int size = Math.max(1, getSettings().getTransactionSize());
+	for (int start = 0; start < entries.size(); start += size) {
+	    loadChunk(label, entries, start, Math.min(start + size, entries.size()), mode, tokensQuery, type, writer,
+		    results, seen);
+	}
+
+	AssetBulkResponse response = new AssetBulkResponse();
+	for (AssetBulkResult result : results) {
+	    response.add(result);
+	}
+	return response;
+    }
+
+    /**
+     * Validate and store a range of entries in a single transaction.
+     * 
+     * @param label
+     * @param entries
+     * @param start
+     * @param end
+     * @param mode
+     * @param tokensQuery
+     * @param type
+     * @param writer
+     * @param results
+     * @param seen
+     * @throws SiteWhereException
+     */
+    protected <R, E extends IPersistentEntity> void loadChunk(String label, List<R> entries, int start, int end,
+	    AssetBulkMode mode, String tokensQuery, Class<E> type, EntityWriter<R, E> writer,
+	    AssetBulkResult[] results, Set<String> seen) throws SiteWhereException {
+	List<Integer> candidates = new ArrayList<>();
+	Set<String> tokens = new HashSet<>();
+	for (int i = start; i < end; i++) {
+	    R entry = entries.get(i);
+	    String token = (entry != null) ? writer.getToken(entry) : null;
+	    results[i] = new AssetBulkResult(i, token);
+	    if (StringUtils.isEmpty(token)) {
+		results[i].fail(label + " token is required.");
+	    } else if (!seen.add(token)) {
+		results[i].fail(label + " token appears more than once in request.");
+	    } else {
+		candidates.add(i);
+		tokens.add(token);
+	    }
+	}
+
+	// Load existing entities for the chunk in one query.
+	Map<String, E> existing = new HashMap<>();
+	for (E entity : findByTokens(tokensQuery, tokens, type)) {
+	    existing.put(entity.getToken(), entity);
+	}
+
+	List<Integer> accepted = new ArrayList<>();
+	for (int i : candidates) {
+	    R entry = entries.get(i);
+	    E current = existing.get(writer.getToken(entry));
+	    String error = null;
+	    if (current != null && mode == AssetBulkMode.Create) {
+		error = label + " token is already in use.";
+	    } else if (current == null && mode == AssetBulkMode.Update) {
+		error = label + " token does not match an existing entry.";
+	    } else {
+		error = writer.validate(entry, current);
+	    }
+	    if (error != null) {
+		results[i].fail(error);
+		continue;
+	    }
+	    accepted.add(i);
+	}
+	if (accepted.isEmpty()) {
+	    return;
+	}
+
+	try {
+	    store(entries, accepted, existing, writer, results);
+	} catch (SiteWhereException e) {
+	    LOGGER.warn(String.format("Unable to store bulk %s entries %d to %d.", label.toLowerCase(), start,
+		    end - 1), e);
+	    for (int i : accepted) {
+		if (!results[i].isFailed()) {
+		    results[i].fail("Unable to store entry: " + e.getMessage());
+		}
+	    }
+	    clear();
+	} finally {
+	    // Cached copies of updated entities are stale whether or not the
+	    // transaction committed.
+	    for (int i : accepted) {
+		E current = existing.get(writer.getToken(entries.get(i)));
+		if (current != null) {
+		    getAssetManagement().evict(type, current.getId(), current.getToken());
+		}
+	    }
+	}
+    }
+
+    /**
+     * Store accepted entries in a single transaction.
+     * 
+     * @param entries
+     * @param accepted
+     * @param existing
+     * @param writer
+     * @param results
+     * @throws SiteWhereException
+     */
+    protected <R, E extends IPersistentEntity> void store(List<R> entries, List<Integer> accepted,
+	    Map<String, E> existing, EntityWriter<R, E> writer, AssetBulkResult[] results) throws SiteWhereException {
+	getEntityManagerProvider().runInTransaction(new ITransactionCallback<Void>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public Void process() throws SiteWhereException {
+		Session session = getEntityManager().unwrap(Session.class);
+		Integer previous = session.getJdbcBatchSize();
+		session.setJdbcBatchSize(getSettings().getJdbcBatchSize());
+		try {
+		    int pending = 0;
+		    for (int i : accepted) {
+			R entry = entries.get(i);
+			E current = existing.get(writer.getToken(entry));
+			try {
+			    E stored = writer.store(entry, current);
+			    results[i].setId(stored.getId());
+			    results[i].setAction((current == null) ? AssetBulkAction.Created : AssetBulkAction.Updated);
+			} catch (SiteWhereException e) {
+			    // Rejected by common create or update logic before anything was written.
+			    results[i].fail(e.getMessage());
+			    continue;
+			}
+			pending = flushIfNeeded(++pending);
+		    }
+		    getEntityManager().flush();
+		    getEntityManager().clear();
+		    return null;
+		} finally {
+		    session.setJdbcBatchSize(previous);
+		}
+	    }
+	});
+    }
+
+    /**
+     * Flush pending statements once a JDBC batch worth has accumulated. Returns
+     * the updated pending count.
+     * 
+     * @param pending
+     * @return
+     */
+    protected int flushIfNeeded(int pending) {
+	if (pending >= Math.max(1, getSettings().getJdbcBatchSize())) {
+	    getEntityManager().flush();
+	    return 0;
+	}
+	return pending;
+    }
+
+    /**
+     * Discard entities left in the persistence context by a failed transaction.
+     */
+    protected void clear() {
+	try {
+	    getEntityManager().clear();
+	} catch (RuntimeException e) {
+	    LOGGER.debug("Unable to clear persistence context after failed bulk transaction.", e);
+	}
+    }
+
+    /**
+     * Find entities matching a collection of tokens using a named query with a
+     * 'tokens' parameter.
+     * 
+     * @param queryName
+     * @param tokens
+     * @param type
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <T> List<T> findByTokens(String queryName, Collection<String> tokens, Class<T> type)
+	    throws SiteWhereException {
+	List<T> matches = new ArrayList<>();
+	for (List<String> slice : slices(tokens)) {
+	    Query query = getEntityManagerProvider().query(queryName);
+	    query.setParameter("tokens", slice);
+	    matches.addAll(getEntityManagerProvider().findMany(query, type));
+	}
+	return matches;
+    }
+
+    /**
+     * Split values into lists small enough to bind to an IN clause.
+     * 
+     * @param values
+     * @return
+     */
+    protected static <T> List<List<T>> slices(Collection<T> values) {
+	List<List<T>> slices = new ArrayList<>();
+	List<T> current = new ArrayList<>();
+	for (T value : values) {
+	    current.add(value);
+	    if (current.size() == MAX_IN_CLAUSE_SIZE) {
+		slices.add(current);
+		current = new ArrayList<>();
+	    }
+	}
+	if (!current.isEmpty()) {
+	    slices.add(current);
+	}
+	return slices;
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getAssetManagement().getEntityManagerProvider();
+    }
+
+    protected EntityManager getEntityManager() {
+	return getEntityManagerProvider().getEntityManager();
+    }
+
+    protected RdbAssetManagement getAssetManagement() {
+	return assetManagement;
+    }
+
+    protected BulkImport getSettings() {
+	return settings;
+    }
+
+    protected Map<String, RdbAssetType> getAssetTypes() {
+	return assetTypes;
+    }
+
+    /**
+     * Creates or updates the entity for a single entry.
+     *
+     * @param <R>
+     * @param <E>
+     */
+    protected static interface EntityWriter<R, E> {
+
+	/**
+	 * Get token for an entry.
+	 * 
+	 * @param request
+	 * @return
+	 */
+	public String getToken(R request);
+
+	/**
+	 * Validate an entry against existing data. Returns null if the entry is valid
+	 * or the reason it was rejected.
+	 * 
+	 * @param request
+	 * @param existing
+	 * @return
+	 */
+	public String validate(R request, E existing);
+
+	/**
+	 * Create an entity or update the existing one.
+	 * 
+	 * @param request
+	 * @param existing
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public E store(R request, E existing) throws SiteWhereException;
+    }
+}
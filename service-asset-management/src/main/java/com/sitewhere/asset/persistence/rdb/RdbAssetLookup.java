@@ -0,0 +1,199 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import javax.persistence.Query;
+
+import com.sitewhere.asset.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.asset.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.asset.persistence.lookup.EntityLookupResult;
+import com.sitewhere.asset.persistence.rdb.entity.Queries;
+import com.sitewhere.asset.persistence.rdb.entity.RdbAsset;
+import com.sitewhere.asset.persistence.rdb.entity.RdbAssetType;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.shared.cache.ReferenceCache;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.common.IPersistentEntity;
+
+/**
+ * Loads lists of assets or asset types by id or token. Keys found in the
+ * tenant cache are served from it, the remaining distinct keys are resolved
+ * with a single IN query, and results are returned in request order with an
+ * explicit entry for each key that did not match.
+ */
+public class RdbAssetLookup {
+
+    /** Largest number of keys allowed in a request */
+    private static final int MAX_KEYS = 1000;
+
+    /** Asset management implementation */
+    private RdbAssetManagement assetManagement;
+
+    public RdbAssetLookup(RdbAssetManagement assetManagement) {
+	this.assetManagement = assetManagement;
+    }
+
+    /**
+     * Look up assets.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupAssets(EntityLookupRequest request) throws SiteWhereException {
+	return lookup(request, RdbAsset.class, Queries.QUERY_ASSETS_BY_IDS, Queries.QUERY_ASSETS_BY_TOKENS,
+		getAssetManagement().getAssetCache(), getAssetManagement().getAssetTokenCache());
+    }
+
+    /**
+     * Look up asset types.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupAssetTypes(EntityLookupRequest request) throws SiteWhereException {
+	return lookup(request, RdbAssetType.class, Queries.QUERY_ASSET_TYPES_BY_IDS,
+		Queries.QUERY_ASSET_TYPES_BY_TOKENS, getAssetManagement().getAssetTypeCache(),
+		getAssetManagement().getAssetTypeTokenCache());
+    }
+
+    /**
+     * Resolve the keys of a request and build results in request order.
+     * 
+     * @param request
+     * @param type
+     * @param idsQuery
+     * @param tokensQuery
+     * @param byId
+     * @param byToken
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <V extends IPersistentEntity> EntityLookupResponse lookup(EntityLookupRequest request,
+	    Class<? extends V> type, String idsQuery, String tokensQuery, ReferenceCache<UUID, V> byId,
+	    ReferenceCache<String, V> byToken) throws SiteWhereException {
+	boolean useIds = !isEmpty(request.getIds());
+	if (useIds && !isEmpty(request.getTokens())) {
+	    throw new SiteWhereException("Lookup requests may contain ids or tokens but not both.");
+	}
+	List<String> keys = new ArrayList<>();
+	if (useIds) {
+	    for (UUID id : request.getIds()) {
+		keys.add(id != null ? id.toString() : null);
+	    }
+	} else if (request.getTokens() != null) {
+	    keys.addAll(request.getTokens());
+	}
+	if (keys.size() > MAX_KEYS) {
+	    throw new SiteWhereException(String
+		    .format("Lookup request contains %d keys which exceeds the limit of %d.", keys.size(), MAX_KEYS));
+	}
+
+	Map<String, V> found = new HashMap<>();
+	if (useIds) {
+	    Set<UUID> distinct = new LinkedHashSet<>();
+	    for (UUID id : request.getIds()) {
+		if (id != null) {
+		    distinct.add(id);
+		}
+	    }
+	    for (Map.Entry<UUID, V> entry : resolve(distinct, byId, idsQuery, "ids", type, IPersistentEntity::getId)
+		    .entrySet()) {
+		found.put(entry.getKey().toString(), entry.getValue());
+	    }
+	} else {
+	    Set<String> distinct = new LinkedHashSet<>();
+	    for (String token : keys) {
+		if (token != null) {
+		    distinct.add(token);
+		}
+	    }
+	    found.putAll(resolve(distinct, byToken, tokensQuery, "tokens", type, IPersistentEntity::getToken));
+	}
+
+	EntityLookupResponse response = new EntityLookupResponse();
+	for (String key : keys) {
+	    response.add(new EntityLookupResult(key, (key != null) ? found.get(key) : null));
+	}
+	return response;
+    }
+
+    /**
+     * Get entities for a set of keys from the cache, loading misses with one
+     * query and adding them to the cache. The cache may be null if caching is
+     * disabled.
+     * 
+     * @param keys
+     * @param cache
+     * @param queryName
+     * @param parameter
+     * @param type
+     * @param keyOf
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <K, V extends IPersistentEntity> Map<K, V> resolve(Set<K> keys, ReferenceCache<K, V> cache,
+	    String queryName, String parameter, Class<? extends V> type, Function<V, K> keyOf)
+	    throws SiteWhereException {
+	Map<K, V> found = new HashMap<>();
+	List<K> missing = new ArrayList<>();
+	for (K key : keys) {
+	    V cached = (cache != null) ? cache.getIfPresent(key) : null;
+	    if (cached != null) {
+		found.put(key, cached);
+	    } else {
+		missing.add(key);
+	    }
+	}
+	if (missing.isEmpty()) {
+	    return found;
+	}
+
+	long generation = (cache != null) ? cache.getGeneration() : 0;
+	Query query = getEntityManagerProvider().query(queryName);
+	query.setParameter(parameter, missing);
+	for (V entity : getEntityManagerProvider().findMany(query, type)) {
+	    K key = keyOf.apply(entity);
+	    found.put(key, entity);
+	    if (cache != null) {
+		cache.put(key, entity, generation);
+	    }
+	}
+	return found;
+    }
+
+    protected static boolean isEmpty(List<?> values) {
+	return (values == null) || values.isEmpty();
+    }
+
+    protected RdbAssetManagement getAssetManagement() {
+	return assetManagement;
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getAssetManagement().getEntityManagerProvider();
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.sitewhere.asset.persistence.rdb;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,17 +26,30 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
+import com.sitewhere.asset.configuration.AssetCaching;
+import com.sitewhere.asset.configuration.BulkImport;
 import com.sitewhere.asset.persistence.AssetManagementPersistence;
+import com.sitewhere.asset.persistence.bulk.AssetBulkRequest;
+import com.sitewhere.asset.persistence.bulk.AssetBulkResponse;
+import com.sitewhere.asset.persistence.bulk.AssetTypeBulkRequest;
+import com.sitewhere.asset.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.asset.persistence.lookup.EntityLookupResponse;
 import com.sitewhere.asset.persistence.rdb.entity.Queries;
 import com.sitewhere.asset.persistence.rdb.entity.RdbAsset;
 import com.sitewhere.asset.persistence.rdb.entity.RdbAssetType;
 import com.sitewhere.asset.spi.microservice.IAssetManagementTenantEngine;
+import com.sitewhere.asset.spi.persistence.IAssetLookupManagement;
+import com.sitewhere.asset.spi.persistence.IBulkAssetManagement;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.rdb.RdbTenantComponent;
 import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
 import com.sitewhere.rdb.spi.IRdbQueryProvider;
 import com.sitewhere.rest.model.asset.Asset;
 import com.sitewhere.rest.model.asset.AssetType;
+import com.sitewhere.shared.asset.AssetChange;
+import com.sitewhere.shared.cache.ReferenceCache;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.asset.IAsset;
@@ -43,14 +58,68 @@ import com.sitewhere.spi.asset.request.IAssetCreateRequest;
 import com.sitewhere.spi.asset.request.IAssetTypeCreateRequest;
 import com.sitewhere.spi.error.ErrorCode;
 import com.sitewhere.spi.error.ErrorLevel;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.search.ISearchResults;
 import com.sitewhere.spi.search.asset.IAssetSearchCriteria;
 import com.sitewhere.spi.search.asset.IAssetTypeSearchCritiera;
 
+import io.prometheus.client.Counter;
+
 /**
- * Implementation of {@link IAssetManagement} that stores data in RDB.
+ * Implementation of {@link IAssetManagement} that stores data in RDB. Assets
+ * and asset types are read through tenant caches which are invalidated when
+ * entities are updated or deleted. Updates and deletes are also published to
+ * the asset changes topic, which other replicas use to clear their caches.
  */
-public class RdbAssetManagement extends RdbTenantComponent implements IAssetManagement {
+public class RdbAssetManagement extends RdbTenantComponent
+	implements IAssetManagement, IBulkAssetManagement, IAssetLookupManagement {
+
+    /** Identifies changes published by this process */
+    public static final String ORIGIN = UUID.randomUUID().toString();
+
+    /** Meter for counting cache hits */
+    private static final Counter HITS = TenantEngineLifecycleComponent.createCounterMetric(
+	    "asset_management_cache_hit_count", "Count of asset lookups served from cache", "cache");
+
+    /** Meter for counting cache misses */
+    private static final Counter MISSES = TenantEngineLifecycleComponent.createCounterMetric(
+	    "asset_management_cache_miss_count", "Count of asset lookups read from datastore", "cache");
+
+    /** Assets by id (null if caching is disabled) */
+    private ReferenceCache<UUID, IAsset> assetCache;
+
+    /** Assets by token (null if caching is disabled) */
+    private ReferenceCache<String, IAsset> assetTokenCache;
+
+    /** Asset types by id (null if caching is disabled) */
+    private ReferenceCache<UUID, IAssetType> assetTypeCache;
+
+    /** Asset types by token (null if caching is disabled) */
+    private ReferenceCache<String, IAssetType> assetTypeTokenCache;
+
+    /*
+     * @see com.sitewhere.spi.microservice.lifecycle.ILifecycleComponent#initialize(
+     * com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.initialize(monitor);
+	AssetCaching settings = ((IAssetManagementTenantEngine) getTenantEngine()).getActiveConfiguration()
+		.getAssetCaching();
+	if (settings != null && settings.isEnabled()) {
+	    int max = Math.max(1, settings.getMaxEntries());
+	    long expiration = settings.getExpirationSeconds() * 1000L;
+	    this.assetCache = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("asset"));
+	    this.assetTokenCache = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("asset_token"));
+	    this.assetTypeCache = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("asset_type"));
+	    this.assetTypeTokenCache = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("asset_type_token"));
+	} else {
+	    this.assetCache = null;
+	    this.assetTokenCache = null;
+	    this.assetTypeCache = null;
+	    this.assetTypeTokenCache = null;
+	}
+    }
 
     /*
      * @see com.sitewhere.microservice.api.asset.IAssetManagement#createAsset(com.
@@ -80,13 +149,16 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
     public IAsset updateAsset(UUID assetId, IAssetCreateRequest request) throws SiteWhereException {
 	RdbAsset existing = getEntityManagerProvider().findById(assetId, RdbAsset.class);
 	if (existing != null) {
+	    String token = existing.getToken();
 	    IAssetType assetType = getAssetTypeByToken(request.getAssetTypeToken());
 	    Asset updates = new Asset();
 
 	    // Use common update logic.
 	    AssetManagementPersistence.assetUpdateLogic(assetType, updates, request);
 	    RdbAsset.copy(updates, existing);
-	    return getEntityManagerProvider().merge(existing);
+	    RdbAsset updated = getEntityManagerProvider().merge(existing);
+	    evict(RdbAsset.class, assetId, token, updated.getToken());
+	    return updated;
 	}
 	return null;
     }
@@ -98,7 +170,10 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
      */
     @Override
     public IAsset getAsset(UUID assetId) throws SiteWhereException {
-	return getEntityManagerProvider().findById(assetId, RdbAsset.class);
+	if (getAssetCache() != null) {
+	    return getAssetCache().get(assetId, id -> findAsset(id));
+	}
+	return findAsset(assetId);
     }
 
     /*
@@ -108,9 +183,31 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
      */
     @Override
     public IAsset getAssetByToken(String token) throws SiteWhereException {
-	Query query = getEntityManagerProvider().query(Queries.QUERY_ASSET_BY_TOKEN);
-	query.setParameter("token", token);
-	return getEntityManagerProvider().findOne(query, RdbAsset.class);
+	if (getAssetTokenCache() != null) {
+	    return getAssetTokenCache().get(token, key -> findAssetByToken(key));
+	}
+	return findAssetByToken(token);
+    }
+
+    /*
+     * @see com.sitewhere.asset.spi.persistence.IAssetLookupManagement#
+     * lookupAssets(com.sitewhere.asset.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupAssets(EntityLookupRequest request) throws SiteWhereException {
+	return new RdbAssetLookup(this).lookupAssets(request);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.asset.spi.persistence.IBulkAssetManagement#bulkUpsertAssets(com
+     * .sitewhere.asset.persistence.bulk.AssetBulkRequest)
+     */
+    @Override
+    public AssetBulkResponse bulkUpsertAssets(AssetBulkRequest request) throws SiteWhereException {
+	BulkImport settings = ((IAssetManagementTenantEngine) getTenantEngine()).getActiveConfiguration()
+		.getBulkImport();
+	return new RdbAssetBulkLoader(this, settings).loadAssets(request);
     }
 
     /*
@@ -120,7 +217,9 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
      */
     @Override
     public IAsset deleteAsset(UUID assetId) throws SiteWhereException {
-	return getEntityManagerProvider().remove(assetId, RdbAsset.class);
+	RdbAsset deleted = getEntityManagerProvider().remove(assetId, RdbAsset.class);
+	evict(RdbAsset.class, assetId, (deleted != null) ? deleted.getToken() : null);
+	return deleted;
     }
 
     /*
@@ -190,12 +289,15 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
     public IAssetType updateAssetType(UUID assetTypeId, IAssetTypeCreateRequest request) throws SiteWhereException {
 	RdbAssetType existing = getEntityManagerProvider().findById(assetTypeId, RdbAssetType.class);
 	if (existing != null) {
+	    String token = existing.getToken();
 	    AssetType updates = new AssetType();
 
 	    // Use common update logic.
 	    AssetManagementPersistence.assetTypeUpdateLogic(updates, request);
 	    RdbAssetType.copy(updates, existing);
-	    return getEntityManagerProvider().merge(existing);
+	    RdbAssetType updated = getEntityManagerProvider().merge(existing);
+	    evict(RdbAssetType.class, assetTypeId, token, updated.getToken());
+	    return updated;
 	}
 	return null;
     }
@@ -207,7 +309,10 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
      */
     @Override
     public IAssetType getAssetType(UUID assetTypeId) throws SiteWhereException {
-	return getEntityManagerProvider().findById(assetTypeId, RdbAssetType.class);
+	if (getAssetTypeCache() != null) {
+	    return getAssetTypeCache().get(assetTypeId, id -> findAssetType(id));
+	}
+	return findAssetType(assetTypeId);
     }
 
     /*
@@ -217,9 +322,31 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
      */
     @Override
     public IAssetType getAssetTypeByToken(String token) throws SiteWhereException {
-	Query query = getEntityManagerProvider().query(Queries.QUERY_ASSET_TYPE_BY_TOKEN);
-	query.setParameter("token", token);
-	return getEntityManagerProvider().findOne(query, RdbAssetType.class);
+	if (getAssetTypeTokenCache() != null) {
+	    return getAssetTypeTokenCache().get(token, key -> findAssetTypeByToken(key));
+	}
+	return findAssetTypeByToken(token);
+    }
+
+    /*
+     * @see com.sitewhere.asset.spi.persistence.IAssetLookupManagement#
+     * lookupAssetTypes(com.sitewhere.asset.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupAssetTypes(EntityLookupRequest request) throws SiteWhereException {
+	return new RdbAssetLookup(this).lookupAssetTypes(request);
+    }
+
+    /*
+     * @see com.sitewhere.asset.spi.persistence.IBulkAssetManagement#
+     * bulkUpsertAssetTypes(com.sitewhere.asset.persistence.bulk.
+     * AssetTypeBulkRequest)
+     */
+    @Override
+    public AssetBulkResponse bulkUpsertAssetTypes(AssetTypeBulkRequest request) throws SiteWhereException {
+	BulkImport settings = ((IAssetManagementTenantEngine) getTenantEngine()).getActiveConfiguration()
+		.getBulkImport();
+	return new RdbAssetBulkLoader(this, settings).loadAssetTypes(request);
     }
 
     /*
@@ -229,7 +356,9 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
      */
     @Override
     public IAssetType deleteAssetType(UUID assetTypeId) throws SiteWhereException {
-	return getEntityManagerProvider().remove(assetTypeId, RdbAssetType.class);
+	RdbAssetType deleted = getEntityManagerProvider().remove(assetTypeId, RdbAssetType.class);
+	evict(RdbAssetType.class, assetTypeId, (deleted != null) ? deleted.getToken() : null);
+	return deleted;
     }
 
     /*
@@ -264,6 +393,126 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
 	}, RdbAssetType.class);
     }
 
+    /**
+     * Remove cached copies of an asset or asset type and publish the change.
+     * Called after the entity is written so that lookups racing with the write
+     * are not cached.
+     * 
+     * @param type
+     * @param id
+     * @param tokens
+     */
+    public void evict(Class<?> type, UUID id, String... tokens) {
+	AssetChange.EntityType changed = (type == RdbAsset.class) ? AssetChange.EntityType.Asset
+		: AssetChange.EntityType.AssetType;
+	removeCached(changed, id, Arrays.asList(tokens));
+	publish(changed, id, tokens);
+    }
+
+    /**
+     * Remove cached copies of an asset or asset type from this replica only.
+     * Used for changes published by other replicas.
+     * 
+     * @param type
+     * @param id
+     * @param tokens
+     */
+    public void removeCached(AssetChange.EntityType type, UUID id, List<String> tokens) {
+	if (type == AssetChange.EntityType.Asset && getAssetCache() != null) {
+	    getAssetCache().remove(id);
+	    for (String token : tokens) {
+		getAssetTokenCache().remove(token);
+	    }
+	} else if (type == AssetChange.EntityType.AssetType && getAssetTypeCache() != null) {
+	    getAssetTypeCache().remove(id);
+	    for (String token : tokens) {
+		getAssetTypeTokenCache().remove(token);
+	    }
+	}
+    }
+
+    /**
+     * Publish a change to the asset changes topic. Failures are logged since the
+     * entity has already been written.
+     * 
+     * @param type
+     * @param id
+     * @param tokens
+     */
+    protected void publish(AssetChange.EntityType type, UUID id, String... tokens) {
+	List<String> distinct = new ArrayList<>();
+	for (String token : tokens) {
+	    if (token != null && !distinct.contains(token)) {
+		distinct.add(token);
+	    }
+	}
+	try {
+	    AssetChange change = new AssetChange(type, id, distinct, ORIGIN);
+	    ((IAssetManagementTenantEngine) getTenantEngine()).getAssetChangesProducer().send(id.toString(),
+		    MarshalUtils.marshalJson(change));
+	} catch (Throwable e) {
+	    getLogger().warn(String.format("Unable to publish change to %s '%s'.", type.name(), id), e);
+	}
+    }
+
+    /**
+     * Read asset from datastore.
+     * 
+     * @param assetId
+     * @return
+     * @throws SiteWhereException
+     */
+    protected RdbAsset findAsset(UUID assetId) throws SiteWhereException {
+	return getEntityManagerProvider().findById(assetId, RdbAsset.class);
+    }
+
+    /**
+     * Read asset by token from datastore.
+     * 
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected RdbAsset findAssetByToken(String token) throws SiteWhereException {
+	Query query = getEntityManagerProvider().query(Queries.QUERY_ASSET_BY_TOKEN);
+	query.setParameter("token", token);
+	return getEntityManagerProvider().findOne(query, RdbAsset.class);
+    }
+
+    /**
+     * Read asset type from datastore.
+     * 
+     * @param assetTypeId
+     * @return
+     * @throws SiteWhereException
+     */
+    protected RdbAssetType findAssetType(UUID assetTypeId) throws SiteWhereException {
+	return getEntityManagerProvider().findById(assetTypeId, RdbAssetType.class);
+    }
+
+    /**
+     * Read asset type by token from datastore.
+     * 
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected RdbAssetType findAssetTypeByToken(String token) throws SiteWhereException {
+	Query query = getEntityManagerProvider().query(Queries.QUERY_ASSET_TYPE_BY_TOKEN);
+	query.setParameter("token", token);
+	return getEntityManagerProvider().findOne(query, RdbAssetType.class);
+    }
+
+    /**
+     * Build metric labels for a cache.
+     * 
+     * @param cache
+     * @return
+     */
+    protected String[] labels(String cache) {
+	return getTenantEngine().buildLabels(cache);
+    }
+
     /*
      * @see com.sitewhere.rdb.spi.IRdbTenantComponent#getEntityManagerProvider()
      */
@@ -271,4 +520,20 @@ public class RdbAssetManagement extends RdbTenantComponent implements IAssetMana
     public IRdbEntityManagerProvider getEntityManagerProvider() {
 	return ((IAssetManagementTenantEngine) getTenantEngine()).getRdbEntityManagerProvider();
     }
-}
+
+    protected ReferenceCache<UUID, IAsset> getAssetCache() {
+	return assetCache;
+    }
+
+    protected ReferenceCache<String, IAsset> getAssetTokenCache() {
+	return assetTokenCache;
+    }
+
+    protected ReferenceCache<UUID, IAssetType> getAssetTypeCache() {
+	return assetTypeCache;
+    }
+
+    protected ReferenceCache<String, IAssetType> getAssetTypeTokenCache() {
+	return assetTypeTokenCache;
+    }
+}
\ No newline at end of file
@@ -20,6 +20,18 @@ public class Queries {
     /** Get asset by token */
     public static final String QUERY_ASSET_BY_TOKEN = "assets_findByToken";
 
+    /** Get assets by list of tokens */
+    public static final String QUERY_ASSETS_BY_TOKENS = "assets_findByTokens";
+
+    /** Get assets by list of ids */
+    public static final String QUERY_ASSETS_BY_IDS = "assets_findByIds";
+
     /** Get asset type by token */
     public static final String QUERY_ASSET_TYPE_BY_TOKEN = "assetTypes_findByToken";
+
+    /** Get asset types by list of tokens */
+    public static final String QUERY_ASSET_TYPES_BY_TOKENS = "assetTypes_findByTokens";
+
+    /** Get asset types by list of ids */
+    public static final String QUERY_ASSET_TYPES_BY_IDS = "assetTypes_findByIds";
 }
@@ -29,6 +29,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
@@ -40,7 +41,10 @@ import com.sitewhere.spi.asset.IAsset;
 
 @Entity
 @Table(name = "assets")
-@NamedQuery(name = Queries.QUERY_ASSET_BY_TOKEN, query = "SELECT a FROM RdbAsset a WHERE a.token = :token")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_ASSET_BY_TOKEN, query = "SELECT a FROM RdbAsset a WHERE a.token = :token"),
+	@NamedQuery(name = Queries.QUERY_ASSETS_BY_TOKENS, query = "SELECT a FROM RdbAsset a WHERE a.token IN :tokens"),
+	@NamedQuery(name = Queries.QUERY_ASSETS_BY_IDS, query = "SELECT a FROM RdbAsset a WHERE a.id IN :ids") })
 public class RdbAsset extends RdbBrandedEntity implements IAsset {
 
     /** Serial version UID */
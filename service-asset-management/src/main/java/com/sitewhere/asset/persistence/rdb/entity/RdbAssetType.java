@@ -31,6 +31,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
@@ -43,7 +44,10 @@ import com.sitewhere.spi.asset.IAssetType;
 
 @Entity
 @Table(name = "asset_types")
-@NamedQuery(name = Queries.QUERY_ASSET_TYPE_BY_TOKEN, query = "SELECT a FROM RdbAssetType a WHERE a.token = :token")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_ASSET_TYPE_BY_TOKEN, query = "SELECT a FROM RdbAssetType a WHERE a.token = :token"),
+	@NamedQuery(name = Queries.QUERY_ASSET_TYPES_BY_TOKENS, query = "SELECT a FROM RdbAssetType a WHERE a.token IN :tokens"),
+	@NamedQuery(name = Queries.QUERY_ASSET_TYPES_BY_IDS, query = "SELECT a FROM RdbAssetType a WHERE a.id IN :ids") })
 public class RdbAssetType extends RdbBrandedEntity implements IAssetType {
 
     /** Serial version UID */
@@ -16,6 +16,10 @@
 package com.sitewhere.asset.spi.microservice;
 
 import com.sitewhere.asset.configuration.AssetManagementTenantConfiguration;
+import com.sitewhere.asset.grpc.AssetBulkImpl;
+import com.sitewhere.asset.grpc.AssetLookupImpl;
+import com.sitewhere.asset.spi.kafka.IAssetChangesConsumer;
+import com.sitewhere.asset.spi.kafka.IAssetChangesProducer;
 import com.sitewhere.grpc.service.AssetManagementGrpc;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
 import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
@@ -40,10 +44,38 @@ public interface IAssetManagementTenantEngine extends IMicroserviceTenantEngine<
      */
     public AssetManagementGrpc.AssetManagementImplBase getAssetManagementImpl();
 
+    /**
+     * Get implementation class that handles bulk asset requests.
+     * 
+     * @return
+     */
+    public AssetBulkImpl getAssetBulkImpl();
+
+    /**
+     * Get implementation class that handles asset lookup requests.
+     * 
+     * @return
+     */
+    public AssetLookupImpl getAssetLookupImpl();
+
+    /**
+     * Get Kafka producer for changes to assets and asset types.
+     * 
+     * @return
+     */
+    public IAssetChangesProducer getAssetChangesProducer();
+
     /**
      * Get provider which provides an RDB entity manager for this tenant.
      * 
      * @return
      */
     public IRdbEntityManagerProvider getRdbEntityManagerProvider();
+
+    /**
+     * Get Kafka consumer for asset changes made by other replicas.
+     * 
+     * @return
+     */
+    public IAssetChangesConsumer getAssetChangesConsumer();
 }
\ No newline at end of file
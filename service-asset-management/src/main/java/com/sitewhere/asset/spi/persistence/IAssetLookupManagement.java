@@ -0,0 +1,45 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.spi.persistence;
+
+import com.sitewhere.asset.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.asset.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Asset management operations that load many entities by id or token in a
+ * single call.
+ */
+public interface IAssetLookupManagement {
+
+    /**
+     * Get assets by id or token.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupAssets(EntityLookupRequest request) throws SiteWhereException;
+
+    /**
+     * Get asset types by id or token.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupAssetTypes(EntityLookupRequest request) throws SiteWhereException;
+}
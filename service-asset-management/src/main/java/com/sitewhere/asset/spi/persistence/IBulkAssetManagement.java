@@ -0,0 +1,46 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.asset.spi.persistence;
+
+import com.sitewhere.asset.persistence.bulk.AssetBulkRequest;
+import com.sitewhere.asset.persistence.bulk.AssetBulkResponse;
+import com.sitewhere.asset.persistence.bulk.AssetTypeBulkRequest;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Asset management operations that create or update many entities in a single
+ * call.
+ */
+public interface IBulkAssetManagement {
+
+    /**
+     * Create or update asset types in bulk.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public AssetBulkResponse bulkUpsertAssetTypes(AssetTypeBulkRequest request) throws SiteWhereException;
+
+    /**
+     * Create or update assets in bulk.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public AssetBulkResponse bulkUpsertAssets(AssetBulkRequest request) throws SiteWhereException;
+}
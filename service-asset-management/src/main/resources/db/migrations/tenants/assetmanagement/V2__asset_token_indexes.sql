@@ -0,0 +1,8 @@
+create index IDX_assets_token 
+	on assets (token);
+
+create index IDX_assets_asset_type 
+	on assets (asset_type_id);
+
+create index IDX_asset_types_token 
+	on asset_types (token);
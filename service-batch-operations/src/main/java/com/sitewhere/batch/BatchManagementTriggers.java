@@ -15,13 +15,17 @@
  */
 package com.sitewhere.batch;
 
+import java.util.Collections;
+
 import com.sitewhere.batch.spi.IBatchOperationManager;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine;
 import com.sitewhere.microservice.api.batch.BatchManagementDecorator;
 import com.sitewhere.microservice.api.batch.IBatchManagement;
+import com.sitewhere.shared.batch.BatchOperationParameters;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.batch.IBatchOperation;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
+import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
 
 /**
  * Attaches logic to batch management API invocations.
@@ -45,6 +49,22 @@ public class BatchManagementTriggers extends BatchManagementDecorator {
 	return result;
     }
 
+    /*
+     * @see com.sitewhere.microservice.api.batch.BatchManagementDecorator#
+     * createBatchOperation(com.sitewhere.spi.batch.request.
+     * IBatchOperationCreateRequest)
+     */
+    @Override
+    public IBatchOperation createBatchOperation(IBatchOperationCreateRequest request) throws SiteWhereException {
+	IBatchOperation result = super.createBatchOperation(request);
+	String criteria = result.getParameters().get(BatchOperationParameters.PARAM_RESOLVE_DEVICE_CRITERIA);
+	if (Boolean.parseBoolean(criteria)) {
+	    // Devices are resolved incrementally by the operation manager.
+	    getBatchOperationManager().addUnprocessedBatchOperation(result, Collections.emptyList());
+	}
+	return result;
+    }
+
     protected IBatchOperationManager getBatchOperationManager() {
 	return ((IBatchOperationsTenantEngine) getTenantEngine()).getBatchOperationManager();
     }
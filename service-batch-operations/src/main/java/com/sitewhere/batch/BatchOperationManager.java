@@ -15,18 +15,31 @@
  */
 package com.sitewhere.batch;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.sitewhere.batch.handler.BatchCommandInvocationHandler;
 import com.sitewhere.batch.kafka.UnprocessedBatchElementsConsumer;
 import com.sitewhere.batch.kafka.UnprocessedBatchOperationsConsumer;
+import com.sitewhere.batch.persistence.BatchOperationCheckpoint;
+import com.sitewhere.batch.resolver.DeviceCriteriaResolver;
+import com.sitewhere.batch.spi.IBatchCheckpointManagement;
+import com.sitewhere.batch.spi.IBatchOperationCheckpoint;
 import com.sitewhere.batch.spi.IBatchOperationHandler;
 import com.sitewhere.batch.spi.IBatchOperationManager;
 import com.sitewhere.batch.spi.kafka.IFailedBatchElementsProducer;
@@ -34,9 +47,11 @@ import com.sitewhere.batch.spi.kafka.IUnprocessedBatchElementsConsumer;
 import com.sitewhere.batch.spi.kafka.IUnprocessedBatchElementsProducer;
 import com.sitewhere.batch.spi.kafka.IUnprocessedBatchOperationsConsumer;
 import com.sitewhere.batch.spi.kafka.IUnprocessedBatchOperationsProducer;
+import com.sitewhere.batch.spi.microservice.IBatchOperationsMicroservice;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine;
 import com.sitewhere.grpc.batch.BatchModelConverter;
 import com.sitewhere.grpc.batch.BatchModelMarshaler;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
 import com.sitewhere.microservice.api.batch.IBatchManagement;
 import com.sitewhere.microservice.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.microservice.lifecycle.SimpleLifecycleStep;
@@ -47,6 +62,9 @@ import com.sitewhere.rest.model.batch.kafka.UnprocessedBatchElement;
 import com.sitewhere.rest.model.batch.kafka.UnprocessedBatchOperation;
 import com.sitewhere.rest.model.batch.request.BatchElementCreateRequest;
 import com.sitewhere.rest.model.batch.request.BatchOperationUpdateRequest;
+import com.sitewhere.shared.batch.BatchOperationParameters;
+import com.sitewhere.shared.batch.BatchOperationTypes;
+import com.sitewhere.shared.grpc.DeviceProjectionClient;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.batch.BatchOperationStatus;
 import com.sitewhere.spi.batch.ElementProcessingStatus;
@@ -55,6 +73,7 @@ import com.sitewhere.spi.batch.IBatchOperation;
 import com.sitewhere.spi.batch.kafka.IUnprocessedBatchElement;
 import com.sitewhere.spi.batch.kafka.IUnprocessedBatchOperation;
 import com.sitewhere.spi.batch.request.IBatchElementCreateRequest;
+import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.microservice.lifecycle.ICompositeLifecycleStep;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
@@ -69,12 +88,39 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
     /** Number of threads used for batch operation processing */
     private static final int BATCH_PROCESSOR_THREAD_COUNT = 10;
 
+    /** Default number of devices resolved per page for criteria operations */
+    private static final int DEFAULT_CRITERIA_PAGE_SIZE = 500;
+
+    /** Length of the lease a processor holds on a checkpoint */
+    private static final long CHECKPOINT_LEASE_MS = 2 * 60 * 1000;
+
+    /** Interval at which held leases are renewed */
+    private static final long CHECKPOINT_HEARTBEAT_MS = CHECKPOINT_LEASE_MS / 4;
+
+    /** Time after which an element still processing is assumed abandoned */
+    private static final long ELEMENT_CLAIM_TIMEOUT_MS = 10 * 60 * 1000;
+
+    /** Maximum number of abandoned elements returned to processing per pass */
+    private static final int MAX_RECLAIMED_ELEMENTS = 1000;
+
     /** Thread pool for processing events */
     private ExecutorService processorPool;
 
+    /** Renews checkpoint leases and resumes operations with expired leases */
+    private ScheduledExecutorService leasePool;
+
+    /** Identifies this processor as the owner of checkpoint leases */
+    private String processorId = UUID.randomUUID().toString();
+
+    /** Ids of operations being initialized by this processor */
+    private Set<UUID> leasedOperationIds = ConcurrentHashMap.newKeySet();
+
     /** Throttling delay in milliseconds */
     private long throttleDelayMs;
 
+    /** Number of devices resolved per page for criteria operations */
+    private int criteriaPageSize = DEFAULT_CRITERIA_PAGE_SIZE;
+
     /** Map of handlers by operation type */
     private Map<String, IBatchOperationHandler> handlersByOperationType = new HashMap<String, IBatchOperationHandler>();
 
@@ -138,6 +184,10 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	    getProcessorPool().shutdownNow();
 	}
 	processorPool = Executors.newFixedThreadPool(BATCH_PROCESSOR_THREAD_COUNT, new ProcessorsThreadFactory());
+	if (getLeasePool() != null) {
+	    getLeasePool().shutdownNow();
+	}
+	leasePool = Executors.newSingleThreadScheduledExecutor(new LeaseThreadFactory());
 
 	// Create step that will start components.
 	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getComponentName());
@@ -162,6 +212,10 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 
 	// Execute startup steps.
 	start.execute(monitor);
+
+	// Resume criteria operations whose processor stopped renewing its lease.
+	getLeasePool().scheduleWithFixedDelay(new BatchOperationResumer(), 0, CHECKPOINT_LEASE_MS,
+		TimeUnit.MILLISECONDS);
     }
 
     /*
@@ -180,6 +234,9 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (getLeasePool() != null) {
+	    getLeasePool().shutdownNow();
+	}
 	if (getProcessorPool() != null) {
 	    getProcessorPool().shutdownNow();
 	}
@@ -259,6 +316,14 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	this.throttleDelayMs = throttleDelayMs;
     }
 
+    public int getCriteriaPageSize() {
+	return criteriaPageSize;
+    }
+
+    public void setCriteriaPageSize(int criteriaPageSize) {
+	this.criteriaPageSize = criteriaPageSize;
+    }
+
     /**
      * Creates an unprocessed batch operation in a separate thread.
      */
@@ -322,6 +387,10 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	public void runAsSystemUser() throws SiteWhereException {
 	    getLogger()
 		    .info("Initializing batch operation: " + getUnprocessed().getBatchOperation().getId().toString());
+	    if (isDeviceCriteriaOperation(getUnprocessed().getBatchOperation())) {
+		initializeFromDeviceCriteria();
+		return;
+	    }
 	    try {
 		BatchOperationUpdateRequest request = new BatchOperationUpdateRequest();
 		request.setProcessingStatus(BatchOperationStatus.Initializing);
@@ -362,17 +431,205 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	}
 
 	/**
-	 * Send unprocessed batch element to Kafka topic.
+	 * Create elements for devices matching criteria one page at a time, saving a
+	 * checkpoint after each page so that an interrupted operation can resume
+	 * where it left off. The checkpoint is leased while elements are created so
+	 * that only one processor works on an operation at a time. Elements of the
+	 * page that was interrupted are found again on resume rather than created
+	 * twice.
+	 */
+	protected void initializeFromDeviceCriteria() {
+	    IBatchOperation operation = getUnprocessed().getBatchOperation();
+	    if (!getLeasedOperationIds().add(operation.getId())) {
+		return;
+	    }
+	    CheckpointLease lease = null;
+	    try {
+		IBatchOperationCheckpoint existing = getBatchCheckpointManagement()
+			.getBatchOperationCheckpoint(operation.getId());
+		BatchOperationCheckpoint checkpoint;
+		boolean resumed = false;
+		if (existing == null) {
+		    BatchOperationUpdateRequest request = new BatchOperationUpdateRequest();
+		    request.setProcessingStatus(BatchOperationStatus.Initializing);
+		    request.setProcessingStartedDate(new Date());
+		    getBatchManagement().updateBatchOperation(operation.getId(), request);
+
+		    // Only devices that existed when the operation was created are targeted.
+		    checkpoint = new BatchOperationCheckpoint();
+		    checkpoint.setBatchOperationId(operation.getId());
+		    checkpoint.setCursorDate(operation.getCreatedDate());
+		    checkpoint.setCursorDeviceId(DeviceCriteriaResolver.MAX_DEVICE_ID);
+
+		    // Reuse targets of an earlier operation and only resolve newer devices.
+		    IBatchOperation source = getReusableSource(operation);
+		    if (source != null) {
+			checkpoint.setSourceOperationId(source.getId());
+			checkpoint.setFloorDate(source.getCreatedDate());
+		    }
+		    checkpoint.setOwner(getProcessorId());
+		    checkpoint.setLeaseExpiration(new Date(System.currentTimeMillis() + CHECKPOINT_LEASE_MS));
+		    getBatchCheckpointManagement().saveBatchOperationCheckpoint(checkpoint);
+		} else if (existing.isCompleted()) {
+		    return;
+		} else if (!getBatchCheckpointManagement().claimBatchOperationCheckpoint(operation.getId(),
+			getProcessorId(), new Date(System.currentTimeMillis() + CHECKPOINT_LEASE_MS))) {
+		    getLogger().info(String.format("Batch operation %s is being initialized by another processor.",
+			    operation.getId().toString()));
+		    return;
+		} else {
+		    getLogger().info(String.format("Resuming batch operation %s after %d elements.",
+			    operation.getId().toString(), existing.getElementCount()));
+		    checkpoint = BatchOperationCheckpoint.copy(existing);
+		    checkpoint.setOwner(getProcessorId());
+		    resumed = true;
+		}
+		lease = new CheckpointLease(operation.getId());
+		lease.start();
+
+		// Copy elements of the reused operation without resolving devices.
+		while ((checkpoint.getSourceOperationId() != null) && !checkpoint.isSourceCopied()) {
+		    List<? extends IBatchElement> copied = getBatchCheckpointManagement().copyBatchElements(
+			    checkpoint.getSourceOperationId(), operation.getId(), checkpoint.getSourceCursorDeviceId(),
+			    getCriteriaPageSize());
+		    for (IBatchElement element : copied) {
+			if (!lease.isHeld()) {
+			    return;
+			}
+			sendUnprocessedBatchElement(element);
+			checkpoint.setSourceCursorDeviceId(element.getDeviceId());
+			checkpoint.setElementCount(checkpoint.getElementCount() + 1);
+
+			// Potentially pause or throttle batch element processing.
+			handlePauseAndThrottle();
+		    }
+		    if (copied.size() < getCriteriaPageSize()) {
+			checkpoint.setSourceCopied(true);
+		    }
+		    getBatchCheckpointManagement().saveBatchOperationCheckpoint(checkpoint);
+		}
+
+		DeviceCriteriaResolver resolver = new DeviceCriteriaResolver(
+			new DeviceProjectionClient(getDeviceManagementApiChannel()),
+			operation.getParameters().get(BatchOperationParameters.PARAM_CRITERIA_DEVICE_TYPE_TOKEN),
+			checkpoint.getFloorDate(), getCriteriaPageSize(), checkpoint.getCursorDate(),
+			checkpoint.getCursorDeviceId());
+		List<IDevice> page = resolver.nextPage();
+		while (!page.isEmpty()) {
+		    // Only the first page after resuming can contain elements that exist.
+		    Map<UUID, IBatchElement> existingElements = resumed ? getExistingElements(operation, page)
+			    : Collections.emptyMap();
+		    resumed = false;
+		    for (IDevice device : page) {
+			if (!lease.isHeld()) {
+			    return;
+			}
+			BatchElementCreateRequest element = new BatchElementCreateRequest();
+			element.setDeviceToken(device.getToken());
+			element.setProcessingStatus(ElementProcessingStatus.Unprocessed);
+			element.setProcessedDate(null);
+			try {
+			    IBatchElement created = existingElements.get(device.getId());
+			    if (created == null) {
+				created = getBatchManagement().createBatchElement(operation.getId(), element);
+			    }
+			    sendUnprocessedBatchElement(created);
+			    checkpoint.setElementCount(checkpoint.getElementCount() + 1);
+			} catch (SiteWhereException e) {
+			    getLogger().error("Unable to create batch element.", e);
+			    sendFailedBatchElementRequest(element);
+			    checkpoint.setErrorCount(checkpoint.getErrorCount() + 1);
+			}
+
+			// Potentially pause or throttle batch element processing.
+			handlePauseAndThrottle();
+		    }
+
+		    // Record progress before resolving the next page.
+		    checkpoint.setCursorDate(resolver.getCursorDate());
+		    checkpoint.setCursorDeviceId(resolver.getCursorDeviceId());
+		    getBatchCheckpointManagement().saveBatchOperationCheckpoint(checkpoint);
+
+		    page = resolver.nextPage();
+		}
+		checkpoint.setCompleted(true);
+		getBatchCheckpointManagement().saveBatchOperationCheckpoint(checkpoint);
+
+		// Update operation to reflect processing results.
+		BatchOperationUpdateRequest request = new BatchOperationUpdateRequest();
+		request.setProcessingStatus(BatchOperationStatus.InitializedSuccessfully);
+		request.setProcessingEndedDate(new Date());
+		if (checkpoint.getErrorCount() > 0) {
+		    request.setProcessingStatus(BatchOperationStatus.InitializedWithErrors);
+		}
+		getBatchManagement().updateBatchOperation(operation.getId(), request);
+	    } catch (SiteWhereException e) {
+		getLogger().error("Error processing batch operation.", e);
+	    } finally {
+		if (lease != null) {
+		    lease.release();
+		}
+		getLeasedOperationIds().remove(operation.getId());
+	    }
+	}
+
+	/**
+	 * Get elements already created for devices in a page, indexed by device id.
 	 * 
-	 * @param element
+	 * @param operation
+	 * @param page
+	 * @return
 	 * @throws SiteWhereException
 	 */
-	protected void sendUnprocessedBatchElement(IBatchElement element) throws SiteWhereException {
-	    UnprocessedBatchElement unprocessedElement = new UnprocessedBatchElement();
-	    unprocessedElement.setBatchElement(element);
-	    getUnprocessedBatchElementsProducer().send(element.getDeviceId().toString(),
-		    BatchModelMarshaler.buildUnprocessedBatchElementPayloadMessage(
-			    BatchModelConverter.asGrpcUnprocessedBatchElement(unprocessedElement)));
+	protected Map<UUID, IBatchElement> getExistingElements(IBatchOperation operation, List<IDevice> page)
+		throws SiteWhereException {
+	    List<UUID> deviceIds = new ArrayList<>();
+	    for (IDevice device : page) {
+		deviceIds.add(device.getId());
+	    }
+	    Map<UUID, IBatchElement> existing = new HashMap<>();
+	    for (IBatchElement element : getBatchCheckpointManagement().listBatchElementsForDevices(operation.getId(),
+		    deviceIds)) {
+		existing.put(element.getDeviceId(), element);
+	    }
+	    return existing;
+	}
+
+	/**
+	 * Get an earlier operation whose targets may be reused by the given
+	 * operation. The earlier operation must use the same criteria and must have
+	 * resolved all of its devices without errors.
+	 * 
+	 * @param operation
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	protected IBatchOperation getReusableSource(IBatchOperation operation) throws SiteWhereException {
+	    String sourceId = operation.getParameters().get(BatchOperationParameters.PARAM_REUSE_TARGETS_FROM);
+	    if (sourceId == null) {
+		return null;
+	    }
+	    IBatchOperation source;
+	    try {
+		source = getBatchManagement().getBatchOperation(UUID.fromString(sourceId));
+	    } catch (IllegalArgumentException e) {
+		getLogger().warn(String.format("Ignoring invalid reused operation id '%s'.", sourceId));
+		return null;
+	    }
+	    if ((source == null) || !isDeviceCriteriaOperation(source)) {
+		return null;
+	    }
+	    String deviceTypeToken = BatchOperationParameters.PARAM_CRITERIA_DEVICE_TYPE_TOKEN;
+	    if (!Objects.equals(source.getParameters().get(deviceTypeToken),
+		    operation.getParameters().get(deviceTypeToken))) {
+		return null;
+	    }
+	    IBatchOperationCheckpoint checkpoint = getBatchCheckpointManagement()
+		    .getBatchOperationCheckpoint(source.getId());
+	    if ((checkpoint == null) || !checkpoint.isCompleted() || (checkpoint.getErrorCount() > 0)) {
+		return null;
+	    }
+	    return source;
 	}
 
 	/**
@@ -390,6 +647,117 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	}
     }
 
+    /**
+     * Resumes criteria operations whose checkpoints were abandoned before
+     * completing. Runs periodically on every replica. The lease is claimed by the
+     * initializer, so an operation is only resumed by one processor. Elements
+     * left processing by a processor that stopped are returned to unprocessed
+     * and sent again.
+     */
+    private class BatchOperationResumer extends SystemUserRunnable {
+
+	public BatchOperationResumer() {
+	    super(BatchOperationManager.this);
+	}
+
+	/*
+	 * @see com.sitewhere.microservice.security.SystemUserRunnable#runAsSystemUser()
+	 */
+	@Override
+	public void runAsSystemUser() throws SiteWhereException {
+	    for (IBatchOperationCheckpoint checkpoint : getBatchCheckpointManagement()
+		    .listIncompleteBatchOperationCheckpoints(new Date())) {
+		if (getLeasedOperationIds().contains(checkpoint.getBatchOperationId())) {
+		    continue;
+		}
+		IBatchOperation operation = getBatchManagement().getBatchOperation(checkpoint.getBatchOperationId());
+		if (operation == null) {
+		    continue;
+		}
+		UnprocessedBatchOperation unprocessed = new UnprocessedBatchOperation();
+		unprocessed.setBatchOperation(operation);
+		unprocessed.setDeviceTokens(new ArrayList<>());
+		initializeBatchOperation(unprocessed);
+	    }
+	    Date claimedBefore = new Date(System.currentTimeMillis() - ELEMENT_CLAIM_TIMEOUT_MS);
+	    List<? extends IBatchElement> reclaimed = getBatchCheckpointManagement()
+		    .reclaimStaleBatchElements(claimedBefore, MAX_RECLAIMED_ELEMENTS);
+	    if (!reclaimed.isEmpty()) {
+		getLogger().warn(String.format("Reprocessing %d abandoned batch elements.", reclaimed.size()));
+	    }
+	    for (IBatchElement element : reclaimed) {
+		sendUnprocessedBatchElement(element);
+	    }
+	}
+    }
+
+    /**
+     * Lease held on the checkpoint of an operation while its elements are being
+     * created. A heartbeat renews the lease independently of element processing,
+     * so a paused or throttled operation is not taken over by another processor.
+     * If a renewal is refused the lease is considered lost and element creation
+     * stops.
+     */
+    private class CheckpointLease extends SystemUserRunnable {
+
+	/** Operation whose checkpoint is leased */
+	private UUID batchOperationId;
+
+	/** Indicates the lease is still held */
+	private volatile boolean held = true;
+
+	/** Scheduled heartbeat */
+	private ScheduledFuture<?> heartbeat;
+
+	public CheckpointLease(UUID batchOperationId) {
+	    super(BatchOperationManager.this);
+	    this.batchOperationId = batchOperationId;
+	}
+
+	/**
+	 * Start renewing the lease.
+	 */
+	public void start() {
+	    this.heartbeat = getLeasePool().scheduleWithFixedDelay(this, CHECKPOINT_HEARTBEAT_MS,
+		    CHECKPOINT_HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop renewing the lease.
+	 */
+	public void release() {
+	    if (heartbeat != null) {
+		heartbeat.cancel(false);
+	    }
+	}
+
+	/*
+	 * @see com.sitewhere.microservice.security.SystemUserRunnable#runAsSystemUser()
+	 */
+	@Override
+	public void runAsSystemUser() throws SiteWhereException {
+	    try {
+		if (!getBatchCheckpointManagement().claimBatchOperationCheckpoint(getBatchOperationId(),
+			getProcessorId(), new Date(System.currentTimeMillis() + CHECKPOINT_LEASE_MS))) {
+		    getLogger().warn(String.format("Lost lease on batch operation %s.", getBatchOperationId()));
+		    this.held = false;
+		    release();
+		}
+	    } catch (SiteWhereException e) {
+		// Retried on next heartbeat. Lease is only lost once another processor claims it.
+		getLogger().warn("Unable to renew batch operation lease.", e);
+	    }
+	}
+
+	public boolean isHeld() {
+	    return held;
+	}
+
+	protected UUID getBatchOperationId() {
+	    return batchOperationId;
+	}
+    }
+
     /**
      * Processes a batch element in a separate thread.
      */
@@ -415,20 +783,22 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 
 	    // Only process unprocessed elements.
 	    IBatchElement element = getUnprocessed().getBatchElement();
-	    IBatchOperation operation = getBatchManagement().getBatchOperation(element.getBatchOperationId());
 	    if (element.getProcessingStatus() != ElementProcessingStatus.Unprocessed) {
 		return;
 	    }
 
-	    // Indicate element is being processed.
-	    BatchElementCreateRequest request = new BatchElementCreateRequest();
-	    request.setProcessingStatus(ElementProcessingStatus.Processing);
-	    getBatchManagement().updateBatchElement(element.getId(), request);
+	    // Claim element so elements sent more than once are only processed once.
+	    if (!getBatchCheckpointManagement().claimBatchElement(element.getId())) {
+		getLogger().debug("Skipping batch element already claimed: " + element.getId().toString());
+		return;
+	    }
 
-	    request = new BatchElementCreateRequest();
+	    // Element is claimed, so a final status must be recorded whatever happens.
+	    BatchElementCreateRequest request = new BatchElementCreateRequest();
 	    request.setMetadata(new HashMap<String, String>());
 	    ElementProcessingStatus status = ElementProcessingStatus.Succeeded;
 	    try {
+		IBatchOperation operation = getBatchManagement().getBatchOperation(element.getBatchOperationId());
 		IBatchOperationHandler handler = getHandlersByOperationType().get(operation.getOperationType());
 		if (handler != null) {
 		    status = handler.process(operation, element, request);
@@ -439,10 +809,11 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 		// Indicate element succeeded in processing.
 		request.setProcessingStatus(status);
 		request.setProcessedDate(new Date());
-	    } catch (SiteWhereException t) {
+	    } catch (Throwable t) {
 		// Indicate element failed in processing.
 		getLogger().error("Error processing batch invocation element.", t);
 		request.setProcessingStatus(ElementProcessingStatus.Failed);
+		request.setProcessedDate(new Date());
 	    } finally {
 		getBatchManagement().updateBatchElement(element.getId(), request);
 	    }
@@ -453,6 +824,31 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	}
     }
 
+    /**
+     * Send unprocessed batch element to Kafka topic.
+     * 
+     * @param element
+     * @throws SiteWhereException
+     */
+    protected void sendUnprocessedBatchElement(IBatchElement element) throws SiteWhereException {
+	UnprocessedBatchElement unprocessedElement = new UnprocessedBatchElement();
+	unprocessedElement.setBatchElement(element);
+	getUnprocessedBatchElementsProducer().send(element.getDeviceId().toString(),
+		BatchModelMarshaler.buildUnprocessedBatchElementPayloadMessage(
+			BatchModelConverter.asGrpcUnprocessedBatchElement(unprocessedElement)));
+    }
+
+    /**
+     * Indicates whether devices for an operation are resolved from criteria.
+     * 
+     * @param operation
+     * @return
+     */
+    protected static boolean isDeviceCriteriaOperation(IBatchOperation operation) {
+	return Boolean.parseBoolean(
+		operation.getParameters().get(BatchOperationParameters.PARAM_RESOLVE_DEVICE_CRITERIA));
+    }
+
     /**
      * Handle case where batch operation manager has been paused.
      */
@@ -484,6 +880,18 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	return processorPool;
     }
 
+    protected ScheduledExecutorService getLeasePool() {
+	return leasePool;
+    }
+
+    protected String getProcessorId() {
+	return processorId;
+    }
+
+    protected Set<UUID> getLeasedOperationIds() {
+	return leasedOperationIds;
+    }
+
     protected IUnprocessedBatchElementsProducer getUnprocessedBatchElementsProducer() {
 	return ((IBatchOperationsTenantEngine) getTenantEngine()).getUnprocessedBatchElementsProducer();
     }
@@ -500,6 +908,14 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	return ((IBatchOperationsTenantEngine) getTenantEngine()).getBatchManagement();
     }
 
+    protected IBatchCheckpointManagement getBatchCheckpointManagement() {
+	return ((IBatchOperationsTenantEngine) getTenantEngine()).getBatchCheckpointManagement();
+    }
+
+    protected IDeviceManagementApiChannel<?> getDeviceManagementApiChannel() {
+	return ((IBatchOperationsMicroservice) getMicroservice()).getDeviceManagementApiChannel();
+    }
+
     /** Used for naming batch operation processor threads */
     private class ProcessorsThreadFactory implements ThreadFactory {
 
@@ -510,4 +926,15 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	    return new Thread(r, "Batch Operation Processor " + counter.incrementAndGet());
 	}
     }
+
+    /** Used for naming checkpoint lease threads */
+    private class LeaseThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Batch Operation Lease " + counter.incrementAndGet());
+	}
+    }
 }
\ No newline at end of file
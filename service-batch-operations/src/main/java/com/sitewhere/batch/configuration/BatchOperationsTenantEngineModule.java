@@ -15,8 +15,10 @@
  */
 package com.sitewhere.batch.configuration;
 
+import com.google.inject.Singleton;
 import com.sitewhere.batch.configuration.manager.BatchOperationManagerProvider;
 import com.sitewhere.batch.persistence.rdb.RdbBatchManagement;
+import com.sitewhere.batch.spi.IBatchCheckpointManagement;
 import com.sitewhere.batch.spi.IBatchOperationManager;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine;
 import com.sitewhere.microservice.api.batch.IBatchManagement;
@@ -40,7 +42,9 @@ public class BatchOperationsTenantEngineModule extends TenantEngineModule<BatchO
     protected void configure() {
 	bind(IBatchOperationsTenantEngine.class).toInstance((IBatchOperationsTenantEngine) getTenantEngine());
 	bind(BatchOperationsTenantConfiguration.class).toInstance(getConfiguration());
+	bind(RdbBatchManagement.class).in(Singleton.class);
 	bind(IBatchManagement.class).to(RdbBatchManagement.class);
+	bind(IBatchCheckpointManagement.class).to(RdbBatchManagement.class);
 	bind(IBatchOperationManager.class).toProvider(BatchOperationManagerProvider.class);
     }
 }
@@ -23,6 +23,9 @@ public class BatchOperationManagerConfiguration {
     /** Throttle delay in milliseconds */
     private long throttleDelayMs;
 
+    /** Number of devices resolved per page for criteria operations */
+    private int criteriaPageSize;
+
     public long getThrottleDelayMs() {
 	return throttleDelayMs;
     }
@@ -30,4 +33,12 @@ public class BatchOperationManagerConfiguration {
     public void setThrottleDelayMs(long throttleDelayMs) {
 	this.throttleDelayMs = throttleDelayMs;
     }
+
+    public int getCriteriaPageSize() {
+	return criteriaPageSize;
+    }
+
+    public void setCriteriaPageSize(int criteriaPageSize) {
+	this.criteriaPageSize = criteriaPageSize;
+    }
 }
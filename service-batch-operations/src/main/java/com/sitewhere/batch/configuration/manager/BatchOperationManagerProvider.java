@@ -40,6 +40,9 @@ public class BatchOperationManagerProvider implements Provider<BatchOperationMan
     public BatchOperationManager get() {
 	BatchOperationManager manager = new BatchOperationManager();
 	manager.setThrottleDelayMs(getConfiguration().getBatchOperationManager().getThrottleDelayMs());
+	if (getConfiguration().getBatchOperationManager().getCriteriaPageSize() > 0) {
+	    manager.setCriteriaPageSize(getConfiguration().getBatchOperationManager().getCriteriaPageSize());
+	}
 	return manager;
     }
 
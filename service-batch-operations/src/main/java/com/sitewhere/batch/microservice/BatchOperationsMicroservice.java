@@ -53,6 +53,9 @@ public class BatchOperationsMicroservice extends
     /** Device management API demux */
     private CachedDeviceManagementApiChannel deviceManagementApiChannel;
 
+    /** Device management API channel without caching */
+    private IDeviceManagementApiChannel<?> uncachedDeviceManagementApiChannel;
+
     /** Device event management API demux */
     private IDeviceEventManagementApiChannel<?> deviceEventManagementApiChannel;
 
@@ -184,6 +187,7 @@ public class BatchOperationsMicroservice extends
 
 	// Device management.
 	IDeviceManagementApiChannel<?> wrapped = new DeviceManagementApiChannel(getInstanceSettings());
+	this.uncachedDeviceManagementApiChannel = wrapped;
 	this.deviceManagementApiChannel = new CachedDeviceManagementApiChannel(wrapped,
 		new CachedDeviceManagementApiChannel.CacheSettings());
 
@@ -209,6 +213,15 @@ public class BatchOperationsMicroservice extends
 	return deviceManagementApiChannel;
     }
 
+    /*
+     * @see com.sitewhere.batch.spi.microservice.IBatchOperationsMicroservice#
+     * getDeviceManagementApiChannel()
+     */
+    @Override
+    public IDeviceManagementApiChannel<?> getDeviceManagementApiChannel() {
+	return uncachedDeviceManagementApiChannel;
+    }
+
     /*
      * @see com.sitewhere.batch.spi.microservice.IBatchOperationsMicroservice#
      * getDeviceEventManagementApiChannel()
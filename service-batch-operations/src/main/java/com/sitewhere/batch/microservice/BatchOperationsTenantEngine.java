@@ -22,6 +22,7 @@ import com.sitewhere.batch.grpc.BatchManagementImpl;
 import com.sitewhere.batch.kafka.FailedBatchElementsProducer;
 import com.sitewhere.batch.kafka.UnprocessedBatchElementsProducer;
 import com.sitewhere.batch.kafka.UnprocessedBatchOperationsProducer;
+import com.sitewhere.batch.spi.IBatchCheckpointManagement;
 import com.sitewhere.batch.spi.IBatchOperationManager;
 import com.sitewhere.batch.spi.kafka.IFailedBatchElementsProducer;
 import com.sitewhere.batch.spi.kafka.IUnprocessedBatchElementsProducer;
@@ -52,6 +53,9 @@ public class BatchOperationsTenantEngine extends RdbTenantEngine<BatchOperations
     /** Batch management persistence implementation */
     private IBatchManagement batchManagement;
 
+    /** Batch operation checkpoint persistence */
+    private IBatchCheckpointManagement batchCheckpointManagement;
+
     /** Responds to batch management GRPC requests */
     private BatchManagementGrpc.BatchManagementImplBase batchManagementImpl;
 
@@ -123,6 +127,7 @@ public class BatchOperationsTenantEngine extends RdbTenantEngine<BatchOperations
     public void loadEngineComponents() throws SiteWhereException {
 	IBatchManagement implementation = getInjector().getInstance(IBatchManagement.class);
 	this.batchManagement = new BatchManagementTriggers(implementation);
+	this.batchCheckpointManagement = getInjector().getInstance(IBatchCheckpointManagement.class);
 	this.batchManagementImpl = new BatchManagementImpl((IBatchOperationsMicroservice) getMicroservice(),
 		getBatchManagement());
 	this.batchOperationManager = getInjector().getInstance(IBatchOperationManager.class);
@@ -239,6 +244,19 @@ public class BatchOperationsTenantEngine extends RdbTenantEngine<BatchOperations
 	this.batchManagement = batchManagement;
     }
 
+    /*
+     * @see com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine#
+     * getBatchCheckpointManagement()
+     */
+    @Override
+    public IBatchCheckpointManagement getBatchCheckpointManagement() {
+	return batchCheckpointManagement;
+    }
+
+    public void setBatchCheckpointManagement(IBatchCheckpointManagement batchCheckpointManagement) {
+	this.batchCheckpointManagement = batchCheckpointManagement;
+    }
+
     /*
      * @see com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine#
      * getBatchManagementImpl()
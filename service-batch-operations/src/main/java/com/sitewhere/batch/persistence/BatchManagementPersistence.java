@@ -19,12 +19,12 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
-import com.sitewhere.batch.BatchOperationTypes;
 import com.sitewhere.microservice.persistence.Persistence;
 import com.sitewhere.rest.model.batch.BatchElement;
 import com.sitewhere.rest.model.batch.BatchOperation;
 import com.sitewhere.rest.model.batch.request.BatchOperationCreateRequest;
 import com.sitewhere.rest.model.common.MetadataProvider;
+import com.sitewhere.shared.batch.BatchOperationTypes;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.batch.ElementProcessingStatus;
 import com.sitewhere.spi.batch.IBatchOperation;
@@ -15,9 +15,14 @@
  */
 package com.sitewhere.batch.persistence.rdb;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import javax.persistence.EntityManager;
 import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -28,6 +33,9 @@ import com.sitewhere.batch.persistence.BatchManagementPersistence;
 import com.sitewhere.batch.persistence.rdb.entity.Queries;
 import com.sitewhere.batch.persistence.rdb.entity.RdbBatchElement;
 import com.sitewhere.batch.persistence.rdb.entity.RdbBatchOperation;
+import com.sitewhere.batch.persistence.rdb.entity.RdbBatchOperationCheckpoint;
+import com.sitewhere.batch.spi.IBatchCheckpointManagement;
+import com.sitewhere.batch.spi.IBatchOperationCheckpoint;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsMicroservice;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine;
 import com.sitewhere.microservice.api.batch.IBatchManagement;
@@ -35,10 +43,12 @@ import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.rdb.RdbTenantComponent;
 import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
 import com.sitewhere.rdb.spi.IRdbQueryProvider;
+import com.sitewhere.rdb.spi.ITransactionCallback;
 import com.sitewhere.rest.model.batch.BatchElement;
 import com.sitewhere.rest.model.batch.BatchOperation;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
+import com.sitewhere.spi.batch.ElementProcessingStatus;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchOperation;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
@@ -53,9 +63,10 @@ import com.sitewhere.spi.search.batch.IBatchOperationSearchCriteria;
 import com.sitewhere.spi.search.device.IBatchElementSearchCriteria;
 
 /**
- * Implementation of {@link IBatchManagement} that stores data in RDB.
+ * Implementation of {@link IBatchManagement} that stores data in RDB. Also
+ * stores checkpoints for incrementally initialized batch operations.
  */
-public class RdbBatchManagement extends RdbTenantComponent implements IBatchManagement {
+public class RdbBatchManagement extends RdbTenantComponent implements IBatchManagement, IBatchCheckpointManagement {
 
     /*
      * @see
@@ -249,6 +260,213 @@ public class RdbBatchManagement extends RdbTenantComponent implements IBatchMana
 	return createBatchOperation(generic);
     }
 
+    /*
+     * @see com.sitewhere.batch.spi.IBatchCheckpointManagement#
+     * getBatchOperationCheckpoint(java.util.UUID)
+     */
+    @Override
+    public RdbBatchOperationCheckpoint getBatchOperationCheckpoint(UUID batchOperationId) throws SiteWhereException {
+	return getEntityManagerProvider().findById(batchOperationId, RdbBatchOperationCheckpoint.class);
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchCheckpointManagement#
+     * saveBatchOperationCheckpoint(com.sitewhere.batch.spi.
+     * IBatchOperationCheckpoint)
+     */
+    @Override
+    public RdbBatchOperationCheckpoint saveBatchOperationCheckpoint(IBatchOperationCheckpoint checkpoint)
+	    throws SiteWhereException {
+	RdbBatchOperationCheckpoint existing = getBatchOperationCheckpoint(checkpoint.getBatchOperationId());
+	if (existing == null) {
+	    RdbBatchOperationCheckpoint created = new RdbBatchOperationCheckpoint();
+	    RdbBatchOperationCheckpoint.copy(checkpoint, created);
+	    created.setLeaseExpiration(checkpoint.getLeaseExpiration());
+	    created.setUpdatedDate(new Date());
+	    return getEntityManagerProvider().persist(created);
+	}
+
+	// Progress may only be recorded by the processor holding the lease.
+	if ((existing.getOwner() != null) && !existing.getOwner().equals(checkpoint.getOwner())) {
+	    throw new SiteWhereException(String.format("Checkpoint for batch operation %s is owned by another processor.",
+		    checkpoint.getBatchOperationId().toString()));
+	}
+	RdbBatchOperationCheckpoint.copy(checkpoint, existing);
+	existing.setUpdatedDate(new Date());
+	return getEntityManagerProvider().merge(existing);
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchCheckpointManagement#
+     * claimBatchOperationCheckpoint(java.util.UUID, java.lang.String,
+     * java.util.Date)
+     */
+    @Override
+    public boolean claimBatchOperationCheckpoint(UUID batchOperationId, String owner, Date leaseExpiration)
+	    throws SiteWhereException {
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<Boolean>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public Boolean process() throws SiteWhereException {
+		Query query = getEntityManagerProvider().getEntityManager()
+			.createNamedQuery(Queries.QUERY_CLAIM_BATCH_OPERATION_CHECKPOINT);
+		query.setParameter("batchOperationId", batchOperationId);
+		query.setParameter("owner", owner);
+		query.setParameter("leaseExpiration", leaseExpiration);
+		query.setParameter("now", new Date());
+		return query.executeUpdate() > 0;
+	    }
+	});
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchCheckpointManagement#
+     * listIncompleteBatchOperationCheckpoints(java.util.Date)
+     */
+    @Override
+    public List<RdbBatchOperationCheckpoint> listIncompleteBatchOperationCheckpoints(Date expiredBefore)
+	    throws SiteWhereException {
+	Query query = getEntityManagerProvider().query(Queries.QUERY_INCOMPLETE_BATCH_OPERATION_CHECKPOINTS);
+	query.setParameter("expiredBefore", expiredBefore);
+	return getEntityManagerProvider().findMany(query, RdbBatchOperationCheckpoint.class);
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchCheckpointManagement#
+     * listBatchElementsForDevices(java.util.UUID, java.util.List)
+     */
+    @Override
+    public List<RdbBatchElement> listBatchElementsForDevices(UUID batchOperationId, List<UUID> deviceIds)
+	    throws SiteWhereException {
+	if (deviceIds.isEmpty()) {
+	    return new ArrayList<>();
+	}
+	Query query = getEntityManagerProvider().query(Queries.QUERY_BATCH_ELEMENTS_FOR_DEVICES);
+	query.setParameter("batchOperationId", batchOperationId);
+	query.setParameter("deviceIds", deviceIds);
+	return getEntityManagerProvider().findMany(query, RdbBatchElement.class);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.batch.spi.IBatchCheckpointManagement#claimBatchElement(java.
+     * util.UUID)
+     */
+    @Override
+    public boolean claimBatchElement(UUID batchElementId) throws SiteWhereException {
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<Boolean>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public Boolean process() throws SiteWhereException {
+		Query query = getEntityManagerProvider().getEntityManager()
+			.createNamedQuery(Queries.QUERY_CLAIM_BATCH_ELEMENT);
+		query.setParameter("id", batchElementId);
+		query.setParameter("processing", ElementProcessingStatus.Processing);
+		query.setParameter("unprocessed", ElementProcessingStatus.Unprocessed);
+		query.setParameter("now", new Date());
+		return query.executeUpdate() > 0;
+	    }
+	});
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchCheckpointManagement#
+     * reclaimStaleBatchElements(java.util.Date, int)
+     */
+    @Override
+    public List<RdbBatchElement> reclaimStaleBatchElements(Date claimedBefore, int maxElements)
+	    throws SiteWhereException {
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<List<RdbBatchElement>>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public List<RdbBatchElement> process() throws SiteWhereException {
+		EntityManager entityManager = getEntityManagerProvider().getEntityManager();
+		List<RdbBatchElement> stale = entityManager
+			.createNamedQuery(Queries.QUERY_STALE_BATCH_ELEMENTS, RdbBatchElement.class)
+			.setParameter("processing", ElementProcessingStatus.Processing)
+			.setParameter("claimedBefore", claimedBefore).setMaxResults(maxElements).getResultList();
+		List<RdbBatchElement> reclaimed = new ArrayList<>();
+		for (RdbBatchElement element : stale) {
+		    entityManager.detach(element);
+
+		    // Conditional so an element reclaimed concurrently is only returned once.
+		    Query query = entityManager.createNamedQuery(Queries.QUERY_RECLAIM_BATCH_ELEMENT);
+		    query.setParameter("id", element.getId());
+		    query.setParameter("processing", ElementProcessingStatus.Processing);
+		    query.setParameter("unprocessed", ElementProcessingStatus.Unprocessed);
+		    query.setParameter("claimedBefore", claimedBefore);
+		    if (query.executeUpdate() > 0) {
+			element.setProcessingStatus(ElementProcessingStatus.Unprocessed);
+			element.setClaimedDate(null);
+			reclaimed.add(element);
+		    }
+		}
+		return reclaimed;
+	    }
+	});
+    }
+
+    /*
+     * @see
+     * com.sitewhere.batch.spi.IBatchCheckpointManagement#copyBatchElements(java.
+     * util.UUID, java.util.UUID, java.util.UUID, int)
+     */
+    @Override
+    public List<RdbBatchElement> copyBatchElements(UUID sourceOperationId, UUID targetOperationId,
+	    UUID afterDeviceId, int maxElements) throws SiteWhereException {
+	IBatchOperation target = getBatchOperation(targetOperationId);
+	if (target == null) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidBatchOperationId, ErrorLevel.ERROR);
+	}
+	Query query = getEntityManagerProvider().query(Queries.QUERY_BATCH_ELEMENT_DEVICE_IDS);
+	query.setParameter("batchOperationId", sourceOperationId);
+	query.setParameter("afterDeviceId", afterDeviceId != null ? afterDeviceId : new UUID(0L, 0L));
+	query.setMaxResults(maxElements);
+	List<UUID> deviceIds = getEntityManagerProvider().findMany(query, UUID.class);
+
+	// Elements copied before an interrupted checkpoint are not created twice.
+	Map<UUID, RdbBatchElement> existing = new HashMap<>();
+	for (RdbBatchElement element : listBatchElementsForDevices(targetOperationId, deviceIds)) {
+	    existing.put(element.getDeviceId(), element);
+	}
+
+	// Device ids are already resolved, so no device lookups are needed.
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<List<RdbBatchElement>>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public List<RdbBatchElement> process() throws SiteWhereException {
+		List<RdbBatchElement> created = new ArrayList<>();
+		for (UUID deviceId : deviceIds) {
+		    if (existing.containsKey(deviceId)) {
+			created.add(existing.get(deviceId));
+			continue;
+		    }
+		    BatchElement element = new BatchElement();
+		    element.setId(UUID.randomUUID());
+		    element.setBatchOperationId(target.getId());
+		    element.setDeviceId(deviceId);
+		    element.setProcessingStatus(ElementProcessingStatus.Unprocessed);
+		    RdbBatchElement rdb = new RdbBatchElement();
+		    RdbBatchElement.copy(element, rdb);
+		    created.add(getEntityManagerProvider().persist(rdb));
+		}
+		return created;
+	    }
+	});
+    }
+
     /*
      * @see com.sitewhere.rdb.spi.IRdbTenantComponent#getEntityManagerProvider()
      */
@@ -19,4 +19,25 @@ public class Queries {
 
     /** Get batch operation by token */
     public static final String QUERY_BATCH_OPERATION_BY_TOKEN = "batchOperations_findByToken";
+
+    /** Get incomplete checkpoints whose lease expired before a given date */
+    public static final String QUERY_INCOMPLETE_BATCH_OPERATION_CHECKPOINTS = "batchCheckpoints_findIncomplete";
+
+    /** Claim or renew the lease on a checkpoint */
+    public static final String QUERY_CLAIM_BATCH_OPERATION_CHECKPOINT = "batchCheckpoints_claim";
+
+    /** Claim an unprocessed batch element for processing */
+    public static final String QUERY_CLAIM_BATCH_ELEMENT = "batchElements_claim";
+
+    /** Get processing elements claimed before a given date */
+    public static final String QUERY_STALE_BATCH_ELEMENTS = "batchElements_findStale";
+
+    /** Return a stale processing element to unprocessed */
+    public static final String QUERY_RECLAIM_BATCH_ELEMENT = "batchElements_reclaim";
+
+    /** Get elements of an operation that target the given devices */
+    public static final String QUERY_BATCH_ELEMENTS_FOR_DEVICES = "batchElements_forDevices";
+
+    /** Get device ids targeted by an operation after a given device id */
+    public static final String QUERY_BATCH_ELEMENT_DEVICE_IDS = "batchElements_deviceIdsAfter";
 }
@@ -32,6 +32,8 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 import org.hibernate.annotations.Fetch;
@@ -42,6 +44,12 @@ import com.sitewhere.spi.batch.IBatchElement;
 
 @Entity
 @Table(name = "batch_element")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_BATCH_ELEMENT_DEVICE_IDS, query = "SELECT e.deviceId FROM RdbBatchElement e WHERE e.batchOperationId = :batchOperationId AND e.deviceId > :afterDeviceId ORDER BY e.deviceId"),
+	@NamedQuery(name = Queries.QUERY_BATCH_ELEMENTS_FOR_DEVICES, query = "SELECT e FROM RdbBatchElement e WHERE e.batchOperationId = :batchOperationId AND e.deviceId IN :deviceIds"),
+	@NamedQuery(name = Queries.QUERY_CLAIM_BATCH_ELEMENT, query = "UPDATE RdbBatchElement e SET e.processingStatus = :processing, e.claimedDate = :now WHERE e.id = :id AND e.processingStatus = :unprocessed"),
+	@NamedQuery(name = Queries.QUERY_STALE_BATCH_ELEMENTS, query = "SELECT e FROM RdbBatchElement e WHERE e.processingStatus = :processing AND e.claimedDate < :claimedBefore ORDER BY e.claimedDate"),
+	@NamedQuery(name = Queries.QUERY_RECLAIM_BATCH_ELEMENT, query = "UPDATE RdbBatchElement e SET e.processingStatus = :unprocessed, e.claimedDate = NULL WHERE e.id = :id AND e.processingStatus = :processing AND e.claimedDate < :claimedBefore") })
 public class RdbBatchElement implements IBatchElement {
 
     /** Serial version UID */
@@ -68,6 +76,10 @@ public class RdbBatchElement implements IBatchElement {
     @Column(name = "processed_date")
     private Date processedDate;
 
+    /** Date element was claimed for processing */
+    @Column(name = "claimed_date")
+    private Date claimedDate;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @Fetch(value = FetchMode.SUBSELECT)
     @CollectionTable(name = "batch_element_metadata", joinColumns = @JoinColumn(name = "batch_element_id"))
@@ -135,6 +147,14 @@ public class RdbBatchElement implements IBatchElement {
 	this.processedDate = processedDate;
     }
 
+    public Date getClaimedDate() {
+	return claimedDate;
+    }
+
+    public void setClaimedDate(Date claimedDate) {
+	this.claimedDate = claimedDate;
+    }
+
     /*
      * @see com.sitewhere.spi.common.IMetadataProvider#getMetadata()
      */
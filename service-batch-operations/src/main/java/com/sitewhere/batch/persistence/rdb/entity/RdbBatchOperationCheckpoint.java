@@ -0,0 +1,270 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.batch.persistence.rdb.entity;
+
+import java.util.Date;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import com.sitewhere.batch.spi.IBatchOperationCheckpoint;
+
+@Entity
+@Table(name = "batch_operation_checkpoint")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_INCOMPLETE_BATCH_OPERATION_CHECKPOINTS, query = "SELECT c FROM RdbBatchOperationCheckpoint c WHERE c.completed = false AND (c.leaseExpiration IS NULL OR c.leaseExpiration < :expiredBefore)"),
+	@NamedQuery(name = Queries.QUERY_CLAIM_BATCH_OPERATION_CHECKPOINT, query = "UPDATE RdbBatchOperationCheckpoint c SET c.owner = :owner, c.leaseExpiration = :leaseExpiration WHERE c.batchOperationId = :batchOperationId AND c.completed = false AND (c.owner IS NULL OR c.owner = :owner OR c.leaseExpiration IS NULL OR c.leaseExpiration < :now)") })
+public class RdbBatchOperationCheckpoint implements IBatchOperationCheckpoint {
+
+    /** Batch operation id */
+    @Id
+    @Column(name = "batch_operation_id")
+    private UUID batchOperationId;
+
+    /** Created date of last resolved device */
+    @Column(name = "cursor_date")
+    private Date cursorDate;
+
+    /** Id of last resolved device */
+    @Column(name = "cursor_device_id")
+    private UUID cursorDeviceId;
+
+    /** Devices created at or before this date were covered by the source */
+    @Column(name = "floor_date")
+    private Date floorDate;
+
+    /** Operation whose elements are reused */
+    @Column(name = "source_operation_id")
+    private UUID sourceOperationId;
+
+    /** Last device copied from source operation */
+    @Column(name = "source_cursor_device_id")
+    private UUID sourceCursorDeviceId;
+
+    /** Indicates all source elements were copied */
+    @Column(name = "source_copied")
+    private boolean sourceCopied;
+
+    /** Number of elements created */
+    @Column(name = "element_count")
+    private long elementCount;
+
+    /** Number of elements that failed */
+    @Column(name = "error_count")
+    private long errorCount;
+
+    /** Indicates whether resolution is complete */
+    @Column(name = "completed")
+    private boolean completed;
+
+    /** Processor holding the lease */
+    @Column(name = "owner")
+    private String owner;
+
+    /** Date lease expires */
+    @Column(name = "lease_expiration")
+    private Date leaseExpiration;
+
+    /** Date last updated */
+    @Column(name = "updated_date")
+    private Date updatedDate;
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getBatchOperationId()
+     */
+    @Override
+    public UUID getBatchOperationId() {
+	return batchOperationId;
+    }
+
+    public void setBatchOperationId(UUID batchOperationId) {
+	this.batchOperationId = batchOperationId;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getCursorDate()
+     */
+    @Override
+    public Date getCursorDate() {
+	return cursorDate;
+    }
+
+    public void setCursorDate(Date cursorDate) {
+	this.cursorDate = cursorDate;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getCursorDeviceId()
+     */
+    @Override
+    public UUID getCursorDeviceId() {
+	return cursorDeviceId;
+    }
+
+    public void setCursorDeviceId(UUID cursorDeviceId) {
+	this.cursorDeviceId = cursorDeviceId;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getFloorDate()
+     */
+    @Override
+    public Date getFloorDate() {
+	return floorDate;
+    }
+
+    public void setFloorDate(Date floorDate) {
+	this.floorDate = floorDate;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getSourceOperationId()
+     */
+    @Override
+    public UUID getSourceOperationId() {
+	return sourceOperationId;
+    }
+
+    public void setSourceOperationId(UUID sourceOperationId) {
+	this.sourceOperationId = sourceOperationId;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.batch.spi.IBatchOperationCheckpoint#getSourceCursorDeviceId()
+     */
+    @Override
+    public UUID getSourceCursorDeviceId() {
+	return sourceCursorDeviceId;
+    }
+
+    public void setSourceCursorDeviceId(UUID sourceCursorDeviceId) {
+	this.sourceCursorDeviceId = sourceCursorDeviceId;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#isSourceCopied()
+     */
+    @Override
+    public boolean isSourceCopied() {
+	return sourceCopied;
+    }
+
+    public void setSourceCopied(boolean sourceCopied) {
+	this.sourceCopied = sourceCopied;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getElementCount()
+     */
+    @Override
+    public long getElementCount() {
+	return elementCount;
+    }
+
+    public void setElementCount(long elementCount) {
+	this.elementCount = elementCount;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getErrorCount()
+     */
+    @Override
+    public long getErrorCount() {
+	return errorCount;
+    }
+
+    public void setErrorCount(long errorCount) {
+	this.errorCount = errorCount;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#isCompleted()
+     */
+    @Override
+    public boolean isCompleted() {
+	return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+	this.completed = completed;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getOwner()
+     */
+    @Override
+    public String getOwner() {
+	return owner;
+    }
+
+    public void setOwner(String owner) {
+	this.owner = owner;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getLeaseExpiration()
+     */
+    @Override
+    public Date getLeaseExpiration() {
+	return leaseExpiration;
+    }
+
+    public void setLeaseExpiration(Date leaseExpiration) {
+	this.leaseExpiration = leaseExpiration;
+    }
+
+    /*
+     * @see com.sitewhere.batch.spi.IBatchOperationCheckpoint#getUpdatedDate()
+     */
+    @Override
+    public Date getUpdatedDate() {
+	return updatedDate;
+    }
+
+    public void setUpdatedDate(Date updatedDate) {
+	this.updatedDate = updatedDate;
+    }
+
+    /**
+     * Copy progress from a checkpoint. The lease expiration is not copied since
+     * it is only changed when the lease is claimed or renewed.
+     * 
+     * @param source
+     * @param target
+     */
+    public static void copy(IBatchOperationCheckpoint source, RdbBatchOperationCheckpoint target) {
+	if (source.getBatchOperationId() != null) {
+	    target.setBatchOperationId(source.getBatchOperationId());
+	}
+	target.setCursorDate(source.getCursorDate());
+	target.setCursorDeviceId(source.getCursorDeviceId());
+	target.setFloorDate(source.getFloorDate());
+	target.setSourceOperationId(source.getSourceOperationId());
+	target.setSourceCursorDeviceId(source.getSourceCursorDeviceId());
+	target.setSourceCopied(source.isSourceCopied());
+	target.setElementCount(source.getElementCount());
+	target.setErrorCount(source.getErrorCount());
+	target.setCompleted(source.isCompleted());
+	target.setOwner(source.getOwner());
+	target.setUpdatedDate(source.getUpdatedDate());
+    }
+}
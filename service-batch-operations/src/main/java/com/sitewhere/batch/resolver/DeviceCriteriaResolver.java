@@ -0,0 +1,143 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.batch.resolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.shared.grpc.DeviceProjectionClient;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
+
+/**
+ * Resolves devices matching criteria one page at a time. Devices are listed
+ * newest first, ordered by created date and then id, and the cursor is the
+ * (created date, id) of the last device returned. Each page is a keyset query
+ * that starts after the cursor, so devices sharing a created date are neither
+ * skipped nor returned twice regardless of how many there are. An optional
+ * floor date limits resolution to devices created after it.
+ */
+public class DeviceCriteriaResolver {
+
+    /** Greatest device id, so a cursor at a date includes every device created then */
+    public static final UUID MAX_DEVICE_ID = new UUID(-1L, -1L);
+
+    /** Reads dates from projections */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Device projection client */
+    private DeviceProjectionClient client;
+
+    /** Device type token (null for all device types) */
+    private String deviceTypeToken;
+
+    /** Only devices created after this date are resolved (null for all) */
+    private Date floorDate;
+
+    /** Number of devices requested per page */
+    private int pageSize;
+
+    /** Created date of the last device returned */
+    private Date cursorDate;
+
+    /** Id of the last device returned */
+    private UUID cursorDeviceId;
+
+    /** Indicates no more devices match */
+    private boolean exhausted = false;
+
+    public DeviceCriteriaResolver(DeviceProjectionClient client, String deviceTypeToken, Date floorDate,
+	    int pageSize, Date cursorDate, UUID cursorDeviceId) {
+	this.client = client;
+	this.deviceTypeToken = deviceTypeToken;
+	this.floorDate = floorDate;
+	this.pageSize = Math.max(1, pageSize);
+	this.cursorDate = cursorDate;
+	this.cursorDeviceId = ((cursorDate != null) && (cursorDeviceId == null)) ? MAX_DEVICE_ID : cursorDeviceId;
+    }
+
+    /**
+     * Get the next page of matching devices. An empty list indicates that all
+     * devices have been resolved.
+     *
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IDevice> nextPage() throws SiteWhereException {
+	if (isExhausted()) {
+	    return Collections.emptyList();
+	}
+	JsonNode response = getClient().listDevices(getDeviceTypeToken(), getCursorDate(), getCursorDeviceId(),
+		getPageSize());
+	List<IDevice> page = new ArrayList<>();
+	for (JsonNode projection : response.path("devices")) {
+	    Device device = new Device();
+	    device.setId(UUID.fromString(projection.path("id").asText()));
+	    device.setToken(projection.path("token").asText());
+	    device.setCreatedDate(MAPPER.convertValue(projection.get("createdDate"), Date.class));
+
+	    // Devices are newest first, so nothing after this is above the floor.
+	    if ((getFloorDate() != null) && !device.getCreatedDate().after(getFloorDate())) {
+		this.exhausted = true;
+		break;
+	    }
+	    page.add(device);
+	}
+	if (!response.path("hasMore").asBoolean()) {
+	    this.exhausted = true;
+	}
+	if (!page.isEmpty()) {
+	    IDevice last = page.get(page.size() - 1);
+	    this.cursorDate = last.getCreatedDate();
+	    this.cursorDeviceId = last.getId();
+	}
+	return page;
+    }
+
+    public Date getCursorDate() {
+	return cursorDate;
+    }
+
+    public UUID getCursorDeviceId() {
+	return cursorDeviceId;
+    }
+
+    public boolean isExhausted() {
+	return exhausted;
+    }
+
+    protected DeviceProjectionClient getClient() {
+	return client;
+    }
+
+    protected String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    protected Date getFloorDate() {
+	return floorDate;
+    }
+
+    protected int getPageSize() {
+	return pageSize;
+    }
+}
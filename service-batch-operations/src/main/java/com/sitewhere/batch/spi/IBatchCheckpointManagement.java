@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.batch.spi;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.batch.IBatchElement;
+
+/**
+ * Persistence support for batch operations that are initialized
+ * incrementally.
+ */
+public interface IBatchCheckpointManagement {
+
+    /**
+     * Get checkpoint for a batch operation.
+     *
+     * @param batchOperationId
+     * @return
+     * @throws SiteWhereException
+     */
+    public IBatchOperationCheckpoint getBatchOperationCheckpoint(UUID batchOperationId) throws SiteWhereException;
+
+    /**
+     * Create or update the checkpoint for a batch operation.
+     *
+     * @param checkpoint
+     * @return
+     * @throws SiteWhereException
+     */
+    public IBatchOperationCheckpoint saveBatchOperationCheckpoint(IBatchOperationCheckpoint checkpoint)
+	    throws SiteWhereException;
+
+    /**
+     * Claim the lease on an incomplete checkpoint, or renew it if the owner
+     * already holds it. The claim only succeeds if the checkpoint has no owner or
+     * the lease of the current owner has expired.
+     *
+     * @param batchOperationId
+     * @param owner
+     * @param leaseExpiration
+     * @return true if the owner now holds the lease
+     * @throws SiteWhereException
+     */
+    public boolean claimBatchOperationCheckpoint(UUID batchOperationId, String owner, Date leaseExpiration)
+	    throws SiteWhereException;
+
+    /**
+     * List checkpoints that have not completed and whose lease expired before
+     * the given date.
+     *
+     * @param expiredBefore
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<? extends IBatchOperationCheckpoint> listIncompleteBatchOperationCheckpoints(Date expiredBefore)
+	    throws SiteWhereException;
+
+    /**
+     * List elements of an operation that target any of the given devices.
+     *
+     * @param batchOperationId
+     * @param deviceIds
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<? extends IBatchElement> listBatchElementsForDevices(UUID batchOperationId, List<UUID> deviceIds)
+	    throws SiteWhereException;
+
+    /**
+     * Move an unprocessed element to processing. Only one caller can claim an
+     * element, so an element that is delivered more than once is only processed
+     * once.
+     *
+     * @param batchElementId
+     * @return true if the element was claimed
+     * @throws SiteWhereException
+     */
+    public boolean claimBatchElement(UUID batchElementId) throws SiteWhereException;
+
+    /**
+     * Return elements that were claimed before the given date and never
+     * completed to unprocessed, so that elements abandoned by a processor that
+     * stopped are processed again.
+     *
+     * @param claimedBefore
+     * @param maxElements
+     * @return elements that were returned to unprocessed
+     * @throws SiteWhereException
+     */
+    public List<? extends IBatchElement> reclaimStaleBatchElements(Date claimedBefore, int maxElements)
+	    throws SiteWhereException;
+
+    /**
+     * Create unprocessed elements in the target operation for the next page of
+     * devices targeted by the source operation. Devices are returned in id order
+     * starting after the given device id, so copying can resume from a
+     * checkpoint.
+     *
+     * @param sourceOperationId
+     * @param targetOperationId
+     * @param afterDeviceId
+     * @param maxElements
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<? extends IBatchElement> copyBatchElements(UUID sourceOperationId, UUID targetOperationId,
+	    UUID afterDeviceId, int maxElements) throws SiteWhereException;
+}
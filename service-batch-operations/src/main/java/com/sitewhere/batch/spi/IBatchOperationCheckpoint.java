@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.batch.spi;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Progress marker for a batch operation whose elements are resolved
+ * incrementally. Allows initialization to resume after a restart.
+ */
+public interface IBatchOperationCheckpoint {
+
+    /**
+     * Get id of batch operation the checkpoint belongs to.
+     *
+     * @return
+     */
+    public UUID getBatchOperationId();
+
+    /**
+     * Get created date of the last device that was resolved.
+     *
+     * @return
+     */
+    public Date getCursorDate();
+
+    /**
+     * Get id of the last device that was resolved. Together with the cursor date
+     * it marks where resolution continues.
+     *
+     * @return
+     */
+    public UUID getCursorDeviceId();
+
+    /**
+     * Get created date at or before which devices were covered by the reused
+     * operation. Only devices created after it are resolved (null if targets are
+     * not reused).
+     *
+     * @return
+     */
+    public Date getFloorDate();
+
+    /**
+     * Get id of an earlier operation with the same criteria whose elements are
+     * reused as targets (null if targets are resolved from scratch).
+     *
+     * @return
+     */
+    public UUID getSourceOperationId();
+
+    /**
+     * Get id of the last device copied from the source operation.
+     *
+     * @return
+     */
+    public UUID getSourceCursorDeviceId();
+
+    /**
+     * Indicates whether all elements of the source operation have been copied.
+     *
+     * @return
+     */
+    public boolean isSourceCopied();
+
+    /**
+     * Get number of elements created so far.
+     *
+     * @return
+     */
+    public long getElementCount();
+
+    /**
+     * Get number of elements that failed to be created.
+     *
+     * @return
+     */
+    public long getErrorCount();
+
+    /**
+     * Indicates whether all matching devices have been resolved.
+     *
+     * @return
+     */
+    public boolean isCompleted();
+
+    /**
+     * Get id of the processor that holds the lease on the checkpoint.
+     *
+     * @return
+     */
+    public String getOwner();
+
+    /**
+     * Get date the lease held by the owner expires unless renewed.
+     *
+     * @return
+     */
+    public Date getLeaseExpiration();
+
+    /**
+     * Get date checkpoint was last updated.
+     *
+     * @return
+     */
+    public Date getUpdatedDate();
+}
@@ -18,6 +18,7 @@ package com.sitewhere.batch.spi.microservice;
 import com.sitewhere.batch.configuration.BatchOperationsConfiguration;
 import com.sitewhere.batch.spi.grpc.IBatchManagementGrpcServer;
 import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiChannel;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.spi.microservice.MicroserviceIdentifier;
 import com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice;
@@ -42,6 +43,13 @@ public interface IBatchOperationsMicroservice extends
      */
     public IDeviceManagement getDeviceManagement();
 
+    /**
+     * Device management API access via GRPC channel without caching.
+     * 
+     * @return
+     */
+    public IDeviceManagementApiChannel<?> getDeviceManagementApiChannel();
+
     /**
      * Get device event management API access via GRPC channel.
      * 
@@ -16,6 +16,7 @@
 package com.sitewhere.batch.spi.microservice;
 
 import com.sitewhere.batch.configuration.BatchOperationsTenantConfiguration;
+import com.sitewhere.batch.spi.IBatchCheckpointManagement;
 import com.sitewhere.batch.spi.IBatchOperationManager;
 import com.sitewhere.batch.spi.kafka.IFailedBatchElementsProducer;
 import com.sitewhere.batch.spi.kafka.IUnprocessedBatchElementsProducer;
@@ -38,6 +39,13 @@ public interface IBatchOperationsTenantEngine extends IMicroserviceTenantEngine<
      */
     public IBatchManagement getBatchManagement();
 
+    /**
+     * Get persistence for checkpoints of incrementally initialized operations.
+     * 
+     * @return
+     */
+    public IBatchCheckpointManagement getBatchCheckpointManagement();
+
     /**
      * Get implementation class that wraps batch management with GRPC conversions.
      * 
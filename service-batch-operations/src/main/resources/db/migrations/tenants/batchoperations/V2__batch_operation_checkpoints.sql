@@ -0,0 +1,16 @@
+create table batchoperations.batch_operation_checkpoint (
+	batch_operation_id uuid not null, 
+	cursor_date timestamp, 
+	cursor_device_ids text, 
+	element_count bigint, 
+	error_count bigint, 
+	completed boolean, 
+	updated_date timestamp, 
+	primary key (batch_operation_id)
+);
+
+alter table if exists batchoperations.batch_operation_checkpoint 
+	add constraint FK_batch_operation_checkpoint_operation foreign key (batch_operation_id) references batchoperations.batch_operation;
+
+create index IDX_batch_operation_checkpoint_completed 
+	on batchoperations.batch_operation_checkpoint (completed, updated_date);
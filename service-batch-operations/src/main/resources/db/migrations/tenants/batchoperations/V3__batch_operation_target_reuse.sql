@@ -0,0 +1,8 @@
+alter table batchoperations.batch_operation_checkpoint 
+	add column floor_date timestamp, 
+	add column source_operation_id uuid, 
+	add column source_cursor_device_id uuid, 
+	add column source_copied boolean default false;
+
+create index IDX_batch_element_operation_device 
+	on batchoperations.batch_element (batch_operation_id, device_id);
@@ -0,0 +1,8 @@
+alter table batchoperations.batch_operation_checkpoint 
+	add column owner varchar(255), 
+	add column lease_expiration timestamp;
+
+drop index if exists batchoperations.IDX_batch_operation_checkpoint_completed;
+
+create index IDX_batch_operation_checkpoint_lease 
+	on batchoperations.batch_operation_checkpoint (completed, lease_expiration);
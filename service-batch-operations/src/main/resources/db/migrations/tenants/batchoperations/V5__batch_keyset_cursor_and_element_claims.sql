@@ -0,0 +1,15 @@
+alter table batchoperations.batch_operation_checkpoint 
+	add column cursor_device_id uuid;
+
+alter table batchoperations.batch_operation_checkpoint 
+	drop column cursor_device_ids;
+
+alter table batchoperations.batch_element 
+	add column claimed_date timestamp;
+
+update batchoperations.batch_element 
+	set claimed_date = current_timestamp 
+	where processing_status = 'Processing';
+
+create index IDX_batch_element_claim 
+	on batchoperations.batch_element (processing_status, claimed_date);
@@ -0,0 +1,205 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.batch.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.shared.grpc.DeviceProjectionClient;
+import com.sitewhere.spi.device.IDevice;
+
+/**
+ * Test cases for {@link DeviceCriteriaResolver}.
+ */
+public class DeviceCriteriaResolverTests {
+
+    /** Base created date for test devices */
+    private static final long BASE_TIME = 1600000000000L;
+
+    @Test
+    public void testResolvesEveryDeviceOnceAcrossTies() throws Exception {
+	List<IDevice> devices = createDevices(25, 3);
+	DeviceCriteriaResolver resolver = new DeviceCriteriaResolver(createClient(devices), null, null, 4, null,
+		null);
+	List<UUID> resolved = resolveAll(resolver);
+	assertEquals(devices.size(), resolved.size());
+	assertEquals(ids(devices), new HashSet<>(resolved));
+    }
+
+    @Test
+    public void testResumesFromCursor() throws Exception {
+	List<IDevice> devices = createDevices(30, 4);
+	DeviceProjectionClient client = createClient(devices);
+	DeviceCriteriaResolver first = new DeviceCriteriaResolver(client, null, null, 5, null, null);
+	List<UUID> resolved = new ArrayList<>();
+	for (int i = 0; i < 3; i++) {
+	    resolved.addAll(ids(first.nextPage()));
+	}
+
+	// Resume with only the persisted cursor state.
+	DeviceCriteriaResolver resumed = new DeviceCriteriaResolver(client, null, null, 5, first.getCursorDate(),
+		first.getCursorDeviceId());
+	resolved.addAll(resolveAll(resumed));
+	assertEquals(devices.size(), resolved.size());
+	assertEquals(ids(devices), new HashSet<>(resolved));
+    }
+
+    @Test
+    public void testFloorDateExcludesOlderDevices() throws Exception {
+	List<IDevice> devices = createDevices(20, 2);
+	Date floor = new Date(BASE_TIME + 4);
+	DeviceCriteriaResolver resolver = new DeviceCriteriaResolver(createClient(devices), null, floor, 3, null,
+		null);
+	Set<UUID> expected = devices.stream().filter(device -> device.getCreatedDate().after(floor))
+		.map(IDevice::getId).collect(Collectors.toSet());
+	List<UUID> resolved = resolveAll(resolver);
+	assertEquals(expected.size(), resolved.size());
+	assertEquals(expected, new HashSet<>(resolved));
+    }
+
+    @Test
+    public void testMoreTiesThanPageSize() throws Exception {
+	List<IDevice> devices = createDevices(50, 50);
+	DeviceProjectionClient client = createClient(devices);
+	DeviceCriteriaResolver first = new DeviceCriteriaResolver(client, null, null, 7, null, null);
+	List<UUID> resolved = new ArrayList<>(ids(first.nextPage()));
+
+	// Every device shares one created date, so only the id moves the cursor.
+	DeviceCriteriaResolver resumed = new DeviceCriteriaResolver(client, null, null, 7, first.getCursorDate(),
+		first.getCursorDeviceId());
+	List<IDevice> page = resumed.nextPage();
+	assertEquals(7, page.size());
+	resolved.addAll(ids(page));
+	resolved.addAll(resolveAll(resumed));
+	assertEquals(devices.size(), resolved.size());
+	assertEquals(ids(devices), new HashSet<>(resolved));
+    }
+
+    @Test
+    public void testStartsAtCursorDateInclusive() throws Exception {
+	List<IDevice> devices = createDevices(12, 3);
+	Date created = new Date(BASE_TIME + 2);
+	DeviceCriteriaResolver resolver = new DeviceCriteriaResolver(createClient(devices), null, null, 5, created,
+		DeviceCriteriaResolver.MAX_DEVICE_ID);
+	List<UUID> resolved = resolveAll(resolver);
+	Set<UUID> expected = devices.stream().filter(device -> !device.getCreatedDate().after(created))
+		.map(IDevice::getId).collect(Collectors.toSet());
+	assertEquals(expected.size(), resolved.size());
+	assertEquals(expected, new HashSet<>(resolved));
+	assertTrue(resolver.isExhausted());
+    }
+
+    /**
+     * Resolve all remaining pages.
+     * 
+     * @param resolver
+     * @return
+     * @throws Exception
+     */
+    protected static List<UUID> resolveAll(DeviceCriteriaResolver resolver) throws Exception {
+	List<UUID> resolved = new ArrayList<>();
+	List<IDevice> page = resolver.nextPage();
+	while (!page.isEmpty()) {
+	    for (IDevice device : page) {
+		resolved.add(device.getId());
+	    }
+	    page = resolver.nextPage();
+	}
+	return resolved;
+    }
+
+    /**
+     * Create devices whose created dates are shared by groups of devices.
+     * 
+     * @param count
+     * @param perDate
+     * @return
+     */
+    protected static List<IDevice> createDevices(int count, int perDate) {
+	List<IDevice> devices = new ArrayList<>();
+	for (int i = 0; i < count; i++) {
+	    Device device = new Device();
+	    device.setId(UUID.randomUUID());
+	    device.setToken("device-" + i);
+	    device.setCreatedDate(new Date(BASE_TIME + (i / perDate)));
+	    devices.add(device);
+	}
+	return devices;
+    }
+
+    protected static Set<UUID> ids(List<IDevice> devices) {
+	return devices.stream().map(IDevice::getId).collect(Collectors.toSet());
+    }
+
+    /**
+     * Create a client that pages devices the way the device projection call
+     * does: newest first by created date and id, starting after the given
+     * (created date, id). Ids are compared as unsigned bytes like the database
+     * does, which matches the order of their string form.
+     * 
+     * @param devices
+     * @return
+     */
+    protected static DeviceProjectionClient createClient(List<IDevice> devices) {
+	Comparator<IDevice> order = Comparator.comparing(IDevice::getCreatedDate)
+		.thenComparing(device -> device.getId().toString());
+	return new DeviceProjectionClient(null) {
+
+	    /*
+	     * @see com.sitewhere.shared.grpc.DeviceProjectionClient#listDevices(java.
+	     * lang.String, java.util.Date, java.util.UUID, int)
+	     */
+	    @Override
+	    public JsonNode listDevices(String deviceTypeToken, Date afterCreatedDate, UUID afterDeviceId,
+		    int pageSize) {
+		Device after = new Device();
+		after.setCreatedDate(afterCreatedDate);
+		after.setId(afterDeviceId);
+		List<IDevice> matches = devices.stream()
+			.filter(device -> (afterCreatedDate == null) || (afterDeviceId == null)
+				|| (order.compare(device, after) < 0))
+			.sorted(order.reversed()).collect(Collectors.toList());
+		ArrayNode page = JsonNodeFactory.instance.arrayNode();
+		for (IDevice device : matches.subList(0, Math.min(pageSize, matches.size()))) {
+		    ObjectNode projection = page.addObject();
+		    projection.put("id", device.getId().toString());
+		    projection.put("token", device.getToken());
+		    projection.put("createdDate", device.getCreatedDate().getTime());
+		}
+		ObjectNode response = JsonNodeFactory.instance.objectNode();
+		response.set("devices", page);
+		response.put("hasMore", matches.size() > pageSize);
+		return response;
+	    }
+	};
+    }
+}
@@ -15,10 +15,40 @@
  */
 package com.sitewhere.device;
 
+import java.util.List;
 import java.util.UUID;
 
+import com.sitewhere.device.persistence.bulk.DeviceBulkAction;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkResponse;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCountRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCounts;
+import com.sitewhere.device.persistence.bulk.DeviceBulkRequest;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResponse;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResult;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersPage;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersRequest;
+import com.sitewhere.device.persistence.hierarchy.HierarchyNode;
+import com.sitewhere.device.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.device.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryRequest;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionRequest;
+import com.sitewhere.device.persistence.projection.ZoneProjectionPage;
+import com.sitewhere.device.persistence.projection.ZoneProjectionRequest;
+import com.sitewhere.device.persistence.search.DeviceAssignmentSearchRequest;
+import com.sitewhere.device.persistence.search.DeviceSearchRequest;
 import com.sitewhere.device.spi.kafka.IDeviceInteractionEventsProducer;
 import com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine;
+import com.sitewhere.device.spi.persistence.IBulkDeviceManagement;
+import com.sitewhere.device.spi.persistence.IDeviceAlarmManagement;
+import com.sitewhere.device.spi.persistence.IDeviceGroupManagement;
+import com.sitewhere.device.spi.persistence.IDeviceLookupManagement;
+import com.sitewhere.device.spi.persistence.IDeviceProjectionManagement;
+import com.sitewhere.device.spi.persistence.IDeviceSearchManagement;
+import com.sitewhere.device.spi.persistence.IHierarchyManagement;
 import com.sitewhere.grpc.event.EventModelMarshaler;
 import com.sitewhere.microservice.api.device.DeviceManagementDecorator;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
@@ -34,7 +64,9 @@ import com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest;
 /**
  * Adds triggers for processing related to device management API calls.
  */
-public class DeviceManagementTriggers extends DeviceManagementDecorator {
+public class DeviceManagementTriggers extends DeviceManagementDecorator
+	implements IBulkDeviceManagement, IHierarchyManagement, IDeviceGroupManagement, IDeviceProjectionManagement,
+	IDeviceSearchManagement, IDeviceAlarmManagement, IDeviceLookupManagement {
 
     /** System event source id */
     private static final String SYSTEM_SOURCE_PREFIX = "system:";
@@ -42,10 +74,192 @@ public class DeviceManagementTriggers extends DeviceManagementDecorator {
     /** Device management tenant engine */
     private IDeviceManagementTenantEngine deviceManagementTenantEngine;
 
+    /** Bulk operations of delegate (null if not supported) */
+    private IBulkDeviceManagement bulkDelegate;
+
+    /** Hierarchy operations of delegate (null if not supported) */
+    private IHierarchyManagement hierarchyDelegate;
+
+    /** Group membership operations of delegate (null if not supported) */
+    private IDeviceGroupManagement groupDelegate;
+
+    /** Projection operations of delegate (null if not supported) */
+    private IDeviceProjectionManagement projectionDelegate;
+
+    /** Search operations of delegate (null if not supported) */
+    private IDeviceSearchManagement searchDelegate;
+
+    /** Alarm operations of delegate (null if not supported) */
+    private IDeviceAlarmManagement alarmDelegate;
+
+    /** Lookup operations of delegate (null if not supported) */
+    private IDeviceLookupManagement lookupDelegate;
+
     public DeviceManagementTriggers(IDeviceManagement delegate,
 	    IDeviceManagementTenantEngine deviceManagementTenantEngine) {
 	super(delegate);
 	this.deviceManagementTenantEngine = deviceManagementTenantEngine;
+	this.bulkDelegate = (delegate instanceof IBulkDeviceManagement) ? (IBulkDeviceManagement) delegate : null;
+	this.hierarchyDelegate = (delegate instanceof IHierarchyManagement) ? (IHierarchyManagement) delegate : null;
+	this.groupDelegate = (delegate instanceof IDeviceGroupManagement) ? (IDeviceGroupManagement) delegate : null;
+	this.projectionDelegate = (delegate instanceof IDeviceProjectionManagement)
+		? (IDeviceProjectionManagement) delegate
+		: null;
+	this.searchDelegate = (delegate instanceof IDeviceSearchManagement) ? (IDeviceSearchManagement) delegate
+		: null;
+	this.alarmDelegate = (delegate instanceof IDeviceAlarmManagement) ? (IDeviceAlarmManagement) delegate
+		: null;
+	this.lookupDelegate = (delegate instanceof IDeviceLookupManagement) ? (IDeviceLookupManagement) delegate
+		: null;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.spi.persistence.IBulkDeviceManagement#bulkProvisionDevices
+     * (com.sitewhere.device.persistence.bulk.DeviceBulkRequest)
+     */
+    @Override
+    public DeviceBulkResponse bulkProvisionDevices(DeviceBulkRequest request) throws SiteWhereException {
+	if (getBulkDelegate() == null) {
+	    throw new SiteWhereException("Device management implementation does not support bulk operations.");
+	}
+	DeviceBulkResponse response = getBulkDelegate().bulkProvisionDevices(request);
+
+	// Sends are asynchronous, so the producer groups these into batches.
+	for (DeviceBulkResult result : response.getResults()) {
+	    if (result.getAssignmentAction() == DeviceBulkAction.Created
+		    || result.getAssignmentAction() == DeviceBulkAction.Updated) {
+		DeviceStateChangeCreateRequest state = new DeviceStateChangeCreateRequest();
+		state.setAttribute(IDeviceStateChangeCreateRequest.ATTRIBUTE_ASSIGNMENT);
+		state.setType(result.getAssignmentAction() == DeviceBulkAction.Created ? "create" : "update");
+		produceEvent(result.getDeviceId(), result.getDeviceToken(), state);
+	    }
+	}
+	return response;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.spi.persistence.IHierarchyManagement#getAreaSubtree(java
+     * .lang.String)
+     */
+    @Override
+    public List<HierarchyNode> getAreaSubtree(String token) throws SiteWhereException {
+	return assertHierarchyDelegate().getAreaSubtree(token);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.spi.persistence.IHierarchyManagement#getCustomerSubtree(
+     * java.lang.String)
+     */
+    @Override
+    public List<HierarchyNode> getCustomerSubtree(String token) throws SiteWhereException {
+	return assertHierarchyDelegate().getCustomerSubtree(token);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceGroupManagement#
+     * resolveDeviceGroupMembers(com.sitewhere.device.persistence.group.
+     * DeviceGroupMembersRequest)
+     */
+    @Override
+    public DeviceGroupMembersPage resolveDeviceGroupMembers(DeviceGroupMembersRequest request)
+	    throws SiteWhereException {
+	if (getGroupDelegate() == null) {
+	    throw new SiteWhereException("Device management implementation does not support group resolution.");
+	}
+	return getGroupDelegate().resolveDeviceGroupMembers(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * listDeviceProjections(com.sitewhere.device.persistence.projection.
+     * DeviceProjectionRequest)
+     */
+    @Override
+    public DeviceProjectionPage listDeviceProjections(DeviceProjectionRequest request) throws SiteWhereException {
+	return assertProjectionDelegate().listDeviceProjections(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * listZoneProjections(com.sitewhere.device.persistence.projection.
+     * ZoneProjectionRequest)
+     */
+    @Override
+    public ZoneProjectionPage listZoneProjections(ZoneProjectionRequest request) throws SiteWhereException {
+	return assertProjectionDelegate().listZoneProjections(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * listDeviceAssignmentSummaryProjections(com.sitewhere.device.persistence.
+     * projection.DeviceAssignmentSummaryRequest)
+     */
+    @Override
+    public DeviceAssignmentSummaryPage listDeviceAssignmentSummaryProjections(DeviceAssignmentSummaryRequest request)
+	    throws SiteWhereException {
+	return assertProjectionDelegate().listDeviceAssignmentSummaryProjections(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * refreshAssignmentSummaryAssets(java.util.List)
+     */
+    @Override
+    public void refreshAssignmentSummaryAssets(List<UUID> assetIds) throws SiteWhereException {
+	assertProjectionDelegate().refreshAssignmentSummaryAssets(assetIds);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * backfillAssignmentSummaryAssets()
+     */
+    @Override
+    public int backfillAssignmentSummaryAssets() throws SiteWhereException {
+	return assertProjectionDelegate().backfillAssignmentSummaryAssets();
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.spi.persistence.IDeviceSearchManagement#searchDevices(
+     * com.sitewhere.device.persistence.search.DeviceSearchRequest)
+     */
+    @Override
+    public DeviceProjectionPage searchDevices(DeviceSearchRequest request) throws SiteWhereException {
+	return assertSearchDelegate().searchDevices(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceSearchManagement#
+     * searchDeviceAssignments(com.sitewhere.device.persistence.search.
+     * DeviceAssignmentSearchRequest)
+     */
+    @Override
+    public DeviceAssignmentProjectionPage searchDeviceAssignments(DeviceAssignmentSearchRequest request)
+	    throws SiteWhereException {
+	return assertSearchDelegate().searchDeviceAssignments(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceAlarmManagement#
+     * bulkUpdateDeviceAlarms(com.sitewhere.device.persistence.alarm.
+     * DeviceAlarmBulkRequest)
+     */
+    @Override
+    public DeviceAlarmBulkResponse bulkUpdateDeviceAlarms(DeviceAlarmBulkRequest request) throws SiteWhereException {
+	return assertAlarmDelegate().bulkUpdateDeviceAlarms(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceAlarmManagement#
+     * getOpenDeviceAlarmCounts(com.sitewhere.device.persistence.alarm.
+     * DeviceAlarmCountRequest)
+     */
+    @Override
+    public DeviceAlarmCounts getOpenDeviceAlarmCounts(DeviceAlarmCountRequest request) throws SiteWhereException {
+	return assertAlarmDelegate().getOpenDeviceAlarmCounts(request);
     }
 
     /*
@@ -103,6 +317,60 @@ public class DeviceManagementTriggers extends DeviceManagementDecorator {
 	return updated;
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupDevices(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupDevices(EntityLookupRequest request) throws SiteWhereException {
+	return assertLookupDelegate().lookupDevices(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupDeviceAssignments(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupDeviceAssignments(EntityLookupRequest request) throws SiteWhereException {
+	return assertLookupDelegate().lookupDeviceAssignments(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupDeviceTypes(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupDeviceTypes(EntityLookupRequest request) throws SiteWhereException {
+	return assertLookupDelegate().lookupDeviceTypes(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupDeviceCommands(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupDeviceCommands(EntityLookupRequest request) throws SiteWhereException {
+	return assertLookupDelegate().lookupDeviceCommands(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupCustomers(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupCustomers(EntityLookupRequest request) throws SiteWhereException {
+	return assertLookupDelegate().lookupCustomers(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupAreas(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupAreas(EntityLookupRequest request) throws SiteWhereException {
+	return assertLookupDelegate().lookupAreas(request);
+    }
+
     /**
      * Produce event to Kafka topic for creation by event management.
      * 
@@ -111,19 +379,126 @@ public class DeviceManagementTriggers extends DeviceManagementDecorator {
      * @throws SiteWhereException
      */
     protected void produceEvent(IDevice device, IDeviceEventCreateRequest request) throws SiteWhereException {
+	produceEvent(device.getId(), device.getToken(), request);
+    }
+
+    /**
+     * Produce event to Kafka topic for creation by event management.
+     * 
+     * @param deviceId
+     * @param deviceToken
+     * @param request
+     * @throws SiteWhereException
+     */
+    protected void produceEvent(UUID deviceId, String deviceToken, IDeviceEventCreateRequest request)
+	    throws SiteWhereException {
 	DecodedEventPayload payload = new DecodedEventPayload();
-	payload.setDeviceToken(device.getToken());
+	payload.setDeviceToken(deviceToken);
 	payload.setSourceId(SYSTEM_SOURCE_PREFIX + getMicroservice().getIdentifier().getPath());
 	payload.setEventCreateRequest(request);
 
 	byte[] marshaled = EventModelMarshaler.buildDecodedEventPayloadMessage(payload);
-	getDeviceInteractionEventsProducer().send(device.getId(), marshaled);
+	getDeviceInteractionEventsProducer().send(deviceId, marshaled);
     }
 
     protected IDeviceInteractionEventsProducer getDeviceInteractionEventsProducer() {
 	return getDeviceManagementTenantEngine().getDeviceInteractionEventsProducer();
     }
 
+    /**
+     * Get hierarchy operations of delegate or throw an exception if not
+     * supported.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IHierarchyManagement assertHierarchyDelegate() throws SiteWhereException {
+	if (getHierarchyDelegate() == null) {
+	    throw new SiteWhereException("Device management implementation does not support hierarchy queries.");
+	}
+	return getHierarchyDelegate();
+    }
+
+    /**
+     * Get projection delegate or throw an exception if not supported.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IDeviceProjectionManagement assertProjectionDelegate() throws SiteWhereException {
+	if (getProjectionDelegate() == null) {
+	    throw new SiteWhereException("Device management implementation does not support projection queries.");
+	}
+	return getProjectionDelegate();
+    }
+
+    /**
+     * Get search delegate or throw an exception if not supported.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IDeviceSearchManagement assertSearchDelegate() throws SiteWhereException {
+	if (getSearchDelegate() == null) {
+	    throw new SiteWhereException("Device management implementation does not support search.");
+	}
+	return getSearchDelegate();
+    }
+
+    /**
+     * Get alarm delegate or throw an exception if not supported.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IDeviceAlarmManagement assertAlarmDelegate() throws SiteWhereException {
+	if (getAlarmDelegate() == null) {
+	    throw new SiteWhereException("Device management implementation does not support bulk alarms.");
+	}
+	return getAlarmDelegate();
+    }
+
+    /**
+     * Get lookup delegate or throw an exception if not supported.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IDeviceLookupManagement assertLookupDelegate() throws SiteWhereException {
+	if (getLookupDelegate() == null) {
+	    throw new SiteWhereException("Device management implementation does not support batch lookups.");
+	}
+	return getLookupDelegate();
+    }
+
+    protected IBulkDeviceManagement getBulkDelegate() {
+	return bulkDelegate;
+    }
+
+    protected IHierarchyManagement getHierarchyDelegate() {
+	return hierarchyDelegate;
+    }
+
+    protected IDeviceGroupManagement getGroupDelegate() {
+	return groupDelegate;
+    }
+
+    protected IDeviceProjectionManagement getProjectionDelegate() {
+	return projectionDelegate;
+    }
+
+    protected IDeviceSearchManagement getSearchDelegate() {
+	return searchDelegate;
+    }
+
+    protected IDeviceAlarmManagement getAlarmDelegate() {
+	return alarmDelegate;
+    }
+
+    protected IDeviceLookupManagement getLookupDelegate() {
+	return lookupDelegate;
+    }
+
     protected IDeviceManagementTenantEngine getDeviceManagementTenantEngine() {
 	return deviceManagementTenantEngine;
     }
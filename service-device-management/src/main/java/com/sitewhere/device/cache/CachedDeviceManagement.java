@@ -0,0 +1,467 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.cache;
+
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sitewhere.device.configuration.ReferenceCaching;
+import com.sitewhere.device.spi.kafka.IReferenceEntityChangesProducer;
+import com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine;
+import com.sitewhere.microservice.api.device.DeviceManagementDecorator;
+import com.sitewhere.microservice.api.device.IDeviceManagement;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.microservice.util.MarshalUtils;
+import com.sitewhere.shared.cache.ReferenceCache;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.area.IAreaType;
+import com.sitewhere.spi.area.request.IAreaTypeCreateRequest;
+import com.sitewhere.spi.customer.ICustomerType;
+import com.sitewhere.spi.customer.request.ICustomerTypeCreateRequest;
+import com.sitewhere.spi.device.IDeviceStatus;
+import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.device.command.IDeviceCommand;
+import com.sitewhere.spi.device.request.IDeviceCommandCreateRequest;
+import com.sitewhere.spi.device.request.IDeviceStatusCreateRequest;
+import com.sitewhere.spi.device.request.IDeviceTypeCreateRequest;
+
+import io.prometheus.client.Counter;
+
+/**
+ * Caches device types, commands, statuses, area types and customer types along
+ * with their token lookups. These are read on most calls but rarely change.
+ * Writes made through this decorator clear the caches for the affected kind of
+ * entity and publish a change to Kafka so other replicas clear theirs.
+ */
+public class CachedDeviceManagement extends DeviceManagementDecorator {
+
+    /** Static logger instance */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedDeviceManagement.class);
+
+    /** Identifies changes published by this process */
+    public static final String ORIGIN = UUID.randomUUID().toString();
+
+    /** Meter for counting cache hits */
+    private static final Counter HITS = TenantEngineLifecycleComponent.createCounterMetric(
+	    "device_management_reference_cache_hit_count", "Count of reference lookups served from cache", "cache");
+
+    /** Meter for counting cache misses */
+    private static final Counter MISSES = TenantEngineLifecycleComponent.createCounterMetric(
+	    "device_management_reference_cache_miss_count", "Count of reference lookups read from datastore",
+	    "cache");
+
+    /** Device management tenant engine */
+    private IDeviceManagementTenantEngine deviceManagementTenantEngine;
+
+    /** Device types by id */
+    private ReferenceCache<UUID, IDeviceType> deviceTypes;
+
+    /** Device types by token */
+    private ReferenceCache<String, IDeviceType> deviceTypesByToken;
+
+    /** Device commands by id */
+    private ReferenceCache<UUID, IDeviceCommand> deviceCommands;
+
+    /** Device commands by device type id and token */
+    private ReferenceCache<String, IDeviceCommand> deviceCommandsByToken;
+
+    /** Device statuses by id */
+    private ReferenceCache<UUID, IDeviceStatus> deviceStatuses;
+
+    /** Device statuses by device type id and token */
+    private ReferenceCache<String, IDeviceStatus> deviceStatusesByToken;
+
+    /** Area types by id */
+    private ReferenceCache<UUID, IAreaType> areaTypes;
+
+    /** Area types by token */
+    private ReferenceCache<String, IAreaType> areaTypesByToken;
+
+    /** Customer types by id */
+    private ReferenceCache<UUID, ICustomerType> customerTypes;
+
+    /** Customer types by token */
+    private ReferenceCache<String, ICustomerType> customerTypesByToken;
+
+    public CachedDeviceManagement(IDeviceManagement delegate, ReferenceCaching settings,
+	    IDeviceManagementTenantEngine deviceManagementTenantEngine) {
+	super(delegate);
+	this.deviceManagementTenantEngine = deviceManagementTenantEngine;
+	int max = Math.max(1, settings.getMaxEntries());
+	long expiration = settings.getExpirationSeconds() * 1000L;
+	this.deviceTypes = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("device_type"));
+	this.deviceTypesByToken = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("device_type_token"));
+	this.deviceCommands = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("device_command"));
+	this.deviceCommandsByToken = new ReferenceCache<>(max, expiration, HITS, MISSES,
+		labels("device_command_token"));
+	this.deviceStatuses = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("device_status"));
+	this.deviceStatusesByToken = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("device_status_token"));
+	this.areaTypes = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("area_type"));
+	this.areaTypesByToken = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("area_type_token"));
+	this.customerTypes = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("customer_type"));
+	this.customerTypesByToken = new ReferenceCache<>(max, expiration, HITS, MISSES, labels("customer_type_token"));
+    }
+
+    /*
+     * @see com.sitewhere.microservice.api.device.IDeviceManagement#
+     * createDeviceType(com.sitewhere.spi.device.request.IDeviceTypeCreateRequest)
+     */
+    @Override
+    public IDeviceType createDeviceType(IDeviceTypeCreateRequest request) throws SiteWhereException {
+	IDeviceType created = super.createDeviceType(request);
+	changed(ReferenceEntityType.DeviceType, created.getId());
+	return created;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#getDeviceType(java.
+     * util.UUID)
+     */
+    @Override
+    public IDeviceType getDeviceType(UUID id) throws SiteWhereException {
+	return deviceTypes.get(id, key -> super.getDeviceType(key));
+    }
+
+    /*
+     * @see com.sitewhere.microservice.api.device.IDeviceManagement#
+     * getDeviceTypeByToken(java.lang.String)
+     */
+    @Override
+    public IDeviceType getDeviceTypeByToken(String token) throws SiteWhereException {
+	return deviceTypesByToken.get(token, key -> super.getDeviceTypeByToken(key));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#updateDeviceType(java
+     * .util.UUID, com.sitewhere.spi.device.request.IDeviceTypeCreateRequest)
+     */
+    @Override
+    public IDeviceType updateDeviceType(UUID id, IDeviceTypeCreateRequest request) throws SiteWhereException {
+	IDeviceType updated = super.updateDeviceType(id, request);
+	changed(ReferenceEntityType.DeviceType, id);
+	return updated;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#deleteDeviceType(java
+     * .util.UUID)
+     */
+    @Override
+    public IDeviceType deleteDeviceType(UUID id) throws SiteWhereException {
+	IDeviceType deleted = super.deleteDeviceType(id);
+	changed(ReferenceEntityType.DeviceType, id);
+	return deleted;
+    }
+
+    /*
+     * @see com.sitewhere.microservice.api.device.IDeviceManagement#
+     * createDeviceCommand(com.sitewhere.spi.device.request.
+     * IDeviceCommandCreateRequest)
+     */
+    @Override
+    public IDeviceCommand createDeviceCommand(IDeviceCommandCreateRequest request) throws SiteWhereException {
+	IDeviceCommand created = super.createDeviceCommand(request);
+	changed(ReferenceEntityType.DeviceCommand, created.getId());
+	return created;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#getDeviceCommand(java
+     * .util.UUID)
+     */
+    @Override
+    public IDeviceCommand getDeviceCommand(UUID id) throws SiteWhereException {
+	return deviceCommands.get(id, key -> super.getDeviceCommand(key));
+    }
+
+    /*
+     * @see com.sitewhere.microservice.api.device.IDeviceManagement#
+     * getDeviceCommandByToken(java.util.UUID, java.lang.String)
+     */
+    @Override
+    public IDeviceCommand getDeviceCommandByToken(UUID deviceTypeId, String token) throws SiteWhereException {
+	return deviceCommandsByToken.get(deviceTypeId + ":" + token,
+		key -> super.getDeviceCommandByToken(deviceTypeId, token));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#updateDeviceCommand(
+     * java.util.UUID,
+     * com.sitewhere.spi.device.request.IDeviceCommandCreateRequest)
+     */
+    @Override
+    public IDeviceCommand updateDeviceCommand(UUID id, IDeviceCommandCreateRequest request)
+	    throws SiteWhereException {
+	IDeviceCommand updated = super.updateDeviceCommand(id, request);
+	changed(ReferenceEntityType.DeviceCommand, id);
+	return updated;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#deleteDeviceCommand(
+     * java.util.UUID)
+     */
+    @Override
+    public IDeviceCommand deleteDeviceCommand(UUID id) throws SiteWhereException {
+	IDeviceCommand deleted = super.deleteDeviceCommand(id);
+	changed(ReferenceEntityType.DeviceCommand, id);
+	return deleted;
+    }
+
+    /*
+     * @see com.sitewhere.microservice.api.device.IDeviceManagement#
+     * createDeviceStatus(com.sitewhere.spi.device.request.
+     * IDeviceStatusCreateRequest)
+     */
+    @Override
+    public IDeviceStatus createDeviceStatus(IDeviceStatusCreateRequest request) throws SiteWhereException {
+	IDeviceStatus created = super.createDeviceStatus(request);
+	changed(ReferenceEntityType.DeviceStatus, created.getId());
+	return created;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#getDeviceStatus(java.
+     * util.UUID)
+     */
+    @Override
+    public IDeviceStatus getDeviceStatus(UUID id) throws SiteWhereException {
+	return deviceStatuses.get(id, key -> super.getDeviceStatus(key));
+    }
+
+    /*
+     * @see com.sitewhere.microservice.api.device.IDeviceManagement#
+     * getDeviceStatusByToken(java.util.UUID, java.lang.String)
+     */
+    @Override
+    public IDeviceStatus getDeviceStatusByToken(UUID deviceTypeId, String token) throws SiteWhereException {
+	return deviceStatusesByToken.get(deviceTypeId + ":" + token,
+		key -> super.getDeviceStatusByToken(deviceTypeId, token));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#updateDeviceStatus(
+     * java.util.UUID, com.sitewhere.spi.device.request.IDeviceStatusCreateRequest)
+     */
+    @Override
+    public IDeviceStatus updateDeviceStatus(UUID id, IDeviceStatusCreateRequest request) throws SiteWhereException {
+	IDeviceStatus updated = super.updateDeviceStatus(id, request);
+	changed(ReferenceEntityType.DeviceStatus, id);
+	return updated;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#deleteDeviceStatus(
+     * java.util.UUID)
+     */
+    @Override
+    public IDeviceStatus deleteDeviceStatus(UUID id) throws SiteWhereException {
+	IDeviceStatus deleted = super.deleteDeviceStatus(id);
+	changed(ReferenceEntityType.DeviceStatus, id);
+	return deleted;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#createAreaType(com.
+     * sitewhere.spi.area.request.IAreaTypeCreateRequest)
+     */
+    @Override
+    public IAreaType createAreaType(IAreaTypeCreateRequest request) throws SiteWhereException {
+	IAreaType created = super.createAreaType(request);
+	changed(ReferenceEntityType.AreaType, created.getId());
+	return created;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#getAreaType(java.util
+     * .UUID)
+     */
+    @Override
+    public IAreaType getAreaType(UUID id) throws SiteWhereException {
+	return areaTypes.get(id, key -> super.getAreaType(key));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#getAreaTypeByToken(
+     * java.lang.String)
+     */
+    @Override
+    public IAreaType getAreaTypeByToken(String token) throws SiteWhereException {
+	return areaTypesByToken.get(token, key -> super.getAreaTypeByToken(key));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#updateAreaType(java.
+     * util.UUID, com.sitewhere.spi.area.request.IAreaTypeCreateRequest)
+     */
+    @Override
+    public IAreaType updateAreaType(UUID id, IAreaTypeCreateRequest request) throws SiteWhereException {
+	IAreaType updated = super.updateAreaType(id, request);
+	changed(ReferenceEntityType.AreaType, id);
+	return updated;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#deleteAreaType(java.
+     * util.UUID)
+     */
+    @Override
+    public IAreaType deleteAreaType(UUID id) throws SiteWhereException {
+	IAreaType deleted = super.deleteAreaType(id);
+	changed(ReferenceEntityType.AreaType, id);
+	return deleted;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#createCustomerType(
+     * com.sitewhere.spi.customer.request.ICustomerTypeCreateRequest)
+     */
+    @Override
+    public ICustomerType createCustomerType(ICustomerTypeCreateRequest request) throws SiteWhereException {
+	ICustomerType created = super.createCustomerType(request);
+	changed(ReferenceEntityType.CustomerType, created.getId());
+	return created;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#getCustomerType(java.
+     * util.UUID)
+     */
+    @Override
+    public ICustomerType getCustomerType(UUID id) throws SiteWhereException {
+	return customerTypes.get(id, key -> super.getCustomerType(key));
+    }
+
+    /*
+     * @see com.sitewhere.microservice.api.device.IDeviceManagement#
+     * getCustomerTypeByToken(java.lang.String)
+     */
+    @Override
+    public ICustomerType getCustomerTypeByToken(String token) throws SiteWhereException {
+	return customerTypesByToken.get(token, key -> super.getCustomerTypeByToken(key));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#updateCustomerType(
+     * java.util.UUID,
+     * com.sitewhere.spi.customer.request.ICustomerTypeCreateRequest)
+     */
+    @Override
+    public ICustomerType updateCustomerType(UUID id, ICustomerTypeCreateRequest request) throws SiteWhereException {
+	ICustomerType updated = super.updateCustomerType(id, request);
+	changed(ReferenceEntityType.CustomerType, id);
+	return updated;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.api.device.IDeviceManagement#deleteCustomerType(
+     * java.util.UUID)
+     */
+    @Override
+    public ICustomerType deleteCustomerType(UUID id) throws SiteWhereException {
+	ICustomerType deleted = super.deleteCustomerType(id);
+	changed(ReferenceEntityType.CustomerType, id);
+	return deleted;
+    }
+
+    /**
+     * Clear caches holding the given kind of entity. Deleting a device type also
+     * deletes its commands and statuses, so those caches are cleared as well.
+     * 
+     * @param type
+     */
+    public void invalidate(ReferenceEntityType type) {
+	switch (type) {
+	case DeviceType:
+	    deviceTypes.clear();
+	    deviceTypesByToken.clear();
+	    invalidate(ReferenceEntityType.DeviceCommand);
+	    invalidate(ReferenceEntityType.DeviceStatus);
+	    break;
+	case DeviceCommand:
+	    deviceCommands.clear();
+	    deviceCommandsByToken.clear();
+	    break;
+	case DeviceStatus:
+	    deviceStatuses.clear();
+	    deviceStatusesByToken.clear();
+	    break;
+	case AreaType:
+	    areaTypes.clear();
+	    areaTypesByToken.clear();
+	    break;
+	case CustomerType:
+	    customerTypes.clear();
+	    customerTypesByToken.clear();
+	    break;
+	}
+    }
+
+    /**
+     * Clear local caches after a write and notify other replicas. Entries on
+     * other replicas still expire if the notification can not be sent.
+     * 
+     * @param type
+     * @param id
+     */
+    protected void changed(ReferenceEntityType type, UUID id) {
+	invalidate(type);
+	try {
+	    ReferenceEntityChange change = new ReferenceEntityChange(type, id, ORIGIN);
+	    getReferenceEntityChangesProducer().send(type.name(), MarshalUtils.marshalJson(change));
+	} catch (Throwable e) {
+	    LOGGER.warn(String.format("Unable to publish change to %s '%s'.", type.name(), id), e);
+	}
+    }
+
+    /**
+     * Build metric labels for a cache.
+     * 
+     * @param cache
+     * @return
+     */
+    protected String[] labels(String cache) {
+	return getDeviceManagementTenantEngine().buildLabels(cache);
+    }
+
+    protected IReferenceEntityChangesProducer getReferenceEntityChangesProducer() {
+	return getDeviceManagementTenantEngine().getReferenceEntityChangesProducer();
+    }
+
+    protected IDeviceManagementTenantEngine getDeviceManagementTenantEngine() {
+	return deviceManagementTenantEngine;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.cache;
+
+import java.util.UUID;
+
+/**
+ * Notification that a reference entity was created, updated or deleted. Sent to
+ * all device management replicas so they can invalidate cached entries.
+ */
+public class ReferenceEntityChange {
+
+    /** Kind of entity that changed */
+    private ReferenceEntityType type;
+
+    /** Id of entity that changed */
+    private UUID entityId;
+
+    /** Id of the process that made the change */
+    private String origin;
+
+    public ReferenceEntityChange() {
+    }
+
+    public ReferenceEntityChange(ReferenceEntityType type, UUID entityId, String origin) {
+	this.type = type;
+	this.entityId = entityId;
+	this.origin = origin;
+    }
+
+    public ReferenceEntityType getType() {
+	return type;
+    }
+
+    public void setType(ReferenceEntityType type) {
+	this.type = type;
+    }
+
+    public UUID getEntityId() {
+	return entityId;
+    }
+
+    public void setEntityId(UUID entityId) {
+	this.entityId = entityId;
+    }
+
+    public String getOrigin() {
+	return origin;
+    }
+
+    public void setOrigin(String origin) {
+	this.origin = origin;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.configuration;
+
+/**
+ * Settings for alarm de-duplication and bulk alarm state changes.
+ */
+public class AlarmHandling {
+
+    /** Default window in which repeated triggers update an open alarm */
+    private static final int DEFAULT_DEDUPLICATION_WINDOW_SECONDS = 300;
+
+    /** Default maximum number of alarms accepted in a single request */
+    private static final int DEFAULT_MAX_ENTRIES_PER_REQUEST = 50000;
+
+    /** Default number of alarms stored in each transaction */
+    private static final int DEFAULT_TRANSACTION_SIZE = 1000;
+
+    /** Default number of statements sent in each JDBC batch */
+    private static final int DEFAULT_JDBC_BATCH_SIZE = 100;
+
+    /**
+     * Window in which a repeated trigger for the same assignment and message
+     * updates the open alarm instead of creating a new one (0 disables)
+     */
+    private int deduplicationWindowSeconds = DEFAULT_DEDUPLICATION_WINDOW_SECONDS;
+
+    /** Maximum number of alarms accepted in a single request */
+    private int maxEntriesPerRequest = DEFAULT_MAX_ENTRIES_PER_REQUEST;
+
+    /** Number of alarms stored in each transaction */
+    private int transactionSize = DEFAULT_TRANSACTION_SIZE;
+
+    /** Number of statements sent in each JDBC batch */
+    private int jdbcBatchSize = DEFAULT_JDBC_BATCH_SIZE;
+
+    public int getDeduplicationWindowSeconds() {
+	return deduplicationWindowSeconds;
+    }
+
+    public void setDeduplicationWindowSeconds(int deduplicationWindowSeconds) {
+	this.deduplicationWindowSeconds = deduplicationWindowSeconds;
+    }
+
+    public int getMaxEntriesPerRequest() {
+	return maxEntriesPerRequest;
+    }
+
+    public void setMaxEntriesPerRequest(int maxEntriesPerRequest) {
+	this.maxEntriesPerRequest = maxEntriesPerRequest;
+    }
+
+    public int getTransactionSize() {
+	return transactionSize;
+    }
+
+    public void setTransactionSize(int transactionSize) {
+	this.transactionSize = transactionSize;
+    }
+
+    public int getJdbcBatchSize() {
+	return jdbcBatchSize;
+    }
+
+    public void setJdbcBatchSize(int jdbcBatchSize) {
+	this.jdbcBatchSize = jdbcBatchSize;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.configuration;
+
+/**
+ * Settings for bulk creation and update of devices and assignments.
+ */
+public class BulkProvisioning {
+
+    /** Default maximum number of entries accepted in a single request */
+    private static final int DEFAULT_MAX_ENTRIES_PER_REQUEST = 10000;
+
+    /** Default number of entries stored in each transaction */
+    private static final int DEFAULT_TRANSACTION_SIZE = 1000;
+
+    /** Default number of statements sent in each JDBC batch */
+    private static final int DEFAULT_JDBC_BATCH_SIZE = 100;
+
+    /** Maximum number of entries accepted in a single request */
+    private int maxEntriesPerRequest = DEFAULT_MAX_ENTRIES_PER_REQUEST;
+
+    /** Number of entries stored in each transaction */
+    private int transactionSize = DEFAULT_TRANSACTION_SIZE;
+
+    /** Number of statements sent in each JDBC batch */
+    private int jdbcBatchSize = DEFAULT_JDBC_BATCH_SIZE;
+
+    public int getMaxEntriesPerRequest() {
+	return maxEntriesPerRequest;
+    }
+
+    public void setMaxEntriesPerRequest(int maxEntriesPerRequest) {
+	this.maxEntriesPerRequest = maxEntriesPerRequest;
+    }
+
+    public int getTransactionSize() {
+	return transactionSize;
+    }
+
+    public void setTransactionSize(int transactionSize) {
+	this.transactionSize = transactionSize;
+    }
+
+    public int getJdbcBatchSize() {
+	return jdbcBatchSize;
+    }
+
+    public void setJdbcBatchSize(int jdbcBatchSize) {
+	this.jdbcBatchSize = jdbcBatchSize;
+    }
+}
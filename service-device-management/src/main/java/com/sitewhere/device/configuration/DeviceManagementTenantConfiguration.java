@@ -26,6 +26,15 @@ public class DeviceManagementTenantConfiguration implements ITenantEngineConfigu
     /** Datastore definition */
     private DatastoreDefinition datastore;
 
+    /** Bulk provisioning settings */
+    private BulkProvisioning bulkProvisioning = new BulkProvisioning();
+
+    /** Reference entity cache settings */
+    private ReferenceCaching referenceCaching = new ReferenceCaching();
+
+    /** Alarm handling settings */
+    private AlarmHandling alarmHandling = new AlarmHandling();
+
     public DatastoreDefinition getDatastore() {
 	return datastore;
     }
@@ -33,4 +42,28 @@ public class DeviceManagementTenantConfiguration implements ITenantEngineConfigu
     public void setDatastore(DatastoreDefinition datastore) {
 	this.datastore = datastore;
     }
+
+    public BulkProvisioning getBulkProvisioning() {
+	return bulkProvisioning;
+    }
+
+    public void setBulkProvisioning(BulkProvisioning bulkProvisioning) {
+	this.bulkProvisioning = bulkProvisioning;
+    }
+
+    public ReferenceCaching getReferenceCaching() {
+	return referenceCaching;
+    }
+
+    public void setReferenceCaching(ReferenceCaching referenceCaching) {
+	this.referenceCaching = referenceCaching;
+    }
+
+    public AlarmHandling getAlarmHandling() {
+	return alarmHandling;
+    }
+
+    public void setAlarmHandling(AlarmHandling alarmHandling) {
+	this.alarmHandling = alarmHandling;
+    }
 }
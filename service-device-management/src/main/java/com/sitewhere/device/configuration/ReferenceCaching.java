@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.configuration;
+
+/**
+ * Settings for caching device types, commands, statuses, area types and
+ * customer types.
+ */
+public class ReferenceCaching {
+
+    /** Default maximum number of entries in each cache */
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /** Default number of seconds an entry is kept */
+    private static final int DEFAULT_EXPIRATION_SECONDS = 300;
+
+    /** Indicates whether caching is enabled */
+    private boolean enabled = true;
+
+    /** Maximum number of entries in each cache */
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /** Number of seconds an entry is kept if no change is received */
+    private int expirationSeconds = DEFAULT_EXPIRATION_SECONDS;
+
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+	this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+	return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+	this.maxEntries = maxEntries;
+    }
+
+    public int getExpirationSeconds() {
+	return expirationSeconds;
+    }
+
+    public void setExpirationSeconds(int expirationSeconds) {
+	this.expirationSeconds = expirationSeconds;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkResponse;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCountRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCounts;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for bulk alarm and open alarm count calls. Served alongside the
+ * generated device management methods and uses JSON payloads.
+ */
+public class DeviceAlarmGrpc {
+
+    /** Method for raising, acknowledging or resolving alarms in bulk */
+    private static final MethodDescriptor<DeviceAlarmBulkRequest, DeviceAlarmBulkResponse> BULK_UPDATE_DEVICE_ALARMS = MethodDescriptor
+	    .<DeviceAlarmBulkRequest, DeviceAlarmBulkResponse>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "BulkUpdateDeviceAlarms"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceAlarmBulkRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(DeviceAlarmBulkResponse.class)).build();
+
+    /** Method for getting open alarm counts */
+    private static final MethodDescriptor<DeviceAlarmCountRequest, DeviceAlarmCounts> GET_OPEN_DEVICE_ALARM_COUNTS = MethodDescriptor
+	    .<DeviceAlarmCountRequest, DeviceAlarmCounts>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "GetOpenDeviceAlarmCounts"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceAlarmCountRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(DeviceAlarmCounts.class)).build();
+
+    public static MethodDescriptor<DeviceAlarmBulkRequest, DeviceAlarmBulkResponse> getBulkUpdateDeviceAlarmsMethod() {
+	return BULK_UPDATE_DEVICE_ALARMS;
+    }
+
+    public static MethodDescriptor<DeviceAlarmCountRequest, DeviceAlarmCounts> getGetOpenDeviceAlarmCountsMethod() {
+	return GET_OPEN_DEVICE_ALARM_COUNTS;
+    }
+}
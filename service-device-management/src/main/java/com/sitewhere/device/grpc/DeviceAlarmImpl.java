@@ -0,0 +1,98 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkResponse;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCountRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCounts;
+import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
+import com.sitewhere.device.spi.persistence.IDeviceAlarmManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for bulk alarm and open alarm count requests.
+ */
+public class DeviceAlarmImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IDeviceManagementMicroservice microservice;
+
+    /** Alarm management implementation */
+    private IDeviceAlarmManagement alarmManagement;
+
+    public DeviceAlarmImpl(IDeviceManagementMicroservice microservice, IDeviceAlarmManagement alarmManagement) {
+	this.microservice = microservice;
+	this.alarmManagement = alarmManagement;
+    }
+
+    /**
+     * Raise, acknowledge or resolve many alarms.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void bulkUpdateDeviceAlarms(DeviceAlarmBulkRequest request,
+	    StreamObserver<DeviceAlarmBulkResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceAlarmGrpc.getBulkUpdateDeviceAlarmsMethod());
+	    responseObserver.onNext(getAlarmManagement().bulkUpdateDeviceAlarms(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceAlarmGrpc.getBulkUpdateDeviceAlarmsMethod(), e,
+		    responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceAlarmGrpc.getBulkUpdateDeviceAlarmsMethod());
+	}
+    }
+
+    /**
+     * Get open alarm counts.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getOpenDeviceAlarmCounts(DeviceAlarmCountRequest request,
+	    StreamObserver<DeviceAlarmCounts> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceAlarmGrpc.getGetOpenDeviceAlarmCountsMethod());
+	    responseObserver.onNext(getAlarmManagement().getOpenDeviceAlarmCounts(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceAlarmGrpc.getGetOpenDeviceAlarmCountsMethod(), e,
+		    responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceAlarmGrpc.getGetOpenDeviceAlarmCountsMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IDeviceAlarmManagement getAlarmManagement() {
+	return alarmManagement;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+
+import com.sitewhere.device.persistence.bulk.DeviceBulkRequest;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResponse;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for bulk device calls. They are served alongside the generated
+ * device management methods and use JSON payloads so that they do not require
+ * changes to the shared protocol definitions.
+ */
+public class DeviceBulkGrpc {
+
+    /** Method for creating or updating devices in bulk */
+    private static final MethodDescriptor<DeviceBulkRequest, DeviceBulkResponse> BULK_PROVISION_DEVICES = MethodDescriptor
+	    .<DeviceBulkRequest, DeviceBulkResponse>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "BulkProvisionDevices"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceBulkRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(DeviceBulkResponse.class)).build();
+
+    public static MethodDescriptor<DeviceBulkRequest, DeviceBulkResponse> getBulkProvisionDevicesMethod() {
+	return BULK_PROVISION_DEVICES;
+    }
+}
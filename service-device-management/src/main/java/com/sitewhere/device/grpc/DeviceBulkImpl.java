@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.bulk.DeviceBulkRequest;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResponse;
+import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
+import com.sitewhere.device.spi.persistence.IBulkDeviceManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for bulk device requests.
+ */
+public class DeviceBulkImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IDeviceManagementMicroservice microservice;
+
+    /** Bulk device management implementation */
+    private IBulkDeviceManagement bulkDeviceManagement;
+
+    public DeviceBulkImpl(IDeviceManagementMicroservice microservice, IBulkDeviceManagement bulkDeviceManagement) {
+	this.microservice = microservice;
+	this.bulkDeviceManagement = bulkDeviceManagement;
+    }
+
+    /**
+     * Create or update devices and assignments in bulk.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void bulkProvisionDevices(DeviceBulkRequest request, StreamObserver<DeviceBulkResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceBulkGrpc.getBulkProvisionDevicesMethod());
+	    responseObserver.onNext(getBulkDeviceManagement().bulkProvisionDevices(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceBulkGrpc.getBulkProvisionDevicesMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceBulkGrpc.getBulkProvisionDevicesMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IBulkDeviceManagement getBulkDeviceManagement() {
+	return bulkDeviceManagement;
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.group.DeviceGroupMembersPage;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersRequest;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptor for resolving device group membership. Served alongside the
+ * generated device management methods and uses JSON payloads.
+ */
+public class DeviceGroupGrpc {
+
+    /** Method for getting a page of devices in device groups */
+    private static final MethodDescriptor<DeviceGroupMembersRequest, DeviceGroupMembersPage> RESOLVE_DEVICE_GROUP_MEMBERS = MethodDescriptor
+	    .<DeviceGroupMembersRequest, DeviceGroupMembersPage>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME,
+		    "ResolveDeviceGroupMembers"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceGroupMembersRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(DeviceGroupMembersPage.class)).build();
+
+    public static MethodDescriptor<DeviceGroupMembersRequest, DeviceGroupMembersPage> getResolveDeviceGroupMembersMethod() {
+	return RESOLVE_DEVICE_GROUP_MEMBERS;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.group.DeviceGroupMembersPage;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersRequest;
+import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
+import com.sitewhere.device.spi.persistence.IDeviceGroupManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for device group membership requests.
+ */
+public class DeviceGroupImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IDeviceManagementMicroservice microservice;
+
+    /** Group management implementation */
+    private IDeviceGroupManagement groupManagement;
+
+    public DeviceGroupImpl(IDeviceManagementMicroservice microservice, IDeviceGroupManagement groupManagement) {
+	this.microservice = microservice;
+	this.groupManagement = groupManagement;
+    }
+
+    /**
+     * Get a page of devices in one or more device groups.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void resolveDeviceGroupMembers(DeviceGroupMembersRequest request,
+	    StreamObserver<DeviceGroupMembersPage> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceGroupGrpc.getResolveDeviceGroupMembersMethod());
+	    responseObserver.onNext(getGroupManagement().resolveDeviceGroupMembers(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceGroupGrpc.getResolveDeviceGroupMembersMethod(), e,
+		    responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceGroupGrpc.getResolveDeviceGroupMembersMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IDeviceGroupManagement getGroupManagement() {
+	return groupManagement;
+    }
+}
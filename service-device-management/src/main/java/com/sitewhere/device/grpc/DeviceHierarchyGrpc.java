@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.hierarchy.HierarchySubtreeRequest;
+import com.sitewhere.device.persistence.hierarchy.HierarchySubtreeResponse;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for area and customer hierarchy calls. Like the bulk device
+ * calls, they are served alongside the generated device management methods
+ * and use JSON payloads.
+ */
+public class DeviceHierarchyGrpc {
+
+    /** Method for getting an area and all nested areas */
+    private static final MethodDescriptor<HierarchySubtreeRequest, HierarchySubtreeResponse> GET_AREA_SUBTREE = buildSubtreeMethod(
+	    "GetAreaSubtree");
+
+    /** Method for getting a customer and all nested customers */
+    private static final MethodDescriptor<HierarchySubtreeRequest, HierarchySubtreeResponse> GET_CUSTOMER_SUBTREE = buildSubtreeMethod(
+	    "GetCustomerSubtree");
+
+    public static MethodDescriptor<HierarchySubtreeRequest, HierarchySubtreeResponse> getGetAreaSubtreeMethod() {
+	return GET_AREA_SUBTREE;
+    }
+
+    public static MethodDescriptor<HierarchySubtreeRequest, HierarchySubtreeResponse> getGetCustomerSubtreeMethod() {
+	return GET_CUSTOMER_SUBTREE;
+    }
+
+    /**
+     * Build descriptor for a subtree method.
+     * 
+     * @param name
+     * @return
+     */
+    protected static MethodDescriptor<HierarchySubtreeRequest, HierarchySubtreeResponse> buildSubtreeMethod(
+	    String name) {
+	return MethodDescriptor.<HierarchySubtreeRequest, HierarchySubtreeResponse>newBuilder()
+		.setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<>(HierarchySubtreeRequest.class))
+		.setResponseMarshaller(new JsonMarshaller<>(HierarchySubtreeResponse.class)).build();
+    }
+}
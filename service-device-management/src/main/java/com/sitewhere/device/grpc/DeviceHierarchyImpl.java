@@ -0,0 +1,97 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.hierarchy.HierarchySubtreeRequest;
+import com.sitewhere.device.persistence.hierarchy.HierarchySubtreeResponse;
+import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
+import com.sitewhere.device.spi.persistence.IHierarchyManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for area and customer hierarchy requests.
+ */
+public class DeviceHierarchyImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IDeviceManagementMicroservice microservice;
+
+    /** Hierarchy management implementation */
+    private IHierarchyManagement hierarchyManagement;
+
+    public DeviceHierarchyImpl(IDeviceManagementMicroservice microservice, IHierarchyManagement hierarchyManagement) {
+	this.microservice = microservice;
+	this.hierarchyManagement = hierarchyManagement;
+    }
+
+    /**
+     * Get an area and all nested areas.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getAreaSubtree(HierarchySubtreeRequest request,
+	    StreamObserver<HierarchySubtreeResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceHierarchyGrpc.getGetAreaSubtreeMethod());
+	    responseObserver
+		    .onNext(new HierarchySubtreeResponse(getHierarchyManagement().getAreaSubtree(request.getToken())));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceHierarchyGrpc.getGetAreaSubtreeMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceHierarchyGrpc.getGetAreaSubtreeMethod());
+	}
+    }
+
+    /**
+     * Get a customer and all nested customers.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getCustomerSubtree(HierarchySubtreeRequest request,
+	    StreamObserver<HierarchySubtreeResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceHierarchyGrpc.getGetCustomerSubtreeMethod());
+	    responseObserver.onNext(
+		    new HierarchySubtreeResponse(getHierarchyManagement().getCustomerSubtree(request.getToken())));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceHierarchyGrpc.getGetCustomerSubtreeMethod(), e,
+		    responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceHierarchyGrpc.getGetCustomerSubtreeMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IHierarchyManagement getHierarchyManagement() {
+	return hierarchyManagement;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.device.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for calls that load many entities by id or token. Served
+ * alongside the generated device management methods and uses JSON payloads.
+ */
+public class DeviceLookupGrpc {
+
+    /** Method for looking up devices */
+    private static final MethodDescriptor<EntityLookupRequest, EntityLookupResponse> LOOKUP_DEVICES = buildMethod(
+	    "LookupDevices");
+
+    /** Method for looking up device assignments */
+    private static final MethodDescriptor<EntityLookupRequest, EntityLookupResponse> LOOKUP_DEVICE_ASSIGNMENTS = buildMethod(
+	    "LookupDeviceAssignments");
+
+    /** Method for looking up device types */
+    private static final MethodDescriptor<EntityLookupRequest, EntityLookupResponse> LOOKUP_DEVICE_TYPES = buildMethod(
+	    "LookupDeviceTypes");
+
+    /** Method for looking up device commands */
+    private static final MethodDescriptor<EntityLookupRequest, EntityLookupResponse> LOOKUP_DEVICE_COMMANDS = buildMethod(
+	    "LookupDeviceCommands");
+
+    /** Method for looking up customers */
+    private static final MethodDescriptor<EntityLookupRequest, EntityLookupResponse> LOOKUP_CUSTOMERS = buildMethod(
+	    "LookupCustomers");
+
+    /** Method for looking up areas */
+    private static final MethodDescriptor<EntityLookupRequest, EntityLookupResponse> LOOKUP_AREAS = buildMethod(
+	    "LookupAreas");
+
+    /**
+     * Build descriptor for a lookup method.
+     * 
+     * @param name
+     * @return
+     */
+    private static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> buildMethod(String name) {
+	return MethodDescriptor.<EntityLookupRequest, EntityLookupResponse>newBuilder()
+		.setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<>(EntityLookupRequest.class))
+		.setResponseMarshaller(new JsonMarshaller<>(EntityLookupResponse.class)).build();
+    }
+
+    public static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> getLookupDevicesMethod() {
+	return LOOKUP_DEVICES;
+    }
+
+    public static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> getLookupDeviceAssignmentsMethod() {
+	return LOOKUP_DEVICE_ASSIGNMENTS;
+    }
+
+    public static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> getLookupDeviceTypesMethod() {
+	return LOOKUP_DEVICE_TYPES;
+    }
+
+    public static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> getLookupDeviceCommandsMethod() {
+	return LOOKUP_DEVICE_COMMANDS;
+    }
+
+    public static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> getLookupCustomersMethod() {
+	return LOOKUP_CUSTOMERS;
+    }
+
+    public static MethodDescriptor<EntityLookupRequest, EntityLookupResponse> getLookupAreasMethod() {
+	return LOOKUP_AREAS;
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.device.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.device.persistence.lookup.EntityLookupResult;
+import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
+import com.sitewhere.device.spi.persistence.IDeviceLookupManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.grpc.device.DeviceModelConverter;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.area.IArea;
+import com.sitewhere.spi.customer.ICustomer;
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.device.IDeviceAssignment;
+import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.device.command.IDeviceCommand;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for calls that load many entities by id or token.
+ * Entities are converted to the REST model before they are returned.
+ */
+public class DeviceLookupImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IDeviceManagementMicroservice microservice;
+
+    /** Lookup management implementation */
+    private IDeviceLookupManagement lookupManagement;
+
+    public DeviceLookupImpl(IDeviceManagementMicroservice microservice, IDeviceLookupManagement lookupManagement) {
+	this.microservice = microservice;
+	this.lookupManagement = lookupManagement;
+    }
+
+    /**
+     * Get devices by id or token.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupDevices(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	lookup(DeviceLookupGrpc.getLookupDevicesMethod(), request, getLookupManagement()::lookupDevices,
+		entity -> DeviceModelConverter.asApiDevice(DeviceModelConverter.asGrpcDevice((IDevice) entity)),
+		responseObserver);
+    }
+
+    /**
+     * Get device assignments by id or token.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupDeviceAssignments(EntityLookupRequest request,
+	    StreamObserver<EntityLookupResponse> responseObserver) {
+	lookup(DeviceLookupGrpc.getLookupDeviceAssignmentsMethod(), request,
+		getLookupManagement()::lookupDeviceAssignments,
+		entity -> DeviceModelConverter
+			.asApiDeviceAssignment(DeviceModelConverter.asGrpcDeviceAssignment((IDeviceAssignment) entity)),
+		responseObserver);
+    }
+
+    /**
+     * Get device types by id or token.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupDeviceTypes(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	lookup(DeviceLookupGrpc.getLookupDeviceTypesMethod(), request, getLookupManagement()::lookupDeviceTypes,
+		entity -> DeviceModelConverter
+			.asApiDeviceType(DeviceModelConverter.asGrpcDeviceType((IDeviceType) entity)),
+		responseObserver);
+    }
+
+    /**
+     * Get device commands by id or token.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupDeviceCommands(EntityLookupRequest request,
+	    StreamObserver<EntityLookupResponse> responseObserver) {
+	lookup(DeviceLookupGrpc.getLookupDeviceCommandsMethod(), request, getLookupManagement()::lookupDeviceCommands,
+		entity -> DeviceModelConverter
+			.asApiDeviceCommand(DeviceModelConverter.asGrpcDeviceCommand((IDeviceCommand) entity)),
+		responseObserver);
+    }
+
+    /**
+     * Get customers by id or token.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupCustomers(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	lookup(DeviceLookupGrpc.getLookupCustomersMethod(), request, getLookupManagement()::lookupCustomers,
+		entity -> DeviceModelConverter.asApiCustomer(DeviceModelConverter.asGrpcCustomer((ICustomer) entity)),
+		responseObserver);
+    }
+
+    /**
+     * Get areas by id or token.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupAreas(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	lookup(DeviceLookupGrpc.getLookupAreasMethod(), request, getLookupManagement()::lookupAreas,
+		entity -> DeviceModelConverter.asApiArea(DeviceModelConverter.asGrpcArea((IArea) entity)),
+		responseObserver);
+    }
+
+    /**
+     * Run a lookup and convert the entities that were found.
+     * 
+     * @param method
+     * @param request
+     * @param call
+     * @param converter
+     * @param responseObserver
+     */
+    protected void lookup(MethodDescriptor<EntityLookupRequest, EntityLookupResponse> method,
+	    EntityLookupRequest request, LookupCall call, EntityConverter converter,
+	    StreamObserver<EntityLookupResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, method);
+	    EntityLookupResponse response = call.lookup(request);
+	    for (EntityLookupResult result : response.getResults()) {
+		if (result.getEntity() != null) {
+		    result.setEntity(converter.convert(result.getEntity()));
+		}
+	    }
+	    responseObserver.onNext(response);
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(method, e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(method);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IDeviceLookupManagement getLookupManagement() {
+	return lookupManagement;
+    }
+
+    /**
+     * Runs a lookup against the management implementation.
+     */
+    protected static interface LookupCall {
+
+	public EntityLookupResponse lookup(EntityLookupRequest request) throws SiteWhereException;
+    }
+
+    /**
+     * Converts a persistent entity to its REST model.
+     */
+    protected static interface EntityConverter {
+
+	public Object convert(Object entity) throws SiteWhereException;
+    }
+}
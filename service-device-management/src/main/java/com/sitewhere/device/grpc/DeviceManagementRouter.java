@@ -18,12 +18,36 @@ package com.sitewhere.device.grpc;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.device.persistence.bulk.DeviceBulkRequest;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResponse;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkResponse;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCountRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCounts;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersPage;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersRequest;
+import com.sitewhere.device.persistence.hierarchy.HierarchySubtreeRequest;
+import com.sitewhere.device.persistence.hierarchy.HierarchySubtreeResponse;
+import com.sitewhere.device.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.device.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryRequest;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionRequest;
+import com.sitewhere.device.persistence.projection.ZoneProjectionPage;
+import com.sitewhere.device.persistence.projection.ZoneProjectionRequest;
+import com.sitewhere.device.persistence.search.DeviceAssignmentSearchRequest;
+import com.sitewhere.device.persistence.search.DeviceSearchRequest;
 import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
 import com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine;
 import com.sitewhere.grpc.service.*;
 import com.sitewhere.microservice.grpc.GrpcTenantEngineProvider;
 import com.sitewhere.spi.microservice.grpc.ITenantEngineCallback;
 
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
 import io.grpc.stub.StreamObserver;
 
 /**
@@ -1591,6 +1615,370 @@ public class DeviceManagementRouter extends DeviceManagementGrpc.DeviceManagemen
 	}, responseObserver);
     }
 
+    /**
+     * Handle request to create or update devices in bulk. This method is not part
+     * of the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void bulkProvisionDevices(DeviceBulkRequest request, StreamObserver<DeviceBulkResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceBulkImpl().bulkProvisionDevices(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for an area and all nested areas. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getAreaSubtree(HierarchySubtreeRequest request,
+	    StreamObserver<HierarchySubtreeResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceHierarchyImpl().getAreaSubtree(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for a customer and all nested customers. This method is not
+     * part of the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getCustomerSubtree(HierarchySubtreeRequest request,
+	    StreamObserver<HierarchySubtreeResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceHierarchyImpl().getCustomerSubtree(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for a page of devices in one or more device groups. This
+     * method is not part of the generated service, so it is added to the
+     * definition in {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void resolveDeviceGroupMembers(DeviceGroupMembersRequest request,
+	    StreamObserver<DeviceGroupMembersPage> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceGroupImpl().resolveDeviceGroupMembers(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for a page of device projections. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void listDeviceProjections(DeviceProjectionRequest request,
+	    StreamObserver<DeviceProjectionPage> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceProjectionImpl().listDeviceProjections(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for a page of zone projections. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void listZoneProjections(ZoneProjectionRequest request,
+	    StreamObserver<ZoneProjectionPage> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceProjectionImpl().listZoneProjections(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for a page of device assignment summaries. This method is
+     * not part of the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void listDeviceAssignmentSummaryProjections(DeviceAssignmentSummaryRequest request,
+	    StreamObserver<DeviceAssignmentSummaryPage> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceProjectionImpl().listDeviceAssignmentSummaryProjections(request,
+			responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to search devices. This method is not part of the generated
+     * service, so it is added to the definition in {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void searchDevices(DeviceSearchRequest request, StreamObserver<DeviceProjectionPage> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceSearchImpl().searchDevices(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to search device assignments. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void searchDeviceAssignments(DeviceAssignmentSearchRequest request,
+	    StreamObserver<DeviceAssignmentProjectionPage> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceSearchImpl().searchDeviceAssignments(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to raise, acknowledge or resolve alarms in bulk. This method
+     * is not part of the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void bulkUpdateDeviceAlarms(DeviceAlarmBulkRequest request,
+	    StreamObserver<DeviceAlarmBulkResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceAlarmImpl().bulkUpdateDeviceAlarms(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for open alarm counts. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getOpenDeviceAlarmCounts(DeviceAlarmCountRequest request,
+	    StreamObserver<DeviceAlarmCounts> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceAlarmImpl().getOpenDeviceAlarmCounts(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for devices by id or token. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupDevices(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceLookupImpl().lookupDevices(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for device assignments by id or token. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupDeviceAssignments(EntityLookupRequest request,
+	    StreamObserver<EntityLookupResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceLookupImpl().lookupDeviceAssignments(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for device types by id or token. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupDeviceTypes(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceLookupImpl().lookupDeviceTypes(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for device commands by id or token. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupDeviceCommands(EntityLookupRequest request,
+	    StreamObserver<EntityLookupResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceLookupImpl().lookupDeviceCommands(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for customers by id or token. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupCustomers(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceLookupImpl().lookupCustomers(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for areas by id or token. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void lookupAreas(EntityLookupRequest request, StreamObserver<EntityLookupResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IDeviceManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IDeviceManagementTenantEngine tenantEngine) {
+		tenantEngine.getDeviceLookupImpl().lookupAreas(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * bindService()
+     */
+    @Override
+    public ServerServiceDefinition bindService() {
+	ServerServiceDefinition generated = super.bindService();
+	ServerServiceDefinition.Builder builder = ServerServiceDefinition
+		.builder(generated.getServiceDescriptor().getName());
+	for (ServerMethodDefinition<?, ?> method : generated.getMethods()) {
+	    builder.addMethod(method);
+	}
+	builder.addMethod(DeviceBulkGrpc.getBulkProvisionDevicesMethod(),
+		ServerCalls.asyncUnaryCall(this::bulkProvisionDevices));
+	builder.addMethod(DeviceHierarchyGrpc.getGetAreaSubtreeMethod(),
+		ServerCalls.asyncUnaryCall(this::getAreaSubtree));
+	builder.addMethod(DeviceHierarchyGrpc.getGetCustomerSubtreeMethod(),
+		ServerCalls.asyncUnaryCall(this::getCustomerSubtree));
+	builder.addMethod(DeviceGroupGrpc.getResolveDeviceGroupMembersMethod(),
+		ServerCalls.asyncUnaryCall(this::resolveDeviceGroupMembers));
+	builder.addMethod(DeviceProjectionGrpc.getListDeviceProjectionsMethod(),
+		ServerCalls.asyncUnaryCall(this::listDeviceProjections));
+	builder.addMethod(DeviceProjectionGrpc.getListZoneProjectionsMethod(),
+		ServerCalls.asyncUnaryCall(this::listZoneProjections));
+	builder.addMethod(DeviceProjectionGrpc.getListDeviceAssignmentSummaryProjectionsMethod(),
+		ServerCalls.asyncUnaryCall(this::listDeviceAssignmentSummaryProjections));
+	builder.addMethod(DeviceSearchGrpc.getSearchDevicesMethod(), ServerCalls.asyncUnaryCall(this::searchDevices));
+	builder.addMethod(DeviceSearchGrpc.getSearchDeviceAssignmentsMethod(),
+		ServerCalls.asyncUnaryCall(this::searchDeviceAssignments));
+	builder.addMethod(DeviceAlarmGrpc.getBulkUpdateDeviceAlarmsMethod(),
+		ServerCalls.asyncUnaryCall(this::bulkUpdateDeviceAlarms));
+	builder.addMethod(DeviceAlarmGrpc.getGetOpenDeviceAlarmCountsMethod(),
+		ServerCalls.asyncUnaryCall(this::getOpenDeviceAlarmCounts));
+	builder.addMethod(DeviceLookupGrpc.getLookupDevicesMethod(), ServerCalls.asyncUnaryCall(this::lookupDevices));
+	builder.addMethod(DeviceLookupGrpc.getLookupDeviceAssignmentsMethod(),
+		ServerCalls.asyncUnaryCall(this::lookupDeviceAssignments));
+	builder.addMethod(DeviceLookupGrpc.getLookupDeviceTypesMethod(),
+		ServerCalls.asyncUnaryCall(this::lookupDeviceTypes));
+	builder.addMethod(DeviceLookupGrpc.getLookupDeviceCommandsMethod(),
+		ServerCalls.asyncUnaryCall(this::lookupDeviceCommands));
+	builder.addMethod(DeviceLookupGrpc.getLookupCustomersMethod(),
+		ServerCalls.asyncUnaryCall(this::lookupCustomers));
+	builder.addMethod(DeviceLookupGrpc.getLookupAreasMethod(), ServerCalls.asyncUnaryCall(this::lookupAreas));
+	return builder.build();
+    }
+
     protected IDeviceManagementMicroservice getMicroservice() {
 	return microservice;
     }
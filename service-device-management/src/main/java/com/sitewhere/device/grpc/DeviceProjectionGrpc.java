@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryRequest;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionRequest;
+import com.sitewhere.device.persistence.projection.ZoneProjectionPage;
+import com.sitewhere.device.persistence.projection.ZoneProjectionRequest;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for projection-based list calls. Served alongside the generated
+ * device management methods and uses JSON payloads.
+ */
+public class DeviceProjectionGrpc {
+
+    /** Method for getting a page of device projections */
+    private static final MethodDescriptor<DeviceProjectionRequest, DeviceProjectionPage> LIST_DEVICE_PROJECTIONS = MethodDescriptor
+	    .<DeviceProjectionRequest, DeviceProjectionPage>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "ListDeviceProjections"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceProjectionRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(DeviceProjectionPage.class)).build();
+
+    /** Method for getting a page of zone projections */
+    private static final MethodDescriptor<ZoneProjectionRequest, ZoneProjectionPage> LIST_ZONE_PROJECTIONS = MethodDescriptor
+	    .<ZoneProjectionRequest, ZoneProjectionPage>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "ListZoneProjections"))
+	    .setRequestMarshaller(new JsonMarshaller<>(ZoneProjectionRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(ZoneProjectionPage.class)).build();
+
+    /** Method for getting a page of device assignment summaries */
+    private static final MethodDescriptor<DeviceAssignmentSummaryRequest, DeviceAssignmentSummaryPage> LIST_DEVICE_ASSIGNMENT_SUMMARY_PROJECTIONS = MethodDescriptor
+	    .<DeviceAssignmentSummaryRequest, DeviceAssignmentSummaryPage>newBuilder()
+	    .setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME,
+		    "ListDeviceAssignmentSummaryProjections"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceAssignmentSummaryRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(DeviceAssignmentSummaryPage.class)).build();
+
+    public static MethodDescriptor<DeviceProjectionRequest, DeviceProjectionPage> getListDeviceProjectionsMethod() {
+	return LIST_DEVICE_PROJECTIONS;
+    }
+
+    public static MethodDescriptor<ZoneProjectionRequest, ZoneProjectionPage> getListZoneProjectionsMethod() {
+	return LIST_ZONE_PROJECTIONS;
+    }
+
+    public static MethodDescriptor<DeviceAssignmentSummaryRequest, DeviceAssignmentSummaryPage> getListDeviceAssignmentSummaryProjectionsMethod() {
+	return LIST_DEVICE_ASSIGNMENT_SUMMARY_PROJECTIONS;
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryRequest;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionRequest;
+import com.sitewhere.device.persistence.projection.ZoneProjectionPage;
+import com.sitewhere.device.persistence.projection.ZoneProjectionRequest;
+import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
+import com.sitewhere.device.spi.persistence.IDeviceProjectionManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for projection-based list requests.
+ */
+public class DeviceProjectionImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IDeviceManagementMicroservice microservice;
+
+    /** Projection management implementation */
+    private IDeviceProjectionManagement projectionManagement;
+
+    public DeviceProjectionImpl(IDeviceManagementMicroservice microservice,
+	    IDeviceProjectionManagement projectionManagement) {
+	this.microservice = microservice;
+	this.projectionManagement = projectionManagement;
+    }
+
+    /**
+     * Get a page of device projections.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void listDeviceProjections(DeviceProjectionRequest request,
+	    StreamObserver<DeviceProjectionPage> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceProjectionGrpc.getListDeviceProjectionsMethod());
+	    responseObserver.onNext(getProjectionManagement().listDeviceProjections(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceProjectionGrpc.getListDeviceProjectionsMethod(), e,
+		    responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceProjectionGrpc.getListDeviceProjectionsMethod());
+	}
+    }
+
+    /**
+     * Get a page of zone projections for an area.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void listZoneProjections(ZoneProjectionRequest request,
+	    StreamObserver<ZoneProjectionPage> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceProjectionGrpc.getListZoneProjectionsMethod());
+	    responseObserver.onNext(getProjectionManagement().listZoneProjections(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceProjectionGrpc.getListZoneProjectionsMethod(), e,
+		    responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceProjectionGrpc.getListZoneProjectionsMethod());
+	}
+    }
+
+    /**
+     * Get a page of device assignment summaries.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void listDeviceAssignmentSummaryProjections(DeviceAssignmentSummaryRequest request,
+	    StreamObserver<DeviceAssignmentSummaryPage> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this,
+		    DeviceProjectionGrpc.getListDeviceAssignmentSummaryProjectionsMethod());
+	    responseObserver.onNext(getProjectionManagement().listDeviceAssignmentSummaryProjections(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(
+		    DeviceProjectionGrpc.getListDeviceAssignmentSummaryProjectionsMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceProjectionGrpc.getListDeviceAssignmentSummaryProjectionsMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IDeviceProjectionManagement getProjectionManagement() {
+	return projectionManagement;
+    }
+}
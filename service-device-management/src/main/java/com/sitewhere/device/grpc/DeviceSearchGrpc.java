@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.projection.DeviceAssignmentProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.search.DeviceAssignmentSearchRequest;
+import com.sitewhere.device.persistence.search.DeviceSearchRequest;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for device and assignment search calls. Served alongside the
+ * generated device management methods and uses JSON payloads.
+ */
+public class DeviceSearchGrpc {
+
+    /** Method for searching devices */
+    private static final MethodDescriptor<DeviceSearchRequest, DeviceProjectionPage> SEARCH_DEVICES = MethodDescriptor
+	    .<DeviceSearchRequest, DeviceProjectionPage>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "SearchDevices"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceSearchRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(DeviceProjectionPage.class)).build();
+
+    /** Method for searching device assignments */
+    private static final MethodDescriptor<DeviceAssignmentSearchRequest, DeviceAssignmentProjectionPage> SEARCH_DEVICE_ASSIGNMENTS = MethodDescriptor
+	    .<DeviceAssignmentSearchRequest, DeviceAssignmentProjectionPage>newBuilder()
+	    .setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "SearchDeviceAssignments"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceAssignmentSearchRequest.class))
+	    .setResponseMarshaller(new JsonMarshaller<>(DeviceAssignmentProjectionPage.class)).build();
+
+    public static MethodDescriptor<DeviceSearchRequest, DeviceProjectionPage> getSearchDevicesMethod() {
+	return SEARCH_DEVICES;
+    }
+
+    public static MethodDescriptor<DeviceAssignmentSearchRequest, DeviceAssignmentProjectionPage> getSearchDeviceAssignmentsMethod() {
+	return SEARCH_DEVICE_ASSIGNMENTS;
+    }
+}
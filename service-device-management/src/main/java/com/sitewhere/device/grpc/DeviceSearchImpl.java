@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.grpc;
+
+import com.sitewhere.device.persistence.projection.DeviceAssignmentProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.search.DeviceAssignmentSearchRequest;
+import com.sitewhere.device.persistence.search.DeviceSearchRequest;
+import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
+import com.sitewhere.device.spi.persistence.IDeviceSearchManagement;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for device and assignment search requests.
+ */
+public class DeviceSearchImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IDeviceManagementMicroservice microservice;
+
+    /** Search management implementation */
+    private IDeviceSearchManagement searchManagement;
+
+    public DeviceSearchImpl(IDeviceManagementMicroservice microservice, IDeviceSearchManagement searchManagement) {
+	this.microservice = microservice;
+	this.searchManagement = searchManagement;
+    }
+
+    /**
+     * Get a page of devices matching a search.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void searchDevices(DeviceSearchRequest request, StreamObserver<DeviceProjectionPage> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceSearchGrpc.getSearchDevicesMethod());
+	    responseObserver.onNext(getSearchManagement().searchDevices(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceSearchGrpc.getSearchDevicesMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceSearchGrpc.getSearchDevicesMethod());
+	}
+    }
+
+    /**
+     * Get a page of device assignments matching a search.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void searchDeviceAssignments(DeviceAssignmentSearchRequest request,
+	    StreamObserver<DeviceAssignmentProjectionPage> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, DeviceSearchGrpc.getSearchDeviceAssignmentsMethod());
+	    responseObserver.onNext(getSearchManagement().searchDeviceAssignments(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceSearchGrpc.getSearchDeviceAssignmentsMethod(), e,
+		    responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(DeviceSearchGrpc.getSearchDeviceAssignmentsMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#
+     * getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IDeviceSearchManagement getSearchManagement() {
+	return searchManagement;
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.kafka;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import com.sitewhere.device.spi.kafka.IAssetChangesConsumer;
+import com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine;
+import com.sitewhere.device.spi.persistence.IDeviceProjectionManagement;
+import com.sitewhere.microservice.kafka.DirectKafkaConsumer;
+import com.sitewhere.microservice.util.MarshalUtils;
+import com.sitewhere.shared.asset.AssetChange;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+
+/**
+ * Keeps asset names and images in assignment summaries in step with asset
+ * management. Changes published by asset management are applied to the
+ * summaries that reference the asset. All replicas share a group, so each
+ * change is applied once. On start, summaries that have no asset fields (for
+ * instance rows created by the summary table migration) are filled in the
+ * background, retrying until asset management can be reached.
+ */
+public class AssetChangesConsumer extends DirectKafkaConsumer implements IAssetChangesConsumer {
+
+    /** Consumer id */
+    private static String CONSUMER_ID = UUID.randomUUID().toString();
+
+    /** Suffix for group id */
+    private static String GROUP_ID_SUFFIX = "asset-summaries";
+
+    /** Seconds between attempts to fill missing asset fields */
+    private static final int BACKFILL_RETRY_SECS = 60;
+
+    /** Runs the backfill */
+    private ScheduledExecutorService backfillExecutor;
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerId()
+     */
+    @Override
+    public String getConsumerId() throws SiteWhereException {
+	return CONSUMER_ID;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerGroupId()
+     */
+    @Override
+    public String getConsumerGroupId() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getTenantPrefix(getTenantEngine().getTenantResource())
+		+ GROUP_ID_SUFFIX;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getSourceTopicNames()
+     */
+    @Override
+    public List<String> getSourceTopicNames() throws SiteWhereException {
+	List<String> topics = new ArrayList<String>();
+	topics.add(getMicroservice().getKafkaTopicNaming().getTenantPrefix(getTenantEngine().getTenantResource())
+		+ AssetChange.TOPIC_SUFFIX);
+	return topics;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.start(monitor);
+	if (this.backfillExecutor != null) {
+	    this.backfillExecutor.shutdownNow();
+	}
+	this.backfillExecutor = Executors.newSingleThreadScheduledExecutor(new BackfillThreadFactory());
+	this.backfillExecutor.execute(() -> backfill());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (this.backfillExecutor != null) {
+	    this.backfillExecutor.shutdownNow();
+	}
+	super.stop(monitor);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.DirectKafkaConsumer#attemptToProcess(org.
+     * apache.kafka.common.TopicPartition, java.util.List)
+     */
+    @Override
+    public void attemptToProcess(TopicPartition topicPartition, List<ConsumerRecord<String, byte[]>> records)
+	    throws SiteWhereException {
+	Set<UUID> assetIds = new LinkedHashSet<>();
+	for (ConsumerRecord<String, byte[]> record : records) {
+	    try {
+		AssetChange change = MarshalUtils.unmarshalJson(record.value(), AssetChange.class);
+		if (change.getType() == AssetChange.EntityType.Asset && change.getEntityId() != null) {
+		    assetIds.add(change.getEntityId());
+		}
+	    } catch (Throwable e) {
+		getLogger().error("Unable to parse asset change.", e);
+	    }
+	}
+	getProjectionManagement().refreshAssignmentSummaryAssets(new ArrayList<>(assetIds));
+    }
+
+    /**
+     * Fill missing asset fields, scheduling another attempt on failure.
+     */
+    protected void backfill() {
+	try {
+	    int count = getProjectionManagement().backfillAssignmentSummaryAssets();
+	    if (count > 0) {
+		getLogger().info(String.format("Filled assignment summary fields for %d assets.", count));
+	    }
+	} catch (Throwable e) {
+	    getLogger().warn(String.format("Unable to fill assignment summary asset fields. Retrying in %d seconds.",
+		    BACKFILL_RETRY_SECS), e);
+	    if (!backfillExecutor.isShutdown()) {
+		backfillExecutor.schedule(() -> backfill(), BACKFILL_RETRY_SECS, TimeUnit.SECONDS);
+	    }
+	}
+    }
+
+    protected IDeviceProjectionManagement getProjectionManagement() {
+	return ((IDeviceManagementTenantEngine) getTenantEngine()).getDeviceProjectionManagement();
+    }
+
+    /**
+     * Used for naming the backfill thread.
+     */
+    private static class BackfillThreadFactory implements ThreadFactory {
+
+	/** Counter for thread names */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "Assignment Summary Asset Backfill " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+}
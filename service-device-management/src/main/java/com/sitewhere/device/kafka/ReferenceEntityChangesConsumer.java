@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import com.sitewhere.device.cache.CachedDeviceManagement;
+import com.sitewhere.device.cache.ReferenceEntityChange;
+import com.sitewhere.device.spi.kafka.IReferenceEntityChangesConsumer;
+import com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine;
+import com.sitewhere.microservice.kafka.DirectKafkaConsumer;
+import com.sitewhere.microservice.util.MarshalUtils;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Listens for changes to reference entities made by other replicas and clears
+ * the affected local caches. Each replica uses its own group so that every
+ * replica receives every change.
+ */
+public class ReferenceEntityChangesConsumer extends DirectKafkaConsumer implements IReferenceEntityChangesConsumer {
+
+    /** Consumer id */
+    private static String CONSUMER_ID = UUID.randomUUID().toString();
+
+    /** Prefix for group id */
+    private static String GROUP_ID_PREFIX = "reference-cache.";
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerId()
+     */
+    @Override
+    public String getConsumerId() throws SiteWhereException {
+	return CONSUMER_ID;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerGroupId()
+     */
+    @Override
+    public String getConsumerGroupId() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getTenantPrefix(getTenantEngine().getTenantResource())
+		+ GROUP_ID_PREFIX + CONSUMER_ID;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getSourceTopicNames()
+     */
+    @Override
+    public List<String> getSourceTopicNames() throws SiteWhereException {
+	List<String> topics = new ArrayList<String>();
+	topics.add(getMicroservice().getKafkaTopicNaming().getTenantPrefix(getTenantEngine().getTenantResource())
+		+ ReferenceEntityChangesProducer.TOPIC_SUFFIX);
+	return topics;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.DirectKafkaConsumer#attemptToProcess(org.
+     * apache.kafka.common.TopicPartition, java.util.List)
+     */
+    @Override
+    public void attemptToProcess(TopicPartition topicPartition, List<ConsumerRecord<String, byte[]>> records)
+	    throws SiteWhereException {
+	for (ConsumerRecord<String, byte[]> record : records) {
+	    received(record.key(), record.value());
+	}
+    }
+
+    /**
+     * Handle processing of a single record.
+     * 
+     * @param key
+     * @param message
+     */
+    public void received(String key, byte[] message) {
+	try {
+	    ReferenceEntityChange change = MarshalUtils.unmarshalJson(message, ReferenceEntityChange.class);
+	    if (CachedDeviceManagement.ORIGIN.equals(change.getOrigin()) || change.getType() == null) {
+		return;
+	    }
+	    CachedDeviceManagement cached = getCachedDeviceManagement();
+	    if (cached != null) {
+		cached.invalidate(change.getType());
+	    }
+	} catch (Throwable e) {
+	    getLogger().error("Unable to process reference entity change.", e);
+	}
+    }
+
+    protected CachedDeviceManagement getCachedDeviceManagement() {
+	return ((IDeviceManagementTenantEngine) getTenantEngine()).getCachedDeviceManagement();
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.kafka;
+
+import com.sitewhere.device.spi.kafka.IReferenceEntityChangesProducer;
+import com.sitewhere.microservice.kafka.MicroserviceKafkaProducer;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Kafka producer that notifies other device management replicas of changes to
+ * cached reference entities.
+ */
+public class ReferenceEntityChangesProducer extends MicroserviceKafkaProducer<String, byte[]>
+	implements IReferenceEntityChangesProducer {
+
+    /** Suffix for topic name */
+    public static final String TOPIC_SUFFIX = "device-management-reference-changes";
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#
+     * getTargetTopicName()
+     */
+    @Override
+    public String getTargetTopicName() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getTenantPrefix(getTenantEngine().getTenantResource())
+		+ TOPIC_SUFFIX;
+    }
+}
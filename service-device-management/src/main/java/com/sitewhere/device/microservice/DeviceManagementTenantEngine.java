@@ -16,13 +16,28 @@
 package com.sitewhere.device.microservice;
 
 import com.sitewhere.device.DeviceManagementTriggers;
+import com.sitewhere.device.cache.CachedDeviceManagement;
 import com.sitewhere.device.configuration.DeviceManagementTenantConfiguration;
 import com.sitewhere.device.configuration.DeviceManagementTenantEngineModule;
+import com.sitewhere.device.grpc.DeviceAlarmImpl;
+import com.sitewhere.device.grpc.DeviceBulkImpl;
+import com.sitewhere.device.grpc.DeviceGroupImpl;
+import com.sitewhere.device.grpc.DeviceHierarchyImpl;
+import com.sitewhere.device.grpc.DeviceLookupImpl;
+import com.sitewhere.device.grpc.DeviceProjectionImpl;
+import com.sitewhere.device.grpc.DeviceSearchImpl;
 import com.sitewhere.device.grpc.DeviceManagementImpl;
+import com.sitewhere.device.kafka.AssetChangesConsumer;
 import com.sitewhere.device.kafka.DeviceInteractionEventsProducer;
+import com.sitewhere.device.kafka.ReferenceEntityChangesConsumer;
+import com.sitewhere.device.kafka.ReferenceEntityChangesProducer;
+import com.sitewhere.device.spi.kafka.IAssetChangesConsumer;
 import com.sitewhere.device.spi.kafka.IDeviceInteractionEventsProducer;
+import com.sitewhere.device.spi.kafka.IReferenceEntityChangesConsumer;
+import com.sitewhere.device.spi.kafka.IReferenceEntityChangesProducer;
 import com.sitewhere.device.spi.microservice.IDeviceManagementMicroservice;
 import com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine;
+import com.sitewhere.device.spi.persistence.IDeviceProjectionManagement;
 import com.sitewhere.grpc.service.DeviceManagementGrpc;
 import com.sitewhere.microservice.api.device.DeviceManagementRequestBuilder;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
@@ -55,12 +70,48 @@ public class DeviceManagementTenantEngine extends RdbTenantEngine<DeviceManageme
     /** Device management persistence API */
     private IDeviceManagement deviceManagement;
 
+    /** Projection operations */
+    private IDeviceProjectionManagement deviceProjectionManagement;
+
     /** Responds to device management GRPC requests */
     private DeviceManagementGrpc.DeviceManagementImplBase deviceManagementImpl;
 
+    /** Responds to bulk device GRPC requests */
+    private DeviceBulkImpl deviceBulkImpl;
+
+    /** Responds to area and customer hierarchy GRPC requests */
+    private DeviceHierarchyImpl deviceHierarchyImpl;
+
+    /** Responds to device group membership GRPC requests */
+    private DeviceGroupImpl deviceGroupImpl;
+
+    /** Responds to projection-based list GRPC requests */
+    private DeviceProjectionImpl deviceProjectionImpl;
+
+    /** Responds to device and assignment search GRPC requests */
+    private DeviceSearchImpl deviceSearchImpl;
+
+    /** Responds to bulk alarm and alarm count GRPC requests */
+    private DeviceAlarmImpl deviceAlarmImpl;
+
+    /** Responds to batch lookup GRPC requests */
+    private DeviceLookupImpl deviceLookupImpl;
+
     /** Produces events generated by device interactions */
     private IDeviceInteractionEventsProducer deviceInteractionEventsProducer;
 
+    /** Caches reference entities (null if caching is disabled) */
+    private CachedDeviceManagement cachedDeviceManagement;
+
+    /** Produces changes to cached reference entities */
+    private IReferenceEntityChangesProducer referenceEntityChangesProducer;
+
+    /** Consumes changes to cached reference entities made by other replicas */
+    private IReferenceEntityChangesConsumer referenceEntityChangesConsumer;
+
+    /** Consumes asset changes published by asset management */
+    private IAssetChangesConsumer assetChangesConsumer;
+
     public DeviceManagementTenantEngine(SiteWhereTenantEngine engine) {
 	super(engine);
     }
@@ -107,9 +158,26 @@ public class DeviceManagementTenantEngine extends RdbTenantEngine<DeviceManageme
     public void loadEngineComponents() throws SiteWhereException {
 	// // Create management interfaces.
 	IDeviceManagement implementation = getInjector().getInstance(IDeviceManagement.class);
-	this.deviceManagement = new DeviceManagementTriggers(implementation, this);
+	DeviceManagementTriggers triggers = new DeviceManagementTriggers(implementation, this);
+	if (getActiveConfiguration().getReferenceCaching().isEnabled()) {
+	    this.cachedDeviceManagement = new CachedDeviceManagement(triggers,
+		    getActiveConfiguration().getReferenceCaching(), this);
+	    this.deviceManagement = cachedDeviceManagement;
+	} else {
+	    this.cachedDeviceManagement = null;
+	    this.deviceManagement = triggers;
+	}
+	this.deviceProjectionManagement = triggers;
 	this.deviceManagementImpl = new DeviceManagementImpl((IDeviceManagementMicroservice) getMicroservice(),
 		getDeviceManagement());
+	this.deviceBulkImpl = new DeviceBulkImpl((IDeviceManagementMicroservice) getMicroservice(), triggers);
+	this.deviceHierarchyImpl = new DeviceHierarchyImpl((IDeviceManagementMicroservice) getMicroservice(), triggers);
+	this.deviceGroupImpl = new DeviceGroupImpl((IDeviceManagementMicroservice) getMicroservice(), triggers);
+	this.deviceProjectionImpl = new DeviceProjectionImpl((IDeviceManagementMicroservice) getMicroservice(),
+		triggers);
+	this.deviceSearchImpl = new DeviceSearchImpl((IDeviceManagementMicroservice) getMicroservice(), triggers);
+	this.deviceAlarmImpl = new DeviceAlarmImpl((IDeviceManagementMicroservice) getMicroservice(), triggers);
+	this.deviceLookupImpl = new DeviceLookupImpl((IDeviceManagementMicroservice) getMicroservice(), triggers);
     }
 
     /*
@@ -164,6 +232,13 @@ public class DeviceManagementTenantEngine extends RdbTenantEngine<DeviceManageme
 	// Device interaction events producer.
 	this.deviceInteractionEventsProducer = new DeviceInteractionEventsProducer();
 
+	// Reference entity change producer and consumer.
+	this.referenceEntityChangesProducer = new ReferenceEntityChangesProducer();
+	this.referenceEntityChangesConsumer = new ReferenceEntityChangesConsumer();
+
+	// Asset change consumer.
+	this.assetChangesConsumer = new AssetChangesConsumer();
+
 	// Create step that will initialize components.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getComponentName());
 
@@ -173,6 +248,13 @@ public class DeviceManagementTenantEngine extends RdbTenantEngine<DeviceManageme
 	// Initialize device interaction events producer.
 	init.addInitializeStep(this, getDeviceInteractionEventsProducer(), true);
 
+	// Initialize reference entity change producer and consumer.
+	init.addInitializeStep(this, getReferenceEntityChangesProducer(), true);
+	init.addInitializeStep(this, getReferenceEntityChangesConsumer(), true);
+
+	// Initialize asset change consumer.
+	init.addInitializeStep(this, getAssetChangesConsumer(), true);
+
 	// Execute initialization steps.
 	init.execute(monitor);
     }
@@ -195,6 +277,13 @@ public class DeviceManagementTenantEngine extends RdbTenantEngine<DeviceManageme
 	// Start device interaction events producer.
 	start.addStartStep(this, getDeviceInteractionEventsProducer(), true);
 
+	// Start reference entity change producer and consumer.
+	start.addStartStep(this, getReferenceEntityChangesProducer(), true);
+	start.addStartStep(this, getReferenceEntityChangesConsumer(), true);
+
+	// Start asset change consumer.
+	start.addStartStep(this, getAssetChangesConsumer(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
     }
@@ -209,6 +298,13 @@ public class DeviceManagementTenantEngine extends RdbTenantEngine<DeviceManageme
 	// Create step that will stop components.
 	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getComponentName());
 
+	// Stop asset change consumer.
+	stop.addStopStep(this, getAssetChangesConsumer());
+
+	// Stop reference entity change consumer and producer.
+	stop.addStopStep(this, getReferenceEntityChangesConsumer());
+	stop.addStopStep(this, getReferenceEntityChangesProducer());
+
 	// Stop device interaction events producer.
 	stop.addStopStep(this, getDeviceInteractionEventsProducer());
 
@@ -243,6 +339,69 @@ public class DeviceManagementTenantEngine extends RdbTenantEngine<DeviceManageme
 	return deviceManagementImpl;
     }
 
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getDeviceBulkImpl()
+     */
+    @Override
+    public DeviceBulkImpl getDeviceBulkImpl() {
+	return deviceBulkImpl;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getDeviceHierarchyImpl()
+     */
+    @Override
+    public DeviceHierarchyImpl getDeviceHierarchyImpl() {
+	return deviceHierarchyImpl;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getDeviceGroupImpl()
+     */
+    @Override
+    public DeviceGroupImpl getDeviceGroupImpl() {
+	return deviceGroupImpl;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getDeviceProjectionImpl()
+     */
+    @Override
+    public DeviceProjectionImpl getDeviceProjectionImpl() {
+	return deviceProjectionImpl;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getDeviceSearchImpl()
+     */
+    @Override
+    public DeviceSearchImpl getDeviceSearchImpl() {
+	return deviceSearchImpl;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getDeviceAlarmImpl()
+     */
+    @Override
+    public DeviceAlarmImpl getDeviceAlarmImpl() {
+	return deviceAlarmImpl;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getDeviceLookupImpl()
+     */
+    @Override
+    public DeviceLookupImpl getDeviceLookupImpl() {
+	return deviceLookupImpl;
+    }
+
     /*
      * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
      * getDeviceInteractionEventsProducer()
@@ -251,4 +410,49 @@ public class DeviceManagementTenantEngine extends RdbTenantEngine<DeviceManageme
     public IDeviceInteractionEventsProducer getDeviceInteractionEventsProducer() {
 	return deviceInteractionEventsProducer;
     }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getCachedDeviceManagement()
+     */
+    @Override
+    public CachedDeviceManagement getCachedDeviceManagement() {
+	return cachedDeviceManagement;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getReferenceEntityChangesProducer()
+     */
+    @Override
+    public IReferenceEntityChangesProducer getReferenceEntityChangesProducer() {
+	return referenceEntityChangesProducer;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getReferenceEntityChangesConsumer()
+     */
+    @Override
+    public IReferenceEntityChangesConsumer getReferenceEntityChangesConsumer() {
+	return referenceEntityChangesConsumer;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getAssetChangesConsumer()
+     */
+    @Override
+    public IAssetChangesConsumer getAssetChangesConsumer() {
+	return assetChangesConsumer;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine#
+     * getDeviceProjectionManagement()
+     */
+    @Override
+    public IDeviceProjectionManagement getDeviceProjectionManagement() {
+	return deviceProjectionManagement;
+    }
 }
\ No newline at end of file
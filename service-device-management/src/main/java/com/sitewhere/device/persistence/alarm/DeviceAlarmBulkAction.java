@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.alarm;
+
+/**
+ * Outcome for an alarm in a bulk alarm request.
+ */
+public enum DeviceAlarmBulkAction {
+
+    /** Alarm was created */
+    Created,
+
+    /** Repeated trigger was merged into an open alarm */
+    Deduplicated,
+
+    /** Alarm state was changed */
+    Updated,
+
+    /** Alarm was already in the requested state */
+    Unchanged,
+
+    /** Entry was rejected */
+    Failed;
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.alarm;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.rest.model.device.request.DeviceAlarmCreateRequest;
+
+/**
+ * Request to raise, acknowledge or resolve many alarms in one call.
+ */
+public class DeviceAlarmBulkRequest {
+
+    /** Operation applied to all entries */
+    private DeviceAlarmBulkOperation operation = DeviceAlarmBulkOperation.Raise;
+
+    /** Alarms to raise (used by raise operation) */
+    private List<DeviceAlarmCreateRequest> alarms = new ArrayList<>();
+
+    /** Ids of alarms to acknowledge or resolve */
+    private List<UUID> alarmIds = new ArrayList<>();
+
+    /** Date recorded for the state change (null for current date) */
+    private Date date;
+
+    public DeviceAlarmBulkOperation getOperation() {
+	return operation;
+    }
+
+    public void setOperation(DeviceAlarmBulkOperation operation) {
+	this.operation = operation;
+    }
+
+    public List<DeviceAlarmCreateRequest> getAlarms() {
+	return alarms;
+    }
+
+    public void setAlarms(List<DeviceAlarmCreateRequest> alarms) {
+	this.alarms = alarms;
+    }
+
+    public List<UUID> getAlarmIds() {
+	return alarmIds;
+    }
+
+    public void setAlarmIds(List<UUID> alarmIds) {
+	this.alarmIds = alarmIds;
+    }
+
+    public Date getDate() {
+	return date;
+    }
+
+    public void setDate(Date date) {
+	this.date = date;
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.alarm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response for a bulk alarm request. Contains one result per entry in request
+ * order.
+ */
+public class DeviceAlarmBulkResponse {
+
+    /** Number of alarms created */
+    private int createdCount;
+
+    /** Number of triggers merged into open alarms */
+    private int deduplicatedCount;
+
+    /** Number of alarms with changed state */
+    private int updatedCount;
+
+    /** Number of alarms already in the requested state */
+    private int unchangedCount;
+
+    /** Number of entries that failed */
+    private int failedCount;
+
+    /** Result for each entry */
+    private List<DeviceAlarmBulkResult> results = new ArrayList<>();
+
+    /**
+     * Add a result and update counts.
+     * 
+     * @param result
+     */
+    public void add(DeviceAlarmBulkResult result) {
+	getResults().add(result);
+	if (result.getAction() == DeviceAlarmBulkAction.Created) {
+	    createdCount++;
+	} else if (result.getAction() == DeviceAlarmBulkAction.Deduplicated) {
+	    deduplicatedCount++;
+	} else if (result.getAction() == DeviceAlarmBulkAction.Updated) {
+	    updatedCount++;
+	} else if (result.getAction() == DeviceAlarmBulkAction.Unchanged) {
+	    unchangedCount++;
+	} else {
+	    failedCount++;
+	}
+    }
+
+    public int getCreatedCount() {
+	return createdCount;
+    }
+
+    public void setCreatedCount(int createdCount) {
+	this.createdCount = createdCount;
+    }
+
+    public int getDeduplicatedCount() {
+	return deduplicatedCount;
+    }
+
+    public void setDeduplicatedCount(int deduplicatedCount) {
+	this.deduplicatedCount = deduplicatedCount;
+    }
+
+    public int getUpdatedCount() {
+	return updatedCount;
+    }
+
+    public void setUpdatedCount(int updatedCount) {
+	this.updatedCount = updatedCount;
+    }
+
+    public int getUnchangedCount() {
+	return unchangedCount;
+    }
+
+    public void setUnchangedCount(int unchangedCount) {
+	this.unchangedCount = unchangedCount;
+    }
+
+    public int getFailedCount() {
+	return failedCount;
+    }
+
+    public void setFailedCount(int failedCount) {
+	this.failedCount = failedCount;
+    }
+
+    public List<DeviceAlarmBulkResult> getResults() {
+	return results;
+    }
+
+    public void setResults(List<DeviceAlarmBulkResult> results) {
+	this.results = results;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.alarm;
+
+import java.util.UUID;
+
+/**
+ * Result for a single entry in a bulk alarm request.
+ */
+public class DeviceAlarmBulkResult {
+
+    /** Index of entry in request */
+    private int index;
+
+    /** Alarm id (null if entry failed) */
+    private UUID alarmId;
+
+    /** Outcome for alarm */
+    private DeviceAlarmBulkAction action;
+
+    /** Reason entry failed */
+    private String error;
+
+    public DeviceAlarmBulkResult() {
+    }
+
+    public DeviceAlarmBulkResult(int index) {
+	this.index = index;
+    }
+
+    /**
+     * Mark entry as failed.
+     * 
+     * @param error
+     */
+    public void fail(String error) {
+	this.action = DeviceAlarmBulkAction.Failed;
+	this.error = error;
+    }
+
+    public boolean isFailed() {
+	return getAction() == DeviceAlarmBulkAction.Failed;
+    }
+
+    public int getIndex() {
+	return index;
+    }
+
+    public void setIndex(int index) {
+	this.index = index;
+    }
+
+    public UUID getAlarmId() {
+	return alarmId;
+    }
+
+    public void setAlarmId(UUID alarmId) {
+	this.alarmId = alarmId;
+    }
+
+    public DeviceAlarmBulkAction getAction() {
+	return action;
+    }
+
+    public void setAction(DeviceAlarmBulkAction action) {
+	this.action = action;
+    }
+
+    public String getError() {
+	return error;
+    }
+
+    public void setError(String error) {
+	this.error = error;
+    }
+}
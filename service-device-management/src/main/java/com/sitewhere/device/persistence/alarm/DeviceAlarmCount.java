@@ -0,0 +1,80 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.alarm;
+
+import java.util.UUID;
+
+import com.sitewhere.spi.device.DeviceAlarmState;
+
+/**
+ * Number of open alarms for an area, device type and state.
+ */
+public class DeviceAlarmCount {
+
+    /** Area id (null for alarms without an area) */
+    private UUID areaId;
+
+    /** Device type id */
+    private UUID deviceTypeId;
+
+    /** Alarm state */
+    private DeviceAlarmState state;
+
+    /** Number of alarms */
+    private long count;
+
+    public DeviceAlarmCount() {
+    }
+
+    public DeviceAlarmCount(UUID areaId, UUID deviceTypeId, DeviceAlarmState state, long count) {
+	this.areaId = areaId;
+	this.deviceTypeId = deviceTypeId;
+	this.state = state;
+	this.count = count;
+    }
+
+    public UUID getAreaId() {
+	return areaId;
+    }
+
+    public void setAreaId(UUID areaId) {
+	this.areaId = areaId;
+    }
+
+    public UUID getDeviceTypeId() {
+	return deviceTypeId;
+    }
+
+    public void setDeviceTypeId(UUID deviceTypeId) {
+	this.deviceTypeId = deviceTypeId;
+    }
+
+    public DeviceAlarmState getState() {
+	return state;
+    }
+
+    public void setState(DeviceAlarmState state) {
+	this.state = state;
+    }
+
+    public long getCount() {
+	return count;
+    }
+
+    public void setCount(long count) {
+	this.count = count;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.alarm;
+
+import com.sitewhere.spi.device.DeviceAlarmState;
+
+/**
+ * Request for open alarm counts. All criteria are optional. An area token
+ * includes counts for all areas nested below it.
+ */
+public class DeviceAlarmCountRequest {
+
+    /** Area token */
+    private String areaToken;
+
+    /** Device type token */
+    private String deviceTypeToken;
+
+    /** Alarm state */
+    private DeviceAlarmState state;
+
+    public String getAreaToken() {
+	return areaToken;
+    }
+
+    public void setAreaToken(String areaToken) {
+	this.areaToken = areaToken;
+    }
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+
+    public DeviceAlarmState getState() {
+	return state;
+    }
+
+    public void setState(DeviceAlarmState state) {
+	this.state = state;
+    }
+}
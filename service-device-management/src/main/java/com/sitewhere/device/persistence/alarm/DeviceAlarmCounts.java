@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.alarm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open alarm counts matching a request along with their total.
+ */
+public class DeviceAlarmCounts {
+
+    /** Counts by area, device type and state */
+    private List<DeviceAlarmCount> counts = new ArrayList<>();
+
+    /** Total of all counts */
+    private long total;
+
+    public DeviceAlarmCounts() {
+    }
+
+    public DeviceAlarmCounts(List<DeviceAlarmCount> counts) {
+	this.counts = counts;
+	for (DeviceAlarmCount count : counts) {
+	    this.total += count.getCount();
+	}
+    }
+
+    public List<DeviceAlarmCount> getCounts() {
+	return counts;
+    }
+
+    public void setCounts(List<DeviceAlarmCount> counts) {
+	this.counts = counts;
+    }
+
+    public long getTotal() {
+	return total;
+    }
+
+    public void setTotal(long total) {
+	this.total = total;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.bulk;
+
+import com.sitewhere.rest.model.device.request.DeviceAssignmentCreateRequest;
+import com.sitewhere.rest.model.device.request.DeviceCreateRequest;
+
+/**
+ * Device to be created or updated as part of a bulk request along with an
+ * optional assignment.
+ */
+public class DeviceBulkEntry {
+
+    /** Device data (token is required) */
+    private DeviceCreateRequest device;
+
+    /** Assignment data (null for no assignment) */
+    private DeviceAssignmentCreateRequest assignment;
+
+    public DeviceCreateRequest getDevice() {
+	return device;
+    }
+
+    public void setDevice(DeviceCreateRequest device) {
+	this.device = device;
+    }
+
+    public DeviceAssignmentCreateRequest getAssignment() {
+	return assignment;
+    }
+
+    public void setAssignment(DeviceAssignmentCreateRequest assignment) {
+	this.assignment = assignment;
+    }
+}
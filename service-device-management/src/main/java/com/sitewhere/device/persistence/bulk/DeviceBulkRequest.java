@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request to create or update many devices and their assignments in one call.
+ */
+public class DeviceBulkRequest {
+
+    /** Indicates how entries are matched against existing devices */
+    private DeviceBulkMode mode = DeviceBulkMode.Upsert;
+
+    /** Devices to create or update */
+    private List<DeviceBulkEntry> entries = new ArrayList<>();
+
+    /** Indicates active assignments of existing devices are left unchanged */
+    private boolean preserveActiveAssignments;
+
+    public DeviceBulkMode getMode() {
+	return mode;
+    }
+
+    public void setMode(DeviceBulkMode mode) {
+	this.mode = mode;
+    }
+
+    public List<DeviceBulkEntry> getEntries() {
+	return entries;
+    }
+
+    public void setEntries(List<DeviceBulkEntry> entries) {
+	this.entries = entries;
+    }
+
+    public boolean isPreserveActiveAssignments() {
+	return preserveActiveAssignments;
+    }
+
+    public void setPreserveActiveAssignments(boolean preserveActiveAssignments) {
+	this.preserveActiveAssignments = preserveActiveAssignments;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.bulk;
+
+import java.util.UUID;
+
+/**
+ * Result for a single entry of a bulk device request.
+ */
+public class DeviceBulkResult {
+
+    /** Index of entry in request */
+    private int index;
+
+    /** Device token */
+    private String deviceToken;
+
+    /** Device id (null if entry failed) */
+    private UUID deviceId;
+
+    /** Outcome for device */
+    private DeviceBulkAction deviceAction;
+
+    /** Assignment id (null if no assignment was requested or entry failed) */
+    private UUID assignmentId;
+
+    /** Outcome for assignment (null if no assignment was requested) */
+    private DeviceBulkAction assignmentAction;
+
+    /** Reason entry failed */
+    private String error;
+
+    public DeviceBulkResult() {
+    }
+
+    public DeviceBulkResult(int index, String deviceToken) {
+	this.index = index;
+	this.deviceToken = deviceToken;
+    }
+
+    /**
+     * Mark entry as failed.
+     * 
+     * @param error
+     */
+    public void fail(String error) {
+	this.deviceId = null;
+	this.assignmentId = null;
+	this.deviceAction = DeviceBulkAction.Failed;
+	this.assignmentAction = null;
+	this.error = error;
+    }
+
+    public boolean isFailed() {
+	return getDeviceAction() == DeviceBulkAction.Failed;
+    }
+
+    public int getIndex() {
+	return index;
+    }
+
+    public void setIndex(int index) {
+	this.index = index;
+    }
+
+    public String getDeviceToken() {
+	return deviceToken;
+    }
+
+    public void setDeviceToken(String deviceToken) {
+	this.deviceToken = deviceToken;
+    }
+
+    public UUID getDeviceId() {
+	return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+	this.deviceId = deviceId;
+    }
+
+    public DeviceBulkAction getDeviceAction() {
+	return deviceAction;
+    }
+
+    public void setDeviceAction(DeviceBulkAction deviceAction) {
+	this.deviceAction = deviceAction;
+    }
+
+    public UUID getAssignmentId() {
+	return assignmentId;
+    }
+
+    public void setAssignmentId(UUID assignmentId) {
+	this.assignmentId = assignmentId;
+    }
+
+    public DeviceBulkAction getAssignmentAction() {
+	return assignmentAction;
+    }
+
+    public void setAssignmentAction(DeviceBulkAction assignmentAction) {
+	this.assignmentAction = assignmentAction;
+    }
+
+    public String getError() {
+	return error;
+    }
+
+    public void setError(String error) {
+	this.error = error;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.group;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Page of distinct device ids in ascending order. The last id is passed as
+ * 'afterDeviceId' to request the next page.
+ */
+public class DeviceGroupMembersPage {
+
+    /** Device ids */
+    private List<UUID> deviceIds = new ArrayList<>();
+
+    /** Indicates whether more devices may follow */
+    private boolean hasMore;
+
+    public DeviceGroupMembersPage() {
+    }
+
+    public DeviceGroupMembersPage(List<UUID> deviceIds, boolean hasMore) {
+	this.deviceIds = deviceIds;
+	this.hasMore = hasMore;
+    }
+
+    public List<UUID> getDeviceIds() {
+	return deviceIds;
+    }
+
+    public void setDeviceIds(List<UUID> deviceIds) {
+	this.deviceIds = deviceIds;
+    }
+
+    public boolean isHasMore() {
+	return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+	this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.group;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request for a page of the devices that belong to one or more device groups,
+ * including devices in nested groups.
+ */
+public class DeviceGroupMembersRequest {
+
+    /** Tokens of groups to resolve */
+    private List<String> groupTokens = new ArrayList<>();
+
+    /** Only elements with one of these roles are included (empty for all) */
+    private List<String> roles = new ArrayList<>();
+
+    /** Only devices with ids after this one are returned (null for first page) */
+    private UUID afterDeviceId;
+
+    /** Maximum number of device ids returned */
+    private int pageSize;
+
+    public List<String> getGroupTokens() {
+	return groupTokens;
+    }
+
+    public void setGroupTokens(List<String> groupTokens) {
+	this.groupTokens = groupTokens;
+    }
+
+    public List<String> getRoles() {
+	return roles;
+    }
+
+    public void setRoles(List<String> roles) {
+	this.roles = roles;
+    }
+
+    public UUID getAfterDeviceId() {
+	return afterDeviceId;
+    }
+
+    public void setAfterDeviceId(UUID afterDeviceId) {
+	this.afterDeviceId = afterDeviceId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.hierarchy;
+
+import java.util.UUID;
+
+/**
+ * Lightweight reference to an area or customer returned when resolving a
+ * subtree.
+ */
+public class HierarchyNode {
+
+    /** Entity id */
+    private UUID id;
+
+    /** Entity token */
+    private String token;
+
+    /** Parent entity id (null for roots) */
+    private UUID parentId;
+
+    /** Number of levels below the subtree root */
+    private int depth;
+
+    public HierarchyNode() {
+    }
+
+    public HierarchyNode(UUID id, String token, UUID parentId, int depth) {
+	this.id = id;
+	this.token = token;
+	this.parentId = parentId;
+	this.depth = depth;
+    }
+
+    public UUID getId() {
+	return id;
+    }
+
+    public void setId(UUID id) {
+	this.id = id;
+    }
+
+    public String getToken() {
+	return token;
+    }
+
+    public void setToken(String token) {
+	this.token = token;
+    }
+
+    public UUID getParentId() {
+	return parentId;
+    }
+
+    public void setParentId(UUID parentId) {
+	this.parentId = parentId;
+    }
+
+    public int getDepth() {
+	return depth;
+    }
+
+    public void setDepth(int depth) {
+	this.depth = depth;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.hierarchy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nodes of a subtree ordered by depth, starting with the subtree root. Empty
+ * if the root token was not found.
+ */
+public class HierarchySubtreeResponse {
+
+    /** Subtree nodes */
+    private List<HierarchyNode> nodes = new ArrayList<>();
+
+    public HierarchySubtreeResponse() {
+    }
+
+    public HierarchySubtreeResponse(List<HierarchyNode> nodes) {
+	this.nodes = nodes;
+    }
+
+    public List<HierarchyNode> getNodes() {
+	return nodes;
+    }
+
+    public void setNodes(List<HierarchyNode> nodes) {
+	this.nodes = nodes;
+    }
+}
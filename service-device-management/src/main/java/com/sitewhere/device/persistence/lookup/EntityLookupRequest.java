@@ -0,0 +1,61 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request for a list of entities by id or by token. Only one of the lists may
+ * be set. Results are returned in the order of the request with an entry for
+ * each key, including keys that did not match an entity.
+ */
+public class EntityLookupRequest {
+
+    /** Ids of entities to load */
+    private List<UUID> ids = new ArrayList<>();
+
+    /** Tokens of entities to load */
+    private List<String> tokens = new ArrayList<>();
+
+    /** Device type for command token lookups (ignored for other entities) */
+    private String deviceTypeToken;
+
+    public List<UUID> getIds() {
+	return ids;
+    }
+
+    public void setIds(List<UUID> ids) {
+	this.ids = ids;
+    }
+
+    public List<String> getTokens() {
+	return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+	this.tokens = tokens;
+    }
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+}
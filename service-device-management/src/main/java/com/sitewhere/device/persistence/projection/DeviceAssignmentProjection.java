@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+
+/**
+ * Columns of a device assignment needed for list views. Metadata is null
+ * unless it was requested.
+ */
+@JsonInclude(Include.NON_NULL)
+public class DeviceAssignmentProjection {
+
+    /** Assignment id */
+    private UUID id;
+
+    /** Assignment token */
+    private String token;
+
+    /** Device id */
+    private UUID deviceId;
+
+    /** Device token */
+    private String deviceToken;
+
+    /** Device type id */
+    private UUID deviceTypeId;
+
+    /** Customer id */
+    private UUID customerId;
+
+    /** Area id */
+    private UUID areaId;
+
+    /** Asset id */
+    private UUID assetId;
+
+    /** Assignment status */
+    private DeviceAssignmentStatus status;
+
+    /** Date assignment became active */
+    private Date activeDate;
+
+    /** Date assignment was released */
+    private Date releasedDate;
+
+    /** Date assignment was created */
+    private Date createdDate;
+
+    /** Metadata (null if not requested) */
+    private Map<String, String> metadata;
+
+    public UUID getId() {
+	return id;
+    }
+
+    public void setId(UUID id) {
+	this.id = id;
+    }
+
+    public String getToken() {
+	return token;
+    }
+
+    public void setToken(String token) {
+	this.token = token;
+    }
+
+    public UUID getDeviceId() {
+	return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+	this.deviceId = deviceId;
+    }
+
+    public String getDeviceToken() {
+	return deviceToken;
+    }
+
+    public void setDeviceToken(String deviceToken) {
+	this.deviceToken = deviceToken;
+    }
+
+    public UUID getDeviceTypeId() {
+	return deviceTypeId;
+    }
+
+    public void setDeviceTypeId(UUID deviceTypeId) {
+	this.deviceTypeId = deviceTypeId;
+    }
+
+    public UUID getCustomerId() {
+	return customerId;
+    }
+
+    public void setCustomerId(UUID customerId) {
+	this.customerId = customerId;
+    }
+
+    public UUID getAreaId() {
+	return areaId;
+    }
+
+    public void setAreaId(UUID areaId) {
+	this.areaId = areaId;
+    }
+
+    public UUID getAssetId() {
+	return assetId;
+    }
+
+    public void setAssetId(UUID assetId) {
+	this.assetId = assetId;
+    }
+
+    public DeviceAssignmentStatus getStatus() {
+	return status;
+    }
+
+    public void setStatus(DeviceAssignmentStatus status) {
+	this.status = status;
+    }
+
+    public Date getActiveDate() {
+	return activeDate;
+    }
+
+    public void setActiveDate(Date activeDate) {
+	this.activeDate = activeDate;
+    }
+
+    public Date getReleasedDate() {
+	return releasedDate;
+    }
+
+    public void setReleasedDate(Date releasedDate) {
+	this.releasedDate = releasedDate;
+    }
+
+    public Date getCreatedDate() {
+	return createdDate;
+    }
+
+    public void setCreatedDate(Date createdDate) {
+	this.createdDate = createdDate;
+    }
+
+    public Map<String, String> getMetadata() {
+	return metadata;
+    }
+
+    public void setMetadata(Map<String, String> metadata) {
+	this.metadata = metadata;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page of device assignment summaries.
+ */
+public class DeviceAssignmentSummaryPage {
+
+    /** Summaries on page */
+    private List<DeviceAssignmentSummaryProjection> summaries = new ArrayList<>();
+
+    /** Indicates whether more summaries may follow */
+    private boolean hasMore;
+
+    public DeviceAssignmentSummaryPage() {
+    }
+
+    public DeviceAssignmentSummaryPage(List<DeviceAssignmentSummaryProjection> summaries, boolean hasMore) {
+	this.summaries = summaries;
+	this.hasMore = hasMore;
+    }
+
+    public List<DeviceAssignmentSummaryProjection> getSummaries() {
+	return summaries;
+    }
+
+    public void setSummaries(List<DeviceAssignmentSummaryProjection> summaries) {
+	this.summaries = summaries;
+    }
+
+    public boolean isHasMore() {
+	return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+	this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.Date;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+
+/**
+ * Display fields of a device assignment along with the names and images of
+ * the entities it references and open alarm highlights. Read from the
+ * denormalized summary table without joins.
+ */
+@JsonInclude(Include.NON_NULL)
+public class DeviceAssignmentSummaryProjection {
+
+    /** Assignment id */
+    private UUID id;
+
+    /** Assignment token */
+    private String token;
+
+    /** Device id */
+    private UUID deviceId;
+
+    /** Device token */
+    private String deviceToken;
+
+    /** Device type id */
+    private UUID deviceTypeId;
+
+    /** Device type name */
+    private String deviceTypeName;
+
+    /** Device type image URL */
+    private String deviceTypeImageUrl;
+
+    /** Customer id */
+    private UUID customerId;
+
+    /** Customer name */
+    private String customerName;
+
+    /** Customer image URL */
+    private String customerImageUrl;
+
+    /** Area id */
+    private UUID areaId;
+
+    /** Area name */
+    private String areaName;
+
+    /** Area image URL */
+    private String areaImageUrl;
+
+    /** Asset id */
+    private UUID assetId;
+
+    /** Asset name */
+    private String assetName;
+
+    /** Asset image URL */
+    private String assetImageUrl;
+
+    /** Assignment status */
+    private DeviceAssignmentStatus status;
+
+    /** Date assignment became active */
+    private Date activeDate;
+
+    /** Date assignment was released */
+    private Date releasedDate;
+
+    /** Date assignment was created */
+    private Date createdDate;
+
+    /** Number of open alarms */
+    private long openAlarmCount;
+
+    /** Date of most recent trigger for an open alarm */
+    private Date lastAlarmDate;
+
+    public UUID getId() {
+	return id;
+    }
+
+    public void setId(UUID id) {
+	this.id = id;
+    }
+
+    public String getToken() {
+	return token;
+    }
+
+    public void setToken(String token) {
+	this.token = token;
+    }
+
+    public UUID getDeviceId() {
+	return deviceId;
+    }
+
+    public void setDeviceId(UUID deviceId) {
+	this.deviceId = deviceId;
+    }
+
+    public String getDeviceToken() {
+	return deviceToken;
+    }
+
+    public void setDeviceToken(String deviceToken) {
+	this.deviceToken = deviceToken;
+    }
+
+    public UUID getDeviceTypeId() {
+	return deviceTypeId;
+    }
+
+    public void setDeviceTypeId(UUID deviceTypeId) {
+	this.deviceTypeId = deviceTypeId;
+    }
+
+    public String getDeviceTypeName() {
+	return deviceTypeName;
+    }
+
+    public void setDeviceTypeName(String deviceTypeName) {
+	this.deviceTypeName = deviceTypeName;
+    }
+
+    public String getDeviceTypeImageUrl() {
+	return deviceTypeImageUrl;
+    }
+
+    public void setDeviceTypeImageUrl(String deviceTypeImageUrl) {
+	this.deviceTypeImageUrl = deviceTypeImageUrl;
+    }
+
+    public UUID getCustomerId() {
+	return customerId;
+    }
+
+    public void setCustomerId(UUID customerId) {
+	this.customerId = customerId;
+    }
+
+    public String getCustomerName() {
+	return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+	this.customerName = customerName;
+    }
+
+    public String getCustomerImageUrl() {
+	return customerImageUrl;
+    }
+
+    public void setCustomerImageUrl(String customerImageUrl) {
+	this.customerImageUrl = customerImageUrl;
+    }
+
+    public UUID getAreaId() {
+	return areaId;
+    }
+
+    public void setAreaId(UUID areaId) {
+	this.areaId = areaId;
+    }
+
+    public String getAreaName() {
+	return areaName;
+    }
+
+    public void setAreaName(String areaName) {
+	this.areaName = areaName;
+    }
+
+    public String getAreaImageUrl() {
+	return areaImageUrl;
+    }
+
+    public void setAreaImageUrl(String areaImageUrl) {
+	this.areaImageUrl = areaImageUrl;
+    }
+
+    public UUID getAssetId() {
+	return assetId;
+    }
+
+    public void setAssetId(UUID assetId) {
+	this.assetId = assetId;
+    }
+
+    public String getAssetName() {
+	return assetName;
+    }
+
+    public void setAssetName(String assetName) {
+	this.assetName = assetName;
+    }
+
+    public String getAssetImageUrl() {
+	return assetImageUrl;
+    }
+
+    public void setAssetImageUrl(String assetImageUrl) {
+	this.assetImageUrl = assetImageUrl;
+    }
+
+    public DeviceAssignmentStatus getStatus() {
+	return status;
+    }
+
+    public void setStatus(DeviceAssignmentStatus status) {
+	this.status = status;
+    }
+
+    public Date getActiveDate() {
+	return activeDate;
+    }
+
+    public void setActiveDate(Date activeDate) {
+	this.activeDate = activeDate;
+    }
+
+    public Date getReleasedDate() {
+	return releasedDate;
+    }
+
+    public void setReleasedDate(Date releasedDate) {
+	this.releasedDate = releasedDate;
+    }
+
+    public Date getCreatedDate() {
+	return createdDate;
+    }
+
+    public void setCreatedDate(Date createdDate) {
+	this.createdDate = createdDate;
+    }
+
+    public long getOpenAlarmCount() {
+	return openAlarmCount;
+    }
+
+    public void setOpenAlarmCount(long openAlarmCount) {
+	this.openAlarmCount = openAlarmCount;
+    }
+
+    public Date getLastAlarmDate() {
+	return lastAlarmDate;
+    }
+
+    public void setLastAlarmDate(Date lastAlarmDate) {
+	this.lastAlarmDate = lastAlarmDate;
+    }
+}
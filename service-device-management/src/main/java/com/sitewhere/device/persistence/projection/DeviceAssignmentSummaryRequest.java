@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.Date;
+import java.util.UUID;
+
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+
+/**
+ * Request for a page of device assignment summaries. Area and customer filters
+ * include areas and customers nested below the one given. Summaries are
+ * ordered newest first by created date and id. The values from the last
+ * summary of a page are passed as 'afterCreatedDate' and 'afterAssignmentId'
+ * to request the next page.
+ */
+public class DeviceAssignmentSummaryRequest {
+
+    /** Only assignments with this status are returned (null for all) */
+    private DeviceAssignmentStatus status;
+
+    /** Only assignments for devices of this type are returned (null for all) */
+    private String deviceTypeToken;
+
+    /** Only assignments in this area or below it are returned */
+    private String areaToken;
+
+    /** Only assignments for this customer or below it are returned */
+    private String customerToken;
+
+    /** Indicates whether only assignments with open alarms are returned */
+    private boolean openAlarmsOnly;
+
+    /** Created date of last assignment on previous page (null for first page) */
+    private Date afterCreatedDate;
+
+    /** Id of last assignment on previous page (null for first page) */
+    private UUID afterAssignmentId;
+
+    /** Maximum number of assignments returned */
+    private int pageSize;
+
+    public DeviceAssignmentStatus getStatus() {
+	return status;
+    }
+
+    public void setStatus(DeviceAssignmentStatus status) {
+	this.status = status;
+    }
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+
+    public String getAreaToken() {
+	return areaToken;
+    }
+
+    public void setAreaToken(String areaToken) {
+	this.areaToken = areaToken;
+    }
+
+    public String getCustomerToken() {
+	return customerToken;
+    }
+
+    public void setCustomerToken(String customerToken) {
+	this.customerToken = customerToken;
+    }
+
+    public boolean isOpenAlarmsOnly() {
+	return openAlarmsOnly;
+    }
+
+    public void setOpenAlarmsOnly(boolean openAlarmsOnly) {
+	this.openAlarmsOnly = openAlarmsOnly;
+    }
+
+    public Date getAfterCreatedDate() {
+	return afterCreatedDate;
+    }
+
+    public void setAfterCreatedDate(Date afterCreatedDate) {
+	this.afterCreatedDate = afterCreatedDate;
+    }
+
+    public UUID getAfterAssignmentId() {
+	return afterAssignmentId;
+    }
+
+    public void setAfterAssignmentId(UUID afterAssignmentId) {
+	this.afterAssignmentId = afterAssignmentId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+}
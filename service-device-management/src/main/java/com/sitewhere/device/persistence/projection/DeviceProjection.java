@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.sitewhere.rest.model.device.DeviceElementMapping;
+
+/**
+ * Columns of a device needed for list views. Metadata and element mappings are
+ * null unless they were requested.
+ */
+@JsonInclude(Include.NON_NULL)
+public class DeviceProjection {
+
+    /** Device id */
+    private UUID id;
+
+    /** Device token */
+    private String token;
+
+    /** Device type id */
+    private UUID deviceTypeId;
+
+    /** Parent device id */
+    private UUID parentDeviceId;
+
+    /** Comments */
+    private String comments;
+
+    /** Status indicator */
+    private String status;
+
+    /** Date device was created */
+    private Date createdDate;
+
+    /** Metadata (null if not requested) */
+    private Map<String, String> metadata;
+
+    /** Element mappings (null if not requested) */
+    private List<DeviceElementMapping> deviceElementMappings;
+
+    public UUID getId() {
+	return id;
+    }
+
+    public void setId(UUID id) {
+	this.id = id;
+    }
+
+    public String getToken() {
+	return token;
+    }
+
+    public void setToken(String token) {
+	this.token = token;
+    }
+
+    public UUID getDeviceTypeId() {
+	return deviceTypeId;
+    }
+
+    public void setDeviceTypeId(UUID deviceTypeId) {
+	this.deviceTypeId = deviceTypeId;
+    }
+
+    public UUID getParentDeviceId() {
+	return parentDeviceId;
+    }
+
+    public void setParentDeviceId(UUID parentDeviceId) {
+	this.parentDeviceId = parentDeviceId;
+    }
+
+    public String getComments() {
+	return comments;
+    }
+
+    public void setComments(String comments) {
+	this.comments = comments;
+    }
+
+    public String getStatus() {
+	return status;
+    }
+
+    public void setStatus(String status) {
+	this.status = status;
+    }
+
+    public Date getCreatedDate() {
+	return createdDate;
+    }
+
+    public void setCreatedDate(Date createdDate) {
+	this.createdDate = createdDate;
+    }
+
+    public Map<String, String> getMetadata() {
+	return metadata;
+    }
+
+    public void setMetadata(Map<String, String> metadata) {
+	this.metadata = metadata;
+    }
+
+    public List<DeviceElementMapping> getDeviceElementMappings() {
+	return deviceElementMappings;
+    }
+
+    public void setDeviceElementMappings(List<DeviceElementMapping> deviceElementMappings) {
+	this.deviceElementMappings = deviceElementMappings;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page of device projections.
+ */
+public class DeviceProjectionPage {
+
+    /** Devices on page */
+    private List<DeviceProjection> devices = new ArrayList<>();
+
+    /** Indicates whether more devices may follow */
+    private boolean hasMore;
+
+    public DeviceProjectionPage() {
+    }
+
+    public DeviceProjectionPage(List<DeviceProjection> devices, boolean hasMore) {
+	this.devices = devices;
+	this.hasMore = hasMore;
+    }
+
+    public List<DeviceProjection> getDevices() {
+	return devices;
+    }
+
+    public void setDevices(List<DeviceProjection> devices) {
+	this.devices = devices;
+    }
+
+    public boolean isHasMore() {
+	return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+	this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request for a page of device projections. Devices are ordered newest first
+ * by created date and id. The values from the last projection of a page are
+ * passed as 'afterCreatedDate' and 'afterDeviceId' to request the next page.
+ */
+public class DeviceProjectionRequest {
+
+    /** Only devices with these tokens are returned (empty for all) */
+    private List<String> tokens = new ArrayList<>();
+
+    /** Only devices of this type are returned (null for all) */
+    private String deviceTypeToken;
+
+    /** Created date of last device on previous page (null for first page) */
+    private Date afterCreatedDate;
+
+    /** Id of last device on previous page (null for first page) */
+    private UUID afterDeviceId;
+
+    /** Maximum number of devices returned */
+    private int pageSize;
+
+    /** Indicates whether metadata is loaded */
+    private boolean includeMetadata;
+
+    /** Indicates whether element mappings are loaded */
+    private boolean includeElementMappings;
+
+    public List<String> getTokens() {
+	return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+	this.tokens = tokens;
+    }
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+
+    public Date getAfterCreatedDate() {
+	return afterCreatedDate;
+    }
+
+    public void setAfterCreatedDate(Date afterCreatedDate) {
+	this.afterCreatedDate = afterCreatedDate;
+    }
+
+    public UUID getAfterDeviceId() {
+	return afterDeviceId;
+    }
+
+    public void setAfterDeviceId(UUID afterDeviceId) {
+	this.afterDeviceId = afterDeviceId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public boolean isIncludeMetadata() {
+	return includeMetadata;
+    }
+
+    public void setIncludeMetadata(boolean includeMetadata) {
+	this.includeMetadata = includeMetadata;
+    }
+
+    public boolean isIncludeElementMappings() {
+	return includeElementMappings;
+    }
+
+    public void setIncludeElementMappings(boolean includeElementMappings) {
+	this.includeElementMappings = includeElementMappings;
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.sitewhere.rest.model.common.Location;
+
+/**
+ * Columns of a zone needed for list views. Bounds and metadata are null unless
+ * they were requested.
+ */
+@JsonInclude(Include.NON_NULL)
+public class ZoneProjection {
+
+    /** Zone id */
+    private UUID id;
+
+    /** Zone token */
+    private String token;
+
+    /** Id of associated area */
+    private UUID areaId;
+
+    /** Displayed name */
+    private String name;
+
+    /** Border color */
+    private String borderColor;
+
+    /** Fill color */
+    private String fillColor;
+
+    /** Border opacity */
+    private Double borderOpacity;
+
+    /** Fill opacity */
+    private Double fillOpacity;
+
+    /** Zone bounds (null if not requested) */
+    private List<Location> bounds;
+
+    /** Metadata (null if not requested) */
+    private Map<String, String> metadata;
+
+    public UUID getId() {
+	return id;
+    }
+
+    public void setId(UUID id) {
+	this.id = id;
+    }
+
+    public String getToken() {
+	return token;
+    }
+
+    public void setToken(String token) {
+	this.token = token;
+    }
+
+    public UUID getAreaId() {
+	return areaId;
+    }
+
+    public void setAreaId(UUID areaId) {
+	this.areaId = areaId;
+    }
+
+    public String getName() {
+	return name;
+    }
+
+    public void setName(String name) {
+	this.name = name;
+    }
+
+    public String getBorderColor() {
+	return borderColor;
+    }
+
+    public void setBorderColor(String borderColor) {
+	this.borderColor = borderColor;
+    }
+
+    public String getFillColor() {
+	return fillColor;
+    }
+
+    public void setFillColor(String fillColor) {
+	this.fillColor = fillColor;
+    }
+
+    public Double getBorderOpacity() {
+	return borderOpacity;
+    }
+
+    public void setBorderOpacity(Double borderOpacity) {
+	this.borderOpacity = borderOpacity;
+    }
+
+    public Double getFillOpacity() {
+	return fillOpacity;
+    }
+
+    public void setFillOpacity(Double fillOpacity) {
+	this.fillOpacity = fillOpacity;
+    }
+
+    public List<Location> getBounds() {
+	return bounds;
+    }
+
+    public void setBounds(List<Location> bounds) {
+	this.bounds = bounds;
+    }
+
+    public Map<String, String> getMetadata() {
+	return metadata;
+    }
+
+    public void setMetadata(Map<String, String> metadata) {
+	this.metadata = metadata;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page of zone projections.
+ */
+public class ZoneProjectionPage {
+
+    /** Zones on page */
+    private List<ZoneProjection> zones = new ArrayList<>();
+
+    /** Indicates whether more zones may follow */
+    private boolean hasMore;
+
+    public ZoneProjectionPage() {
+    }
+
+    public ZoneProjectionPage(List<ZoneProjection> zones, boolean hasMore) {
+	this.zones = zones;
+	this.hasMore = hasMore;
+    }
+
+    public List<ZoneProjection> getZones() {
+	return zones;
+    }
+
+    public void setZones(List<ZoneProjection> zones) {
+	this.zones = zones;
+    }
+
+    public boolean isHasMore() {
+	return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+	this.hasMore = hasMore;
+    }
+}
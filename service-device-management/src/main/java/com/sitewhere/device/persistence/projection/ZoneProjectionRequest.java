@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.projection;
+
+import java.util.UUID;
+
+/**
+ * Request for a page of zone projections for an area. Zones are ordered by
+ * name and id. The values from the last projection of a page are passed as
+ * 'afterName' and 'afterZoneId' to request the next page.
+ */
+public class ZoneProjectionRequest {
+
+    /** Token of area containing zones */
+    private String areaToken;
+
+    /** Name of last zone on previous page (null for first page) */
+    private String afterName;
+
+    /** Id of last zone on previous page (null for first page) */
+    private UUID afterZoneId;
+
+    /** Maximum number of zones returned */
+    private int pageSize;
+
+    /** Indicates whether bounds are loaded */
+    private boolean includeBounds;
+
+    /** Indicates whether metadata is loaded */
+    private boolean includeMetadata;
+
+    public String getAreaToken() {
+	return areaToken;
+    }
+
+    public void setAreaToken(String areaToken) {
+	this.areaToken = areaToken;
+    }
+
+    public String getAfterName() {
+	return afterName;
+    }
+
+    public void setAfterName(String afterName) {
+	this.afterName = afterName;
+    }
+
+    public UUID getAfterZoneId() {
+	return afterZoneId;
+    }
+
+    public void setAfterZoneId(UUID afterZoneId) {
+	this.afterZoneId = afterZoneId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public boolean isIncludeBounds() {
+	return includeBounds;
+    }
+
+    public void setIncludeBounds(boolean includeBounds) {
+	this.includeBounds = includeBounds;
+    }
+
+    public boolean isIncludeMetadata() {
+	return includeMetadata;
+    }
+
+    public void setIncludeMetadata(boolean includeMetadata) {
+	this.includeMetadata = includeMetadata;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.List;
+
+import com.sitewhere.rest.model.search.TreeNode;
+
+/**
+ * Holds a built hierarchy tree for a tenant. The tree is invalidated when this
+ * instance changes the hierarchy and is also tagged with a version stamp of the
+ * underlying table, so changes made elsewhere are picked up on the next read.
+ */
+public class HierarchyTreeCache {
+
+    /** Version stamp the tree was built from */
+    private List<Object> versionStamp;
+
+    /** Cached tree */
+    private List<TreeNode> tree;
+
+    /**
+     * Get cached tree if it was built from the given version stamp.
+     * 
+     * @param versionStamp
+     * @return
+     */
+    public synchronized List<TreeNode> get(List<Object> versionStamp) {
+	if ((tree != null) && versionStamp.equals(this.versionStamp)) {
+	    return tree;
+	}
+	return null;
+    }
+
+    /**
+     * Store a tree built from the given version stamp.
+     * 
+     * @param versionStamp
+     * @param tree
+     */
+    public synchronized void put(List<Object> versionStamp, List<TreeNode> tree) {
+	this.versionStamp = versionStamp;
+	this.tree = tree;
+    }
+
+    /**
+     * Discard the cached tree.
+     */
+    public synchronized void invalidate() {
+	this.versionStamp = null;
+	this.tree = null;
+    }
+}
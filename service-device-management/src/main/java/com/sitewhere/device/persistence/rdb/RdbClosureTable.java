@@ -0,0 +1,284 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import com.sitewhere.device.persistence.hierarchy.HierarchyNode;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaClosure;
+import com.sitewhere.device.persistence.rdb.entity.RdbClosureEntry;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomerClosure;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Maintains the closure table for a hierarchy of entities that reference their
+ * parent by id. Updates must be made in the same transaction as the change to
+ * the entity so that the closure rows always match the parent references.
+ */
+public class RdbClosureTable<T extends RdbClosureEntry> {
+
+    /** Maximum number of values bound to a single IN clause */
+    private static final int MAX_IN_CLAUSE_SIZE = 1000;
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    /** Creates closure rows */
+    private Supplier<T> factory;
+
+    /** Query for rows linking an entity to its ancestors */
+    private String ancestorsQuery;
+
+    /** Query for rows linking an entity to its descendants */
+    private String descendantsQuery;
+
+    /** Query that deletes rows between ancestors and descendants */
+    private String deleteLinksQuery;
+
+    /** Query for subtree nodes */
+    private String subtreeQuery;
+
+    /** Query for version stamp of the entity table */
+    private String versionStampQuery;
+
+    public RdbClosureTable(RdbDeviceManagement deviceManagement, Supplier<T> factory, String ancestorsQuery,
+	    String descendantsQuery, String deleteLinksQuery, String subtreeQuery, String versionStampQuery) {
+	this.deviceManagement = deviceManagement;
+	this.factory = factory;
+	this.ancestorsQuery = ancestorsQuery;
+	this.descendantsQuery = descendantsQuery;
+	this.deleteLinksQuery = deleteLinksQuery;
+	this.subtreeQuery = subtreeQuery;
+	this.versionStampQuery = versionStampQuery;
+    }
+
+    /**
+     * Create closure table for the area hierarchy.
+     * 
+     * @param deviceManagement
+     * @return
+     */
+    public static RdbClosureTable<RdbAreaClosure> forAreas(RdbDeviceManagement deviceManagement) {
+	return new RdbClosureTable<>(deviceManagement, RdbAreaClosure::new, Queries.QUERY_AREA_CLOSURE_ANCESTORS,
+		Queries.QUERY_AREA_CLOSURE_DESCENDANTS, Queries.QUERY_AREA_CLOSURE_DELETE_LINKS,
+		Queries.QUERY_AREA_SUBTREE, Queries.QUERY_AREA_VERSION_STAMP);
+    }
+
+    /**
+     * Create closure table for the customer hierarchy.
+     * 
+     * @param deviceManagement
+     * @return
+     */
+    public static RdbClosureTable<RdbCustomerClosure> forCustomers(RdbDeviceManagement deviceManagement) {
+	return new RdbClosureTable<>(deviceManagement, RdbCustomerClosure::new,
+		Queries.QUERY_CUSTOMER_CLOSURE_ANCESTORS, Queries.QUERY_CUSTOMER_CLOSURE_DESCENDANTS,
+		Queries.QUERY_CUSTOMER_CLOSURE_DELETE_LINKS, Queries.QUERY_CUSTOMER_SUBTREE,
+		Queries.QUERY_CUSTOMER_VERSION_STAMP);
+    }
+
+    /**
+     * Add rows for a newly created entity.
+     * 
+     * @param id
+     * @param parentId
+     * @throws SiteWhereException
+     */
+    public void insert(UUID id, UUID parentId) throws SiteWhereException {
+	persist(id, id, 0);
+	if (parentId != null) {
+	    for (T ancestor : getAncestors(parentId)) {
+		persist(ancestor.getAncestorId(), id, ancestor.getDepth() + 1);
+	    }
+	}
+    }
+
+    /**
+     * Move an entity and everything below it to a new parent. Moving an entity
+     * below one of its own descendants is rejected.
+     * 
+     * @param id
+     * @param parentId
+     * @throws SiteWhereException
+     */
+    public void move(UUID id, UUID parentId) throws SiteWhereException {
+	List<T> newAncestors = new ArrayList<>();
+	if (parentId != null) {
+	    newAncestors = getAncestors(parentId);
+	    for (T ancestor : newAncestors) {
+		if (ancestor.getAncestorId().equals(id)) {
+		    throw new SiteWhereException("Unable to move an entry below one of its own descendants.");
+		}
+	    }
+	}
+	List<T> subtree = getDescendants(id);
+	List<UUID> subtreeIds = new ArrayList<>();
+	for (T descendant : subtree) {
+	    subtreeIds.add(descendant.getDescendantId());
+	}
+	List<UUID> oldAncestorIds = new ArrayList<>();
+	for (T ancestor : getAncestors(id)) {
+	    if (!ancestor.getAncestorId().equals(id)) {
+		oldAncestorIds.add(ancestor.getAncestorId());
+	    }
+	}
+	deleteLinks(oldAncestorIds, subtreeIds);
+	for (T ancestor : newAncestors) {
+	    for (T descendant : subtree) {
+		persist(ancestor.getAncestorId(), descendant.getDescendantId(),
+			ancestor.getDepth() + descendant.getDepth() + 1);
+	    }
+	}
+    }
+
+    /**
+     * Remove rows for an entity that is about to be deleted.
+     * 
+     * @param id
+     * @throws SiteWhereException
+     */
+    public void remove(UUID id) throws SiteWhereException {
+	List<UUID> subtreeIds = new ArrayList<>();
+	for (T descendant : getDescendants(id)) {
+	    subtreeIds.add(descendant.getDescendantId());
+	}
+	List<UUID> ancestorIds = new ArrayList<>();
+	for (T ancestor : getAncestors(id)) {
+	    ancestorIds.add(ancestor.getAncestorId());
+	}
+	deleteLinks(ancestorIds, subtreeIds);
+    }
+
+    /**
+     * Get an entity and all of its descendants with a single query.
+     * 
+     * @param id
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<HierarchyNode> getSubtree(UUID id) throws SiteWhereException {
+	Query query = getEntityManager().createNamedQuery(subtreeQuery);
+	query.setParameter("ancestorId", id);
+	List<HierarchyNode> nodes = new ArrayList<>();
+	for (Object row : query.getResultList()) {
+	    Object[] values = (Object[]) row;
+	    nodes.add(new HierarchyNode((UUID) values[0], (String) values[1], (UUID) values[2],
+		    ((Number) values[3]).intValue()));
+	}
+	return nodes;
+    }
+
+    /**
+     * Get values that change whenever an entity in the hierarchy is created,
+     * updated or deleted.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<Object> getVersionStamp() throws SiteWhereException {
+	Query query = getEntityManager().createNamedQuery(versionStampQuery);
+	return Arrays.asList((Object[]) query.getSingleResult());
+    }
+
+    /**
+     * Get rows linking an entity to its ancestors (including itself).
+     * 
+     * @param id
+     * @return
+     * @throws SiteWhereException
+     */
+    protected List<T> getAncestors(UUID id) throws SiteWhereException {
+	Query query = getEntityManager().createNamedQuery(ancestorsQuery);
+	query.setParameter("descendantId", id);
+	return detached(query);
+    }
+
+    /**
+     * Get rows linking an entity to its descendants (including itself).
+     * 
+     * @param id
+     * @return
+     * @throws SiteWhereException
+     */
+    protected List<T> getDescendants(UUID id) throws SiteWhereException {
+	Query query = getEntityManager().createNamedQuery(descendantsQuery);
+	query.setParameter("ancestorId", id);
+	return detached(query);
+    }
+
+    /**
+     * Run a query for closure rows and detach the results. Rows may be deleted
+     * with a bulk statement and recreated in the same transaction, so they are
+     * not kept in the persistence context.
+     * 
+     * @param query
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    protected List<T> detached(Query query) {
+	List<T> rows = query.getResultList();
+	for (T row : rows) {
+	    getEntityManager().detach(row);
+	}
+	return rows;
+    }
+
+    /**
+     * Delete rows linking any of the ancestors to any of the descendants.
+     * 
+     * @param ancestorIds
+     * @param descendantIds
+     */
+    protected void deleteLinks(List<UUID> ancestorIds, List<UUID> descendantIds) {
+	if (ancestorIds.isEmpty() || descendantIds.isEmpty()) {
+	    return;
+	}
+	for (int start = 0; start < descendantIds.size(); start += MAX_IN_CLAUSE_SIZE) {
+	    Query query = getEntityManager().createNamedQuery(deleteLinksQuery);
+	    query.setParameter("ancestorIds", ancestorIds);
+	    query.setParameter("descendantIds",
+		    descendantIds.subList(start, Math.min(start + MAX_IN_CLAUSE_SIZE, descendantIds.size())));
+	    query.executeUpdate();
+	}
+    }
+
+    /**
+     * Add a single closure row.
+     * 
+     * @param ancestorId
+     * @param descendantId
+     * @param depth
+     */
+    protected void persist(UUID ancestorId, UUID descendantId, int depth) {
+	T row = factory.get();
+	row.setAncestorId(ancestorId);
+	row.setDescendantId(descendantId);
+	row.setDepth(depth);
+	getEntityManager().persist(row);
+    }
+
+    protected EntityManager getEntityManager() {
+	return deviceManagement.getEntityManagerProvider().getEntityManager();
+    }
+}
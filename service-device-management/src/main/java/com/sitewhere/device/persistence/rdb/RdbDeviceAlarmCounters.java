@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCount;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCounts;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaClosure;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAlarm;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAlarmCounter;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.DeviceAlarmState;
+
+/**
+ * Collects changes to open alarm counters while alarms are written and applies
+ * them at the end of the transaction. Changes are combined so that each
+ * counter row is updated at most once per transaction, and rows are updated in
+ * key order so concurrent transactions do not deadlock on them.
+ */
+public class RdbDeviceAlarmCounters {
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    /** Pending changes by counter key */
+    private Map<RdbDeviceAlarmCounter.Key, Long> deltas = new TreeMap<>();
+
+    public RdbDeviceAlarmCounters(RdbDeviceManagement deviceManagement) {
+	this.deviceManagement = deviceManagement;
+    }
+
+    /**
+     * Indicates whether alarms in the given state are counted as open.
+     * 
+     * @param state
+     * @return
+     */
+    public static boolean isOpen(DeviceAlarmState state) {
+	return state == DeviceAlarmState.Triggered || state == DeviceAlarmState.Acknowledged;
+    }
+
+    /**
+     * Count an alarm in its current area, device type and state.
+     * 
+     * @param alarm
+     */
+    public void add(RdbDeviceAlarm alarm) {
+	adjust(alarm, 1);
+    }
+
+    /**
+     * Stop counting an alarm in its current area, device type and state. Call
+     * before changing an alarm and call {@link #add(RdbDeviceAlarm)} afterward.
+     * 
+     * @param alarm
+     */
+    public void remove(RdbDeviceAlarm alarm) {
+	adjust(alarm, -1);
+    }
+
+    /**
+     * Record a change for the counter matching an alarm.
+     * 
+     * @param alarm
+     * @param delta
+     */
+    protected void adjust(RdbDeviceAlarm alarm, long delta) {
+	if (!isOpen(alarm.getState()) || alarm.getDeviceTypeId() == null) {
+	    return;
+	}
+	RdbDeviceAlarmCounter.Key key = new RdbDeviceAlarmCounter.Key(alarm.getAreaId(), alarm.getDeviceTypeId(),
+		alarm.getState());
+	getDeltas().merge(key, delta, Long::sum);
+    }
+
+    /**
+     * Write pending changes. Must be called in the transaction that changed the
+     * alarms.
+     * 
+     * @throws SiteWhereException
+     */
+    public void apply() throws SiteWhereException {
+	for (Map.Entry<RdbDeviceAlarmCounter.Key, Long> entry : getDeltas().entrySet()) {
+	    if (entry.getValue() == 0) {
+		continue;
+	    }
+	    Query query = getEntityManager().createNamedQuery(Queries.QUERY_DEVICE_ALARM_COUNTER_INCREMENT);
+	    query.setParameter("areaId", entry.getKey().getAreaId());
+	    query.setParameter("deviceTypeId", entry.getKey().getDeviceTypeId());
+	    query.setParameter("state", entry.getKey().getState().name());
+	    query.setParameter("delta", entry.getValue());
+	    query.executeUpdate();
+	}
+	getDeltas().clear();
+    }
+
+    /**
+     * Discard pending changes.
+     */
+    public void discard() {
+	getDeltas().clear();
+    }
+
+    /**
+     * Get open alarm counts. All criteria are optional. An area includes counts
+     * for all areas nested below it.
+     * 
+     * @param areaId
+     * @param deviceTypeId
+     * @param state
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceAlarmCounts find(UUID areaId, UUID deviceTypeId, DeviceAlarmState state) throws SiteWhereException {
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	CriteriaQuery<RdbDeviceAlarmCounter> query = cb.createQuery(RdbDeviceAlarmCounter.class);
+	Root<RdbDeviceAlarmCounter> root = query.from(RdbDeviceAlarmCounter.class);
+	List<Predicate> predicates = new ArrayList<>();
+	predicates.add(cb.greaterThan(root.get("openCount"), 0L));
+	if (areaId != null) {
+	    Subquery<UUID> subtree = query.subquery(UUID.class);
+	    Root<RdbAreaClosure> closure = subtree.from(RdbAreaClosure.class);
+	    subtree.select(closure.get("descendantId")).where(cb.equal(closure.get("ancestorId"), areaId));
+	    Expression<UUID> counterAreaId = root.get("areaId");
+	    predicates.add(counterAreaId.in(subtree));
+	}
+	if (deviceTypeId != null) {
+	    predicates.add(cb.equal(root.get("deviceTypeId"), deviceTypeId));
+	}
+	if (state != null) {
+	    predicates.add(cb.equal(root.get("state"), state));
+	}
+	query.select(root).where(predicates.toArray(new Predicate[predicates.size()]));
+
+	List<DeviceAlarmCount> counts = new ArrayList<>();
+	for (RdbDeviceAlarmCounter counter : getEntityManager().createQuery(query).getResultList()) {
+	    UUID counterAreaId = RdbDeviceAlarmCounter.NO_AREA.equals(counter.getAreaId()) ? null
+		    : counter.getAreaId();
+	    counts.add(new DeviceAlarmCount(counterAreaId, counter.getDeviceTypeId(), counter.getState(),
+		    counter.getOpenCount()));
+	}
+	return new DeviceAlarmCounts(counts);
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getDeviceManagement().getEntityManagerProvider();
+    }
+
+    protected EntityManager getEntityManager() {
+	return getEntityManagerProvider().getEntityManager();
+    }
+
+    protected RdbDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected Map<RdbDeviceAlarmCounter.Key, Long> getDeltas() {
+	return deltas;
+    }
+}
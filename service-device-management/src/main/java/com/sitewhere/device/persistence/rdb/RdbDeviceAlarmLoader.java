@@ -0,0 +1,591 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.Session;
+
+import com.sitewhere.device.configuration.AlarmHandling;
+import com.sitewhere.device.persistence.DeviceManagementPersistence;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkAction;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkOperation;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkResponse;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkResult;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAlarm;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignment;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rdb.spi.ITransactionCallback;
+import com.sitewhere.rest.model.device.DeviceAlarm;
+import com.sitewhere.rest.model.device.request.DeviceAlarmCreateRequest;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.DeviceAlarmState;
+import com.sitewhere.spi.device.IDeviceAssignment;
+import com.sitewhere.spi.device.request.IDeviceAlarmCreateRequest;
+
+/**
+ * Raises, acknowledges and resolves device alarms. Entries of a bulk request
+ * are stored in transactions of a configurable size. Assignments and existing
+ * alarms for a transaction are loaded with one query each, writes are flushed
+ * in JDBC batches and open alarm counters are updated once per transaction.
+ * 
+ * A trigger for an assignment and message that already has an open alarm
+ * triggered within the de-duplication window updates that alarm instead of
+ * creating a new one. Triggers for the same assignment and message are
+ * serialized with a transaction-level advisory lock, which exists even when
+ * there is no open alarm to lock yet.
+ */
+public class RdbDeviceAlarmLoader {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(RdbDeviceAlarmLoader.class);
+
+    /** States of alarms that may absorb repeated triggers */
+    private static final List<DeviceAlarmState> OPEN_STATES = Arrays.asList(DeviceAlarmState.Triggered,
+	    DeviceAlarmState.Acknowledged);
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    /** Alarm handling settings */
+    private AlarmHandling settings;
+
+    public RdbDeviceAlarmLoader(RdbDeviceManagement deviceManagement, AlarmHandling settings) {
+	this.deviceManagement = deviceManagement;
+	this.settings = settings;
+    }
+
+    /**
+     * Raise a single alarm for an assignment.
+     * 
+     * @param request
+     * @param assignment
+     * @return
+     * @throws SiteWhereException
+     */
+    public RdbDeviceAlarm raise(IDeviceAlarmCreateRequest request, IDeviceAssignment assignment)
+	    throws SiteWhereException {
+	RdbDeviceAlarmCounters counters = new RdbDeviceAlarmCounters(getDeviceManagement());
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbDeviceAlarm>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbDeviceAlarm process() throws SiteWhereException {
+		Map<String, RdbDeviceAlarm> open = new HashMap<>();
+		if (isDeduplicated(request)) {
+		    lockDeduplicationKeys(Collections
+			    .singleton(getDeduplicationKey(assignment.getId(), request.getAlarmMessage())));
+		    open = findOpenAlarms(Collections.singleton(assignment.getId()));
+		}
+		RdbDeviceAlarm alarm = raise(request, assignment, open, counters,
+			new DeviceAlarmBulkResult(0));
+		counters.apply();
+		RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(getDeviceManagement());
+		summaries.alarmsChanged(assignment.getId());
+		summaries.apply();
+		return alarm;
+	    }
+	});
+    }
+
+    /**
+     * Apply a bulk request.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceAlarmBulkResponse load(DeviceAlarmBulkRequest request) throws SiteWhereException {
+	DeviceAlarmBulkOperation operation = (request.getOperation() != null) ? request.getOperation()
+		: DeviceAlarmBulkOperation.Raise;
+	List<DeviceAlarmCreateRequest> alarms = (request.getAlarms() != null) ? request.getAlarms()
+		: Collections.emptyList();
+	List<UUID> ids = (request.getAlarmIds() != null) ? request.getAlarmIds() : Collections.emptyList();
+	int count = (operation == DeviceAlarmBulkOperation.Raise) ? alarms.size() : ids.size();
+	if (count > getSettings().getMaxEntriesPerRequest()) {
+	    throw new SiteWhereException(
+		    String.format("Bulk alarm request contains %d entries which exceeds the limit of %d.", count,
+			    getSettings().getMaxEntriesPerRequest()));
+	}
+
+	DeviceAlarmBulkResult[] results = new DeviceAlarmBulkResult[count];
+	int size = Math.max(1, getSettings().getTransactionSize());
+	if (operation == DeviceAlarmBulkOperation.Raise) {
+	    Map<String, RdbDeviceAssignment> assignments = findAssignments(alarms);
+	    for (int start = 0; start < alarms.size(); start += size) {
+		raiseChunk(alarms, start, Math.min(start + size, alarms.size()), assignments, results);
+	    }
+	} else {
+	    DeviceAlarmState state = (operation == DeviceAlarmBulkOperation.Acknowledge)
+		    ? DeviceAlarmState.Acknowledged
+		    : DeviceAlarmState.Resolved;
+	    Date date = (request.getDate() != null) ? request.getDate() : new Date();
+	    for (int start = 0; start < ids.size(); start += size) {
+		transitionChunk(ids, start, Math.min(start + size, ids.size()), state, date, results);
+	    }
+	}
+
+	DeviceAlarmBulkResponse response = new DeviceAlarmBulkResponse();
+	for (DeviceAlarmBulkResult result : results) {
+	    response.add(result);
+	}
+	return response;
+    }
+
+    /**
+     * Raise a range of alarms in a single transaction.
+     * 
+     * @param alarms
+     * @param start
+     * @param end
+     * @param assignments
+     * @param results
+     * @throws SiteWhereException
+     */
+    protected void raiseChunk(List<DeviceAlarmCreateRequest> alarms, int start, int end,
+	    Map<String, RdbDeviceAssignment> assignments, DeviceAlarmBulkResult[] results) throws SiteWhereException {
+	List<Integer> accepted = new ArrayList<>();
+	Set<UUID> deduplicated = new HashSet<>();
+	Set<String> keys = new HashSet<>();
+	for (int i = start; i < end; i++) {
+	    DeviceAlarmCreateRequest alarm = alarms.get(i);
+	    results[i] = new DeviceAlarmBulkResult(i);
+	    if (alarm == null || StringUtils.isEmpty(alarm.getDeviceAssignmentToken())) {
+		results[i].fail("Device assignment token is required.");
+	    } else if (StringUtils.isEmpty(alarm.getAlarmMessage())) {
+		results[i].fail("Alarm message is required.");
+	    } else if (!assignments.containsKey(alarm.getDeviceAssignmentToken())) {
+		results[i].fail("Invalid device assignment token: " + alarm.getDeviceAssignmentToken());
+	    } else {
+		accepted.add(i);
+		if (isDeduplicated(alarm)) {
+		    UUID assignmentId = assignments.get(alarm.getDeviceAssignmentToken()).getId();
+		    deduplicated.add(assignmentId);
+		    keys.add(getDeduplicationKey(assignmentId, alarm.getAlarmMessage()));
+		}
+	    }
+	}
+	if (accepted.isEmpty()) {
+	    return;
+	}
+
+	RdbDeviceAlarmCounters counters = new RdbDeviceAlarmCounters(getDeviceManagement());
+	try {
+	    runBatched(new ITransactionCallback<Void>() {
+
+		/*
+		 * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+		 */
+		@Override
+		public Void process() throws SiteWhereException {
+		    lockDeduplicationKeys(keys);
+		    Map<String, RdbDeviceAlarm> open = findOpenAlarms(deduplicated);
+		    RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(getDeviceManagement());
+		    int pending = 0;
+		    for (int i : accepted) {
+			DeviceAlarmCreateRequest alarm = alarms.get(i);
+			RdbDeviceAssignment assignment = assignments.get(alarm.getDeviceAssignmentToken());
+			raise(alarm, assignment, open, counters, results[i]);
+			summaries.alarmsChanged(assignment.getId());
+			pending = flushIfNeeded(++pending);
+		    }
+		    getEntityManager().flush();
+		    counters.apply();
+		    summaries.apply();
+		    getEntityManager().clear();
+		    return null;
+		}
+	    });
+	} catch (SiteWhereException e) {
+	    LOGGER.warn(String.format("Unable to raise bulk alarm entries %d to %d.", start, end - 1), e);
+	    failAll(accepted, results, e);
+	    counters.discard();
+	    clear();
+	}
+    }
+
+    /**
+     * Change the state of a range of alarms in a single transaction.
+     * 
+     * @param ids
+     * @param start
+     * @param end
+     * @param state
+     * @param date
+     * @param results
+     * @throws SiteWhereException
+     */
+    protected void transitionChunk(List<UUID> ids, int start, int end, DeviceAlarmState state, Date date,
+	    DeviceAlarmBulkResult[] results) throws SiteWhereException {
+	List<Integer> accepted = new ArrayList<>();
+	Set<UUID> chunkIds = new HashSet<>();
+	for (int i = start; i < end; i++) {
+	    results[i] = new DeviceAlarmBulkResult(i);
+	    if (ids.get(i) == null) {
+		results[i].fail("Alarm id is required.");
+	    } else {
+		accepted.add(i);
+		chunkIds.add(ids.get(i));
+	    }
+	}
+	if (accepted.isEmpty()) {
+	    return;
+	}
+
+	RdbDeviceAlarmCounters counters = new RdbDeviceAlarmCounters(getDeviceManagement());
+	try {
+	    runBatched(new ITransactionCallback<Void>() {
+
+		/*
+		 * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+		 */
+		@Override
+		public Void process() throws SiteWhereException {
+		    Map<UUID, RdbDeviceAlarm> alarms = new HashMap<>();
+		    for (List<UUID> slice : RdbDeviceBulkLoader.slices(chunkIds)) {
+			Query query = getEntityManagerProvider().query(Queries.QUERY_DEVICE_ALARMS_BY_IDS);
+			query.setParameter("ids", slice);
+			query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+			for (RdbDeviceAlarm alarm : getEntityManagerProvider().findMany(query, RdbDeviceAlarm.class)) {
+			    alarms.put(alarm.getId(), alarm);
+			}
+		    }
+		    RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(getDeviceManagement());
+		    int pending = 0;
+		    for (int i : accepted) {
+			RdbDeviceAlarm alarm = alarms.get(ids.get(i));
+			if (alarm == null) {
+			    results[i].fail("Invalid alarm id: " + ids.get(i));
+			    continue;
+			}
+			results[i].setAlarmId(alarm.getId());
+			if (!transition(alarm, state, date, counters)) {
+			    results[i].setAction(DeviceAlarmBulkAction.Unchanged);
+			    continue;
+			}
+			results[i].setAction(DeviceAlarmBulkAction.Updated);
+			summaries.alarmsChanged(alarm.getDeviceAssignmentId());
+			pending = flushIfNeeded(++pending);
+		    }
+		    getEntityManager().flush();
+		    counters.apply();
+		    summaries.apply();
+		    getEntityManager().clear();
+		    return null;
+		}
+	    });
+	} catch (SiteWhereException e) {
+	    LOGGER.warn(String.format("Unable to update bulk alarm entries %d to %d.", start, end - 1), e);
+	    failAll(accepted, results, e);
+	    counters.discard();
+	    clear();
+	}
+    }
+
+    /**
+     * Raise an alarm or merge it into a matching open alarm.
+     * 
+     * @param request
+     * @param assignment
+     * @param open
+     * @param counters
+     * @param result
+     * @return
+     * @throws SiteWhereException
+     */
+    protected RdbDeviceAlarm raise(IDeviceAlarmCreateRequest request, IDeviceAssignment assignment,
+	    Map<String, RdbDeviceAlarm> open, RdbDeviceAlarmCounters counters, DeviceAlarmBulkResult result)
+	    throws SiteWhereException {
+	boolean deduplicated = isDeduplicated(request);
+	String key = getDeduplicationKey(assignment.getId(), request.getAlarmMessage());
+	RdbDeviceAlarm existing = deduplicated ? open.get(key) : null;
+	if (existing != null) {
+	    Date triggered = (request.getTriggeredDate() != null) ? request.getTriggeredDate() : new Date();
+	    if (existing.getLastTriggeredDate() == null || triggered.after(existing.getLastTriggeredDate())) {
+		existing.setLastTriggeredDate(triggered);
+	    }
+	    existing.setTriggerCount(existing.getTriggerCount() + 1);
+	    if (request.getTriggeringEventId() != null) {
+		existing.setTriggeringEventId(request.getTriggeringEventId());
+	    }
+	    if (request.getMetadata() != null) {
+		existing.getMetadata().putAll(request.getMetadata());
+	    }
+	    result.setAlarmId(existing.getId());
+	    result.setAction(DeviceAlarmBulkAction.Deduplicated);
+	    return existing;
+	}
+
+	// Use common logic to load alarm from request.
+	DeviceAlarm alarm = DeviceManagementPersistence.deviceAlarmCreateLogic(assignment, request);
+	RdbDeviceAlarm created = new RdbDeviceAlarm();
+	RdbDeviceAlarm.copy(alarm, created);
+	created.setDeviceTypeId(assignment.getDeviceTypeId());
+	created.setLastTriggeredDate(created.getTriggeredDate());
+	created = getEntityManagerProvider().persist(created);
+	counters.add(created);
+	if (deduplicated && RdbDeviceAlarmCounters.isOpen(created.getState())) {
+	    open.put(key, created);
+	}
+	result.setAlarmId(created.getId());
+	result.setAction(DeviceAlarmBulkAction.Created);
+	return created;
+    }
+
+    /**
+     * Move an alarm to a new state. Resolved alarms are not acknowledged again.
+     * Returns false if the alarm was left unchanged.
+     * 
+     * @param alarm
+     * @param state
+     * @param date
+     * @param counters
+     * @return
+     */
+    protected boolean transition(RdbDeviceAlarm alarm, DeviceAlarmState state, Date date,
+	    RdbDeviceAlarmCounters counters) {
+	if (alarm.getState() == state
+		|| (state == DeviceAlarmState.Acknowledged && alarm.getState() == DeviceAlarmState.Resolved)) {
+	    return false;
+	}
+	counters.remove(alarm);
+	alarm.setState(state);
+	if (state == DeviceAlarmState.Acknowledged) {
+	    alarm.setAcknowledgedDate(date);
+	} else if (state == DeviceAlarmState.Resolved) {
+	    alarm.setResolvedDate(date);
+	}
+	counters.add(alarm);
+	return true;
+    }
+
+    /**
+     * Take transaction-level advisory locks for de-duplication keys. A trigger
+     * that finds no open alarm has no row to lock, so without these two
+     * concurrent triggers could each create an alarm. Locks are taken in a fixed
+     * order so transactions with overlapping keys do not deadlock, and are
+     * released when the transaction ends.
+     * 
+     * @param keys
+     * @throws SiteWhereException
+     */
+    protected void lockDeduplicationKeys(Collection<String> keys) throws SiteWhereException {
+	Set<Long> lockIds = new TreeSet<>();
+	for (String key : keys) {
+	    lockIds.add(getLockId(key));
+	}
+	for (Long lockId : lockIds) {
+	    Query query = getEntityManager().createNamedQuery(Queries.QUERY_DEVICE_ALARM_DEDUPLICATION_LOCK);
+	    query.setParameter("lockId", lockId);
+	    query.getSingleResult();
+	}
+    }
+
+    /**
+     * Load open alarms for a set of assignments that were triggered within the
+     * de-duplication window. Rows are locked so that concurrent triggers for the
+     * same alarm are applied one after the other. Returns the most recent alarm
+     * for each assignment and message.
+     * 
+     * @param assignmentIds
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<String, RdbDeviceAlarm> findOpenAlarms(Collection<UUID> assignmentIds) throws SiteWhereException {
+	Map<String, RdbDeviceAlarm> open = new HashMap<>();
+	if (assignmentIds.isEmpty() || getSettings().getDeduplicationWindowSeconds() <= 0) {
+	    return open;
+	}
+	Date since = new Date(System.currentTimeMillis() - getSettings().getDeduplicationWindowSeconds() * 1000L);
+	for (List<UUID> slice : RdbDeviceBulkLoader.slices(assignmentIds)) {
+	    Query query = getEntityManagerProvider().query(Queries.QUERY_DEVICE_ALARMS_FOR_DEDUPLICATION);
+	    query.setParameter("assignmentIds", slice);
+	    query.setParameter("states", OPEN_STATES);
+	    query.setParameter("since", since);
+	    query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+	    for (RdbDeviceAlarm alarm : getEntityManagerProvider().findMany(query, RdbDeviceAlarm.class)) {
+		open.putIfAbsent(getDeduplicationKey(alarm.getDeviceAssignmentId(), alarm.getAlarmMessage()), alarm);
+	    }
+	}
+	return open;
+    }
+
+    /**
+     * Load the assignments referenced by a list of alarms.
+     * 
+     * @param alarms
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<String, RdbDeviceAssignment> findAssignments(List<DeviceAlarmCreateRequest> alarms)
+	    throws SiteWhereException {
+	Set<String> tokens = new HashSet<>();
+	for (DeviceAlarmCreateRequest alarm : alarms) {
+	    if (alarm != null && alarm.getDeviceAssignmentToken() != null) {
+		tokens.add(alarm.getDeviceAssignmentToken());
+	    }
+	}
+	Map<String, RdbDeviceAssignment> assignments = new HashMap<>();
+	for (List<String> slice : RdbDeviceBulkLoader.slices(tokens)) {
+	    Query query = getEntityManagerProvider().query(Queries.QUERY_DEVICE_ASSIGNMENTS_BY_TOKENS);
+	    query.setParameter("tokens", slice);
+	    for (RdbDeviceAssignment assignment : getEntityManagerProvider().findMany(query,
+		    RdbDeviceAssignment.class)) {
+		assignments.put(assignment.getToken(), assignment);
+	    }
+	}
+	return assignments;
+    }
+
+    /**
+     * Run a callback in a transaction with JDBC batching enabled.
+     * 
+     * @param callback
+     * @throws SiteWhereException
+     */
+    protected void runBatched(ITransactionCallback<Void> callback) throws SiteWhereException {
+	getEntityManagerProvider().runInTransaction(new ITransactionCallback<Void>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public Void process() throws SiteWhereException {
+		Session session = getEntityManager().unwrap(Session.class);
+		Integer previous = session.getJdbcBatchSize();
+		session.setJdbcBatchSize(getSettings().getJdbcBatchSize());
+		try {
+		    return callback.process();
+		} finally {
+		    session.setJdbcBatchSize(previous);
+		}
+	    }
+	});
+    }
+
+    /**
+     * Indicates whether a trigger may be merged into an open alarm.
+     * 
+     * @param request
+     * @return
+     */
+    protected boolean isDeduplicated(IDeviceAlarmCreateRequest request) {
+	return getSettings().getDeduplicationWindowSeconds() > 0
+		&& (request.getState() == null || request.getState() == DeviceAlarmState.Triggered);
+    }
+
+    /**
+     * Get key used to match repeated triggers.
+     * 
+     * @param assignmentId
+     * @param message
+     * @return
+     */
+    protected static String getDeduplicationKey(UUID assignmentId, String message) {
+	return assignmentId + ":" + message;
+    }
+
+    /**
+     * Get advisory lock id for a de-duplication key.
+     * 
+     * @param key
+     * @return
+     */
+    protected static long getLockId(String key) {
+	return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+    }
+
+    /**
+     * Mark accepted entries of a failed transaction as failed.
+     * 
+     * @param accepted
+     * @param results
+     * @param e
+     */
+    protected static void failAll(List<Integer> accepted, DeviceAlarmBulkResult[] results, SiteWhereException e) {
+	for (int i : accepted) {
+	    if (!results[i].isFailed()) {
+		results[i].setAlarmId(null);
+		results[i].fail("Unable to store entry: " + e.getMessage());
+	    }
+	}
+    }
+
+    /**
+     * Flush pending statements once a JDBC batch worth has accumulated. Returns
+     * the updated pending count.
+     * 
+     * @param pending
+     * @return
+     */
+    protected int flushIfNeeded(int pending) {
+	if (pending >= Math.max(1, getSettings().getJdbcBatchSize())) {
+	    getEntityManager().flush();
+	    return 0;
+	}
+	return pending;
+    }
+
+    /**
+     * Discard entities left in the persistence context by a failed transaction.
+     */
+    protected void clear() {
+	try {
+	    getEntityManager().clear();
+	} catch (RuntimeException e) {
+	    LOGGER.debug("Unable to clear persistence context after failed bulk transaction.", e);
+	}
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getDeviceManagement().getEntityManagerProvider();
+    }
+
+    protected EntityManager getEntityManager() {
+	return getEntityManagerProvider().getEntityManager();
+    }
+
+    protected RdbDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected AlarmHandling getSettings() {
+	return settings;
+    }
+}
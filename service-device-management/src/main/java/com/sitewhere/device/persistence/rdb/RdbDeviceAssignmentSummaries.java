@@ -0,0 +1,298 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.area.IArea;
+import com.sitewhere.spi.asset.IAsset;
+import com.sitewhere.spi.customer.ICustomer;
+import com.sitewhere.spi.device.IDeviceType;
+
+/**
+ * Keeps the denormalized assignment summary table in step with the tables it
+ * is built from. Changes are collected while entities are written and applied
+ * with set-based statements at the end of the transaction.
+ */
+public class RdbDeviceAssignmentSummaries {
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    /** Assignments whose summary rows need to be rebuilt */
+    private Set<UUID> assignmentIds = new LinkedHashSet<>();
+
+    /** Devices whose assignment summary rows need to be rebuilt */
+    private Set<UUID> deviceIds = new LinkedHashSet<>();
+
+    /** Assignments whose open alarm highlights need to be recalculated */
+    private Set<UUID> alarmAssignmentIds = new LinkedHashSet<>();
+
+    /** Assets referenced by rebuilt assignments */
+    private Map<UUID, IAsset> assets = new HashMap<>();
+
+    /** Assignment ids by referenced asset id */
+    private Map<UUID, Set<UUID>> assignmentsByAsset = new HashMap<>();
+
+    public RdbDeviceAssignmentSummaries(RdbDeviceManagement deviceManagement) {
+	this.deviceManagement = deviceManagement;
+    }
+
+    /**
+     * Rebuild the summary for an assignment. The asset is passed separately since
+     * asset details are owned by asset management.
+     *
+     * @param assignmentId
+     * @param asset
+     */
+    public void assignmentChanged(UUID assignmentId, IAsset asset) {
+	getAssignmentIds().add(assignmentId);
+	if (asset != null) {
+	    getAssets().put(asset.getId(), asset);
+	    getAssignmentsByAsset().computeIfAbsent(asset.getId(), id -> new LinkedHashSet<>()).add(assignmentId);
+	}
+    }
+
+    /**
+     * Rebuild summaries for all assignments of a device.
+     *
+     * @param deviceId
+     */
+    public void deviceChanged(UUID deviceId) {
+	getDeviceIds().add(deviceId);
+    }
+
+    /**
+     * Recalculate open alarm highlights for an assignment.
+     *
+     * @param assignmentId
+     */
+    public void alarmsChanged(UUID assignmentId) {
+	if (assignmentId != null) {
+	    getAlarmAssignmentIds().add(assignmentId);
+	}
+    }
+
+    /**
+     * Write pending changes. Must be called in the transaction that changed the
+     * underlying entities.
+     *
+     * @throws SiteWhereException
+     */
+    public void apply() throws SiteWhereException {
+	if (getAssignmentIds().isEmpty() && getDeviceIds().isEmpty() && getAlarmAssignmentIds().isEmpty()) {
+	    return;
+	}
+
+	// Native statements do not see unflushed entity changes.
+	getEntityManager().flush();
+	for (List<UUID> slice : RdbDeviceBulkLoader.slices(getDeviceIds())) {
+	    Query query = getEntityManager()
+		    .createNamedQuery(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_BY_DEVICES);
+	    query.setParameter("deviceIds", slice);
+	    query.executeUpdate();
+	}
+	for (List<UUID> slice : RdbDeviceBulkLoader.slices(getAssignmentIds())) {
+	    Query query = getEntityManager().createNamedQuery(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_BY_IDS);
+	    query.setParameter("ids", slice);
+	    query.executeUpdate();
+	}
+	for (Map.Entry<UUID, Set<UUID>> entry : getAssignmentsByAsset().entrySet()) {
+	    IAsset asset = getAssets().get(entry.getKey());
+	    for (List<UUID> slice : RdbDeviceBulkLoader.slices(entry.getValue())) {
+		Query query = getEntityManager().createNamedQuery(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_ASSET);
+		query.setParameter("name", asset.getName());
+		query.setParameter("imageUrl", asset.getImageUrl());
+		query.setParameter("assetId", asset.getId());
+		query.setParameter("ids", slice);
+		query.executeUpdate();
+	    }
+	}
+	for (List<UUID> slice : RdbDeviceBulkLoader.slices(getAlarmAssignmentIds())) {
+	    Query query = getEntityManager().createNamedQuery(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_ALARMS);
+	    query.setParameter("ids", slice);
+	    query.executeUpdate();
+	}
+	discard();
+    }
+
+    /**
+     * Discard pending changes.
+     */
+    public void discard() {
+	getAssignmentIds().clear();
+	getDeviceIds().clear();
+	getAlarmAssignmentIds().clear();
+	getAssets().clear();
+	getAssignmentsByAsset().clear();
+    }
+
+    /**
+     * Copy updated device type display fields to summaries.
+     *
+     * @param deviceType
+     * @throws SiteWhereException
+     */
+    public void deviceTypeChanged(IDeviceType deviceType) throws SiteWhereException {
+	setDisplayFields(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_DEVICE_TYPE, deviceType.getId(),
+		deviceType.getName(), deviceType.getImageUrl());
+    }
+
+    /**
+     * Copy updated customer display fields to summaries.
+     *
+     * @param customer
+     * @throws SiteWhereException
+     */
+    public void customerChanged(ICustomer customer) throws SiteWhereException {
+	setDisplayFields(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_CUSTOMER, customer.getId(), customer.getName(),
+		customer.getImageUrl());
+    }
+
+    /**
+     * Copy updated area display fields to summaries.
+     *
+     * @param area
+     * @throws SiteWhereException
+     */
+    public void areaChanged(IArea area) throws SiteWhereException {
+	setDisplayFields(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_AREA, area.getId(), area.getName(),
+		area.getImageUrl());
+    }
+
+    /**
+     * Copy current asset display fields to all summaries that reference the
+     * given assets. Fields are cleared for assets that no longer exist.
+     *
+     * @param assetIds
+     * @param assets
+     *            assets found by id
+     * @throws SiteWhereException
+     */
+    public void assetsChanged(Collection<UUID> assetIds, Map<UUID, IAsset> assets) throws SiteWhereException {
+	for (UUID assetId : assetIds) {
+	    IAsset asset = assets.get(assetId);
+	    setDisplayFields(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_ASSET_BY_ID, assetId,
+		    (asset != null) ? asset.getName() : null, (asset != null) ? asset.getImageUrl() : null);
+	}
+    }
+
+    /**
+     * Get ids of referenced assets whose display fields are missing, in id
+     * order.
+     *
+     * @param after
+     *            only ids greater than this are returned
+     * @param max
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<UUID> findAssetsWithoutNames(UUID after, int max) throws SiteWhereException {
+	TypedQuery<UUID> query = getEntityManager()
+		.createNamedQuery(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_ASSETS_WITHOUT_NAMES, UUID.class);
+	query.setParameter("after", after);
+	query.setMaxResults(max);
+	return query.getResultList();
+    }
+
+    /**
+     * Remove the summary for a deleted assignment.
+     *
+     * @param assignmentId
+     * @throws SiteWhereException
+     */
+    public void assignmentDeleted(UUID assignmentId) throws SiteWhereException {
+	Query query = getEntityManager().createNamedQuery(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_DELETE_BY_IDS);
+	query.setParameter("ids", Collections.singletonList(assignmentId));
+	query.executeUpdate();
+    }
+
+    /**
+     * Remove summaries for all assignments of a deleted device.
+     *
+     * @param deviceId
+     * @throws SiteWhereException
+     */
+    public void deviceDeleted(UUID deviceId) throws SiteWhereException {
+	Query query = getEntityManager().createNamedQuery(Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_DELETE_BY_DEVICE);
+	query.setParameter("deviceId", deviceId);
+	query.executeUpdate();
+    }
+
+    /**
+     * Run one of the display field update statements.
+     *
+     * @param queryName
+     * @param id
+     * @param name
+     * @param imageUrl
+     * @throws SiteWhereException
+     */
+    protected void setDisplayFields(String queryName, UUID id, String name, String imageUrl)
+	    throws SiteWhereException {
+	Query query = getEntityManager().createNamedQuery(queryName);
+	query.setParameter("id", id);
+	query.setParameter("name", name);
+	query.setParameter("imageUrl", imageUrl);
+	query.executeUpdate();
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getDeviceManagement().getEntityManagerProvider();
+    }
+
+    protected EntityManager getEntityManager() {
+	return getEntityManagerProvider().getEntityManager();
+    }
+
+    protected RdbDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected Set<UUID> getAssignmentIds() {
+	return assignmentIds;
+    }
+
+    protected Set<UUID> getDeviceIds() {
+	return deviceIds;
+    }
+
+    protected Set<UUID> getAlarmAssignmentIds() {
+	return alarmAssignmentIds;
+    }
+
+    protected Map<UUID, IAsset> getAssets() {
+	return assets;
+    }
+
+    protected Map<UUID, Set<UUID>> getAssignmentsByAsset() {
+	return assignmentsByAsset;
+    }
+}
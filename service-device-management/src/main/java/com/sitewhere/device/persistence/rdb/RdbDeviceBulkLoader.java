@@ -0,0 +1,586 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.Session;
+
+import com.sitewhere.device.configuration.BulkProvisioning;
+import com.sitewhere.device.persistence.DeviceManagementPersistence;
+import com.sitewhere.device.persistence.bulk.DeviceBulkAction;
+import com.sitewhere.device.persistence.bulk.DeviceBulkEntry;
+import com.sitewhere.device.persistence.bulk.DeviceBulkMode;
+import com.sitewhere.device.persistence.bulk.DeviceBulkRequest;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResponse;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResult;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbArea;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomer;
+import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignment;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceType;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rdb.spi.ITransactionCallback;
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.rest.model.device.DeviceAssignment;
+import com.sitewhere.rest.model.device.request.DeviceAssignmentCreateRequest;
+import com.sitewhere.rest.model.device.request.DeviceCreateRequest;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.asset.IAsset;
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+
+/**
+ * Stores the entries of a bulk device request. Device types, customers, areas,
+ * assets and parent devices are resolved once for the whole request. Entries
+ * are then stored in transactions of a configurable size. Existing devices and
+ * active assignments for a transaction are loaded with one query each, and
+ * inserts and updates are flushed in JDBC batches.
+ */
+public class RdbDeviceBulkLoader {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(RdbDeviceBulkLoader.class);
+
+    /** Maximum number of values bound to a single IN clause */
+    private static final int MAX_IN_CLAUSE_SIZE = 1000;
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    /** Bulk provisioning settings */
+    private BulkProvisioning settings;
+
+    /** Device types by token */
+    private Map<String, RdbDeviceType> deviceTypes = new HashMap<>();
+
+    /** Customers by token */
+    private Map<String, RdbCustomer> customers = new HashMap<>();
+
+    /** Areas by token */
+    private Map<String, RdbArea> areas = new HashMap<>();
+
+    /** Assets by token */
+    private Map<String, IAsset> assets = new HashMap<>();
+
+    /** Ids of possible parent devices by token (includes devices stored by this request) */
+    private Map<String, UUID> deviceIds = new HashMap<>();
+
+    /** Indicates active assignments of existing devices are left unchanged */
+    private boolean preserveActiveAssignments;
+
+    public RdbDeviceBulkLoader(RdbDeviceManagement deviceManagement, BulkProvisioning settings) {
+	this.deviceManagement = deviceManagement;
+	this.settings = settings;
+    }
+
+    /**
+     * Store all entries in a request.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceBulkResponse load(DeviceBulkRequest request) throws SiteWhereException {
+	List<DeviceBulkEntry> entries = (request.getEntries() != null) ? request.getEntries()
+		: Collections.emptyList();
+	if (entries.size() > getSettings().getMaxEntriesPerRequest()) {
+	    throw new SiteWhereException(
+		    String.format("Bulk device request contains %d entries which exceeds the limit of %d.",
+			    entries.size(), getSettings().getMaxEntriesPerRequest()));
+	}
+	DeviceBulkMode mode = (request.getMode() != null) ? request.getMode() : DeviceBulkMode.Upsert;
+	this.preserveActiveAssignments = request.isPreserveActiveAssignments();
+	resolveReferences(entries);
+
+	DeviceBulkResult[] results = new DeviceBulkResult[entries.size()];
+	Set<String> seen = new HashSet<>();
+	int size = Math.max(1, getSettings().getTransactionSize());
+	for (int start = 0; start < entries.size(); start += size) {
+	    loadChunk(entries, start, Math.min(start + size, entries.size()), mode, results, seen);
+	}
+
+	DeviceBulkResponse response = new DeviceBulkResponse();
+	for (DeviceBulkResult result : results) {
+	    response.add(result);
+	}
+	return response;
+    }
+
+    /**
+     * Resolve all entities referenced by tokens in the request.
+     * 
+     * @param entries
+     * @throws SiteWhereException
+     */
+    protected void resolveReferences(List<DeviceBulkEntry> entries) throws SiteWhereException {
+	Set<String> deviceTypeTokens = new HashSet<>();
+	Set<String> parentTokens = new HashSet<>();
+	Set<String> customerTokens = new HashSet<>();
+	Set<String> areaTokens = new HashSet<>();
+	Set<String> assetTokens = new HashSet<>();
+	for (DeviceBulkEntry entry : entries) {
+	    if (entry == null || entry.getDevice() == null) {
+		continue;
+	    }
+	    addToken(deviceTypeTokens, entry.getDevice().getDeviceTypeToken());
+	    addToken(parentTokens, entry.getDevice().getParentDeviceToken());
+	    if (entry.getAssignment() != null) {
+		addToken(customerTokens, entry.getAssignment().getCustomerToken());
+		addToken(areaTokens, entry.getAssignment().getAreaToken());
+		addToken(assetTokens, entry.getAssignment().getAssetToken());
+	    }
+	}
+	for (RdbDeviceType deviceType : findByTokens(Queries.QUERY_DEVICE_TYPES_BY_TOKENS, deviceTypeTokens,
+		RdbDeviceType.class)) {
+	    getDeviceTypes().put(deviceType.getToken(), deviceType);
+	}
+	for (RdbDevice parent : findByTokens(Queries.QUERY_DEVICES_BY_TOKENS, parentTokens, RdbDevice.class)) {
+	    getDeviceIds().put(parent.getToken(), parent.getId());
+	}
+	for (RdbCustomer customer : findByTokens(Queries.QUERY_CUSTOMERS_BY_TOKENS, customerTokens,
+		RdbCustomer.class)) {
+	    getCustomers().put(customer.getToken(), customer);
+	}
+	for (RdbArea area : findByTokens(Queries.QUERY_AREAS_BY_TOKENS, areaTokens, RdbArea.class)) {
+	    getAreas().put(area.getToken(), area);
+	}
+	if (!assetTokens.isEmpty()) {
+	    getAssets().putAll(getDeviceManagement().getAssetLookupClient().getAssetsByToken(assetTokens));
+	}
+    }
+
+    /**
+     * Validate and store a range of entries in a single transaction.
+     * 
+     * @param entries
+     * @param start
+     * @param end
+     * @param mode
+     * @param results
+     * @param seen
+     * @throws SiteWhereException
+     */
+    protected void loadChunk(List<DeviceBulkEntry> entries, int start, int end, DeviceBulkMode mode,
+	    DeviceBulkResult[] results, Set<String> seen) throws SiteWhereException {
+	List<Integer> candidates = new ArrayList<>();
+	Set<String> tokens = new HashSet<>();
+	for (int i = start; i < end; i++) {
+	    DeviceBulkEntry entry = entries.get(i);
+	    String token = (entry != null && entry.getDevice() != null) ? entry.getDevice().getToken() : null;
+	    results[i] = new DeviceBulkResult(i, token);
+	    if (StringUtils.isEmpty(token)) {
+		results[i].fail("Device token is required.");
+	    } else if (!seen.add(token)) {
+		results[i].fail("Device token appears more than once in request.");
+	    } else {
+		candidates.add(i);
+		tokens.add(token);
+	    }
+	}
+
+	// Load existing devices for the chunk in one query.
+	Map<String, RdbDevice> existing = new HashMap<>();
+	for (RdbDevice device : findByTokens(Queries.QUERY_DEVICES_BY_TOKENS, tokens, RdbDevice.class)) {
+	    existing.put(device.getToken(), device);
+	}
+
+	List<Integer> accepted = new ArrayList<>();
+	Set<String> acceptedTokens = new HashSet<>();
+	List<UUID> assignedDeviceIds = new ArrayList<>();
+	for (int i : candidates) {
+	    DeviceBulkEntry entry = entries.get(i);
+	    RdbDevice device = existing.get(entry.getDevice().getToken());
+	    String error = validate(entry, device, mode, acceptedTokens);
+	    if (error != null) {
+		results[i].fail(error);
+		continue;
+	    }
+	    accepted.add(i);
+	    acceptedTokens.add(entry.getDevice().getToken());
+	    if (device != null && entry.getAssignment() != null) {
+		assignedDeviceIds.add(device.getId());
+	    }
+	}
+	if (accepted.isEmpty()) {
+	    return;
+	}
+
+	// Load active assignments for existing devices in one query.
+	Map<UUID, RdbDeviceAssignment> active = new HashMap<>();
+	for (List<UUID> slice : slices(assignedDeviceIds)) {
+	    Query query = getEntityManagerProvider().query(Queries.QUERY_DEVICE_ASSIGNMENTS_BY_DEVICES_AND_STATUS);
+	    query.setParameter("deviceIds", slice);
+	    query.setParameter("status", DeviceAssignmentStatus.Active);
+	    for (RdbDeviceAssignment assignment : getEntityManagerProvider().findMany(query,
+		    RdbDeviceAssignment.class)) {
+		active.putIfAbsent(assignment.getDeviceId(), assignment);
+	    }
+	}
+
+	Set<String> stored = new HashSet<>();
+	try {
+	    store(entries, accepted, existing, active, results, stored);
+	} catch (SiteWhereException e) {
+	    LOGGER.warn(String.format("Unable to store bulk device entries %d to %d.", start, end - 1), e);
+	    for (int i : accepted) {
+		if (!results[i].isFailed()) {
+		    results[i].fail("Unable to store entry: " + e.getMessage());
+		}
+	    }
+	    for (String token : stored) {
+		getDeviceIds().remove(token);
+	    }
+	    clear();
+	}
+    }
+
+    /**
+     * Validate an entry against existing data. Returns null if the entry is
+     * valid or the reason it was rejected.
+     * 
+     * @param entry
+     * @param existing
+     * @param mode
+     * @param acceptedTokens
+     * @return
+     */
+    protected String validate(DeviceBulkEntry entry, RdbDevice existing, DeviceBulkMode mode,
+	    Set<String> acceptedTokens) {
+	DeviceCreateRequest device = entry.getDevice();
+	if (existing != null && mode == DeviceBulkMode.Create) {
+	    return "Device token is already in use.";
+	}
+	if (existing == null && mode == DeviceBulkMode.Update) {
+	    return "Device token does not match an existing device.";
+	}
+	if (device.getDeviceTypeToken() == null) {
+	    if (existing == null) {
+		return "Device type token is required.";
+	    }
+	} else if (!getDeviceTypes().containsKey(device.getDeviceTypeToken())) {
+	    return "Invalid device type token: " + device.getDeviceTypeToken();
+	}
+	// Parents may be created by earlier entries in the same transaction.
+	String parent = device.getParentDeviceToken();
+	if (parent != null && !getDeviceIds().containsKey(parent) && !acceptedTokens.contains(parent)) {
+	    return "Invalid parent device token: " + device.getParentDeviceToken();
+	}
+	DeviceAssignmentCreateRequest assignment = entry.getAssignment();
+	if (assignment != null) {
+	    if (assignment.getCustomerToken() != null && !getCustomers().containsKey(assignment.getCustomerToken())) {
+		return "Invalid customer token: " + assignment.getCustomerToken();
+	    }
+	    if (assignment.getAreaToken() != null && !getAreas().containsKey(assignment.getAreaToken())) {
+		return "Invalid area token: " + assignment.getAreaToken();
+	    }
+	    if (assignment.getAssetToken() != null && !getAssets().containsKey(assignment.getAssetToken())) {
+		return "Invalid asset token: " + assignment.getAssetToken();
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Store accepted entries in a single transaction. Devices are written before
+     * assignments so that statements of each kind are grouped into JDBC batches.
+     * 
+     * @param entries
+     * @param accepted
+     * @param existing
+     * @param active
+     * @param results
+     * @param stored
+     * @throws SiteWhereException
+     */
+    protected void store(List<DeviceBulkEntry> entries, List<Integer> accepted, Map<String, RdbDevice> existing,
+	    Map<UUID, RdbDeviceAssignment> active, DeviceBulkResult[] results, Set<String> stored)
+	    throws SiteWhereException {
+	getEntityManagerProvider().runInTransaction(new ITransactionCallback<Void>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public Void process() throws SiteWhereException {
+		Session session = getEntityManager().unwrap(Session.class);
+		Integer previous = session.getJdbcBatchSize();
+		session.setJdbcBatchSize(getSettings().getJdbcBatchSize());
+		try {
+		    Map<Integer, RdbDevice> devices = new HashMap<>();
+		    int pending = 0;
+		    for (int i : accepted) {
+			DeviceBulkEntry entry = entries.get(i);
+			RdbDevice device = storeDevice(entry.getDevice(), existing.get(entry.getDevice().getToken()),
+				results[i]);
+			if (device == null) {
+			    continue;
+			}
+			devices.put(i, device);
+			stored.add(device.getToken());
+			getDeviceIds().put(device.getToken(), device.getId());
+			pending = flushIfNeeded(++pending);
+		    }
+		    getEntityManager().flush();
+
+		    pending = 0;
+		    RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(getDeviceManagement());
+		    for (int i : accepted) {
+			DeviceBulkEntry entry = entries.get(i);
+			RdbDevice device = devices.get(i);
+			if (device == null || entry.getAssignment() == null) {
+			    continue;
+			}
+			storeAssignment(entry.getAssignment(), device, active.get(device.getId()), results[i],
+				summaries);
+			pending = flushIfNeeded(++pending);
+		    }
+		    summaries.apply();
+		    getEntityManager().flush();
+		    getEntityManager().clear();
+		    return null;
+		} finally {
+		    session.setJdbcBatchSize(previous);
+		}
+	    }
+	});
+    }
+
+    /**
+     * Create or update a device.
+     * 
+     * @param request
+     * @param existing
+     * @param result
+     * @return
+     * @throws SiteWhereException
+     */
+    protected RdbDevice storeDevice(DeviceCreateRequest request, RdbDevice existing, DeviceBulkResult result)
+	    throws SiteWhereException {
+	RdbDeviceType deviceType = (request.getDeviceTypeToken() != null)
+		? getDeviceTypes().get(request.getDeviceTypeToken())
+		: null;
+	Device parent = null;
+	if (request.getParentDeviceToken() != null) {
+	    UUID parentId = getDeviceIds().get(request.getParentDeviceToken());
+	    if (parentId == null) {
+		result.fail("Parent device could not be stored: " + request.getParentDeviceToken());
+		return null;
+	    }
+	    parent = new Device();
+	    parent.setId(parentId);
+	}
+	try {
+	    if (existing == null) {
+		Device created = DeviceManagementPersistence.deviceCreateLogic(request, deviceType, parent);
+		RdbDevice device = new RdbDevice();
+		RdbDevice.copy(created, device);
+		device = getEntityManagerProvider().persist(device);
+		result.setDeviceId(device.getId());
+		result.setDeviceAction(DeviceBulkAction.Created);
+		return device;
+	    }
+	    Device updates = new Device();
+	    DeviceManagementPersistence.deviceUpdateLogic(request, deviceType, parent, updates);
+	    RdbDevice.copy(updates, existing);
+	    RdbDevice device = getEntityManagerProvider().merge(existing);
+	    result.setDeviceId(device.getId());
+	    result.setDeviceAction(DeviceBulkAction.Updated);
+	    return device;
+	} catch (SiteWhereException e) {
+	    // Rejected by common create or update logic before anything was written.
+	    result.fail(e.getMessage());
+	    return null;
+	}
+    }
+
+    /**
+     * Create an assignment or update the active assignment for a device. The
+     * active assignment is left as is if the request preserves active
+     * assignments.
+     * 
+     * @param request
+     * @param device
+     * @param active
+     * @param result
+     * @param summaries
+     * @throws SiteWhereException
+     */
+    protected void storeAssignment(DeviceAssignmentCreateRequest request, RdbDevice device,
+	    RdbDeviceAssignment active, DeviceBulkResult result, RdbDeviceAssignmentSummaries summaries)
+	    throws SiteWhereException {
+	RdbCustomer customer = (request.getCustomerToken() != null) ? getCustomers().get(request.getCustomerToken())
+		: null;
+	RdbArea area = (request.getAreaToken() != null) ? getAreas().get(request.getAreaToken()) : null;
+	IAsset asset = (request.getAssetToken() != null) ? getAssets().get(request.getAssetToken()) : null;
+	if (active != null && isPreserveActiveAssignments()) {
+	    result.setAssignmentId(active.getId());
+	    result.setAssignmentAction(DeviceBulkAction.Unchanged);
+	} else if (active == null) {
+	    DeviceAssignment created = DeviceManagementPersistence.deviceAssignmentCreateLogic(request, customer,
+		    area, asset, device);
+	    RdbDeviceAssignment assignment = new RdbDeviceAssignment();
+	    RdbDeviceAssignment.copy(created, assignment);
+	    assignment = getEntityManagerProvider().persist(assignment);
+	    summaries.assignmentChanged(assignment.getId(), asset);
+	    result.setAssignmentId(assignment.getId());
+	    result.setAssignmentAction(DeviceBulkAction.Created);
+	} else {
+	    DeviceAssignment updates = new DeviceAssignment();
+	    DeviceManagementPersistence.deviceAssignmentUpdateLogic(null, customer, area, asset, request, updates);
+	    RdbDeviceAssignment.copy(updates, active);
+	    RdbDeviceAssignment assignment = getEntityManagerProvider().merge(active);
+	    summaries.assignmentChanged(assignment.getId(), asset);
+	    result.setAssignmentId(assignment.getId());
+	    result.setAssignmentAction(DeviceBulkAction.Updated);
+	}
+    }
+
+    /**
+     * Flush pending statements once a JDBC batch worth has accumulated. Returns
+     * the updated pending count.
+     * 
+     * @param pending
+     * @return
+     */
+    protected int flushIfNeeded(int pending) {
+	if (pending >= Math.max(1, getSettings().getJdbcBatchSize())) {
+	    getEntityManager().flush();
+	    return 0;
+	}
+	return pending;
+    }
+
+    /**
+     * Discard entities left in the persistence context by a failed transaction.
+     */
+    protected void clear() {
+	try {
+	    getEntityManager().clear();
+	} catch (RuntimeException e) {
+	    LOGGER.debug("Unable to clear persistence context after failed bulk transaction.", e);
+	}
+    }
+
+    /**
+     * Find entities matching a collection of tokens using a named query with a
+     * 'tokens' parameter.
+     * 
+     * @param queryName
+     * @param tokens
+     * @param type
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <T> List<T> findByTokens(String queryName, Collection<String> tokens, Class<T> type)
+	    throws SiteWhereException {
+	List<T> matches = new ArrayList<>();
+	for (List<String> slice : slices(tokens)) {
+	    Query query = getEntityManagerProvider().query(queryName);
+	    query.setParameter("tokens", slice);
+	    matches.addAll(getEntityManagerProvider().findMany(query, type));
+	}
+	return matches;
+    }
+
+    /**
+     * Split values into lists small enough to bind to an IN clause.
+     * 
+     * @param values
+     * @return
+     */
+    protected static <T> List<List<T>> slices(Collection<T> values) {
+	List<List<T>> slices = new ArrayList<>();
+	List<T> current = new ArrayList<>();
+	for (T value : values) {
+	    current.add(value);
+	    if (current.size() == MAX_IN_CLAUSE_SIZE) {
+		slices.add(current);
+		current = new ArrayList<>();
+	    }
+	}
+	if (!current.isEmpty()) {
+	    slices.add(current);
+	}
+	return slices;
+    }
+
+    /**
+     * Add a token to a set if not null.
+     * 
+     * @param tokens
+     * @param token
+     */
+    protected static void addToken(Set<String> tokens, String token) {
+	if (token != null) {
+	    tokens.add(token);
+	}
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getDeviceManagement().getEntityManagerProvider();
+    }
+
+    protected EntityManager getEntityManager() {
+	return getEntityManagerProvider().getEntityManager();
+    }
+
+    protected RdbDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected BulkProvisioning getSettings() {
+	return settings;
+    }
+
+    protected Map<String, RdbDeviceType> getDeviceTypes() {
+	return deviceTypes;
+    }
+
+    protected Map<String, RdbCustomer> getCustomers() {
+	return customers;
+    }
+
+    protected Map<String, RdbArea> getAreas() {
+	return areas;
+    }
+
+    protected Map<String, IAsset> getAssets() {
+	return assets;
+    }
+
+    protected Map<String, UUID> getDeviceIds() {
+	return deviceIds;
+    }
+
+    protected boolean isPreserveActiveAssignments() {
+	return preserveActiveAssignments;
+    }
+}
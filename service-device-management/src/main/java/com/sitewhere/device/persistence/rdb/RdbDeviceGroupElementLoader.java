@@ -0,0 +1,236 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.hibernate.Session;
+
+import com.sitewhere.device.configuration.BulkProvisioning;
+import com.sitewhere.device.persistence.DeviceManagementPersistence;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceGroup;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceGroupElement;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rdb.spi.ITransactionCallback;
+import com.sitewhere.rest.model.device.group.DeviceGroupElement;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
+import com.sitewhere.spi.device.request.IDeviceGroupElementCreateRequest;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
+
+/**
+ * Adds elements to a device group. Referenced devices and nested groups are
+ * resolved with one query per slice of tokens and, when duplicates are
+ * ignored, existing elements are checked the same way. New elements are then
+ * inserted in JDBC batches within a single transaction, clearing the
+ * persistence context after each batch.
+ */
+public class RdbDeviceGroupElementLoader {
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    /** Bulk provisioning settings */
+    private BulkProvisioning settings;
+
+    public RdbDeviceGroupElementLoader(RdbDeviceManagement deviceManagement, BulkProvisioning settings) {
+	this.deviceManagement = deviceManagement;
+	this.settings = settings;
+    }
+
+    /**
+     * Add elements to a group. Nothing is stored if any referenced device or
+     * nested group does not exist.
+     * 
+     * @param group
+     * @param requests
+     * @param ignoreDuplicates
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<RdbDeviceGroupElement> add(RdbDeviceGroup group, List<IDeviceGroupElementCreateRequest> requests,
+	    boolean ignoreDuplicates) throws SiteWhereException {
+	Set<String> deviceTokens = new HashSet<>();
+	Set<String> groupTokens = new HashSet<>();
+	for (IDeviceGroupElementCreateRequest request : requests) {
+	    RdbDeviceBulkLoader.addToken(deviceTokens, request.getDeviceToken());
+	    RdbDeviceBulkLoader.addToken(groupTokens, request.getNestedGroupToken());
+	}
+	Map<String, UUID> deviceIds = findIdsByTokens(getEntityManagerProvider(), Queries.QUERY_DEVICE_IDS_BY_TOKENS,
+		deviceTokens);
+	if (deviceIds.size() < deviceTokens.size()) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceToken, ErrorLevel.ERROR);
+	}
+	Map<String, UUID> groupIds = findIdsByTokens(getEntityManagerProvider(),
+		Queries.QUERY_DEVICE_GROUP_IDS_BY_TOKENS, groupTokens);
+	if (groupIds.size() < groupTokens.size()) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceGroupToken, ErrorLevel.ERROR);
+	}
+
+	Set<UUID> existingDevices = new HashSet<>();
+	Set<UUID> existingGroups = new HashSet<>();
+	if (ignoreDuplicates) {
+	    existingDevices.addAll(findExisting(Queries.QUERY_DEVICE_GROUP_ELEMENT_DEVICE_IDS, "deviceIds",
+		    group.getId(), deviceIds.values()));
+	    existingGroups.addAll(findExisting(Queries.QUERY_DEVICE_GROUP_ELEMENT_NESTED_GROUP_IDS, "nestedGroupIds",
+		    group.getId(), groupIds.values()));
+	}
+
+	List<DeviceGroupElement> elements = new ArrayList<>();
+	for (IDeviceGroupElementCreateRequest request : requests) {
+	    UUID deviceId = (request.getDeviceToken() != null) ? deviceIds.get(request.getDeviceToken()) : null;
+	    UUID nestedId = (request.getNestedGroupToken() != null) ? groupIds.get(request.getNestedGroupToken())
+		    : null;
+	    if (ignoreDuplicates) {
+		// Also skips entries repeated within the request.
+		if ((deviceId != null && existingDevices.contains(deviceId))
+			|| (nestedId != null && existingGroups.contains(nestedId))) {
+		    continue;
+		}
+		if (deviceId != null) {
+		    existingDevices.add(deviceId);
+		}
+		if (nestedId != null) {
+		    existingGroups.add(nestedId);
+		}
+	    }
+	    DeviceGroupElement element = DeviceManagementPersistence.deviceGroupElementCreateLogic(request, group,
+		    null, null);
+	    element.setDeviceId(deviceId);
+	    element.setNestedGroupId(nestedId);
+	    elements.add(element);
+	}
+	return store(elements);
+    }
+
+    /**
+     * Store elements in a single transaction.
+     * 
+     * @param elements
+     * @return
+     * @throws SiteWhereException
+     */
+    protected List<RdbDeviceGroupElement> store(List<DeviceGroupElement> elements) throws SiteWhereException {
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<List<RdbDeviceGroupElement>>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public List<RdbDeviceGroupElement> process() throws SiteWhereException {
+		Session session = getEntityManager().unwrap(Session.class);
+		Integer previous = session.getJdbcBatchSize();
+		int batchSize = Math.max(1, getSettings().getJdbcBatchSize());
+		session.setJdbcBatchSize(batchSize);
+		try {
+		    List<RdbDeviceGroupElement> results = new ArrayList<>();
+		    int pending = 0;
+		    for (DeviceGroupElement element : elements) {
+			RdbDeviceGroupElement created = new RdbDeviceGroupElement();
+			RdbDeviceGroupElement.copy(element, created);
+			getEntityManager().persist(created);
+			results.add(created);
+			if (++pending >= batchSize) {
+			    getEntityManager().flush();
+			    getEntityManager().clear();
+			    pending = 0;
+			}
+		    }
+		    getEntityManager().flush();
+		    getEntityManager().clear();
+		    return results;
+		} finally {
+		    session.setJdbcBatchSize(previous);
+		}
+	    }
+	});
+    }
+
+    /**
+     * Find which of the given ids are already referenced by elements of a group.
+     * 
+     * @param queryName
+     * @param parameter
+     * @param groupId
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    @SuppressWarnings("unchecked")
+    protected Set<UUID> findExisting(String queryName, String parameter, UUID groupId, Collection<UUID> ids)
+	    throws SiteWhereException {
+	Set<UUID> existing = new HashSet<>();
+	for (List<UUID> slice : RdbDeviceBulkLoader.slices(ids)) {
+	    Query query = getEntityManagerProvider().query(queryName);
+	    query.setParameter("groupId", groupId);
+	    query.setParameter(parameter, slice);
+	    existing.addAll(query.getResultList());
+	}
+	return existing;
+    }
+
+    /**
+     * Map tokens to ids using a named query with a 'tokens' parameter that
+     * returns (token, id) pairs.
+     * 
+     * @param provider
+     * @param queryName
+     * @param tokens
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static Map<String, UUID> findIdsByTokens(IRdbEntityManagerProvider provider, String queryName,
+	    Collection<String> tokens) throws SiteWhereException {
+	Map<String, UUID> ids = new HashMap<>();
+	for (List<String> slice : RdbDeviceBulkLoader.slices(tokens)) {
+	    Query query = provider.query(queryName);
+	    query.setParameter("tokens", slice);
+	    for (Object row : query.getResultList()) {
+		Object[] values = (Object[]) row;
+		ids.put((String) values[0], (UUID) values[1]);
+	    }
+	}
+	return ids;
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getDeviceManagement().getEntityManagerProvider();
+    }
+
+    protected EntityManager getEntityManager() {
+	return getEntityManagerProvider().getEntityManager();
+    }
+
+    protected RdbDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected BulkProvisioning getSettings() {
+	return settings;
+    }
+}
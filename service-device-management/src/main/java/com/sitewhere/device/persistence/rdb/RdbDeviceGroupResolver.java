@@ -0,0 +1,145 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.persistence.Query;
+
+import com.sitewhere.device.persistence.group.DeviceGroupMembersPage;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersRequest;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
+
+/**
+ * Resolves the devices that belong to a set of device groups. Nested groups
+ * are expanded one level per query, skipping groups already visited so that
+ * cycles terminate. Device ids are then read in keyset pages ordered by id, so
+ * duplicates across groups are removed by the database and each page costs
+ * the same regardless of how far into the result it starts.
+ */
+public class RdbDeviceGroupResolver {
+
+    /** Maximum number of groups expanded for a single request */
+    private static final int MAX_GROUPS = 1000;
+
+    /** Page size used if none is requested */
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /** Largest page size allowed */
+    private static final int MAX_PAGE_SIZE = 10000;
+
+    /** Lowest possible device id */
+    private static final UUID MIN_DEVICE_ID = new UUID(0, 0);
+
+    /** Entity manager provider */
+    private IRdbEntityManagerProvider entityManagerProvider;
+
+    public RdbDeviceGroupResolver(IRdbEntityManagerProvider entityManagerProvider) {
+	this.entityManagerProvider = entityManagerProvider;
+    }
+
+    /**
+     * Get a page of device ids for a request.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceGroupMembersPage resolve(DeviceGroupMembersRequest request) throws SiteWhereException {
+	if (request.getGroupTokens() == null || request.getGroupTokens().isEmpty()) {
+	    return new DeviceGroupMembersPage();
+	}
+	Set<String> tokens = new LinkedHashSet<>(request.getGroupTokens());
+	Map<String, UUID> roots = RdbDeviceGroupElementLoader.findIdsByTokens(getEntityManagerProvider(),
+		Queries.QUERY_DEVICE_GROUP_IDS_BY_TOKENS, tokens);
+	if (roots.size() < tokens.size()) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceGroupToken, ErrorLevel.ERROR);
+	}
+	List<String> roles = (request.getRoles() != null) ? request.getRoles() : new ArrayList<>();
+	Set<UUID> groupIds = expand(roots.values(), roles);
+
+	int pageSize = (request.getPageSize() > 0) ? Math.min(request.getPageSize(), MAX_PAGE_SIZE)
+		: DEFAULT_PAGE_SIZE;
+	Query query = getEntityManagerProvider().query(roles.isEmpty() ? Queries.QUERY_DEVICE_GROUP_MEMBER_IDS
+		: Queries.QUERY_DEVICE_GROUP_MEMBER_IDS_WITH_ROLES);
+	query.setParameter("groupIds", new ArrayList<>(groupIds));
+	query.setParameter("afterDeviceId",
+		(request.getAfterDeviceId() != null) ? request.getAfterDeviceId() : MIN_DEVICE_ID);
+	if (!roles.isEmpty()) {
+	    query.setParameter("roles", roles);
+	}
+	query.setMaxResults(pageSize + 1);
+	List<UUID> deviceIds = new ArrayList<>();
+	for (Object id : query.getResultList()) {
+	    deviceIds.add((UUID) id);
+	}
+	boolean hasMore = deviceIds.size() > pageSize;
+	if (hasMore) {
+	    deviceIds = deviceIds.subList(0, pageSize);
+	}
+	return new DeviceGroupMembersPage(new ArrayList<>(deviceIds), hasMore);
+    }
+
+    /**
+     * Get ids for the given groups and all groups nested below them.
+     * 
+     * @param roots
+     * @param roles
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Set<UUID> expand(Collection<UUID> roots, List<String> roles) throws SiteWhereException {
+	Set<UUID> visited = new LinkedHashSet<>(roots);
+	List<UUID> level = new ArrayList<>(roots);
+	while (!level.isEmpty()) {
+	    List<UUID> next = new ArrayList<>();
+	    for (List<UUID> slice : RdbDeviceBulkLoader.slices(level)) {
+		Query query = getEntityManagerProvider().query(roles.isEmpty() ? Queries.QUERY_DEVICE_GROUP_NESTED_IDS
+			: Queries.QUERY_DEVICE_GROUP_NESTED_IDS_WITH_ROLES);
+		query.setParameter("groupIds", slice);
+		if (!roles.isEmpty()) {
+		    query.setParameter("roles", roles);
+		}
+		for (Object id : query.getResultList()) {
+		    if (visited.add((UUID) id)) {
+			next.add((UUID) id);
+		    }
+		}
+	    }
+	    if (visited.size() > MAX_GROUPS) {
+		throw new SiteWhereException(
+			String.format("Device groups nest more than %d groups and can not be resolved.", MAX_GROUPS));
+	    }
+	    level = next;
+	}
+	return visited;
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return entityManagerProvider;
+    }
+}
@@ -17,9 +17,11 @@ package com.sitewhere.device.persistence.rdb;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 import javax.persistence.Query;
@@ -30,17 +32,42 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Hibernate;
 
 import com.sitewhere.device.DeviceManagementUtils;
+import com.sitewhere.device.configuration.AlarmHandling;
+import com.sitewhere.device.configuration.BulkProvisioning;
 import com.sitewhere.device.microservice.DeviceManagementMicroservice;
 import com.sitewhere.device.persistence.DeviceManagementPersistence;
 import com.sitewhere.device.persistence.TreeBuilder;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkResponse;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCountRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCounts;
+import com.sitewhere.device.persistence.bulk.DeviceBulkRequest;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResponse;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersPage;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersRequest;
+import com.sitewhere.device.persistence.hierarchy.HierarchyNode;
+import com.sitewhere.device.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.device.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryRequest;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionRequest;
+import com.sitewhere.device.persistence.projection.ZoneProjectionPage;
+import com.sitewhere.device.persistence.projection.ZoneProjectionRequest;
+import com.sitewhere.device.persistence.search.DeviceAssignmentSearchRequest;
+import com.sitewhere.device.persistence.search.DeviceSearchRequest;
 import com.sitewhere.device.persistence.rdb.entity.Queries;
 import com.sitewhere.device.persistence.rdb.entity.RdbArea;
 import com.sitewhere.device.persistence.rdb.entity.RdbAreaBoundary;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaClosure;
 import com.sitewhere.device.persistence.rdb.entity.RdbAreaType;
 import com.sitewhere.device.persistence.rdb.entity.RdbCommandParameter;
 import com.sitewhere.device.persistence.rdb.entity.RdbCustomer;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomerClosure;
 import com.sitewhere.device.persistence.rdb.entity.RdbCustomerType;
 import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
 import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAlarm;
@@ -56,6 +83,13 @@ import com.sitewhere.device.persistence.rdb.entity.RdbLocation;
 import com.sitewhere.device.persistence.rdb.entity.RdbZone;
 import com.sitewhere.device.persistence.rdb.entity.RdbZoneBoundary;
 import com.sitewhere.device.spi.microservice.IDeviceManagementTenantEngine;
+import com.sitewhere.device.spi.persistence.IBulkDeviceManagement;
+import com.sitewhere.device.spi.persistence.IDeviceAlarmManagement;
+import com.sitewhere.device.spi.persistence.IDeviceGroupManagement;
+import com.sitewhere.device.spi.persistence.IDeviceLookupManagement;
+import com.sitewhere.device.spi.persistence.IDeviceProjectionManagement;
+import com.sitewhere.device.spi.persistence.IDeviceSearchManagement;
+import com.sitewhere.device.spi.persistence.IHierarchyManagement;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.rdb.RdbTenantComponent;
@@ -74,12 +108,13 @@ import com.sitewhere.rest.model.device.DeviceStatus;
 import com.sitewhere.rest.model.device.DeviceType;
 import com.sitewhere.rest.model.device.command.DeviceCommand;
 import com.sitewhere.rest.model.device.group.DeviceGroup;
-import com.sitewhere.rest.model.device.group.DeviceGroupElement;
+import com.sitewhere.rest.model.search.TreeNode;
 import com.sitewhere.rest.model.search.area.AreaSearchCriteria;
 import com.sitewhere.rest.model.search.customer.CustomerSearchCriteria;
 import com.sitewhere.rest.model.search.device.DeviceCommandSearchCriteria;
 import com.sitewhere.rest.model.search.device.DeviceSearchCriteria;
 import com.sitewhere.rest.model.search.device.DeviceStatusSearchCriteria;
+import com.sitewhere.shared.grpc.AssetLookupClient;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.area.IArea;
@@ -134,7 +169,24 @@ import com.sitewhere.spi.search.device.IZoneSearchCriteria;
  * Device management implementation that uses a relational database for
  * persistence.
  */
-public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceManagement {
+public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceManagement, IBulkDeviceManagement,
+	IHierarchyManagement, IDeviceGroupManagement, IDeviceProjectionManagement, IDeviceSearchManagement,
+	IDeviceAlarmManagement, IDeviceLookupManagement {
+
+    /** Number of assets resolved per page when filling summary asset fields */
+    private static final int ASSET_BACKFILL_PAGE_SIZE = 1000;
+
+    /** Closure table for area hierarchy */
+    private RdbClosureTable<RdbAreaClosure> areaClosure = RdbClosureTable.forAreas(this);
+
+    /** Closure table for customer hierarchy */
+    private RdbClosureTable<RdbCustomerClosure> customerClosure = RdbClosureTable.forCustomers(this);
+
+    /** Cached area tree */
+    private HierarchyTreeCache areasTreeCache = new HierarchyTreeCache();
+
+    /** Cached customer tree */
+    private HierarchyTreeCache customersTreeCache = new HierarchyTreeCache();
 
     /*
      * @see
@@ -176,6 +228,15 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return getEntityManagerProvider().findOne(query, RdbDeviceType.class);
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupDeviceTypes(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupDeviceTypes(EntityLookupRequest request) throws SiteWhereException {
+	return new RdbEntityLookup(this).lookupDeviceTypes(request);
+    }
+
     /*
      * @see
      * com.sitewhere.microservice.api.device.IDeviceManagement#updateDeviceType(java
@@ -183,16 +244,27 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public RdbDeviceType updateDeviceType(UUID id, IDeviceTypeCreateRequest request) throws SiteWhereException {
-	RdbDeviceType existing = getEntityManagerProvider().findById(id, RdbDeviceType.class);
-	if (existing != null) {
-	    DeviceType updates = new DeviceType();
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbDeviceType>() {
 
-	    // Use common update logic.
-	    DeviceManagementPersistence.deviceTypeUpdateLogic(request, updates);
-	    RdbDeviceType.copy(updates, existing);
-	    return getEntityManagerProvider().merge(existing);
-	}
-	return null;
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbDeviceType process() throws SiteWhereException {
+		RdbDeviceType existing = getEntityManagerProvider().findById(id, RdbDeviceType.class);
+		if (existing != null) {
+		    DeviceType updates = new DeviceType();
+
+		    // Use common update logic.
+		    DeviceManagementPersistence.deviceTypeUpdateLogic(request, updates);
+		    RdbDeviceType.copy(updates, existing);
+		    RdbDeviceType merged = getEntityManagerProvider().merge(existing);
+		    new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this).deviceTypeChanged(merged);
+		    return merged;
+		}
+		return null;
+	    }
+	});
     }
 
     /*
@@ -314,6 +386,15 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return getEntityManagerProvider().findOne(query, RdbDeviceCommand.class);
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupDeviceCommands(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupDeviceCommands(EntityLookupRequest request) throws SiteWhereException {
+	return new RdbEntityLookup(this).lookupDeviceCommands(request);
+    }
+
     /**
      * Merge parameter updates into persistent state.
      * 
@@ -605,6 +686,18 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return getEntityManagerProvider().persist(created);
     }
 
+    /*
+     * @see
+     * com.sitewhere.device.spi.persistence.IBulkDeviceManagement#bulkProvisionDevices
+     * (com.sitewhere.device.persistence.bulk.DeviceBulkRequest)
+     */
+    @Override
+    public DeviceBulkResponse bulkProvisionDevices(DeviceBulkRequest request) throws SiteWhereException {
+	BulkProvisioning settings = ((IDeviceManagementTenantEngine) getTenantEngine()).getActiveConfiguration()
+		.getBulkProvisioning();
+	return new RdbDeviceBulkLoader(this, settings).load(request);
+    }
+
     /*
      * @see
      * com.sitewhere.microservice.api.device.IDeviceManagement#getDevice(java.util.
@@ -612,7 +705,11 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public RdbDevice getDevice(UUID deviceId) throws SiteWhereException {
-	return getEntityManagerProvider().findById(deviceId, RdbDevice.class);
+	RdbDevice device = getEntityManagerProvider().findById(deviceId, RdbDevice.class);
+	if (device != null) {
+	    initializeCollections(device);
+	}
+	return device;
     }
 
     /*
@@ -624,7 +721,32 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
     public RdbDevice getDeviceByToken(String token) throws SiteWhereException {
 	Query query = getEntityManagerProvider().query(Queries.QUERY_DEVICE_BY_TOKEN);
 	query.setParameter("token", token);
-	return getEntityManagerProvider().findOne(query, RdbDevice.class);
+	RdbDevice device = getEntityManagerProvider().findOne(query, RdbDevice.class);
+	if (device != null) {
+	    initializeCollections(device);
+	}
+	return device;
+    }
+
+    /**
+     * Load lazy collections of a device before it leaves the persistence layer.
+     * Collections use subselect fetching, so collections of every device loaded
+     * by the same query are read with one statement per collection.
+     * 
+     * @param device
+     */
+    protected static void initializeCollections(RdbDevice device) {
+	Hibernate.initialize(device.getMetadata());
+	Hibernate.initialize(device.getDeviceElementMappings());
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupDevices(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupDevices(EntityLookupRequest request) throws SiteWhereException {
+	return new RdbEntityLookup(this).lookupDevices(request);
     }
 
     /*
@@ -651,8 +773,27 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	    // Use common update logic.
 	    Device updates = new Device();
 	    DeviceManagementPersistence.deviceUpdateLogic(request, deviceType, parent, updates);
+	    String previousToken = existing.getToken();
 	    RdbDevice.copy(updates, existing);
-	    return getEntityManagerProvider().merge(existing);
+	    if (Objects.equals(previousToken, existing.getToken())) {
+		return getEntityManagerProvider().merge(existing);
+	    }
+
+	    // Device token is copied to assignment summaries.
+	    return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbDevice>() {
+
+		/*
+		 * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+		 */
+		@Override
+		public RdbDevice process() throws SiteWhereException {
+		    RdbDevice merged = getEntityManagerProvider().merge(existing);
+		    RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this);
+		    summaries.deviceChanged(merged.getId());
+		    summaries.apply();
+		    return merged;
+		}
+	    });
 	}
 	throw new SiteWhereSystemException(ErrorCode.InvalidDeviceId, ErrorLevel.ERROR);
     }
@@ -663,7 +804,7 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public ISearchResults<RdbDevice> listDevices(IDeviceSearchCriteria criteria) throws SiteWhereException {
-	return getEntityManagerProvider().findWithCriteria(criteria, new IRdbQueryProvider<RdbDevice>() {
+	IRdbQueryProvider<RdbDevice> provider = new IRdbQueryProvider<RdbDevice>() {
 
 	    /*
 	     * @see com.sitewhere.rdb.spi.IRdbQueryProvider#addPredicates(javax.persistence.
@@ -686,6 +827,16 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 		    Path<UUID> path = root.get("deviceTypeId");
 		    predicates.add(cb.equal(path, deviceType.getId()));
 		}
+
+		// Date range on created date allows callers to page by keyset.
+		if (criteria.getStartDate() != null) {
+		    Path<Date> path = root.get("createdDate");
+		    predicates.add(cb.greaterThanOrEqualTo(path, criteria.getStartDate()));
+		}
+		if (criteria.getEndDate() != null) {
+		    Path<Date> path = root.get("createdDate");
+		    predicates.add(cb.lessThanOrEqualTo(path, criteria.getEndDate()));
+		}
 	    }
 
 	    /*
@@ -697,9 +848,15 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	    @Override
 	    public CriteriaQuery<RdbDevice> addSort(CriteriaBuilder cb, Root<RdbDevice> root,
 		    CriteriaQuery<RdbDevice> query) {
-		return query.orderBy(cb.desc(root.get("createdDate")));
+		return query.orderBy(cb.desc(root.get("createdDate")), cb.desc(root.get("id")));
 	    }
-	}, RdbDevice.class);
+	};
+	ISearchResults<RdbDevice> results = getEntityManagerProvider().findWithCriteria(criteria, provider,
+		RdbDevice.class);
+	for (RdbDevice device : results.getResults()) {
+	    initializeCollections(device);
+	}
+	return results;
     }
 
     /*
@@ -749,6 +906,26 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	}, RdbDeviceSummary.class);
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * listDeviceProjections(com.sitewhere.device.persistence.projection.
+     * DeviceProjectionRequest)
+     */
+    @Override
+    public DeviceProjectionPage listDeviceProjections(DeviceProjectionRequest request) throws SiteWhereException {
+	return new RdbProjectionLoader(this).loadDevices(request);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.spi.persistence.IDeviceSearchManagement#searchDevices(
+     * com.sitewhere.device.persistence.search.DeviceSearchRequest)
+     */
+    @Override
+    public DeviceProjectionPage searchDevices(DeviceSearchRequest request) throws SiteWhereException {
+	return new RdbDeviceSearch(this).searchDevices(request);
+    }
+
     /*
      * @see com.sitewhere.microservice.api.device.IDeviceManagement#
      * createDeviceElementMapping(java.util.UUID,
@@ -777,7 +954,17 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public RdbDevice deleteDevice(UUID id) throws SiteWhereException {
-	return getEntityManagerProvider().remove(id, RdbDevice.class);
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbDevice>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbDevice process() throws SiteWhereException {
+		new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this).deviceDeleted(id);
+		return getEntityManagerProvider().remove(id, RdbDevice.class);
+	    }
+	});
     }
 
     /*
@@ -828,7 +1015,36 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 
 	RdbDeviceAssignment created = new RdbDeviceAssignment();
 	RdbDeviceAssignment.copy(newAssignment, created);
-	return getEntityManagerProvider().persist(created);
+	return storeDeviceAssignment(created, asset, true);
+    }
+
+    /**
+     * Persist or merge an assignment and rebuild its summary in the same
+     * transaction.
+     * 
+     * @param assignment
+     * @param asset
+     * @param create
+     * @return
+     * @throws SiteWhereException
+     */
+    protected RdbDeviceAssignment storeDeviceAssignment(RdbDeviceAssignment assignment, IAsset asset, boolean create)
+	    throws SiteWhereException {
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbDeviceAssignment>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbDeviceAssignment process() throws SiteWhereException {
+		RdbDeviceAssignment stored = create ? getEntityManagerProvider().persist(assignment)
+			: getEntityManagerProvider().merge(assignment);
+		RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this);
+		summaries.assignmentChanged(stored.getId(), asset);
+		summaries.apply();
+		return stored;
+	    }
+	});
     }
 
     /*
@@ -852,6 +1068,15 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return getEntityManagerProvider().findOne(query, RdbDeviceAssignment.class);
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupDeviceAssignments(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupDeviceAssignments(EntityLookupRequest request) throws SiteWhereException {
+	return new RdbEntityLookup(this).lookupDeviceAssignments(request);
+    }
+
     /*
      * @see com.sitewhere.microservice.api.device.IDeviceManagement#
      * getActiveDeviceAssignments(java.util.UUID)
@@ -914,7 +1139,7 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	    DeviceAssignment updates = new DeviceAssignment();
 	    DeviceManagementPersistence.deviceAssignmentUpdateLogic(device, customer, area, asset, request, updates);
 	    RdbDeviceAssignment.copy(updates, existing);
-	    return getEntityManagerProvider().merge(existing);
+	    return storeDeviceAssignment(existing, asset, false);
 	}
 	throw new SiteWhereSystemException(ErrorCode.InvalidDeviceAssignmentId, ErrorLevel.ERROR);
     }
@@ -995,6 +1220,17 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	}, RdbDeviceAssignment.class);
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceSearchManagement#
+     * searchDeviceAssignments(com.sitewhere.device.persistence.search.
+     * DeviceAssignmentSearchRequest)
+     */
+    @Override
+    public DeviceAssignmentProjectionPage searchDeviceAssignments(DeviceAssignmentSearchRequest request)
+	    throws SiteWhereException {
+	return new RdbDeviceSearch(this).searchDeviceAssignments(request);
+    }
+
     /*
      * @see com.sitewhere.microservice.api.device.IDeviceManagement#
      * listDeviceAssignmentSummaries(com.sitewhere.spi.search.device.
@@ -1068,11 +1304,65 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 		    @Override
 		    public CriteriaQuery<RdbDeviceAssignmentSummary> addSort(CriteriaBuilder cb,
 			    Root<RdbDeviceAssignmentSummary> root, CriteriaQuery<RdbDeviceAssignmentSummary> query) {
-			return query.orderBy(cb.desc(root.get("createdDate")));
+			return query.orderBy(cb.desc(root.get("createdDate")), cb.desc(root.get("id")));
 		    }
 		}, RdbDeviceAssignmentSummary.class);
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * listDeviceAssignmentSummaryProjections(com.sitewhere.device.persistence.
+     * projection.DeviceAssignmentSummaryRequest)
+     */
+    @Override
+    public DeviceAssignmentSummaryPage listDeviceAssignmentSummaryProjections(DeviceAssignmentSummaryRequest request)
+	    throws SiteWhereException {
+	return new RdbProjectionLoader(this).loadDeviceAssignmentSummaries(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * refreshAssignmentSummaryAssets(java.util.List)
+     */
+    @Override
+    public void refreshAssignmentSummaryAssets(List<UUID> assetIds) throws SiteWhereException {
+	if (assetIds.isEmpty()) {
+	    return;
+	}
+	Map<UUID, IAsset> assets = getAssetLookupClient().getAssetsById(assetIds);
+	getEntityManagerProvider().runInTransaction(new ITransactionCallback<Void>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public Void process() throws SiteWhereException {
+		new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this).assetsChanged(assetIds, assets);
+		return null;
+	    }
+	});
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * backfillAssignmentSummaryAssets()
+     */
+    @Override
+    public int backfillAssignmentSummaryAssets() throws SiteWhereException {
+	RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(this);
+	UUID after = new UUID(0L, 0L);
+	int count = 0;
+	while (true) {
+	    List<UUID> assetIds = summaries.findAssetsWithoutNames(after, ASSET_BACKFILL_PAGE_SIZE);
+	    if (assetIds.isEmpty()) {
+		return count;
+	    }
+	    refreshAssignmentSummaryAssets(assetIds);
+	    count += assetIds.size();
+	    after = assetIds.get(assetIds.size() - 1);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.microservice.api.device.IDeviceManagement#endDeviceAssignment(
@@ -1084,7 +1374,7 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	if (existing != null) {
 	    existing.setReleasedDate(Calendar.getInstance().getTime());
 	    existing.setStatus(DeviceAssignmentStatus.Released);
-	    return getEntityManagerProvider().merge(existing);
+	    return storeDeviceAssignment(existing, null, false);
 	}
 	return null;
     }
@@ -1095,7 +1385,17 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public RdbDeviceAssignment deleteDeviceAssignment(UUID id) throws SiteWhereException {
-	return getEntityManagerProvider().remove(id, RdbDeviceAssignment.class);
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbDeviceAssignment>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbDeviceAssignment process() throws SiteWhereException {
+		new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this).assignmentDeleted(id);
+		return getEntityManagerProvider().remove(id, RdbDeviceAssignment.class);
+	    }
+	});
     }
 
     /*
@@ -1110,11 +1410,44 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceAssignmentToken, ErrorLevel.ERROR);
 	}
 
-	// Use common logic to load assignment from request.
-	DeviceAlarm alarm = DeviceManagementPersistence.deviceAlarmCreateLogic(assignment, request);
-	RdbDeviceAlarm created = new RdbDeviceAlarm();
-	RdbDeviceAlarm.copy(alarm, created);
-	return getEntityManagerProvider().persist(created);
+	// Repeated triggers within the de-duplication window update the open alarm.
+	return new RdbDeviceAlarmLoader(this, getAlarmHandling()).raise(request, assignment);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceAlarmManagement#
+     * bulkUpdateDeviceAlarms(com.sitewhere.device.persistence.alarm.
+     * DeviceAlarmBulkRequest)
+     */
+    @Override
+    public DeviceAlarmBulkResponse bulkUpdateDeviceAlarms(DeviceAlarmBulkRequest request) throws SiteWhereException {
+	return new RdbDeviceAlarmLoader(this, getAlarmHandling()).load(request);
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceAlarmManagement#
+     * getOpenDeviceAlarmCounts(com.sitewhere.device.persistence.alarm.
+     * DeviceAlarmCountRequest)
+     */
+    @Override
+    public DeviceAlarmCounts getOpenDeviceAlarmCounts(DeviceAlarmCountRequest request) throws SiteWhereException {
+	UUID areaId = null;
+	if (!StringUtils.isEmpty(request.getAreaToken())) {
+	    RdbArea area = getAreaByToken(request.getAreaToken());
+	    if (area == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidAreaToken, ErrorLevel.ERROR);
+	    }
+	    areaId = area.getId();
+	}
+	UUID deviceTypeId = null;
+	if (!StringUtils.isEmpty(request.getDeviceTypeToken())) {
+	    RdbDeviceType deviceType = getDeviceTypeByToken(request.getDeviceTypeToken());
+	    if (deviceType == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidDeviceTypeToken, ErrorLevel.ERROR);
+	    }
+	    deviceTypeId = deviceType.getId();
+	}
+	return new RdbDeviceAlarmCounters(this).find(areaId, deviceTypeId, request.getState());
     }
 
     /*
@@ -1124,17 +1457,39 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public IDeviceAlarm updateDeviceAlarm(UUID id, IDeviceAlarmCreateRequest request) throws SiteWhereException {
-	RdbDeviceAlarm existing = getEntityManagerProvider().findById(id, RdbDeviceAlarm.class);
-	if (existing != null) {
-	    IDeviceAssignment assignment = getDeviceAssignmentByToken(request.getDeviceAssignmentToken());
+	IDeviceAssignment assignment = getDeviceAssignmentByToken(request.getDeviceAssignmentToken());
+	RdbDeviceAlarmCounters counters = new RdbDeviceAlarmCounters(this);
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbDeviceAlarm>() {
 
-	    // Use common update logic.
-	    DeviceAlarm updates = new DeviceAlarm();
-	    DeviceManagementPersistence.deviceAlarmUpdateLogic(assignment, request, updates);
-	    RdbDeviceAlarm.copy(updates, existing);
-	    return getEntityManagerProvider().merge(existing);
-	}
-	throw new SiteWhereSystemException(ErrorCode.InvalidDeviceAlarmId, ErrorLevel.ERROR);
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbDeviceAlarm process() throws SiteWhereException {
+		RdbDeviceAlarm existing = getEntityManagerProvider().findById(id, RdbDeviceAlarm.class);
+		if (existing == null) {
+		    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceAlarmId, ErrorLevel.ERROR);
+		}
+		counters.remove(existing);
+		UUID previousAssignmentId = existing.getDeviceAssignmentId();
+
+		// Use common update logic.
+		DeviceAlarm updates = new DeviceAlarm();
+		DeviceManagementPersistence.deviceAlarmUpdateLogic(assignment, request, updates);
+		RdbDeviceAlarm.copy(updates, existing);
+		if (assignment != null) {
+		    existing.setDeviceTypeId(assignment.getDeviceTypeId());
+		}
+		RdbDeviceAlarm updated = getEntityManagerProvider().merge(existing);
+		counters.add(updated);
+		counters.apply();
+		RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this);
+		summaries.alarmsChanged(previousAssignmentId);
+		summaries.alarmsChanged(updated.getDeviceAssignmentId());
+		summaries.apply();
+		return updated;
+	    }
+	});
     }
 
     /*
@@ -1215,7 +1570,27 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public IDeviceAlarm deleteDeviceAlarm(UUID id) throws SiteWhereException {
-	return getEntityManagerProvider().remove(id, RdbDeviceAlarm.class);
+	RdbDeviceAlarmCounters counters = new RdbDeviceAlarmCounters(this);
+	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbDeviceAlarm>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbDeviceAlarm process() throws SiteWhereException {
+		RdbDeviceAlarm existing = getEntityManagerProvider().findById(id, RdbDeviceAlarm.class);
+		if (existing == null) {
+		    return null;
+		}
+		counters.remove(existing);
+		RdbDeviceAlarm deleted = getEntityManagerProvider().remove(id, RdbDeviceAlarm.class);
+		counters.apply();
+		RdbDeviceAssignmentSummaries summaries = new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this);
+		summaries.alarmsChanged(existing.getDeviceAssignmentId());
+		summaries.apply();
+		return deleted;
+	    }
+	});
     }
 
     /*
@@ -1370,9 +1745,22 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 
 	// Use common logic to load assignment from request.
 	Customer customer = DeviceManagementPersistence.customerCreateLogic(request, customerType, parentCustomer);
-	RdbCustomer created = new RdbCustomer();
-	RdbCustomer.copy(customer, created);
-	return getEntityManagerProvider().persist(created);
+	RdbCustomer result = getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbCustomer>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbCustomer process() throws SiteWhereException {
+		RdbCustomer created = new RdbCustomer();
+		RdbCustomer.copy(customer, created);
+		created = getEntityManagerProvider().persist(created);
+		getCustomerClosure().insert(created.getId(), created.getParentId());
+		return created;
+	    }
+	});
+	getCustomersTreeCache().invalidate();
+	return result;
     }
 
     /*
@@ -1397,6 +1785,15 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return getEntityManagerProvider().findOne(query, RdbCustomer.class);
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupCustomers(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupCustomers(EntityLookupRequest request) throws SiteWhereException {
+	return new RdbEntityLookup(this).lookupCustomers(request);
+    }
+
     /*
      * @see
      * com.sitewhere.microservice.api.device.IDeviceManagement#getCustomerChildren(
@@ -1413,6 +1810,20 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return getEntityManagerProvider().findMany(query, RdbCustomer.class);
     }
 
+    /*
+     * @see
+     * com.sitewhere.device.spi.persistence.IHierarchyManagement#getCustomerSubtree(
+     * java.lang.String)
+     */
+    @Override
+    public List<HierarchyNode> getCustomerSubtree(String token) throws SiteWhereException {
+	RdbCustomer existing = getCustomerByToken(token);
+	if (existing == null) {
+	    return new ArrayList<>();
+	}
+	return getCustomerClosure().getSubtree(existing.getId());
+    }
+
     /*
      * @see
      * com.sitewhere.microservice.api.device.IDeviceManagement#updateCustomer(java.
@@ -1420,33 +1831,52 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public ICustomer updateCustomer(UUID id, ICustomerCreateRequest request) throws SiteWhereException {
-	RdbCustomer existing = getEntityManagerProvider().findById(id, RdbCustomer.class);
-	if (existing != null) {
-	    // Look up customer type if updated.
-	    RdbCustomerType customerType = null;
-	    if (request.getCustomerTypeToken() != null) {
-		customerType = getCustomerTypeByToken(request.getCustomerTypeToken());
-		if (customerType == null) {
-		    throw new SiteWhereSystemException(ErrorCode.InvalidCustomerTypeToken, ErrorLevel.ERROR);
-		}
-	    }
+	RdbCustomer updated = getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbCustomer>() {
 
-	    // Look up parent customer if provided.
-	    RdbCustomer parentCustomer = null;
-	    if (request.getParentToken() != null) {
-		parentCustomer = getCustomerByToken(request.getParentToken());
-		if (parentCustomer == null) {
-		    throw new SiteWhereSystemException(ErrorCode.InvalidCustomerToken, ErrorLevel.ERROR);
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbCustomer process() throws SiteWhereException {
+		RdbCustomer existing = getEntityManagerProvider().findById(id, RdbCustomer.class);
+		if (existing != null) {
+		    // Look up customer type if updated.
+		    RdbCustomerType customerType = null;
+		    if (request.getCustomerTypeToken() != null) {
+			customerType = getCustomerTypeByToken(request.getCustomerTypeToken());
+			if (customerType == null) {
+			    throw new SiteWhereSystemException(ErrorCode.InvalidCustomerTypeToken, ErrorLevel.ERROR);
+			}
+		    }
+
+		    // Look up parent customer if provided.
+		    RdbCustomer parentCustomer = null;
+		    if (request.getParentToken() != null) {
+			parentCustomer = getCustomerByToken(request.getParentToken());
+			if (parentCustomer == null) {
+			    throw new SiteWhereSystemException(ErrorCode.InvalidCustomerToken, ErrorLevel.ERROR);
+			}
+		    }
+
+		    // Use common update logic.
+		    UUID previousParentId = existing.getParentId();
+		    Customer updates = new Customer();
+		    DeviceManagementPersistence.customerUpdateLogic(request, customerType, parentCustomer, updates);
+		    RdbCustomer.copy(updates, existing);
+
+		    // Move subtree if parent changed.
+		    if (!Objects.equals(previousParentId, existing.getParentId())) {
+			getCustomerClosure().move(existing.getId(), existing.getParentId());
+		    }
+		    RdbCustomer merged = getEntityManagerProvider().merge(existing);
+		    new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this).customerChanged(merged);
+		    return merged;
 		}
+		throw new SiteWhereSystemException(ErrorCode.InvalidCustomerToken, ErrorLevel.ERROR);
 	    }
-
-	    // Use common update logic.
-	    Customer updates = new Customer();
-	    DeviceManagementPersistence.customerUpdateLogic(request, customerType, parentCustomer, updates);
-	    RdbCustomer.copy(updates, existing);
-	    return getEntityManagerProvider().merge(existing);
-	}
-	throw new SiteWhereSystemException(ErrorCode.InvalidCustomerToken, ErrorLevel.ERROR);
+	});
+	getCustomersTreeCache().invalidate();
+	return updated;
     }
 
     /*
@@ -1506,8 +1936,14 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public List<? extends ITreeNode> getCustomersTree() throws SiteWhereException {
-	ISearchResults<RdbCustomer> all = listCustomers(new CustomerSearchCriteria(1, 0));
-	return TreeBuilder.buildTree(all.getResults());
+	List<Object> versionStamp = getCustomerClosure().getVersionStamp();
+	List<TreeNode> tree = getCustomersTreeCache().get(versionStamp);
+	if (tree == null) {
+	    ISearchResults<RdbCustomer> all = listCustomers(new CustomerSearchCriteria(1, 0));
+	    tree = TreeBuilder.buildTree(all.getResults());
+	    getCustomersTreeCache().put(versionStamp, tree);
+	}
+	return tree;
     }
 
     /*
@@ -1517,7 +1953,19 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public RdbCustomer deleteCustomer(UUID id) throws SiteWhereException {
-	return getEntityManagerProvider().remove(id, RdbCustomer.class);
+	RdbCustomer deleted = getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbCustomer>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbCustomer process() throws SiteWhereException {
+		getCustomerClosure().remove(id);
+		return getEntityManagerProvider().remove(id, RdbCustomer.class);
+	    }
+	});
+	getCustomersTreeCache().invalidate();
+	return deleted;
     }
 
     /*
@@ -1672,18 +2120,30 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 
 	// Use common logic to load assignment from request.
 	Area area = DeviceManagementPersistence.areaCreateLogic(request, areaType, parentArea);
-	RdbArea created = new RdbArea();
-	RdbArea.copy(area, created);
-	created = getEntityManagerProvider().persist(created);
+	RdbArea result = getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbArea>() {
 
-	// Parse bounds into entities.
-	for (ILocation location : request.getBounds()) {
-	    RdbAreaBoundary boundary = new RdbAreaBoundary();
-	    RdbLocation.copy(location, boundary);
-	    boundary.setAreaId(created.getId());
-	    created.getBounds().add(boundary);
-	}
-	return getEntityManagerProvider().merge(created);
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbArea process() throws SiteWhereException {
+		RdbArea created = new RdbArea();
+		RdbArea.copy(area, created);
+		created = getEntityManagerProvider().persist(created);
+		getAreaClosure().insert(created.getId(), created.getParentId());
+
+		// Parse bounds into entities.
+		for (ILocation location : request.getBounds()) {
+		    RdbAreaBoundary boundary = new RdbAreaBoundary();
+		    RdbLocation.copy(location, boundary);
+		    boundary.setAreaId(created.getId());
+		    created.getBounds().add(boundary);
+		}
+		return getEntityManagerProvider().merge(created);
+	    }
+	});
+	getAreasTreeCache().invalidate();
+	return result;
     }
 
     /*
@@ -1708,6 +2168,15 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return getEntityManagerProvider().findOne(query, RdbArea.class);
     }
 
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceLookupManagement#
+     * lookupAreas(com.sitewhere.device.persistence.lookup.EntityLookupRequest)
+     */
+    @Override
+    public EntityLookupResponse lookupAreas(EntityLookupRequest request) throws SiteWhereException {
+	return new RdbEntityLookup(this).lookupAreas(request);
+    }
+
     /*
      * @see
      * com.sitewhere.microservice.api.device.IDeviceManagement#getAreaChildren(java.
@@ -1724,6 +2193,20 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return getEntityManagerProvider().findMany(query, RdbArea.class);
     }
 
+    /*
+     * @see
+     * com.sitewhere.device.spi.persistence.IHierarchyManagement#getAreaSubtree(java
+     * .lang.String)
+     */
+    @Override
+    public List<HierarchyNode> getAreaSubtree(String token) throws SiteWhereException {
+	RdbArea existing = getAreaByToken(token);
+	if (existing == null) {
+	    return new ArrayList<>();
+	}
+	return getAreaClosure().getSubtree(existing.getId());
+    }
+
     /*
      * @see
      * com.sitewhere.microservice.api.device.IDeviceManagement#updateArea(java.util.
@@ -1731,7 +2214,7 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public RdbArea updateArea(UUID id, IAreaCreateRequest request) throws SiteWhereException {
-	return getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbArea>() {
+	RdbArea updated = getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbArea>() {
 
 	    /*
 	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
@@ -1759,10 +2242,16 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 		    }
 
 		    // Use common update logic.
+		    UUID previousParentId = existing.getParentId();
 		    Area updates = new Area();
 		    DeviceManagementPersistence.areaUpdateLogic(request, areaType, parentArea, updates);
 		    RdbArea.copy(updates, existing);
 
+		    // Move subtree if parent changed.
+		    if (!Objects.equals(previousParentId, existing.getParentId())) {
+			getAreaClosure().move(existing.getId(), existing.getParentId());
+		    }
+
 		    // Parse bounds into entities.
 		    if (request.getBounds() != null) {
 			for (RdbAreaBoundary bound : existing.getBounds()) {
@@ -1777,11 +2266,15 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 			    existing.getBounds().add(boundary);
 			}
 		    }
-		    return getEntityManagerProvider().merge(existing);
+		    RdbArea merged = getEntityManagerProvider().merge(existing);
+		    new RdbDeviceAssignmentSummaries(RdbDeviceManagement.this).areaChanged(merged);
+		    return merged;
 		}
 		throw new SiteWhereSystemException(ErrorCode.InvalidAreaToken, ErrorLevel.ERROR);
 	    }
 	});
+	getAreasTreeCache().invalidate();
+	return updated;
     }
 
     /*
@@ -1839,8 +2332,14 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public List<? extends ITreeNode> getAreasTree() throws SiteWhereException {
-	ISearchResults<RdbArea> all = listAreas(new AreaSearchCriteria(1, 0));
-	return TreeBuilder.buildTree(all.getResults());
+	List<Object> versionStamp = getAreaClosure().getVersionStamp();
+	List<TreeNode> tree = getAreasTreeCache().get(versionStamp);
+	if (tree == null) {
+	    ISearchResults<RdbArea> all = listAreas(new AreaSearchCriteria(1, 0));
+	    tree = TreeBuilder.buildTree(all.getResults());
+	    getAreasTreeCache().put(versionStamp, tree);
+	}
+	return tree;
     }
 
     /*
@@ -1850,7 +2349,19 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public IArea deleteArea(UUID id) throws SiteWhereException {
-	return getEntityManagerProvider().remove(id, RdbArea.class);
+	RdbArea deleted = getEntityManagerProvider().runInTransaction(new ITransactionCallback<RdbArea>() {
+
+	    /*
+	     * @see com.sitewhere.rdb.spi.ITransactionCallback#process()
+	     */
+	    @Override
+	    public RdbArea process() throws SiteWhereException {
+		getAreaClosure().remove(id);
+		return getEntityManagerProvider().remove(id, RdbArea.class);
+	    }
+	});
+	getAreasTreeCache().invalidate();
+	return deleted;
     }
 
     /*
@@ -1900,7 +2411,11 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      */
     @Override
     public IZone getZone(UUID id) throws SiteWhereException {
-	return getEntityManagerProvider().findById(id, RdbZone.class);
+	RdbZone zone = getEntityManagerProvider().findById(id, RdbZone.class);
+	if (zone != null) {
+	    initializeCollections(zone);
+	}
+	return zone;
     }
 
     /*
@@ -1912,7 +2427,21 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
     public IZone getZoneByToken(String token) throws SiteWhereException {
 	Query query = getEntityManagerProvider().query(Queries.QUERY_ZONE_BY_TOKEN);
 	query.setParameter("token", token);
-	return getEntityManagerProvider().findOne(query, RdbZone.class);
+	RdbZone zone = getEntityManagerProvider().findOne(query, RdbZone.class);
+	if (zone != null) {
+	    initializeCollections(zone);
+	}
+	return zone;
+    }
+
+    /**
+     * Load lazy collections of a zone before it leaves the persistence layer.
+     * 
+     * @param zone
+     */
+    protected static void initializeCollections(RdbZone zone) {
+	Hibernate.initialize(zone.getMetadata());
+	Hibernate.initialize(zone.getBounds());
     }
 
     /*
@@ -1968,7 +2497,7 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	    throw new SiteWhereSystemException(ErrorCode.InvalidAreaToken, ErrorLevel.ERROR);
 	}
 
-	return getEntityManagerProvider().findWithCriteria(criteria, new IRdbQueryProvider<RdbZone>() {
+	IRdbQueryProvider<RdbZone> provider = new IRdbQueryProvider<RdbZone>() {
 
 	    /*
 	     * @see com.sitewhere.rdb.spi.IRdbQueryProvider#addPredicates(javax.persistence.
@@ -1995,7 +2524,23 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 		    CriteriaQuery<RdbZone> query) {
 		return query.orderBy(cb.asc(root.get("name")));
 	    }
-	}, RdbZone.class);
+	};
+	ISearchResults<RdbZone> results = getEntityManagerProvider().findWithCriteria(criteria, provider,
+		RdbZone.class);
+	for (RdbZone zone : results.getResults()) {
+	    initializeCollections(zone);
+	}
+	return results;
+    }
+
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceProjectionManagement#
+     * listZoneProjections(com.sitewhere.device.persistence.projection.
+     * ZoneProjectionRequest)
+     */
+    @Override
+    public ZoneProjectionPage listZoneProjections(ZoneProjectionRequest request) throws SiteWhereException {
+	return new RdbProjectionLoader(this).loadZones(request);
     }
 
     /*
@@ -2150,36 +2695,20 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	if (group == null) {
 	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceGroupId, ErrorLevel.ERROR);
 	}
-	List<RdbDeviceGroupElement> results = new ArrayList<>();
-	for (IDeviceGroupElementCreateRequest request : elements) {
-	    // Look up referenced device if provided.
-	    RdbDevice device = null;
-	    if (request.getDeviceToken() != null) {
-		device = getDeviceByToken(request.getDeviceToken());
-		if (device == null) {
-		    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceToken, ErrorLevel.ERROR);
-		}
-	    }
-	    // Look up referenced nested group if provided.
-	    RdbDeviceGroup nested = null;
-	    if (request.getNestedGroupToken() != null) {
-		nested = getDeviceGroupByToken(request.getNestedGroupToken());
-		if (nested == null) {
-		    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceGroupToken, ErrorLevel.ERROR);
-		}
-	    }
-
-	    // Create element and associate it with group.
-	    RdbDeviceGroupElement created = new RdbDeviceGroupElement();
-	    DeviceGroupElement element = DeviceManagementPersistence.deviceGroupElementCreateLogic(request, group,
-		    device, nested);
-	    RdbDeviceGroupElement.copy(element, created);
-	    results.add(getEntityManagerProvider().persist(created));
-	}
+	BulkProvisioning settings = ((IDeviceManagementTenantEngine) getTenantEngine()).getActiveConfiguration()
+		.getBulkProvisioning();
+	return new RdbDeviceGroupElementLoader(this, settings).add(group, elements, ignoreDuplicates);
+    }
 
-	group.setElements(results);
-	getEntityManagerProvider().persist(group);
-	return results;
+    /*
+     * @see com.sitewhere.device.spi.persistence.IDeviceGroupManagement#
+     * resolveDeviceGroupMembers(com.sitewhere.device.persistence.group.
+     * DeviceGroupMembersRequest)
+     */
+    @Override
+    public DeviceGroupMembersPage resolveDeviceGroupMembers(DeviceGroupMembersRequest request)
+	    throws SiteWhereException {
+	return new RdbDeviceGroupResolver(getEntityManagerProvider()).resolve(request);
     }
 
     /*
@@ -2257,6 +2786,16 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return ((DeviceManagementMicroservice) getTenantEngine().getMicroservice()).getAssetManagementApiChannel();
     }
 
+    /**
+     * Get client for batch asset lookups.
+     * 
+     * @return
+     */
+    public AssetLookupClient getAssetLookupClient() {
+	return new AssetLookupClient(
+		((DeviceManagementMicroservice) getTenantEngine().getMicroservice()).getAssetManagementApiChannel());
+    }
+
     /**
      * Look up a list of asset tokens to get the corresponding list of asset ids.
      *
@@ -2265,9 +2804,13 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
      * @throws SiteWhereException
      */
     protected List<UUID> getAssetIds(List<String> tokens) throws SiteWhereException {
+	Map<String, IAsset> assets = getAssetLookupClient().getAssetsByToken(tokens);
 	List<UUID> result = new ArrayList<>();
 	for (String token : tokens) {
-	    IAsset asset = getAssetManagement().getAssetByToken(token);
+	    IAsset asset = assets.get(token);
+	    if (asset == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidAssetToken, ErrorLevel.ERROR);
+	    }
 	    result.add(asset.getId());
 	}
 	return result;
@@ -2313,6 +2856,26 @@ public class RdbDeviceManagement extends RdbTenantComponent implements IDeviceMa
 	return catids;
     }
 
+    protected AlarmHandling getAlarmHandling() {
+	return ((IDeviceManagementTenantEngine) getTenantEngine()).getActiveConfiguration().getAlarmHandling();
+    }
+
+    protected RdbClosureTable<RdbAreaClosure> getAreaClosure() {
+	return areaClosure;
+    }
+
+    protected RdbClosureTable<RdbCustomerClosure> getCustomerClosure() {
+	return customerClosure;
+    }
+
+    protected HierarchyTreeCache getAreasTreeCache() {
+	return areasTreeCache;
+    }
+
+    protected HierarchyTreeCache getCustomersTreeCache() {
+	return customersTreeCache;
+    }
+
     /*
      * @see com.sitewhere.rdb.spi.IRdbTenantComponent#getEntityManagerProvider()
      */
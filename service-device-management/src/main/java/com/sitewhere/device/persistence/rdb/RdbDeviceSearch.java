@@ -0,0 +1,311 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.MapJoin;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.sitewhere.device.persistence.projection.DeviceAssignmentProjection;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbArea;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaClosure;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomer;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomerClosure;
+import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignment;
+import com.sitewhere.device.persistence.search.AssignmentState;
+import com.sitewhere.device.persistence.search.DeviceAssignmentSearchRequest;
+import com.sitewhere.device.persistence.search.DeviceSearchRequest;
+import com.sitewhere.device.persistence.search.MetadataPredicate;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
+
+/**
+ * Searches devices and device assignments. Every criterion is expressed so that
+ * it can be answered from an index:
+ * <ul>
+ * <li>text matches use trigram indexes on lower-cased tokens and comments</li>
+ * <li>metadata predicates use the (key, value, owner) indexes on the metadata
+ * tables</li>
+ * <li>area and customer filters expand the subtree through the hierarchy
+ * closure tables</li>
+ * <li>pages are read by keyset on (created date, id)</li>
+ * </ul>
+ */
+public class RdbDeviceSearch {
+
+    /** Escape character used in LIKE patterns */
+    private static final char LIKE_ESCAPE = '\\';
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    /** Loads projections for matched rows */
+    private RdbProjectionLoader projections;
+
+    public RdbDeviceSearch(RdbDeviceManagement deviceManagement) {
+	this.deviceManagement = deviceManagement;
+	this.projections = new RdbProjectionLoader(deviceManagement);
+    }
+
+    /**
+     * Get a page of devices matching a search.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceProjectionPage searchDevices(DeviceSearchRequest request) throws SiteWhereException {
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	CriteriaQuery<Tuple> query = cb.createTupleQuery();
+	Root<RdbDevice> root = query.from(RdbDevice.class);
+	Path<UUID> id = root.get("id");
+
+	List<Predicate> predicates = new ArrayList<>();
+	if (!StringUtils.isEmpty(request.getText())) {
+	    String pattern = containsPattern(request.getText());
+	    predicates.add(cb.or(cb.like(cb.lower(root.get("token")), pattern, LIKE_ESCAPE),
+		    cb.like(cb.lower(root.get("comments")), pattern, LIKE_ESCAPE)));
+	}
+	if (request.getMetadata() != null) {
+	    for (MetadataPredicate predicate : request.getMetadata()) {
+		predicates.add(id.in(metadataOwners(query, RdbDevice.class, predicate)));
+	    }
+	}
+	if (!StringUtils.isEmpty(request.getDeviceTypeToken())) {
+	    UUID deviceTypeId = getProjections().getDeviceTypeId(request.getDeviceTypeToken());
+	    predicates.add(cb.equal(root.get("deviceTypeId"), deviceTypeId));
+	}
+	if (!StringUtils.isEmpty(request.getStatus())) {
+	    predicates.add(cb.equal(root.get("status"), request.getStatus()));
+	}
+
+	// Area and customer filters imply an active assignment.
+	boolean filtersAssignments = !StringUtils.isEmpty(request.getAreaToken())
+		|| !StringUtils.isEmpty(request.getCustomerToken());
+	if (filtersAssignments || request.getAssignmentState() == AssignmentState.Assigned) {
+	    Subquery<UUID> active = query.subquery(UUID.class);
+	    Root<RdbDeviceAssignment> assignment = active.from(RdbDeviceAssignment.class);
+	    List<Predicate> conditions = new ArrayList<>();
+	    conditions.add(cb.equal(assignment.get("deviceId"), id));
+	    conditions.add(cb.equal(assignment.get("status"), DeviceAssignmentStatus.Active));
+	    addHierarchyPredicates(query, assignment, request.getAreaToken(), request.getCustomerToken(), conditions);
+	    active.select(assignment.get("id")).where(conditions.toArray(new Predicate[conditions.size()]));
+	    predicates.add(cb.exists(active));
+	}
+	if (request.getAssignmentState() == AssignmentState.Unassigned) {
+	    Subquery<UUID> active = query.subquery(UUID.class);
+	    Root<RdbDeviceAssignment> assignment = active.from(RdbDeviceAssignment.class);
+	    active.select(assignment.get("id")).where(cb.equal(assignment.get("deviceId"), id),
+		    cb.equal(assignment.get("status"), DeviceAssignmentStatus.Active));
+	    predicates.add(cb.not(cb.exists(active)));
+	}
+	return getProjections().loadDevicePage(query, root, predicates, request.getAfterCreatedDate(),
+		request.getAfterDeviceId(), request.getPageSize(), request.isIncludeMetadata(), false);
+    }
+
+    /**
+     * Get a page of device assignments matching a search.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceAssignmentProjectionPage searchDeviceAssignments(DeviceAssignmentSearchRequest request)
+	    throws SiteWhereException {
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	CriteriaQuery<Tuple> query = cb.createTupleQuery();
+	Root<RdbDeviceAssignment> root = query.from(RdbDeviceAssignment.class);
+	Join<RdbDeviceAssignment, RdbDevice> device = root.join("device");
+	Path<UUID> id = root.get("id");
+	Path<Date> createdDate = root.get("createdDate");
+	query.multiselect(id, root.get("token"), root.get("deviceId"), device.get("token"), root.get("deviceTypeId"),
+		root.get("customerId"), root.get("areaId"), root.get("assetId"), root.get("status"),
+		root.get("activeDate"), root.get("releasedDate"), createdDate);
+
+	List<Predicate> predicates = new ArrayList<>();
+	if (!StringUtils.isEmpty(request.getText())) {
+	    String pattern = containsPattern(request.getText());
+	    predicates.add(cb.or(cb.like(cb.lower(root.get("token")), pattern, LIKE_ESCAPE),
+		    cb.like(cb.lower(device.get("token")), pattern, LIKE_ESCAPE)));
+	}
+	if (request.getMetadata() != null) {
+	    for (MetadataPredicate predicate : request.getMetadata()) {
+		predicates.add(id.in(metadataOwners(query, RdbDeviceAssignment.class, predicate)));
+	    }
+	}
+	if (!StringUtils.isEmpty(request.getDeviceTypeToken())) {
+	    UUID deviceTypeId = getProjections().getDeviceTypeId(request.getDeviceTypeToken());
+	    predicates.add(cb.equal(root.get("deviceTypeId"), deviceTypeId));
+	}
+	if (request.getStatus() != null) {
+	    predicates.add(cb.equal(root.get("status"), request.getStatus()));
+	}
+	addHierarchyPredicates(query, root, request.getAreaToken(), request.getCustomerToken(), predicates);
+	if (request.getAfterCreatedDate() != null && request.getAfterAssignmentId() != null) {
+	    predicates.add(cb.or(cb.lessThan(createdDate, request.getAfterCreatedDate()),
+		    cb.and(cb.equal(createdDate, request.getAfterCreatedDate()),
+			    cb.lessThan(id, request.getAfterAssignmentId()))));
+	}
+	query.where(predicates.toArray(new Predicate[predicates.size()]));
+	query.orderBy(cb.desc(createdDate), cb.desc(id));
+
+	int pageSize = RdbProjectionLoader.pageSize(request.getPageSize());
+	List<Tuple> rows = getEntityManager().createQuery(query).setMaxResults(pageSize + 1).getResultList();
+	boolean hasMore = rows.size() > pageSize;
+	if (hasMore) {
+	    rows = rows.subList(0, pageSize);
+	}
+
+	Map<UUID, DeviceAssignmentProjection> assignments = new LinkedHashMap<>();
+	for (Tuple row : rows) {
+	    DeviceAssignmentProjection assignment = new DeviceAssignmentProjection();
+	    assignment.setId(row.get(0, UUID.class));
+	    assignment.setToken(row.get(1, String.class));
+	    assignment.setDeviceId(row.get(2, UUID.class));
+	    assignment.setDeviceToken(row.get(3, String.class));
+	    assignment.setDeviceTypeId(row.get(4, UUID.class));
+	    assignment.setCustomerId(row.get(5, UUID.class));
+	    assignment.setAreaId(row.get(6, UUID.class));
+	    assignment.setAssetId(row.get(7, UUID.class));
+	    assignment.setStatus(row.get(8, DeviceAssignmentStatus.class));
+	    assignment.setActiveDate(row.get(9, Date.class));
+	    assignment.setReleasedDate(row.get(10, Date.class));
+	    assignment.setCreatedDate(row.get(11, Date.class));
+	    assignments.put(assignment.getId(), assignment);
+	}
+	if (request.isIncludeMetadata()) {
+	    Map<UUID, Map<String, String>> metadata = getProjections()
+		    .loadMetadata(Queries.QUERY_DEVICE_ASSIGNMENT_METADATA_BY_IDS, assignments.keySet());
+	    for (DeviceAssignmentProjection assignment : assignments.values()) {
+		assignment.setMetadata(metadata.getOrDefault(assignment.getId(), new HashMap<>()));
+	    }
+	}
+	return new DeviceAssignmentProjectionPage(new ArrayList<>(assignments.values()), hasMore);
+    }
+
+    /**
+     * Build a subquery for ids of entities with a matching metadata entry.
+     * 
+     * @param query
+     * @param type
+     * @param predicate
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <T> Subquery<UUID> metadataOwners(CriteriaQuery<?> query, Class<T> type, MetadataPredicate predicate)
+	    throws SiteWhereException {
+	if (StringUtils.isEmpty(predicate.getKey())) {
+	    throw new SiteWhereException("Metadata search predicates require a key.");
+	}
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	Subquery<UUID> owners = query.subquery(UUID.class);
+	Root<T> owner = owners.from(type);
+	MapJoin<T, String, String> entry = owner.joinMap("metadata");
+	List<Predicate> conditions = new ArrayList<>();
+	conditions.add(cb.equal(entry.key(), predicate.getKey()));
+	if (predicate.getValue() != null) {
+	    conditions.add(cb.equal(entry.value(), predicate.getValue()));
+	}
+	return owners.select(owner.get("id")).where(conditions.toArray(new Predicate[conditions.size()]));
+    }
+
+    /**
+     * Add predicates limiting assignments to an area and/or customer and all
+     * entries nested below them.
+     * 
+     * @param query
+     * @param assignment
+     * @param areaToken
+     * @param customerToken
+     * @param predicates
+     * @throws SiteWhereException
+     */
+    protected void addHierarchyPredicates(CriteriaQuery<?> query, Path<?> assignment,
+	    String areaToken, String customerToken, List<Predicate> predicates) throws SiteWhereException {
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	if (!StringUtils.isEmpty(areaToken)) {
+	    RdbArea area = getDeviceManagement().getAreaByToken(areaToken);
+	    if (area == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidAreaToken, ErrorLevel.ERROR);
+	    }
+	    Subquery<UUID> subtree = query.subquery(UUID.class);
+	    Root<RdbAreaClosure> closure = subtree.from(RdbAreaClosure.class);
+	    subtree.select(closure.get("descendantId")).where(cb.equal(closure.get("ancestorId"), area.getId()));
+	    Expression<UUID> areaId = assignment.get("areaId");
+	    predicates.add(areaId.in(subtree));
+	}
+	if (!StringUtils.isEmpty(customerToken)) {
+	    RdbCustomer customer = getDeviceManagement().getCustomerByToken(customerToken);
+	    if (customer == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidCustomerToken, ErrorLevel.ERROR);
+	    }
+	    Subquery<UUID> subtree = query.subquery(UUID.class);
+	    Root<RdbCustomerClosure> closure = subtree.from(RdbCustomerClosure.class);
+	    subtree.select(closure.get("descendantId")).where(cb.equal(closure.get("ancestorId"), customer.getId()));
+	    Expression<UUID> customerId = assignment.get("customerId");
+	    predicates.add(customerId.in(subtree));
+	}
+    }
+
+    /**
+     * Build a case-insensitive LIKE pattern that matches values containing the
+     * given text.
+     * 
+     * @param text
+     * @return
+     */
+    protected static String containsPattern(String text) {
+	String escaped = text.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	return "%" + escaped + "%";
+    }
+
+    protected RdbDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected RdbProjectionLoader getProjections() {
+	return projections;
+    }
+
+    protected EntityManager getEntityManager() {
+	return getDeviceManagement().getEntityManagerProvider().getEntityManager();
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Hibernate;
+
+import com.sitewhere.device.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.device.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.device.persistence.lookup.EntityLookupResult;
+import com.sitewhere.device.persistence.rdb.entity.RdbArea;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomer;
+import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignment;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceCommand;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceType;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
+import com.sitewhere.spi.common.IPersistentEntity;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
+
+/**
+ * Loads lists of entities by id or token. The distinct keys of a request are
+ * resolved with a single IN query and results are returned in request order
+ * with an explicit entry for each key that did not match.
+ */
+public class RdbEntityLookup {
+
+    /** Largest number of keys allowed in a request */
+    private static final int MAX_KEYS = 1000;
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    public RdbEntityLookup(RdbDeviceManagement deviceManagement) {
+	this.deviceManagement = deviceManagement;
+    }
+
+    /**
+     * Look up devices. Element mappings are fetched by the same query and
+     * metadata for all matched devices by one more query.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupDevices(EntityLookupRequest request) throws SiteWhereException {
+	return lookup(RdbDevice.class, request, null, true);
+    }
+
+    /**
+     * Look up device assignments.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupDeviceAssignments(EntityLookupRequest request) throws SiteWhereException {
+	return lookup(RdbDeviceAssignment.class, request, null, false);
+    }
+
+    /**
+     * Look up device types.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupDeviceTypes(EntityLookupRequest request) throws SiteWhereException {
+	return lookup(RdbDeviceType.class, request, null, false);
+    }
+
+    /**
+     * Look up device commands. Command tokens are only unique within a device
+     * type, so a device type is required for token lookups.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupDeviceCommands(EntityLookupRequest request) throws SiteWhereException {
+	UUID deviceTypeId = null;
+	if (!isEmpty(request.getTokens())) {
+	    RdbDeviceType deviceType = (request.getDeviceTypeToken() != null)
+		    ? getDeviceManagement().getDeviceTypeByToken(request.getDeviceTypeToken())
+		    : null;
+	    if (deviceType == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidDeviceTypeToken, ErrorLevel.ERROR);
+	    }
+	    deviceTypeId = deviceType.getId();
+	}
+	return lookup(RdbDeviceCommand.class, request, deviceTypeId, false);
+    }
+
+    /**
+     * Look up customers.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupCustomers(EntityLookupRequest request) throws SiteWhereException {
+	return lookup(RdbCustomer.class, request, null, false);
+    }
+
+    /**
+     * Look up areas.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupAreas(EntityLookupRequest request) throws SiteWhereException {
+	return lookup(RdbArea.class, request, null, false);
+    }
+
+    /**
+     * Resolve the keys of a request with one query and build results in request
+     * order.
+     * 
+     * @param type
+     * @param request
+     * @param deviceTypeId
+     * @param fetchDeviceCollections
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <T extends IPersistentEntity> EntityLookupResponse lookup(Class<T> type, EntityLookupRequest request,
+	    UUID deviceTypeId, boolean fetchDeviceCollections) throws SiteWhereException {
+	boolean byId = !isEmpty(request.getIds());
+	if (byId && !isEmpty(request.getTokens())) {
+	    throw new SiteWhereException("Lookup requests may contain ids or tokens but not both.");
+	}
+	List<String> keys = new ArrayList<>();
+	if (byId) {
+	    for (UUID id : request.getIds()) {
+		keys.add(id != null ? id.toString() : null);
+	    }
+	} else if (request.getTokens() != null) {
+	    keys.addAll(request.getTokens());
+	}
+	if (keys.size() > MAX_KEYS) {
+	    throw new SiteWhereException(String
+		    .format("Lookup request contains %d keys which exceeds the limit of %d.", keys.size(), MAX_KEYS));
+	}
+
+	EntityLookupResponse response = new EntityLookupResponse();
+	Set<Object> distinct = new LinkedHashSet<>();
+	if (byId) {
+	    for (UUID id : request.getIds()) {
+		if (id != null) {
+		    distinct.add(id);
+		}
+	    }
+	} else {
+	    for (String token : keys) {
+		if (token != null) {
+		    distinct.add(token);
+		}
+	    }
+	}
+
+	Map<String, T> found = new HashMap<>();
+	if (!distinct.isEmpty()) {
+	    for (T entity : query(type, byId ? "id" : "token", distinct, deviceTypeId, fetchDeviceCollections)) {
+		found.put(byId ? entity.getId().toString() : entity.getToken(), entity);
+	    }
+	}
+	for (String key : keys) {
+	    response.add(new EntityLookupResult(key, (key != null) ? found.get(key) : null));
+	}
+	return response;
+    }
+
+    /**
+     * Run the IN query for a set of keys.
+     * 
+     * @param type
+     * @param attribute
+     * @param keys
+     * @param deviceTypeId
+     * @param fetchDeviceCollections
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <T> List<T> query(Class<T> type, String attribute, Set<Object> keys, UUID deviceTypeId,
+	    boolean fetchDeviceCollections) throws SiteWhereException {
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	CriteriaQuery<T> query = cb.createQuery(type);
+	Root<T> root = query.from(type);
+	if (fetchDeviceCollections) {
+	    root.fetch("deviceElementMappings", JoinType.LEFT);
+	    query.distinct(true);
+	}
+	List<Predicate> predicates = new ArrayList<>();
+	predicates.add(root.get(attribute).in(keys));
+	if (deviceTypeId != null) {
+	    predicates.add(cb.equal(root.get("deviceTypeId"), deviceTypeId));
+	}
+	query.select(root).where(predicates.toArray(new Predicate[0]));
+	List<T> results = getEntityManager().createQuery(query).getResultList();
+
+	// Metadata is mapped with subselect fetching, so one query loads it for all.
+	if (fetchDeviceCollections) {
+	    for (T entity : results) {
+		Hibernate.initialize(((RdbDevice) entity).getMetadata());
+	    }
+	}
+	return results;
+    }
+
+    protected static boolean isEmpty(List<?> values) {
+	return (values == null) || values.isEmpty();
+    }
+
+    protected RdbDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getDeviceManagement().getEntityManagerProvider();
+    }
+
+    protected EntityManager getEntityManager() {
+	return getEntityManagerProvider().getEntityManager();
+    }
+}
@@ -0,0 +1,426 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryProjection;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryRequest;
+import com.sitewhere.device.persistence.projection.DeviceProjection;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionRequest;
+import com.sitewhere.device.persistence.projection.ZoneProjection;
+import com.sitewhere.device.persistence.projection.ZoneProjectionPage;
+import com.sitewhere.device.persistence.projection.ZoneProjectionRequest;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbArea;
+import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignmentSummary;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceType;
+import com.sitewhere.device.persistence.rdb.entity.RdbZone;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rest.model.common.Location;
+import com.sitewhere.rest.model.device.DeviceElementMapping;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
+
+/**
+ * Loads pages of device, assignment summary and zone projections. Each page is read by a single
+ * query that selects only scalar columns, so no collections are initialized
+ * and no secondary selects are issued per row. Metadata, element mappings and
+ * bounds are loaded only when requested, with one query per collection for the
+ * ids on the page.
+ */
+public class RdbProjectionLoader {
+
+    /** Page size used if none is requested */
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    /** Largest page size allowed */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /** Device management implementation */
+    private RdbDeviceManagement deviceManagement;
+
+    public RdbProjectionLoader(RdbDeviceManagement deviceManagement) {
+	this.deviceManagement = deviceManagement;
+    }
+
+    /**
+     * Get a page of device projections.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceProjectionPage loadDevices(DeviceProjectionRequest request) throws SiteWhereException {
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	CriteriaQuery<Tuple> query = cb.createTupleQuery();
+	Root<RdbDevice> root = query.from(RdbDevice.class);
+
+	List<Predicate> predicates = new ArrayList<>();
+	if (request.getTokens() != null && !request.getTokens().isEmpty()) {
+	    predicates.add(root.get("token").in(request.getTokens()));
+	}
+	if (!StringUtils.isEmpty(request.getDeviceTypeToken())) {
+	    predicates.add(cb.equal(root.get("deviceTypeId"), getDeviceTypeId(request.getDeviceTypeToken())));
+	}
+	return loadDevicePage(query, root, predicates, request.getAfterCreatedDate(), request.getAfterDeviceId(),
+		request.getPageSize(), request.isIncludeMetadata(), request.isIncludeElementMappings());
+    }
+
+    /**
+     * Get a page of device projections matching the given predicates. Devices are
+     * ordered newest first and the page starts after the given keyset values.
+     * 
+     * @param query
+     * @param root
+     * @param predicates
+     * @param afterCreatedDate
+     * @param afterDeviceId
+     * @param requestedPageSize
+     * @param includeMetadata
+     * @param includeElementMappings
+     * @return
+     * @throws SiteWhereException
+     */
+    protected DeviceProjectionPage loadDevicePage(CriteriaQuery<Tuple> query, Root<RdbDevice> root,
+	    List<Predicate> predicates, Date afterCreatedDate, UUID afterDeviceId, int requestedPageSize,
+	    boolean includeMetadata, boolean includeElementMappings) throws SiteWhereException {
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	Path<UUID> id = root.get("id");
+	Path<Date> createdDate = root.get("createdDate");
+	query.multiselect(id, root.get("token"), root.get("deviceTypeId"), root.get("parentDeviceId"),
+		root.get("comments"), root.get("status"), createdDate);
+	if (afterCreatedDate != null && afterDeviceId != null) {
+	    predicates.add(cb.or(cb.lessThan(createdDate, afterCreatedDate),
+		    cb.and(cb.equal(createdDate, afterCreatedDate), cb.lessThan(id, afterDeviceId))));
+	}
+	query.where(predicates.toArray(new Predicate[predicates.size()]));
+	query.orderBy(cb.desc(createdDate), cb.desc(id));
+
+	int pageSize = pageSize(requestedPageSize);
+	List<Tuple> rows = getEntityManager().createQuery(query).setMaxResults(pageSize + 1).getResultList();
+	boolean hasMore = rows.size() > pageSize;
+	if (hasMore) {
+	    rows = rows.subList(0, pageSize);
+	}
+
+	Map<UUID, DeviceProjection> devices = new LinkedHashMap<>();
+	for (Tuple row : rows) {
+	    DeviceProjection device = new DeviceProjection();
+	    device.setId(row.get(0, UUID.class));
+	    device.setToken(row.get(1, String.class));
+	    device.setDeviceTypeId(row.get(2, UUID.class));
+	    device.setParentDeviceId(row.get(3, UUID.class));
+	    device.setComments(row.get(4, String.class));
+	    device.setStatus(row.get(5, String.class));
+	    device.setCreatedDate(row.get(6, Date.class));
+	    devices.put(device.getId(), device);
+	}
+	if (includeMetadata) {
+	    Map<UUID, Map<String, String>> metadata = loadMetadata(Queries.QUERY_DEVICE_METADATA_BY_IDS,
+		    devices.keySet());
+	    for (DeviceProjection device : devices.values()) {
+		device.setMetadata(metadata.getOrDefault(device.getId(), new HashMap<>()));
+	    }
+	}
+	if (includeElementMappings) {
+	    Map<UUID, List<DeviceElementMapping>> mappings = loadElementMappings(devices.keySet());
+	    for (DeviceProjection device : devices.values()) {
+		device.setDeviceElementMappings(mappings.getOrDefault(device.getId(), new ArrayList<>()));
+	    }
+	}
+	return new DeviceProjectionPage(new ArrayList<>(devices.values()), hasMore);
+    }
+
+    /**
+     * Get a page of device assignment summaries. Display fields are read from
+     * the denormalized summary table, so no joins are needed.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceAssignmentSummaryPage loadDeviceAssignmentSummaries(DeviceAssignmentSummaryRequest request)
+	    throws SiteWhereException {
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	CriteriaQuery<Tuple> query = cb.createTupleQuery();
+	Root<RdbDeviceAssignmentSummary> root = query.from(RdbDeviceAssignmentSummary.class);
+	Path<UUID> id = root.get("id");
+	Path<Date> createdDate = root.get("createdDate");
+	Path<Long> openAlarmCount = root.get("openAlarmCount");
+	query.multiselect(id, root.get("token"), root.get("deviceId"), root.get("deviceToken"),
+		root.get("deviceTypeId"), root.get("deviceTypeName"), root.get("deviceTypeImageUrl"),
+		root.get("customerId"), root.get("customerName"), root.get("customerImageUrl"), root.get("areaId"),
+		root.get("areaName"), root.get("areaImageUrl"), root.get("assetId"), root.get("assetName"),
+		root.get("assetImageUrl"), root.get("status"), root.get("activeDate"), root.get("releasedDate"),
+		createdDate, openAlarmCount, root.get("lastAlarmDate"));
+
+	List<Predicate> predicates = new ArrayList<>();
+	if (request.getStatus() != null) {
+	    predicates.add(cb.equal(root.get("status"), request.getStatus()));
+	}
+	if (!StringUtils.isEmpty(request.getDeviceTypeToken())) {
+	    predicates.add(cb.equal(root.get("deviceTypeId"), getDeviceTypeId(request.getDeviceTypeToken())));
+	}
+	if (request.isOpenAlarmsOnly()) {
+	    predicates.add(cb.greaterThan(openAlarmCount, 0L));
+	}
+	new RdbDeviceSearch(getDeviceManagement()).addHierarchyPredicates(query, root, request.getAreaToken(),
+		request.getCustomerToken(), predicates);
+	if (request.getAfterCreatedDate() != null && request.getAfterAssignmentId() != null) {
+	    predicates.add(cb.or(cb.lessThan(createdDate, request.getAfterCreatedDate()),
+		    cb.and(cb.equal(createdDate, request.getAfterCreatedDate()),
+			    cb.lessThan(id, request.getAfterAssignmentId()))));
+	}
+	query.where(predicates.toArray(new Predicate[predicates.size()]));
+	query.orderBy(cb.desc(createdDate), cb.desc(id));
+
+	int pageSize = pageSize(request.getPageSize());
+	List<Tuple> rows = getEntityManager().createQuery(query).setMaxResults(pageSize + 1).getResultList();
+	boolean hasMore = rows.size() > pageSize;
+	if (hasMore) {
+	    rows = rows.subList(0, pageSize);
+	}
+
+	List<DeviceAssignmentSummaryProjection> summaries = new ArrayList<>();
+	for (Tuple row : rows) {
+	    DeviceAssignmentSummaryProjection summary = new DeviceAssignmentSummaryProjection();
+	    summary.setId(row.get(0, UUID.class));
+	    summary.setToken(row.get(1, String.class));
+	    summary.setDeviceId(row.get(2, UUID.class));
+	    summary.setDeviceToken(row.get(3, String.class));
+	    summary.setDeviceTypeId(row.get(4, UUID.class));
+	    summary.setDeviceTypeName(row.get(5, String.class));
+	    summary.setDeviceTypeImageUrl(row.get(6, String.class));
+	    summary.setCustomerId(row.get(7, UUID.class));
+	    summary.setCustomerName(row.get(8, String.class));
+	    summary.setCustomerImageUrl(row.get(9, String.class));
+	    summary.setAreaId(row.get(10, UUID.class));
+	    summary.setAreaName(row.get(11, String.class));
+	    summary.setAreaImageUrl(row.get(12, String.class));
+	    summary.setAssetId(row.get(13, UUID.class));
+	    summary.setAssetName(row.get(14, String.class));
+	    summary.setAssetImageUrl(row.get(15, String.class));
+	    summary.setStatus(row.get(16, DeviceAssignmentStatus.class));
+	    summary.setActiveDate(row.get(17, Date.class));
+	    summary.setReleasedDate(row.get(18, Date.class));
+	    summary.setCreatedDate(row.get(19, Date.class));
+	    summary.setOpenAlarmCount(row.get(20, Long.class));
+	    summary.setLastAlarmDate(row.get(21, Date.class));
+	    summaries.add(summary);
+	}
+	return new DeviceAssignmentSummaryPage(summaries, hasMore);
+    }
+
+    /**
+     * Get a page of zone projections for an area.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public ZoneProjectionPage loadZones(ZoneProjectionRequest request) throws SiteWhereException {
+	RdbArea area = getDeviceManagement().getAreaByToken(request.getAreaToken());
+	if (area == null) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidAreaToken, ErrorLevel.ERROR);
+	}
+
+	CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+	CriteriaQuery<Tuple> query = cb.createTupleQuery();
+	Root<RdbZone> root = query.from(RdbZone.class);
+	Path<UUID> id = root.get("id");
+	Path<String> name = root.get("name");
+	query.multiselect(id, root.get("token"), root.get("areaId"), name, root.get("borderColor"),
+		root.get("fillColor"), root.get("borderOpacity"), root.get("fillOpacity"));
+
+	List<Predicate> predicates = new ArrayList<>();
+	predicates.add(cb.equal(root.get("areaId"), area.getId()));
+	if (request.getAfterName() != null && request.getAfterZoneId() != null) {
+	    predicates.add(cb.or(cb.greaterThan(name, request.getAfterName()),
+		    cb.and(cb.equal(name, request.getAfterName()), cb.greaterThan(id, request.getAfterZoneId()))));
+	}
+	query.where(predicates.toArray(new Predicate[predicates.size()]));
+	query.orderBy(cb.asc(name), cb.asc(id));
+
+	int pageSize = pageSize(request.getPageSize());
+	List<Tuple> rows = getEntityManager().createQuery(query).setMaxResults(pageSize + 1).getResultList();
+	boolean hasMore = rows.size() > pageSize;
+	if (hasMore) {
+	    rows = rows.subList(0, pageSize);
+	}
+
+	Map<UUID, ZoneProjection> zones = new LinkedHashMap<>();
+	for (Tuple row : rows) {
+	    ZoneProjection zone = new ZoneProjection();
+	    zone.setId(row.get(0, UUID.class));
+	    zone.setToken(row.get(1, String.class));
+	    zone.setAreaId(row.get(2, UUID.class));
+	    zone.setName(row.get(3, String.class));
+	    zone.setBorderColor(row.get(4, String.class));
+	    zone.setFillColor(row.get(5, String.class));
+	    zone.setBorderOpacity(row.get(6, Double.class));
+	    zone.setFillOpacity(row.get(7, Double.class));
+	    zones.put(zone.getId(), zone);
+	}
+	if (request.isIncludeBounds()) {
+	    Map<UUID, List<Location>> bounds = loadBounds(zones.keySet());
+	    for (ZoneProjection zone : zones.values()) {
+		zone.setBounds(bounds.getOrDefault(zone.getId(), new ArrayList<>()));
+	    }
+	}
+	if (request.isIncludeMetadata()) {
+	    Map<UUID, Map<String, String>> metadata = loadMetadata(Queries.QUERY_ZONE_METADATA_BY_IDS, zones.keySet());
+	    for (ZoneProjection zone : zones.values()) {
+		zone.setMetadata(metadata.getOrDefault(zone.getId(), new HashMap<>()));
+	    }
+	}
+	return new ZoneProjectionPage(new ArrayList<>(zones.values()), hasMore);
+    }
+
+    /**
+     * Load metadata entries for a list of entity ids.
+     * 
+     * @param queryName
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<UUID, Map<String, String>> loadMetadata(String queryName, Collection<UUID> ids)
+	    throws SiteWhereException {
+	Map<UUID, Map<String, String>> metadata = new HashMap<>();
+	if (ids.isEmpty()) {
+	    return metadata;
+	}
+	Query query = getEntityManagerProvider().query(queryName);
+	query.setParameter("ids", new ArrayList<>(ids));
+	for (Object result : query.getResultList()) {
+	    Object[] row = (Object[]) result;
+	    metadata.computeIfAbsent((UUID) row[0], key -> new HashMap<>()).put((String) row[1], (String) row[2]);
+	}
+	return metadata;
+    }
+
+    /**
+     * Load element mappings for a list of device ids.
+     * 
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<UUID, List<DeviceElementMapping>> loadElementMappings(Collection<UUID> ids)
+	    throws SiteWhereException {
+	Map<UUID, List<DeviceElementMapping>> mappings = new HashMap<>();
+	if (ids.isEmpty()) {
+	    return mappings;
+	}
+	Query query = getEntityManagerProvider().query(Queries.QUERY_DEVICE_ELEMENT_MAPPINGS_BY_IDS);
+	query.setParameter("ids", new ArrayList<>(ids));
+	for (Object result : query.getResultList()) {
+	    Object[] row = (Object[]) result;
+	    DeviceElementMapping mapping = new DeviceElementMapping();
+	    mapping.setDeviceElementSchemaPath((String) row[1]);
+	    mapping.setDeviceToken((String) row[2]);
+	    mappings.computeIfAbsent((UUID) row[0], key -> new ArrayList<>()).add(mapping);
+	}
+	return mappings;
+    }
+
+    /**
+     * Load bounds for a list of zone ids.
+     * 
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<UUID, List<Location>> loadBounds(Collection<UUID> ids) throws SiteWhereException {
+	Map<UUID, List<Location>> bounds = new HashMap<>();
+	if (ids.isEmpty()) {
+	    return bounds;
+	}
+	Query query = getEntityManagerProvider().query(Queries.QUERY_ZONE_BOUNDS_BY_IDS);
+	query.setParameter("ids", new ArrayList<>(ids));
+	for (Object result : query.getResultList()) {
+	    Object[] row = (Object[]) result;
+	    Location location = new Location();
+	    location.setLatitude((Double) row[1]);
+	    location.setLongitude((Double) row[2]);
+	    location.setElevation((Double) row[3]);
+	    bounds.computeIfAbsent((UUID) row[0], key -> new ArrayList<>()).add(location);
+	}
+	return bounds;
+    }
+
+    /**
+     * Get id of device type with the given token.
+     * 
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected UUID getDeviceTypeId(String token) throws SiteWhereException {
+	RdbDeviceType deviceType = getDeviceManagement().getDeviceTypeByToken(token);
+	if (deviceType == null) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceTypeToken, ErrorLevel.ERROR);
+	}
+	return deviceType.getId();
+    }
+
+    /**
+     * Get page size bounded by the allowed maximum.
+     * 
+     * @param requested
+     * @return
+     */
+    protected static int pageSize(int requested) {
+	return (requested > 0) ? Math.min(requested, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+    }
+
+    protected RdbDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return getDeviceManagement().getEntityManagerProvider();
+    }
+
+    protected EntityManager getEntityManager() {
+	return getEntityManagerProvider().getEntityManager();
+    }
+}
@@ -20,6 +20,9 @@ public class Queries {
     /** Get device type by token */
     public static final String QUERY_DEVICE_TYPE_BY_TOKEN = "deviceTypes_findByToken";
 
+    /** Get device types matching a list of tokens */
+    public static final String QUERY_DEVICE_TYPES_BY_TOKENS = "deviceTypes_findByTokens";
+
     /** Get device command by token */
     public static final String QUERY_DEVICE_COMMAND_BY_TOKEN = "deviceCommands_findByToken";
 
@@ -29,33 +32,163 @@ public class Queries {
     /** Get device by token */
     public static final String QUERY_DEVICE_BY_TOKEN = "devices_findByToken";
 
+    /** Get devices matching a list of tokens */
+    public static final String QUERY_DEVICES_BY_TOKENS = "devices_findByTokens";
+
+    /** Get ids of devices matching a list of tokens */
+    public static final String QUERY_DEVICE_IDS_BY_TOKENS = "devices_findIdsByTokens";
+
+    /** Get metadata entries for a list of device ids */
+    public static final String QUERY_DEVICE_METADATA_BY_IDS = "devices_findMetadataByIds";
+
+    /** Get element mappings for a list of device ids */
+    public static final String QUERY_DEVICE_ELEMENT_MAPPINGS_BY_IDS = "devices_findElementMappingsByIds";
+
     /** Get device assignment by token */
     public static final String QUERY_DEVICE_ASSIGNMENT_BY_TOKEN = "deviceAssignments_findByToken";
 
+    /** Get device assignments matching a list of tokens */
+    public static final String QUERY_DEVICE_ASSIGNMENTS_BY_TOKENS = "deviceAssignments_findByTokens";
+
     /** Get device assignment by device id and status */
     public static final String QUERY_DEVICE_ASSIGNMENT_BY_DEVICE_AND_STATUS = "deviceAssignments_findByDeviceAndStatus";
 
+    /** Get device assignments by status for a list of device ids */
+    public static final String QUERY_DEVICE_ASSIGNMENTS_BY_DEVICES_AND_STATUS = "deviceAssignments_findByDevicesAndStatus";
+
+    /** Get metadata entries for a list of device assignment ids */
+    public static final String QUERY_DEVICE_ASSIGNMENT_METADATA_BY_IDS = "deviceAssignments_findMetadataByIds";
+
     /** Get customer type by token */
     public static final String QUERY_CUSTOMER_TYPE_BY_TOKEN = "customerTypes_findByToken";
 
     /** Get customers by token */
     public static final String QUERY_CUSTOMER_BY_TOKEN = "customers_findByToken";
 
+    /** Get customers matching a list of tokens */
+    public static final String QUERY_CUSTOMERS_BY_TOKENS = "customers_findByTokens";
+
     /** Get customers by parent id */
     public static final String QUERY_CUSTOMER_BY_PARENT_ID = "customers_findByParentId";
 
+    /** Get nodes for a customer and all of its descendants */
+    public static final String QUERY_CUSTOMER_SUBTREE = "customers_findSubtree";
+
+    /** Get values that change whenever the set of customers changes */
+    public static final String QUERY_CUSTOMER_VERSION_STAMP = "customers_versionStamp";
+
+    /** Get closure rows linking a customer to its ancestors */
+    public static final String QUERY_CUSTOMER_CLOSURE_ANCESTORS = "customerClosures_findAncestors";
+
+    /** Get closure rows linking a customer to its descendants */
+    public static final String QUERY_CUSTOMER_CLOSURE_DESCENDANTS = "customerClosures_findDescendants";
+
+    /** Delete closure rows between lists of ancestors and descendants */
+    public static final String QUERY_CUSTOMER_CLOSURE_DELETE_LINKS = "customerClosures_deleteLinks";
+
     /** Get area type by token */
     public static final String QUERY_AREA_TYPE_BY_TOKEN = "areaTypes_findByToken";
 
     /** Get area by token */
     public static final String QUERY_AREA_BY_TOKEN = "areas_findByToken";
 
+    /** Get areas matching a list of tokens */
+    public static final String QUERY_AREAS_BY_TOKENS = "areas_findByTokens";
+
     /** Get areas by parent id */
     public static final String QUERY_AREA_BY_PARENT_ID = "areas_findByParentId";
 
+    /** Get nodes for an area and all of its descendants */
+    public static final String QUERY_AREA_SUBTREE = "areas_findSubtree";
+
+    /** Get values that change whenever the set of areas changes */
+    public static final String QUERY_AREA_VERSION_STAMP = "areas_versionStamp";
+
+    /** Get closure rows linking an area to its ancestors */
+    public static final String QUERY_AREA_CLOSURE_ANCESTORS = "areaClosures_findAncestors";
+
+    /** Get closure rows linking an area to its descendants */
+    public static final String QUERY_AREA_CLOSURE_DESCENDANTS = "areaClosures_findDescendants";
+
+    /** Delete closure rows between lists of ancestors and descendants */
+    public static final String QUERY_AREA_CLOSURE_DELETE_LINKS = "areaClosures_deleteLinks";
+
     /** Get zone by token */
     public static final String QUERY_ZONE_BY_TOKEN = "zones_findByToken";
 
+    /** Get metadata entries for a list of zone ids */
+    public static final String QUERY_ZONE_METADATA_BY_IDS = "zones_findMetadataByIds";
+
+    /** Get bounds for a list of zone ids */
+    public static final String QUERY_ZONE_BOUNDS_BY_IDS = "zones_findBoundsByIds";
+
     /** Get device group by token */
     public static final String QUERY_DEVICE_GROUP_BY_TOKEN = "deviceGroups_findByToken";
+
+
+    /** Get ids of device groups matching a list of tokens */
+    public static final String QUERY_DEVICE_GROUP_IDS_BY_TOKENS = "deviceGroups_findIdsByTokens";
+
+    /** Get ids of devices in a group that are among a list of device ids */
+    public static final String QUERY_DEVICE_GROUP_ELEMENT_DEVICE_IDS = "deviceGroupElements_findDeviceIds";
+
+    /** Get ids of nested groups in a group that are among a list of group ids */
+    public static final String QUERY_DEVICE_GROUP_ELEMENT_NESTED_GROUP_IDS = "deviceGroupElements_findNestedGroupIds";
+
+    /** Get ids of groups nested in a list of groups */
+    public static final String QUERY_DEVICE_GROUP_NESTED_IDS = "deviceGroupElements_nestedIds";
+
+    /** Get ids of groups nested in a list of groups with one of a list of roles */
+    public static final String QUERY_DEVICE_GROUP_NESTED_IDS_WITH_ROLES = "deviceGroupElements_nestedIdsWithRoles";
+
+    /** Get a page of distinct ids of devices in a list of groups */
+    public static final String QUERY_DEVICE_GROUP_MEMBER_IDS = "deviceGroupElements_memberIds";
+
+    /** Get a page of distinct ids of devices in a list of groups with one of a list of roles */
+    public static final String QUERY_DEVICE_GROUP_MEMBER_IDS_WITH_ROLES = "deviceGroupElements_memberIdsWithRoles";
+
+    /** Get device alarms matching a list of ids */
+    public static final String QUERY_DEVICE_ALARMS_BY_IDS = "deviceAlarms_findByIds";
+
+    /** Get open alarms for a list of assignments triggered since a date */
+    public static final String QUERY_DEVICE_ALARMS_FOR_DEDUPLICATION = "deviceAlarms_findForDeduplication";
+
+    /** Take a transaction-level advisory lock for an alarm de-duplication key */
+    public static final String QUERY_DEVICE_ALARM_DEDUPLICATION_LOCK = "deviceAlarms_deduplicationLock";
+
+    /** Add a delta to an open alarm counter (creating it if needed) */
+    public static final String QUERY_DEVICE_ALARM_COUNTER_INCREMENT = "deviceAlarmCounters_increment";
+
+    /** Create or update assignment summaries for a list of assignment ids */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_BY_IDS = "deviceAssignmentSummaries_refreshByIds";
+
+    /** Create or update assignment summaries for all assignments of a list of devices */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_BY_DEVICES = "deviceAssignmentSummaries_refreshByDevices";
+
+    /** Recalculate open alarm highlights for a list of assignment summaries */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_ALARMS = "deviceAssignmentSummaries_refreshAlarms";
+
+    /** Set asset display fields for summaries referencing an asset */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_ASSET = "deviceAssignmentSummaries_setAsset";
+
+    /** Set asset display fields for all summaries referencing an asset */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_ASSET_BY_ID = "deviceAssignmentSummaries_setAssetById";
+
+    /** Get ids of referenced assets that have no display fields, in id order */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_ASSETS_WITHOUT_NAMES = "deviceAssignmentSummaries_assetsWithoutNames";
+
+    /** Set device type display fields for summaries referencing a device type */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_DEVICE_TYPE = "deviceAssignmentSummaries_setDeviceType";
+
+    /** Set customer display fields for summaries referencing a customer */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_CUSTOMER = "deviceAssignmentSummaries_setCustomer";
+
+    /** Set area display fields for summaries referencing an area */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_AREA = "deviceAssignmentSummaries_setArea";
+
+    /** Delete summaries for a list of assignment ids */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_DELETE_BY_IDS = "deviceAssignmentSummaries_deleteByIds";
+
+    /** Delete summaries for a device */
+    public static final String QUERY_DEVICE_ASSIGNMENT_SUMMARY_DELETE_BY_DEVICE = "deviceAssignmentSummaries_deleteByDevice";
 }
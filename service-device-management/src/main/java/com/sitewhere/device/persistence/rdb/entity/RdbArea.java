@@ -50,7 +50,10 @@ import com.sitewhere.spi.area.IArea;
 @Table(name = "area", uniqueConstraints = @UniqueConstraint(columnNames = { "token" }))
 @NamedQueries({
 	@NamedQuery(name = Queries.QUERY_AREA_BY_TOKEN, query = "SELECT a FROM RdbArea a WHERE a.token = :token"),
-	@NamedQuery(name = Queries.QUERY_AREA_BY_PARENT_ID, query = "SELECT a FROM RdbArea a WHERE a.parentId = :parentId") })
+	@NamedQuery(name = Queries.QUERY_AREAS_BY_TOKENS, query = "SELECT a FROM RdbArea a WHERE a.token IN :tokens"),
+	@NamedQuery(name = Queries.QUERY_AREA_BY_PARENT_ID, query = "SELECT a FROM RdbArea a WHERE a.parentId = :parentId"),
+	@NamedQuery(name = Queries.QUERY_AREA_SUBTREE, query = "SELECT a.id, a.token, a.parentId, c.depth FROM RdbArea a, RdbAreaClosure c WHERE c.ancestorId = :ancestorId AND a.id = c.descendantId ORDER BY c.depth"),
+	@NamedQuery(name = Queries.QUERY_AREA_VERSION_STAMP, query = "SELECT COUNT(a), MAX(a.createdDate), MAX(a.updatedDate) FROM RdbArea a") })
 public class RdbArea extends RdbBrandedEntity implements IArea {
 
     /** Serial version UID */
@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.MappedSuperclass;
+
+/**
+ * Row of a hierarchy closure table. There is one row for every pair of an
+ * entity and one of its ancestors (including a row linking the entity to
+ * itself at depth zero), so all descendants of an entity can be found with a
+ * single indexed lookup.
+ */
+@MappedSuperclass
+@IdClass(RdbClosureEntry.Key.class)
+public abstract class RdbClosureEntry {
+
+    @Id
+    @Column(name = "ancestor_id", nullable = false)
+    private UUID ancestorId;
+
+    @Id
+    @Column(name = "descendant_id", nullable = false)
+    private UUID descendantId;
+
+    /** Number of levels between ancestor and descendant */
+    @Column(name = "depth", nullable = false)
+    private int depth;
+
+    public UUID getAncestorId() {
+	return ancestorId;
+    }
+
+    public void setAncestorId(UUID ancestorId) {
+	this.ancestorId = ancestorId;
+    }
+
+    public UUID getDescendantId() {
+	return descendantId;
+    }
+
+    public void setDescendantId(UUID descendantId) {
+	this.descendantId = descendantId;
+    }
+
+    public int getDepth() {
+	return depth;
+    }
+
+    public void setDepth(int depth) {
+	this.depth = depth;
+    }
+
+    /**
+     * Composite key of a closure row.
+     */
+    public static class Key implements Serializable {
+
+	/** Serial version UID */
+	private static final long serialVersionUID = 2473051290871531364L;
+
+	private UUID ancestorId;
+
+	private UUID descendantId;
+
+	public UUID getAncestorId() {
+	    return ancestorId;
+	}
+
+	public void setAncestorId(UUID ancestorId) {
+	    this.ancestorId = ancestorId;
+	}
+
+	public UUID getDescendantId() {
+	    return descendantId;
+	}
+
+	public void setDescendantId(UUID descendantId) {
+	    this.descendantId = descendantId;
+	}
+
+	/*
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+	    if (!(obj instanceof Key)) {
+		return false;
+	    }
+	    Key other = (Key) obj;
+	    return Objects.equals(ancestorId, other.ancestorId) && Objects.equals(descendantId, other.descendantId);
+	}
+
+	/*
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+	    return Objects.hash(ancestorId, descendantId);
+	}
+    }
+}
@@ -46,7 +46,10 @@ import com.sitewhere.spi.customer.ICustomer;
 @Table(name = "customer", uniqueConstraints = @UniqueConstraint(columnNames = { "token" }))
 @NamedQueries({
 	@NamedQuery(name = Queries.QUERY_CUSTOMER_BY_TOKEN, query = "SELECT c FROM RdbCustomer c WHERE c.token = :token"),
-	@NamedQuery(name = Queries.QUERY_CUSTOMER_BY_PARENT_ID, query = "SELECT c FROM RdbCustomer c WHERE c.parentId = :parentId") })
+	@NamedQuery(name = Queries.QUERY_CUSTOMERS_BY_TOKENS, query = "SELECT c FROM RdbCustomer c WHERE c.token IN :tokens"),
+	@NamedQuery(name = Queries.QUERY_CUSTOMER_BY_PARENT_ID, query = "SELECT c FROM RdbCustomer c WHERE c.parentId = :parentId"),
+	@NamedQuery(name = Queries.QUERY_CUSTOMER_SUBTREE, query = "SELECT c.id, c.token, c.parentId, cc.depth FROM RdbCustomer c, RdbCustomerClosure cc WHERE cc.ancestorId = :ancestorId AND c.id = cc.descendantId ORDER BY cc.depth"),
+	@NamedQuery(name = Queries.QUERY_CUSTOMER_VERSION_STAMP, query = "SELECT COUNT(c), MAX(c.createdDate), MAX(c.updatedDate) FROM RdbCustomer c") })
 public class RdbCustomer extends RdbBrandedEntity implements ICustomer {
 
     /** Serial version UID */
@@ -0,0 +1,30 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "customer_closure")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_CUSTOMER_CLOSURE_ANCESTORS, query = "SELECT c FROM RdbCustomerClosure c WHERE c.descendantId = :descendantId ORDER BY c.depth"),
+	@NamedQuery(name = Queries.QUERY_CUSTOMER_CLOSURE_DESCENDANTS, query = "SELECT c FROM RdbCustomerClosure c WHERE c.ancestorId = :ancestorId ORDER BY c.depth"),
+	@NamedQuery(name = Queries.QUERY_CUSTOMER_CLOSURE_DELETE_LINKS, query = "DELETE FROM RdbCustomerClosure c WHERE c.ancestorId IN :ancestorIds AND c.descendantId IN :descendantIds") })
+public class RdbCustomerClosure extends RdbClosureEntry {
+}
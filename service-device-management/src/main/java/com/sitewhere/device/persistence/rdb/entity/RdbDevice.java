@@ -33,6 +33,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
@@ -47,7 +48,12 @@ import com.sitewhere.spi.device.IDevice;
 
 @Entity
 @Table(name = "device", uniqueConstraints = @UniqueConstraint(columnNames = { "token" }))
-@NamedQuery(name = Queries.QUERY_DEVICE_BY_TOKEN, query = "SELECT d FROM RdbDevice d WHERE d.token = :token")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_DEVICE_BY_TOKEN, query = "SELECT DISTINCT d FROM RdbDevice d LEFT JOIN FETCH d.deviceElementMappings WHERE d.token = :token"),
+	@NamedQuery(name = Queries.QUERY_DEVICES_BY_TOKENS, query = "SELECT d FROM RdbDevice d WHERE d.token IN :tokens"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_IDS_BY_TOKENS, query = "SELECT d.token, d.id FROM RdbDevice d WHERE d.token IN :tokens"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_METADATA_BY_IDS, query = "SELECT d.id, KEY(m), VALUE(m) FROM RdbDevice d JOIN d.metadata m WHERE d.id IN :ids"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ELEMENT_MAPPINGS_BY_IDS, query = "SELECT m.device.id, m.deviceElementSchemaPath, m.deviceToken FROM RdbDeviceElementMapping m WHERE m.device.id IN :ids") })
 public class RdbDevice extends RdbPersistentEntity implements IDevice {
 
     /** Serialization version identifier */
@@ -74,7 +80,8 @@ public class RdbDevice extends RdbPersistentEntity implements IDevice {
     @JoinColumn(name = "parent_device_id", insertable = false, updatable = false)
     private RdbDevice parentDevice;
 
-    @OneToMany(cascade = { CascadeType.ALL }, fetch = FetchType.EAGER, mappedBy = "device")
+    @OneToMany(cascade = { CascadeType.ALL }, fetch = FetchType.LAZY, mappedBy = "device")
+    @Fetch(value = FetchMode.SUBSELECT)
     private List<RdbDeviceElementMapping> deviceElementMappings = new ArrayList<>();
 
     @JsonIgnore
@@ -89,7 +96,7 @@ public class RdbDevice extends RdbPersistentEntity implements IDevice {
     @Column(name = "status")
     private String status;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @Fetch(value = FetchMode.SUBSELECT)
     @CollectionTable(name = "device_metadata", joinColumns = @JoinColumn(name = "device_id"))
     @MapKeyColumn(name = "prop_key")
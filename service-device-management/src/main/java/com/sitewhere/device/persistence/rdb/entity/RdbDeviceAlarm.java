@@ -33,6 +33,10 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 import org.hibernate.annotations.Fetch;
@@ -44,6 +48,11 @@ import com.sitewhere.spi.device.IDeviceAlarm;
 
 @Entity
 @Table(name = "device_alarm")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_DEVICE_ALARMS_BY_IDS, query = "SELECT a FROM RdbDeviceAlarm a WHERE a.id IN :ids"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ALARMS_FOR_DEDUPLICATION, query = "SELECT a FROM RdbDeviceAlarm a WHERE a.deviceAssignmentId IN :assignmentIds AND a.state IN :states AND a.lastTriggeredDate >= :since ORDER BY a.lastTriggeredDate DESC") })
+@NamedNativeQueries({
+	@NamedNativeQuery(name = Queries.QUERY_DEVICE_ALARM_DEDUPLICATION_LOCK, query = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(:lockId)) l") })
 public class RdbDeviceAlarm implements IDeviceAlarm {
 
     @Id
@@ -68,6 +77,9 @@ public class RdbDeviceAlarm implements IDeviceAlarm {
     @JoinColumn(name = "device_assignment_id", insertable = false, updatable = false)
     private RdbDeviceAssignment deviceAssignment;
 
+    @Column(name = "device_type_id", nullable = true)
+    private UUID deviceTypeId;
+
     @Column(name = "customer_id", nullable = true)
     private UUID customerId;
 
@@ -112,6 +124,12 @@ public class RdbDeviceAlarm implements IDeviceAlarm {
     @Column(name = "resolved_date ")
     private Date resolvedDate;
 
+    @Column(name = "last_triggered_date")
+    private Date lastTriggeredDate;
+
+    @Column(name = "trigger_count", nullable = false)
+    private int triggerCount = 1;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @Fetch(value = FetchMode.SUBSELECT)
     @CollectionTable(name = "device_alarm_metadata", joinColumns = @JoinColumn(name = "device_alarm_id"))
@@ -158,6 +176,14 @@ public class RdbDeviceAlarm implements IDeviceAlarm {
     /*
      * @see com.sitewhere.spi.device.IDeviceAlarm#getCustomerId()
      */
+    public UUID getDeviceTypeId() {
+	return deviceTypeId;
+    }
+
+    public void setDeviceTypeId(UUID deviceTypeId) {
+	this.deviceTypeId = deviceTypeId;
+    }
+
     @Override
     public UUID getCustomerId() {
 	return customerId;
@@ -266,6 +292,22 @@ public class RdbDeviceAlarm implements IDeviceAlarm {
     /*
      * @see com.sitewhere.spi.common.IMetadataProvider#getMetadata()
      */
+    public Date getLastTriggeredDate() {
+	return lastTriggeredDate;
+    }
+
+    public void setLastTriggeredDate(Date lastTriggeredDate) {
+	this.lastTriggeredDate = lastTriggeredDate;
+    }
+
+    public int getTriggerCount() {
+	return triggerCount;
+    }
+
+    public void setTriggerCount(int triggerCount) {
+	this.triggerCount = triggerCount;
+    }
+
     @Override
     public Map<String, String> getMetadata() {
 	return metadata;
@@ -0,0 +1,182 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.Table;
+
+import com.sitewhere.spi.device.DeviceAlarmState;
+
+/**
+ * Number of open alarms for an area, device type and state. Rows are adjusted
+ * in the same transaction as the alarms they count, so dashboards can read
+ * open alarm totals without scanning the alarm table. Alarms without an area
+ * are counted against {@link #NO_AREA}.
+ */
+@Entity
+@Table(name = "device_alarm_counter")
+@IdClass(RdbDeviceAlarmCounter.Key.class)
+@NamedNativeQueries({
+	@NamedNativeQuery(name = Queries.QUERY_DEVICE_ALARM_COUNTER_INCREMENT, query = "INSERT INTO device_alarm_counter (area_id, device_type_id, state, open_count) VALUES (:areaId, :deviceTypeId, :state, :delta) ON CONFLICT (area_id, device_type_id, state) DO UPDATE SET open_count = device_alarm_counter.open_count + EXCLUDED.open_count") })
+public class RdbDeviceAlarmCounter {
+
+    /** Area id used for alarms that are not associated with an area */
+    public static final UUID NO_AREA = new UUID(0L, 0L);
+
+    @Id
+    @Column(name = "area_id", nullable = false)
+    private UUID areaId;
+
+    @Id
+    @Column(name = "device_type_id", nullable = false)
+    private UUID deviceTypeId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false)
+    private DeviceAlarmState state;
+
+    @Column(name = "open_count", nullable = false)
+    private long openCount;
+
+    public UUID getAreaId() {
+	return areaId;
+    }
+
+    public void setAreaId(UUID areaId) {
+	this.areaId = areaId;
+    }
+
+    public UUID getDeviceTypeId() {
+	return deviceTypeId;
+    }
+
+    public void setDeviceTypeId(UUID deviceTypeId) {
+	this.deviceTypeId = deviceTypeId;
+    }
+
+    public DeviceAlarmState getState() {
+	return state;
+    }
+
+    public void setState(DeviceAlarmState state) {
+	this.state = state;
+    }
+
+    public long getOpenCount() {
+	return openCount;
+    }
+
+    public void setOpenCount(long openCount) {
+	this.openCount = openCount;
+    }
+
+    /**
+     * Primary key for counter rows. Keys sort by area, device type and state so
+     * that concurrent transactions update shared rows in the same order.
+     */
+    public static class Key implements Serializable, Comparable<Key> {
+
+	/** Serial version UID */
+	private static final long serialVersionUID = -4405385939617744236L;
+
+	private UUID areaId;
+
+	private UUID deviceTypeId;
+
+	private DeviceAlarmState state;
+
+	public Key() {
+	}
+
+	public Key(UUID areaId, UUID deviceTypeId, DeviceAlarmState state) {
+	    this.areaId = (areaId != null) ? areaId : NO_AREA;
+	    this.deviceTypeId = deviceTypeId;
+	    this.state = state;
+	}
+
+	public UUID getAreaId() {
+	    return areaId;
+	}
+
+	public void setAreaId(UUID areaId) {
+	    this.areaId = areaId;
+	}
+
+	public UUID getDeviceTypeId() {
+	    return deviceTypeId;
+	}
+
+	public void setDeviceTypeId(UUID deviceTypeId) {
+	    this.deviceTypeId = deviceTypeId;
+	}
+
+	public DeviceAlarmState getState() {
+	    return state;
+	}
+
+	public void setState(DeviceAlarmState state) {
+	    this.state = state;
+	}
+
+	/*
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	@Override
+	public int compareTo(Key other) {
+	    int result = areaId.compareTo(other.areaId);
+	    if (result == 0) {
+		result = deviceTypeId.compareTo(other.deviceTypeId);
+	    }
+	    if (result == 0) {
+		result = state.compareTo(other.state);
+	    }
+	    return result;
+	}
+
+	/*
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+	    if (!(obj instanceof Key)) {
+		return false;
+	    }
+	    Key other = (Key) obj;
+	    return Objects.equals(areaId, other.areaId) && Objects.equals(deviceTypeId, other.deviceTypeId)
+		    && state == other.state;
+	}
+
+	/*
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+	    return Objects.hash(areaId, deviceTypeId, state);
+	}
+    }
+}
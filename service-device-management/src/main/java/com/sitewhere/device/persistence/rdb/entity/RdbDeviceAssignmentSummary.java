@@ -27,6 +27,10 @@ import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
@@ -37,6 +41,19 @@ import com.sitewhere.spi.device.IDeviceAssignmentSummary;
 
 @Entity
 @Table(name = "device_assignment_summary")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_ASSET, query = "UPDATE RdbDeviceAssignmentSummary s SET s.assetName = :name, s.assetImageUrl = :imageUrl WHERE s.assetId = :assetId AND s.id IN :ids"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_ASSET_BY_ID, query = "UPDATE RdbDeviceAssignmentSummary s SET s.assetName = :name, s.assetImageUrl = :imageUrl WHERE s.assetId = :id"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_ASSETS_WITHOUT_NAMES, query = "SELECT DISTINCT s.assetId FROM RdbDeviceAssignmentSummary s WHERE s.assetId > :after AND s.assetName IS NULL ORDER BY s.assetId"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_DEVICE_TYPE, query = "UPDATE RdbDeviceAssignmentSummary s SET s.deviceTypeName = :name, s.deviceTypeImageUrl = :imageUrl WHERE s.deviceTypeId = :id"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_CUSTOMER, query = "UPDATE RdbDeviceAssignmentSummary s SET s.customerName = :name, s.customerImageUrl = :imageUrl WHERE s.customerId = :id"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_SET_AREA, query = "UPDATE RdbDeviceAssignmentSummary s SET s.areaName = :name, s.areaImageUrl = :imageUrl WHERE s.areaId = :id"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_DELETE_BY_IDS, query = "DELETE FROM RdbDeviceAssignmentSummary s WHERE s.id IN :ids"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_DELETE_BY_DEVICE, query = "DELETE FROM RdbDeviceAssignmentSummary s WHERE s.deviceId = :deviceId") })
+@NamedNativeQueries({
+	@NamedNativeQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_BY_IDS, query = "INSERT INTO device_assignment_summary (id, created_by, created_date, token, updated_by, updated_date, active_date, area_id, asset_id, customer_id, device_id, device_type_id, released_date, status, device_token, device_type_name, device_type_image_url, area_name, area_image_url, customer_name, customer_image_url) SELECT assn.id, assn.created_by, assn.created_date, assn.token, assn.updated_by, assn.updated_date, assn.active_date, assn.area_id, assn.asset_id, assn.customer_id, assn.device_id, assn.device_type_id, assn.released_date, assn.status, dev.token, devt.name, devt.image_url, area.name, area.image_url, cust.name, cust.image_url FROM device_assignment assn JOIN device dev ON assn.device_id = dev.id JOIN device_type devt ON assn.device_type_id = devt.id LEFT JOIN customer cust ON assn.customer_id = cust.id LEFT JOIN area area ON assn.area_id = area.id WHERE assn.id IN (:ids) ON CONFLICT (id) DO UPDATE SET created_by = EXCLUDED.created_by, created_date = EXCLUDED.created_date, token = EXCLUDED.token, updated_by = EXCLUDED.updated_by, updated_date = EXCLUDED.updated_date, active_date = EXCLUDED.active_date, area_id = EXCLUDED.area_id, asset_id = EXCLUDED.asset_id, customer_id = EXCLUDED.customer_id, device_id = EXCLUDED.device_id, device_type_id = EXCLUDED.device_type_id, released_date = EXCLUDED.released_date, status = EXCLUDED.status, device_token = EXCLUDED.device_token, device_type_name = EXCLUDED.device_type_name, device_type_image_url = EXCLUDED.device_type_image_url, area_name = EXCLUDED.area_name, area_image_url = EXCLUDED.area_image_url, customer_name = EXCLUDED.customer_name, customer_image_url = EXCLUDED.customer_image_url, asset_name = CASE WHEN device_assignment_summary.asset_id IS DISTINCT FROM EXCLUDED.asset_id THEN NULL ELSE device_assignment_summary.asset_name END, asset_image_url = CASE WHEN device_assignment_summary.asset_id IS DISTINCT FROM EXCLUDED.asset_id THEN NULL ELSE device_assignment_summary.asset_image_url END"),
+	@NamedNativeQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_BY_DEVICES, query = "INSERT INTO device_assignment_summary (id, created_by, created_date, token, updated_by, updated_date, active_date, area_id, asset_id, customer_id, device_id, device_type_id, released_date, status, device_token, device_type_name, device_type_image_url, area_name, area_image_url, customer_name, customer_image_url) SELECT assn.id, assn.created_by, assn.created_date, assn.token, assn.updated_by, assn.updated_date, assn.active_date, assn.area_id, assn.asset_id, assn.customer_id, assn.device_id, assn.device_type_id, assn.released_date, assn.status, dev.token, devt.name, devt.image_url, area.name, area.image_url, cust.name, cust.image_url FROM device_assignment assn JOIN device dev ON assn.device_id = dev.id JOIN device_type devt ON assn.device_type_id = devt.id LEFT JOIN customer cust ON assn.customer_id = cust.id LEFT JOIN area area ON assn.area_id = area.id WHERE assn.device_id IN (:deviceIds) ON CONFLICT (id) DO UPDATE SET created_by = EXCLUDED.created_by, created_date = EXCLUDED.created_date, token = EXCLUDED.token, updated_by = EXCLUDED.updated_by, updated_date = EXCLUDED.updated_date, active_date = EXCLUDED.active_date, area_id = EXCLUDED.area_id, asset_id = EXCLUDED.asset_id, customer_id = EXCLUDED.customer_id, device_id = EXCLUDED.device_id, device_type_id = EXCLUDED.device_type_id, released_date = EXCLUDED.released_date, status = EXCLUDED.status, device_token = EXCLUDED.device_token, device_type_name = EXCLUDED.device_type_name, device_type_image_url = EXCLUDED.device_type_image_url, area_name = EXCLUDED.area_name, area_image_url = EXCLUDED.area_image_url, customer_name = EXCLUDED.customer_name, customer_image_url = EXCLUDED.customer_image_url, asset_name = CASE WHEN device_assignment_summary.asset_id IS DISTINCT FROM EXCLUDED.asset_id THEN NULL ELSE device_assignment_summary.asset_name END, asset_image_url = CASE WHEN device_assignment_summary.asset_id IS DISTINCT FROM EXCLUDED.asset_id THEN NULL ELSE device_assignment_summary.asset_image_url END"),
+	@NamedNativeQuery(name = Queries.QUERY_DEVICE_ASSIGNMENT_SUMMARY_REFRESH_ALARMS, query = "UPDATE device_assignment_summary s SET open_alarm_count = (SELECT COUNT(*) FROM device_alarm a WHERE a.device_assignment_id = s.id AND a.state IN ('Triggered', 'Acknowledged')), last_alarm_date = (SELECT MAX(a.last_triggered_date) FROM device_alarm a WHERE a.device_assignment_id = s.id AND a.state IN ('Triggered', 'Acknowledged')) WHERE s.id IN (:ids)") })
 public class RdbDeviceAssignmentSummary extends RdbPersistentEntity implements IDeviceAssignmentSummary {
 
     /** Serial version UID */
@@ -88,10 +105,10 @@ public class RdbDeviceAssignmentSummary extends RdbPersistentEntity implements I
     @Column(name = "asset_id", nullable = true)
     private UUID assetId;
 
-    @Transient
+    @Column(name = "asset_name")
     private String assetName;
 
-    @Transient
+    @Column(name = "asset_image_url")
     private String assetImageUrl;
 
     @Transient
@@ -110,6 +127,14 @@ public class RdbDeviceAssignmentSummary extends RdbPersistentEntity implements I
     @Column(name = "released_date")
     private Date releasedDate;
 
+    /** Number of open alarms for assignment */
+    @Column(name = "open_alarm_count", nullable = false)
+    private long openAlarmCount;
+
+    /** Date of most recent trigger for an open alarm */
+    @Column(name = "last_alarm_date")
+    private Date lastAlarmDate;
+
     /*
      * @see com.sitewhere.spi.common.IPersistentEntity#getId()
      */
@@ -335,6 +360,22 @@ public class RdbDeviceAssignmentSummary extends RdbPersistentEntity implements I
 	this.releasedDate = releasedDate;
     }
 
+    public long getOpenAlarmCount() {
+	return openAlarmCount;
+    }
+
+    public void setOpenAlarmCount(long openAlarmCount) {
+	this.openAlarmCount = openAlarmCount;
+    }
+
+    public Date getLastAlarmDate() {
+	return lastAlarmDate;
+    }
+
+    public void setLastAlarmDate(Date lastAlarmDate) {
+	this.lastAlarmDate = lastAlarmDate;
+    }
+
     /*
      * @see com.sitewhere.spi.common.IMetadataProvider#getMetadata()
      */
@@ -31,6 +31,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
@@ -45,7 +46,9 @@ import com.sitewhere.spi.device.group.IDeviceGroup;
 
 @Entity
 @Table(name = "device_group", uniqueConstraints = @UniqueConstraint(columnNames = { "token" }))
-@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_BY_TOKEN, query = "SELECT g FROM RdbDeviceGroup g WHERE g.token = :token")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_BY_TOKEN, query = "SELECT g FROM RdbDeviceGroup g WHERE g.token = :token"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_IDS_BY_TOKENS, query = "SELECT g.token, g.id FROM RdbDeviceGroup g WHERE g.token IN :tokens") })
 public class RdbDeviceGroup extends RdbBrandedEntity implements IDeviceGroup {
 
     /** Serial version UID */
@@ -32,6 +32,8 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 import org.hibernate.annotations.Fetch;
@@ -43,6 +45,13 @@ import com.sitewhere.spi.device.group.IDeviceGroupElement;
 
 @Entity
 @Table(name = "device_group_element")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_ELEMENT_DEVICE_IDS, query = "SELECT e.deviceId FROM RdbDeviceGroupElement e WHERE e.groupId = :groupId AND e.deviceId IN :deviceIds"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_ELEMENT_NESTED_GROUP_IDS, query = "SELECT e.nestedGroupId FROM RdbDeviceGroupElement e WHERE e.groupId = :groupId AND e.nestedGroupId IN :nestedGroupIds"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_NESTED_IDS, query = "SELECT DISTINCT e.nestedGroupId FROM RdbDeviceGroupElement e WHERE e.groupId IN :groupIds AND e.nestedGroupId IS NOT NULL"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_NESTED_IDS_WITH_ROLES, query = "SELECT DISTINCT e.nestedGroupId FROM RdbDeviceGroupElement e JOIN e.roles r WHERE e.groupId IN :groupIds AND e.nestedGroupId IS NOT NULL AND r IN :roles"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_MEMBER_IDS, query = "SELECT DISTINCT e.deviceId FROM RdbDeviceGroupElement e WHERE e.groupId IN :groupIds AND e.deviceId > :afterDeviceId ORDER BY e.deviceId"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_GROUP_MEMBER_IDS_WITH_ROLES, query = "SELECT DISTINCT e.deviceId FROM RdbDeviceGroupElement e JOIN e.roles r WHERE e.groupId IN :groupIds AND e.deviceId > :afterDeviceId AND r IN :roles ORDER BY e.deviceId") })
 public class RdbDeviceGroupElement extends RdbPersistentEntity implements IDeviceGroupElement {
 
     /** Serial version UID */
@@ -33,6 +33,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
@@ -49,7 +50,9 @@ import com.sitewhere.spi.device.IDeviceType;
 
 @Entity
 @Table(name = "device_type", uniqueConstraints = @UniqueConstraint(columnNames = { "token" }))
-@NamedQuery(name = Queries.QUERY_DEVICE_TYPE_BY_TOKEN, query = "SELECT t FROM RdbDeviceType t WHERE t.token = :token")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_DEVICE_TYPE_BY_TOKEN, query = "SELECT t FROM RdbDeviceType t WHERE t.token = :token"),
+	@NamedQuery(name = Queries.QUERY_DEVICE_TYPES_BY_TOKENS, query = "SELECT t FROM RdbDeviceType t WHERE t.token IN :tokens") })
 public class RdbDeviceType extends RdbBrandedEntity implements IDeviceType {
 
     /** Serial version UID */
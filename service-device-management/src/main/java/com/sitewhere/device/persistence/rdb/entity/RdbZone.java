@@ -32,6 +32,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKeyColumn;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
@@ -46,7 +47,10 @@ import com.sitewhere.spi.area.IZone;
 
 @Entity
 @Table(name = "zone", uniqueConstraints = @UniqueConstraint(columnNames = { "token" }))
-@NamedQuery(name = Queries.QUERY_ZONE_BY_TOKEN, query = "SELECT z FROM RdbZone z WHERE z.token = :token")
+@NamedQueries({
+	@NamedQuery(name = Queries.QUERY_ZONE_BY_TOKEN, query = "SELECT DISTINCT z FROM RdbZone z LEFT JOIN FETCH z.bounds WHERE z.token = :token"),
+	@NamedQuery(name = Queries.QUERY_ZONE_METADATA_BY_IDS, query = "SELECT z.id, KEY(m), VALUE(m) FROM RdbZone z JOIN z.metadata m WHERE z.id IN :ids"),
+	@NamedQuery(name = Queries.QUERY_ZONE_BOUNDS_BY_IDS, query = "SELECT b.zoneId, b.latitude, b.longitude, b.elevation FROM RdbZoneBoundary b WHERE b.zoneId IN :ids") })
 public class RdbZone extends RdbPersistentEntity implements IZone {
 
     /** Serial version UID */
@@ -66,7 +70,7 @@ public class RdbZone extends RdbPersistentEntity implements IZone {
     private String name;
 
     /** Zone bounds */
-    @OneToMany(cascade = { CascadeType.ALL }, fetch = FetchType.EAGER, mappedBy = "zone", orphanRemoval = true)
+    @OneToMany(cascade = { CascadeType.ALL }, fetch = FetchType.LAZY, mappedBy = "zone", orphanRemoval = true)
     @Fetch(value = FetchMode.SUBSELECT)
     private List<RdbZoneBoundary> bounds = new ArrayList<>();
 
@@ -86,7 +90,7 @@ public class RdbZone extends RdbPersistentEntity implements IZone {
     @Column(name = "fill_opacity")
     private Double fillOpacity;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @Fetch(value = FetchMode.SUBSELECT)
     @CollectionTable(name = "zone_metadata", joinColumns = @JoinColumn(name = "zone_id"))
     @MapKeyColumn(name = "prop_key")
@@ -0,0 +1,143 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.search;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+
+/**
+ * Search for device assignments. All criteria that are set must match. Area
+ * and customer filters include areas and customers nested below the one
+ * given. Assignments are ordered newest first by created date and id. The
+ * values from the last assignment of a page are passed as 'afterCreatedDate'
+ * and 'afterAssignmentId' to request the next page.
+ */
+public class DeviceAssignmentSearchRequest {
+
+    /** Text contained in assignment or device token (case-insensitive) */
+    private String text;
+
+    /** Metadata entries that must be present */
+    private List<MetadataPredicate> metadata = new ArrayList<>();
+
+    /** Only assignments for devices of this type are returned (null for all) */
+    private String deviceTypeToken;
+
+    /** Only assignments in this area or below it are returned */
+    private String areaToken;
+
+    /** Only assignments for this customer or below it are returned */
+    private String customerToken;
+
+    /** Only assignments with this status are returned (null for all) */
+    private DeviceAssignmentStatus status;
+
+    /** Created date of last assignment on previous page (null for first page) */
+    private Date afterCreatedDate;
+
+    /** Id of last assignment on previous page (null for first page) */
+    private UUID afterAssignmentId;
+
+    /** Maximum number of assignments returned */
+    private int pageSize;
+
+    /** Indicates whether metadata is loaded */
+    private boolean includeMetadata;
+
+    public String getText() {
+	return text;
+    }
+
+    public void setText(String text) {
+	this.text = text;
+    }
+
+    public List<MetadataPredicate> getMetadata() {
+	return metadata;
+    }
+
+    public void setMetadata(List<MetadataPredicate> metadata) {
+	this.metadata = metadata;
+    }
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+
+    public String getAreaToken() {
+	return areaToken;
+    }
+
+    public void setAreaToken(String areaToken) {
+	this.areaToken = areaToken;
+    }
+
+    public String getCustomerToken() {
+	return customerToken;
+    }
+
+    public void setCustomerToken(String customerToken) {
+	this.customerToken = customerToken;
+    }
+
+    public DeviceAssignmentStatus getStatus() {
+	return status;
+    }
+
+    public void setStatus(DeviceAssignmentStatus status) {
+	this.status = status;
+    }
+
+    public Date getAfterCreatedDate() {
+	return afterCreatedDate;
+    }
+
+    public void setAfterCreatedDate(Date afterCreatedDate) {
+	this.afterCreatedDate = afterCreatedDate;
+    }
+
+    public UUID getAfterAssignmentId() {
+	return afterAssignmentId;
+    }
+
+    public void setAfterAssignmentId(UUID afterAssignmentId) {
+	this.afterAssignmentId = afterAssignmentId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public boolean isIncludeMetadata() {
+	return includeMetadata;
+    }
+
+    public void setIncludeMetadata(boolean includeMetadata) {
+	this.includeMetadata = includeMetadata;
+    }
+}
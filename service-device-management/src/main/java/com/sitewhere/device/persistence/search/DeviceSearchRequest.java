@@ -0,0 +1,150 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.search;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Search for devices. All criteria that are set must match. Area and customer
+ * filters match devices with an active assignment to the area or customer or
+ * to one nested below it. Results are paged like device projections.
+ */
+public class DeviceSearchRequest {
+
+    /** Text contained in token or comments (case-insensitive) */
+    private String text;
+
+    /** Metadata entries that must be present */
+    private List<MetadataPredicate> metadata = new ArrayList<>();
+
+    /** Only devices of this type are returned (null for all) */
+    private String deviceTypeToken;
+
+    /** Only devices with this status are returned (null for all) */
+    private String status;
+
+    /** Only devices assigned in this area or below it are returned */
+    private String areaToken;
+
+    /** Only devices assigned to this customer or below it are returned */
+    private String customerToken;
+
+    /** Only devices in this assignment state are returned (null for all) */
+    private AssignmentState assignmentState;
+
+    /** Created date of last device on previous page (null for first page) */
+    private Date afterCreatedDate;
+
+    /** Id of last device on previous page (null for first page) */
+    private UUID afterDeviceId;
+
+    /** Maximum number of devices returned */
+    private int pageSize;
+
+    /** Indicates whether metadata is loaded */
+    private boolean includeMetadata;
+
+    public String getText() {
+	return text;
+    }
+
+    public void setText(String text) {
+	this.text = text;
+    }
+
+    public List<MetadataPredicate> getMetadata() {
+	return metadata;
+    }
+
+    public void setMetadata(List<MetadataPredicate> metadata) {
+	this.metadata = metadata;
+    }
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+
+    public String getStatus() {
+	return status;
+    }
+
+    public void setStatus(String status) {
+	this.status = status;
+    }
+
+    public String getAreaToken() {
+	return areaToken;
+    }
+
+    public void setAreaToken(String areaToken) {
+	this.areaToken = areaToken;
+    }
+
+    public String getCustomerToken() {
+	return customerToken;
+    }
+
+    public void setCustomerToken(String customerToken) {
+	this.customerToken = customerToken;
+    }
+
+    public AssignmentState getAssignmentState() {
+	return assignmentState;
+    }
+
+    public void setAssignmentState(AssignmentState assignmentState) {
+	this.assignmentState = assignmentState;
+    }
+
+    public Date getAfterCreatedDate() {
+	return afterCreatedDate;
+    }
+
+    public void setAfterCreatedDate(Date afterCreatedDate) {
+	this.afterCreatedDate = afterCreatedDate;
+    }
+
+    public UUID getAfterDeviceId() {
+	return afterDeviceId;
+    }
+
+    public void setAfterDeviceId(UUID afterDeviceId) {
+	this.afterDeviceId = afterDeviceId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public boolean isIncludeMetadata() {
+	return includeMetadata;
+    }
+
+    public void setIncludeMetadata(boolean includeMetadata) {
+	this.includeMetadata = includeMetadata;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.search;
+
+/**
+ * Matches entities with a metadata entry for a key. If a value is specified,
+ * the entry must have exactly that value.
+ */
+public class MetadataPredicate {
+
+    /** Metadata key */
+    private String key;
+
+    /** Metadata value (null to match any value) */
+    private String value;
+
+    public MetadataPredicate() {
+    }
+
+    public MetadataPredicate(String key, String value) {
+	this.key = key;
+	this.value = value;
+    }
+
+    public String getKey() {
+	return key;
+    }
+
+    public void setKey(String key) {
+	this.key = key;
+    }
+
+    public String getValue() {
+	return value;
+    }
+
+    public void setValue(String value) {
+	this.value = value;
+    }
+}
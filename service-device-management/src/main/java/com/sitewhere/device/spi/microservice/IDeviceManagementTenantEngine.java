@@ -15,8 +15,20 @@
  */
 package com.sitewhere.device.spi.microservice;
 
+import com.sitewhere.device.cache.CachedDeviceManagement;
 import com.sitewhere.device.configuration.DeviceManagementTenantConfiguration;
+import com.sitewhere.device.grpc.DeviceAlarmImpl;
+import com.sitewhere.device.grpc.DeviceBulkImpl;
+import com.sitewhere.device.grpc.DeviceGroupImpl;
+import com.sitewhere.device.grpc.DeviceHierarchyImpl;
+import com.sitewhere.device.grpc.DeviceLookupImpl;
+import com.sitewhere.device.grpc.DeviceProjectionImpl;
+import com.sitewhere.device.grpc.DeviceSearchImpl;
+import com.sitewhere.device.spi.kafka.IAssetChangesConsumer;
 import com.sitewhere.device.spi.kafka.IDeviceInteractionEventsProducer;
+import com.sitewhere.device.spi.kafka.IReferenceEntityChangesConsumer;
+import com.sitewhere.device.spi.kafka.IReferenceEntityChangesProducer;
+import com.sitewhere.device.spi.persistence.IDeviceProjectionManagement;
 import com.sitewhere.grpc.service.DeviceManagementGrpc;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
@@ -42,6 +54,59 @@ public interface IDeviceManagementTenantEngine extends IMicroserviceTenantEngine
      */
     public DeviceManagementGrpc.DeviceManagementImplBase getDeviceManagementImpl();
 
+    /**
+     * Get implementation class that handles bulk device GRPC requests.
+     * 
+     * @return
+     */
+    public DeviceBulkImpl getDeviceBulkImpl();
+
+    /**
+     * Get implementation class that handles area and customer hierarchy GRPC
+     * requests.
+     * 
+     * @return
+     */
+    public DeviceHierarchyImpl getDeviceHierarchyImpl();
+
+    /**
+     * Get implementation class that handles device group membership GRPC
+     * requests.
+     * 
+     * @return
+     */
+    public DeviceGroupImpl getDeviceGroupImpl();
+
+    /**
+     * Get implementation class that handles projection-based list GRPC requests.
+     * 
+     * @return
+     */
+    public DeviceProjectionImpl getDeviceProjectionImpl();
+
+    /**
+     * Get implementation class that handles device and assignment search GRPC
+     * requests.
+     * 
+     * @return
+     */
+    public DeviceSearchImpl getDeviceSearchImpl();
+
+    /**
+     * Get implementation class that handles bulk alarm and alarm count GRPC
+     * requests.
+     * 
+     * @return
+     */
+    public DeviceAlarmImpl getDeviceAlarmImpl();
+
+    /**
+     * Get implementation class that handles batch lookup GRPC requests.
+     * 
+     * @return
+     */
+    public DeviceLookupImpl getDeviceLookupImpl();
+
     /**
      * Get Kafka producer for events generated by device interactions.
      * 
@@ -49,6 +114,42 @@ public interface IDeviceManagementTenantEngine extends IMicroserviceTenantEngine
      */
     public IDeviceInteractionEventsProducer getDeviceInteractionEventsProducer();
 
+    /**
+     * Get decorator that caches reference entities (null if caching is
+     * disabled).
+     * 
+     * @return
+     */
+    public CachedDeviceManagement getCachedDeviceManagement();
+
+    /**
+     * Get Kafka producer for changes to cached reference entities.
+     * 
+     * @return
+     */
+    public IReferenceEntityChangesProducer getReferenceEntityChangesProducer();
+
+    /**
+     * Get Kafka consumer for changes to cached reference entities.
+     * 
+     * @return
+     */
+    public IReferenceEntityChangesConsumer getReferenceEntityChangesConsumer();
+
+    /**
+     * Get Kafka consumer for asset changes published by asset management.
+     * 
+     * @return
+     */
+    public IAssetChangesConsumer getAssetChangesConsumer();
+
+    /**
+     * Get projection operations, including upkeep of assignment summaries.
+     * 
+     * @return
+     */
+    public IDeviceProjectionManagement getDeviceProjectionManagement();
+
     /**
      * Get provider which provides an RDB entity manager for this tenant.
      * 
@@ -0,0 +1,39 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.spi.persistence;
+
+import com.sitewhere.device.persistence.bulk.DeviceBulkRequest;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResponse;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Device management operations that create or update many devices in one
+ * call.
+ */
+public interface IBulkDeviceManagement {
+
+    /**
+     * Create or update devices (and optionally their assignments) in bulk.
+     * Referenced device types, customers, areas and assets are resolved once
+     * for the whole request. Entries that fail validation are reported in the
+     * response and do not prevent other entries from being stored.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceBulkResponse bulkProvisionDevices(DeviceBulkRequest request) throws SiteWhereException;
+}
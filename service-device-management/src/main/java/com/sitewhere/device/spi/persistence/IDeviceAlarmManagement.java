@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.spi.persistence;
+
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkResponse;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCountRequest;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCounts;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Device management operations that change the state of many alarms at once
+ * and report open alarm counts maintained as alarms are written.
+ */
+public interface IDeviceAlarmManagement {
+
+    /**
+     * Raise, acknowledge or resolve many alarms in one call.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceAlarmBulkResponse bulkUpdateDeviceAlarms(DeviceAlarmBulkRequest request) throws SiteWhereException;
+
+    /**
+     * Get open alarm counts by area, device type and state.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceAlarmCounts getOpenDeviceAlarmCounts(DeviceAlarmCountRequest request) throws SiteWhereException;
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.spi.persistence;
+
+import com.sitewhere.device.persistence.group.DeviceGroupMembersPage;
+import com.sitewhere.device.persistence.group.DeviceGroupMembersRequest;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Device management operations that resolve device group membership on the
+ * server rather than paging group elements and recursing into nested groups
+ * from the caller.
+ */
+public interface IDeviceGroupManagement {
+
+    /**
+     * Get a page of distinct ids for devices in the requested groups and all
+     * groups nested below them. If roles are specified, only elements with one
+     * of the roles are followed at each level.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceGroupMembersPage resolveDeviceGroupMembers(DeviceGroupMembersRequest request)
+	    throws SiteWhereException;
+}
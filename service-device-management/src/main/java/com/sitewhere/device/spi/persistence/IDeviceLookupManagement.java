@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.spi.persistence;
+
+import com.sitewhere.device.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.device.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Device management operations that load many entities by id or token in a
+ * single call. Each call is answered by one query.
+ */
+public interface IDeviceLookupManagement {
+
+    /**
+     * Get devices by id or token.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupDevices(EntityLookupRequest request) throws SiteWhereException;
+
+    /**
+     * Get device assignments by id or token.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupDeviceAssignments(EntityLookupRequest request) throws SiteWhereException;
+
+    /**
+     * Get device types by id or token.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupDeviceTypes(EntityLookupRequest request) throws SiteWhereException;
+
+    /**
+     * Get device commands by id, or by token within a device type.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupDeviceCommands(EntityLookupRequest request) throws SiteWhereException;
+
+    /**
+     * Get customers by id or token.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupCustomers(EntityLookupRequest request) throws SiteWhereException;
+
+    /**
+     * Get areas by id or token.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EntityLookupResponse lookupAreas(EntityLookupRequest request) throws SiteWhereException;
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.spi.persistence;
+
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryPage;
+import com.sitewhere.device.persistence.projection.DeviceAssignmentSummaryRequest;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionRequest;
+import com.sitewhere.device.persistence.projection.ZoneProjectionPage;
+import com.sitewhere.device.persistence.projection.ZoneProjectionRequest;
+import com.sitewhere.spi.SiteWhereException;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Device management operations that read only the columns needed for list
+ * views. Collections are loaded only when requested, with one query per
+ * collection for the whole page.
+ */
+public interface IDeviceProjectionManagement {
+
+    /**
+     * Get a page of device projections.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceProjectionPage listDeviceProjections(DeviceProjectionRequest request) throws SiteWhereException;
+
+    /**
+     * Get a page of zone projections for an area.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public ZoneProjectionPage listZoneProjections(ZoneProjectionRequest request) throws SiteWhereException;
+
+    /**
+     * Get a page of device assignment summaries with display fields and open
+     * alarm highlights.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceAssignmentSummaryPage listDeviceAssignmentSummaryProjections(DeviceAssignmentSummaryRequest request)
+	    throws SiteWhereException;
+
+    /**
+     * Copy current asset names and images to the assignment summaries that
+     * reference the given assets.
+     * 
+     * @param assetIds
+     * @throws SiteWhereException
+     */
+    public void refreshAssignmentSummaryAssets(List<UUID> assetIds) throws SiteWhereException;
+
+    /**
+     * Fill asset names and images for assignment summaries that do not have
+     * them, such as rows created by the summary table migration.
+     * 
+     * @return number of assets that were looked up
+     * @throws SiteWhereException
+     */
+    public int backfillAssignmentSummaryAssets() throws SiteWhereException;
+}
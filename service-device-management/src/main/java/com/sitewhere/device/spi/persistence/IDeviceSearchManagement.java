@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.spi.persistence;
+
+import com.sitewhere.device.persistence.projection.DeviceAssignmentProjectionPage;
+import com.sitewhere.device.persistence.projection.DeviceProjectionPage;
+import com.sitewhere.device.persistence.search.DeviceAssignmentSearchRequest;
+import com.sitewhere.device.persistence.search.DeviceSearchRequest;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Device management operations that search devices and assignments by text,
+ * metadata and related entities using indexed queries.
+ */
+public interface IDeviceSearchManagement {
+
+    /**
+     * Get a page of devices matching a search.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceProjectionPage searchDevices(DeviceSearchRequest request) throws SiteWhereException;
+
+    /**
+     * Get a page of device assignments matching a search.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public DeviceAssignmentProjectionPage searchDeviceAssignments(DeviceAssignmentSearchRequest request)
+	    throws SiteWhereException;
+}
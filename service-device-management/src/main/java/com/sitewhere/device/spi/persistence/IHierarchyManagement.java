@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.spi.persistence;
+
+import java.util.List;
+
+import com.sitewhere.device.persistence.hierarchy.HierarchyNode;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Device management operations that resolve area and customer subtrees from
+ * materialized hierarchy data rather than walking one level at a time.
+ */
+public interface IHierarchyManagement {
+
+    /**
+     * Get an area and all areas nested below it, ordered by depth. Returns an
+     * empty list if the token is not found.
+     * 
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<HierarchyNode> getAreaSubtree(String token) throws SiteWhereException;
+
+    /**
+     * Get a customer and all customers nested below it, ordered by depth.
+     * Returns an empty list if the token is not found.
+     * 
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<HierarchyNode> getCustomerSubtree(String token) throws SiteWhereException;
+}
@@ -0,0 +1,5 @@
+create index IDX_device_created_keyset 
+	on devicemanagement.device (created_date desc, id desc);
+
+create index IDX_device_type_created_keyset 
+	on devicemanagement.device (device_type_id, created_date desc, id desc);
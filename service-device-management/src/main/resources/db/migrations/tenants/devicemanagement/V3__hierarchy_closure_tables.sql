@@ -0,0 +1,47 @@
+create table devicemanagement.area_closure (
+	ancestor_id uuid not null, 
+	descendant_id uuid not null, 
+	depth int4 not null, 
+	primary key (ancestor_id, descendant_id)
+);
+
+alter table if exists devicemanagement.area_closure 
+	add constraint FK_area_closure_ancestor foreign key (ancestor_id) references devicemanagement.area;
+alter table if exists devicemanagement.area_closure 
+	add constraint FK_area_closure_descendant foreign key (descendant_id) references devicemanagement.area;
+
+create index IDX_area_closure_descendant 
+	on devicemanagement.area_closure (descendant_id, depth);
+
+create table devicemanagement.customer_closure (
+	ancestor_id uuid not null, 
+	descendant_id uuid not null, 
+	depth int4 not null, 
+	primary key (ancestor_id, descendant_id)
+);
+
+alter table if exists devicemanagement.customer_closure 
+	add constraint FK_customer_closure_ancestor foreign key (ancestor_id) references devicemanagement.customer;
+alter table if exists devicemanagement.customer_closure 
+	add constraint FK_customer_closure_descendant foreign key (descendant_id) references devicemanagement.customer;
+
+create index IDX_customer_closure_descendant 
+	on devicemanagement.customer_closure (descendant_id, depth);
+
+insert into devicemanagement.area_closure (ancestor_id, descendant_id, depth) 
+	with recursive paths (ancestor_id, descendant_id, depth) as (
+		select id, id, 0 from devicemanagement.area 
+		union all 
+		select p.ancestor_id, a.id, p.depth + 1 from paths p 
+			join devicemanagement.area a on a.parent_id = p.descendant_id
+	) 
+	select ancestor_id, descendant_id, depth from paths;
+
+insert into devicemanagement.customer_closure (ancestor_id, descendant_id, depth) 
+	with recursive paths (ancestor_id, descendant_id, depth) as (
+		select id, id, 0 from devicemanagement.customer 
+		union all 
+		select p.ancestor_id, c.id, p.depth + 1 from paths p 
+			join devicemanagement.customer c on c.parent_id = p.descendant_id
+	) 
+	select ancestor_id, descendant_id, depth from paths;
@@ -0,0 +1,8 @@
+create index IDX_device_group_element_device 
+	on devicemanagement.device_group_element (group_id, device_id);
+
+create index IDX_device_group_element_nested_group 
+	on devicemanagement.device_group_element (group_id, nested_group_id);
+
+create index IDX_device_group_element_roles_element 
+	on devicemanagement.device_group_element_roles (device_group_element_id, role);
@@ -0,0 +1,31 @@
+create extension if not exists pg_trgm;
+
+create index IDX_device_token_trgm 
+	on devicemanagement.device using gin (lower(token) gin_trgm_ops);
+
+create index IDX_device_comments_trgm 
+	on devicemanagement.device using gin (lower(comments) gin_trgm_ops);
+
+create index IDX_device_status_created_keyset 
+	on devicemanagement.device (status, created_date desc, id desc);
+
+create index IDX_device_metadata_key_value 
+	on devicemanagement.device_metadata (prop_key, prop_value, device_id);
+
+create index IDX_device_assignment_token_trgm 
+	on devicemanagement.device_assignment using gin (lower(token) gin_trgm_ops);
+
+create index IDX_device_assignment_created_keyset 
+	on devicemanagement.device_assignment (created_date desc, id desc);
+
+create index IDX_device_assignment_device_status 
+	on devicemanagement.device_assignment (device_id, status);
+
+create index IDX_device_assignment_area_status 
+	on devicemanagement.device_assignment (area_id, status, device_id);
+
+create index IDX_device_assignment_customer_status 
+	on devicemanagement.device_assignment (customer_id, status, device_id);
+
+create index IDX_device_assignment_metadata_key_value 
+	on devicemanagement.device_assignment_metadata (prop_key, prop_value, device_assignment_id);
@@ -0,0 +1,34 @@
+alter table devicemanagement.device_alarm 
+	add column device_type_id uuid;
+alter table devicemanagement.device_alarm 
+	add column last_triggered_date timestamp;
+alter table devicemanagement.device_alarm 
+	add column trigger_count int4 not null default 1;
+
+update devicemanagement.device_alarm a 
+	set device_type_id = d.device_type_id 
+	from devicemanagement.device d 
+	where d.id = a.device_id;
+update devicemanagement.device_alarm 
+	set last_triggered_date = triggered_date;
+
+create index IDX_device_alarm_open_by_assignment 
+	on devicemanagement.device_alarm (device_assignment_id, last_triggered_date desc) 
+	where state in ('Triggered', 'Acknowledged');
+
+create table devicemanagement.device_alarm_counter (
+	area_id uuid not null, 
+	device_type_id uuid not null, 
+	state varchar(255) not null, 
+	open_count int8 not null, 
+	primary key (area_id, device_type_id, state)
+);
+
+create index IDX_device_alarm_counter_device_type 
+	on devicemanagement.device_alarm_counter (device_type_id, state);
+
+insert into devicemanagement.device_alarm_counter (area_id, device_type_id, state, open_count) 
+	select coalesce(area_id, '00000000-0000-0000-0000-000000000000'), device_type_id, state, count(*) 
+	from devicemanagement.device_alarm 
+	where state in ('Triggered', 'Acknowledged') and device_type_id is not null 
+	group by coalesce(area_id, '00000000-0000-0000-0000-000000000000'), device_type_id, state;
@@ -0,0 +1,66 @@
+drop view if exists devicemanagement.device_assignment_summary;
+
+create table devicemanagement.device_assignment_summary (
+	id uuid not null, 
+	created_by varchar(255), 
+	created_date timestamp, 
+	token varchar(255), 
+	updated_by varchar(255), 
+	updated_date timestamp, 
+	active_date timestamp, 
+	area_id uuid, 
+	asset_id uuid, 
+	customer_id uuid, 
+	device_id uuid not null, 
+	device_type_id uuid not null, 
+	released_date timestamp, 
+	status varchar(255), 
+	device_token varchar(255), 
+	device_type_name varchar(255), 
+	device_type_image_url varchar(255), 
+	area_name varchar(255), 
+	area_image_url varchar(255), 
+	customer_name varchar(255), 
+	customer_image_url varchar(255), 
+	asset_name varchar(255), 
+	asset_image_url varchar(255), 
+	open_alarm_count int8 not null default 0, 
+	last_alarm_date timestamp, 
+	primary key (id)
+);
+
+insert into devicemanagement.device_assignment_summary (id, created_by, created_date, token, updated_by, 
+	updated_date, active_date, area_id, asset_id, customer_id, device_id, device_type_id, released_date, status, 
+	device_token, device_type_name, device_type_image_url, area_name, area_image_url, customer_name, 
+	customer_image_url, open_alarm_count, last_alarm_date) 
+	select assn.id, assn.created_by, assn.created_date, assn.token, assn.updated_by, assn.updated_date, 
+		assn.active_date, assn.area_id, assn.asset_id, assn.customer_id, assn.device_id, assn.device_type_id, 
+		assn.released_date, assn.status, dev.token, devt.name, devt.image_url, area.name, area.image_url, 
+		cust.name, cust.image_url, 
+		(select count(*) from devicemanagement.device_alarm alarm 
+			where alarm.device_assignment_id = assn.id and alarm.state in ('Triggered', 'Acknowledged')), 
+		(select max(alarm.last_triggered_date) from devicemanagement.device_alarm alarm 
+			where alarm.device_assignment_id = assn.id and alarm.state in ('Triggered', 'Acknowledged')) 
+			from devicemanagement.device_assignment assn 
+			join devicemanagement.device dev on assn.device_id = dev.id 
+			join devicemanagement.device_type devt on assn.device_type_id = devt.id 
+			left join devicemanagement.customer cust on assn.customer_id = cust.id 
+			left join devicemanagement.area area on assn.area_id = area.id;
+
+create index IDX_device_assignment_summary_created 
+	on devicemanagement.device_assignment_summary (created_date desc, id desc);
+create index IDX_device_assignment_summary_status 
+	on devicemanagement.device_assignment_summary (status, created_date desc, id desc);
+create index IDX_device_assignment_summary_device 
+	on devicemanagement.device_assignment_summary (device_id);
+create index IDX_device_assignment_summary_device_type 
+	on devicemanagement.device_assignment_summary (device_type_id, created_date desc, id desc);
+create index IDX_device_assignment_summary_area 
+	on devicemanagement.device_assignment_summary (area_id, created_date desc, id desc);
+create index IDX_device_assignment_summary_customer 
+	on devicemanagement.device_assignment_summary (customer_id, created_date desc, id desc);
+create index IDX_device_assignment_summary_asset 
+	on devicemanagement.device_assignment_summary (asset_id);
+create index IDX_device_assignment_summary_open_alarms 
+	on devicemanagement.device_assignment_summary (created_date desc, id desc) 
+	where open_alarm_count > 0;
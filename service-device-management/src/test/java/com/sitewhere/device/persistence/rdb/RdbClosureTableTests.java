@@ -0,0 +1,212 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbArea;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaClosure;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaType;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Test cases for maintaining hierarchy closure rows.
+ */
+public class RdbClosureTableTests {
+
+    @Test
+    public void testInsertLinksAllAncestors() throws Exception {
+	Map<String, UUID> ids = createAreas();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbClosureTable<RdbAreaClosure> closure = closure(entityManager);
+	    Map<UUID, Integer> descendants = depths(closure, ids.get("root"));
+	    assertEquals(3, descendants.size());
+	    assertEquals(Integer.valueOf(0), descendants.get(ids.get("root")));
+	    assertEquals(Integer.valueOf(1), descendants.get(ids.get("child")));
+	    assertEquals(Integer.valueOf(2), descendants.get(ids.get("grandchild")));
+	    assertEquals(3, closure.getSubtree(ids.get("root")).size());
+	    return null;
+	});
+    }
+
+    @Test
+    public void testMoveRelinksSubtree() throws Exception {
+	Map<String, UUID> ids = createAreas();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    closure(entityManager).move(ids.get("child"), ids.get("other"));
+	    return null;
+	});
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbClosureTable<RdbAreaClosure> closure = closure(entityManager);
+	    Map<UUID, Integer> root = depths(closure, ids.get("root"));
+	    assertEquals(1, root.size());
+	    assertTrue(root.containsKey(ids.get("root")));
+
+	    Map<UUID, Integer> other = depths(closure, ids.get("other"));
+	    assertEquals(3, other.size());
+	    assertEquals(Integer.valueOf(1), other.get(ids.get("child")));
+	    assertEquals(Integer.valueOf(2), other.get(ids.get("grandchild")));
+
+	    Map<UUID, Integer> ancestors = new HashMap<>();
+	    for (RdbAreaClosure row : closure.getAncestors(ids.get("grandchild"))) {
+		ancestors.put(row.getAncestorId(), row.getDepth());
+	    }
+	    assertEquals(3, ancestors.size());
+	    assertEquals(Integer.valueOf(2), ancestors.get(ids.get("other")));
+	    assertEquals(Integer.valueOf(1), ancestors.get(ids.get("child")));
+	    assertEquals(Integer.valueOf(0), ancestors.get(ids.get("grandchild")));
+	    return null;
+	});
+    }
+
+    @Test
+    public void testMoveToRootKeepsSubtree() throws Exception {
+	Map<String, UUID> ids = createAreas();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    closure(entityManager).move(ids.get("child"), null);
+	    return null;
+	});
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbClosureTable<RdbAreaClosure> closure = closure(entityManager);
+	    assertEquals(1, depths(closure, ids.get("root")).size());
+	    Map<UUID, Integer> child = depths(closure, ids.get("child"));
+	    assertEquals(2, child.size());
+	    assertEquals(Integer.valueOf(1), child.get(ids.get("grandchild")));
+	    assertEquals(2, closure.getAncestors(ids.get("grandchild")).size());
+	    return null;
+	});
+    }
+
+    @Test(expected = SiteWhereException.class)
+    public void testMoveBelowDescendantRejected() throws Exception {
+	Map<String, UUID> ids = createAreas();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    closure(entityManager).move(ids.get("root"), ids.get("grandchild"));
+	    return null;
+	});
+    }
+
+    @Test
+    public void testRemoveDeletesSubtreeLinks() throws Exception {
+	Map<String, UUID> ids = createAreas();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    closure(entityManager).remove(ids.get("child"));
+	    return null;
+	});
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbClosureTable<RdbAreaClosure> closure = closure(entityManager);
+	    Map<UUID, Integer> root = depths(closure, ids.get("root"));
+	    assertEquals(1, root.size());
+	    assertTrue(root.containsKey(ids.get("root")));
+	    assertEquals(0, closure.getDescendants(ids.get("child")).size());
+	    assertEquals(0, closure.getAncestors(ids.get("grandchild")).size());
+	    return null;
+	});
+    }
+
+    /**
+     * Create an area closure table that uses the given entity manager.
+     * 
+     * @param entityManager
+     * @return
+     */
+    protected static RdbClosureTable<RdbAreaClosure> closure(EntityManager entityManager) {
+	return new RdbClosureTable<RdbAreaClosure>(null, RdbAreaClosure::new, Queries.QUERY_AREA_CLOSURE_ANCESTORS,
+		Queries.QUERY_AREA_CLOSURE_DESCENDANTS, Queries.QUERY_AREA_CLOSURE_DELETE_LINKS,
+		Queries.QUERY_AREA_SUBTREE, Queries.QUERY_AREA_VERSION_STAMP) {
+
+	    /*
+	     * @see com.sitewhere.device.persistence.rdb.RdbClosureTable#getEntityManager()
+	     */
+	    @Override
+	    protected EntityManager getEntityManager() {
+		return entityManager;
+	    }
+	};
+    }
+
+    /**
+     * Get depth of each descendant of an entity (including itself).
+     * 
+     * @param closure
+     * @param id
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static Map<UUID, Integer> depths(RdbClosureTable<RdbAreaClosure> closure, UUID id)
+	    throws SiteWhereException {
+	Map<UUID, Integer> depths = new HashMap<>();
+	for (RdbAreaClosure row : closure.getDescendants(id)) {
+	    depths.put(row.getDescendantId(), row.getDepth());
+	}
+	return depths;
+    }
+
+    /**
+     * Create a root area with a child and grandchild, plus a second root area.
+     * 
+     * @return area ids by role
+     * @throws Exception
+     */
+    protected static Map<String, UUID> createAreas() throws Exception {
+	return RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbAreaType areaType = new RdbAreaType();
+	    areaType.setToken("type-" + UUID.randomUUID());
+	    areaType.setName("Test");
+	    entityManager.persist(areaType);
+
+	    RdbClosureTable<RdbAreaClosure> closure = closure(entityManager);
+	    Map<String, UUID> ids = new HashMap<>();
+	    ids.put("root", createArea(entityManager, closure, areaType.getId(), null));
+	    ids.put("child", createArea(entityManager, closure, areaType.getId(), ids.get("root")));
+	    ids.put("grandchild", createArea(entityManager, closure, areaType.getId(), ids.get("child")));
+	    ids.put("other", createArea(entityManager, closure, areaType.getId(), null));
+	    return ids;
+	});
+    }
+
+    /**
+     * Create an area and its closure rows.
+     * 
+     * @param entityManager
+     * @param closure
+     * @param areaTypeId
+     * @param parentId
+     * @return area id
+     * @throws SiteWhereException
+     */
+    protected static UUID createArea(EntityManager entityManager, RdbClosureTable<RdbAreaClosure> closure,
+	    UUID areaTypeId, UUID parentId) throws SiteWhereException {
+	RdbArea area = new RdbArea();
+	area.setToken("area-" + UUID.randomUUID());
+	area.setName("Test");
+	area.setAreaTypeId(areaTypeId);
+	area.setParentId(parentId);
+	entityManager.persist(area);
+	closure.insert(area.getId(), parentId);
+	return area.getId();
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+
+import com.sitewhere.device.persistence.lookup.EntityLookupRequest;
+import com.sitewhere.device.persistence.lookup.EntityLookupResponse;
+import com.sitewhere.device.persistence.rdb.entity.Queries;
+import com.sitewhere.device.persistence.rdb.entity.RdbArea;
+import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceElementMapping;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceType;
+import com.sitewhere.device.persistence.rdb.entity.RdbZone;
+import com.sitewhere.device.persistence.rdb.entity.RdbZoneBoundary;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rest.model.search.device.DeviceSearchCriteria;
+import com.sitewhere.rest.model.search.device.ZoneSearchCriteria;
+
+/**
+ * Test cases for queries that fetch entity collections together with the
+ * entity.
+ */
+public class RdbCollectionFetchTests {
+
+    @Test
+    public void testDeviceByTokenDoesNotDuplicateMappings() throws Exception {
+	String token = createDevice(2, 3);
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    List<?> results = entityManager.createNamedQuery(Queries.QUERY_DEVICE_BY_TOKEN)
+		    .setParameter("token", token).getResultList();
+	    assertEquals(1, results.size());
+	    RdbDevice device = (RdbDevice) results.get(0);
+	    assertEquals(2, device.getDeviceElementMappings().size());
+	    assertEquals(3, device.getMetadata().size());
+	    assertEquals("value-2", device.getMetadata().get("key-2"));
+	    return null;
+	});
+    }
+
+    @Test
+    public void testZoneByTokenDoesNotDuplicateBounds() throws Exception {
+	String token = createZone(4, 3);
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    List<?> results = entityManager.createNamedQuery(Queries.QUERY_ZONE_BY_TOKEN).setParameter("token", token)
+		    .getResultList();
+	    assertEquals(1, results.size());
+	    RdbZone zone = (RdbZone) results.get(0);
+	    assertEquals(4, zone.getBounds().size());
+	    assertEquals(3, zone.getMetadata().size());
+	    return null;
+	});
+    }
+
+    @Test
+    public void testLookupDevicesDoesNotDuplicateMappings() throws Exception {
+	List<String> tokens = Arrays.asList(createDevice(2, 3), createDevice(3, 2));
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    EntityLookupRequest request = new EntityLookupRequest();
+	    request.setTokens(tokens);
+	    EntityLookupResponse response = lookup(entityManager).lookupDevices(request);
+	    assertEquals(2, response.getResults().size());
+	    RdbDevice first = (RdbDevice) response.getResults().get(0).getEntity();
+	    assertEquals(tokens.get(0), first.getToken());
+	    assertEquals(2, first.getDeviceElementMappings().size());
+	    assertEquals(3, first.getMetadata().size());
+	    RdbDevice second = (RdbDevice) response.getResults().get(1).getEntity();
+	    assertEquals(tokens.get(1), second.getToken());
+	    assertEquals(3, second.getDeviceElementMappings().size());
+	    assertEquals(2, second.getMetadata().size());
+	    return null;
+	});
+    }
+
+    @Test
+    public void testDeviceReadsInitializeCollections() throws Exception {
+	String token = createDevice(2, 3);
+	RdbDevice byToken = read(management -> management.getDeviceByToken(token));
+	assertEquals(2, byToken.getDeviceElementMappings().size());
+	assertEquals(3, byToken.getMetadata().size());
+	RdbDevice byId = read(management -> management.getDevice(byToken.getId()));
+	assertEquals(2, byId.getDeviceElementMappings().size());
+	assertEquals(3, byId.getMetadata().size());
+    }
+
+    @Test
+    public void testListDevicesInitializesCollections() throws Exception {
+	String deviceType = RdbDeviceBulkLoaderTests.createDeviceType();
+	String first = createDevice(deviceType, 2, 3);
+	String second = createDevice(deviceType, 3, 1);
+	List<RdbDevice> devices = read(management -> management
+		.listDevices(new DeviceSearchCriteria(deviceType, false, 1, 100, null, null)).getResults());
+	assertEquals(2, devices.size());
+	Map<String, RdbDevice> byToken = new HashMap<>();
+	for (RdbDevice device : devices) {
+	    byToken.put(device.getToken(), device);
+	}
+	assertEquals(2, byToken.get(first).getDeviceElementMappings().size());
+	assertEquals(3, byToken.get(first).getMetadata().size());
+	assertEquals(3, byToken.get(second).getDeviceElementMappings().size());
+	assertEquals(1, byToken.get(second).getMetadata().size());
+    }
+
+    @Test
+    public void testZoneReadsInitializeCollections() throws Exception {
+	String token = createZone(4, 3);
+	RdbZone byToken = read(management -> (RdbZone) management.getZoneByToken(token));
+	assertEquals(4, byToken.getBounds().size());
+	assertEquals(3, byToken.getMetadata().size());
+	RdbZone byId = read(management -> (RdbZone) management.getZone(byToken.getId()));
+	assertEquals(4, byId.getBounds().size());
+	assertEquals(3, byId.getMetadata().size());
+    }
+
+    @Test
+    public void testListZonesInitializesCollections() throws Exception {
+	String area = RdbDeviceBulkLoaderTests.createArea();
+	String first = createZone(area, 4, 3);
+	String second = createZone(area, 2, 1);
+	ZoneSearchCriteria criteria = new ZoneSearchCriteria(1, 100);
+	criteria.setAreaToken(area);
+	List<RdbZone> zones = read(management -> management.listZones(criteria).getResults());
+	assertEquals(2, zones.size());
+	Map<String, RdbZone> byToken = new HashMap<>();
+	for (RdbZone zone : zones) {
+	    byToken.put(zone.getToken(), zone);
+	}
+	assertEquals(4, byToken.get(first).getBounds().size());
+	assertEquals(3, byToken.get(first).getMetadata().size());
+	assertEquals(2, byToken.get(second).getBounds().size());
+	assertEquals(1, byToken.get(second).getMetadata().size());
+    }
+
+    /**
+     * Read through device management. The entity manager is closed before the
+     * result is returned, so lazy collections must already be loaded.
+     * 
+     * @param read
+     * @return
+     * @throws Exception
+     */
+    protected static <T> T read(IRead<T> read) throws Exception {
+	EntityManager entityManager = RdbTestDatabase.get().createEntityManager();
+	try {
+	    IRdbEntityManagerProvider provider = RdbTestEntityManagerProvider.create(entityManager);
+	    return read.run(new RdbDeviceManagement() {
+
+		/*
+		 * @see com.sitewhere.device.persistence.rdb.RdbDeviceManagement#
+		 * getEntityManagerProvider()
+		 */
+		@Override
+		public IRdbEntityManagerProvider getEntityManagerProvider() {
+		    return provider;
+		}
+	    });
+	} finally {
+	    entityManager.close();
+	}
+    }
+
+    /**
+     * Create a lookup that uses the given entity manager.
+     * 
+     * @param entityManager
+     * @return
+     */
+    protected static RdbEntityLookup lookup(EntityManager entityManager) {
+	return new RdbEntityLookup(null) {
+
+	    /*
+	     * @see com.sitewhere.device.persistence.rdb.RdbEntityLookup#getEntityManager()
+	     */
+	    @Override
+	    protected EntityManager getEntityManager() {
+		return entityManager;
+	    }
+	};
+    }
+
+    /**
+     * Create a device with element mappings and metadata.
+     * 
+     * @param mappings
+     * @param metadata
+     * @return device token
+     * @throws Exception
+     */
+    protected static String createDevice(int mappings, int metadata) throws Exception {
+	return createDevice(null, mappings, metadata);
+    }
+
+    /**
+     * Create a device of an existing device type with element mappings and
+     * metadata.
+     * 
+     * @param deviceTypeToken
+     *            token of existing device type or null to create one
+     * @param mappings
+     * @param metadata
+     * @return device token
+     * @throws Exception
+     */
+    protected static String createDevice(String deviceTypeToken, int mappings, int metadata) throws Exception {
+	String token = "device-" + UUID.randomUUID();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDevice device = new RdbDevice();
+	    device.setToken(token);
+	    if (deviceTypeToken == null) {
+		device.setDeviceTypeId(createDeviceType(entityManager));
+	    } else {
+		RdbDeviceType deviceType = (RdbDeviceType) entityManager
+			.createNamedQuery(Queries.QUERY_DEVICE_TYPE_BY_TOKEN).setParameter("token", deviceTypeToken)
+			.getSingleResult();
+		device.setDeviceTypeId(deviceType.getId());
+	    }
+	    for (int i = 0; i < metadata; i++) {
+		device.getMetadata().put("key-" + i, "value-" + i);
+	    }
+	    entityManager.persist(device);
+	    for (int i = 0; i < mappings; i++) {
+		RdbDeviceElementMapping mapping = new RdbDeviceElementMapping();
+		mapping.setDeviceElementSchemaPath("/slot-" + i);
+		mapping.setDeviceToken(token + "-" + i);
+		mapping.setDevice(device);
+		device.getDeviceElementMappings().add(mapping);
+	    }
+	    return null;
+	});
+	return token;
+    }
+
+    /**
+     * Create a device type.
+     * 
+     * @param entityManager
+     * @return device type id
+     */
+    protected static UUID createDeviceType(EntityManager entityManager) {
+	RdbDeviceType deviceType = new RdbDeviceType();
+	deviceType.setToken("type-" + UUID.randomUUID());
+	deviceType.setName("Test");
+	entityManager.persist(deviceType);
+	return deviceType.getId();
+    }
+
+    /**
+     * Create a zone with bounds and metadata.
+     * 
+     * @param bounds
+     * @param metadata
+     * @return zone token
+     * @throws Exception
+     */
+    protected static String createZone(int bounds, int metadata) throws Exception {
+	return createZone(null, bounds, metadata);
+    }
+
+    /**
+     * Create a zone in an area with bounds and metadata.
+     * 
+     * @param areaToken
+     *            token of existing area or null for none
+     * @param bounds
+     * @param metadata
+     * @return zone token
+     * @throws Exception
+     */
+    protected static String createZone(String areaToken, int bounds, int metadata) throws Exception {
+	String token = "zone-" + UUID.randomUUID();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbZone zone = new RdbZone();
+	    zone.setToken(token);
+	    if (areaToken != null) {
+		RdbArea area = (RdbArea) entityManager.createNamedQuery(Queries.QUERY_AREA_BY_TOKEN)
+			.setParameter("token", areaToken).getSingleResult();
+		zone.setAreaId(area.getId());
+	    }
+	    for (int i = 0; i < metadata; i++) {
+		zone.getMetadata().put("key-" + i, "value-" + i);
+	    }
+	    entityManager.persist(zone);
+	    for (int i = 0; i < bounds; i++) {
+		RdbZoneBoundary boundary = new RdbZoneBoundary();
+		boundary.setLatitude(Double.valueOf(i));
+		boundary.setLongitude(Double.valueOf(i));
+		boundary.setZoneId(zone.getId());
+		zone.getBounds().add(boundary);
+	    }
+	    return null;
+	});
+	return token;
+    }
+
+    /**
+     * Read performed with device management.
+     */
+    public static interface IRead<T> {
+
+	/**
+	 * Perform the read.
+	 * 
+	 * @param management
+	 * @return
+	 * @throws Exception
+	 */
+	public T run(RdbDeviceManagement management) throws Exception;
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCount;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmCounts;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAlarm;
+import com.sitewhere.spi.device.DeviceAlarmState;
+
+/**
+ * Test cases for maintaining open alarm counters.
+ */
+public class RdbDeviceAlarmCountersTests {
+
+    @Test
+    public void testApplyCombinesChanges() throws Exception {
+	UUID deviceTypeId = UUID.randomUUID();
+	UUID areaId = UUID.randomUUID();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAlarmCounters counters = counters(entityManager);
+	    counters.add(alarm(areaId, deviceTypeId, DeviceAlarmState.Triggered));
+	    counters.add(alarm(areaId, deviceTypeId, DeviceAlarmState.Triggered));
+	    counters.add(alarm(areaId, deviceTypeId, DeviceAlarmState.Triggered));
+	    counters.remove(alarm(areaId, deviceTypeId, DeviceAlarmState.Triggered));
+	    counters.apply();
+	    counters.add(alarm(areaId, deviceTypeId, DeviceAlarmState.Acknowledged));
+	    counters.apply();
+	    return null;
+	});
+	DeviceAlarmCounts counts = find(null, deviceTypeId, null);
+	assertEquals(2, counts.getCounts().size());
+	assertEquals(3, counts.getTotal());
+	assertEquals(2, find(null, deviceTypeId, DeviceAlarmState.Triggered).getTotal());
+	assertEquals(areaId, find(null, deviceTypeId, DeviceAlarmState.Acknowledged).getCounts().get(0).getAreaId());
+    }
+
+    @Test
+    public void testStateChangesMoveCounts() throws Exception {
+	UUID deviceTypeId = UUID.randomUUID();
+	RdbDeviceAlarm alarm = alarm(UUID.randomUUID(), deviceTypeId, DeviceAlarmState.Triggered);
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAlarmCounters counters = counters(entityManager);
+	    counters.add(alarm);
+	    counters.apply();
+	    return null;
+	});
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAlarmCounters counters = counters(entityManager);
+	    counters.remove(alarm);
+	    alarm.setState(DeviceAlarmState.Acknowledged);
+	    counters.add(alarm);
+	    counters.apply();
+	    return null;
+	});
+	DeviceAlarmCounts counts = find(null, deviceTypeId, null);
+	assertEquals(1, counts.getCounts().size());
+	assertEquals(DeviceAlarmState.Acknowledged, counts.getCounts().get(0).getState());
+
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAlarmCounters counters = counters(entityManager);
+	    counters.remove(alarm);
+	    alarm.setState(DeviceAlarmState.Resolved);
+	    counters.add(alarm);
+	    counters.apply();
+	    return null;
+	});
+	assertEquals(0, find(null, deviceTypeId, null).getCounts().size());
+    }
+
+    @Test
+    public void testAlarmWithoutAreaIsCounted() throws Exception {
+	UUID deviceTypeId = UUID.randomUUID();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAlarmCounters counters = counters(entityManager);
+	    counters.add(alarm(null, deviceTypeId, DeviceAlarmState.Triggered));
+	    counters.apply();
+	    return null;
+	});
+	DeviceAlarmCounts counts = find(null, deviceTypeId, null);
+	assertEquals(1, counts.getTotal());
+	assertNull(counts.getCounts().get(0).getAreaId());
+    }
+
+    @Test
+    public void testFindByAreaIncludesNestedAreas() throws Exception {
+	UUID deviceTypeId = UUID.randomUUID();
+	Map<String, UUID> areas = RdbClosureTableTests.createAreas();
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAlarmCounters counters = counters(entityManager);
+	    counters.add(alarm(areas.get("root"), deviceTypeId, DeviceAlarmState.Triggered));
+	    counters.add(alarm(areas.get("child"), deviceTypeId, DeviceAlarmState.Triggered));
+	    counters.add(alarm(areas.get("grandchild"), deviceTypeId, DeviceAlarmState.Acknowledged));
+	    counters.add(alarm(areas.get("other"), deviceTypeId, DeviceAlarmState.Triggered));
+	    counters.apply();
+	    return null;
+	});
+	assertEquals(3, find(areas.get("root"), deviceTypeId, null).getTotal());
+	assertEquals(2, find(areas.get("child"), deviceTypeId, null).getTotal());
+	DeviceAlarmCounts grandchild = find(areas.get("grandchild"), deviceTypeId, null);
+	assertEquals(1, grandchild.getTotal());
+	DeviceAlarmCount count = grandchild.getCounts().get(0);
+	assertEquals(areas.get("grandchild"), count.getAreaId());
+	assertEquals(DeviceAlarmState.Acknowledged, count.getState());
+	assertEquals(1, find(areas.get("other"), deviceTypeId, null).getTotal());
+	assertEquals(4, find(null, deviceTypeId, null).getTotal());
+    }
+
+    /**
+     * Create counters that use the given entity manager.
+     * 
+     * @param entityManager
+     * @return
+     */
+    protected static RdbDeviceAlarmCounters counters(EntityManager entityManager) {
+	return new RdbDeviceAlarmCounters(null) {
+
+	    /*
+	     * @see com.sitewhere.device.persistence.rdb.RdbDeviceAlarmCounters#
+	     * getEntityManager()
+	     */
+	    @Override
+	    protected EntityManager getEntityManager() {
+		return entityManager;
+	    }
+	};
+    }
+
+    /**
+     * Find open alarm counts in a new transaction.
+     * 
+     * @param areaId
+     * @param deviceTypeId
+     * @param state
+     * @return
+     * @throws Exception
+     */
+    protected static DeviceAlarmCounts find(UUID areaId, UUID deviceTypeId, DeviceAlarmState state)
+	    throws Exception {
+	return RdbTestDatabase.get()
+		.inTransaction(entityManager -> counters(entityManager).find(areaId, deviceTypeId, state));
+    }
+
+    /**
+     * Create an alarm. Counters only read the area, device type and state.
+     * 
+     * @param areaId
+     * @param deviceTypeId
+     * @param state
+     * @return
+     */
+    protected static RdbDeviceAlarm alarm(UUID areaId, UUID deviceTypeId, DeviceAlarmState state) {
+	RdbDeviceAlarm alarm = new RdbDeviceAlarm();
+	alarm.setAreaId(areaId);
+	alarm.setDeviceTypeId(deviceTypeId);
+	alarm.setState(state);
+	return alarm;
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+
+import com.sitewhere.device.configuration.AlarmHandling;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkOperation;
+import com.sitewhere.device.persistence.alarm.DeviceAlarmBulkRequest;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAlarm;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignment;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rest.model.device.request.DeviceAlarmCreateRequest;
+
+/**
+ * Test cases for raising device alarms.
+ */
+public class RdbDeviceAlarmLoaderTests {
+
+    /** Number of concurrent triggers */
+    private static final int THREADS = 8;
+
+    @Test
+    public void testConcurrentTriggersCreateOneAlarm() throws Exception {
+	UUID assignmentId = RdbDeviceAssignmentSummariesTests.createAssignment(null);
+	String message = "message-" + UUID.randomUUID();
+	runConcurrently(entityManager -> {
+	    RdbDeviceAssignment assignment = entityManager.find(RdbDeviceAssignment.class, assignmentId);
+	    loader(entityManager).raise(request(assignment.getToken(), message), assignment);
+	    return null;
+	});
+	List<RdbDeviceAlarm> alarms = findAlarms(assignmentId, message);
+	assertEquals(1, alarms.size());
+	assertEquals(THREADS, alarms.get(0).getTriggerCount());
+    }
+
+    @Test
+    public void testConcurrentBulkTriggersCreateOneAlarm() throws Exception {
+	UUID assignmentId = RdbDeviceAssignmentSummariesTests.createAssignment(null);
+	String token = RdbTestDatabase.get()
+		.inTransaction(entityManager -> entityManager.find(RdbDeviceAssignment.class, assignmentId).getToken());
+	String message = "message-" + UUID.randomUUID();
+	runConcurrently(entityManager -> {
+	    DeviceAlarmBulkRequest request = new DeviceAlarmBulkRequest();
+	    request.setOperation(DeviceAlarmBulkOperation.Raise);
+	    request.setAlarms(Collections.singletonList(request(token, message)));
+	    loader(entityManager).load(request);
+	    return null;
+	});
+	List<RdbDeviceAlarm> alarms = findAlarms(assignmentId, message);
+	assertEquals(1, alarms.size());
+	assertEquals(THREADS, alarms.get(0).getTriggerCount());
+    }
+
+    /**
+     * Run work from several threads at once, each with its own entity manager.
+     * 
+     * @param work
+     * @throws Exception
+     */
+    protected static void runConcurrently(RdbTestDatabase.IWork<Void> work) throws Exception {
+	ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+	CountDownLatch start = new CountDownLatch(1);
+	try {
+	    List<Future<Void>> futures = new ArrayList<>();
+	    for (int i = 0; i < THREADS; i++) {
+		futures.add(executor.submit(new Callable<Void>() {
+
+		    /*
+		     * @see java.util.concurrent.Callable#call()
+		     */
+		    @Override
+		    public Void call() throws Exception {
+			EntityManager entityManager = RdbTestDatabase.get().createEntityManager();
+			try {
+			    start.await();
+			    return work.run(entityManager);
+			} finally {
+			    entityManager.close();
+			}
+		    }
+		}));
+	    }
+	    start.countDown();
+	    for (Future<Void> future : futures) {
+		future.get();
+	    }
+	} finally {
+	    executor.shutdownNow();
+	}
+    }
+
+    /**
+     * Create a loader that uses the given entity manager.
+     * 
+     * @param entityManager
+     * @return
+     */
+    protected static RdbDeviceAlarmLoader loader(EntityManager entityManager) {
+	IRdbEntityManagerProvider provider = RdbTestEntityManagerProvider.create(entityManager);
+	RdbDeviceManagement deviceManagement = new RdbDeviceManagement() {
+
+	    /*
+	     * @see com.sitewhere.device.persistence.rdb.RdbDeviceManagement#
+	     * getEntityManagerProvider()
+	     */
+	    @Override
+	    public IRdbEntityManagerProvider getEntityManagerProvider() {
+		return provider;
+	    }
+	};
+	return new RdbDeviceAlarmLoader(deviceManagement, new AlarmHandling());
+    }
+
+    /**
+     * Create a request to trigger an alarm.
+     * 
+     * @param assignmentToken
+     * @param message
+     * @return
+     */
+    protected static DeviceAlarmCreateRequest request(String assignmentToken, String message) {
+	DeviceAlarmCreateRequest request = new DeviceAlarmCreateRequest();
+	request.setDeviceAssignmentToken(assignmentToken);
+	request.setAlarmMessage(message);
+	return request;
+    }
+
+    /**
+     * Find alarms for an assignment and message.
+     * 
+     * @param assignmentId
+     * @param message
+     * @return
+     * @throws Exception
+     */
+    protected static List<RdbDeviceAlarm> findAlarms(UUID assignmentId, String message) throws Exception {
+	return RdbTestDatabase.get().inTransaction(entityManager -> entityManager
+		.createQuery("SELECT a FROM RdbDeviceAlarm a WHERE a.deviceAssignmentId = :assignmentId "
+			+ "AND a.alarmMessage = :message", RdbDeviceAlarm.class)
+		.setParameter("assignmentId", assignmentId).setParameter("message", message).getResultList());
+    }
+}
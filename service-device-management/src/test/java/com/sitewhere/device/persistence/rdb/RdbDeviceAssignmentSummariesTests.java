@@ -0,0 +1,182 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+
+import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignment;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignmentSummary;
+import com.sitewhere.rest.model.asset.Asset;
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+
+/**
+ * Test cases for keeping assignment summaries in step with assignments and
+ * assets.
+ */
+public class RdbDeviceAssignmentSummariesTests {
+
+    @Test
+    public void testApplyBuildsSummaryWithAsset() throws Exception {
+	Asset asset = asset(UUID.randomUUID(), "Truck 1");
+	UUID id = createAssignment(asset.getId());
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAssignmentSummaries summaries = summaries(entityManager);
+	    summaries.assignmentChanged(id, asset);
+	    summaries.apply();
+	    return null;
+	});
+	RdbDeviceAssignmentSummary summary = getSummary(id);
+	assertEquals(asset.getId(), summary.getAssetId());
+	assertEquals("Truck 1", summary.getAssetName());
+	assertEquals("Test", summary.getDeviceTypeName());
+	assertEquals(DeviceAssignmentStatus.Active, summary.getStatus());
+    }
+
+    @Test
+    public void testAssetsChangedUpdatesAllSummaries() throws Exception {
+	UUID assetId = UUID.randomUUID();
+	UUID first = createAssignment(assetId);
+	UUID second = createAssignment(assetId);
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAssignmentSummaries summaries = summaries(entityManager);
+	    summaries.assignmentChanged(first, null);
+	    summaries.assignmentChanged(second, null);
+	    summaries.apply();
+	    return null;
+	});
+	assertNull(getSummary(first).getAssetName());
+	assertTrue(findAssetsWithoutNames().contains(assetId));
+
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    summaries(entityManager).assetsChanged(Collections.singletonList(assetId),
+		    Collections.singletonMap(assetId, asset(assetId, "Renamed")));
+	    return null;
+	});
+	assertEquals("Renamed", getSummary(first).getAssetName());
+	assertEquals("Renamed", getSummary(second).getAssetName());
+	assertFalse(findAssetsWithoutNames().contains(assetId));
+    }
+
+    @Test
+    public void testAssetsChangedClearsDeletedAsset() throws Exception {
+	Asset asset = asset(UUID.randomUUID(), "Truck 2");
+	UUID id = createAssignment(asset.getId());
+	RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceAssignmentSummaries summaries = summaries(entityManager);
+	    summaries.assignmentChanged(id, asset);
+	    summaries.apply();
+	    summaries.assetsChanged(Arrays.asList(asset.getId()), Collections.emptyMap());
+	    return null;
+	});
+	assertNull(getSummary(id).getAssetName());
+    }
+
+    /**
+     * Create summaries that use the given entity manager.
+     * 
+     * @param entityManager
+     * @return
+     */
+    protected static RdbDeviceAssignmentSummaries summaries(EntityManager entityManager) {
+	return new RdbDeviceAssignmentSummaries(null) {
+
+	    /*
+	     * @see com.sitewhere.device.persistence.rdb.RdbDeviceAssignmentSummaries#
+	     * getEntityManager()
+	     */
+	    @Override
+	    protected EntityManager getEntityManager() {
+		return entityManager;
+	    }
+	};
+    }
+
+    /**
+     * Create an active assignment of a new device.
+     * 
+     * @param assetId
+     * @return assignment id
+     * @throws Exception
+     */
+    protected static UUID createAssignment(UUID assetId) throws Exception {
+	return RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDevice device = new RdbDevice();
+	    device.setToken("device-" + UUID.randomUUID());
+	    device.setDeviceTypeId(RdbCollectionFetchTests.createDeviceType(entityManager));
+	    entityManager.persist(device);
+
+	    RdbDeviceAssignment assignment = new RdbDeviceAssignment();
+	    assignment.setToken("assignment-" + UUID.randomUUID());
+	    assignment.setDeviceId(device.getId());
+	    assignment.setDeviceTypeId(device.getDeviceTypeId());
+	    assignment.setAssetId(assetId);
+	    assignment.setStatus(DeviceAssignmentStatus.Active);
+	    entityManager.persist(assignment);
+	    return assignment.getId();
+	});
+    }
+
+    /**
+     * Read a summary row.
+     * 
+     * @param id
+     * @return
+     * @throws Exception
+     */
+    protected static RdbDeviceAssignmentSummary getSummary(UUID id) throws Exception {
+	return RdbTestDatabase.get()
+		.inTransaction(entityManager -> entityManager.find(RdbDeviceAssignmentSummary.class, id));
+    }
+
+    /**
+     * Find all assets referenced by summaries without display fields.
+     * 
+     * @return
+     * @throws Exception
+     */
+    protected static List<UUID> findAssetsWithoutNames() throws Exception {
+	return RdbTestDatabase.get().inTransaction(
+		entityManager -> summaries(entityManager).findAssetsWithoutNames(new UUID(0L, 0L), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Create an asset model.
+     * 
+     * @param id
+     * @param name
+     * @return
+     */
+    protected static Asset asset(UUID id, String name) {
+	Asset asset = new Asset();
+	asset.setId(id);
+	asset.setName(name);
+	asset.setImageUrl("https://example.com/" + name + ".png");
+	return asset;
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+
+import com.sitewhere.device.configuration.BulkProvisioning;
+import com.sitewhere.device.persistence.bulk.DeviceBulkAction;
+import com.sitewhere.device.persistence.bulk.DeviceBulkEntry;
+import com.sitewhere.device.persistence.bulk.DeviceBulkMode;
+import com.sitewhere.device.persistence.bulk.DeviceBulkRequest;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResponse;
+import com.sitewhere.device.persistence.bulk.DeviceBulkResult;
+import com.sitewhere.device.persistence.rdb.entity.RdbArea;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaType;
+import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignmentSummary;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceType;
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rest.model.device.request.DeviceAssignmentCreateRequest;
+import com.sitewhere.rest.model.device.request.DeviceCreateRequest;
+
+/**
+ * Test cases for storing bulk device requests.
+ */
+public class RdbDeviceBulkLoaderTests {
+
+    @Test
+    public void testCreateDevicesAndAssignments() throws Exception {
+	String deviceType = createDeviceType();
+	String area = createArea();
+	DeviceBulkRequest request = request(DeviceBulkMode.Create, entry(token(), deviceType, area),
+		entry(token(), deviceType, null), entry(token(), deviceType, area));
+	DeviceBulkResponse response = load(request);
+
+	assertEquals(3, response.getResults().size());
+	assertEquals(0, response.getFailedCount());
+	for (DeviceBulkResult result : response.getResults()) {
+	    assertEquals(DeviceBulkAction.Created, result.getDeviceAction());
+	    assertNotNull(result.getDeviceId());
+	}
+	assertEquals(DeviceBulkAction.Created, response.getResults().get(0).getAssignmentAction());
+	assertNull(response.getResults().get(1).getAssignmentAction());
+
+	DeviceBulkResult first = response.getResults().get(0);
+	RdbDeviceAssignmentSummary summary = RdbDeviceAssignmentSummariesTests.getSummary(first.getAssignmentId());
+	assertEquals(first.getDeviceToken(), summary.getDeviceToken());
+	assertEquals(first.getDeviceId(), summary.getDeviceId());
+	assertEquals("Test", summary.getAreaName());
+    }
+
+    @Test
+    public void testUpsertUpdatesExistingEntries() throws Exception {
+	String deviceType = createDeviceType();
+	String area = createArea();
+	String token = token();
+	DeviceBulkResponse created = load(request(DeviceBulkMode.Create, entry(token, deviceType, null)));
+	assertEquals(0, created.getFailedCount());
+
+	DeviceBulkResponse response = load(request(DeviceBulkMode.Upsert, entry(token, deviceType, area)));
+	DeviceBulkResult result = response.getResults().get(0);
+	assertFalse(result.isFailed());
+	assertEquals(DeviceBulkAction.Updated, result.getDeviceAction());
+	assertEquals(created.getResults().get(0).getDeviceId(), result.getDeviceId());
+	assertEquals(DeviceBulkAction.Created, result.getAssignmentAction());
+
+	response = load(request(DeviceBulkMode.Upsert, entry(token, deviceType, area)));
+	assertEquals(DeviceBulkAction.Updated, response.getResults().get(0).getAssignmentAction());
+	assertEquals(result.getAssignmentId(), response.getResults().get(0).getAssignmentId());
+    }
+
+    @Test
+    public void testPreserveActiveAssignments() throws Exception {
+	String deviceType = createDeviceType();
+	String area = createArea();
+	String token = token();
+	DeviceBulkResponse created = load(request(DeviceBulkMode.Upsert, entry(token, deviceType, area)));
+	UUID assignmentId = created.getResults().get(0).getAssignmentId();
+
+	DeviceBulkRequest request = request(DeviceBulkMode.Upsert, entry(token, deviceType, createArea()),
+		entry(token(), deviceType, area));
+	request.setPreserveActiveAssignments(true);
+	DeviceBulkResponse response = load(request);
+	DeviceBulkResult existing = response.getResults().get(0);
+	assertEquals(DeviceBulkAction.Updated, existing.getDeviceAction());
+	assertEquals(DeviceBulkAction.Unchanged, existing.getAssignmentAction());
+	assertEquals(assignmentId, existing.getAssignmentId());
+	assertEquals(DeviceBulkAction.Created, response.getResults().get(1).getAssignmentAction());
+    }
+
+    @Test
+    public void testInvalidEntriesFailIndividually() throws Exception {
+	String deviceType = createDeviceType();
+	String existing = token();
+	load(request(DeviceBulkMode.Create, entry(existing, deviceType, null)));
+
+	String duplicate = token();
+	DeviceBulkRequest request = request(DeviceBulkMode.Create, entry(duplicate, deviceType, null),
+		entry(duplicate, deviceType, null), entry(existing, deviceType, null),
+		entry(token(), "missing-" + UUID.randomUUID(), null), entry(token(), deviceType, "missing"),
+		entry(null, deviceType, null), entry(token(), deviceType, null));
+	DeviceBulkResponse response = load(request);
+
+	List<DeviceBulkResult> results = response.getResults();
+	assertFalse(results.get(0).isFailed());
+	assertTrue(results.get(1).isFailed());
+	assertTrue(results.get(2).isFailed());
+	assertTrue(results.get(3).isFailed());
+	assertTrue(results.get(4).isFailed());
+	assertTrue(results.get(5).isFailed());
+	assertFalse(results.get(6).isFailed());
+	assertEquals(5, response.getFailedCount());
+	assertEquals(2, response.getCreatedCount());
+    }
+
+    @Test
+    public void testParentCreatedEarlierInRequest() throws Exception {
+	String deviceType = createDeviceType();
+	String parent = token();
+	DeviceBulkEntry child = entry(token(), deviceType, null);
+	child.getDevice().setParentDeviceToken(parent);
+	DeviceBulkResponse response = load(request(DeviceBulkMode.Create, entry(parent, deviceType, null), child));
+	assertEquals(0, response.getFailedCount());
+
+	UUID parentId = response.getResults().get(0).getDeviceId();
+	UUID childId = response.getResults().get(1).getDeviceId();
+	UUID stored = RdbTestDatabase.get()
+		.inTransaction(entityManager -> entityManager.find(RdbDevice.class, childId).getParentDeviceId());
+	assertEquals(parentId, stored);
+    }
+
+    /**
+     * Load a request with small transactions and batches so that requests span
+     * several of each.
+     * 
+     * @param request
+     * @return
+     * @throws Exception
+     */
+    protected static DeviceBulkResponse load(DeviceBulkRequest request) throws Exception {
+	EntityManager entityManager = RdbTestDatabase.get().createEntityManager();
+	try {
+	    IRdbEntityManagerProvider provider = RdbTestEntityManagerProvider.create(entityManager);
+	    RdbDeviceManagement deviceManagement = new RdbDeviceManagement() {
+
+		/*
+		 * @see com.sitewhere.device.persistence.rdb.RdbDeviceManagement#
+		 * getEntityManagerProvider()
+		 */
+		@Override
+		public IRdbEntityManagerProvider getEntityManagerProvider() {
+		    return provider;
+		}
+	    };
+	    BulkProvisioning settings = new BulkProvisioning();
+	    settings.setTransactionSize(2);
+	    settings.setJdbcBatchSize(2);
+	    return new RdbDeviceBulkLoader(deviceManagement, settings).load(request);
+	} finally {
+	    entityManager.close();
+	}
+    }
+
+    /**
+     * Create a request.
+     * 
+     * @param mode
+     * @param entries
+     * @return
+     */
+    protected static DeviceBulkRequest request(DeviceBulkMode mode, DeviceBulkEntry... entries) {
+	DeviceBulkRequest request = new DeviceBulkRequest();
+	request.setMode(mode);
+	List<DeviceBulkEntry> list = new ArrayList<>();
+	for (DeviceBulkEntry entry : entries) {
+	    list.add(entry);
+	}
+	request.setEntries(list);
+	return request;
+    }
+
+    /**
+     * Create an entry with an optional assignment to an area.
+     * 
+     * @param token
+     * @param deviceTypeToken
+     * @param areaToken
+     * @return
+     */
+    protected static DeviceBulkEntry entry(String token, String deviceTypeToken, String areaToken) {
+	DeviceCreateRequest device = new DeviceCreateRequest();
+	device.setToken(token);
+	device.setDeviceTypeToken(deviceTypeToken);
+	DeviceBulkEntry entry = new DeviceBulkEntry();
+	entry.setDevice(device);
+	if (areaToken != null) {
+	    DeviceAssignmentCreateRequest assignment = new DeviceAssignmentCreateRequest();
+	    assignment.setDeviceToken(token);
+	    assignment.setAreaToken(areaToken);
+	    entry.setAssignment(assignment);
+	}
+	return entry;
+    }
+
+    /**
+     * Create a device type.
+     * 
+     * @return device type token
+     * @throws Exception
+     */
+    protected static String createDeviceType() throws Exception {
+	return RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbDeviceType deviceType = new RdbDeviceType();
+	    deviceType.setToken("type-" + UUID.randomUUID());
+	    deviceType.setName("Test");
+	    entityManager.persist(deviceType);
+	    return deviceType.getToken();
+	});
+    }
+
+    /**
+     * Create an area.
+     * 
+     * @return area token
+     * @throws Exception
+     */
+    protected static String createArea() throws Exception {
+	return RdbTestDatabase.get().inTransaction(entityManager -> {
+	    RdbAreaType areaType = new RdbAreaType();
+	    areaType.setToken("type-" + UUID.randomUUID());
+	    areaType.setName("Test");
+	    entityManager.persist(areaType);
+	    RdbArea area = new RdbArea();
+	    area.setToken("area-" + UUID.randomUUID());
+	    area.setName("Test");
+	    area.setAreaTypeId(areaType.getId());
+	    entityManager.persist(area);
+	    return area.getToken();
+	});
+    }
+
+    /**
+     * Create a random device token.
+     * 
+     * @return
+     */
+    protected static String token() {
+	return "device-" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import javax.persistence.EntityManager;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.sitewhere.device.persistence.rdb.entity.RdbArea;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaBoundary;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaClosure;
+import com.sitewhere.device.persistence.rdb.entity.RdbAreaType;
+import com.sitewhere.device.persistence.rdb.entity.RdbCommandParameter;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomer;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomerClosure;
+import com.sitewhere.device.persistence.rdb.entity.RdbCustomerType;
+import com.sitewhere.device.persistence.rdb.entity.RdbDevice;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAlarm;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAlarmCounter;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignment;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceAssignmentSummary;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceCommand;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceElementMapping;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceElementSchema;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceGroup;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceGroupElement;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceSlot;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceStatus;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceSummary;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceType;
+import com.sitewhere.device.persistence.rdb.entity.RdbDeviceUnit;
+import com.sitewhere.device.persistence.rdb.entity.RdbZone;
+import com.sitewhere.device.persistence.rdb.entity.RdbZoneBoundary;
+
+/**
+ * PostgreSQL database shared by persistence tests. The container is started
+ * once per run and the device management migrations are applied, so native
+ * queries run against the same schema as in production. Tests use random
+ * tokens and ids rather than cleaning up after themselves.
+ */
+public class RdbTestDatabase {
+
+    /** Schema created by the device management migrations */
+    private static final String SCHEMA = "devicemanagement";
+
+    /** Location of the device management migrations */
+    private static final String MIGRATIONS = "classpath:db/migrations/tenants/devicemanagement";
+
+    /** Entities mapped by device management */
+    private static final Class<?>[] ENTITIES = { RdbArea.class, RdbAreaBoundary.class, RdbAreaClosure.class,
+	    RdbAreaType.class, RdbCommandParameter.class, RdbCustomer.class, RdbCustomerClosure.class,
+	    RdbCustomerType.class, RdbDevice.class, RdbDeviceAlarm.class, RdbDeviceAlarmCounter.class,
+	    RdbDeviceAssignment.class, RdbDeviceAssignmentSummary.class, RdbDeviceCommand.class,
+	    RdbDeviceElementMapping.class, RdbDeviceElementSchema.class, RdbDeviceGroup.class,
+	    RdbDeviceGroupElement.class, RdbDeviceSlot.class, RdbDeviceStatus.class, RdbDeviceSummary.class,
+	    RdbDeviceType.class, RdbDeviceUnit.class, RdbZone.class, RdbZoneBoundary.class };
+
+    /** Shared instance */
+    private static RdbTestDatabase instance;
+
+    /** Database container */
+    private PostgreSQLContainer<?> container;
+
+    /** Creates entity managers */
+    private SessionFactory sessionFactory;
+
+    /**
+     * Get the shared database, starting it on first use.
+     * 
+     * @return
+     */
+    public static synchronized RdbTestDatabase get() {
+	if (instance == null) {
+	    instance = new RdbTestDatabase();
+	    instance.start();
+	}
+	return instance;
+    }
+
+    /**
+     * Start the container, apply migrations and build the session factory.
+     */
+    protected void start() {
+	this.container = new PostgreSQLContainer<>("postgres:12").withUrlParam("currentSchema", SCHEMA);
+	getContainer().start();
+	Runtime.getRuntime().addShutdownHook(new Thread(() -> getContainer().stop()));
+
+	Flyway.configure().dataSource(getContainer().getJdbcUrl(), getContainer().getUsername(),
+		getContainer().getPassword()).schemas(SCHEMA).locations(MIGRATIONS).load().migrate();
+
+	StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+		.applySetting(AvailableSettings.URL, getContainer().getJdbcUrl())
+		.applySetting(AvailableSettings.USER, getContainer().getUsername())
+		.applySetting(AvailableSettings.PASS, getContainer().getPassword())
+		.applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.PostgreSQL95Dialect")
+		.applySetting(AvailableSettings.DEFAULT_SCHEMA, SCHEMA)
+		.applySetting(AvailableSettings.HBM2DDL_AUTO, "none").build();
+	MetadataSources sources = new MetadataSources(registry);
+	for (Class<?> entity : ENTITIES) {
+	    sources.addAnnotatedClass(entity);
+	}
+	this.sessionFactory = sources.buildMetadata().buildSessionFactory();
+    }
+
+    /**
+     * Run work in a transaction that is committed if the work completes.
+     * 
+     * @param work
+     * @return
+     * @throws Exception
+     */
+    public <T> T inTransaction(IWork<T> work) throws Exception {
+	EntityManager entityManager = getSessionFactory().createEntityManager();
+	try {
+	    entityManager.getTransaction().begin();
+	    T result = work.run(entityManager);
+	    entityManager.getTransaction().commit();
+	    return result;
+	} finally {
+	    if (entityManager.getTransaction().isActive()) {
+		entityManager.getTransaction().rollback();
+	    }
+	    entityManager.close();
+	}
+    }
+
+    /**
+     * Create an entity manager for work that manages its own transactions.
+     * 
+     * @return
+     */
+    public EntityManager createEntityManager() {
+	return getSessionFactory().createEntityManager();
+    }
+
+    protected PostgreSQLContainer<?> getContainer() {
+	return container;
+    }
+
+    protected SessionFactory getSessionFactory() {
+	return sessionFactory;
+    }
+
+    /**
+     * Work run with an entity manager.
+     */
+    public static interface IWork<T> {
+
+	/**
+	 * Run work using the entity manager.
+	 * 
+	 * @param entityManager
+	 * @return
+	 * @throws Exception
+	 */
+	public T run(EntityManager entityManager) throws Exception;
+    }
+}
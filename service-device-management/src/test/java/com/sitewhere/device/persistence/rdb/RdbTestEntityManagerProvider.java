@@ -0,0 +1,123 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.device.persistence.rdb;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+import com.sitewhere.rdb.spi.IRdbQueryProvider;
+import com.sitewhere.rdb.spi.ITransactionCallback;
+import com.sitewhere.rest.model.search.SearchResults;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Entity manager provider backed by a single entity manager from the test
+ * database. Only the calls used by the classes under test are supported.
+ */
+public class RdbTestEntityManagerProvider {
+
+    /**
+     * Create a provider that uses the given entity manager.
+     * 
+     * @param entityManager
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static IRdbEntityManagerProvider create(EntityManager entityManager) {
+	return (IRdbEntityManagerProvider) Proxy.newProxyInstance(RdbTestEntityManagerProvider.class.getClassLoader(),
+		new Class<?>[] { IRdbEntityManagerProvider.class }, (proxy, method, args) -> {
+		    switch (method.getName()) {
+		    case "getEntityManager":
+			return entityManager;
+		    case "query":
+			return entityManager.createNamedQuery((String) args[0]);
+		    case "findById":
+			return entityManager.find((Class<?>) args[1], args[0]);
+		    case "findOne":
+			List<?> results = ((Query) args[0]).getResultList();
+			return results.isEmpty() ? null : results.get(0);
+		    case "findMany":
+			return ((Query) args[0]).getResultList();
+		    case "findWithCriteria":
+			return findWithCriteria(entityManager, (IRdbQueryProvider<Object>) args[1],
+				(Class<Object>) args[2]);
+		    case "persist":
+			entityManager.persist(args[0]);
+			return args[0];
+		    case "merge":
+			return entityManager.merge(args[0]);
+		    case "runInTransaction":
+			return runInTransaction(entityManager, (ITransactionCallback<?>) args[0]);
+		    default:
+			throw new UnsupportedOperationException(method.getName());
+		    }
+		});
+    }
+
+    /**
+     * Find all entities that match a query provider. Paging is not applied.
+     * 
+     * @param entityManager
+     * @param provider
+     * @param type
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static <T> SearchResults<T> findWithCriteria(EntityManager entityManager, IRdbQueryProvider<T> provider,
+	    Class<T> type) throws SiteWhereException {
+	CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+	CriteriaQuery<T> query = cb.createQuery(type);
+	Root<T> root = query.from(type);
+	List<Predicate> predicates = new ArrayList<>();
+	provider.addPredicates(cb, predicates, root);
+	query = provider.addSort(cb, root, query.select(root).where(predicates.toArray(new Predicate[0])));
+	return new SearchResults<T>(entityManager.createQuery(query).getResultList());
+    }
+
+    /**
+     * Run a callback in a new transaction. Failures roll back the transaction
+     * and are reported as {@link SiteWhereException}.
+     * 
+     * @param entityManager
+     * @param callback
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static Object runInTransaction(EntityManager entityManager, ITransactionCallback<?> callback)
+	    throws SiteWhereException {
+	entityManager.getTransaction().begin();
+	try {
+	    Object result = callback.process();
+	    entityManager.getTransaction().commit();
+	    return result;
+	} catch (RuntimeException e) {
+	    throw new SiteWhereException("Transaction failed.", e);
+	} finally {
+	    if (entityManager.getTransaction().isActive()) {
+		entityManager.getTransaction().rollback();
+	    }
+	}
+    }
+}
@@ -15,33 +15,54 @@
  */
 package com.sitewhere.registration;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.inject.Inject;
-import com.sitewhere.microservice.api.asset.IAssetManagement;
-import com.sitewhere.microservice.api.device.IDeviceManagement;
+import com.sitewhere.grpc.client.spi.client.IAssetManagementApiChannel;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.microservice.security.SystemUserRunnable;
 import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.registration.configuration.DeviceRegistrationTenantConfiguration;
+import com.sitewhere.registration.configuration.RegistrationProcessing;
+import com.sitewhere.registration.kafka.RegistrationNoticesProducer;
 import com.sitewhere.registration.spi.IRegistrationManager;
+import com.sitewhere.registration.spi.kafka.IRegistrationNoticesProducer;
 import com.sitewhere.registration.spi.microservice.IDeviceRegistrationMicroservice;
+import com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine;
+import com.sitewhere.rest.model.area.Area;
+import com.sitewhere.rest.model.customer.Customer;
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.rest.model.device.DeviceType;
 import com.sitewhere.rest.model.device.command.RegistrationAckCommand;
 import com.sitewhere.rest.model.device.command.RegistrationFailureCommand;
 import com.sitewhere.rest.model.device.request.DeviceAssignmentCreateRequest;
 import com.sitewhere.rest.model.device.request.DeviceCreateRequest;
+import com.sitewhere.shared.grpc.AssetLookupClient;
+import com.sitewhere.shared.grpc.DeviceBulkClient;
+import com.sitewhere.shared.grpc.DeviceLookupClient;
+import com.sitewhere.shared.grpc.DeviceLookupClient.EntityType;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.area.IArea;
 import com.sitewhere.spi.asset.IAsset;
 import com.sitewhere.spi.customer.ICustomer;
 import com.sitewhere.spi.device.IDevice;
-import com.sitewhere.spi.device.IDeviceAssignment;
 import com.sitewhere.spi.device.IDeviceType;
 import com.sitewhere.spi.device.command.RegistrationFailureReason;
 import com.sitewhere.spi.device.command.RegistrationSuccessReason;
-import com.sitewhere.spi.device.event.kafka.IDecodedEventPayload;
 import com.sitewhere.spi.device.event.kafka.IDeviceRegistrationPayload;
 import com.sitewhere.spi.device.request.IDeviceCreateRequest;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
@@ -49,15 +70,27 @@ import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
 import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
 
 /**
- * Base logic for {@link IRegistrationManager} implementations.
+ * Base logic for {@link IRegistrationManager} implementations. Registrations
+ * are collected into batches so that existing devices and referenced device
+ * types, customers, areas and assets are resolved with batch lookups, then
+ * devices and assignments for the batch are stored with a single bulk call to
+ * device management. A reference that can not be resolved only fails the
+ * registrations that use it.
+ * 
+ * Once a device is registered, a notice keyed by the device token is sent to
+ * the unregistered events topic so that events buffered for the device by the
+ * unregistered events pipeline are replayed to inbound processing.
  */
 public class DeviceRegistrationManager extends TenantEngineLifecycleComponent implements IRegistrationManager {
 
     /** Configuration */
     private DeviceRegistrationTenantConfiguration configuration;
 
-    /** Thread pool */
-    private ExecutorService executor;
+    /** Registrations waiting to be batched */
+    private BlockingQueue<IDeviceRegistrationPayload> pending;
+
+    /** Thread that assembles and dispatches batches */
+    private ExecutorService dispatcher;
 
     @Inject
     public DeviceRegistrationManager(DeviceRegistrationTenantConfiguration configuration) {
@@ -73,7 +106,9 @@ public class DeviceRegistrationManager extends TenantEngineLifecycleComponent im
      */
     @Override
     public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	this.executor = Executors.newSingleThreadExecutor();
+	RegistrationProcessing settings = getConfiguration().getRegistrationProcessing();
+	this.pending = new LinkedBlockingQueue<>(
+		Math.max(settings.getBatchSize(), settings.getMaxPendingRegistrations()));
     }
 
     /*
@@ -100,6 +135,8 @@ public class DeviceRegistrationManager extends TenantEngineLifecycleComponent im
 	    getLogger().info(String.format("Registration manager will use default asset '%s' if none is specified.",
 		    getDefaultAssetToken()));
 	}
+	this.dispatcher = Executors.newSingleThreadExecutor();
+	getDispatcher().execute(new BatchDispatcher());
     }
 
     /*
@@ -109,8 +146,8 @@ public class DeviceRegistrationManager extends TenantEngineLifecycleComponent im
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	if (getExecutor() != null) {
-	    getExecutor().shutdownNow();
+	if (getDispatcher() != null) {
+	    getDispatcher().shutdownNow();
 	}
     }
 
@@ -121,30 +158,83 @@ public class DeviceRegistrationManager extends TenantEngineLifecycleComponent im
      */
     @Override
     public void handleDeviceRegistration(IDeviceRegistrationPayload registration) throws SiteWhereException {
-	getExecutor().execute(new RegistrationProcessor(this, registration));
+	try {
+	    getPending().put(registration);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while queueing device registration.", e);
+	}
     }
 
-    /*
-     * @see com.sitewhere.registration.spi.IRegistrationManager#
-     * handleUnregisteredDeviceEvent(com.sitewhere.spi.device.event.kafka.
-     * IDecodedEventPayload)
+    /**
+     * Collects pending registrations into batches and processes them.
      */
-    @Override
-    public void handleUnregisteredDeviceEvent(IDecodedEventPayload payload) throws SiteWhereException {
-	getLogger().info("Would be handling unregistered device event for " + payload.getDeviceToken());
+    private class BatchDispatcher implements Runnable {
+
+	/*
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+	    while (!Thread.currentThread().isInterrupted()) {
+		try {
+		    List<IDeviceRegistrationPayload> batch = nextBatch();
+		    if (batch.size() > 0) {
+			new BatchProcessor(DeviceRegistrationManager.this, batch).run();
+		    }
+		} catch (InterruptedException e) {
+		    return;
+		} catch (Throwable t) {
+		    getLogger().error("Unhandled exception processing device registrations.", t);
+		}
+	    }
+	}
+
+	/**
+	 * Wait for the next registration, then collect more until the batch is full
+	 * or the batch window elapses.
+	 * 
+	 * @return
+	 * @throws InterruptedException
+	 */
+	protected List<IDeviceRegistrationPayload> nextBatch() throws InterruptedException {
+	    RegistrationProcessing settings = getConfiguration().getRegistrationProcessing();
+	    List<IDeviceRegistrationPayload> batch = new ArrayList<>();
+	    IDeviceRegistrationPayload first = getPending().poll(1, TimeUnit.SECONDS);
+	    if (first == null) {
+		return batch;
+	    }
+	    batch.add(first);
+	    long deadline = System.currentTimeMillis() + settings.getBatchWindowMs();
+	    while (batch.size() < settings.getBatchSize()) {
+		long remaining = deadline - System.currentTimeMillis();
+		if (remaining <= 0) {
+		    break;
+		}
+		IDeviceRegistrationPayload next = getPending().poll(remaining, TimeUnit.MILLISECONDS);
+		if (next == null) {
+		    break;
+		}
+		batch.add(next);
+		getPending().drainTo(batch, settings.getBatchSize() - batch.size());
+	    }
+	    return batch;
+	}
     }
 
     /**
-     * Handles registration processing in a thread with system user access.
+     * Processes a batch of registrations with system user access. Referenced
+     * entities are resolved once for the batch and devices and assignments are
+     * stored with a single bulk call. Existing devices are updated and only get
+     * an assignment if they have no active one.
      */
-    protected class RegistrationProcessor extends SystemUserRunnable {
+    protected class BatchProcessor extends SystemUserRunnable {
 
-	private IDeviceRegistrationPayload registration;
+	private List<IDeviceRegistrationPayload> batch;
 
-	public RegistrationProcessor(ITenantEngineLifecycleComponent component,
-		IDeviceRegistrationPayload registration) {
+	public BatchProcessor(ITenantEngineLifecycleComponent component, List<IDeviceRegistrationPayload> batch) {
 	    super(component);
-	    this.registration = registration;
+	    this.batch = batch;
 	}
 
 	/*
@@ -152,129 +242,171 @@ public class DeviceRegistrationManager extends TenantEngineLifecycleComponent im
 	 */
 	@Override
 	public void runAsSystemUser() throws SiteWhereException {
-	    IDevice device = getOrCreateDevice(registration);
-
-	    // Find assignment metadata that should be associated.
-	    ICustomer customer = getCustomerFor(registration);
-	    IArea area = getAreaFor(registration);
-	    IAsset asset = getAssetFor(registration);
-
-	    // Make sure device is assigned.
-	    List<? extends IDeviceAssignment> assignments = getDeviceManagement()
-		    .getActiveDeviceAssignments(device.getId());
-	    if (assignments.size() == 0) {
-		getLogger().debug("Handling unassigned device for registration.");
-		DeviceAssignmentCreateRequest assnCreate = new DeviceAssignmentCreateRequest();
-		assnCreate.setDeviceToken(device.getToken());
-		if (customer != null) {
-		    assnCreate.setCustomerToken(customer.getToken());
-		}
-		if (area != null) {
-		    assnCreate.setAreaToken(area.getToken());
+	    long start = System.currentTimeMillis();
+
+	    // Only the latest registration for a device is processed.
+	    Map<String, IDeviceRegistrationPayload> byToken = new LinkedHashMap<>();
+	    for (IDeviceRegistrationPayload registration : batch) {
+		byToken.put(registration.getDeviceToken(), registration);
+	    }
+	    RegistrationReferences references = resolveReferences(byToken.values());
+
+	    List<IDeviceRegistrationPayload> accepted = new ArrayList<>();
+	    List<Map<String, Object>> entries = new ArrayList<>();
+	    for (IDeviceRegistrationPayload registration : byToken.values()) {
+		try {
+		    entries.add(buildEntry(registration, references));
+		    accepted.add(registration);
+		} catch (SiteWhereException e) {
+		    getLogger().error(String.format("Unable to register device '%s'.", registration.getDeviceToken()),
+			    e);
 		}
-		if (asset != null) {
-		    assnCreate.setAssetToken(asset.getToken());
+	    }
+	    if (entries.size() > 0) {
+		String mode = isAllowNewDevices() ? "Upsert" : "Update";
+		JsonNode response = new DeviceBulkClient(getDeviceManagementApiChannel()).bulkProvisionDevices(mode,
+			entries, true, true);
+		for (JsonNode result : response.path("results")) {
+		    handleResult(accepted.get(result.path("index").asInt()), result);
 		}
-		getDeviceManagement().createDeviceAssignment(assnCreate);
 	    }
-	    boolean isNewRegistration = (device != null);
-	    sendRegistrationAck(registration.getDeviceToken(), isNewRegistration);
+	    getLogger().info(String.format("Processed batch of %d device registrations in %dms.", byToken.size(),
+		    System.currentTimeMillis() - start));
 	}
 
 	/**
-	 * Get existing device or create a new one based on registration request.
+	 * Look up existing devices and each distinct device type, customer, area and
+	 * asset referenced in the batch (including defaults) with batch lookups. A
+	 * failed lookup marks its tokens as unresolved rather than failing the batch.
 	 * 
-	 * @param registration
+	 * @param registrations
 	 * @return
-	 * @throws SiteWhereException
 	 */
-	protected IDevice getOrCreateDevice(IDeviceRegistrationPayload registration) throws SiteWhereException {
-	    IDevice device = getDeviceManagement().getDeviceByToken(registration.getDeviceToken());
-	    IDeviceCreateRequest request = registration.getDeviceRegistrationRequest();
-	    if (device == null) {
-		if (!isAllowNewDevices()) {
-		    throw new SiteWhereException("Ignoring device registration request. New devices are not allowed.");
-		}
-		// Create device if it does not already exist.
-		getLogger().info("Creating new device as part of registration.");
-		DeviceCreateRequest deviceCreate = new DeviceCreateRequest();
-		deviceCreate.setToken(request.getToken() != null ? request.getToken() : registration.getDeviceToken());
-		deviceCreate.setDeviceTypeToken(request.getDeviceTypeToken());
-		deviceCreate.setStatus(request.getStatus());
-		deviceCreate.setDeviceElementMappings(request.getDeviceElementMappings());
-		deviceCreate.setParentDeviceToken(request.getParentDeviceToken());
-		deviceCreate.setComments(request.getComments() != null ? request.getComments()
-			: "Device created by on-demand registration.");
-		deviceCreate.setMetadata(request.getMetadata());
-		return getDeviceManagement().createDevice(deviceCreate);
-	    } else {
-		getLogger().info("Found existing device registration. Updating device information.");
-		return getDeviceManagement().updateDevice(device.getId(), request);
+	protected RegistrationReferences resolveReferences(Collection<IDeviceRegistrationPayload> registrations) {
+	    Set<String> deviceTokens = new LinkedHashSet<>();
+	    Set<String> deviceTypeTokens = new LinkedHashSet<>();
+	    Set<String> customerTokens = new LinkedHashSet<>();
+	    Set<String> areaTokens = new LinkedHashSet<>();
+	    Set<String> assetTokens = new LinkedHashSet<>();
+	    for (IDeviceRegistrationPayload registration : registrations) {
+		addToken(deviceTokens, registration.getDeviceToken());
+		addToken(deviceTypeTokens, getDeviceTypeTokenFor(registration));
+		addToken(customerTokens, getCustomerTokenFor(registration));
+		addToken(areaTokens, getAreaTokenFor(registration));
+		addToken(assetTokens, getAssetTokenFor(registration));
 	    }
+
+	    DeviceLookupClient devices = new DeviceLookupClient(getDeviceManagementApiChannel());
+	    AssetLookupClient assets = new AssetLookupClient(getAssetManagementApiChannel());
+	    RegistrationReferences references = new RegistrationReferences();
+	    references.getDevices().resolve(deviceTokens,
+		    tokens -> devices.getByTokens(EntityType.Device, tokens, Device.class));
+	    references.getDeviceTypes().resolve(deviceTypeTokens,
+		    tokens -> devices.getByTokens(EntityType.DeviceType, tokens, DeviceType.class));
+	    references.getCustomers().resolve(customerTokens,
+		    tokens -> devices.getByTokens(EntityType.Customer, tokens, Customer.class));
+	    references.getAreas().resolve(areaTokens,
+		    tokens -> devices.getByTokens(EntityType.Area, tokens, Area.class));
+	    references.getAssets().resolve(assetTokens, tokens -> assets.getAssetsByToken(tokens));
+	    return references;
 	}
 
 	/**
-	 * Get device type that should be used for the given request.
+	 * Build bulk entry for a registration. References are checked here so that a
+	 * registration with an invalid reference is rejected without affecting the
+	 * rest of the batch.
 	 * 
 	 * @param registration
+	 * @param references
 	 * @return
 	 * @throws SiteWhereException
 	 */
-	protected IDeviceType getDeviceTypeFor(IDeviceRegistrationPayload registration) throws SiteWhereException {
-	    String deviceTypeToken = registration.getDeviceRegistrationRequest().getDeviceTypeToken();
-	    if (deviceTypeToken == null) {
-		if (isUseDefaultDeviceType()) {
-		    deviceTypeToken = getDefaultDeviceTypeToken();
-		} else {
+	protected Map<String, Object> buildEntry(IDeviceRegistrationPayload registration,
+		RegistrationReferences references) throws SiteWhereException {
+	    ICustomer customer = references.getCustomers().get(getCustomerTokenFor(registration));
+	    IArea area = references.getAreas().get(getAreaTokenFor(registration));
+	    IAsset asset = references.getAssets().get(getAssetTokenFor(registration));
+	    IDevice existing = references.getDevices().find(registration.getDeviceToken());
+
+	    IDeviceCreateRequest request = registration.getDeviceRegistrationRequest();
+	    DeviceCreateRequest device = new DeviceCreateRequest();
+	    device.setToken(registration.getDeviceToken());
+	    device.setDeviceTypeToken(request.getDeviceTypeToken());
+	    device.setComments(request.getComments());
+	    if (existing == null) {
+		if (!isAllowNewDevices()) {
+		    throw new SiteWhereException("Ignoring device registration request. New devices are not allowed.");
+		}
+		String deviceTypeToken = getDeviceTypeTokenFor(registration);
+		if (deviceTypeToken == null) {
 		    throw new SiteWhereException("Device type not passed and no default provided.");
 		}
+		references.getDeviceTypes().get(deviceTypeToken);
+		device.setToken(request.getToken() != null ? request.getToken() : registration.getDeviceToken());
+		device.setDeviceTypeToken(deviceTypeToken);
+		device.setComments(request.getComments() != null ? request.getComments()
+			: "Device created by on-demand registration.");
 	    }
-	    return getDeviceManagement().getDeviceTypeByToken(deviceTypeToken);
-	}
-
-	/**
-	 * Get customer that should be used for the given request.
-	 * 
-	 * @param registration
-	 * @return
-	 * @throws SiteWhereException
-	 */
-	protected ICustomer getCustomerFor(IDeviceRegistrationPayload registration) throws SiteWhereException {
-	    String customerToken = registration.getDeviceRegistrationRequest().getCustomerToken();
-	    if (customerToken == null && isUseDefaultCustomer()) {
-		customerToken = getDefaultCustomerToken();
+	    device.setStatus(request.getStatus());
+	    device.setDeviceElementMappings(request.getDeviceElementMappings());
+	    device.setParentDeviceToken(request.getParentDeviceToken());
+	    device.setMetadata(request.getMetadata());
+
+	    // Only used if the device has no active assignment.
+	    DeviceAssignmentCreateRequest assignment = new DeviceAssignmentCreateRequest();
+	    assignment.setDeviceToken(device.getToken());
+	    if (customer != null) {
+		assignment.setCustomerToken(customer.getToken());
+	    }
+	    if (area != null) {
+		assignment.setAreaToken(area.getToken());
+	    }
+	    if (asset != null) {
+		assignment.setAssetToken(asset.getToken());
 	    }
-	    return customerToken != null ? getDeviceManagement().getCustomerByToken(customerToken) : null;
+
+	    Map<String, Object> entry = new HashMap<>();
+	    entry.put("device", device);
+	    entry.put("assignment", assignment);
+	    return entry;
 	}
 
 	/**
-	 * Get area that should be used for the given request.
+	 * Acknowledge a registration stored by the bulk call and release events
+	 * buffered for the device.
 	 * 
 	 * @param registration
-	 * @return
-	 * @throws SiteWhereException
+	 * @param result
 	 */
-	protected IArea getAreaFor(IDeviceRegistrationPayload registration) throws SiteWhereException {
-	    String areaToken = registration.getDeviceRegistrationRequest().getAreaToken();
-	    if (areaToken == null && isUseDefaultArea()) {
-		areaToken = getDefaultAreaToken();
+	protected void handleResult(IDeviceRegistrationPayload registration, JsonNode result) {
+	    String action = result.path("deviceAction").asText();
+	    if ("Failed".equals(action)) {
+		getLogger().error(String.format("Unable to register device '%s'. %s", registration.getDeviceToken(),
+			result.path("error").asText()));
+		return;
+	    }
+	    try {
+		sendRegistrationAck(registration.getDeviceToken(), "Created".equals(action));
+
+		// Release events that arrived before the device was registered.
+		getRegistrationNoticesProducer().send(registration.getDeviceToken(),
+			RegistrationNoticesProducer.NOTICE);
+	    } catch (SiteWhereException e) {
+		getLogger().error(String.format("Unable to complete registration of device '%s'.",
+			registration.getDeviceToken()), e);
 	    }
-	    return areaToken != null ? getDeviceManagement().getAreaByToken(areaToken) : null;
 	}
 
 	/**
-	 * Get asset that should be used for the given request.
+	 * Add a token to a set if not null.
 	 * 
-	 * @param registration
-	 * @return
-	 * @throws SiteWhereException
+	 * @param tokens
+	 * @param token
 	 */
-	protected IAsset getAssetFor(IDeviceRegistrationPayload registration) throws SiteWhereException {
-	    String assetToken = registration.getDeviceRegistrationRequest().getAssetToken();
-	    if (assetToken == null && isUseDefaultAsset()) {
-		assetToken = getDefaultAssetToken();
+	protected void addToken(Set<String> tokens, String token) {
+	    if (token != null) {
+		tokens.add(token);
 	    }
-	    return assetToken != null ? getAssetManagement().getAssetByToken(assetToken) : null;
 	}
 
 	/**
@@ -320,6 +452,195 @@ public class DeviceRegistrationManager extends TenantEngineLifecycleComponent im
 	}
     }
 
+    /**
+     * Entities referenced by registrations in a batch, indexed by token.
+     */
+    protected static class RegistrationReferences {
+
+	/** Existing devices by token */
+	private References<IDevice> devices = new References<>("device");
+
+	/** Device types by token */
+	private References<IDeviceType> deviceTypes = new References<>("device type");
+
+	/** Customers by token */
+	private References<ICustomer> customers = new References<>("customer");
+
+	/** Areas by token */
+	private References<IArea> areas = new References<>("area");
+
+	/** Assets by token */
+	private References<IAsset> assets = new References<>("asset");
+
+	public References<IDevice> getDevices() {
+	    return devices;
+	}
+
+	public References<IDeviceType> getDeviceTypes() {
+	    return deviceTypes;
+	}
+
+	public References<ICustomer> getCustomers() {
+	    return customers;
+	}
+
+	public References<IArea> getAreas() {
+	    return areas;
+	}
+
+	public References<IAsset> getAssets() {
+	    return assets;
+	}
+    }
+
+    /**
+     * Looks up entities for a set of tokens.
+     */
+    @FunctionalInterface
+    protected static interface ReferenceLookup<T> {
+
+	/**
+	 * Get entities by token. Tokens that did not match are omitted.
+	 * 
+	 * @param tokens
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public Map<String, ? extends T> lookup(Collection<String> tokens) throws SiteWhereException;
+    }
+
+    /**
+     * Entities of one type resolved for a batch along with tokens whose lookup
+     * failed.
+     */
+    protected static class References<T> {
+
+	/** Entity type name used in messages */
+	private String name;
+
+	/** Entities by token */
+	private Map<String, T> found = new HashMap<>();
+
+	/** Tokens that could not be looked up */
+	private Map<String, SiteWhereException> failed = new HashMap<>();
+
+	public References(String name) {
+	    this.name = name;
+	}
+
+	/**
+	 * Resolve tokens with a lookup. If the lookup fails, each token is marked as
+	 * failed so only registrations that reference them are rejected.
+	 * 
+	 * @param tokens
+	 * @param lookup
+	 */
+	public void resolve(Collection<String> tokens, ReferenceLookup<T> lookup) {
+	    if (tokens.isEmpty()) {
+		return;
+	    }
+	    try {
+		found.putAll(lookup.lookup(tokens));
+	    } catch (Throwable t) {
+		SiteWhereException error = new SiteWhereException(String.format("Unable to look up %s.", name), t);
+		for (String token : tokens) {
+		    failed.put(token, error);
+		}
+	    }
+	}
+
+	/**
+	 * Get entity for a token that may not exist.
+	 * 
+	 * @param token
+	 * @return entity or null if token is null or did not match
+	 * @throws SiteWhereException
+	 *             if the lookup for the token failed
+	 */
+	public T find(String token) throws SiteWhereException {
+	    if (token == null) {
+		return null;
+	    }
+	    SiteWhereException error = failed.get(token);
+	    if (error != null) {
+		throw error;
+	    }
+	    return found.get(token);
+	}
+
+	/**
+	 * Get entity for a token that must exist.
+	 * 
+	 * @param token
+	 * @return entity or null if token is null
+	 * @throws SiteWhereException
+	 *             if the lookup failed or the token did not match
+	 */
+	public T get(String token) throws SiteWhereException {
+	    T entity = find(token);
+	    if (token != null && entity == null) {
+		throw new SiteWhereException(String.format("Invalid %s token '%s'.", name, token));
+	    }
+	    return entity;
+	}
+    }
+
+    /**
+     * Get device type token for a registration, falling back to the default.
+     * 
+     * @param registration
+     * @return
+     */
+    protected String getDeviceTypeTokenFor(IDeviceRegistrationPayload registration) {
+	String deviceTypeToken = registration.getDeviceRegistrationRequest().getDeviceTypeToken();
+	if (deviceTypeToken == null && isUseDefaultDeviceType()) {
+	    deviceTypeToken = getDefaultDeviceTypeToken();
+	}
+	return deviceTypeToken;
+    }
+
+    /**
+     * Get customer token for a registration, falling back to the default.
+     * 
+     * @param registration
+     * @return
+     */
+    protected String getCustomerTokenFor(IDeviceRegistrationPayload registration) {
+	String customerToken = registration.getDeviceRegistrationRequest().getCustomerToken();
+	if (customerToken == null && isUseDefaultCustomer()) {
+	    customerToken = getDefaultCustomerToken();
+	}
+	return customerToken;
+    }
+
+    /**
+     * Get area token for a registration, falling back to the default.
+     * 
+     * @param registration
+     * @return
+     */
+    protected String getAreaTokenFor(IDeviceRegistrationPayload registration) {
+	String areaToken = registration.getDeviceRegistrationRequest().getAreaToken();
+	if (areaToken == null && isUseDefaultArea()) {
+	    areaToken = getDefaultAreaToken();
+	}
+	return areaToken;
+    }
+
+    /**
+     * Get asset token for a registration, falling back to the default.
+     * 
+     * @param registration
+     * @return
+     */
+    protected String getAssetTokenFor(IDeviceRegistrationPayload registration) {
+	String assetToken = registration.getDeviceRegistrationRequest().getAssetToken();
+	if (assetToken == null && isUseDefaultAsset()) {
+	    assetToken = getDefaultAssetToken();
+	}
+	return assetToken;
+    }
+
     /*
      * @see com.sitewhere.registration.spi.IRegistrationManager#isAllowNewDevices()
      */
@@ -403,15 +724,23 @@ public class DeviceRegistrationManager extends TenantEngineLifecycleComponent im
 	return configuration;
     }
 
-    protected ExecutorService getExecutor() {
-	return executor;
+    protected BlockingQueue<IDeviceRegistrationPayload> getPending() {
+	return pending;
+    }
+
+    protected ExecutorService getDispatcher() {
+	return dispatcher;
+    }
+
+    private IRegistrationNoticesProducer getRegistrationNoticesProducer() {
+	return ((IDeviceRegistrationTenantEngine) getTenantEngine()).getRegistrationNoticesProducer();
     }
 
-    private IDeviceManagement getDeviceManagement() {
-	return ((IDeviceRegistrationMicroservice) getTenantEngine().getMicroservice()).getDeviceManagement();
+    private IDeviceManagementApiChannel<?> getDeviceManagementApiChannel() {
+	return ((IDeviceRegistrationMicroservice) getTenantEngine().getMicroservice()).getDeviceManagementApiChannel();
     }
 
-    private IAssetManagement getAssetManagement() {
-	return ((IDeviceRegistrationMicroservice) getTenantEngine().getMicroservice()).getAssetManagement();
+    private IAssetManagementApiChannel<?> getAssetManagementApiChannel() {
+	return ((IDeviceRegistrationMicroservice) getTenantEngine().getMicroservice()).getAssetManagementApiChannel();
     }
 }
\ No newline at end of file
@@ -0,0 +1,394 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.registration;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Holds events from devices that are not registered yet so they can be
+ * replayed once registration completes. Events are kept in a key/value state
+ * that outlives the process, and only an index of keys is held in memory. The
+ * index is rebuilt from the state when the buffer is created. Storage is
+ * bounded by a per-device limit, a global limit (oldest devices are evicted
+ * first) and a time to live. Devices registered recently are remembered for
+ * the same time to live so events that raced their registration are released
+ * immediately.
+ */
+public class UnregisteredEventBuffer {
+
+    /** Prefix for keys of buffered events */
+    private static final String EVENT_PREFIX = "event:";
+
+    /** Prefix for keys of registration markers */
+    private static final String REGISTERED_PREFIX = "registered:";
+
+    /** State that holds buffered events and registration markers */
+    private State state;
+
+    /** Maximum events held per device */
+    private int maxEventsPerDevice;
+
+    /** Maximum events held across all devices */
+    private int maxEvents;
+
+    /** Time an event is held waiting for registration */
+    private long ttlMs;
+
+    /** Buffered events by device token in order of first arrival */
+    private LinkedHashMap<String, Deque<BufferedEvent>> eventsByToken = new LinkedHashMap<>();
+
+    /** Registration time of recently registered device tokens */
+    private LinkedHashMap<String, Long> recentlyRegistered = new LinkedHashMap<>();
+
+    /** Sequence number for the next buffered event */
+    private long sequence = 0;
+
+    /** Number of events currently buffered */
+    private int size = 0;
+
+    /** Number of events dropped due to limits or expiration */
+    private long dropped = 0;
+
+    public UnregisteredEventBuffer(State state, int maxEventsPerDevice, int maxEvents, long ttlMs) {
+	this.state = state;
+	this.maxEventsPerDevice = Math.max(1, maxEventsPerDevice);
+	this.maxEvents = Math.max(1, maxEvents);
+	this.ttlMs = ttlMs;
+	restore();
+    }
+
+    /**
+     * Buffer an event for a device that is not registered. If the device was
+     * registered in the meantime, the event is passed on for immediate replay
+     * instead.
+     * 
+     * @param token
+     * @param payload
+     * @param replay
+     */
+    public synchronized void add(String token, byte[] payload, Consumer<byte[]> replay) {
+	if (recentlyRegistered.containsKey(token)) {
+	    replay.accept(payload);
+	    return;
+	}
+	Deque<BufferedEvent> events = eventsByToken.get(token);
+	if (events == null) {
+	    events = new ArrayDeque<>();
+	    eventsByToken.put(token, events);
+	}
+	if (events.size() >= maxEventsPerDevice) {
+	    drop(events.removeFirst());
+	}
+	long received = System.currentTimeMillis();
+	BufferedEvent event = new BufferedEvent(eventKey(sequence++, token), received);
+	getState().put(event.getKey(), encode(received, payload));
+	events.addLast(event);
+	size++;
+
+	// Evict events of devices that have waited longest.
+	Iterator<Deque<BufferedEvent>> it = eventsByToken.values().iterator();
+	while (size > maxEvents && it.hasNext()) {
+	    Deque<BufferedEvent> oldest = it.next();
+	    for (BufferedEvent evicted : oldest) {
+		drop(evicted);
+	    }
+	    it.remove();
+	}
+    }
+
+    /**
+     * Mark a device as registered and pass events buffered for it on for replay
+     * in the order they arrived. Events are only removed from the state after
+     * they have been passed on.
+     * 
+     * @param token
+     * @param replay
+     */
+    public synchronized void release(String token, Consumer<byte[]> replay) {
+	recentlyRegistered.remove(token);
+	long now = System.currentTimeMillis();
+	recentlyRegistered.put(token, now);
+	getState().put(REGISTERED_PREFIX + token, encode(now, new byte[0]));
+	Deque<BufferedEvent> events = eventsByToken.remove(token);
+	if (events == null) {
+	    return;
+	}
+	for (BufferedEvent event : events) {
+	    byte[] value = getState().get(event.getKey());
+	    if (value != null) {
+		replay.accept(payload(value));
+	    }
+	}
+	for (BufferedEvent event : events) {
+	    getState().delete(event.getKey());
+	}
+	size -= events.size();
+    }
+
+    /**
+     * Drop events and registration markers that are older than the time to
+     * live.
+     */
+    public synchronized void expire() {
+	long cutoff = System.currentTimeMillis() - ttlMs;
+	Iterator<Deque<BufferedEvent>> events = eventsByToken.values().iterator();
+	while (events.hasNext()) {
+	    Deque<BufferedEvent> deque = events.next();
+	    while (!deque.isEmpty() && deque.peekFirst().getReceived() < cutoff) {
+		drop(deque.removeFirst());
+	    }
+	    if (deque.isEmpty()) {
+		events.remove();
+	    }
+	}
+	Iterator<Map.Entry<String, Long>> registered = recentlyRegistered.entrySet().iterator();
+	while (registered.hasNext()) {
+	    Map.Entry<String, Long> entry = registered.next();
+	    if (entry.getValue() >= cutoff) {
+		break;
+	    }
+	    getState().delete(REGISTERED_PREFIX + entry.getKey());
+	    registered.remove();
+	}
+    }
+
+    /**
+     * Get number of events currently buffered.
+     * 
+     * @return
+     */
+    public synchronized int getSize() {
+	return size;
+    }
+
+    /**
+     * Get number of events dropped due to limits or expiration.
+     * 
+     * @return
+     */
+    public synchronized long getDroppedCount() {
+	return dropped;
+    }
+
+    /**
+     * Rebuild the in-memory index from events and markers in the state.
+     */
+    protected void restore() {
+	TreeMap<Long, BufferedEvent> events = new TreeMap<>();
+	List<Map.Entry<String, Long>> registered = new ArrayList<>();
+	getState().scan((key, value) -> {
+	    if (key.startsWith(EVENT_PREFIX)) {
+		int separator = key.indexOf(':', EVENT_PREFIX.length());
+		long seq = Long.parseLong(key.substring(EVENT_PREFIX.length(), separator));
+		events.put(seq, new BufferedEvent(key, received(value)));
+		sequence = Math.max(sequence, seq + 1);
+	    } else if (key.startsWith(REGISTERED_PREFIX)) {
+		registered.add(new AbstractMap.SimpleEntry<>(key.substring(REGISTERED_PREFIX.length()),
+			received(value)));
+	    }
+	});
+	for (BufferedEvent event : events.values()) {
+	    String token = event.getKey().substring(event.getKey().indexOf(':', EVENT_PREFIX.length()) + 1);
+	    eventsByToken.computeIfAbsent(token, t -> new ArrayDeque<>()).addLast(event);
+	    size++;
+	}
+	registered.sort(Map.Entry.comparingByValue());
+	for (Map.Entry<String, Long> entry : registered) {
+	    recentlyRegistered.put(entry.getKey(), entry.getValue());
+	}
+    }
+
+    /**
+     * Remove a buffered event from the state and count it as dropped.
+     * 
+     * @param event
+     */
+    protected void drop(BufferedEvent event) {
+	getState().delete(event.getKey());
+	size--;
+	dropped++;
+    }
+
+    /**
+     * Build key for a buffered event. The sequence number keeps arrival order
+     * across restarts.
+     * 
+     * @param seq
+     * @param token
+     * @return
+     */
+    protected static String eventKey(long seq, String token) {
+	return String.format("%s%019d:%s", EVENT_PREFIX, seq, token);
+    }
+
+    /**
+     * Encode a stored value as a timestamp followed by the payload.
+     * 
+     * @param time
+     * @param payload
+     * @return
+     */
+    protected static byte[] encode(long time, byte[] payload) {
+	return ByteBuffer.allocate(Long.BYTES + payload.length).putLong(time).put(payload).array();
+    }
+
+    /**
+     * Get timestamp from a stored value.
+     * 
+     * @param value
+     * @return
+     */
+    protected static long received(byte[] value) {
+	return ByteBuffer.wrap(value).getLong();
+    }
+
+    /**
+     * Get payload from a stored value.
+     * 
+     * @param value
+     * @return
+     */
+    protected static byte[] payload(byte[] value) {
+	byte[] payload = new byte[value.length - Long.BYTES];
+	System.arraycopy(value, Long.BYTES, payload, 0, payload.length);
+	return payload;
+    }
+
+    protected State getState() {
+	return state;
+    }
+
+    /**
+     * Key/value storage for buffered events.
+     */
+    public static interface State {
+
+	/**
+	 * Get value for a key.
+	 * 
+	 * @param key
+	 * @return value or null if not found
+	 */
+	public byte[] get(String key);
+
+	/**
+	 * Store value for a key.
+	 * 
+	 * @param key
+	 * @param value
+	 */
+	public void put(String key, byte[] value);
+
+	/**
+	 * Delete value for a key.
+	 * 
+	 * @param key
+	 */
+	public void delete(String key);
+
+	/**
+	 * Visit all entries.
+	 * 
+	 * @param visitor
+	 */
+	public void scan(BiConsumer<String, byte[]> visitor);
+    }
+
+    /**
+     * State held in memory.
+     */
+    public static class MemoryState implements State {
+
+	/** Values by key */
+	private TreeMap<String, byte[]> values = new TreeMap<>();
+
+	/*
+	 * @see com.sitewhere.registration.UnregisteredEventBuffer.State#get(java.lang.
+	 * String)
+	 */
+	@Override
+	public byte[] get(String key) {
+	    return values.get(key);
+	}
+
+	/*
+	 * @see com.sitewhere.registration.UnregisteredEventBuffer.State#put(java.lang.
+	 * String, byte[])
+	 */
+	@Override
+	public void put(String key, byte[] value) {
+	    values.put(key, value);
+	}
+
+	/*
+	 * @see
+	 * com.sitewhere.registration.UnregisteredEventBuffer.State#delete(java.lang.
+	 * String)
+	 */
+	@Override
+	public void delete(String key) {
+	    values.remove(key);
+	}
+
+	/*
+	 * @see
+	 * com.sitewhere.registration.UnregisteredEventBuffer.State#scan(java.util.
+	 * function.BiConsumer)
+	 */
+	@Override
+	public void scan(BiConsumer<String, byte[]> visitor) {
+	    for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+		visitor.accept(entry.getKey(), entry.getValue());
+	    }
+	}
+    }
+
+    /**
+     * Key of a buffered event with the time it was received.
+     */
+    private static class BufferedEvent {
+
+	/** Key of event in state */
+	private String key;
+
+	/** Time event was buffered */
+	private long received;
+
+	public BufferedEvent(String key, long received) {
+	    this.key = key;
+	    this.received = received;
+	}
+
+	public String getKey() {
+	    return key;
+	}
+
+	public long getReceived() {
+	    return received;
+	}
+    }
+}
@@ -31,6 +31,9 @@ public class DeviceRegistrationTenantConfiguration implements ITenantEngineConfi
     /** Assignment defaults */
     private AssignmentDefaults assignmentDefaults = new AssignmentDefaults();
 
+    /** Registration processing settings */
+    private RegistrationProcessing registrationProcessing = new RegistrationProcessing();
+
     public boolean isAllowNewDevices() {
 	return allowNewDevices;
     }
@@ -46,4 +49,12 @@ public class DeviceRegistrationTenantConfiguration implements ITenantEngineConfi
     public void setAssignmentDefaults(AssignmentDefaults assignmentDefaults) {
 	this.assignmentDefaults = assignmentDefaults;
     }
+
+    public RegistrationProcessing getRegistrationProcessing() {
+	return registrationProcessing;
+    }
+
+    public void setRegistrationProcessing(RegistrationProcessing registrationProcessing) {
+	this.registrationProcessing = registrationProcessing;
+    }
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.registration.configuration;
+
+/**
+ * Settings for batched processing of device registrations and buffering of
+ * events from devices that are not yet registered.
+ */
+public class RegistrationProcessing {
+
+    /** Default maximum number of registrations processed in a batch */
+    private static final int DEFAULT_BATCH_SIZE = 250;
+
+    /** Default time to wait for a batch to fill */
+    private static final long DEFAULT_BATCH_WINDOW_MS = 200;
+
+    /** Default maximum number of registrations waiting to be batched */
+    private static final int DEFAULT_MAX_PENDING_REGISTRATIONS = 10000;
+
+    /** Default setting for buffering events of unregistered devices */
+    private static final boolean DEFAULT_BUFFER_UNREGISTERED_EVENTS = true;
+
+    /** Default maximum number of events buffered per unregistered device */
+    private static final int DEFAULT_MAX_BUFFERED_EVENTS_PER_DEVICE = 25;
+
+    /** Default maximum number of events buffered across all devices */
+    private static final int DEFAULT_MAX_BUFFERED_EVENTS = 200000;
+
+    /** Default time an event stays buffered waiting for registration */
+    private static final long DEFAULT_BUFFERED_EVENT_TTL_MS = 5 * 60 * 1000;
+
+    /** Maximum number of registrations processed in a batch */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Time to wait for a batch to fill */
+    private long batchWindowMs = DEFAULT_BATCH_WINDOW_MS;
+
+    /** Maximum number of registrations waiting to be batched */
+    private int maxPendingRegistrations = DEFAULT_MAX_PENDING_REGISTRATIONS;
+
+    /** Indicates whether events of unregistered devices are buffered */
+    private boolean bufferUnregisteredEvents = DEFAULT_BUFFER_UNREGISTERED_EVENTS;
+
+    /** Maximum number of events buffered per unregistered device */
+    private int maxBufferedEventsPerDevice = DEFAULT_MAX_BUFFERED_EVENTS_PER_DEVICE;
+
+    /** Maximum number of events buffered across all devices */
+    private int maxBufferedEvents = DEFAULT_MAX_BUFFERED_EVENTS;
+
+    /** Time an event stays buffered waiting for registration */
+    private long bufferedEventTtlMs = DEFAULT_BUFFERED_EVENT_TTL_MS;
+
+    public int getBatchSize() {
+	return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+	this.batchSize = batchSize;
+    }
+
+    public long getBatchWindowMs() {
+	return batchWindowMs;
+    }
+
+    public void setBatchWindowMs(long batchWindowMs) {
+	this.batchWindowMs = batchWindowMs;
+    }
+
+    public int getMaxPendingRegistrations() {
+	return maxPendingRegistrations;
+    }
+
+    public void setMaxPendingRegistrations(int maxPendingRegistrations) {
+	this.maxPendingRegistrations = maxPendingRegistrations;
+    }
+
+    public boolean isBufferUnregisteredEvents() {
+	return bufferUnregisteredEvents;
+    }
+
+    public void setBufferUnregisteredEvents(boolean bufferUnregisteredEvents) {
+	this.bufferUnregisteredEvents = bufferUnregisteredEvents;
+    }
+
+    public int getMaxBufferedEventsPerDevice() {
+	return maxBufferedEventsPerDevice;
+    }
+
+    public void setMaxBufferedEventsPerDevice(int maxBufferedEventsPerDevice) {
+	this.maxBufferedEventsPerDevice = maxBufferedEventsPerDevice;
+    }
+
+    public int getMaxBufferedEvents() {
+	return maxBufferedEvents;
+    }
+
+    public void setMaxBufferedEvents(int maxBufferedEvents) {
+	this.maxBufferedEvents = maxBufferedEvents;
+    }
+
+    public long getBufferedEventTtlMs() {
+	return bufferedEventTtlMs;
+    }
+
+    public void setBufferedEventTtlMs(long bufferedEventTtlMs) {
+	this.bufferedEventTtlMs = bufferedEventTtlMs;
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.registration.kafka;
+
+import com.sitewhere.microservice.kafka.MicroserviceKafkaProducer;
+import com.sitewhere.registration.spi.kafka.IRegistrationNoticesProducer;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Kafka producer that sends an empty record keyed by device token to the
+ * unregistered device events topic once a device is registered. The record is
+ * read by the unregistered events pipeline on whichever replica owns the
+ * partition for the device, which releases the events buffered there.
+ */
+public class RegistrationNoticesProducer extends MicroserviceKafkaProducer<String, byte[]>
+	implements IRegistrationNoticesProducer {
+
+    /** Value sent as a registration notice */
+    public static final byte[] NOTICE = new byte[0];
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#
+     * getTargetTopicName()
+     */
+    @Override
+    public String getTargetTopicName() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming()
+		.getUnregisteredDeviceEventsTopic(getTenantEngine().getTenantResource());
+    }
+}
@@ -21,8 +21,9 @@ import java.util.List;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.state.Stores;
 
-import com.sitewhere.grpc.kafka.serdes.SiteWhereSerdes;
 import com.sitewhere.microservice.kafka.KafkaStreamPipeline;
 import com.sitewhere.registration.spi.kafka.IUnregisteredEventsPipeline;
 import com.sitewhere.spi.SiteWhereException;
@@ -33,8 +34,11 @@ import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
  */
 public class UnregisteredEventsPipeline extends KafkaStreamPipeline implements IUnregisteredEventsPipeline {
 
+    /** Name of state store holding buffered events */
+    private static final String STORE_NAME = "unregistered-events";
+
     /** Handles processing of events for unregistered devices */
-    private UnregisteredEventsProcessorSupplier unregisteredEventsProcessorSupplier;
+    private UnregisteredEventsTransformerSupplier unregisteredEventsTransformerSupplier;
 
     /*
      * @see com.sitewhere.microservice.kafka.KafkaStreamPipeline#getPipelineName()
@@ -64,9 +68,16 @@ public class UnregisteredEventsPipeline extends KafkaStreamPipeline implements I
      */
     @Override
     public void buildStreams(StreamsBuilder builder) {
-	// Pipeline handles both event source decoded events and reprocess events.
-	builder.stream(getSourceTopicNames(), Consumed.with(Serdes.String(), SiteWhereSerdes.forDecodedEventPayload()))
-		.process(getUnregisteredEventsProcessorSupplier(), new String[0]);
+	builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(STORE_NAME), Serdes.String(),
+		Serdes.ByteArray()));
+
+	// Topic carries decoded events and registration notices keyed by device token.
+	// Events released by a registration are sent back to inbound processing.
+	String reprocessTopic = getMicroservice().getKafkaTopicNaming()
+		.getInboundReprocessEventsTopic(getTenantEngine().getTenantResource());
+	builder.stream(getSourceTopicNames(), Consumed.with(Serdes.String(), Serdes.ByteArray()))
+		.transform(getUnregisteredEventsTransformerSupplier(), STORE_NAME)
+		.to(reprocessTopic, Produced.with(Serdes.String(), Serdes.ByteArray()));
     }
 
     /*
@@ -76,10 +87,10 @@ public class UnregisteredEventsPipeline extends KafkaStreamPipeline implements I
      */
     @Override
     public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	this.unregisteredEventsProcessorSupplier = new UnregisteredEventsProcessorSupplier();
+	this.unregisteredEventsTransformerSupplier = new UnregisteredEventsTransformerSupplier(STORE_NAME);
 
 	super.initialize(monitor);
-	initializeNestedComponent(getUnregisteredEventsProcessorSupplier(), monitor, true);
+	initializeNestedComponent(getUnregisteredEventsTransformerSupplier(), monitor, true);
     }
 
     /*
@@ -90,7 +101,7 @@ public class UnregisteredEventsPipeline extends KafkaStreamPipeline implements I
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	super.start(monitor);
-	startNestedComponent(getUnregisteredEventsProcessorSupplier(), monitor, true);
+	startNestedComponent(getUnregisteredEventsTransformerSupplier(), monitor, true);
     }
 
     /*
@@ -101,10 +112,10 @@ public class UnregisteredEventsPipeline extends KafkaStreamPipeline implements I
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	super.stop(monitor);
-	stopNestedComponent(getUnregisteredEventsProcessorSupplier(), monitor);
+	stopNestedComponent(getUnregisteredEventsTransformerSupplier(), monitor);
     }
 
-    protected UnregisteredEventsProcessorSupplier getUnregisteredEventsProcessorSupplier() {
-	return unregisteredEventsProcessorSupplier;
+    protected UnregisteredEventsTransformerSupplier getUnregisteredEventsTransformerSupplier() {
+	return unregisteredEventsTransformerSupplier;
     }
 }
\ No newline at end of file
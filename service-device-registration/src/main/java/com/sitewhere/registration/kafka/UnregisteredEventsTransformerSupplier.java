@@ -0,0 +1,215 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.registration.kafka;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Transformer;
+import org.apache.kafka.streams.kstream.TransformerSupplier;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.registration.UnregisteredEventBuffer;
+import com.sitewhere.registration.configuration.RegistrationProcessing;
+import com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine;
+import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
+
+import io.prometheus.client.Counter;
+
+/**
+ * Handles events for devices not registered in the system. Records are keyed
+ * by device token. An empty record is a notice that the device was registered,
+ * which releases events buffered for it.
+ * 
+ * Buffered events are held in a persistent state store that is committed along
+ * with the input offsets, so they survive a restart or a partition moving to
+ * another replica. Released events are forwarded downstream to the reprocess
+ * topic before they are removed from the store, so the input offset is never
+ * committed ahead of the replay.
+ */
+public class UnregisteredEventsTransformerSupplier extends TenantEngineLifecycleComponent
+	implements TransformerSupplier<String, byte[], KeyValue<String, byte[]>> {
+
+    /** Counter for buffered events that were dropped */
+    private static final Counter DROPPED_EVENTS = createCounterMetric("unregistered_event_dropped_count",
+	    "Count of events from unregistered devices dropped due to buffer limits or expiration");
+
+    /** Seconds between expiration passes */
+    private static final int EXPIRE_INTERVAL_SECONDS = 30;
+
+    /** Name of state store holding buffered events */
+    private String storeName;
+
+    public UnregisteredEventsTransformerSupplier(String storeName) {
+	super(LifecycleComponentType.Other);
+	this.storeName = storeName;
+    }
+
+    /*
+     * @see org.apache.kafka.streams.kstream.TransformerSupplier#get()
+     */
+    @Override
+    public Transformer<String, byte[], KeyValue<String, byte[]>> get() {
+	return new Transformer<String, byte[], KeyValue<String, byte[]>>() {
+
+	    /** Processor context */
+	    private ProcessorContext context;
+
+	    /** Buffered events for the partitions of this task */
+	    private UnregisteredEventBuffer buffer;
+
+	    /** Number of dropped events last reported */
+	    private long reportedDropped = 0;
+
+	    /*
+	     * @see
+	     * org.apache.kafka.streams.kstream.Transformer#init(org.apache.kafka.streams.
+	     * processor.ProcessorContext)
+	     */
+	    @SuppressWarnings("unchecked")
+	    @Override
+	    public void init(ProcessorContext context) {
+		this.context = context;
+		RegistrationProcessing settings = getSettings();
+		this.buffer = new UnregisteredEventBuffer(
+			new StoreState((KeyValueStore<String, byte[]>) context.getStateStore(getStoreName())),
+			settings.getMaxBufferedEventsPerDevice(), settings.getMaxBufferedEvents(),
+			settings.getBufferedEventTtlMs());
+		if (buffer.getSize() > 0) {
+		    getLogger().info(String.format("Restored %d buffered events from unregistered devices.",
+			    buffer.getSize()));
+		}
+		context.schedule(Duration.ofSeconds(EXPIRE_INTERVAL_SECONDS), PunctuationType.WALL_CLOCK_TIME,
+			timestamp -> expire());
+	    }
+
+	    /*
+	     * @see org.apache.kafka.streams.kstream.Transformer#transform(java.lang.Object,
+	     * java.lang.Object)
+	     */
+	    @Override
+	    public KeyValue<String, byte[]> transform(String key, byte[] value) {
+		if (key == null) {
+		    return null;
+		}
+		if (value == null || value.length == 0) {
+		    buffer.release(key, event -> context.forward(key, event));
+		} else if (getSettings().isBufferUnregisteredEvents()) {
+		    buffer.add(key, value, event -> context.forward(key, event));
+		} else {
+		    getLogger().debug("Ignoring event for unregistered device " + key);
+		}
+		return null;
+	    }
+
+	    /**
+	     * Expire buffered events and report any that were dropped.
+	     */
+	    protected void expire() {
+		buffer.expire();
+		long dropped = buffer.getDroppedCount();
+		if (dropped > reportedDropped) {
+		    DROPPED_EVENTS.labels(buildLabels()).inc(dropped - reportedDropped);
+		    getLogger().warn(String.format("Dropped %d buffered events from unregistered devices.",
+			    dropped - reportedDropped));
+		    this.reportedDropped = dropped;
+		}
+	    }
+
+	    /*
+	     * @see org.apache.kafka.streams.kstream.Transformer#close()
+	     */
+	    @Override
+	    public void close() {
+	    }
+	};
+    }
+
+    /**
+     * Get registration processing settings from the active configuration.
+     * 
+     * @return
+     */
+    protected RegistrationProcessing getSettings() {
+	return ((IDeviceRegistrationTenantEngine) getTenantEngine()).getActiveConfiguration()
+		.getRegistrationProcessing();
+    }
+
+    protected String getStoreName() {
+	return storeName;
+    }
+
+    /**
+     * Buffer state kept in a Kafka Streams key/value store.
+     */
+    private static class StoreState implements UnregisteredEventBuffer.State {
+
+	/** Wrapped store */
+	private KeyValueStore<String, byte[]> store;
+
+	StoreState(KeyValueStore<String, byte[]> store) {
+	    this.store = store;
+	}
+
+	/*
+	 * @see
+	 * com.sitewhere.registration.UnregisteredEventBuffer.State#get(java.lang.String)
+	 */
+	@Override
+	public byte[] get(String key) {
+	    return store.get(key);
+	}
+
+	/*
+	 * @see
+	 * com.sitewhere.registration.UnregisteredEventBuffer.State#put(java.lang.String,
+	 * byte[])
+	 */
+	@Override
+	public void put(String key, byte[] value) {
+	    store.put(key, value);
+	}
+
+	/*
+	 * @see com.sitewhere.registration.UnregisteredEventBuffer.State#delete(java.lang.
+	 * String)
+	 */
+	@Override
+	public void delete(String key) {
+	    store.delete(key);
+	}
+
+	/*
+	 * @see
+	 * com.sitewhere.registration.UnregisteredEventBuffer.State#scan(java.util.
+	 * function.BiConsumer)
+	 */
+	@Override
+	public void scan(BiConsumer<String, byte[]> visitor) {
+	    try (KeyValueIterator<String, byte[]> it = store.all()) {
+		while (it.hasNext()) {
+		    KeyValue<String, byte[]> entry = it.next();
+		    visitor.accept(entry.key, entry.value);
+		}
+	    }
+	}
+    }
+}
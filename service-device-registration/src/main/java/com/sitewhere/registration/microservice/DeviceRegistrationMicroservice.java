@@ -195,4 +195,24 @@ public class DeviceRegistrationMicroservice extends
     public IAssetManagement getAssetManagement() {
 	return assetManagementApiChannel;
     }
+
+    /*
+     * @see
+     * com.sitewhere.registration.spi.microservice.IDeviceRegistrationMicroservice#
+     * getDeviceManagementApiChannel()
+     */
+    @Override
+    public IDeviceManagementApiChannel<?> getDeviceManagementApiChannel() {
+	return deviceManagement;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.registration.spi.microservice.IDeviceRegistrationMicroservice#
+     * getAssetManagementApiChannel()
+     */
+    @Override
+    public IAssetManagementApiChannel<?> getAssetManagementApiChannel() {
+	return assetManagementApiChannel;
+    }
 }
\ No newline at end of file
@@ -20,9 +20,11 @@ import com.sitewhere.microservice.multitenant.MicroserviceTenantEngine;
 import com.sitewhere.registration.configuration.DeviceRegistrationTenantConfiguration;
 import com.sitewhere.registration.configuration.DeviceRegistrationTenantEngineModule;
 import com.sitewhere.registration.kafka.RegistrationEventsPipeline;
+import com.sitewhere.registration.kafka.RegistrationNoticesProducer;
 import com.sitewhere.registration.kafka.UnregisteredEventsPipeline;
 import com.sitewhere.registration.spi.IRegistrationManager;
 import com.sitewhere.registration.spi.kafka.IRegistrationEventsPipeline;
+import com.sitewhere.registration.spi.kafka.IRegistrationNoticesProducer;
 import com.sitewhere.registration.spi.kafka.IUnregisteredEventsPipeline;
 import com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine;
 import com.sitewhere.spi.SiteWhereException;
@@ -48,6 +50,9 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine<Dev
     /** Kafka pipeline for new device registrations */
     private IRegistrationEventsPipeline registrationEventsPipeline;
 
+    /** Kafka producer for announcing completed registrations */
+    private IRegistrationNoticesProducer registrationNoticesProducer;
+
     /** Device registration manager */
     private IRegistrationManager registrationManager;
 
@@ -104,9 +109,15 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine<Dev
 	// Device registration events pipeline.
 	this.registrationEventsPipeline = new RegistrationEventsPipeline();
 
+	// Producer for announcing completed registrations.
+	this.registrationNoticesProducer = new RegistrationNoticesProducer();
+
 	// Create step that will initialize components.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getComponentName());
 
+	// Initialize registration notices producer.
+	init.addInitializeStep(this, getRegistrationNoticesProducer(), true);
+
 	// Initialize registration manager.
 	init.addInitializeStep(this, getRegistrationManager(), true);
 
@@ -130,6 +141,9 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine<Dev
 	// Create step that will start components.
 	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getComponentName());
 
+	// Start registration notices producer.
+	start.addStartStep(this, getRegistrationNoticesProducer(), true);
+
 	// Start registration manager.
 	start.addStartStep(this, getRegistrationManager(), true);
 
@@ -162,6 +176,9 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine<Dev
 	// Stop registration manager.
 	stop.addStopStep(this, getRegistrationManager());
 
+	// Stop registration notices producer.
+	stop.addStopStep(this, getRegistrationNoticesProducer());
+
 	// Execute shutdown steps.
 	stop.execute(monitor);
     }
@@ -186,6 +203,16 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine<Dev
 	return registrationEventsPipeline;
     }
 
+    /*
+     * @see
+     * com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine#
+     * getRegistrationNoticesProducer()
+     */
+    @Override
+    public IRegistrationNoticesProducer getRegistrationNoticesProducer() {
+	return registrationNoticesProducer;
+    }
+
     /*
      * @see
      * com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine#
@@ -16,7 +16,6 @@
 package com.sitewhere.registration.spi;
 
 import com.sitewhere.spi.SiteWhereException;
-import com.sitewhere.spi.device.event.kafka.IDecodedEventPayload;
 import com.sitewhere.spi.device.event.kafka.IDeviceRegistrationPayload;
 import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
 
@@ -102,12 +101,4 @@ public interface IRegistrationManager extends ITenantEngineLifecycleComponent {
      * @throws SiteWhereException
      */
     public void handleDeviceRegistration(IDeviceRegistrationPayload request) throws SiteWhereException;
-
-    /**
-     * Handle event addressed to unknown device.
-     * 
-     * @param payload
-     * @throws SiteWhereException
-     */
-    public void handleUnregisteredDeviceEvent(IDecodedEventPayload payload) throws SiteWhereException;
 }
\ No newline at end of file
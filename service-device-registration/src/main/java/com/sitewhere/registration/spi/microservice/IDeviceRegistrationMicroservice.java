@@ -15,6 +15,8 @@
  */
 package com.sitewhere.registration.spi.microservice;
 
+import com.sitewhere.grpc.client.spi.client.IAssetManagementApiChannel;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.registration.configuration.DeviceRegistrationConfiguration;
@@ -40,4 +42,18 @@ public interface IDeviceRegistrationMicroservice extends
      * @return
      */
     public IAssetManagement getAssetManagement();
+
+    /**
+     * Get device management GRPC channel for calls not covered by the API.
+     * 
+     * @return
+     */
+    public IDeviceManagementApiChannel<?> getDeviceManagementApiChannel();
+
+    /**
+     * Get asset management GRPC channel for calls not covered by the API.
+     * 
+     * @return
+     */
+    public IAssetManagementApiChannel<?> getAssetManagementApiChannel();
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ package com.sitewhere.registration.spi.microservice;
 import com.sitewhere.registration.configuration.DeviceRegistrationTenantConfiguration;
 import com.sitewhere.registration.spi.IRegistrationManager;
 import com.sitewhere.registration.spi.kafka.IRegistrationEventsPipeline;
+import com.sitewhere.registration.spi.kafka.IRegistrationNoticesProducer;
 import com.sitewhere.registration.spi.kafka.IUnregisteredEventsPipeline;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 
@@ -42,6 +43,13 @@ public interface IDeviceRegistrationTenantEngine
      */
     public IRegistrationEventsPipeline getRegistrationEventsPipeline();
 
+    /**
+     * Get Kafka producer for announcing completed registrations.
+     * 
+     * @return
+     */
+    public IRegistrationNoticesProducer getRegistrationNoticesProducer();
+
     /**
      * Get registration manager implementation.
      * 
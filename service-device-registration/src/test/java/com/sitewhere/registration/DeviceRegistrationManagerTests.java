@@ -0,0 +1,198 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.registration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sitewhere.registration.DeviceRegistrationManager.References;
+import com.sitewhere.rest.model.customer.Customer;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.customer.ICustomer;
+
+/**
+ * Test cases for reference resolution used by
+ * {@link DeviceRegistrationManager} and for {@link UnregisteredEventBuffer}.
+ */
+public class DeviceRegistrationManagerTests {
+
+    @Test
+    public void testMissingReferenceOnlyFailsItsToken() throws Exception {
+	References<ICustomer> customers = new References<>("customer");
+	customers.resolve(Arrays.asList("c1", "missing"), tokens -> createCustomers("c1"));
+	assertEquals("c1", customers.get("c1").getToken());
+	assertNull(customers.find("missing"));
+	try {
+	    customers.get("missing");
+	    fail("Expected invalid token to be rejected.");
+	} catch (SiteWhereException e) {
+	    assertTrue(e.getMessage().contains("missing"));
+	}
+    }
+
+    @Test
+    public void testFailedLookupMarksTokensWithoutThrowing() throws Exception {
+	References<ICustomer> customers = new References<>("customer");
+	customers.resolve(Arrays.asList("c1", "c2"), tokens -> {
+	    throw new SiteWhereException("Unavailable.");
+	});
+	for (String token : Arrays.asList("c1", "c2")) {
+	    try {
+		customers.find(token);
+		fail("Expected failed lookup to be reported.");
+	    } catch (SiteWhereException e) {
+		assertEquals("Unavailable.", e.getCause().getMessage());
+	    }
+	}
+	assertNull(customers.get(null));
+    }
+
+    @Test
+    public void testEmptyTokensSkipLookup() throws Exception {
+	References<ICustomer> customers = new References<>("customer");
+	customers.resolve(Collections.emptyList(), tokens -> {
+	    throw new IllegalStateException("Lookup should not be called.");
+	});
+	assertNull(customers.find("c1"));
+    }
+
+    @Test
+    public void testReleaseReplaysBufferedEventsInOrder() throws Exception {
+	UnregisteredEventBuffer buffer = buffer(new UnregisteredEventBuffer.MemoryState(), 10, 100);
+	List<byte[]> replayed = new ArrayList<>();
+	buffer.add("d1", event(1), replayed::add);
+	buffer.add("d1", event(2), replayed::add);
+	buffer.add("d2", event(3), replayed::add);
+	assertTrue(replayed.isEmpty());
+
+	buffer.release("d1", replayed::add);
+	assertEquals(2, replayed.size());
+	assertArrayEquals(event(1), replayed.get(0));
+	assertArrayEquals(event(2), replayed.get(1));
+	assertEquals(1, buffer.getSize());
+
+	replayed.clear();
+	buffer.release("d1", replayed::add);
+	assertTrue(replayed.isEmpty());
+    }
+
+    @Test
+    public void testEventAfterReleaseIsReplayedImmediately() throws Exception {
+	UnregisteredEventBuffer buffer = buffer(new UnregisteredEventBuffer.MemoryState(), 10, 100);
+	buffer.release("d1", event -> fail("Nothing should be buffered."));
+	List<byte[]> replayed = new ArrayList<>();
+	buffer.add("d1", event(1), replayed::add);
+	assertEquals(1, replayed.size());
+	assertArrayEquals(event(1), replayed.get(0));
+	assertEquals(0, buffer.getSize());
+    }
+
+    @Test
+    public void testLimitsDropOldestEvents() throws Exception {
+	UnregisteredEventBuffer buffer = buffer(new UnregisteredEventBuffer.MemoryState(), 2, 3);
+	List<byte[]> replayed = new ArrayList<>();
+	buffer.add("d1", event(1), replayed::add);
+	buffer.add("d1", event(2), replayed::add);
+	buffer.add("d1", event(3), replayed::add);
+	assertEquals(1, buffer.getDroppedCount());
+
+	// Exceeding the global limit evicts the device that waited longest.
+	buffer.add("d2", event(4), replayed::add);
+	buffer.add("d2", event(5), replayed::add);
+	assertEquals(3, buffer.getDroppedCount());
+	buffer.release("d1", replayed::add);
+	assertTrue(replayed.isEmpty());
+	buffer.release("d2", replayed::add);
+	assertEquals(2, replayed.size());
+    }
+
+    @Test
+    public void testBufferedEventsSurviveRestart() throws Exception {
+	UnregisteredEventBuffer.MemoryState state = new UnregisteredEventBuffer.MemoryState();
+	UnregisteredEventBuffer buffer = buffer(state, 10, 100);
+	List<byte[]> replayed = new ArrayList<>();
+	buffer.add("d1", event(1), replayed::add);
+	buffer.add("d2", event(2), replayed::add);
+	buffer.add("d1", event(3), replayed::add);
+	buffer.release("d3", replayed::add);
+
+	// A new buffer over the same state picks up where the old one stopped.
+	UnregisteredEventBuffer restored = buffer(state, 10, 100);
+	assertEquals(3, restored.getSize());
+	restored.add("d1", event(4), replayed::add);
+	restored.release("d1", replayed::add);
+	assertEquals(3, replayed.size());
+	assertArrayEquals(event(1), replayed.get(0));
+	assertArrayEquals(event(3), replayed.get(1));
+	assertArrayEquals(event(4), replayed.get(2));
+
+	replayed.clear();
+	restored.add("d3", event(5), replayed::add);
+	assertEquals(1, replayed.size());
+	assertEquals(1, restored.getSize());
+    }
+
+    /**
+     * Create a buffer with a long time to live.
+     * 
+     * @param state
+     * @param maxEventsPerDevice
+     * @param maxEvents
+     * @return
+     */
+    protected UnregisteredEventBuffer buffer(UnregisteredEventBuffer.State state, int maxEventsPerDevice,
+	    int maxEvents) {
+	return new UnregisteredEventBuffer(state, maxEventsPerDevice, maxEvents, 60000);
+    }
+
+    /**
+     * Create customers by token.
+     * 
+     * @param tokens
+     * @return
+     */
+    protected Map<String, ICustomer> createCustomers(String... tokens) {
+	Map<String, ICustomer> customers = new HashMap<>();
+	for (String token : tokens) {
+	    Customer customer = new Customer();
+	    customer.setToken(token);
+	    customers.put(token, customer);
+	}
+	return customers;
+    }
+
+    /**
+     * Create an event payload.
+     * 
+     * @param id
+     * @return
+     */
+    protected byte[] event(int id) {
+	return new byte[] { (byte) id };
+    }
+}
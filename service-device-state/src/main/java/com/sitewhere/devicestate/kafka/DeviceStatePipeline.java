@@ -28,7 +28,9 @@ import org.apache.kafka.streams.state.Stores;
 
 import com.sitewhere.devicestate.spi.microservice.IDeviceStateTenantEngine;
 import com.sitewhere.grpc.kafka.serdes.SiteWhereSerdes;
+import com.sitewhere.grpc.model.DeviceEventModel.GProcessedEventPayload;
 import com.sitewhere.microservice.kafka.KafkaStreamPipeline;
+import com.sitewhere.shared.event.ReplayedEvents;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 
@@ -87,7 +89,8 @@ public class DeviceStatePipeline extends KafkaStreamPipeline {
     @Override
     public void buildStreams(StreamsBuilder builder) {
 	builder.stream(getSourceTopicNames(), Consumed.with(Serdes.UUID(), SiteWhereSerdes.forProcessedEventPayload()))
-		.groupByKey().windowedBy(TimeWindows.of(Duration.ofSeconds(WINDOW_LENGTH_IN_SECONDS)))
+		.filterNot((key, payload) -> isReplayed(payload)).groupByKey()
+		.windowedBy(TimeWindows.of(Duration.ofSeconds(WINDOW_LENGTH_IN_SECONDS)))
 		.aggregate(() -> new AggregatedDeviceState(), getAggregator(),
 			Materialized.as(
 				Stores.inMemoryWindowStore(STORE_NAME, Duration.ofSeconds(WINDOW_LENGTH_IN_SECONDS * 3),
@@ -95,6 +98,22 @@ public class DeviceStatePipeline extends KafkaStreamPipeline {
 		.toStream().map(getDeviceStatePersistenceMapper());
     }
 
+    /**
+     * Indicates whether an event was republished by a replay. Replayed events
+     * are historical, so they must not overwrite current device state.
+     * 
+     * @param payload
+     * @return
+     */
+    protected boolean isReplayed(GProcessedEventPayload payload) {
+	try {
+	    return ReplayedEvents.isReplayed(payload);
+	} catch (SiteWhereException e) {
+	    getLogger().error("Unable to convert event for replay check.", e);
+	    return false;
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.microservice.kafka.KafkaStreamPipeline#initialize(com.sitewhere
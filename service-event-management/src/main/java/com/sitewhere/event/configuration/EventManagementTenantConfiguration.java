@@ -26,12 +26,30 @@ public class EventManagementTenantConfiguration implements ITenantEngineConfigur
     /** Default number of threads used for concurrent processing of events */
     private static final int DEFAULT_PROCESSING_THREAD_COUNT = 10;
 
+    /** Default number of seconds between writes of measurement rollups */
+    private static final int DEFAULT_ROLLUP_FLUSH_INTERVAL_SECONDS = 30;
+
     /** Datastore definition */
     private DatastoreDefinition datastore;
 
     /** Number of threads used for concurrent processing of events */
     private int processingThreadCount = DEFAULT_PROCESSING_THREAD_COUNT;
 
+    /** Indicates whether measurement rollup tiers are maintained */
+    private boolean rollupsEnabled = true;
+
+    /** Number of seconds between writes of measurement rollups */
+    private int rollupFlushIntervalSeconds = DEFAULT_ROLLUP_FLUSH_INTERVAL_SECONDS;
+
+    /** Event retention settings */
+    private EventRetentionConfiguration retention = new EventRetentionConfiguration();
+
+    /** InfluxDB write schema settings */
+    private InfluxDbSchemaConfiguration influxDbSchema = new InfluxDbSchemaConfiguration();
+
+    /** Local buffer settings for events that could not be persisted */
+    private EventSpillConfiguration spill = new EventSpillConfiguration();
+
     public DatastoreDefinition getDatastore() {
 	return datastore;
     }
@@ -47,4 +65,44 @@ public class EventManagementTenantConfiguration implements ITenantEngineConfigur
     public void setProcessingThreadCount(int processingThreadCount) {
 	this.processingThreadCount = processingThreadCount;
     }
+
+    public boolean isRollupsEnabled() {
+	return rollupsEnabled;
+    }
+
+    public void setRollupsEnabled(boolean rollupsEnabled) {
+	this.rollupsEnabled = rollupsEnabled;
+    }
+
+    public int getRollupFlushIntervalSeconds() {
+	return rollupFlushIntervalSeconds;
+    }
+
+    public void setRollupFlushIntervalSeconds(int rollupFlushIntervalSeconds) {
+	this.rollupFlushIntervalSeconds = rollupFlushIntervalSeconds;
+    }
+
+    public EventRetentionConfiguration getRetention() {
+	return retention;
+    }
+
+    public void setRetention(EventRetentionConfiguration retention) {
+	this.retention = retention;
+    }
+
+    public InfluxDbSchemaConfiguration getInfluxDbSchema() {
+	return influxDbSchema;
+    }
+
+    public void setInfluxDbSchema(InfluxDbSchemaConfiguration influxDbSchema) {
+	this.influxDbSchema = influxDbSchema;
+    }
+
+    public EventSpillConfiguration getSpill() {
+	return spill;
+    }
+
+    public void setSpill(EventSpillConfiguration spill) {
+	this.spill = spill;
+    }
 }
@@ -20,9 +20,12 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sitewhere.cassandra.CassandraClient;
+import com.sitewhere.event.configuration.providers.CassandraClientProvider;
 import com.sitewhere.event.configuration.providers.InfluxDbClientProvider;
 import com.sitewhere.event.configuration.providers.TimeSeriesProvider;
 import com.sitewhere.event.configuration.providers.Warp10ClientProvider;
+import com.sitewhere.event.persistence.cassandra.CassandraDeviceEventManagement;
 import com.sitewhere.event.persistence.influxdb.InfluxDbDeviceEventManagement;
 import com.sitewhere.event.persistence.warp10.Warp10DeviceEventManagement;
 import com.sitewhere.event.spi.microservice.IEventManagementTenantEngine;
@@ -104,6 +107,11 @@ public class EventManagementTenantEngineModule extends TenantEngineModule<EventM
 		bind(IDeviceEventManagement.class).to(Warp10DeviceEventManagement.class);
 		break;
 	    }
+	    case TimeSeriesProvider.CASSANDRA: {
+		bind(CassandraClient.class).toProvider(CassandraClientProvider.class);
+		bind(IDeviceEventManagement.class).to(CassandraDeviceEventManagement.class);
+		break;
+	    }
 	    default: {
 		throw new RuntimeException(String.format("Unknown event management provider: %s",
 			getConfiguration().getDatastore().getType()));
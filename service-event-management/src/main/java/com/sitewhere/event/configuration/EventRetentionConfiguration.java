@@ -0,0 +1,199 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.configuration;
+
+import com.sitewhere.spi.device.event.DeviceEventType;
+
+/**
+ * Maps tenant event retention settings from YAML configuration. Retention is
+ * expressed in days, where zero keeps events indefinitely. Settings for an
+ * individual event type fall back to the default when not set.
+ */
+public class EventRetentionConfiguration {
+
+    /** Default number of minutes between retention checks */
+    private static final int DEFAULT_CHECK_INTERVAL_MINUTES = 60;
+
+    /** Number of seconds in a day */
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /** Days events are kept unless overridden for a type */
+    private int defaultDays = 0;
+
+    /** Days measurements are kept */
+    private Integer measurementDays;
+
+    /** Days locations are kept */
+    private Integer locationDays;
+
+    /** Days alerts are kept */
+    private Integer alertDays;
+
+    /** Days command invocations are kept */
+    private Integer commandInvocationDays;
+
+    /** Days command responses are kept */
+    private Integer commandResponseDays;
+
+    /** Days state changes are kept */
+    private Integer stateChangeDays;
+
+    /** Days measurement rollups are kept */
+    private int rollupDays = 0;
+
+    /** Indicates raw measurements are rolled up before they expire */
+    private boolean downsampleMeasurements = true;
+
+    /** Number of minutes between retention checks */
+    private int checkIntervalMinutes = DEFAULT_CHECK_INTERVAL_MINUTES;
+
+    /**
+     * Get number of days events of the given type are kept.
+     * 
+     * @param type
+     * @return days or zero to keep indefinitely
+     */
+    public int getRetentionDays(DeviceEventType type) {
+	Integer days = null;
+	switch (type) {
+	case Measurement:
+	    days = getMeasurementDays();
+	    break;
+	case Location:
+	    days = getLocationDays();
+	    break;
+	case Alert:
+	    days = getAlertDays();
+	    break;
+	case CommandInvocation:
+	    days = getCommandInvocationDays();
+	    break;
+	case CommandResponse:
+	    days = getCommandResponseDays();
+	    break;
+	case StateChange:
+	    days = getStateChangeDays();
+	    break;
+	default:
+	    break;
+	}
+	return Math.max(0, (days != null) ? days : getDefaultDays());
+    }
+
+    /**
+     * Get time to live in seconds for events of the given type.
+     * 
+     * @param type
+     * @return seconds or zero to keep indefinitely
+     */
+    public int getTtlSeconds(DeviceEventType type) {
+	return (int) Math.min(Integer.MAX_VALUE, getRetentionDays(type) * SECONDS_PER_DAY);
+    }
+
+    /**
+     * Indicates whether any event type has limited retention.
+     * 
+     * @return
+     */
+    public boolean isRetentionLimited() {
+	for (DeviceEventType type : DeviceEventType.values()) {
+	    if (getRetentionDays(type) > 0) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    public int getDefaultDays() {
+	return defaultDays;
+    }
+
+    public void setDefaultDays(int defaultDays) {
+	this.defaultDays = defaultDays;
+    }
+
+    public Integer getMeasurementDays() {
+	return measurementDays;
+    }
+
+    public void setMeasurementDays(Integer measurementDays) {
+	this.measurementDays = measurementDays;
+    }
+
+    public Integer getLocationDays() {
+	return locationDays;
+    }
+
+    public void setLocationDays(Integer locationDays) {
+	this.locationDays = locationDays;
+    }
+
+    public Integer getAlertDays() {
+	return alertDays;
+    }
+
+    public void setAlertDays(Integer alertDays) {
+	this.alertDays = alertDays;
+    }
+
+    public Integer getCommandInvocationDays() {
+	return commandInvocationDays;
+    }
+
+    public void setCommandInvocationDays(Integer commandInvocationDays) {
+	this.commandInvocationDays = commandInvocationDays;
+    }
+
+    public Integer getCommandResponseDays() {
+	return commandResponseDays;
+    }
+
+    public void setCommandResponseDays(Integer commandResponseDays) {
+	this.commandResponseDays = commandResponseDays;
+    }
+
+    public Integer getStateChangeDays() {
+	return stateChangeDays;
+    }
+
+    public void setStateChangeDays(Integer stateChangeDays) {
+	this.stateChangeDays = stateChangeDays;
+    }
+
+    public int getRollupDays() {
+	return rollupDays;
+    }
+
+    public void setRollupDays(int rollupDays) {
+	this.rollupDays = rollupDays;
+    }
+
+    public boolean isDownsampleMeasurements() {
+	return downsampleMeasurements;
+    }
+
+    public void setDownsampleMeasurements(boolean downsampleMeasurements) {
+	this.downsampleMeasurements = downsampleMeasurements;
+    }
+
+    public int getCheckIntervalMinutes() {
+	return checkIntervalMinutes;
+    }
+
+    public void setCheckIntervalMinutes(int checkIntervalMinutes) {
+	this.checkIntervalMinutes = checkIntervalMinutes;
+    }
+}
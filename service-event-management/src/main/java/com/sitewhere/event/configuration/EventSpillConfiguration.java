@@ -0,0 +1,137 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.configuration;
+
+/**
+ * Maps settings for the local buffer that holds events which could not be
+ * persisted because the datastore was unavailable. The directory should be on
+ * a volume that survives pod restarts. Each tenant writes to its own
+ * subdirectory.
+ */
+public class EventSpillConfiguration {
+
+    /** Default directory for spill files */
+    private static final String DEFAULT_DIRECTORY = "/var/lib/sitewhere/event-spill";
+
+    /** Default size of a single segment file */
+    private static final int DEFAULT_SEGMENT_MEGABYTES = 16;
+
+    /** Default maximum size of buffered events */
+    private static final int DEFAULT_MAX_MEGABYTES = 1024;
+
+    /** Default rate at which buffered events are replayed */
+    private static final int DEFAULT_REPLAY_EVENTS_PER_SECOND = 200;
+
+    /** Default number of seconds between replay attempts */
+    private static final int DEFAULT_RETRY_INTERVAL_SECONDS = 10;
+
+    /** Default number of failed attempts before a buffered event is discarded */
+    private static final int DEFAULT_MAX_REPLAY_ATTEMPTS = 10;
+
+    /** Default number of milliseconds between forcing buffered events to disk */
+    private static final int DEFAULT_SYNC_INTERVAL_MILLIS = 100;
+
+    /** Indicates failed events are buffered locally */
+    private boolean enabled = true;
+
+    /** Directory for spill files */
+    private String directory = DEFAULT_DIRECTORY;
+
+    /** Size at which a new segment file is started */
+    private int segmentMegabytes = DEFAULT_SEGMENT_MEGABYTES;
+
+    /** Maximum size of buffered events before new events are dropped */
+    private int maxMegabytes = DEFAULT_MAX_MEGABYTES;
+
+    /** Maximum number of buffered events replayed per second */
+    private int replayEventsPerSecond = DEFAULT_REPLAY_EVENTS_PER_SECOND;
+
+    /** Number of seconds to wait after a failed replay before trying again */
+    private int retryIntervalSeconds = DEFAULT_RETRY_INTERVAL_SECONDS;
+
+    /**
+     * Number of failed attempts after which a buffered event is discarded, if a
+     * later event can be persisted
+     */
+    private int maxReplayAttempts = DEFAULT_MAX_REPLAY_ATTEMPTS;
+
+    /** Number of milliseconds between forcing buffered events to disk */
+    private int syncIntervalMillis = DEFAULT_SYNC_INTERVAL_MILLIS;
+
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+	this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+	return directory;
+    }
+
+    public void setDirectory(String directory) {
+	this.directory = directory;
+    }
+
+    public int getSegmentMegabytes() {
+	return segmentMegabytes;
+    }
+
+    public void setSegmentMegabytes(int segmentMegabytes) {
+	this.segmentMegabytes = segmentMegabytes;
+    }
+
+    public int getMaxMegabytes() {
+	return maxMegabytes;
+    }
+
+    public void setMaxMegabytes(int maxMegabytes) {
+	this.maxMegabytes = maxMegabytes;
+    }
+
+    public int getReplayEventsPerSecond() {
+	return replayEventsPerSecond;
+    }
+
+    public void setReplayEventsPerSecond(int replayEventsPerSecond) {
+	this.replayEventsPerSecond = replayEventsPerSecond;
+    }
+
+    public int getRetryIntervalSeconds() {
+	return retryIntervalSeconds;
+    }
+
+    public void setRetryIntervalSeconds(int retryIntervalSeconds) {
+	this.retryIntervalSeconds = retryIntervalSeconds;
+    }
+
+    public int getMaxReplayAttempts() {
+	return maxReplayAttempts;
+    }
+
+    public void setMaxReplayAttempts(int maxReplayAttempts) {
+	this.maxReplayAttempts = maxReplayAttempts;
+    }
+
+    public int getSyncIntervalMillis() {
+	return syncIntervalMillis;
+    }
+
+    public void setSyncIntervalMillis(int syncIntervalMillis) {
+	this.syncIntervalMillis = syncIntervalMillis;
+    }
+}
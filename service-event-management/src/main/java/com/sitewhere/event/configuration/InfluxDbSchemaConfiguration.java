@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.configuration;
+
+/**
+ * Maps InfluxDB write schema settings from YAML configuration. Core tags used
+ * to index events (type, device, assignment, customer, area and asset) are
+ * always written as tags. Other tags, including user-defined tags from
+ * assignment metadata, are written as tags only while they stay within the
+ * cardinality budget.
+ */
+public class InfluxDbSchemaConfiguration {
+
+    /** Default maximum distinct values tracked for an optional tag */
+    private static final int DEFAULT_MAX_TAG_VALUES = 1000;
+
+    /** Default maximum number of optional tag keys */
+    private static final int DEFAULT_MAX_TAG_KEYS = 32;
+
+    /** Default maximum number of series in the database */
+    private static final long DEFAULT_MAX_SERIES = 1000000;
+
+    /** Default number of minutes between series and tag cardinality checks */
+    private static final int DEFAULT_CARDINALITY_CHECK_MINUTES = 5;
+
+    /** Action taken when an optional tag exceeds the budget */
+    public static enum TagOverflowAction {
+
+	/** Write the value as a field instead of a tag */
+	Demote,
+
+	/** Reject the write */
+	Reject;
+    }
+
+    /** Indicates each event type is written to its own measurement (implied by limited retention) */
+    private boolean measurementPerEventType = false;
+
+    /** Maximum distinct values for an optional tag */
+    private int maxTagValues = DEFAULT_MAX_TAG_VALUES;
+
+    /** Maximum number of optional tag keys */
+    private int maxTagKeys = DEFAULT_MAX_TAG_KEYS;
+
+    /** Maximum series in the database before optional tags are demoted */
+    private long maxSeries = DEFAULT_MAX_SERIES;
+
+    /** Action taken for tags over budget */
+    private TagOverflowAction overflowAction = TagOverflowAction.Demote;
+
+    /** Number of minutes between series cardinality checks */
+    private int cardinalityCheckMinutes = DEFAULT_CARDINALITY_CHECK_MINUTES;
+
+    public boolean isMeasurementPerEventType() {
+	return measurementPerEventType;
+    }
+
+    public void setMeasurementPerEventType(boolean measurementPerEventType) {
+	this.measurementPerEventType = measurementPerEventType;
+    }
+
+    public int getMaxTagValues() {
+	return maxTagValues;
+    }
+
+    public void setMaxTagValues(int maxTagValues) {
+	this.maxTagValues = maxTagValues;
+    }
+
+    public int getMaxTagKeys() {
+	return maxTagKeys;
+    }
+
+    public void setMaxTagKeys(int maxTagKeys) {
+	this.maxTagKeys = maxTagKeys;
+    }
+
+    public long getMaxSeries() {
+	return maxSeries;
+    }
+
+    public void setMaxSeries(long maxSeries) {
+	this.maxSeries = maxSeries;
+    }
+
+    public TagOverflowAction getOverflowAction() {
+	return overflowAction;
+    }
+
+    public void setOverflowAction(TagOverflowAction overflowAction) {
+	this.overflowAction = overflowAction;
+    }
+
+    public int getCardinalityCheckMinutes() {
+	return cardinalityCheckMinutes;
+    }
+
+    public void setCardinalityCheckMinutes(int cardinalityCheckMinutes) {
+	this.cardinalityCheckMinutes = cardinalityCheckMinutes;
+    }
+}
@@ -22,4 +22,7 @@ public class TimeSeriesProvider {
 
     /** InfluxDB provider */
     public static final String INFLUX_DB = "influxdb";
+
+    /** Cassandra provider */
+    public static final String CASSANDRA = "cassandra";
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.grpc;
+
+import com.sitewhere.event.persistence.export.DeviceEventExportRequest;
+import com.sitewhere.event.processing.EventReplay;
+import com.sitewhere.event.processing.EventReplayList;
+import com.sitewhere.event.processing.EventReplayRequest;
+import com.sitewhere.grpc.model.DeviceEventModel.GProcessedEventPayload;
+import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+
+/**
+ * Descriptors for bulk event export and replay calls. Exported events are
+ * streamed as processed event payloads so that each carries the device context
+ * needed to interpret it outside of SiteWhere. Replay control messages use JSON
+ * payloads so that they do not require changes to the shared protocol
+ * definitions.
+ */
+public class EventExportGrpc {
+
+    /** Method for exporting events */
+    private static final MethodDescriptor<DeviceEventExportRequest, GProcessedEventPayload> EXPORT_EVENTS = MethodDescriptor
+	    .<DeviceEventExportRequest, GProcessedEventPayload>newBuilder()
+	    .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+	    .setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceEventManagementGrpc.SERVICE_NAME,
+		    "ExportEvents"))
+	    .setRequestMarshaller(new JsonMarshaller<>(DeviceEventExportRequest.class))
+	    .setResponseMarshaller(ProtoUtils.marshaller(GProcessedEventPayload.getDefaultInstance())).build();
+
+    /** Method for starting a replay */
+    private static final MethodDescriptor<EventReplayRequest, EventReplay> START_EVENT_REPLAY = unary(
+	    "StartEventReplay", EventReplayRequest.class, EventReplay.class);
+
+    /** Method for listing replays */
+    private static final MethodDescriptor<EventReplayRequest, EventReplayList> LIST_EVENT_REPLAYS = unary(
+	    "ListEventReplays", EventReplayRequest.class, EventReplayList.class);
+
+    /** Method for cancelling a replay */
+    private static final MethodDescriptor<EventReplay, EventReplay> CANCEL_EVENT_REPLAY = unary("CancelEventReplay",
+	    EventReplay.class, EventReplay.class);
+
+    public static MethodDescriptor<DeviceEventExportRequest, GProcessedEventPayload> getExportEventsMethod() {
+	return EXPORT_EVENTS;
+    }
+
+    public static MethodDescriptor<EventReplayRequest, EventReplay> getStartEventReplayMethod() {
+	return START_EVENT_REPLAY;
+    }
+
+    public static MethodDescriptor<EventReplayRequest, EventReplayList> getListEventReplaysMethod() {
+	return LIST_EVENT_REPLAYS;
+    }
+
+    public static MethodDescriptor<EventReplay, EventReplay> getCancelEventReplayMethod() {
+	return CANCEL_EVENT_REPLAY;
+    }
+
+    /**
+     * Create a unary method with JSON payloads.
+     * 
+     * @param name
+     * @param request
+     * @param response
+     * @return
+     */
+    protected static <Q, R> MethodDescriptor<Q, R> unary(String name, Class<Q> request, Class<R> response) {
+	return MethodDescriptor.<Q, R>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(
+			MethodDescriptor.generateFullMethodName(DeviceEventManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<>(request))
+		.setResponseMarshaller(new JsonMarshaller<>(response)).build();
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.grpc;
+
+import com.sitewhere.event.persistence.export.DeviceEventCursor;
+import com.sitewhere.event.persistence.export.DeviceEventExportReader;
+import com.sitewhere.event.persistence.export.DeviceEventExportRequest;
+import com.sitewhere.event.processing.DeviceEventContextResolver;
+import com.sitewhere.event.processing.EventReplay;
+import com.sitewhere.event.processing.EventReplayList;
+import com.sitewhere.event.processing.EventReplayRequest;
+import com.sitewhere.event.processing.OutboundPayloadEnrichmentLogic;
+import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.event.spi.processing.IEventReplayManager;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.grpc.model.DeviceEventModel.GProcessedEventPayload;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for bulk event export and replay requests.
+ */
+public class EventExportImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IEventManagementMicroservice microservice;
+
+    /** Export implementation (null if not supported by datastore) */
+    private IDeviceEventExport deviceEventExport;
+
+    /** Replay manager (null if not supported by datastore) */
+    private IEventReplayManager eventReplayManager;
+
+    public EventExportImpl(IEventManagementMicroservice microservice, IDeviceEventExport deviceEventExport,
+	    IEventReplayManager eventReplayManager) {
+	this.microservice = microservice;
+	this.deviceEventExport = deviceEventExport;
+	this.eventReplayManager = eventReplayManager;
+    }
+
+    /**
+     * Stream events for a time range as processed event payloads.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void exportEvents(DeviceEventExportRequest request,
+	    StreamObserver<GProcessedEventPayload> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventExportGrpc.getExportEventsMethod());
+	    if (getDeviceEventExport() == null) {
+		throw new SiteWhereException("Configured datastore does not support event export.");
+	    }
+	    if (request.getStartDate() == null) {
+		throw new SiteWhereException("Start date is required for event export.");
+	    }
+	    DeviceEventExportReader reader = new DeviceEventExportReader(getDeviceEventExport(),
+		    request.getAssignmentIds(), request.getStartDate(), request.getEndDate(),
+		    DeviceEventCursor.parse(request.getCursor()));
+	    DeviceEventContextResolver resolver = new DeviceEventContextResolver(
+		    ((IEventManagementMicroservice) getMicroservice()).getDeviceManagement());
+	    EventStreamer<IDeviceEvent, GProcessedEventPayload> streamer = new EventStreamer<>(
+		    EventExportGrpc.getExportEventsMethod(), responseObserver, reader::nextPage,
+		    event -> OutboundPayloadEnrichmentLogic.buildPayload(resolver.resolve(event), event));
+	    streamer.start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventExportGrpc.getExportEventsMethod(), e, responseObserver);
+	    GrpcUtils.handleServerMethodExit(EventExportGrpc.getExportEventsMethod());
+	}
+    }
+
+    /**
+     * Start replaying events to the outbound events topic.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void startEventReplay(EventReplayRequest request, StreamObserver<EventReplay> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventExportGrpc.getStartEventReplayMethod());
+	    responseObserver.onNext(getReplayManager().startReplay(request));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventExportGrpc.getStartEventReplayMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(EventExportGrpc.getStartEventReplayMethod());
+	}
+    }
+
+    /**
+     * List running and recently finished replays.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void listEventReplays(EventReplayRequest request, StreamObserver<EventReplayList> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventExportGrpc.getListEventReplaysMethod());
+	    EventReplayList list = new EventReplayList();
+	    list.setReplays(getReplayManager().listReplays());
+	    responseObserver.onNext(list);
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventExportGrpc.getListEventReplaysMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(EventExportGrpc.getListEventReplaysMethod());
+	}
+    }
+
+    /**
+     * Cancel a replay.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void cancelEventReplay(EventReplay request, StreamObserver<EventReplay> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventExportGrpc.getCancelEventReplayMethod());
+	    responseObserver.onNext(getReplayManager().cancelReplay(request.getId()));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventExportGrpc.getCancelEventReplayMethod(), e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(EventExportGrpc.getCancelEventReplayMethod());
+	}
+    }
+
+    /**
+     * Get replay manager, failing if replay is not supported.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IEventReplayManager getReplayManager() throws SiteWhereException {
+	if (getEventReplayManager() == null) {
+	    throw new SiteWhereException("Configured datastore does not support event replay.");
+	}
+	return getEventReplayManager();
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IDeviceEventExport getDeviceEventExport() {
+	return deviceEventExport;
+    }
+
+    protected IEventReplayManager getEventReplayManager() {
+	return eventReplayManager;
+    }
+}
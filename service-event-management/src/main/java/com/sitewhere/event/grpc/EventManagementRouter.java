@@ -18,8 +18,21 @@ package com.sitewhere.event.grpc;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregationRequest;
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregationResponse;
+import com.sitewhere.event.persistence.export.DeviceEventExportRequest;
+import com.sitewhere.event.processing.EventReplay;
+import com.sitewhere.event.processing.EventReplayList;
+import com.sitewhere.event.processing.EventReplayRequest;
 import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
 import com.sitewhere.event.spi.microservice.IEventManagementTenantEngine;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceAlert;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandInvocation;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandResponse;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceLocation;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceMeasurement;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceStateChange;
+import com.sitewhere.grpc.model.DeviceEventModel.GProcessedEventPayload;
 import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
 import com.sitewhere.grpc.service.GAddAlertsRequest;
 import com.sitewhere.grpc.service.GAddAlertsResponse;
@@ -56,6 +69,9 @@ import com.sitewhere.grpc.service.GListStateChangesForIndexResponse;
 import com.sitewhere.microservice.grpc.GrpcTenantEngineProvider;
 import com.sitewhere.spi.microservice.grpc.ITenantEngineCallback;
 
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
 import io.grpc.stub.StreamObserver;
 
 /**
@@ -359,6 +375,245 @@ public class EventManagementRouter extends DeviceEventManagementGrpc.DeviceEvent
 	}, responseObserver);
     }
 
+    /**
+     * Handle measurement rollup request. This method is not part of the
+     * generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void aggregateMeasurements(MeasurementAggregationRequest request,
+	    StreamObserver<MeasurementAggregationResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getMeasurementAggregationImpl().aggregateMeasurements(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to stream measurements for an index. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamMeasurementsForIndex(GListMeasurementsForIndexRequest request,
+	    StreamObserver<GDeviceMeasurement> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventStreamingImpl().streamMeasurementsForIndex(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to stream locations for an index. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamLocationsForIndex(GListLocationsForIndexRequest request,
+	    StreamObserver<GDeviceLocation> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventStreamingImpl().streamLocationsForIndex(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to stream alerts for an index. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamAlertsForIndex(GListAlertsForIndexRequest request,
+	    StreamObserver<GDeviceAlert> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventStreamingImpl().streamAlertsForIndex(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to stream command invocations for an index. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamCommandInvocationsForIndex(GListCommandInvocationsForIndexRequest request,
+	    StreamObserver<GDeviceCommandInvocation> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventStreamingImpl().streamCommandInvocationsForIndex(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to stream command responses for an index. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamCommandResponsesForIndex(GListCommandResponsesForIndexRequest request,
+	    StreamObserver<GDeviceCommandResponse> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventStreamingImpl().streamCommandResponsesForIndex(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to stream state changes for an index. This method is not part of
+     * the generated service, so it is added to the definition in
+     * {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamStateChangesForIndex(GListStateChangesForIndexRequest request,
+	    StreamObserver<GDeviceStateChange> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventStreamingImpl().streamStateChangesForIndex(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to export events for a time range. This method is not part of the generated service, so
+     * it is added to the definition in {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void exportEvents(DeviceEventExportRequest request,
+	    StreamObserver<GProcessedEventPayload> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventExportImpl().exportEvents(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to start replaying events. This method is not part of the generated service, so
+     * it is added to the definition in {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void startEventReplay(EventReplayRequest request, StreamObserver<EventReplay> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventExportImpl().startEventReplay(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to list event replays. This method is not part of the generated service, so
+     * it is added to the definition in {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void listEventReplays(EventReplayRequest request, StreamObserver<EventReplayList> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventExportImpl().listEventReplays(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to cancel an event replay. This method is not part of the generated service, so
+     * it is added to the definition in {@link #bindService()}.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void cancelEventReplay(EventReplay request, StreamObserver<EventReplay> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventManagementTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventManagementTenantEngine tenantEngine) {
+		tenantEngine.getEventExportImpl().cancelEventReplay(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.DeviceEventManagementGrpc.
+     * DeviceEventManagementImplBase#bindService()
+     */
+    @Override
+    public ServerServiceDefinition bindService() {
+	ServerServiceDefinition generated = super.bindService();
+	ServerServiceDefinition.Builder builder = ServerServiceDefinition
+		.builder(generated.getServiceDescriptor().getName());
+	for (ServerMethodDefinition<?, ?> method : generated.getMethods()) {
+	    builder.addMethod(method);
+	}
+	builder.addMethod(MeasurementAggregationGrpc.getAggregateMeasurementsMethod(),
+		ServerCalls.asyncUnaryCall(this::aggregateMeasurements));
+	builder.addMethod(EventStreamingGrpc.getStreamMeasurementsForIndexMethod(),
+		ServerCalls.asyncServerStreamingCall(this::streamMeasurementsForIndex));
+	builder.addMethod(EventStreamingGrpc.getStreamLocationsForIndexMethod(),
+		ServerCalls.asyncServerStreamingCall(this::streamLocationsForIndex));
+	builder.addMethod(EventStreamingGrpc.getStreamAlertsForIndexMethod(),
+		ServerCalls.asyncServerStreamingCall(this::streamAlertsForIndex));
+	builder.addMethod(EventStreamingGrpc.getStreamCommandInvocationsForIndexMethod(),
+		ServerCalls.asyncServerStreamingCall(this::streamCommandInvocationsForIndex));
+	builder.addMethod(EventStreamingGrpc.getStreamCommandResponsesForIndexMethod(),
+		ServerCalls.asyncServerStreamingCall(this::streamCommandResponsesForIndex));
+	builder.addMethod(EventStreamingGrpc.getStreamStateChangesForIndexMethod(),
+		ServerCalls.asyncServerStreamingCall(this::streamStateChangesForIndex));
+	builder.addMethod(EventExportGrpc.getExportEventsMethod(),
+		ServerCalls.asyncServerStreamingCall(this::exportEvents));
+	builder.addMethod(EventExportGrpc.getStartEventReplayMethod(),
+		ServerCalls.asyncUnaryCall(this::startEventReplay));
+	builder.addMethod(EventExportGrpc.getListEventReplaysMethod(),
+		ServerCalls.asyncUnaryCall(this::listEventReplays));
+	builder.addMethod(EventExportGrpc.getCancelEventReplayMethod(),
+		ServerCalls.asyncUnaryCall(this::cancelEventReplay));
+	return builder.build();
+    }
+
     protected IEventManagementMicroservice getMicroservice() {
 	return microservice;
     }
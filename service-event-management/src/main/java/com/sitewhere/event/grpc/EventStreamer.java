@@ -0,0 +1,399 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.grpc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sitewhere.event.persistence.export.DeviceEventCursor;
+import com.sitewhere.event.persistence.export.DeviceEventExportReader;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.microservice.security.SiteWhereAuthentication;
+import com.sitewhere.microservice.security.UserContext;
+import com.sitewhere.rest.model.search.DateRangeSearchCriteria;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.search.IDateRangeSearchCriteria;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Streams the results of an event list query to a client one event at a time.
+ * Pages of events are read and converted on a loader thread and the next page
+ * is only read once the previous one has been sent, so the transport threads
+ * never block on the datastore. Sending pauses whenever the client is not
+ * ready for more messages and resumes from the transport ready callback, so at
+ * most one page is held in memory regardless of result size.
+ * 
+ * Pages are supplied by an {@link IPageSource} that tracks its own position.
+ * {@link KeysetPageSource} reads date range criteria by event date rather than
+ * page number.
+ *
+ * @param <A> API event type
+ * @param <G> GRPC event type
+ */
+public class EventStreamer<A, G> {
+
+    /** Number of events read from the datastore per query */
+    public static final int CHUNK_SIZE = 500;
+
+    /** Number of threads reading pages for all streams */
+    private static final int LOADER_THREADS = 4;
+
+    /** Reads pages for all streams */
+    private static final ExecutorService LOADERS = Executors.newFixedThreadPool(LOADER_THREADS,
+	    new LoaderThreadFactory());
+
+    /** Method being streamed */
+    private MethodDescriptor<?, G> method;
+
+    /** Observer for sending events */
+    private ServerCallStreamObserver<G> observer;
+
+    /** Supplies pages of events */
+    private IPageSource<A> source;
+
+    /** Converts events to GRPC messages */
+    private IConverter<A, G> converter;
+
+    /** User that made the call, restored on loader and transport threads */
+    private SiteWhereAuthentication user;
+
+    /** Events loaded but not yet sent */
+    private Iterator<G> buffer = Collections.emptyIterator();
+
+    /** Indicates a page is being loaded */
+    private boolean loading = false;
+
+    /** Indicates the datastore has no more events */
+    private boolean exhausted = false;
+
+    /** Indicates the call has completed, failed or been cancelled */
+    private boolean finished = false;
+
+    public EventStreamer(MethodDescriptor<?, G> method, StreamObserver<G> observer, IPageSource<A> source,
+	    IConverter<A, G> converter) {
+	this.method = method;
+	this.observer = (ServerCallStreamObserver<G>) observer;
+	this.source = source;
+	this.converter = converter;
+	this.user = UserContext.getCurrentUser();
+    }
+
+    /**
+     * Start streaming. Must be called from the server method so that handlers
+     * are registered before the call is started.
+     */
+    public void start() {
+	getObserver().setOnCancelHandler(this::cancel);
+	getObserver().setOnReadyHandler(this::drain);
+	drain();
+    }
+
+    /**
+     * Send loaded events while the client is ready to receive them and request
+     * the next page once they have all been sent.
+     */
+    protected synchronized void drain() {
+	try {
+	    while (!finished && getObserver().isReady()) {
+		if (buffer.hasNext()) {
+		    getObserver().onNext(buffer.next());
+		} else if (exhausted) {
+		    finished = true;
+		    getObserver().onCompleted();
+		    GrpcUtils.handleServerMethodExit(getMethod());
+		} else {
+		    requestNextPage();
+		    break;
+		}
+	    }
+	} catch (Throwable e) {
+	    fail(e);
+	}
+    }
+
+    /**
+     * Load the next page on a loader thread unless a load is already running.
+     */
+    protected void requestNextPage() {
+	if (!loading) {
+	    loading = true;
+	    LOADERS.execute(this::loadNextPage);
+	}
+    }
+
+    /**
+     * Read and convert the next page of events, then resume sending.
+     */
+    protected void loadNextPage() {
+	SiteWhereAuthentication previous = UserContext.getCurrentUser();
+	UserContext.setContext(getUser());
+	try {
+	    List<G> converted = new ArrayList<>();
+	    for (A event : getSource().next()) {
+		converted.add(getConverter().convert(event));
+	    }
+	    synchronized (this) {
+		loading = false;
+		if (converted.isEmpty()) {
+		    exhausted = true;
+		}
+		this.buffer = converted.iterator();
+	    }
+	    drain();
+	} catch (Throwable e) {
+	    synchronized (this) {
+		loading = false;
+		fail(e);
+	    }
+	} finally {
+	    UserContext.setContext(previous);
+	}
+    }
+
+    /**
+     * Fail the call unless it has already finished.
+     * 
+     * @param e
+     */
+    protected synchronized void fail(Throwable e) {
+	if (!finished) {
+	    finished = true;
+	    this.buffer = Collections.emptyIterator();
+	    GrpcUtils.handleServerMethodException(getMethod(), e, getObserver());
+	    GrpcUtils.handleServerMethodExit(getMethod());
+	}
+    }
+
+    /**
+     * Stop streaming when the client cancels the call.
+     */
+    protected synchronized void cancel() {
+	if (!finished) {
+	    finished = true;
+	    this.buffer = Collections.emptyIterator();
+	    GrpcUtils.handleServerMethodExit(getMethod());
+	}
+    }
+
+    protected MethodDescriptor<?, G> getMethod() {
+	return method;
+    }
+
+    protected ServerCallStreamObserver<G> getObserver() {
+	return observer;
+    }
+
+    protected IPageSource<A> getSource() {
+	return source;
+    }
+
+    protected IConverter<A, G> getConverter() {
+	return converter;
+    }
+
+    protected SiteWhereAuthentication getUser() {
+	return user;
+    }
+
+    /**
+     * Loads a page of events for the given criteria.
+     */
+    @FunctionalInterface
+    public static interface IPageLoader<A> {
+
+	public List<? extends A> load(IDateRangeSearchCriteria criteria) throws SiteWhereException;
+    }
+
+    /**
+     * Supplies successive pages of events. An empty page indicates that no more
+     * events are available.
+     */
+    @FunctionalInterface
+    public static interface IPageSource<A> {
+
+	public List<? extends A> next() throws SiteWhereException;
+    }
+
+    /**
+     * Converts an API event to a GRPC message.
+     */
+    @FunctionalInterface
+    public static interface IConverter<A, G> {
+
+	public G convert(A api) throws SiteWhereException;
+    }
+
+    /**
+     * Reads events for date range criteria newest first using the first page of
+     * a query that ends at the oldest event date read so far, so every query
+     * costs the same and events written while streaming do not shift later
+     * pages. Queries are limited to a window of event time that doubles while
+     * windows are empty so that sparse ranges are skipped quickly. Paging in
+     * the original criteria selects the window of results that is streamed and
+     * a page size of zero streams every matching event.
+     */
+    public static class KeysetPageSource<A extends IDeviceEvent> implements IPageSource<A> {
+
+	/** Largest query size when a page only contains events already read */
+	private static final int MAX_QUERY_SIZE = 50000;
+
+	/** Loads pages of events */
+	private IPageLoader<A> loader;
+
+	/** Start of the range in milliseconds */
+	private long startTime;
+
+	/** End of the current window in milliseconds */
+	private long windowEnd;
+
+	/** Start of the current window (null if not yet chosen) */
+	private Long windowStart;
+
+	/** Window of event time covered by a query */
+	private long windowMs;
+
+	/** Window used for the next window */
+	private long currentWindowMs;
+
+	/** Position after the last event read */
+	private DeviceEventCursor cursor = new DeviceEventCursor();
+
+	/** Number of events still to skip */
+	private long skip;
+
+	/** Number of events left to return (negative if unlimited) */
+	private long remaining;
+
+	/** Indicates no more events match */
+	private boolean exhausted;
+
+	public KeysetPageSource(IDateRangeSearchCriteria criteria, IPageLoader<A> loader) {
+	    this(criteria, loader, DeviceEventExportReader.DEFAULT_WINDOW_MS);
+	}
+
+	public KeysetPageSource(IDateRangeSearchCriteria criteria, IPageLoader<A> loader, long windowMs) {
+	    this.loader = loader;
+	    this.startTime = (criteria.getStartDate() != null) ? criteria.getStartDate().getTime() : 0;
+	    this.windowEnd = (criteria.getEndDate() != null) ? criteria.getEndDate().getTime()
+		    : System.currentTimeMillis();
+	    this.windowMs = Math.max(1, windowMs);
+	    this.currentWindowMs = this.windowMs;
+	    this.exhausted = windowEnd < startTime;
+
+	    int pageSize = (criteria.getPageSize() != null) ? criteria.getPageSize() : 0;
+	    int pageNumber = (criteria.getPageNumber() != null) ? Math.max(1, criteria.getPageNumber()) : 1;
+	    this.skip = (pageSize > 0) ? (long) (pageNumber - 1) * pageSize : 0;
+	    this.remaining = (pageSize > 0) ? pageSize : -1;
+	}
+
+	/*
+	 * @see com.sitewhere.event.grpc.EventStreamer.IPageSource#next()
+	 */
+	@Override
+	public List<? extends A> next() throws SiteWhereException {
+	    int size = CHUNK_SIZE;
+	    while (!exhausted && remaining != 0) {
+		if (windowStart == null) {
+		    windowStart = Math.max(startTime, windowEnd - currentWindowMs + 1);
+		}
+		long to = windowEnd;
+		if (cursor.getDate() != null && cursor.getDate().getTime() < to) {
+		    to = cursor.getDate().getTime();
+		}
+		List<? extends A> results = loader
+			.load(new DateRangeSearchCriteria(1, size, new Date(windowStart), new Date(to)));
+		List<A> page = new ArrayList<>();
+		for (A event : results) {
+		    if (!cursor.isAlreadyRead(event)) {
+			page.add(event);
+		    }
+		}
+
+		// Window is complete, so move to the previous one.
+		if (results.size() < size) {
+		    if (windowStart <= startTime) {
+			exhausted = true;
+		    } else {
+			windowEnd = windowStart - 1;
+		    }
+		    windowStart = null;
+		    currentWindowMs = page.isEmpty() ? Math.min(currentWindowMs * 2, Long.MAX_VALUE / 4) : windowMs;
+		    size = CHUNK_SIZE;
+		}
+
+		// Page only contained events already read at the cursor date, so widen it.
+		else if (page.isEmpty()) {
+		    if (size >= MAX_QUERY_SIZE) {
+			throw new SiteWhereException("Too many events share the same date to read them incrementally.");
+		    }
+		    size = Math.min(size * 2, MAX_QUERY_SIZE);
+		    continue;
+		}
+		for (A event : page) {
+		    cursor.advance(event);
+		}
+		List<A> window = applyWindow(page);
+		if (!window.isEmpty()) {
+		    return window;
+		}
+	    }
+	    return Collections.emptyList();
+	}
+
+	/**
+	 * Drop events before the requested window and after its end.
+	 * 
+	 * @param page
+	 * @return
+	 */
+	protected List<A> applyWindow(List<A> page) {
+	    int from = (int) Math.min(skip, page.size());
+	    skip -= from;
+	    int to = page.size();
+	    if (remaining >= 0) {
+		to = (int) Math.min(to, from + remaining);
+		remaining -= (to - from);
+	    }
+	    return page.subList(from, to);
+	}
+    }
+
+    /**
+     * Names threads used to load pages.
+     */
+    private static class LoaderThreadFactory implements ThreadFactory {
+
+	/** Counter for thread names */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "Event Stream Loader " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+}
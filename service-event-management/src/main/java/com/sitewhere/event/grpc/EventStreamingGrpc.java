@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.grpc;
+
+import com.google.protobuf.Message;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceAlert;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandInvocation;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandResponse;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceLocation;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceMeasurement;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceStateChange;
+import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
+import com.sitewhere.grpc.service.GListAlertsForIndexRequest;
+import com.sitewhere.grpc.service.GListCommandInvocationsForIndexRequest;
+import com.sitewhere.grpc.service.GListCommandResponsesForIndexRequest;
+import com.sitewhere.grpc.service.GListLocationsForIndexRequest;
+import com.sitewhere.grpc.service.GListMeasurementsForIndexRequest;
+import com.sitewhere.grpc.service.GListStateChangesForIndexRequest;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+
+/**
+ * Descriptors for server-streaming event list calls. They are served alongside
+ * the generated device event management methods and reuse the existing list
+ * requests, streaming one event message per result so that large exports do
+ * not have to be held in memory on either side.
+ */
+public class EventStreamingGrpc {
+
+    /** Method for streaming measurements */
+    private static final MethodDescriptor<GListMeasurementsForIndexRequest, GDeviceMeasurement> STREAM_MEASUREMENTS = create(
+	    "StreamMeasurementsForIndex", GListMeasurementsForIndexRequest.getDefaultInstance(),
+	    GDeviceMeasurement.getDefaultInstance());
+
+    /** Method for streaming locations */
+    private static final MethodDescriptor<GListLocationsForIndexRequest, GDeviceLocation> STREAM_LOCATIONS = create(
+	    "StreamLocationsForIndex", GListLocationsForIndexRequest.getDefaultInstance(),
+	    GDeviceLocation.getDefaultInstance());
+
+    /** Method for streaming alerts */
+    private static final MethodDescriptor<GListAlertsForIndexRequest, GDeviceAlert> STREAM_ALERTS = create(
+	    "StreamAlertsForIndex", GListAlertsForIndexRequest.getDefaultInstance(),
+	    GDeviceAlert.getDefaultInstance());
+
+    /** Method for streaming command invocations */
+    private static final MethodDescriptor<GListCommandInvocationsForIndexRequest, GDeviceCommandInvocation> STREAM_COMMAND_INVOCATIONS = create(
+	    "StreamCommandInvocationsForIndex", GListCommandInvocationsForIndexRequest.getDefaultInstance(),
+	    GDeviceCommandInvocation.getDefaultInstance());
+
+    /** Method for streaming command responses */
+    private static final MethodDescriptor<GListCommandResponsesForIndexRequest, GDeviceCommandResponse> STREAM_COMMAND_RESPONSES = create(
+	    "StreamCommandResponsesForIndex", GListCommandResponsesForIndexRequest.getDefaultInstance(),
+	    GDeviceCommandResponse.getDefaultInstance());
+
+    /** Method for streaming state changes */
+    private static final MethodDescriptor<GListStateChangesForIndexRequest, GDeviceStateChange> STREAM_STATE_CHANGES = create(
+	    "StreamStateChangesForIndex", GListStateChangesForIndexRequest.getDefaultInstance(),
+	    GDeviceStateChange.getDefaultInstance());
+
+    public static MethodDescriptor<GListMeasurementsForIndexRequest, GDeviceMeasurement> getStreamMeasurementsForIndexMethod() {
+	return STREAM_MEASUREMENTS;
+    }
+
+    public static MethodDescriptor<GListLocationsForIndexRequest, GDeviceLocation> getStreamLocationsForIndexMethod() {
+	return STREAM_LOCATIONS;
+    }
+
+    public static MethodDescriptor<GListAlertsForIndexRequest, GDeviceAlert> getStreamAlertsForIndexMethod() {
+	return STREAM_ALERTS;
+    }
+
+    public static MethodDescriptor<GListCommandInvocationsForIndexRequest, GDeviceCommandInvocation> getStreamCommandInvocationsForIndexMethod() {
+	return STREAM_COMMAND_INVOCATIONS;
+    }
+
+    public static MethodDescriptor<GListCommandResponsesForIndexRequest, GDeviceCommandResponse> getStreamCommandResponsesForIndexMethod() {
+	return STREAM_COMMAND_RESPONSES;
+    }
+
+    public static MethodDescriptor<GListStateChangesForIndexRequest, GDeviceStateChange> getStreamStateChangesForIndexMethod() {
+	return STREAM_STATE_CHANGES;
+    }
+
+    /**
+     * Create a server-streaming descriptor using protobuf marshalling.
+     * 
+     * @param name
+     * @param request
+     * @param response
+     * @return
+     */
+    protected static <Q extends Message, R extends Message> MethodDescriptor<Q, R> create(String name, Q request,
+	    R response) {
+	return MethodDescriptor.<Q, R>newBuilder().setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+		.setFullMethodName(
+			MethodDescriptor.generateFullMethodName(DeviceEventManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(ProtoUtils.marshaller(request))
+		.setResponseMarshaller(ProtoUtils.marshaller(response)).build();
+    }
+}
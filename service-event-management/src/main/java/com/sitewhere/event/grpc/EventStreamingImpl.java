@@ -0,0 +1,241 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.grpc;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.grpc.common.CommonModelConverter;
+import com.sitewhere.grpc.event.EventModelConverter;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceAlert;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandInvocation;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandResponse;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceLocation;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceMeasurement;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceStateChange;
+import com.sitewhere.grpc.service.GListAlertsForIndexRequest;
+import com.sitewhere.grpc.service.GListCommandInvocationsForIndexRequest;
+import com.sitewhere.grpc.service.GListCommandResponsesForIndexRequest;
+import com.sitewhere.grpc.service.GListLocationsForIndexRequest;
+import com.sitewhere.grpc.service.GListMeasurementsForIndexRequest;
+import com.sitewhere.grpc.service.GListStateChangesForIndexRequest;
+import com.sitewhere.microservice.api.event.IDeviceEventManagement;
+import com.sitewhere.spi.device.event.DeviceEventIndex;
+import com.sitewhere.spi.device.event.IDeviceAlert;
+import com.sitewhere.spi.device.event.IDeviceCommandInvocation;
+import com.sitewhere.spi.device.event.IDeviceCommandResponse;
+import com.sitewhere.spi.device.event.IDeviceLocation;
+import com.sitewhere.spi.device.event.IDeviceMeasurement;
+import com.sitewhere.spi.device.event.IDeviceStateChange;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for streaming event list requests.
+ */
+public class EventStreamingImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IEventManagementMicroservice microservice;
+
+    /** Event management persistence */
+    private IDeviceEventManagement deviceEventManagement;
+
+    public EventStreamingImpl(IEventManagementMicroservice microservice,
+	    IDeviceEventManagement deviceEventManagement) {
+	this.microservice = microservice;
+	this.deviceEventManagement = deviceEventManagement;
+    }
+
+    /**
+     * Stream measurements for an index.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamMeasurementsForIndex(GListMeasurementsForIndexRequest request,
+	    StreamObserver<GDeviceMeasurement> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventStreamingGrpc.getStreamMeasurementsForIndexMethod());
+	    DeviceEventIndex index = EventModelConverter.asApiDeviceEventIndex(request.getIndex());
+	    List<UUID> ids = CommonModelConverter.asApiUuids(request.getEntityIdsList());
+	    EventStreamer<IDeviceMeasurement, GDeviceMeasurement> streamer = new EventStreamer<>(
+		    EventStreamingGrpc.getStreamMeasurementsForIndexMethod(), responseObserver,
+		    new EventStreamer.KeysetPageSource<>(
+			    CommonModelConverter.asDateRangeSearchCriteria(request.getCriteria()),
+			    criteria -> getDeviceEventManagement().listDeviceMeasurementsForIndex(index, ids, criteria)
+				    .getResults()),
+		    EventModelConverter::asGrpcDeviceMeasurement);
+	    streamer.start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventStreamingGrpc.getStreamMeasurementsForIndexMethod(), e,
+		    responseObserver);
+	    GrpcUtils.handleServerMethodExit(EventStreamingGrpc.getStreamMeasurementsForIndexMethod());
+	}
+    }
+
+    /**
+     * Stream locations for an index.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamLocationsForIndex(GListLocationsForIndexRequest request,
+	    StreamObserver<GDeviceLocation> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventStreamingGrpc.getStreamLocationsForIndexMethod());
+	    DeviceEventIndex index = EventModelConverter.asApiDeviceEventIndex(request.getIndex());
+	    List<UUID> ids = CommonModelConverter.asApiUuids(request.getEntityIdsList());
+	    EventStreamer<IDeviceLocation, GDeviceLocation> streamer = new EventStreamer<>(
+		    EventStreamingGrpc.getStreamLocationsForIndexMethod(), responseObserver,
+		    new EventStreamer.KeysetPageSource<>(
+			    CommonModelConverter.asDateRangeSearchCriteria(request.getCriteria()),
+			    criteria -> getDeviceEventManagement().listDeviceLocationsForIndex(index, ids, criteria)
+				    .getResults()),
+		    EventModelConverter::asGrpcDeviceLocation);
+	    streamer.start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventStreamingGrpc.getStreamLocationsForIndexMethod(), e,
+		    responseObserver);
+	    GrpcUtils.handleServerMethodExit(EventStreamingGrpc.getStreamLocationsForIndexMethod());
+	}
+    }
+
+    /**
+     * Stream alerts for an index.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamAlertsForIndex(GListAlertsForIndexRequest request,
+	    StreamObserver<GDeviceAlert> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventStreamingGrpc.getStreamAlertsForIndexMethod());
+	    DeviceEventIndex index = EventModelConverter.asApiDeviceEventIndex(request.getIndex());
+	    List<UUID> ids = CommonModelConverter.asApiUuids(request.getEntityIdsList());
+	    EventStreamer<IDeviceAlert, GDeviceAlert> streamer = new EventStreamer<>(
+		    EventStreamingGrpc.getStreamAlertsForIndexMethod(), responseObserver,
+		    new EventStreamer.KeysetPageSource<>(
+			    CommonModelConverter.asDateRangeSearchCriteria(request.getCriteria()),
+			    criteria -> getDeviceEventManagement().listDeviceAlertsForIndex(index, ids, criteria)
+				    .getResults()),
+		    EventModelConverter::asGrpcDeviceAlert);
+	    streamer.start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventStreamingGrpc.getStreamAlertsForIndexMethod(), e,
+		    responseObserver);
+	    GrpcUtils.handleServerMethodExit(EventStreamingGrpc.getStreamAlertsForIndexMethod());
+	}
+    }
+
+    /**
+     * Stream command invocations for an index.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamCommandInvocationsForIndex(GListCommandInvocationsForIndexRequest request,
+	    StreamObserver<GDeviceCommandInvocation> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventStreamingGrpc.getStreamCommandInvocationsForIndexMethod());
+	    DeviceEventIndex index = EventModelConverter.asApiDeviceEventIndex(request.getIndex());
+	    List<UUID> ids = CommonModelConverter.asApiUuids(request.getEntityIdsList());
+	    EventStreamer<IDeviceCommandInvocation, GDeviceCommandInvocation> streamer = new EventStreamer<>(
+		    EventStreamingGrpc.getStreamCommandInvocationsForIndexMethod(), responseObserver,
+		    new EventStreamer.KeysetPageSource<>(
+			    CommonModelConverter.asDateRangeSearchCriteria(request.getCriteria()),
+			    criteria -> getDeviceEventManagement()
+				    .listDeviceCommandInvocationsForIndex(index, ids, criteria).getResults()),
+		    EventModelConverter::asGrpcDeviceCommandInvocation);
+	    streamer.start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventStreamingGrpc.getStreamCommandInvocationsForIndexMethod(), e,
+		    responseObserver);
+	    GrpcUtils.handleServerMethodExit(EventStreamingGrpc.getStreamCommandInvocationsForIndexMethod());
+	}
+    }
+
+    /**
+     * Stream command responses for an index.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamCommandResponsesForIndex(GListCommandResponsesForIndexRequest request,
+	    StreamObserver<GDeviceCommandResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventStreamingGrpc.getStreamCommandResponsesForIndexMethod());
+	    DeviceEventIndex index = EventModelConverter.asApiDeviceEventIndex(request.getIndex());
+	    List<UUID> ids = CommonModelConverter.asApiUuids(request.getEntityIdsList());
+	    EventStreamer<IDeviceCommandResponse, GDeviceCommandResponse> streamer = new EventStreamer<>(
+		    EventStreamingGrpc.getStreamCommandResponsesForIndexMethod(), responseObserver,
+		    new EventStreamer.KeysetPageSource<>(
+			    CommonModelConverter.asDateRangeSearchCriteria(request.getCriteria()),
+			    criteria -> getDeviceEventManagement()
+				    .listDeviceCommandResponsesForIndex(index, ids, criteria).getResults()),
+		    EventModelConverter::asGrpcDeviceCommandResponse);
+	    streamer.start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventStreamingGrpc.getStreamCommandResponsesForIndexMethod(), e,
+		    responseObserver);
+	    GrpcUtils.handleServerMethodExit(EventStreamingGrpc.getStreamCommandResponsesForIndexMethod());
+	}
+    }
+
+    /**
+     * Stream state changes for an index.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamStateChangesForIndex(GListStateChangesForIndexRequest request,
+	    StreamObserver<GDeviceStateChange> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, EventStreamingGrpc.getStreamStateChangesForIndexMethod());
+	    DeviceEventIndex index = EventModelConverter.asApiDeviceEventIndex(request.getIndex());
+	    List<UUID> ids = CommonModelConverter.asApiUuids(request.getEntityIdsList());
+	    EventStreamer<IDeviceStateChange, GDeviceStateChange> streamer = new EventStreamer<>(
+		    EventStreamingGrpc.getStreamStateChangesForIndexMethod(), responseObserver,
+		    new EventStreamer.KeysetPageSource<>(
+			    CommonModelConverter.asDateRangeSearchCriteria(request.getCriteria()),
+			    criteria -> getDeviceEventManagement().listDeviceStateChangesForIndex(index, ids, criteria)
+				    .getResults()),
+		    EventModelConverter::asGrpcDeviceStateChange);
+	    streamer.start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventStreamingGrpc.getStreamStateChangesForIndexMethod(), e,
+		    responseObserver);
+	    GrpcUtils.handleServerMethodExit(EventStreamingGrpc.getStreamStateChangesForIndexMethod());
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IDeviceEventManagement getDeviceEventManagement() {
+	return deviceEventManagement;
+    }
+}
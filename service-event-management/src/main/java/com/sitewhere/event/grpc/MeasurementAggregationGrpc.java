@@ -0,0 +1,52 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.grpc;
+
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregationRequest;
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregationResponse;
+import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptor for the measurement rollup call. It is served alongside the
+ * generated device event management methods and uses JSON payloads so that it
+ * does not require changes to the shared protocol definitions.
+ */
+public class MeasurementAggregationGrpc {
+
+    /** Method for aggregating measurements */
+    private static MethodDescriptor<MeasurementAggregationRequest, MeasurementAggregationResponse> aggregateMeasurementsMethod;
+
+    /**
+     * Get descriptor for measurement rollup method.
+     * 
+     * @return
+     */
+    public static synchronized MethodDescriptor<MeasurementAggregationRequest, MeasurementAggregationResponse> getAggregateMeasurementsMethod() {
+	if (aggregateMeasurementsMethod == null) {
+	    aggregateMeasurementsMethod = MethodDescriptor
+		    .<MeasurementAggregationRequest, MeasurementAggregationResponse>newBuilder()
+		    .setType(MethodDescriptor.MethodType.UNARY)
+		    .setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceEventManagementGrpc.SERVICE_NAME,
+			    "AggregateMeasurements"))
+		    .setRequestMarshaller(new JsonMarshaller<>(MeasurementAggregationRequest.class))
+		    .setResponseMarshaller(new JsonMarshaller<>(MeasurementAggregationResponse.class)).build();
+	}
+	return aggregateMeasurementsMethod;
+    }
+}
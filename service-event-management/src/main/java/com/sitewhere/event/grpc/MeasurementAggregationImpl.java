@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.grpc;
+
+import java.util.List;
+
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregationRequest;
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregationResponse;
+import com.sitewhere.event.spi.grpc.IMeasurementAggregationService;
+import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
+import com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for measurement rollup requests.
+ */
+public class MeasurementAggregationImpl implements IMeasurementAggregationService {
+
+    /** Parent microservice */
+    private IEventManagementMicroservice microservice;
+
+    /** Aggregation implementation (null if not supported by datastore) */
+    private IDeviceMeasurementAggregation measurementAggregation;
+
+    public MeasurementAggregationImpl(IEventManagementMicroservice microservice,
+	    IDeviceMeasurementAggregation measurementAggregation) {
+	this.microservice = microservice;
+	this.measurementAggregation = measurementAggregation;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.grpc.IMeasurementAggregationService#
+     * aggregateMeasurements(com.sitewhere.event.persistence.aggregate.
+     * MeasurementAggregationRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void aggregateMeasurements(MeasurementAggregationRequest request,
+	    StreamObserver<MeasurementAggregationResponse> responseObserver) {
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, MeasurementAggregationGrpc.getAggregateMeasurementsMethod());
+	    if (getMeasurementAggregation() == null) {
+		throw new SiteWhereException("Configured datastore does not support measurement aggregation.");
+	    }
+	    List<IMeasurementSeries> series = getMeasurementAggregation().aggregateMeasurements(request.getIndex(),
+		    request.getEntityIds(), request.getCriteria());
+	    responseObserver.onNext(new MeasurementAggregationResponse(series));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(MeasurementAggregationGrpc.getAggregateMeasurementsMethod(), e,
+		    responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(MeasurementAggregationGrpc.getAggregateMeasurementsMethod());
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected IDeviceMeasurementAggregation getMeasurementAggregation() {
+	return measurementAggregation;
+    }
+}
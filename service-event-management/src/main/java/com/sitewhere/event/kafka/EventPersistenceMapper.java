@@ -22,7 +22,11 @@ import java.util.UUID;
 import org.apache.kafka.streams.KeyValue;
 
 import com.sitewhere.event.configuration.EventManagementTenantConfiguration;
+import com.sitewhere.event.processing.DatastoreFailures;
+import com.sitewhere.event.processing.EventSpillBuffer;
 import com.sitewhere.event.spi.microservice.IEventManagementTenantEngine;
+import com.sitewhere.event.spi.processing.IEventSpillBuffer;
+import com.sitewhere.event.spi.processing.IEventSpillHandler;
 import com.sitewhere.grpc.event.EventModelConverter;
 import com.sitewhere.grpc.model.DeviceEventModel.GAnyDeviceEventCreateRequest;
 import com.sitewhere.grpc.model.DeviceEventModel.GPreprocessedEventPayload;
@@ -41,12 +45,16 @@ import com.sitewhere.spi.device.event.request.IDeviceLocationCreateRequest;
 import com.sitewhere.spi.device.event.request.IDeviceMeasurementCreateRequest;
 import com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest;
 import com.sitewhere.spi.microservice.instance.EventPipelineLogLevel;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
 
 import io.prometheus.client.Counter;
 
 /**
- * Persists device events via the SiteWhere APIs
+ * Persists device events via the SiteWhere APIs. Events that fail because the
+ * datastore is unavailable are added to a local spill buffer and persisted
+ * once it recovers. Until a buffered event is persisted again, new events are
+ * added to the buffer as well rather than waiting on a failing datastore.
  */
 public class EventPersistenceMapper
 	extends KeyValueMapperComponent<UUID, GPreprocessedEventPayload, KeyValue<UUID, GPreprocessedEventPayload>> {
@@ -58,8 +66,42 @@ public class EventPersistenceMapper
     /** Configuration */
     private EventManagementTenantConfiguration configuration;
 
+    /** Holds events that could not be persisted */
+    private IEventSpillBuffer spillBuffer;
+
     public EventPersistenceMapper(EventManagementTenantConfiguration configuration) {
 	this.configuration = configuration;
+	this.spillBuffer = new EventSpillBuffer(configuration.getSpill(), new SpillHandler());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#initialize(com.
+     * sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	initializeNestedComponent(getSpillBuffer(), monitor, true);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	startNestedComponent(getSpillBuffer(), monitor, true);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	stopNestedComponent(getSpillBuffer(), monitor);
     }
 
     /*
@@ -68,6 +110,13 @@ public class EventPersistenceMapper
      */
     @Override
     public KeyValue<UUID, GPreprocessedEventPayload> apply(UUID key, GPreprocessedEventPayload payload) {
+	// Skip the datastore until replay shows that it has recovered.
+	if (getSpillBuffer().isActive()) {
+	    if (!getSpillBuffer().spill(payload)) {
+		getLogger().error("Unable to persist device event while datastore is unavailable.");
+	    }
+	    return null;
+	}
 	try {
 	    new PersistenceProcessor(EventPersistenceMapper.this, payload).call();
 
@@ -80,11 +129,71 @@ public class EventPersistenceMapper
 	    KeyValue<UUID, GPreprocessedEventPayload> keyValue = KeyValue.pair(key, payload);
 	    return keyValue;
 	} catch (Exception e) {
-	    getLogger().error("Unable to persist device event.", e);
+	    if (isDatastoreFailure(e) && getSpillBuffer().spill(payload)) {
+		getLogger().warn("Unable to persist device event. Event was buffered for retry.", e);
+	    } else {
+		getLogger().error("Unable to persist device event.", e);
+	    }
 	    return null;
 	}
     }
 
+    /**
+     * Indicates whether an exception was caused by the datastore being
+     * unreachable rather than by the event itself. Other failures would happen
+     * again if the event were retried. Conversion errors are excluded since
+     * protobuf reports them as I/O errors.
+     * 
+     * @param e
+     * @return
+     */
+    protected boolean isDatastoreFailure(Throwable e) {
+	for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+	    if (cause instanceof EventConversionException) {
+		return false;
+	    }
+	}
+	return DatastoreFailures.isUnavailable(e);
+    }
+
+    /**
+     * Persists events replayed from the spill buffer.
+     */
+    private class SpillHandler implements IEventSpillHandler {
+
+	/*
+	 * @see com.sitewhere.event.spi.processing.IEventSpillHandler#replay(com.
+	 * sitewhere.grpc.model.DeviceEventModel.GPreprocessedEventPayload)
+	 */
+	@Override
+	public boolean replay(GPreprocessedEventPayload payload) {
+	    try {
+		new PersistenceProcessor(EventPersistenceMapper.this, payload).call();
+		return true;
+	    } catch (Exception e) {
+		if (isDatastoreFailure(e)) {
+		    getLogger().debug("Unable to persist buffered event.", e);
+		    return false;
+		}
+		getLogger().error("Discarding buffered event that could not be persisted.", e);
+		return true;
+	    }
+	}
+    }
+
+    /**
+     * Indicates an event payload could not be converted for persistence.
+     */
+    private static class EventConversionException extends SiteWhereException {
+
+	/** Serial version UID */
+	private static final long serialVersionUID = 3460279843513672014L;
+
+	public EventConversionException(Throwable cause) {
+	    super("Unable to convert event for persistence.", cause);
+	}
+    }
+
     /**
      * Runs event persistence in system user context.
      */
@@ -103,8 +212,14 @@ public class EventPersistenceMapper
 	@Override
 	public List<? extends IDeviceEvent> runAsSystemUser() throws SiteWhereException {
 	    GAnyDeviceEventCreateRequest grpc = event.getEvent();
-	    IDeviceEventContext context = EventModelConverter.asApiDeviceEventContext(event.getContext());
-	    IDeviceEventCreateRequest request = EventModelConverter.asApiDeviceEventCreateRequest(grpc);
+	    IDeviceEventContext context;
+	    IDeviceEventCreateRequest request;
+	    try {
+		context = EventModelConverter.asApiDeviceEventContext(event.getContext());
+		request = EventModelConverter.asApiDeviceEventCreateRequest(grpc);
+	    } catch (Exception e) {
+		throw new EventConversionException(e);
+	    }
 	    switch (request.getEventType()) {
 	    case Measurement:
 		PROCESSED_EVENTS.labels(buildLabels()).inc();
@@ -143,4 +258,8 @@ public class EventPersistenceMapper
     protected EventManagementTenantConfiguration getConfiguration() {
 	return configuration;
     }
+
+    public IEventSpillBuffer getSpillBuffer() {
+	return spillBuffer;
+    }
 }
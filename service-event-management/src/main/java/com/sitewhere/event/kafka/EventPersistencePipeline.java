@@ -17,14 +17,18 @@ package com.sitewhere.event.kafka;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
 
 import com.sitewhere.event.spi.kafka.IEventPersistencePipeline;
 import com.sitewhere.event.spi.microservice.IEventManagementTenantEngine;
+import com.sitewhere.event.spi.processing.IEventSpillBuffer;
 import com.sitewhere.grpc.kafka.serdes.SiteWhereSerdes;
+import com.sitewhere.grpc.model.DeviceEventModel.GPreprocessedEventPayload;
 import com.sitewhere.microservice.kafka.KafkaStreamPipeline;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
@@ -38,6 +42,9 @@ public class EventPersistencePipeline extends KafkaStreamPipeline implements IEv
     /** Applies event persistence logic to preprocessed event streams */
     private EventPersistenceMapper eventPersistenceMapper;
 
+    /** Tracks ownership of the tenant maintenance lease */
+    private MaintenanceLeaseProcessorSupplier maintenanceLease = new MaintenanceLeaseProcessorSupplier();
+
     /*
      * @see com.sitewhere.microservice.kafka.KafkaStreamPipeline#getPipelineName()
      */
@@ -67,9 +74,10 @@ public class EventPersistencePipeline extends KafkaStreamPipeline implements IEv
     @Override
     public void buildStreams(StreamsBuilder builder) {
 	// Pipeline handles both event source decoded events and reprocess events.
-	builder.stream(getSourceTopicNames(),
-		Consumed.with(Serdes.UUID(), SiteWhereSerdes.forPreprocessedEventPayload()))
-		.map(getEventPersistenceMapper());
+	KStream<UUID, GPreprocessedEventPayload> events = builder.stream(getSourceTopicNames(),
+		Consumed.with(Serdes.UUID(), SiteWhereSerdes.forPreprocessedEventPayload()));
+	events.process(getMaintenanceLease());
+	events.map(getEventPersistenceMapper());
     }
 
     /*
@@ -84,6 +92,7 @@ public class EventPersistencePipeline extends KafkaStreamPipeline implements IEv
 
 	super.initialize(monitor);
 	initializeNestedComponent(getEventPersistenceMapper(), monitor, true);
+	initializeNestedComponent(getMaintenanceLease(), monitor, true);
     }
 
     /*
@@ -93,8 +102,10 @@ public class EventPersistencePipeline extends KafkaStreamPipeline implements IEv
      */
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	super.start(monitor);
+	// Open spill buffer before events start flowing.
 	startNestedComponent(getEventPersistenceMapper(), monitor, true);
+	startNestedComponent(getMaintenanceLease(), monitor, true);
+	super.start(monitor);
     }
 
     /*
@@ -105,9 +116,28 @@ public class EventPersistencePipeline extends KafkaStreamPipeline implements IEv
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	super.stop(monitor);
+	stopNestedComponent(getMaintenanceLease(), monitor);
 	stopNestedComponent(getEventPersistenceMapper(), monitor);
     }
 
+    /*
+     * @see com.sitewhere.event.spi.kafka.IEventPersistencePipeline#
+     * getEventSpillBuffer()
+     */
+    @Override
+    public IEventSpillBuffer getEventSpillBuffer() {
+	return (getEventPersistenceMapper() != null) ? getEventPersistenceMapper().getSpillBuffer() : null;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.kafka.IEventPersistencePipeline#
+     * getMaintenanceLease()
+     */
+    @Override
+    public MaintenanceLeaseProcessorSupplier getMaintenanceLease() {
+	return maintenanceLease;
+    }
+
     protected EventPersistenceMapper getEventPersistenceMapper() {
 	return eventPersistenceMapper;
     }
@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.kafka;
+
+import java.util.UUID;
+
+import org.apache.kafka.streams.processor.Processor;
+import org.apache.kafka.streams.processor.ProcessorContext;
+
+import com.sitewhere.event.spi.processing.IMaintenanceLease;
+import com.sitewhere.grpc.model.DeviceEventModel.GPreprocessedEventPayload;
+import com.sitewhere.microservice.kafka.ProcessorSupplierComponent;
+
+/**
+ * Holds the tenant maintenance lease while this replica owns the stream task
+ * for the first partition of the inbound events topic. Kafka assigns each task
+ * to a single replica and closes it before handing it to another, so exactly
+ * one live replica holds the lease and it moves on failure or rebalance.
+ */
+public class MaintenanceLeaseProcessorSupplier extends ProcessorSupplierComponent<UUID, GPreprocessedEventPayload>
+	implements IMaintenanceLease {
+
+    /** Partition whose task carries the lease */
+    private static final int LEASE_PARTITION = 0;
+
+    /** Indicates the lease task is active on this replica */
+    private volatile boolean held = false;
+
+    /*
+     * @see org.apache.kafka.streams.processor.ProcessorSupplier#get()
+     */
+    @Override
+    public Processor<UUID, GPreprocessedEventPayload> get() {
+	return new Processor<UUID, GPreprocessedEventPayload>() {
+
+	    /** Indicates this processor belongs to the lease task */
+	    private boolean leaseTask;
+
+	    /*
+	     * @see
+	     * org.apache.kafka.streams.processor.Processor#init(org.apache.kafka.streams.
+	     * processor.ProcessorContext)
+	     */
+	    @Override
+	    public void init(ProcessorContext context) {
+		this.leaseTask = (context.taskId().partition == LEASE_PARTITION);
+		if (leaseTask) {
+		    held = true;
+		    getLogger().info("Acquired event maintenance lease.");
+		}
+	    }
+
+	    /*
+	     * @see org.apache.kafka.streams.processor.Processor#process(java.lang.Object,
+	     * java.lang.Object)
+	     */
+	    @Override
+	    public void process(UUID key, GPreprocessedEventPayload payload) {
+	    }
+
+	    /*
+	     * @see org.apache.kafka.streams.processor.Processor#close()
+	     */
+	    @Override
+	    public void close() {
+		if (leaseTask) {
+		    held = false;
+		    getLogger().info("Released event maintenance lease.");
+		}
+	    }
+	};
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.processing.IMaintenanceLease#isHeld()
+     */
+    @Override
+    public boolean isHeld() {
+	return held;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.state.Stores;
+
+import com.sitewhere.event.spi.kafka.IMeasurementRollupPipeline;
+import com.sitewhere.event.spi.microservice.IEventManagementTenantEngine;
+import com.sitewhere.grpc.kafka.serdes.SiteWhereSerdes;
+import com.sitewhere.microservice.kafka.KafkaStreamPipeline;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+
+/**
+ * Kafka pipeline that maintains 1-minute, 1-hour and 1-day measurement rollups
+ * from the persisted events stream.
+ */
+public class MeasurementRollupPipeline extends KafkaStreamPipeline implements IMeasurementRollupPipeline {
+
+    /** Name of state store holding open rollup buckets */
+    private static final String STORE_NAME = "measurement-rollups";
+
+    /** Folds measurements into rollups */
+    private MeasurementRollupProcessorSupplier measurementRollupProcessorSupplier;
+
+    /*
+     * @see com.sitewhere.microservice.kafka.KafkaStreamPipeline#getPipelineName()
+     */
+    @Override
+    public String getPipelineName() {
+	return "rollups";
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IKafkaStreamPipeline#getSourceTopicNames
+     * ()
+     */
+    @Override
+    public List<String> getSourceTopicNames() {
+	List<String> topics = new ArrayList<>();
+	topics.add(
+		getMicroservice().getKafkaTopicNaming().getOutboundEventsTopic(getTenantEngine().getTenantResource()));
+	return topics;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IKafkaStreamPipeline#buildStreams(org.
+     * apache.kafka.streams.StreamsBuilder)
+     */
+    @Override
+    public void buildStreams(StreamsBuilder builder) {
+	builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(STORE_NAME), Serdes.String(),
+		Serdes.ByteArray()));
+	builder.stream(getSourceTopicNames(), Consumed.with(Serdes.UUID(), SiteWhereSerdes.forProcessedEventPayload()))
+		.process(getMeasurementRollupProcessorSupplier(), STORE_NAME);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.KafkaStreamPipeline#initialize(com.sitewhere
+     * .spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	IEventManagementTenantEngine engine = (IEventManagementTenantEngine) getTenantEngine();
+	this.measurementRollupProcessorSupplier = new MeasurementRollupProcessorSupplier(STORE_NAME,
+		engine.getMeasurementRollupStore(), engine.getActiveConfiguration().getRollupFlushIntervalSeconds());
+
+	super.initialize(monitor);
+	initializeNestedComponent(getMeasurementRollupProcessorSupplier(), monitor, true);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.KafkaStreamPipeline#start(com.sitewhere.spi.
+     * microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Start processor first so coverage is marked before events arrive.
+	startNestedComponent(getMeasurementRollupProcessorSupplier(), monitor, true);
+	super.start(monitor);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.KafkaStreamPipeline#stop(com.sitewhere.spi.
+     * microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.stop(monitor);
+	stopNestedComponent(getMeasurementRollupProcessorSupplier(), monitor);
+    }
+
+    protected MeasurementRollupProcessorSupplier getMeasurementRollupProcessorSupplier() {
+	return measurementRollupProcessorSupplier;
+    }
+}
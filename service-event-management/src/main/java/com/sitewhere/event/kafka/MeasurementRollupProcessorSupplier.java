@@ -0,0 +1,282 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.kafka;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.Processor;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import com.sitewhere.event.persistence.aggregate.MeasurementRollup;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupTier;
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.grpc.event.EventModelConverter;
+import com.sitewhere.grpc.model.DeviceEventModel.GAnyDeviceEvent.EventCase;
+import com.sitewhere.grpc.model.DeviceEventModel.GProcessedEventPayload;
+import com.sitewhere.microservice.kafka.ProcessorSupplierComponent;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.shared.event.ReplayedEvents;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceMeasurement;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+
+import io.prometheus.client.Counter;
+
+/**
+ * Folds persisted measurements into rollup buckets held in a state store and
+ * periodically writes changed buckets to the rollup store. Bucket state is
+ * committed along with input offsets, so a crash or rebalance loses neither
+ * unwritten buckets nor totals that were already written. Events republished
+ * by a replay are ignored since they are already counted.
+ */
+public class MeasurementRollupProcessorSupplier
+	extends ProcessorSupplierComponent<UUID, GProcessedEventPayload> {
+
+    /** Counter for rollups written */
+    private static final Counter ROLLUPS_WRITTEN = TenantEngineLifecycleComponent
+	    .createCounterMetric("measurement_rollup_write_count", "Count of measurement rollup buckets written");
+
+    /** Counter for values too late to be rolled up */
+    private static final Counter LATE_VALUES = TenantEngineLifecycleComponent.createCounterMetric(
+	    "measurement_rollup_late_count", "Count of tier buckets skipped because the value arrived too late");
+
+    /** Assignment id of coverage markers stored as rollups by earlier versions */
+    private static final UUID LEGACY_MARKER_ASSIGNMENT_ID = new UUID(0, 0);
+
+    /** Measurement name of coverage markers stored as rollups by earlier versions */
+    private static final String LEGACY_MARKER_NAME = "_coverage";
+
+    /** Name of state store holding open buckets */
+    private String storeName;
+
+    /** Store for rollups */
+    private IMeasurementRollupStore store;
+
+    /** Seconds between writes of changed buckets */
+    private int flushIntervalSeconds;
+
+    public MeasurementRollupProcessorSupplier(String storeName, IMeasurementRollupStore store,
+	    int flushIntervalSeconds) {
+	this.storeName = storeName;
+	this.store = store;
+	this.flushIntervalSeconds = Math.max(1, flushIntervalSeconds);
+    }
+
+    /*
+     * @see org.apache.kafka.streams.processor.ProcessorSupplier#get()
+     */
+    @Override
+    public Processor<UUID, GProcessedEventPayload> get() {
+	return new Processor<UUID, GProcessedEventPayload>() {
+
+	    /** Processor context */
+	    private ProcessorContext context;
+
+	    /** Open buckets for the partitions of this task */
+	    private MeasurementRollupBuffer buffer;
+
+	    /*
+	     * @see
+	     * org.apache.kafka.streams.processor.Processor#init(org.apache.kafka.streams.
+	     * processor.ProcessorContext)
+	     */
+	    @SuppressWarnings("unchecked")
+	    @Override
+	    public void init(ProcessorContext context) {
+		this.context = context;
+		this.buffer = new MeasurementRollupBuffer(
+			new StoreState((KeyValueStore<String, byte[]>) context.getStateStore(getStoreName())), true);
+		context.schedule(Duration.ofSeconds(getFlushIntervalSeconds()), PunctuationType.WALL_CLOCK_TIME,
+			timestamp -> flush(buffer));
+	    }
+
+	    /*
+	     * @see org.apache.kafka.streams.processor.Processor#process(java.lang.Object,
+	     * java.lang.Object)
+	     */
+	    @Override
+	    public void process(UUID key, GProcessedEventPayload payload) {
+		if (payload.getEvent().getEventCase() != EventCase.MEASUREMENT) {
+		    return;
+		}
+		try {
+		    IDeviceMeasurement mx = EventModelConverter
+			    .asApiDeviceMeasurement(payload.getEvent().getMeasurement());
+		    if (ReplayedEvents.isReplayed(mx)) {
+			return;
+		    }
+		    if (mx.getDeviceAssignmentId() != null && mx.getName() != null && mx.getValue() != null
+			    && mx.getEventDate() != null) {
+			int late = buffer.add(mx.getDeviceAssignmentId(), mx.getName(), mx.getEventDate(),
+				mx.getValue().doubleValue(), context.partition(), context.offset());
+			if (late > 0) {
+			    LATE_VALUES.labels(buildLabels()).inc(late);
+			}
+		    }
+		} catch (SiteWhereException e) {
+		    getLogger().error("Unable to convert measurement for rollup.", e);
+		}
+	    }
+
+	    /*
+	     * @see org.apache.kafka.streams.processor.Processor#close()
+	     */
+	    @Override
+	    public void close() {
+		flush(buffer);
+	    }
+	};
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	Date coverage = getStore().getRollupCoverageStart();
+	if (coverage == null) {
+	    coverage = getLegacyCoverageStart();
+	}
+	if (coverage == null) {
+	    getStore().setRollupCoverageStart(new Date());
+	    getLogger().info("Started maintaining measurement rollups.");
+	} else {
+	    // Rewrite so the marker does not age out of stores with retention.
+	    getStore().setRollupCoverageStart(coverage);
+	}
+    }
+
+    /**
+     * Get coverage date recorded by earlier versions as a marker rollup in the
+     * daily tier.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Date getLegacyCoverageStart() throws SiteWhereException {
+	Date earliest = null;
+	for (MeasurementRollup marker : getStore().listMeasurementRollups(MeasurementRollupTier.Day,
+		Collections.singletonList(LEGACY_MARKER_ASSIGNMENT_ID), Collections.singletonList(LEGACY_MARKER_NAME),
+		new Date(0), new Date(System.currentTimeMillis() + MeasurementRollupTier.Day.getIntervalMs()))) {
+	    if (earliest == null || marker.getDate().before(earliest)) {
+		earliest = marker.getDate();
+	    }
+	}
+	return earliest;
+    }
+
+    /**
+     * Write changed buckets to the store. Buckets that could not be written are
+     * kept in the state store and retried on the next flush.
+     * 
+     * @param buffer
+     */
+    protected void flush(MeasurementRollupBuffer buffer) {
+	try {
+	    int written = buffer.flush(getStore());
+	    if (written > 0) {
+		ROLLUPS_WRITTEN.labels(buildLabels()).inc(written);
+		getLogger().debug(String.format("Wrote %d measurement rollups.", written));
+	    }
+	} catch (Throwable t) {
+	    getLogger().error(String.format("Unable to write measurement rollups (%d buckets pending).",
+		    buffer.getDirtyCount()), t);
+	}
+    }
+
+    protected String getStoreName() {
+	return storeName;
+    }
+
+    protected IMeasurementRollupStore getStore() {
+	return store;
+    }
+
+    protected int getFlushIntervalSeconds() {
+	return flushIntervalSeconds;
+    }
+
+    /**
+     * Bucket state kept in a Kafka Streams key/value store.
+     */
+    private static class StoreState implements MeasurementRollupBuffer.State {
+
+	/** Wrapped store */
+	private KeyValueStore<String, byte[]> store;
+
+	StoreState(KeyValueStore<String, byte[]> store) {
+	    this.store = store;
+	}
+
+	/*
+	 * @see com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer.
+	 * State#get(java.lang.String)
+	 */
+	@Override
+	public byte[] get(String key) {
+	    return store.get(key);
+	}
+
+	/*
+	 * @see com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer.
+	 * State#put(java.lang.String, byte[])
+	 */
+	@Override
+	public void put(String key, byte[] value) {
+	    store.put(key, value);
+	}
+
+	/*
+	 * @see com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer.
+	 * State#delete(java.lang.String)
+	 */
+	@Override
+	public void delete(String key) {
+	    store.delete(key);
+	}
+
+	/*
+	 * @see com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer.
+	 * State#scan(java.lang.String, java.lang.String,
+	 * java.util.function.BiConsumer)
+	 */
+	@Override
+	public void scan(String from, String to, BiConsumer<String, byte[]> visitor) {
+	    try (KeyValueIterator<String, byte[]> it = (from != null && to != null) ? store.range(from, to)
+		    : store.all()) {
+		while (it.hasNext()) {
+		    KeyValue<String, byte[]> entry = it.next();
+		    boolean afterFrom = (from == null || entry.key.compareTo(from) >= 0);
+		    boolean beforeTo = (to == null || entry.key.compareTo(to) <= 0);
+		    if (afterFrom && beforeTo) {
+			visitor.accept(entry.key, entry.value);
+		    }
+		}
+	    }
+	}
+    }
+}
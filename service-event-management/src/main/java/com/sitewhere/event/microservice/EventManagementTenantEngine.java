@@ -17,16 +17,31 @@ package com.sitewhere.event.microservice;
 
 import com.sitewhere.event.configuration.EventManagementTenantConfiguration;
 import com.sitewhere.event.configuration.EventManagementTenantEngineModule;
+import com.sitewhere.event.grpc.EventExportImpl;
 import com.sitewhere.event.grpc.EventManagementImpl;
+import com.sitewhere.event.grpc.EventStreamingImpl;
+import com.sitewhere.event.grpc.MeasurementAggregationImpl;
 import com.sitewhere.event.kafka.KafkaEventPersistenceTriggers;
+import com.sitewhere.event.kafka.MeasurementRollupPipeline;
 import com.sitewhere.event.kafka.OutboundCommandInvocationsProducer;
 import com.sitewhere.event.kafka.OutboundEventsProducer;
 import com.sitewhere.event.kafka.EventPersistencePipeline;
+import com.sitewhere.event.persistence.aggregate.TieredMeasurementAggregation;
+import com.sitewhere.event.processing.EventReplayManager;
+import com.sitewhere.event.processing.EventRetentionManager;
+import com.sitewhere.event.spi.grpc.IMeasurementAggregationService;
+import com.sitewhere.event.spi.kafka.IMeasurementRollupPipeline;
 import com.sitewhere.event.spi.kafka.IOutboundCommandInvocationsProducer;
 import com.sitewhere.event.spi.kafka.IOutboundEventsProducer;
 import com.sitewhere.event.spi.kafka.IEventPersistencePipeline;
 import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
 import com.sitewhere.event.spi.microservice.IEventManagementTenantEngine;
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.event.spi.persistence.IDeviceEventRetention;
+import com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation;
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.event.spi.processing.IEventReplayManager;
+import com.sitewhere.event.spi.processing.IEventRetentionManager;
 import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
 import com.sitewhere.microservice.api.device.DeviceManagementRequestBuilder;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
@@ -59,9 +74,30 @@ public class EventManagementTenantEngine extends MicroserviceTenantEngine<EventM
     /** Responds to event management GRPC requests */
     private DeviceEventManagementGrpc.DeviceEventManagementImplBase eventManagementImpl;
 
+    /** Handles measurement rollup requests */
+    private IMeasurementAggregationService measurementAggregationImpl;
+
+    /** Handles streaming event list requests */
+    private EventStreamingImpl eventStreamingImpl;
+
+    /** Handles bulk event export and replay requests */
+    private EventExportImpl eventExportImpl;
+
+    /** Republishes stored events to the outbound events topic */
+    private IEventReplayManager eventReplayManager;
+
+    /** Applies event retention settings */
+    private IEventRetentionManager eventRetentionManager;
+
     /** Kafka Streams pipeline for decoded, pre-processed inbound events */
     private IEventPersistencePipeline preprocessedEventsPipeline;
 
+    /** Store for measurement rollup tiers */
+    private IMeasurementRollupStore measurementRollupStore;
+
+    /** Kafka Streams pipeline that maintains measurement rollup tiers */
+    private IMeasurementRollupPipeline measurementRollupPipeline;
+
     /** Kafka producer for pushing persisted events to a topic */
     private IOutboundEventsProducer outboundEventsProducer;
 
@@ -101,11 +137,40 @@ public class EventManagementTenantEngine extends MicroserviceTenantEngine<EventM
 	this.eventManagement = new KafkaEventPersistenceTriggers(this, implementation);
 	this.eventManagementImpl = new EventManagementImpl((IEventManagementMicroservice) getMicroservice(),
 		getEventManagement());
+	this.eventStreamingImpl = new EventStreamingImpl((IEventManagementMicroservice) getMicroservice(),
+		getEventManagement());
+	IDeviceMeasurementAggregation aggregation = (implementation instanceof IDeviceMeasurementAggregation)
+		? (IDeviceMeasurementAggregation) implementation
+		: null;
+	if (getActiveConfiguration().isRollupsEnabled() && (implementation instanceof IMeasurementRollupStore)) {
+	    this.measurementRollupStore = (IMeasurementRollupStore) implementation;
+	    this.measurementRollupPipeline = new MeasurementRollupPipeline();
+	    if (aggregation != null) {
+		aggregation = new TieredMeasurementAggregation(aggregation, getMeasurementRollupStore());
+	    }
+	}
+	this.measurementAggregationImpl = new MeasurementAggregationImpl(
+		(IEventManagementMicroservice) getMicroservice(), aggregation);
+	IDeviceEventExport export = (implementation instanceof IDeviceEventExport)
+		? (IDeviceEventExport) implementation
+		: null;
+	if (export != null) {
+	    this.eventReplayManager = new EventReplayManager(export);
+	}
+	this.eventExportImpl = new EventExportImpl((IEventManagementMicroservice) getMicroservice(), export,
+		getEventReplayManager());
+	IDeviceEventRetention retention = (implementation instanceof IDeviceEventRetention)
+		? (IDeviceEventRetention) implementation
+		: null;
 
 	// Create Kafka components.
 	this.preprocessedEventsPipeline = new EventPersistencePipeline();
 	this.outboundEventsProducer = new OutboundEventsProducer();
 	this.outboundCommandInvocationsProducer = new OutboundCommandInvocationsProducer();
+
+	// Retention only runs on the replica holding the maintenance lease.
+	this.eventRetentionManager = new EventRetentionManager(getActiveConfiguration().getRetention(), retention,
+		export, getMeasurementRollupStore(), getPreprocessedEventsPipeline().getMaintenanceLease());
     }
 
     /*
@@ -148,9 +213,22 @@ public class EventManagementTenantEngine extends MicroserviceTenantEngine<EventM
 	// Initialize outbound command invocations producer.
 	init.addInitializeStep(this, getOutboundCommandInvocationsProducer(), true);
 
+	// Initialize event replay manager.
+	if (getEventReplayManager() != null) {
+	    init.addInitializeStep(this, getEventReplayManager(), true);
+	}
+
 	// Initialize preprocessed events pipeline.
 	init.addInitializeStep(this, getPreprocessedEventsPipeline(), true);
 
+	// Initialize measurement rollup pipeline.
+	if (getMeasurementRollupPipeline() != null) {
+	    init.addInitializeStep(this, getMeasurementRollupPipeline(), true);
+	}
+
+	// Initialize event retention manager.
+	init.addInitializeStep(this, getEventRetentionManager(), true);
+
 	// Execute initialization steps.
 	init.execute(monitor);
     }
@@ -174,9 +252,22 @@ public class EventManagementTenantEngine extends MicroserviceTenantEngine<EventM
 	// Start outbound command invocations producer.
 	start.addStartStep(this, getOutboundCommandInvocationsProducer(), true);
 
+	// Start event replay manager.
+	if (getEventReplayManager() != null) {
+	    start.addStartStep(this, getEventReplayManager(), true);
+	}
+
 	// Start preprocessed events pipeline.
 	start.addStartStep(this, getPreprocessedEventsPipeline(), true);
 
+	// Start measurement rollup pipeline.
+	if (getMeasurementRollupPipeline() != null) {
+	    start.addStartStep(this, getMeasurementRollupPipeline(), true);
+	}
+
+	// Start event retention manager once rollup coverage has been recorded.
+	start.addStartStep(this, getEventRetentionManager(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
     }
@@ -191,6 +282,19 @@ public class EventManagementTenantEngine extends MicroserviceTenantEngine<EventM
 	// Create step that will stop components.
 	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getComponentName());
 
+	// Stop event retention manager.
+	stop.addStopStep(this, getEventRetentionManager());
+
+	// Stop measurement rollup pipeline so pending rollups are written.
+	if (getMeasurementRollupPipeline() != null) {
+	    stop.addStopStep(this, getMeasurementRollupPipeline());
+	}
+
+	// Stop event replay manager before the producers it publishes to.
+	if (getEventReplayManager() != null) {
+	    stop.addStopStep(this, getEventReplayManager());
+	}
+
 	// Stop event management persistence.
 	stop.addStopStep(this, getEventManagement());
 
@@ -229,6 +333,51 @@ public class EventManagementTenantEngine extends MicroserviceTenantEngine<EventM
 	return eventManagementImpl;
     }
 
+    /*
+     * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
+     * getMeasurementAggregationImpl()
+     */
+    @Override
+    public IMeasurementAggregationService getMeasurementAggregationImpl() {
+	return measurementAggregationImpl;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
+     * getEventStreamingImpl()
+     */
+    @Override
+    public EventStreamingImpl getEventStreamingImpl() {
+	return eventStreamingImpl;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
+     * getEventExportImpl()
+     */
+    @Override
+    public EventExportImpl getEventExportImpl() {
+	return eventExportImpl;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
+     * getEventReplayManager()
+     */
+    @Override
+    public IEventReplayManager getEventReplayManager() {
+	return eventReplayManager;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
+     * getEventRetentionManager()
+     */
+    @Override
+    public IEventRetentionManager getEventRetentionManager() {
+	return eventRetentionManager;
+    }
+
     /*
      * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
      * getPreprocessedEventsPipeline()
@@ -238,6 +387,24 @@ public class EventManagementTenantEngine extends MicroserviceTenantEngine<EventM
 	return preprocessedEventsPipeline;
     }
 
+    /*
+     * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
+     * getMeasurementRollupStore()
+     */
+    @Override
+    public IMeasurementRollupStore getMeasurementRollupStore() {
+	return measurementRollupStore;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
+     * getMeasurementRollupPipeline()
+     */
+    @Override
+    public IMeasurementRollupPipeline getMeasurementRollupPipeline() {
+	return measurementRollupPipeline;
+    }
+
     /*
      * @see com.sitewhere.event.spi.microservice.IEventManagementTenantEngine#
      * getOutboundEventsProducer()
@@ -0,0 +1,136 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria;
+
+/**
+ * Criteria for a measurement rollup query. When no interval is given, it is
+ * derived from the date range so that at most the requested number of points
+ * is returned per series.
+ */
+@JsonInclude(Include.NON_NULL)
+public class MeasurementAggregationCriteria implements IMeasurementAggregationCriteria {
+
+    /** Default range when no start date is given */
+    public static final long DEFAULT_RANGE_MS = 24 * 60 * 60 * 1000;
+
+    /** Default maximum points per series */
+    public static final int DEFAULT_MAX_POINTS = 300;
+
+    /** Smallest interval that may be requested */
+    public static final long MIN_INTERVAL_MS = 1000;
+
+    /** Measurement names to include (empty for all) */
+    private List<String> measurementNames = new ArrayList<>();
+
+    /** Start of range */
+    private Date startDate;
+
+    /** End of range */
+    private Date endDate;
+
+    /** Bucket interval in milliseconds (null to derive from range) */
+    private Long intervalMs;
+
+    /** Maximum points per series when deriving interval */
+    private int maxPoints = DEFAULT_MAX_POINTS;
+
+    public List<String> getMeasurementNames() {
+	return measurementNames;
+    }
+
+    public void setMeasurementNames(List<String> measurementNames) {
+	this.measurementNames = measurementNames;
+    }
+
+    public Date getStartDate() {
+	return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+	this.startDate = startDate;
+    }
+
+    public Date getEndDate() {
+	return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+	this.endDate = endDate;
+    }
+
+    public Long getIntervalMs() {
+	return intervalMs;
+    }
+
+    public void setIntervalMs(Long intervalMs) {
+	this.intervalMs = intervalMs;
+    }
+
+    public int getMaxPoints() {
+	return maxPoints;
+    }
+
+    public void setMaxPoints(int maxPoints) {
+	this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Get end of range, defaulting to now.
+     * 
+     * @return
+     */
+    @JsonIgnore
+    public Date getResolvedEndDate() {
+	return (getEndDate() != null) ? getEndDate() : new Date();
+    }
+
+    /**
+     * Get start of range, defaulting to a fixed period before the end.
+     * 
+     * @return
+     */
+    @JsonIgnore
+    public Date getResolvedStartDate() {
+	return (getStartDate() != null) ? getStartDate()
+		: new Date(getResolvedEndDate().getTime() - DEFAULT_RANGE_MS);
+    }
+
+    /**
+     * Get bucket interval. An explicit interval is widened if it would produce
+     * more than the maximum number of points.
+     * 
+     * @return
+     */
+    @JsonIgnore
+    public long getResolvedIntervalMs() {
+	long range = Math.max(1, getResolvedEndDate().getTime() - getResolvedStartDate().getTime());
+	long minimum = Math.max(MIN_INTERVAL_MS, (range + getMaxPointsOrDefault() - 1) / getMaxPointsOrDefault());
+	return (getIntervalMs() != null) ? Math.max(getIntervalMs(), minimum) : minimum;
+    }
+
+    protected int getMaxPointsOrDefault() {
+	return (getMaxPoints() > 0) ? getMaxPoints() : DEFAULT_MAX_POINTS;
+    }
+}
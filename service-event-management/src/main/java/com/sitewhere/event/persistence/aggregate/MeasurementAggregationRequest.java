@@ -0,0 +1,61 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.spi.device.event.DeviceEventIndex;
+
+/**
+ * Request for measurement rollups across a list of indexed entities.
+ */
+public class MeasurementAggregationRequest {
+
+    /** Index entity ids refer to */
+    private DeviceEventIndex index;
+
+    /** Entity ids */
+    private List<UUID> entityIds = new ArrayList<>();
+
+    /** Rollup criteria */
+    private MeasurementAggregationCriteria criteria = new MeasurementAggregationCriteria();
+
+    public DeviceEventIndex getIndex() {
+	return index;
+    }
+
+    public void setIndex(DeviceEventIndex index) {
+	this.index = index;
+    }
+
+    public List<UUID> getEntityIds() {
+	return entityIds;
+    }
+
+    public void setEntityIds(List<UUID> entityIds) {
+	this.entityIds = entityIds;
+    }
+
+    public MeasurementAggregationCriteria getCriteria() {
+	return criteria;
+    }
+
+    public void setCriteria(MeasurementAggregationCriteria criteria) {
+	this.criteria = criteria;
+    }
+}
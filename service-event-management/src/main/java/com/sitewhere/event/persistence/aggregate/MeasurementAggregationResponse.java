@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
+
+/**
+ * Response containing measurement rollups.
+ */
+public class MeasurementAggregationResponse {
+
+    /** Rollup series */
+    @JsonDeserialize(contentAs = MeasurementSeries.class)
+    private List<IMeasurementSeries> series = new ArrayList<>();
+
+    public MeasurementAggregationResponse() {
+    }
+
+    public MeasurementAggregationResponse(List<IMeasurementSeries> series) {
+	this.series = series;
+    }
+
+    public List<IMeasurementSeries> getSeries() {
+	return series;
+    }
+
+    public void setSeries(List<IMeasurementSeries> series) {
+	this.series = series;
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
+
+/**
+ * Folds raw measurement values into interval buckets for stores that can not
+ * aggregate natively. Only running totals are kept per bucket, so memory use
+ * depends on the number of points returned rather than the number of samples
+ * scanned. Buckets are aligned to the epoch, matching InfluxDB time grouping.
+ * Stored rollups at a finer resolution may be folded in the same way.
+ */
+public class MeasurementAggregator {
+
+    /** Bucket interval in milliseconds */
+    private long intervalMs;
+
+    /** Start of range */
+    private long startMs;
+
+    /** End of range */
+    private long endMs;
+
+    /** Names to include (null for all) */
+    private Set<String> names;
+
+    /** Accumulators by entity and measurement name */
+    private Map<UUID, Map<String, TreeMap<Long, Accumulator>>> series = new HashMap<>();
+
+    public MeasurementAggregator(IMeasurementAggregationCriteria criteria) {
+	this.intervalMs = criteria.getResolvedIntervalMs();
+	this.startMs = criteria.getResolvedStartDate().getTime();
+	this.endMs = criteria.getResolvedEndDate().getTime();
+	if (criteria.getMeasurementNames() != null && !criteria.getMeasurementNames().isEmpty()) {
+	    this.names = new HashSet<>(criteria.getMeasurementNames());
+	}
+    }
+
+    /**
+     * Add a single measurement value.
+     * 
+     * @param entityId
+     * @param name
+     * @param eventDate
+     * @param value
+     */
+    public void add(UUID entityId, String name, Date eventDate, double value) {
+	if (eventDate == null || (names != null && !names.contains(name))) {
+	    return;
+	}
+	long time = eventDate.getTime();
+	if (time < startMs || time > endMs) {
+	    return;
+	}
+	long bucket = Math.floorDiv(time, intervalMs) * intervalMs;
+	Accumulator accumulator = series.computeIfAbsent(entityId, id -> new HashMap<>())
+		.computeIfAbsent(name, key -> new TreeMap<>()).computeIfAbsent(bucket, key -> new Accumulator());
+	accumulator.add(time, value);
+    }
+
+    /**
+     * Add a rollup maintained at a finer resolution. The rollup interval must
+     * divide the aggregation interval so that it falls within a single bucket.
+     * 
+     * @param rollup
+     */
+    public void add(MeasurementRollup rollup) {
+	if (rollup.getCount() == 0 || (names != null && !names.contains(rollup.getName()))) {
+	    return;
+	}
+	long bucket = Math.floorDiv(rollup.getDate().getTime(), intervalMs) * intervalMs;
+	if (bucket < Math.floorDiv(startMs, intervalMs) * intervalMs || rollup.getDate().getTime() > endMs) {
+	    return;
+	}
+	Accumulator accumulator = series.computeIfAbsent(rollup.getAssignmentId(), id -> new HashMap<>())
+		.computeIfAbsent(rollup.getName(), key -> new TreeMap<>())
+		.computeIfAbsent(bucket, key -> new Accumulator());
+	accumulator.merge(rollup);
+    }
+
+    /**
+     * Get series built from values added so far.
+     * 
+     * @return
+     */
+    public List<IMeasurementSeries> getSeries() {
+	List<IMeasurementSeries> results = new ArrayList<>();
+	for (Map.Entry<UUID, Map<String, TreeMap<Long, Accumulator>>> entity : series.entrySet()) {
+	    for (Map.Entry<String, TreeMap<Long, Accumulator>> named : entity.getValue().entrySet()) {
+		MeasurementSeries result = new MeasurementSeries();
+		result.setEntityId(entity.getKey());
+		result.setName(named.getKey());
+		result.setIntervalMs(intervalMs);
+		for (Map.Entry<Long, Accumulator> bucket : named.getValue().entrySet()) {
+		    result.getBuckets().add(bucket.getValue().toBucket(bucket.getKey()));
+		}
+		results.add(result);
+	    }
+	}
+	return results;
+    }
+
+    /**
+     * Running totals for a single bucket.
+     */
+    private static class Accumulator {
+
+	private double min = Double.MAX_VALUE;
+
+	private double max = -Double.MAX_VALUE;
+
+	private double sum;
+
+	private long count;
+
+	private long lastTime = Long.MIN_VALUE;
+
+	private double last;
+
+	void add(long time, double value) {
+	    min = Math.min(min, value);
+	    max = Math.max(max, value);
+	    sum += value;
+	    count++;
+	    if (time >= lastTime) {
+		lastTime = time;
+		last = value;
+	    }
+	}
+
+	void merge(MeasurementRollup rollup) {
+	    min = Math.min(min, rollup.getMin());
+	    max = Math.max(max, rollup.getMax());
+	    sum += rollup.getSum();
+	    count += rollup.getCount();
+	    long time = (rollup.getLastDate() != null) ? rollup.getLastDate().getTime() : rollup.getDate().getTime();
+	    if (time >= lastTime) {
+		lastTime = time;
+		last = rollup.getLast();
+	    }
+	}
+
+	MeasurementBucket toBucket(long start) {
+	    MeasurementBucket bucket = new MeasurementBucket();
+	    bucket.setDate(new Date(start));
+	    bucket.setMin(min);
+	    bucket.setMax(max);
+	    bucket.setAvg(sum / count);
+	    bucket.setCount(count);
+	    bucket.setLast(last);
+	    return bucket;
+	}
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.Date;
+
+import com.sitewhere.event.spi.persistence.IMeasurementBucket;
+
+/**
+ * Rollup of measurement values within a single interval.
+ */
+public class MeasurementBucket implements IMeasurementBucket {
+
+    /** Start of interval */
+    private Date date;
+
+    /** Minimum value */
+    private double min;
+
+    /** Maximum value */
+    private double max;
+
+    /** Average value */
+    private double avg;
+
+    /** Number of values */
+    private long count;
+
+    /** Most recent value */
+    private double last;
+
+    public Date getDate() {
+	return date;
+    }
+
+    public void setDate(Date date) {
+	this.date = date;
+    }
+
+    public double getMin() {
+	return min;
+    }
+
+    public void setMin(double min) {
+	this.min = min;
+    }
+
+    public double getMax() {
+	return max;
+    }
+
+    public void setMax(double max) {
+	this.max = max;
+    }
+
+    public double getAvg() {
+	return avg;
+    }
+
+    public void setAvg(double avg) {
+	this.avg = avg;
+    }
+
+    public long getCount() {
+	return count;
+    }
+
+    public void setCount(long count) {
+	this.count = count;
+    }
+
+    public double getLast() {
+	return last;
+    }
+
+    public void setLast(double last) {
+	this.last = last;
+    }
+}
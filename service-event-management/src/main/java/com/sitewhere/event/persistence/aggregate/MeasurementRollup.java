@@ -0,0 +1,203 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.Date;
+import java.util.UUID;
+
+import com.sitewhere.event.spi.persistence.IMeasurementBucket;
+
+/**
+ * Running totals for one measurement name on one assignment within a single
+ * tier bucket. Totals are kept rather than averages so that partial rollups
+ * can be merged.
+ */
+public class MeasurementRollup {
+
+    /** Assignment id */
+    private UUID assignmentId;
+
+    /** Measurement name */
+    private String name;
+
+    /** Start of bucket */
+    private Date date;
+
+    /** Minimum value */
+    private double min = Double.MAX_VALUE;
+
+    /** Maximum value */
+    private double max = -Double.MAX_VALUE;
+
+    /** Sum of values */
+    private double sum;
+
+    /** Number of values */
+    private long count;
+
+    /** Most recent value */
+    private double last;
+
+    /** Event date of most recent value */
+    private Date lastDate;
+
+    public MeasurementRollup() {
+    }
+
+    public MeasurementRollup(UUID assignmentId, String name, Date date) {
+	this.assignmentId = assignmentId;
+	this.name = name;
+	this.date = date;
+    }
+
+    /**
+     * Add a single value.
+     * 
+     * @param eventDate
+     * @param value
+     */
+    public void add(Date eventDate, double value) {
+	setMin(Math.min(getMin(), value));
+	setMax(Math.max(getMax(), value));
+	setSum(getSum() + value);
+	setCount(getCount() + 1);
+	if (getLastDate() == null || !eventDate.before(getLastDate())) {
+	    setLastDate(eventDate);
+	    setLast(value);
+	}
+    }
+
+    /**
+     * Merge totals from another rollup for the same bucket.
+     * 
+     * @param other
+     */
+    public void merge(MeasurementRollup other) {
+	if (other.getCount() == 0) {
+	    return;
+	}
+	setMin(Math.min(getMin(), other.getMin()));
+	setMax(Math.max(getMax(), other.getMax()));
+	setSum(getSum() + other.getSum());
+	setCount(getCount() + other.getCount());
+	if (getLastDate() == null || (other.getLastDate() != null && !other.getLastDate().before(getLastDate()))) {
+	    setLastDate(other.getLastDate());
+	    setLast(other.getLast());
+	}
+    }
+
+    /**
+     * Create a copy that is safe to hand off while this instance keeps changing.
+     * 
+     * @return
+     */
+    public MeasurementRollup copy() {
+	MeasurementRollup copy = new MeasurementRollup(getAssignmentId(), getName(), getDate());
+	copy.merge(this);
+	return copy;
+    }
+
+    /**
+     * Create a rollup from an aggregated bucket.
+     * 
+     * @param assignmentId
+     * @param name
+     * @param bucket
+     * @return
+     */
+    public static MeasurementRollup fromBucket(UUID assignmentId, String name, IMeasurementBucket bucket) {
+	MeasurementRollup rollup = new MeasurementRollup(assignmentId, name, bucket.getDate());
+	rollup.setMin(bucket.getMin());
+	rollup.setMax(bucket.getMax());
+	rollup.setSum(bucket.getAvg() * bucket.getCount());
+	rollup.setCount(bucket.getCount());
+	rollup.setLast(bucket.getLast());
+	rollup.setLastDate(bucket.getDate());
+	return rollup;
+    }
+
+    public UUID getAssignmentId() {
+	return assignmentId;
+    }
+
+    public void setAssignmentId(UUID assignmentId) {
+	this.assignmentId = assignmentId;
+    }
+
+    public String getName() {
+	return name;
+    }
+
+    public void setName(String name) {
+	this.name = name;
+    }
+
+    public Date getDate() {
+	return date;
+    }
+
+    public void setDate(Date date) {
+	this.date = date;
+    }
+
+    public double getMin() {
+	return min;
+    }
+
+    public void setMin(double min) {
+	this.min = min;
+    }
+
+    public double getMax() {
+	return max;
+    }
+
+    public void setMax(double max) {
+	this.max = max;
+    }
+
+    public double getSum() {
+	return sum;
+    }
+
+    public void setSum(double sum) {
+	this.sum = sum;
+    }
+
+    public long getCount() {
+	return count;
+    }
+
+    public void setCount(long count) {
+	this.count = count;
+    }
+
+    public double getLast() {
+	return last;
+    }
+
+    public void setLast(double last) {
+	this.last = last;
+    }
+
+    public Date getLastDate() {
+	return lastDate;
+    }
+
+    public void setLastDate(Date lastDate) {
+	this.lastDate = lastDate;
+    }
+}
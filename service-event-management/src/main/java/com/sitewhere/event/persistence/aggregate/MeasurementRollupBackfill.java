@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.Date;
+import java.util.List;
+
+import com.sitewhere.event.persistence.export.DeviceEventCursor;
+import com.sitewhere.event.persistence.export.DeviceEventExportReader;
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.device.event.IDeviceMeasurement;
+
+/**
+ * Builds rollups from raw measurements recorded before rollups were maintained
+ * so they are kept after raw events expire. Raw measurements are read one whole
+ * day at a time, newest first, starting with the day that holds the coverage
+ * date. Every bucket in a day is computed from all of its raw values and
+ * overwrites the stored bucket, so a day that is rolled up twice after an
+ * interruption gives the same result. After each day is written the coverage
+ * date is moved back to its start. Backfill waits until the live rollup buffer
+ * has stopped accepting values around the coverage date so that the two do
+ * not overwrite each other.
+ */
+public class MeasurementRollupBackfill {
+
+    /** Age coverage date must reach before buckets around it are backfilled */
+    private static final long LIVE_BUCKET_AGE_MS = 4 * MeasurementRollupTier.Day.getIntervalMs();
+
+    /** Source of raw measurements */
+    private IDeviceEventExport export;
+
+    /** Store for rollup tiers */
+    private IMeasurementRollupStore store;
+
+    public MeasurementRollupBackfill(IDeviceEventExport export, IMeasurementRollupStore store) {
+	this.export = export;
+	this.store = store;
+    }
+
+    /**
+     * Roll up raw measurements between the given date and the date from which
+     * rollups are maintained.
+     * 
+     * @param floor
+     *            earliest date to roll up (rounded down to a whole day)
+     * @return number of measurements rolled up
+     * @throws SiteWhereException
+     */
+    public long backfill(Date floor) throws SiteWhereException {
+	Date coverage = getStore().getRollupCoverageStart();
+	if (coverage == null || System.currentTimeMillis() - coverage.getTime() < LIVE_BUCKET_AGE_MS) {
+	    return 0;
+	}
+	long day = MeasurementRollupTier.Day.getIntervalMs();
+	long start = Math.floorDiv(floor.getTime(), day) * day;
+	long end = coverage.getTime();
+	long total = 0;
+	while (end > start) {
+	    if (Thread.currentThread().isInterrupted()) {
+		break;
+	    }
+	    long windowStart = MeasurementRollupTier.Day.getBucketStart(end - 1);
+	    total += rollupWindow(new Date(windowStart), new Date(windowStart + day - 1));
+	    getStore().setRollupCoverageStart(new Date(windowStart));
+	    end = windowStart;
+	}
+	return total;
+    }
+
+    /**
+     * Roll up raw measurements in a window (inclusive) and write the results.
+     * 
+     * @param startDate
+     * @param endDate
+     * @return number of measurements rolled up
+     * @throws SiteWhereException
+     */
+    protected long rollupWindow(Date startDate, Date endDate) throws SiteWhereException {
+	MeasurementRollupBuffer buffer = new MeasurementRollupBuffer(new MeasurementRollupBuffer.MemoryState(), false);
+	DeviceEventExportReader reader = new DeviceEventExportReader(getExport(), null, startDate, endDate,
+		new DeviceEventCursor());
+	long count = 0;
+	while (true) {
+	    List<IDeviceEvent> page = reader.nextPage();
+	    if (page.isEmpty()) {
+		break;
+	    }
+	    for (IDeviceEvent event : page) {
+		if (event instanceof IDeviceMeasurement) {
+		    IDeviceMeasurement mx = (IDeviceMeasurement) event;
+		    if (mx.getDeviceAssignmentId() != null && mx.getName() != null && mx.getValue() != null) {
+			buffer.add(mx.getDeviceAssignmentId(), mx.getName(), mx.getEventDate(),
+				mx.getValue().doubleValue(), 0, -1);
+			count++;
+		    }
+		}
+	    }
+	}
+	buffer.flush(getStore());
+	return count;
+    }
+
+    protected IDeviceEventExport getExport() {
+	return export;
+    }
+
+    protected IMeasurementRollupStore getStore() {
+	return store;
+    }
+}
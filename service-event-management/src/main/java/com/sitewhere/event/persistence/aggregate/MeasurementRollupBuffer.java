@@ -0,0 +1,424 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Keeps open rollup buckets for every tier in a key/value state store and
+ * writes changed buckets to the rollup store. Each write carries the complete
+ * totals for a bucket, so writing the same bucket twice is harmless and stored
+ * totals are never read back. When the state store is a Kafka Streams store,
+ * its contents are committed with the input offsets, so buckets survive
+ * restarts and partition moves. Each bucket records the last input offset per
+ * partition it has seen so that records replayed after a restart are not
+ * counted again.
+ * 
+ * A live buffer evicts written buckets once they are older than the lateness
+ * window for their tier and skips values for buckets older than that, since
+ * folding them into a fresh bucket would overwrite the stored totals.
+ */
+public class MeasurementRollupBuffer {
+
+    /** Minimum time a bucket accepts late values */
+    public static final long MIN_LATENESS_MS = 60 * 60 * 1000;
+
+    /** Version of stored entry format */
+    private static final byte ENTRY_VERSION = 1;
+
+    /** Stores bucket state */
+    private State state;
+
+    /** Indicates buckets are evicted and late values skipped */
+    private boolean live;
+
+    /** Keys of buckets changed since last written */
+    private TreeSet<String> dirty = new TreeSet<>();
+
+    public MeasurementRollupBuffer(State state, boolean live) {
+	this.state = state;
+	this.live = live;
+	state.scan(null, null, (key, value) -> {
+	    if (decode(value).dirty) {
+		dirty.add(key);
+	    }
+	});
+    }
+
+    /**
+     * Add a measurement value to the bucket for each tier.
+     * 
+     * @param assignmentId
+     * @param name
+     * @param eventDate
+     * @param value
+     * @param partition
+     *            input partition
+     * @param offset
+     *            input offset (negative if records are never replayed)
+     * @return number of tiers that skipped the value because it was late
+     */
+    public int add(UUID assignmentId, String name, Date eventDate, double value, int partition, long offset) {
+	int late = 0;
+	long now = now();
+	for (MeasurementRollupTier tier : MeasurementRollupTier.values()) {
+	    long bucket = tier.getBucketStart(eventDate.getTime());
+	    if (live && bucket < getEvictionCutoff(tier, now)) {
+		late++;
+		continue;
+	    }
+	    String key = encodeKey(tier, assignmentId, name, bucket);
+	    byte[] stored = state.get(key);
+	    Entry entry = (stored != null) ? decode(stored) : new Entry();
+	    if (offset >= 0) {
+		Long seen = entry.offsets.get(partition);
+		if (seen != null && seen >= offset) {
+		    continue;
+		}
+		entry.offsets.put(partition, offset);
+	    }
+	    entry.rollup.add(eventDate, value);
+	    entry.dirty = true;
+	    state.put(key, encode(entry));
+	    dirty.add(key);
+	}
+	return late;
+    }
+
+    /**
+     * Write changed buckets to the store and evict buckets that are complete.
+     * Buckets stay changed if a write fails so they are written on the next
+     * flush.
+     * 
+     * @param store
+     * @return number of rollups written
+     * @throws SiteWhereException
+     */
+    public int flush(IMeasurementRollupStore store) throws SiteWhereException {
+	int written = 0;
+	for (MeasurementRollupTier tier : MeasurementRollupTier.values()) {
+	    List<String> keys = new ArrayList<>(dirty.subSet(tier.getSuffix() + "|", tier.getSuffix() + "|\uffff"));
+	    if (keys.isEmpty()) {
+		continue;
+	    }
+	    List<MeasurementRollup> rollups = new ArrayList<>();
+	    Map<String, Entry> entries = new HashMap<>();
+	    for (String key : keys) {
+		byte[] stored = state.get(key);
+		if (stored == null) {
+		    dirty.remove(key);
+		    continue;
+		}
+		Entry entry = decode(stored);
+		entries.put(key, entry);
+		rollups.add(toRollup(key, entry));
+	    }
+	    if (!rollups.isEmpty()) {
+		store.saveMeasurementRollups(tier, rollups);
+		written += rollups.size();
+	    }
+	    for (Map.Entry<String, Entry> current : entries.entrySet()) {
+		current.getValue().dirty = false;
+		state.put(current.getKey(), encode(current.getValue()));
+		dirty.remove(current.getKey());
+	    }
+	}
+	if (live) {
+	    evict(now());
+	}
+	return written;
+    }
+
+    /**
+     * Remove written buckets that no longer accept values.
+     * 
+     * @param now
+     */
+    protected void evict(long now) {
+	for (MeasurementRollupTier tier : MeasurementRollupTier.values()) {
+	    List<String> expired = new ArrayList<>();
+	    String to = tier.getSuffix() + "|" + formatBucket(getEvictionCutoff(tier, now));
+	    state.scan(tier.getSuffix() + "|", to, (key, value) -> {
+		if (!dirty.contains(key)) {
+		    expired.add(key);
+		}
+	    });
+	    for (String key : expired) {
+		state.delete(key);
+	    }
+	}
+    }
+
+    /**
+     * Get start of the oldest bucket that still accepts values for a tier.
+     * 
+     * @param tier
+     * @param now
+     * @return
+     */
+    public static long getEvictionCutoff(MeasurementRollupTier tier, long now) {
+	return tier.getBucketStart(now - Math.max(MIN_LATENESS_MS, 3 * tier.getIntervalMs()));
+    }
+
+    /**
+     * Get number of buckets waiting to be written.
+     * 
+     * @return
+     */
+    public int getDirtyCount() {
+	return dirty.size();
+    }
+
+    /**
+     * Get current time.
+     * 
+     * @return
+     */
+    protected long now() {
+	return System.currentTimeMillis();
+    }
+
+    /**
+     * Build state key for a bucket. Bucket starts are zero padded so that keys
+     * for a tier sort by bucket start.
+     * 
+     * @param tier
+     * @param assignmentId
+     * @param name
+     * @param bucket
+     * @return
+     */
+    protected static String encodeKey(MeasurementRollupTier tier, UUID assignmentId, String name, long bucket) {
+	return tier.getSuffix() + "|" + formatBucket(bucket) + "|" + assignmentId + "|" + name;
+    }
+
+    /**
+     * Format bucket start for use in a key.
+     * 
+     * @param bucket
+     * @return
+     */
+    protected static String formatBucket(long bucket) {
+	return String.format("%019d", Math.max(0, bucket));
+    }
+
+    /**
+     * Build rollup from state key and entry.
+     * 
+     * @param key
+     * @param entry
+     * @return
+     */
+    protected static MeasurementRollup toRollup(String key, Entry entry) {
+	String[] parts = key.split("\\|", 4);
+	MeasurementRollup rollup = new MeasurementRollup(UUID.fromString(parts[2]), parts[3],
+		new Date(Long.parseLong(parts[1])));
+	rollup.merge(entry.rollup);
+	return rollup;
+    }
+
+    /**
+     * Encode bucket state.
+     * 
+     * @param entry
+     * @return
+     */
+    protected static byte[] encode(Entry entry) {
+	try {
+	    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	    DataOutputStream out = new DataOutputStream(bytes);
+	    out.writeByte(ENTRY_VERSION);
+	    out.writeBoolean(entry.dirty);
+	    out.writeDouble(entry.rollup.getMin());
+	    out.writeDouble(entry.rollup.getMax());
+	    out.writeDouble(entry.rollup.getSum());
+	    out.writeLong(entry.rollup.getCount());
+	    out.writeDouble(entry.rollup.getLast());
+	    out.writeLong((entry.rollup.getLastDate() != null) ? entry.rollup.getLastDate().getTime() : Long.MIN_VALUE);
+	    out.writeInt(entry.offsets.size());
+	    for (Map.Entry<Integer, Long> offset : entry.offsets.entrySet()) {
+		out.writeInt(offset.getKey());
+		out.writeLong(offset.getValue());
+	    }
+	    out.flush();
+	    return bytes.toByteArray();
+	} catch (IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+    }
+
+    /**
+     * Decode bucket state.
+     * 
+     * @param value
+     * @return
+     */
+    protected static Entry decode(byte[] value) {
+	try {
+	    DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+	    if (in.readByte() != ENTRY_VERSION) {
+		throw new IOException("Unknown rollup entry version.");
+	    }
+	    Entry entry = new Entry();
+	    entry.dirty = in.readBoolean();
+	    entry.rollup.setMin(in.readDouble());
+	    entry.rollup.setMax(in.readDouble());
+	    entry.rollup.setSum(in.readDouble());
+	    entry.rollup.setCount(in.readLong());
+	    entry.rollup.setLast(in.readDouble());
+	    long lastDate = in.readLong();
+	    entry.rollup.setLastDate((lastDate != Long.MIN_VALUE) ? new Date(lastDate) : null);
+	    int offsets = in.readInt();
+	    for (int i = 0; i < offsets; i++) {
+		entry.offsets.put(in.readInt(), in.readLong());
+	    }
+	    return entry;
+	} catch (IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+    }
+
+    /**
+     * Key/value storage for bucket state.
+     */
+    public static interface State {
+
+	/**
+	 * Get value for a key.
+	 * 
+	 * @param key
+	 * @return value or null if not found
+	 */
+	public byte[] get(String key);
+
+	/**
+	 * Store value for a key.
+	 * 
+	 * @param key
+	 * @param value
+	 */
+	public void put(String key, byte[] value);
+
+	/**
+	 * Delete value for a key.
+	 * 
+	 * @param key
+	 */
+	public void delete(String key);
+
+	/**
+	 * Visit entries with keys in a range in key order.
+	 * 
+	 * @param from
+	 *            first key (inclusive, null for unbounded)
+	 * @param to
+	 *            last key (inclusive, null for unbounded)
+	 * @param visitor
+	 */
+	public void scan(String from, String to, BiConsumer<String, byte[]> visitor);
+    }
+
+    /**
+     * State held in memory. Used where input is not replayed, such as
+     * backfill.
+     */
+    public static class MemoryState implements State {
+
+	/** Values by key */
+	private TreeMap<String, byte[]> values = new TreeMap<>();
+
+	/*
+	 * @see com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer.
+	 * State#get(java.lang.String)
+	 */
+	@Override
+	public byte[] get(String key) {
+	    return values.get(key);
+	}
+
+	/*
+	 * @see com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer.
+	 * State#put(java.lang.String, byte[])
+	 */
+	@Override
+	public void put(String key, byte[] value) {
+	    values.put(key, value);
+	}
+
+	/*
+	 * @see com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer.
+	 * State#delete(java.lang.String)
+	 */
+	@Override
+	public void delete(String key) {
+	    values.remove(key);
+	}
+
+	/*
+	 * @see com.sitewhere.event.persistence.aggregate.MeasurementRollupBuffer.
+	 * State#scan(java.lang.String, java.lang.String,
+	 * java.util.function.BiConsumer)
+	 */
+	@Override
+	public void scan(String from, String to, BiConsumer<String, byte[]> visitor) {
+	    Map<String, byte[]> range = values;
+	    if (from != null && to != null) {
+		range = values.subMap(from, true, to, true);
+	    } else if (from != null) {
+		range = values.tailMap(from, true);
+	    } else if (to != null) {
+		range = values.headMap(to, true);
+	    }
+	    range.forEach(visitor);
+	}
+
+	public int size() {
+	    return values.size();
+	}
+    }
+
+    /**
+     * Bucket state.
+     */
+    protected static class Entry {
+
+	/** Running totals */
+	private MeasurementRollup rollup = new MeasurementRollup();
+
+	/** Indicates totals changed since last write */
+	private boolean dirty;
+
+	/** Last input offset applied by partition */
+	private Map<Integer, Long> offsets = new TreeMap<>();
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+/**
+ * Resolutions at which measurement rollups are continuously maintained.
+ */
+public enum MeasurementRollupTier {
+
+    Minute(60 * 1000L, "1m"),
+
+    Hour(60 * 60 * 1000L, "1h"),
+
+    Day(24 * 60 * 60 * 1000L, "1d");
+
+    /** Bucket interval in milliseconds */
+    private long intervalMs;
+
+    /** Suffix used when naming storage for tier */
+    private String suffix;
+
+    private MeasurementRollupTier(long intervalMs, String suffix) {
+	this.intervalMs = intervalMs;
+	this.suffix = suffix;
+    }
+
+    public long getIntervalMs() {
+	return intervalMs;
+    }
+
+    public String getSuffix() {
+	return suffix;
+    }
+
+    /**
+     * Get start of the epoch-aligned bucket containing a time.
+     * 
+     * @param time
+     * @return
+     */
+    public long getBucketStart(long time) {
+	return Math.floorDiv(time, getIntervalMs()) * getIntervalMs();
+    }
+
+    /**
+     * Get the coarsest tier that is at least as fine as the given interval.
+     * 
+     * @param intervalMs
+     * @return tier or null if interval is finer than all tiers
+     */
+    public static MeasurementRollupTier getCoarsestFor(long intervalMs) {
+	MeasurementRollupTier match = null;
+	for (MeasurementRollupTier tier : values()) {
+	    if (tier.getIntervalMs() <= intervalMs) {
+		match = tier;
+	    }
+	}
+	return match;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.sitewhere.event.spi.persistence.IMeasurementBucket;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
+
+/**
+ * Rollups for a single measurement name on a single indexed entity, ordered by
+ * interval start.
+ */
+public class MeasurementSeries implements IMeasurementSeries {
+
+    /** Id of entity for index */
+    private UUID entityId;
+
+    /** Measurement name */
+    private String name;
+
+    /** Interval length in milliseconds */
+    private long intervalMs;
+
+    /** Buckets in date order */
+    @JsonDeserialize(contentAs = MeasurementBucket.class)
+    private List<IMeasurementBucket> buckets = new ArrayList<>();
+
+    public UUID getEntityId() {
+	return entityId;
+    }
+
+    public void setEntityId(UUID entityId) {
+	this.entityId = entityId;
+    }
+
+    public String getName() {
+	return name;
+    }
+
+    public void setName(String name) {
+	this.name = name;
+    }
+
+    public long getIntervalMs() {
+	return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+	this.intervalMs = intervalMs;
+    }
+
+    public List<IMeasurementBucket> getBuckets() {
+	return buckets;
+    }
+
+    public void setBuckets(List<IMeasurementBucket> buckets) {
+	this.buckets = buckets;
+    }
+}
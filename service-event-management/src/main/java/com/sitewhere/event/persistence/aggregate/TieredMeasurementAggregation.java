@@ -0,0 +1,144 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation;
+import com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria;
+import com.sitewhere.event.spi.persistence.IMeasurementBucket;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventIndex;
+
+/**
+ * Answers assignment measurement queries from the coarsest rollup tier that
+ * satisfies the requested resolution. The interval is rounded up to a multiple
+ * of the tier interval so that each tier bucket falls within one result
+ * bucket. Any part of the range before rollups were maintained is aggregated
+ * from raw measurements. Queries for other indexes or finer resolutions go
+ * straight to raw aggregation.
+ */
+public class TieredMeasurementAggregation implements IDeviceMeasurementAggregation {
+
+    /** Minimum time between coverage lookups */
+    private static final long COVERAGE_RECHECK_MS = 60 * 1000;
+
+    /** Aggregation over raw measurements */
+    private IDeviceMeasurementAggregation raw;
+
+    /** Store for rollup tiers */
+    private IMeasurementRollupStore store;
+
+    /** Date from which rollups are maintained (moves back as history is rolled up) */
+    private volatile Date coverageStart;
+
+    /** Last time coverage was looked up */
+    private volatile long coverageCheckedAt;
+
+    public TieredMeasurementAggregation(IDeviceMeasurementAggregation raw, IMeasurementRollupStore store) {
+	this.raw = raw;
+	this.store = store;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation#
+     * aggregateMeasurements(com.sitewhere.spi.device.event.DeviceEventIndex,
+     * java.util.List,
+     * com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria)
+     */
+    @Override
+    public List<IMeasurementSeries> aggregateMeasurements(DeviceEventIndex index, List<UUID> entityIds,
+	    IMeasurementAggregationCriteria criteria) throws SiteWhereException {
+	long requested = criteria.getResolvedIntervalMs();
+	MeasurementRollupTier tier = MeasurementRollupTier.getCoarsestFor(requested);
+	Date coverage = (index == DeviceEventIndex.Assignment && tier != null) ? getCoverageStart() : null;
+	if (coverage == null) {
+	    return getRaw().aggregateMeasurements(index, entityIds, criteria);
+	}
+
+	long interval = ((requested + tier.getIntervalMs() - 1) / tier.getIntervalMs()) * tier.getIntervalMs();
+	long start = criteria.getResolvedStartDate().getTime();
+	long end = criteria.getResolvedEndDate().getTime();
+	long boundary = Math.floorDiv(coverage.getTime() + interval - 1, interval) * interval;
+	MeasurementAggregator aggregator = new MeasurementAggregator(
+		copy(criteria, new Date(start), new Date(end), interval));
+
+	// Buckets before rollups were maintained come from raw measurements.
+	if (start < boundary) {
+	    MeasurementAggregationCriteria before = copy(criteria, new Date(start),
+		    new Date(Math.min(end, boundary - 1)), interval);
+	    for (IMeasurementSeries series : getRaw().aggregateMeasurements(index, entityIds, before)) {
+		for (IMeasurementBucket bucket : series.getBuckets()) {
+		    aggregator.add(MeasurementRollup.fromBucket(series.getEntityId(), series.getName(), bucket));
+		}
+	    }
+	}
+	if (end >= boundary) {
+	    long from = Math.max(Math.floorDiv(start, interval) * interval, boundary);
+	    for (MeasurementRollup rollup : getStore().listMeasurementRollups(tier, entityIds,
+		    criteria.getMeasurementNames(), new Date(from), new Date(end))) {
+		aggregator.add(rollup);
+	    }
+	}
+	return aggregator.getSeries();
+    }
+
+    /**
+     * Get date from which rollups are maintained.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Date getCoverageStart() throws SiteWhereException {
+	if (System.currentTimeMillis() - coverageCheckedAt > COVERAGE_RECHECK_MS) {
+	    coverageCheckedAt = System.currentTimeMillis();
+	    coverageStart = getStore().getRollupCoverageStart();
+	}
+	return coverageStart;
+    }
+
+    /**
+     * Copy criteria with an explicit range and interval.
+     * 
+     * @param criteria
+     * @param start
+     * @param end
+     * @param interval
+     * @return
+     */
+    protected static MeasurementAggregationCriteria copy(IMeasurementAggregationCriteria criteria, Date start,
+	    Date end, long interval) {
+	MeasurementAggregationCriteria copy = new MeasurementAggregationCriteria();
+	copy.setMeasurementNames(criteria.getMeasurementNames());
+	copy.setStartDate(start);
+	copy.setEndDate(end);
+	copy.setIntervalMs(interval);
+	copy.setMaxPoints(criteria.getMaxPoints());
+	return copy;
+    }
+
+    protected IDeviceMeasurementAggregation getRaw() {
+	return raw;
+    }
+
+    protected IMeasurementRollupStore getStore() {
+	return store;
+    }
+}
@@ -26,12 +26,20 @@ import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
+import com.datastax.driver.core.UDTValue;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Inject;
 import com.sitewhere.cassandra.CassandraClient;
+import com.sitewhere.event.configuration.EventRetentionConfiguration;
 import com.sitewhere.event.persistence.DeviceEventManagementPersistence;
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregator;
 import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
+import com.sitewhere.event.spi.persistence.IDeviceEventRetention;
+import com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation;
+import com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.microservice.api.event.IDeviceEventManagement;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
@@ -41,6 +49,7 @@ import com.sitewhere.rest.model.device.event.DeviceCommandResponse;
 import com.sitewhere.rest.model.device.event.DeviceLocation;
 import com.sitewhere.rest.model.device.event.DeviceMeasurement;
 import com.sitewhere.rest.model.device.event.DeviceStateChange;
+import com.sitewhere.rest.model.search.DateRangeSearchCriteria;
 import com.sitewhere.rest.model.search.Pager;
 import com.sitewhere.rest.model.search.SearchResults;
 import com.sitewhere.spi.SiteWhereException;
@@ -72,7 +81,8 @@ import com.sitewhere.spi.search.ISearchResults;
  * Implementation of {@link IDeviceEventManagement} that stores events in Apache
  * Cassandra.
  */
-public class CassandraDeviceEventManagement extends TenantEngineLifecycleComponent implements IDeviceEventManagement {
+public class CassandraDeviceEventManagement extends TenantEngineLifecycleComponent
+	implements IDeviceEventManagement, IDeviceMeasurementAggregation, IDeviceEventRetention {
 
     /** Configured Cassandra client */
     private CassandraClient client;
@@ -80,8 +90,16 @@ public class CassandraDeviceEventManagement extends TenantEngineLifecycleCompone
     /** Cassandra event management client */
     private CassandraEventManagementClient cassandraEventManagementClient;
 
-    public CassandraDeviceEventManagement() {
+    /** Retention settings applied to new events */
+    private volatile EventRetentionConfiguration retention = new EventRetentionConfiguration();
+
+    /** Indicates time window compaction has been enabled */
+    private boolean timeWindowCompaction = false;
+
+    @Inject
+    public CassandraDeviceEventManagement(CassandraClient client) {
 	super(LifecycleComponentType.DataStore);
+	this.client = client;
     }
 
     /*
@@ -123,6 +141,20 @@ public class CassandraDeviceEventManagement extends TenantEngineLifecycleCompone
 	getClient().stop(monitor);
     }
 
+    /*
+     * @see
+     * com.sitewhere.event.spi.persistence.IDeviceEventRetention#applyRetention(com.
+     * sitewhere.event.configuration.EventRetentionConfiguration)
+     */
+    @Override
+    public void applyRetention(EventRetentionConfiguration retention) throws SiteWhereException {
+	this.retention = retention;
+	if (retention.isRetentionLimited() && !timeWindowCompaction) {
+	    getCassandraEventManagementClient().enableTimeWindowCompaction();
+	    this.timeWindowCompaction = true;
+	}
+    }
+
     /*
      * @see com.sitewhere.microservice.api.event.IDeviceEventManagement#
      * addDeviceEventBatch(com.sitewhere.spi.device.event.IDeviceEventContext,
@@ -182,6 +214,37 @@ public class CassandraDeviceEventManagement extends TenantEngineLifecycleCompone
 	return searchEventsByIndex(index, entityIds, criteria, CassandraDeviceMeasurement.INSTANCE);
     }
 
+    /*
+     * @see com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation#
+     * aggregateMeasurements(com.sitewhere.spi.device.event.DeviceEventIndex,
+     * java.util.List,
+     * com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria)
+     */
+    @Override
+    public List<IMeasurementSeries> aggregateMeasurements(DeviceEventIndex index, List<UUID> entityIds,
+	    IMeasurementAggregationCriteria criteria) throws SiteWhereException {
+	PreparedStatement query = getQueryForIndex(index);
+	IDateRangeSearchCriteria range = new DateRangeSearchCriteria(1, 0, criteria.getResolvedStartDate(),
+		criteria.getResolvedEndDate());
+	MeasurementAggregator aggregator = new MeasurementAggregator(criteria);
+
+	// Scan each time bucket and fold rows without materializing events.
+	for (int bucket : getBucketsForDateRange(range)) {
+	    List<ResultSet> perKey = listResultsForBucket(query, entityIds, range, DeviceEventType.Measurement,
+		    bucket);
+	    for (int i = 0; i < perKey.size(); i++) {
+		UUID entityId = entityIds.get(i);
+		for (Row row : perKey.get(i)) {
+		    UDTValue udt = row.getUDTValue(CassandraDeviceMeasurement.FIELD_MEASUREMENT);
+		    aggregator.add(entityId, udt.getString(CassandraDeviceMeasurement.FIELD_MXNAME),
+			    row.getTimestamp(CassandraDeviceEvent.FIELD_EVENT_DATE),
+			    udt.getDouble(CassandraDeviceMeasurement.FIELD_MXVALUE));
+		}
+	    }
+	}
+	return aggregator.getSeries();
+    }
+
     /*
      * @see com.sitewhere.microservice.api.event.IDeviceEventManagement#
      * addDeviceLocations(com.sitewhere.spi.device.event.IDeviceEventContext,
@@ -352,21 +415,27 @@ public class CassandraDeviceEventManagement extends TenantEngineLifecycleCompone
      */
     protected <I extends IDeviceEvent> void storeDeviceEvent(IDeviceEventContext context, I event,
 	    ICassandraEventBinder<I> binder) throws SiteWhereException {
+	// Expire rows using native TTL (zero keeps them indefinitely).
+	int ttl = getRetention().getTtlSeconds(binder.getEventType());
+
 	// Build insert for event by id.
 	BoundStatement eventById = getCassandraEventManagementClient().getInsertDeviceEventById().bind();
 	binder.bind(getCassandraEventManagementClient(), eventById, event);
+	eventById.setInt(CassandraEventManagementClient.TTL_MARKER, ttl);
 	process(eventById, event);
 
 	// Build insert for event by alternate id.
 	if (event.getAlternateId() != null) {
 	    BoundStatement eventByAltId = getCassandraEventManagementClient().getInsertDeviceEventByAltId().bind();
 	    binder.bind(getCassandraEventManagementClient(), eventByAltId, event);
+	    eventByAltId.setInt(CassandraEventManagementClient.TTL_MARKER, ttl);
 	    process(eventByAltId, event);
 	}
 
 	// Build insert for event by assignment.
 	BoundStatement eventByAssn = getCassandraEventManagementClient().getInsertDeviceEventByAssignment().bind();
 	binder.bind(getCassandraEventManagementClient(), eventByAssn, event);
+	eventByAssn.setInt(CassandraEventManagementClient.TTL_MARKER, ttl);
 	eventByAssn.setInt("bucket", getClient().getBucketValue(event.getEventDate().getTime()));
 	process(eventByAssn, event);
 
@@ -375,6 +444,7 @@ public class CassandraDeviceEventManagement extends TenantEngineLifecycleCompone
 	    BoundStatement eventByCustomer = getCassandraEventManagementClient().getInsertDeviceEventByCustomer()
 		    .bind();
 	    binder.bind(getCassandraEventManagementClient(), eventByCustomer, event);
+	    eventByCustomer.setInt(CassandraEventManagementClient.TTL_MARKER, ttl);
 	    eventByCustomer.setInt("bucket", getClient().getBucketValue(event.getEventDate().getTime()));
 	    process(eventByCustomer, event);
 	}
@@ -383,6 +453,7 @@ public class CassandraDeviceEventManagement extends TenantEngineLifecycleCompone
 	if (context.getAreaId() != null) {
 	    BoundStatement eventByArea = getCassandraEventManagementClient().getInsertDeviceEventByArea().bind();
 	    binder.bind(getCassandraEventManagementClient(), eventByArea, event);
+	    eventByArea.setInt(CassandraEventManagementClient.TTL_MARKER, ttl);
 	    eventByArea.setInt("bucket", getClient().getBucketValue(event.getEventDate().getTime()));
 	    process(eventByArea, event);
 	}
@@ -391,6 +462,7 @@ public class CassandraDeviceEventManagement extends TenantEngineLifecycleCompone
 	if (context.getAssetId() != null) {
 	    BoundStatement eventByAsset = getCassandraEventManagementClient().getInsertDeviceEventByAsset().bind();
 	    binder.bind(getCassandraEventManagementClient(), eventByAsset, event);
+	    eventByAsset.setInt(CassandraEventManagementClient.TTL_MARKER, ttl);
 	    eventByAsset.setInt("bucket", getClient().getBucketValue(event.getEventDate().getTime()));
 	    process(eventByAsset, event);
 	}
@@ -555,6 +627,10 @@ public class CassandraDeviceEventManagement extends TenantEngineLifecycleCompone
 	return ((IEventManagementMicroservice) getTenantEngine().getMicroservice()).getDeviceManagement();
     }
 
+    protected EventRetentionConfiguration getRetention() {
+	return retention;
+    }
+
     public CassandraClient getClient() {
 	return client;
     }
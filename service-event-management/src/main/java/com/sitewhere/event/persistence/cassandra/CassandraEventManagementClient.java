@@ -48,6 +48,9 @@ public class CassandraEventManagementClient extends TenantEngineLifecycleCompone
     /** User type for device state change */
     private UserType stateChangeType;
 
+    /** Name of time to live bind marker on insert statements */
+    public static final String TTL_MARKER = "[ttl]";
+
     /** Prepared statement for inserting a device event by id */
     private PreparedStatement insertDeviceEventById;
 
@@ -165,6 +168,22 @@ public class CassandraEventManagementClient extends TenantEngineLifecycleCompone
 		+ ".events_by_asset (device_id uuid, bucket int, event_id uuid, alt_id text, event_type tinyint, assignment_id uuid, customer_id uuid, area_id uuid, asset_id uuid, event_date timestamp, received_date timestamp, location frozen<sw_location>, measurement frozen<sw_measurement>, alert frozen<sw_alert>, invocation frozen<sw_invocation>, response frozen<sw_response>, state_change frozen<sw_state_change>, PRIMARY KEY ((asset_id, event_type, bucket), event_date, event_id)) WITH CLUSTERING ORDER BY (event_date desc, event_id asc);");
     }
 
+    /**
+     * Switch tables that are partitioned by time bucket to time window compaction
+     * so that SSTables holding expired events are dropped whole rather than
+     * compacted with live data.
+     * 
+     * @throws SiteWhereException
+     */
+    public void enableTimeWindowCompaction() throws SiteWhereException {
+	for (String table : new String[] { "events_by_assignment", "events_by_customer", "events_by_area",
+		"events_by_asset" }) {
+	    getClient().execute("ALTER TABLE " + getClient().getConfiguration().getKeyspace() + "." + table
+		    + " WITH compaction = {'class':'TimeWindowCompactionStrategy',"
+		    + " 'compaction_window_unit':'DAYS', 'compaction_window_size':1};");
+	}
+    }
+
     /**
      * Initialize prepared statements.
      * 
@@ -173,22 +192,22 @@ public class CassandraEventManagementClient extends TenantEngineLifecycleCompone
     protected void initializePreparedStatements() throws SiteWhereException {
 	this.insertDeviceEventById = getClient().getSession().prepare("insert into "
 		+ getClient().getConfiguration().getKeyspace()
-		+ ".events_by_id (device_id, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		+ ".events_by_id (device_id, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TTL ?");
 	this.insertDeviceEventByAltId = getClient().getSession().prepare("insert into "
 		+ getClient().getConfiguration().getKeyspace()
-		+ ".events_by_alt_id (device_id, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		+ ".events_by_alt_id (device_id, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TTL ?");
 	this.insertDeviceEventByAssignment = getClient().getSession().prepare("insert into "
 		+ getClient().getConfiguration().getKeyspace()
-		+ ".events_by_assignment (device_id, bucket, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		+ ".events_by_assignment (device_id, bucket, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TTL ?");
 	this.insertDeviceEventByCustomer = getClient().getSession().prepare("insert into "
 		+ getClient().getConfiguration().getKeyspace()
-		+ ".events_by_customer (device_id, bucket, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		+ ".events_by_customer (device_id, bucket, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TTL ?");
 	this.insertDeviceEventByArea = getClient().getSession().prepare("insert into "
 		+ getClient().getConfiguration().getKeyspace()
-		+ ".events_by_area (device_id, bucket, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		+ ".events_by_area (device_id, bucket, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TTL ?");
 	this.insertDeviceEventByAsset = getClient().getSession().prepare("insert into "
 		+ getClient().getConfiguration().getKeyspace()
-		+ ".events_by_asset (device_id, bucket, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		+ ".events_by_asset (device_id, bucket, event_id, alt_id, event_type, assignment_id, customer_id, area_id, asset_id, event_date, received_date, location, measurement, alert, invocation, response, state_change) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TTL ?");
 	this.selectEventsByAssignmentForType = getClient().getSession().prepare("select * from "
 		+ getClient().getConfiguration().getKeyspace()
 		+ ".events_by_assignment where assignment_id=? and event_type=? and bucket=? and event_date >= ? and event_date <= ?");
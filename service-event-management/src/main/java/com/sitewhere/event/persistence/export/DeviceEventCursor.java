@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.export;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+
+/**
+ * Position in a date ordered read of events. Holds the event date of the last
+ * event read and ids of all events read that share that date, so that a read
+ * can resume at the date without returning the same events twice.
+ */
+public class DeviceEventCursor {
+
+    /** Separates date from event ids in string form */
+    private static final String DATE_SEPARATOR = ":";
+
+    /** Separates event ids in string form */
+    private static final String ID_SEPARATOR = ",";
+
+    /** Event date of last event read */
+    private Date date;
+
+    /** Ids of events read that share the cursor date */
+    private Set<UUID> eventIds = new HashSet<>();
+
+    /**
+     * Indicates whether an event was read before the cursor position.
+     * 
+     * @param event
+     * @return
+     */
+    public boolean isAlreadyRead(IDeviceEvent event) {
+	return (getDate() != null) && getDate().equals(event.getEventDate()) && getEventIds().contains(event.getId());
+    }
+
+    /**
+     * Move cursor past the given event.
+     * 
+     * @param event
+     */
+    public void advance(IDeviceEvent event) {
+	if (!event.getEventDate().equals(getDate())) {
+	    this.date = event.getEventDate();
+	    getEventIds().clear();
+	}
+	getEventIds().add(event.getId());
+    }
+
+    /**
+     * Parse a cursor from its string form.
+     * 
+     * @param value
+     * @return
+     * @throws SiteWhereException
+     */
+    public static DeviceEventCursor parse(String value) throws SiteWhereException {
+	DeviceEventCursor cursor = new DeviceEventCursor();
+	if (value == null || value.isEmpty()) {
+	    return cursor;
+	}
+	try {
+	    int separator = value.indexOf(DATE_SEPARATOR);
+	    if (separator < 0) {
+		cursor.date = new Date(Long.parseLong(value));
+		return cursor;
+	    }
+	    cursor.date = new Date(Long.parseLong(value.substring(0, separator)));
+	    for (String id : value.substring(separator + 1).split(ID_SEPARATOR)) {
+		if (!id.isEmpty()) {
+		    cursor.getEventIds().add(UUID.fromString(id));
+		}
+	    }
+	    return cursor;
+	} catch (IllegalArgumentException e) {
+	    throw new SiteWhereException("Invalid event cursor: " + value, e);
+	}
+    }
+
+    /*
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+	if (getDate() == null) {
+	    return "";
+	}
+	StringBuilder builder = new StringBuilder();
+	builder.append(getDate().getTime()).append(DATE_SEPARATOR);
+	boolean first = true;
+	for (UUID id : getEventIds()) {
+	    if (!first) {
+		builder.append(ID_SEPARATOR);
+	    }
+	    builder.append(id.toString());
+	    first = false;
+	}
+	return builder.toString();
+    }
+
+    public Date getDate() {
+	return date;
+    }
+
+    public Set<UUID> getEventIds() {
+	return eventIds;
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.export;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+
+/**
+ * Reads events for export or replay one page at a time in event date order.
+ * Each page is a range query starting at the cursor date rather than an offset
+ * scan, so reading a long range costs the same per page throughout and can be
+ * resumed from a saved cursor. Reads are split into windows of event time so
+ * that datastores which cannot limit results server-side only load one window
+ * at a time. Windows without events are doubled in size so that sparse ranges
+ * are skipped quickly.
+ */
+public class DeviceEventExportReader {
+
+    /** Default number of events per page */
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /** Default window of event time covered by a query */
+    public static final long DEFAULT_WINDOW_MS = 60 * 60 * 1000;
+
+    /** Largest window used when skipping ranges without events */
+    private static final long MAX_WINDOW_MS = 24 * 60 * 60 * 1000;
+
+    /** Upper bound on page size when a page only contains events already read */
+    private static final int MAX_PAGE_SIZE = 50000;
+
+    /** Datastore access */
+    private IDeviceEventExport export;
+
+    /** Assignments to read (null or empty for all) */
+    private List<UUID> assignmentIds;
+
+    /** End of the range (inclusive) */
+    private Date endDate;
+
+    /** Number of events requested per page */
+    private int pageSize;
+
+    /** Window of event time covered by a query */
+    private long windowMs;
+
+    /** Window currently in use */
+    private long currentWindowMs;
+
+    /** Start of the current window */
+    private Date windowStart;
+
+    /** Position after the last event returned */
+    private DeviceEventCursor cursor;
+
+    /** Indicates no more events match */
+    private boolean exhausted = false;
+
+    public DeviceEventExportReader(IDeviceEventExport export, List<UUID> assignmentIds, Date startDate,
+	    Date endDate, DeviceEventCursor cursor) {
+	this(export, assignmentIds, startDate, endDate, cursor, DEFAULT_PAGE_SIZE, DEFAULT_WINDOW_MS);
+    }
+
+    public DeviceEventExportReader(IDeviceEventExport export, List<UUID> assignmentIds, Date startDate,
+	    Date endDate, DeviceEventCursor cursor, int pageSize, long windowMs) {
+	this.export = export;
+	this.assignmentIds = assignmentIds;
+	this.endDate = (endDate != null) ? endDate : new Date();
+	this.cursor = (cursor != null) ? cursor : new DeviceEventCursor();
+	this.pageSize = Math.max(1, pageSize);
+	this.windowMs = Math.max(1, windowMs);
+	this.currentWindowMs = this.windowMs;
+	Date start = (startDate != null) ? startDate : new Date(0);
+	if (getCursor().getDate() != null && getCursor().getDate().after(start)) {
+	    start = getCursor().getDate();
+	}
+	this.windowStart = start;
+	this.exhausted = start.after(getEndDate());
+    }
+
+    /**
+     * Get the next page of events. An empty list indicates that all events in
+     * the range have been read.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IDeviceEvent> nextPage() throws SiteWhereException {
+	int size = getPageSize();
+	while (!isExhausted()) {
+	    Date from = getWindowStart();
+	    if (getCursor().getDate() != null && getCursor().getDate().after(from)) {
+		from = getCursor().getDate();
+	    }
+	    Date to = new Date(Math.min(getWindowStart().getTime() + currentWindowMs, getEndDate().getTime()));
+	    List<? extends IDeviceEvent> results = getExport().listDeviceEventsForExport(getAssignmentIds(), from,
+		    to, size);
+	    List<IDeviceEvent> page = new ArrayList<>();
+	    for (IDeviceEvent event : results) {
+		if (!getCursor().isAlreadyRead(event)) {
+		    page.add(event);
+		}
+	    }
+
+	    // Window is complete, so move to the next one.
+	    if (results.size() < size) {
+		if (to.getTime() >= getEndDate().getTime()) {
+		    this.exhausted = true;
+		} else {
+		    this.windowStart = new Date(to.getTime() + 1);
+		}
+		if (page.isEmpty()) {
+		    this.currentWindowMs = Math.min(currentWindowMs * 2, Math.max(MAX_WINDOW_MS, getWindowMs()));
+		    size = getPageSize();
+		    continue;
+		}
+	    }
+
+	    // Page only contained events already read at the cursor date, so widen it.
+	    else if (page.isEmpty()) {
+		if (size >= MAX_PAGE_SIZE) {
+		    throw new SiteWhereException("Too many events share the same date to read them incrementally.");
+		}
+		size = Math.min(size * 2, MAX_PAGE_SIZE);
+		continue;
+	    }
+	    for (IDeviceEvent event : page) {
+		getCursor().advance(event);
+	    }
+	    this.currentWindowMs = getWindowMs();
+	    return page;
+	}
+	return Collections.emptyList();
+    }
+
+    public DeviceEventCursor getCursor() {
+	return cursor;
+    }
+
+    public boolean isExhausted() {
+	return exhausted;
+    }
+
+    protected IDeviceEventExport getExport() {
+	return export;
+    }
+
+    protected List<UUID> getAssignmentIds() {
+	return assignmentIds;
+    }
+
+    protected Date getEndDate() {
+	return endDate;
+    }
+
+    protected int getPageSize() {
+	return pageSize;
+    }
+
+    protected long getWindowMs() {
+	return windowMs;
+    }
+
+    protected Date getWindowStart() {
+	return windowStart;
+    }
+}
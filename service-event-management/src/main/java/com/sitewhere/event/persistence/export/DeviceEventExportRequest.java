@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.export;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request to export stored events for a time range.
+ */
+public class DeviceEventExportRequest {
+
+    /** Assignments to export (null or empty for all) */
+    private List<UUID> assignmentIds;
+
+    /** Start of the range */
+    private Date startDate;
+
+    /** End of the range (defaults to now) */
+    private Date endDate;
+
+    /** Cursor from an interrupted export of the same range to resume from */
+    private String cursor;
+
+    public List<UUID> getAssignmentIds() {
+	return assignmentIds;
+    }
+
+    public void setAssignmentIds(List<UUID> assignmentIds) {
+	this.assignmentIds = assignmentIds;
+    }
+
+    public Date getStartDate() {
+	return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+	this.startDate = startDate;
+    }
+
+    public Date getEndDate() {
+	return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+	this.endDate = endDate;
+    }
+
+    public String getCursor() {
+	return cursor;
+    }
+
+    public void setCursor(String cursor) {
+	this.cursor = cursor;
+    }
+}
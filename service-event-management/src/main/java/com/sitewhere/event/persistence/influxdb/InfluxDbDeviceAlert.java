@@ -76,10 +76,12 @@ public class InfluxDbDeviceAlert {
      * 
      * @param event
      * @param builder
+     * @param schema
      * @throws SiteWhereException
      */
-    public static void saveToBuilder(DeviceAlert event, Point.Builder builder) throws SiteWhereException {
-	builder.tag(ALERT_TYPE, event.getType());
+    public static void saveToBuilder(DeviceAlert event, Point.Builder builder, InfluxDbSchemaPlanner schema)
+	    throws SiteWhereException {
+	schema.tag(builder, ALERT_TYPE, event.getType());
 	builder.tag(ALERT_SOURCE, event.getSource().name());
 	builder.tag(ALERT_LEVEL, event.getLevel().name());
 	builder.addField(ALERT_MESSAGE, event.getMessage());
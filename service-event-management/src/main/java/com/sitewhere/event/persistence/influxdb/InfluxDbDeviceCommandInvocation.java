@@ -95,18 +95,16 @@ public class InfluxDbDeviceCommandInvocation {
      * 
      * @param event
      * @param builder
+     * @param schema
      * @throws SiteWhereException
      */
-    public static void saveToBuilder(DeviceCommandInvocation event, Point.Builder builder) throws SiteWhereException {
+    public static void saveToBuilder(DeviceCommandInvocation event, Point.Builder builder,
+	    InfluxDbSchemaPlanner schema) throws SiteWhereException {
 	builder.tag(CMD_INITIATOR, event.getInitiator().name());
-	if (event.getInitiatorId() != null) {
-	    builder.tag(CMD_INITIATOR_ID, event.getInitiatorId());
-	}
+	schema.tag(builder, CMD_INITIATOR_ID, event.getInitiatorId());
 	builder.tag(CMD_TARGET, event.getTarget().name());
-	if (event.getTargetId() != null) {
-	    builder.tag(CMD_TARGET_ID, event.getTargetId());
-	}
-	builder.tag(CMD_COMMAND_ID, event.getDeviceCommandId().toString());
+	schema.tag(builder, CMD_TARGET_ID, event.getTargetId());
+	schema.tag(builder, CMD_COMMAND_ID, event.getDeviceCommandId().toString());
 
 	for (String key : event.getParameterValues().keySet()) {
 	    String value = event.getParameterValues().get(key);
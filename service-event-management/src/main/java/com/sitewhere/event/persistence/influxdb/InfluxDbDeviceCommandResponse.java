@@ -82,7 +82,9 @@ public class InfluxDbDeviceCommandResponse {
      * @throws SiteWhereException
      */
     public static void saveToBuilder(DeviceCommandResponse event, Point.Builder builder) throws SiteWhereException {
-	builder.tag(RSP_ORIGINATING_EVENT_ID, event.getOriginatingEventId().toString());
+	// Unique per invocation, so never written as a tag.
+	builder.addField(InfluxDbDeviceEvent.DEMOTED_TAG_PREFIX + RSP_ORIGINATING_EVENT_ID,
+		event.getOriginatingEventId().toString());
 	if (event.getResponseEventId() != null) {
 	    builder.addField(RSP_RESPONSE_EVENT_ID, event.getResponseEventId().toString());
 	}
@@ -98,17 +100,18 @@ public class InfluxDbDeviceCommandResponse {
      * 
      * @param originatingEventId
      * @param influx
+     * @param collection
      * @param database
      * @return
      * @throws SiteWhereException
      */
     public static SearchResults<IDeviceCommandResponse> getResponsesForInvocation(UUID originatingEventId,
-	    InfluxDB influx, String database) throws SiteWhereException {
-	Query query = queryResponsesForInvocation(originatingEventId, database);
+	    InfluxDB influx, String collection, String database) throws SiteWhereException {
+	Query query = queryResponsesForInvocation(originatingEventId, collection, database);
 	QueryResult response = influx.query(query, TimeUnit.MILLISECONDS);
 	List<IDeviceCommandResponse> results = InfluxDbDeviceEvent.eventsOfType(response, IDeviceCommandResponse.class);
 
-	Query countQuery = queryResponsesForInvocationCount(originatingEventId, database);
+	Query countQuery = queryResponsesForInvocationCount(originatingEventId, collection, database);
 	QueryResult countResponse = influx.query(countQuery);
 	long count = InfluxDbDeviceEvent.parseCount(countResponse);
 	return new SearchResults<IDeviceCommandResponse>(results, count);
@@ -118,15 +121,15 @@ public class InfluxDbDeviceCommandResponse {
      * Find the list of responses for a command invocation.
      * 
      * @param originatingEventId
+     * @param collection
      * @param database
      * @return
      * @throws SiteWhereException
      */
-    public static Query queryResponsesForInvocation(UUID originatingEventId, String database)
+    public static Query queryResponsesForInvocation(UUID originatingEventId, String collection, String database)
 	    throws SiteWhereException {
-	return new Query("SELECT * FROM " + InfluxDbDeviceEvent.COLLECTION_EVENTS + " where type='"
-		+ DeviceEventType.CommandResponse + "' and " + InfluxDbDeviceCommandResponse.RSP_ORIGINATING_EVENT_ID
-		+ "='" + originatingEventId + "' GROUP BY " + InfluxDbDeviceEvent.EVENT_ASSIGNMENT
+	return new Query("SELECT * FROM " + collection + " where type='" + DeviceEventType.CommandResponse + "' and "
+		+ matchOriginatingEvent(originatingEventId) + " GROUP BY " + InfluxDbDeviceEvent.EVENT_ASSIGNMENT
 		+ " ORDER BY time DESC", database);
     }
 
@@ -134,14 +137,27 @@ public class InfluxDbDeviceCommandResponse {
      * Count number of response for a command invocation.
      * 
      * @param originatingEventId
+     * @param collection
      * @param database
      * @return
      * @throws SiteWhereException
      */
-    public static Query queryResponsesForInvocationCount(UUID originatingEventId, String database)
-	    throws SiteWhereException {
-	return new Query("SELECT count(eid) FROM " + InfluxDbDeviceEvent.COLLECTION_EVENTS + " where type='"
-		+ DeviceEventType.CommandResponse + "' and " + InfluxDbDeviceCommandResponse.RSP_ORIGINATING_EVENT_ID
-		+ "='" + originatingEventId + "' GROUP BY " + InfluxDbDeviceEvent.EVENT_ASSIGNMENT, database);
+    public static Query queryResponsesForInvocationCount(UUID originatingEventId, String collection,
+	    String database) throws SiteWhereException {
+	return new Query("SELECT count(eid) FROM " + collection + " where type='" + DeviceEventType.CommandResponse
+		+ "' and " + matchOriginatingEvent(originatingEventId) + " GROUP BY "
+		+ InfluxDbDeviceEvent.EVENT_ASSIGNMENT, database);
+    }
+
+    /**
+     * Match originating event id whether it was written as a tag or a field.
+     * 
+     * @param originatingEventId
+     * @return
+     */
+    protected static String matchOriginatingEvent(UUID originatingEventId) {
+	String field = InfluxDbDeviceEvent.DEMOTED_TAG_PREFIX + RSP_ORIGINATING_EVENT_ID;
+	return "(" + RSP_ORIGINATING_EVENT_ID + "='" + originatingEventId + "' or \"" + field + "\"='"
+		+ originatingEventId + "')";
     }
 }
\ No newline at end of file
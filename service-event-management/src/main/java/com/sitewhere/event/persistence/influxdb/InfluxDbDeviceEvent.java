@@ -16,6 +16,7 @@
 package com.sitewhere.event.persistence.influxdb;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -84,30 +85,25 @@ public class InfluxDbDeviceEvent {
     /** Event metadata field */
     public static final String EVENT_METADATA_PREFIX = "meta:";
 
+    /** Prefix for fields holding values of tags that were over budget */
+    public static final String DEMOTED_TAG_PREFIX = "tag:";
+
     /** The meta data field to check if user has specified a time precision */
     private static final String EVENT_TIME_PRECISION_META_DATA_KEY = "precision";
 
-    /**
-     * Return a builder for the events collection.
-     * 
-     * @return
-     * @throws SiteWhereException
-     */
-    public static Point.Builder createBuilder() throws SiteWhereException {
-	return Point.measurement(COLLECTION_EVENTS);
-    }
-
     /**
      * Get an event by unique id.
      * 
      * @param eventId
      * @param client
+     * @param schema
      * @return
      * @throws SiteWhereException
      */
-    public static IDeviceEvent getEventById(UUID eventId, InfluxDbClient client) throws SiteWhereException {
+    public static IDeviceEvent getEventById(UUID eventId, InfluxDbClient client, InfluxDbSchemaPlanner schema)
+	    throws SiteWhereException {
 	Query query = new Query(
-		"SELECT * FROM " + InfluxDbDeviceEvent.COLLECTION_EVENTS + " where " + EVENT_ID + "='" + eventId + "'",
+		"SELECT * FROM " + schema.getSources() + " where " + EVENT_ID + "='" + eventId + "'",
 		client.getConfiguration().getDatabase());
 	QueryResult response = client.getInflux().query(query, TimeUnit.MILLISECONDS);
 	List<IDeviceEvent> results = InfluxDbDeviceEvent.eventsOfType(response, IDeviceEvent.class);
@@ -122,12 +118,13 @@ public class InfluxDbDeviceEvent {
      * 
      * @param alternateId
      * @param client
+     * @param schema
      * @return
      * @throws SiteWhereException
      */
-    public static IDeviceEvent getEventByAlternateId(String alternateId, InfluxDbClient client)
-	    throws SiteWhereException {
-	Query query = new Query("SELECT * FROM " + InfluxDbDeviceEvent.COLLECTION_EVENTS + " where " + ALTERNATE_ID
+    public static IDeviceEvent getEventByAlternateId(String alternateId, InfluxDbClient client,
+	    InfluxDbSchemaPlanner schema) throws SiteWhereException {
+	Query query = new Query("SELECT * FROM " + schema.getSources() + " where " + ALTERNATE_ID
 		+ "='" + alternateId + "'", client.getConfiguration().getDatabase());
 	QueryResult response = client.getInflux().query(query, TimeUnit.MILLISECONDS);
 	List<IDeviceEvent> results = InfluxDbDeviceEvent.eventsOfType(response, IDeviceEvent.class);
@@ -146,26 +143,63 @@ public class InfluxDbDeviceEvent {
      * @param type
      * @param criteria
      * @param client
+     * @param schema
      * @param clazz
      * @return
      * @throws SiteWhereException
      */
     public static <T> SearchResults<T> searchByIndex(DeviceEventIndex index, List<UUID> entityIds, DeviceEventType type,
-	    ISearchCriteria criteria, InfluxDbClient client, Class<T> clazz) throws SiteWhereException {
+	    ISearchCriteria criteria, InfluxDbClient client, InfluxDbSchemaPlanner schema, Class<T> clazz)
+	    throws SiteWhereException {
 	Query query = InfluxDbDeviceEvent.queryEventsOfTypeForIndex(index, type, entityIds, criteria,
-		client.getConfiguration().getDatabase());
+		schema.getSource(type), client.getConfiguration().getDatabase());
 	LOGGER.debug("Query: " + query.getCommand());
 	QueryResult response = client.getInflux().query(query, TimeUnit.MILLISECONDS);
 	List<T> results = InfluxDbDeviceEvent.eventsOfType(response, clazz);
 
 	Query countQuery = InfluxDbDeviceEvent.queryEventsOfTypeForIndexCount(index, type, entityIds, criteria,
-		client.getConfiguration().getDatabase());
+		schema.getSource(type), client.getConfiguration().getDatabase());
 	LOGGER.debug("Count: " + countQuery.getCommand());
 	QueryResult countResponse = client.getInflux().query(countQuery);
 	long count = parseCount(countResponse);
 	return new SearchResults<T>(results, count);
     }
 
+    /**
+     * List events of all types in a date range, oldest first, for export.
+     * 
+     * @param assignmentIds
+     * @param startDate
+     * @param endDate
+     * @param maxResults
+     * @param client
+     * @param schema
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IDeviceEvent> listForExport(List<UUID> assignmentIds, Date startDate, Date endDate,
+	    int maxResults, InfluxDbClient client, InfluxDbSchemaPlanner schema) throws SiteWhereException {
+	List<String> clauses = new ArrayList<>();
+	if (startDate != null) {
+	    clauses.add("time >= '" + ISODateTimeFormat.dateTime().print(startDate.getTime()) + "'");
+	}
+	if (endDate != null) {
+	    clauses.add("time <= '" + ISODateTimeFormat.dateTime().print(endDate.getTime()) + "'");
+	}
+	if (assignmentIds != null && !assignmentIds.isEmpty()) {
+	    clauses.add(buildInClause(DeviceEventIndex.Assignment, assignmentIds));
+	}
+	String where = clauses.isEmpty() ? "" : " where " + String.join(" and ", clauses);
+	Query query = new Query("SELECT * FROM " + schema.getSources() + where + " ORDER BY time ASC LIMIT "
+		+ maxResults, client.getConfiguration().getDatabase());
+	LOGGER.debug("Query: " + query.getCommand());
+
+	// Limit applies to each measurement, so merge them when split by type.
+	List<IDeviceEvent> results = parse(client.getInflux().query(query, TimeUnit.MILLISECONDS));
+	results.sort(Comparator.comparing(IDeviceEvent::getEventDate));
+	return (results.size() > maxResults) ? new ArrayList<>(results.subList(0, maxResults)) : results;
+    }
+
     /**
      * Get a query for events of a given type associated with one or more entities
      * for a given index and that meet the search criteria.
@@ -174,13 +208,14 @@ public class InfluxDbDeviceEvent {
      * @param type
      * @param entityIds
      * @param criteria
+     * @param collection
      * @param database
      * @return
      * @throws SiteWhereException
      */
     protected static Query queryEventsOfTypeForIndex(DeviceEventIndex index, DeviceEventType type, List<UUID> entityIds,
-	    ISearchCriteria criteria, String database) throws SiteWhereException {
-	return new Query("SELECT * FROM " + InfluxDbDeviceEvent.COLLECTION_EVENTS + " where type='" + type.name()
+	    ISearchCriteria criteria, String collection, String database) throws SiteWhereException {
+	return new Query("SELECT * FROM " + collection + " where type='" + type.name()
 		+ "' and " + buildInClause(index, entityIds) + buildDateRangeCriteria(criteria) + " ORDER BY time DESC"
 		+ buildPagingCriteria(criteria), database);
     }
@@ -193,14 +228,16 @@ public class InfluxDbDeviceEvent {
      * @param type
      * @param entityIds
      * @param criteria
+     * @param collection
      * @param database
      * @return
      * @throws SiteWhereException
      */
     protected static Query queryEventsOfTypeForIndexCount(DeviceEventIndex index, DeviceEventType type,
-	    List<UUID> entityIds, ISearchCriteria criteria, String database) throws SiteWhereException {
+	    List<UUID> entityIds, ISearchCriteria criteria, String collection, String database)
+	    throws SiteWhereException {
 	return new Query(
-		"SELECT count(" + EVENT_ID + ") FROM " + InfluxDbDeviceEvent.COLLECTION_EVENTS + " where type='"
+		"SELECT count(" + EVENT_ID + ") FROM " + collection + " where type='"
 			+ type.name() + "' and " + buildInClause(index, entityIds) + buildDateRangeCriteria(criteria),
 		database);
     }
@@ -332,7 +369,8 @@ public class InfluxDbDeviceEvent {
     }
 
     /**
-     * Parse response from count query.
+     * Parse response from count query. Counts from all series are added so that
+     * grouped counts are totalled.
      * 
      * @param response
      * @return
@@ -341,17 +379,18 @@ public class InfluxDbDeviceEvent {
     protected static long parseCount(QueryResult response) throws SiteWhereException {
 	handleError(response);
 
+	long count = 0;
 	for (Result result : response.getResults()) {
 	    if (result.getSeries() != null) {
 		for (Series series : result.getSeries()) {
 		    for (List<Object> values : series.getValues()) {
 			Map<String, Object> valueMap = getValueMap(series, values);
-			return ((Double) valueMap.get("count")).longValue();
+			count += ((Double) valueMap.get("count")).longValue();
 		    }
 		}
 	    }
 	}
-	return 0;
+	return count;
     }
 
     /**
@@ -403,7 +442,8 @@ public class InfluxDbDeviceEvent {
     }
 
     /**
-     * Create a map of values that are present.
+     * Create a map of values that are present. Values of tags that were written
+     * as fields are mapped back to the tag name.
      * 
      * @param columns
      * @param values
@@ -422,6 +462,12 @@ public class InfluxDbDeviceEvent {
 	if (series.getTags() != null) {
 	    map.putAll(series.getTags());
 	}
+	for (int i = 0; i < columns.size(); i++) {
+	    String key = columns.get(i);
+	    if (key.startsWith(DEMOTED_TAG_PREFIX) && values.get(i) != null) {
+		map.putIfAbsent(key.substring(DEMOTED_TAG_PREFIX.length()), values.get(i));
+	    }
+	}
 	return map;
     }
 
@@ -571,17 +617,6 @@ public class InfluxDbDeviceEvent {
 	return "(" + String.join(" or ", clauses) + ")";
     }
 
-    /**
-     * Add a tag to an existing object
-     * 
-     * @param tagName
-     * @param tagValue
-     * @param builder
-     */
-    protected static void addUserDefinedTag(String tagName, String tagValue, Point.Builder builder) {
-	builder.tag(tagName, tagValue);
-    }
-
     /**
      * Parse a date field.
      * 
@@ -16,6 +16,7 @@
 package com.sitewhere.event.persistence.influxdb;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -23,8 +24,18 @@ import java.util.UUID;
 import org.influxdb.dto.Point;
 
 import com.google.inject.Inject;
+import com.sitewhere.event.configuration.EventManagementTenantConfiguration;
+import com.sitewhere.event.configuration.EventRetentionConfiguration;
 import com.sitewhere.event.persistence.DeviceEventManagementPersistence;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollup;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupTier;
 import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.event.spi.persistence.IDeviceEventRetention;
+import com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation;
+import com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria;
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
 import com.sitewhere.influxdb.InfluxDbClient;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.microservice.api.event.IDeviceEventManagement;
@@ -68,11 +79,16 @@ import com.sitewhere.spi.search.ISearchResults;
  * Implementation of {@link IDeviceEventManagement} that stores events in
  * InfluxDB.
  */
-public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponent implements IDeviceEventManagement {
+public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponent
+	implements IDeviceEventManagement, IDeviceMeasurementAggregation, IMeasurementRollupStore, IDeviceEventExport,
+	IDeviceEventRetention {
 
     /** Client */
     private InfluxDbClient client;
 
+    /** Plans series layout and tag usage for writes */
+    private InfluxDbSchemaPlanner schema;
+
     /**
      * Prefix to compare against when adding user defined tags from assignment meta
      * data
@@ -83,9 +99,11 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     private final String ASSIGNMENT_META_DATA_RETENTION_POLICY = "INFLUX_RETENTION_POLICY";
 
     @Inject
-    public InfluxDbDeviceEventManagement(InfluxDbClient client) {
+    public InfluxDbDeviceEventManagement(InfluxDbClient client, EventManagementTenantConfiguration configuration) {
 	super(LifecycleComponentType.DataStore);
 	this.client = client;
+	this.schema = new InfluxDbSchemaPlanner(client, configuration.getInfluxDbSchema(),
+		configuration.getRetention());
     }
 
     /*
@@ -105,6 +123,7 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     @Override
     public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	getClient().initialize(monitor);
+	initializeNestedComponent(getSchema(), monitor, true);
     }
 
     /*
@@ -117,6 +136,21 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	getClient().start(monitor);
+
+	// Policies must exist before events are written and rollups read.
+	InfluxDbRetention.apply(getSchema().getRetention(), getClient(), getSchema());
+	InfluxDbLayoutMigration.migrateRollups(getClient());
+	startNestedComponent(getSchema(), monitor, true);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	stopNestedComponent(getSchema(), monitor);
     }
 
     /*
@@ -138,8 +172,10 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
      *
      * @param context
      * @param builder
+     * @throws SiteWhereException
      */
-    protected void addUserDefinedTags(IDeviceEventContext context, Point.Builder builder) {
+    protected void addUserDefinedTags(IDeviceEventContext context, Point.Builder builder)
+	    throws SiteWhereException {
 	Map<String, String> assignmentMetaData = context.getDeviceAssignmentMetadata();
 
 	if (assignmentMetaData != null) {
@@ -161,8 +197,8 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
 
 		if (metaDataKey.startsWith(ASSIGNMENT_META_DATA_TAG_PREFIX)
 			&& metaDataKey.length() > ASSIGNMENT_META_DATA_TAG_PREFIX.length()) {
-		    InfluxDbDeviceEvent.addUserDefinedTag(metaDataKey.replaceFirst(ASSIGNMENT_META_DATA_TAG_PREFIX, ""),
-			    metaDataValue, builder);
+		    getSchema().tag(builder, metaDataKey.replaceFirst(ASSIGNMENT_META_DATA_TAG_PREFIX, ""),
+			    metaDataValue);
 		}
 	    }
 	}
@@ -175,7 +211,7 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
      */
     @Override
     public IDeviceEvent getDeviceEventById(UUID eventId) throws SiteWhereException {
-	return InfluxDbDeviceEvent.getEventById(eventId, getClient());
+	return InfluxDbDeviceEvent.getEventById(eventId, getClient(), getSchema());
     }
 
     /*
@@ -184,21 +220,22 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
      */
     @Override
     public IDeviceEvent getDeviceEventByAlternateId(String alternateId) throws SiteWhereException {
-	return InfluxDbDeviceEvent.getEventByAlternateId(alternateId, getClient());
+	return InfluxDbDeviceEvent.getEventByAlternateId(alternateId, getClient(), getSchema());
     }
 
     /**
      * Check if the user has specific a retention policy in the assignment meta-data
-     * If so, override the default one.
+     * If so, override the one chosen for the event type.
      * 
      * @param context
+     * @param type
      * @return
      */
-    private String getAssignmentSpecificRetentionPolicy(IDeviceEventContext context) {
+    private String getAssignmentSpecificRetentionPolicy(IDeviceEventContext context, DeviceEventType type) {
 	String policy = context.getDeviceAssignmentMetadata().get(ASSIGNMENT_META_DATA_RETENTION_POLICY);
 
 	if (policy == null) {
-	    return getClient().getConfiguration().getRetention();
+	    return getSchema().getRetentionPolicy(type);
 	}
 	return policy;
     }
@@ -214,11 +251,11 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
 	List<IDeviceMeasurement> result = new ArrayList<>();
 	for (IDeviceMeasurementCreateRequest request : requests) {
 	    DeviceMeasurement mxs = DeviceEventManagementPersistence.deviceMeasurementCreateLogic(context, request);
-	    Point.Builder builder = InfluxDbDeviceEvent.createBuilder();
+	    Point.Builder builder = getSchema().createBuilder(DeviceEventType.Measurement);
 	    InfluxDbDeviceMeasurement.saveToBuilder(mxs, builder);
 	    addUserDefinedTags(context, builder);
 	    getClient().getInflux().write(getClient().getConfiguration().getDatabase(),
-		    getAssignmentSpecificRetentionPolicy(context), builder.build());
+		    getAssignmentSpecificRetentionPolicy(context, DeviceEventType.Measurement), builder.build());
 	    result.add(mxs);
 	}
 	return result;
@@ -234,7 +271,84 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     public ISearchResults<IDeviceMeasurement> listDeviceMeasurementsForIndex(DeviceEventIndex index,
 	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
 	return InfluxDbDeviceEvent.searchByIndex(index, entityIds, DeviceEventType.Measurement, criteria, getClient(),
-		IDeviceMeasurement.class);
+		getSchema(), IDeviceMeasurement.class);
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation#
+     * aggregateMeasurements(com.sitewhere.spi.device.event.DeviceEventIndex,
+     * java.util.List,
+     * com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria)
+     */
+    @Override
+    public List<IMeasurementSeries> aggregateMeasurements(DeviceEventIndex index, List<UUID> entityIds,
+	    IMeasurementAggregationCriteria criteria) throws SiteWhereException {
+	return InfluxDbDeviceMeasurement.aggregateByIndex(index, entityIds, criteria, getClient(), getSchema());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.event.spi.persistence.IDeviceEventRetention#applyRetention(com.
+     * sitewhere.event.configuration.EventRetentionConfiguration)
+     */
+    @Override
+    public void applyRetention(EventRetentionConfiguration retention) throws SiteWhereException {
+	InfluxDbRetention.apply(retention, getClient(), getSchema());
+	InfluxDbLayoutMigration.migrateRollups(getClient());
+	InfluxDbLayoutMigration.migrateEvents(getClient(), getSchema());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IMeasurementRollupStore#
+     * saveMeasurementRollups(com.sitewhere.event.persistence.aggregate.
+     * MeasurementRollupTier, java.util.List)
+     */
+    @Override
+    public void saveMeasurementRollups(MeasurementRollupTier tier, List<MeasurementRollup> rollups)
+	    throws SiteWhereException {
+	InfluxDbMeasurementRollup.save(tier, rollups, getClient());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IMeasurementRollupStore#
+     * listMeasurementRollups(com.sitewhere.event.persistence.aggregate.
+     * MeasurementRollupTier, java.util.List, java.util.List, java.util.Date,
+     * java.util.Date)
+     */
+    @Override
+    public List<MeasurementRollup> listMeasurementRollups(MeasurementRollupTier tier, List<UUID> assignmentIds,
+	    List<String> names, Date startDate, Date endDate) throws SiteWhereException {
+	return InfluxDbMeasurementRollup.list(tier, assignmentIds, names, startDate, endDate, getClient());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IMeasurementRollupStore#
+     * getRollupCoverageStart()
+     */
+    @Override
+    public Date getRollupCoverageStart() throws SiteWhereException {
+	return InfluxDbMeasurementRollup.getCoverageStart(getClient());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IMeasurementRollupStore#
+     * setRollupCoverageStart(java.util.Date)
+     */
+    @Override
+    public void setRollupCoverageStart(Date date) throws SiteWhereException {
+	InfluxDbMeasurementRollup.setCoverageStart(date, getClient());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IDeviceEventExport#
+     * listDeviceEventsForExport(java.util.List, java.util.Date, java.util.Date,
+     * int)
+     */
+    @Override
+    public List<IDeviceEvent> listDeviceEventsForExport(List<UUID> assignmentIds, Date startDate, Date endDate,
+	    int maxResults) throws SiteWhereException {
+	return InfluxDbDeviceEvent.listForExport(assignmentIds, startDate, endDate, maxResults, getClient(),
+		getSchema());
     }
 
     /*
@@ -248,11 +362,11 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
 	List<IDeviceLocation> result = new ArrayList<>();
 	for (IDeviceLocationCreateRequest request : requests) {
 	    DeviceLocation location = DeviceEventManagementPersistence.deviceLocationCreateLogic(context, request);
-	    Point.Builder builder = InfluxDbDeviceEvent.createBuilder();
+	    Point.Builder builder = getSchema().createBuilder(DeviceEventType.Location);
 	    InfluxDbDeviceLocation.saveToBuilder(location, builder);
 	    addUserDefinedTags(context, builder);
 	    getClient().getInflux().write(getClient().getConfiguration().getDatabase(),
-		    getAssignmentSpecificRetentionPolicy(context), builder.build());
+		    getAssignmentSpecificRetentionPolicy(context, DeviceEventType.Location), builder.build());
 	    result.add(location);
 	}
 	return result;
@@ -267,7 +381,7 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     public ISearchResults<IDeviceLocation> listDeviceLocationsForIndex(DeviceEventIndex index, List<UUID> entityIds,
 	    IDateRangeSearchCriteria criteria) throws SiteWhereException {
 	return InfluxDbDeviceEvent.searchByIndex(index, entityIds, DeviceEventType.Location, criteria, getClient(),
-		IDeviceLocation.class);
+		getSchema(), IDeviceLocation.class);
     }
 
     /*
@@ -282,11 +396,11 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
 	List<IDeviceAlert> result = new ArrayList<>();
 	for (IDeviceAlertCreateRequest request : requests) {
 	    DeviceAlert alert = DeviceEventManagementPersistence.deviceAlertCreateLogic(context, request);
-	    Point.Builder builder = InfluxDbDeviceEvent.createBuilder();
-	    InfluxDbDeviceAlert.saveToBuilder(alert, builder);
+	    Point.Builder builder = getSchema().createBuilder(DeviceEventType.Alert);
+	    InfluxDbDeviceAlert.saveToBuilder(alert, builder, getSchema());
 	    addUserDefinedTags(context, builder);
 	    getClient().getInflux().write(getClient().getConfiguration().getDatabase(),
-		    getAssignmentSpecificRetentionPolicy(context), builder.build());
+		    getAssignmentSpecificRetentionPolicy(context, DeviceEventType.Alert), builder.build());
 	    result.add(alert);
 	}
 	return result;
@@ -301,7 +415,7 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     public ISearchResults<IDeviceAlert> listDeviceAlertsForIndex(DeviceEventIndex index, List<UUID> entityIds,
 	    IDateRangeSearchCriteria criteria) throws SiteWhereException {
 	return InfluxDbDeviceEvent.searchByIndex(index, entityIds, DeviceEventType.Alert, criteria, getClient(),
-		IDeviceAlert.class);
+		getSchema(), IDeviceAlert.class);
     }
 
     /*
@@ -320,11 +434,11 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
 		    request.getCommandToken());
 	    DeviceCommandInvocation ci = DeviceEventManagementPersistence.deviceCommandInvocationCreateLogic(context,
 		    command, request);
-	    Point.Builder builder = InfluxDbDeviceEvent.createBuilder();
-	    InfluxDbDeviceCommandInvocation.saveToBuilder(ci, builder);
+	    Point.Builder builder = getSchema().createBuilder(DeviceEventType.CommandInvocation);
+	    InfluxDbDeviceCommandInvocation.saveToBuilder(ci, builder, getSchema());
 	    addUserDefinedTags(context, builder);
 	    getClient().getInflux().write(getClient().getConfiguration().getDatabase(),
-		    getAssignmentSpecificRetentionPolicy(context), builder.build());
+		    getAssignmentSpecificRetentionPolicy(context, DeviceEventType.CommandInvocation), builder.build());
 	    result.add(ci);
 	}
 	return result;
@@ -340,7 +454,7 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     public ISearchResults<IDeviceCommandInvocation> listDeviceCommandInvocationsForIndex(DeviceEventIndex index,
 	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
 	return InfluxDbDeviceEvent.searchByIndex(index, entityIds, DeviceEventType.CommandInvocation, criteria,
-		getClient(), IDeviceCommandInvocation.class);
+		getClient(), getSchema(), IDeviceCommandInvocation.class);
     }
 
     /*
@@ -350,8 +464,9 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     @Override
     public ISearchResults<IDeviceCommandResponse> listDeviceCommandInvocationResponses(UUID invocationId)
 	    throws SiteWhereException {
+	String collection = getSchema().getSource(DeviceEventType.CommandResponse);
 	return InfluxDbDeviceCommandResponse.getResponsesForInvocation(invocationId, getClient().getInflux(),
-		getClient().getConfiguration().getDatabase());
+		collection, getClient().getConfiguration().getDatabase());
     }
 
     /*
@@ -366,11 +481,11 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
 	for (IDeviceCommandResponseCreateRequest request : requests) {
 	    DeviceCommandResponse cr = DeviceEventManagementPersistence.deviceCommandResponseCreateLogic(context,
 		    request);
-	    Point.Builder builder = InfluxDbDeviceEvent.createBuilder();
+	    Point.Builder builder = getSchema().createBuilder(DeviceEventType.CommandResponse);
 	    InfluxDbDeviceCommandResponse.saveToBuilder(cr, builder);
 	    addUserDefinedTags(context, builder);
 	    getClient().getInflux().write(getClient().getConfiguration().getDatabase(),
-		    getAssignmentSpecificRetentionPolicy(context), builder.build());
+		    getAssignmentSpecificRetentionPolicy(context, DeviceEventType.CommandResponse), builder.build());
 	    result.add(cr);
 	}
 	return result;
@@ -386,7 +501,7 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     public ISearchResults<IDeviceCommandResponse> listDeviceCommandResponsesForIndex(DeviceEventIndex index,
 	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
 	return InfluxDbDeviceEvent.searchByIndex(index, entityIds, DeviceEventType.CommandResponse, criteria,
-		getClient(), IDeviceCommandResponse.class);
+		getClient(), getSchema(), IDeviceCommandResponse.class);
     }
 
     /*
@@ -400,11 +515,11 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
 	List<IDeviceStateChange> result = new ArrayList<>();
 	for (IDeviceStateChangeCreateRequest request : requests) {
 	    DeviceStateChange sc = DeviceEventManagementPersistence.deviceStateChangeCreateLogic(context, request);
-	    Point.Builder builder = InfluxDbDeviceEvent.createBuilder();
-	    InfluxDbDeviceStateChange.saveToBuilder(sc, builder);
+	    Point.Builder builder = getSchema().createBuilder(DeviceEventType.StateChange);
+	    InfluxDbDeviceStateChange.saveToBuilder(sc, builder, getSchema());
 	    addUserDefinedTags(context, builder);
 	    getClient().getInflux().write(getClient().getConfiguration().getDatabase(),
-		    getAssignmentSpecificRetentionPolicy(context), builder.build());
+		    getAssignmentSpecificRetentionPolicy(context, DeviceEventType.StateChange), builder.build());
 	    result.add(sc);
 	}
 	return result;
@@ -420,7 +535,7 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     public ISearchResults<IDeviceStateChange> listDeviceStateChangesForIndex(DeviceEventIndex index,
 	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
 	return InfluxDbDeviceEvent.searchByIndex(index, entityIds, DeviceEventType.StateChange, criteria, getClient(),
-		IDeviceStateChange.class);
+		getSchema(), IDeviceStateChange.class);
     }
 
     /**
@@ -449,4 +564,8 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
     public void setClient(InfluxDbClient client) {
 	this.client = client;
     }
+
+    public InfluxDbSchemaPlanner getSchema() {
+	return schema;
+    }
 }
\ No newline at end of file
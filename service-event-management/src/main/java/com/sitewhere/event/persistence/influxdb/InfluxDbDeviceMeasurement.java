@@ -16,12 +16,28 @@
 package com.sitewhere.event.persistence.influxdb;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.influxdb.dto.Point;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Result;
+import org.influxdb.dto.QueryResult.Series;
+import org.joda.time.format.ISODateTimeFormat;
 
+import com.sitewhere.event.persistence.aggregate.MeasurementBucket;
+import com.sitewhere.event.persistence.aggregate.MeasurementSeries;
+import com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
+import com.sitewhere.influxdb.InfluxDbClient;
 import com.sitewhere.rest.model.device.event.DeviceMeasurement;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventIndex;
+import com.sitewhere.spi.device.event.DeviceEventType;
 
 /**
  * Class for saving device measurement data to InfluxDB.
@@ -72,4 +88,117 @@ public class InfluxDbDeviceMeasurement {
 	builder.addField(MX_VALUE, event.getValue().doubleValue());
 	InfluxDbDeviceEvent.saveToBuilder(event, builder);
     }
+
+    /**
+     * Compute measurement rollups with InfluxDB time grouping. Since the
+     * measurement name is stored as a field rather than a tag, one statement is
+     * issued per name and all statements are sent in a single request.
+     * 
+     * @param index
+     * @param entityIds
+     * @param criteria
+     * @param client
+     * @param schema
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IMeasurementSeries> aggregateByIndex(DeviceEventIndex index, List<UUID> entityIds,
+	    IMeasurementAggregationCriteria criteria, InfluxDbClient client, InfluxDbSchemaPlanner schema)
+	    throws SiteWhereException {
+	String collection = schema.getSource(DeviceEventType.Measurement);
+	List<IMeasurementSeries> results = new ArrayList<>();
+	if (entityIds.isEmpty()) {
+	    return results;
+	}
+	String field = InfluxDbDeviceEvent.getFieldForIndex(index);
+	String where = " WHERE " + InfluxDbDeviceEvent.EVENT_TYPE + "='" + DeviceEventType.Measurement.name()
+		+ "' and " + InfluxDbDeviceEvent.buildInClause(index, entityIds) + " and time >= '"
+		+ ISODateTimeFormat.dateTime().print(criteria.getResolvedStartDate().getTime()) + "' and time <= '"
+		+ ISODateTimeFormat.dateTime().print(criteria.getResolvedEndDate().getTime()) + "'";
+	List<String> names = criteria.getMeasurementNames();
+	if (names == null || names.isEmpty()) {
+	    names = listMeasurementNames(collection, where, client);
+	}
+	if (names.isEmpty()) {
+	    return results;
+	}
+
+	long interval = criteria.getResolvedIntervalMs();
+	List<String> statements = new ArrayList<>();
+	for (String name : names) {
+	    statements.add("SELECT min(" + MX_VALUE + "), max(" + MX_VALUE + "), mean(" + MX_VALUE + "), count("
+		    + MX_VALUE + "), last(" + MX_VALUE + ") FROM " + collection + where
+		    + " and " + MX_NAME + "='" + escape(name) + "' GROUP BY time(" + interval + "ms), " + field
+		    + " fill(none)");
+	}
+	Query query = new Query(String.join("; ", statements), client.getConfiguration().getDatabase());
+	QueryResult response = client.getInflux().query(query, TimeUnit.MILLISECONDS);
+	InfluxDbDeviceEvent.handleError(response);
+
+	// Results are returned in statement order.
+	List<Result> perName = response.getResults();
+	for (int i = 0; i < perName.size() && i < names.size(); i++) {
+	    if (perName.get(i).getSeries() == null) {
+		continue;
+	    }
+	    for (Series series : perName.get(i).getSeries()) {
+		MeasurementSeries result = new MeasurementSeries();
+		result.setName(names.get(i));
+		result.setIntervalMs(interval);
+		result.setEntityId(InfluxDbDeviceEvent.convertUUID(series.getTags().get(field)));
+		for (List<Object> values : series.getValues()) {
+		    Map<String, Object> valueMap = InfluxDbDeviceEvent.getValueMap(series, values);
+		    MeasurementBucket bucket = new MeasurementBucket();
+		    bucket.setDate(InfluxDbDeviceEvent.parseDateField(valueMap, "time"));
+		    bucket.setMin(asDouble(valueMap.get("min")));
+		    bucket.setMax(asDouble(valueMap.get("max")));
+		    bucket.setAvg(asDouble(valueMap.get("mean")));
+		    bucket.setCount((long) asDouble(valueMap.get("count")));
+		    bucket.setLast(asDouble(valueMap.get("last")));
+		    result.getBuckets().add(bucket);
+		}
+		results.add(result);
+	    }
+	}
+	return results;
+    }
+
+    /**
+     * List distinct measurement names matching a where clause.
+     * 
+     * @param collection
+     * @param where
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static List<String> listMeasurementNames(String collection, String where, InfluxDbClient client)
+	    throws SiteWhereException {
+	Query query = new Query("SELECT DISTINCT(" + MX_NAME + ") FROM " + collection + where,
+		client.getConfiguration().getDatabase());
+	QueryResult response = client.getInflux().query(query);
+	InfluxDbDeviceEvent.handleError(response);
+	List<String> names = new ArrayList<>();
+	for (Result result : response.getResults()) {
+	    if (result.getSeries() != null) {
+		for (Series series : result.getSeries()) {
+		    for (List<Object> values : series.getValues()) {
+			Object name = InfluxDbDeviceEvent.getValueMap(series, values).get("distinct");
+			if (name != null) {
+			    names.add(name.toString());
+			}
+		    }
+		}
+	    }
+	}
+	return names;
+    }
+
+    protected static double asDouble(Object value) {
+	return (value instanceof Number) ? ((Number) value).doubleValue() : 0;
+    }
+
+    protected static String escape(String value) {
+	return value.replace("\\", "\\\\").replace("'", "\\'");
+    }
 }
\ No newline at end of file
@@ -74,11 +74,13 @@ public class InfluxDbDeviceStateChange {
      * 
      * @param event
      * @param builder
+     * @param schema
      * @throws SiteWhereException
      */
-    public static void saveToBuilder(DeviceStateChange event, Point.Builder builder) throws SiteWhereException {
-	builder.tag(STATE_CHANGE_ATTRIBUTE, event.getAttribute());
-	builder.tag(STATE_CHANGE_TYPE, event.getType());
+    public static void saveToBuilder(DeviceStateChange event, Point.Builder builder, InfluxDbSchemaPlanner schema)
+	    throws SiteWhereException {
+	schema.tag(builder, STATE_CHANGE_ATTRIBUTE, event.getAttribute());
+	schema.tag(builder, STATE_CHANGE_TYPE, event.getType());
 	if (event.getPreviousState() != null) {
 	    builder.addField(PREVIOUS_VALUE, event.getPreviousState());
 	}
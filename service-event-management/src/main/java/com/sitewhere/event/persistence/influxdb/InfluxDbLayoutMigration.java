@@ -0,0 +1,283 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.influxdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.influxdb.dto.Point;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Result;
+import org.influxdb.dto.QueryResult.Series;
+import org.joda.time.format.ISODateTimeFormat;
+
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupTier;
+import com.sitewhere.influxdb.InfluxDbClient;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventType;
+
+/**
+ * Copies data written by earlier versions into the current layout so that it
+ * remains visible. Events kept in the default retention policy are copied into
+ * the measurement and policy for their type one day at a time, newest first,
+ * and rollups are copied into the rollup policy. Copies overwrite points with
+ * the same series and time, so an interrupted migration can simply be resumed.
+ * Source data is left in place since the default policy belongs to the user.
+ * Progress is kept in the rollup policy and rewritten on each run so that it
+ * does not expire.
+ */
+public class InfluxDbLayoutMigration {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(InfluxDbLayoutMigration.class);
+
+    /** Measurement holding migration progress */
+    public static final String PROGRESS_COLLECTION = "sw_layout_migration";
+
+    /** Tag holding the migrated data set */
+    public static final String PROGRESS_DATA_SET = "dataset";
+
+    /** Field holding the time before which data has not been copied */
+    public static final String FIELD_BEFORE = "before";
+
+    /** Field indicating copying is complete */
+    public static final String FIELD_DONE = "done";
+
+    /** Data set name for rollups */
+    private static final String ROLLUPS_DATA_SET = "rollups";
+
+    /** Number of milliseconds copied by each statement */
+    private static final long CHUNK_MS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Copy rollups written to the default retention policy into the rollup
+     * policy. Runs before the rollup processor reads its coverage marker, which
+     * earlier versions also kept with the rollups.
+     * 
+     * @param client
+     * @throws SiteWhereException
+     */
+    public static void migrateRollups(InfluxDbClient client) throws SiteWhereException {
+	Progress progress = getProgress(ROLLUPS_DATA_SET, client);
+	if (progress.isDone()) {
+	    setProgress(ROLLUPS_DATA_SET, 0, true, client);
+	    return;
+	}
+	String legacy = client.getConfiguration().getRetention();
+	for (MeasurementRollupTier tier : MeasurementRollupTier.values()) {
+	    String collection = InfluxDbMeasurementRollup.getCollection(tier);
+	    InfluxDbRetention.execute("SELECT * INTO "
+		    + InfluxDbSchemaPlanner.qualify(InfluxDbRetention.ROLLUP_RETENTION_POLICY, collection) + " FROM "
+		    + InfluxDbSchemaPlanner.qualify(legacy, collection) + " GROUP BY *", client);
+	}
+	setProgress(ROLLUPS_DATA_SET, 0, true, client);
+	LOGGER.info(String.format("Copied measurement rollups from retention policy '%s'. Measurements named '%s*' "
+		+ "in that policy are no longer used.", legacy, InfluxDbMeasurementRollup.COLLECTION_PREFIX));
+    }
+
+    /**
+     * Copy events written to the default retention policy into the measurement
+     * and policy for their type. Events older than the retention for their type
+     * are not copied.
+     * 
+     * @param client
+     * @param schema
+     * @throws SiteWhereException
+     */
+    public static void migrateEvents(InfluxDbClient client, InfluxDbSchemaPlanner schema) throws SiteWhereException {
+	if (!schema.isSplitByType()) {
+	    return;
+	}
+	String legacy = client.getConfiguration().getRetention();
+	for (DeviceEventType type : DeviceEventType.values()) {
+	    Progress progress = getProgress(type.name(), client);
+	    if (progress.isDone()) {
+		setProgress(type.name(), 0, true, client);
+		continue;
+	    }
+
+	    // Earlier versions used one measurement or one per type in the default policy.
+	    String sources = InfluxDbSchemaPlanner.qualify(legacy, InfluxDbDeviceEvent.COLLECTION_EVENTS) + ","
+		    + InfluxDbSchemaPlanner.qualify(legacy, schema.getCollection(type));
+	    String where = " WHERE " + InfluxDbDeviceEvent.EVENT_TYPE + "='" + type.name() + "'";
+	    Long oldest = getEventTime("first", sources, where, client);
+	    Long before = (progress.getBefore() > 0) ? Long.valueOf(progress.getBefore())
+		    : getEventTime("last", sources, where, client);
+	    int days = schema.getRetention().getRetentionDays(type);
+	    if (oldest != null && days > 0) {
+		oldest = Math.max(oldest, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+	    }
+	    if (oldest == null || before == null) {
+		setProgress(type.name(), 0, true, client);
+		continue;
+	    }
+	    if (progress.getBefore() == 0) {
+		before = before + 1;
+	    }
+	    long copied = 0;
+	    while (before > oldest) {
+		if (Thread.currentThread().isInterrupted()) {
+		    return;
+		}
+		long start = Math.max(oldest, Math.floorDiv(before - 1, CHUNK_MS) * CHUNK_MS);
+		InfluxDbRetention.execute("SELECT * INTO " + schema.getSource(type) + " FROM " + sources + where
+			+ " AND time >= '" + ISODateTimeFormat.dateTime().print(start) + "' AND time < '"
+			+ ISODateTimeFormat.dateTime().print(before) + "' GROUP BY *", client);
+		before = start;
+		copied++;
+		setProgress(type.name(), before, false, client);
+	    }
+	    setProgress(type.name(), 0, true, client);
+	    LOGGER.info(String.format("Copied %d days of %s events from retention policy '%s'.", copied, type.name(),
+		    legacy));
+	}
+    }
+
+    /**
+     * Get time of the first or last legacy event matching a clause.
+     * 
+     * @param selector
+     * @param sources
+     * @param where
+     * @param client
+     * @return time or null if there are no events
+     * @throws SiteWhereException
+     */
+    protected static Long getEventTime(String selector, String sources, String where, InfluxDbClient client)
+	    throws SiteWhereException {
+	Long time = null;
+	for (Map<String, Object> values : query(
+		"SELECT " + selector + "(" + InfluxDbDeviceEvent.EVENT_ID + ") FROM " + sources + where, client)) {
+	    Object value = values.get("time");
+	    if (value != null) {
+		long current = (long) InfluxDbDeviceMeasurement.asDouble(value);
+		if (time == null || ("first".equals(selector) ? current < time : current > time)) {
+		    time = current;
+		}
+	    }
+	}
+	return time;
+    }
+
+    /**
+     * Get migration progress for a data set.
+     * 
+     * @param dataSet
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static Progress getProgress(String dataSet, InfluxDbClient client) throws SiteWhereException {
+	Progress progress = new Progress();
+	for (Map<String, Object> values : query("SELECT last(" + FIELD_BEFORE + ") AS " + FIELD_BEFORE + ", last("
+		+ FIELD_DONE + ") AS " + FIELD_DONE + " FROM " + getProgressSource(client) + " WHERE "
+		+ PROGRESS_DATA_SET + "='" + dataSet + "'", client)) {
+	    Object before = values.get(FIELD_BEFORE);
+	    progress.setBefore((before != null) ? (long) InfluxDbDeviceMeasurement.asDouble(before) : 0);
+	    progress.setDone(Boolean.TRUE.equals(values.get(FIELD_DONE)));
+	}
+	return progress;
+    }
+
+    /**
+     * Record migration progress for a data set. The point is written at the
+     * current time so that it does not expire with the data it describes.
+     * 
+     * @param dataSet
+     * @param before
+     * @param done
+     * @param client
+     * @throws SiteWhereException
+     */
+    protected static void setProgress(String dataSet, long before, boolean done, InfluxDbClient client)
+	    throws SiteWhereException {
+	client.getInflux().write(client.getConfiguration().getDatabase(), InfluxDbRetention.ROLLUP_RETENTION_POLICY,
+		Point.measurement(PROGRESS_COLLECTION).time(System.currentTimeMillis(), TimeUnit.MILLISECONDS)
+			.tag(PROGRESS_DATA_SET, dataSet).addField(FIELD_BEFORE, before).addField(FIELD_DONE, done)
+			.build());
+    }
+
+    /**
+     * Get qualified measurement holding migration progress.
+     * 
+     * @param client
+     * @return
+     */
+    protected static String getProgressSource(InfluxDbClient client) {
+	return InfluxDbSchemaPlanner.qualify(InfluxDbRetention.ROLLUP_RETENTION_POLICY, PROGRESS_COLLECTION);
+    }
+
+    /**
+     * Execute a query and return rows as value maps.
+     * 
+     * @param statement
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static List<Map<String, Object>> query(String statement, InfluxDbClient client)
+	    throws SiteWhereException {
+	QueryResult response = client.getInflux()
+		.query(new Query(statement, client.getConfiguration().getDatabase()), TimeUnit.MILLISECONDS);
+	InfluxDbDeviceEvent.handleError(response);
+	List<Map<String, Object>> rows = new ArrayList<>();
+	for (Result result : response.getResults()) {
+	    if (result.getSeries() == null) {
+		continue;
+	    }
+	    for (Series series : result.getSeries()) {
+		for (List<Object> values : series.getValues()) {
+		    rows.add(InfluxDbDeviceEvent.getValueMap(series, values));
+		}
+	    }
+	}
+	return rows;
+    }
+
+    /**
+     * Migration progress for a data set.
+     */
+    protected static class Progress {
+
+	/** Time before which data has not been copied (zero if not started) */
+	private long before;
+
+	/** Indicates copying is complete */
+	private boolean done;
+
+	public long getBefore() {
+	    return before;
+	}
+
+	public void setBefore(long before) {
+	    this.before = before;
+	}
+
+	public boolean isDone() {
+	    return done;
+	}
+
+	public void setDone(boolean done) {
+	    this.done = done;
+	}
+    }
+}
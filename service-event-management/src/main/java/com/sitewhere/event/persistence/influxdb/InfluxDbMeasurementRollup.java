@@ -0,0 +1,220 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.influxdb;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Result;
+import org.influxdb.dto.QueryResult.Series;
+import org.joda.time.format.ISODateTimeFormat;
+
+import com.sitewhere.event.persistence.aggregate.MeasurementRollup;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupTier;
+import com.sitewhere.influxdb.InfluxDbClient;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventIndex;
+
+/**
+ * Class for saving measurement rollups to InfluxDB. Each tier is kept in its
+ * own collection with assignment and measurement name as tags, so a point for
+ * the same bucket replaces the previous one. Rollups are written to their own
+ * retention policy so they can outlive raw events.
+ */
+public class InfluxDbMeasurementRollup {
+
+    /** Prefix for rollup collections */
+    public static final String COLLECTION_PREFIX = "mxrollup_";
+
+    /** Minimum value field */
+    public static final String FIELD_MIN = "rmin";
+
+    /** Maximum value field */
+    public static final String FIELD_MAX = "rmax";
+
+    /** Sum of values field */
+    public static final String FIELD_SUM = "rsum";
+
+    /** Number of values field */
+    public static final String FIELD_COUNT = "rcount";
+
+    /** Most recent value field */
+    public static final String FIELD_LAST = "rlast";
+
+    /** Event date of most recent value field */
+    public static final String FIELD_LAST_DATE = "rlastdate";
+
+    /** Collection holding date from which rollups are maintained */
+    public static final String COVERAGE_COLLECTION = "mxrollup_coverage";
+
+    /** Coverage start field */
+    public static final String FIELD_COVERAGE_START = "start";
+
+    /**
+     * Get collection name for a tier.
+     * 
+     * @param tier
+     * @return
+     */
+    public static String getCollection(MeasurementRollupTier tier) {
+	return COLLECTION_PREFIX + tier.getSuffix();
+    }
+
+    /**
+     * Save rollups for a tier in a single batch.
+     * 
+     * @param tier
+     * @param rollups
+     * @param client
+     * @throws SiteWhereException
+     */
+    public static void save(MeasurementRollupTier tier, List<MeasurementRollup> rollups, InfluxDbClient client)
+	    throws SiteWhereException {
+	BatchPoints batch = BatchPoints.database(client.getConfiguration().getDatabase())
+		.retentionPolicy(InfluxDbRetention.ROLLUP_RETENTION_POLICY).build();
+	for (MeasurementRollup rollup : rollups) {
+	    Date lastDate = (rollup.getLastDate() != null) ? rollup.getLastDate() : rollup.getDate();
+	    batch.point(Point.measurement(getCollection(tier)).time(rollup.getDate().getTime(), TimeUnit.MILLISECONDS)
+		    .tag(InfluxDbDeviceEvent.EVENT_ASSIGNMENT, rollup.getAssignmentId().toString())
+		    .tag(InfluxDbDeviceMeasurement.MX_NAME, rollup.getName()).addField(FIELD_MIN, rollup.getMin())
+		    .addField(FIELD_MAX, rollup.getMax()).addField(FIELD_SUM, rollup.getSum())
+		    .addField(FIELD_COUNT, rollup.getCount()).addField(FIELD_LAST, rollup.getLast())
+		    .addField(FIELD_LAST_DATE, lastDate.getTime()).build());
+	}
+	client.getInflux().write(batch);
+    }
+
+    /**
+     * List rollups for a tier with bucket start in the given range.
+     * 
+     * @param tier
+     * @param assignmentIds
+     * @param names
+     * @param startDate
+     * @param endDate
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<MeasurementRollup> list(MeasurementRollupTier tier, List<UUID> assignmentIds,
+	    List<String> names, Date startDate, Date endDate, InfluxDbClient client) throws SiteWhereException {
+	List<MeasurementRollup> results = new ArrayList<>();
+	if (assignmentIds.isEmpty()) {
+	    return results;
+	}
+	StringBuilder query = new StringBuilder();
+	query.append("SELECT * FROM \"" + InfluxDbRetention.ROLLUP_RETENTION_POLICY + "\"." + getCollection(tier)
+		+ " WHERE " + InfluxDbDeviceEvent.buildInClause(DeviceEventIndex.Assignment, assignmentIds));
+	if (names != null && !names.isEmpty()) {
+	    List<String> clauses = new ArrayList<>();
+	    for (String name : names) {
+		clauses.add(InfluxDbDeviceMeasurement.MX_NAME + "='" + InfluxDbDeviceMeasurement.escape(name) + "'");
+	    }
+	    query.append(" and (" + String.join(" or ", clauses) + ")");
+	}
+	query.append(" and time >= '" + ISODateTimeFormat.dateTime().print(startDate.getTime()) + "' and time <= '"
+		+ ISODateTimeFormat.dateTime().print(endDate.getTime()) + "'");
+	QueryResult response = client.getInflux().query(
+		new Query(query.toString(), client.getConfiguration().getDatabase()), TimeUnit.MILLISECONDS);
+	InfluxDbDeviceEvent.handleError(response);
+
+	for (Result result : response.getResults()) {
+	    if (result.getSeries() == null) {
+		continue;
+	    }
+	    for (Series series : result.getSeries()) {
+		for (List<Object> values : series.getValues()) {
+		    results.add(parse(InfluxDbDeviceEvent.getValueMap(series, values)));
+		}
+	    }
+	}
+	return results;
+    }
+
+    /**
+     * Get date from which rollups are maintained. The date is kept as a field so
+     * that the point itself can be written at the current time and stay within
+     * the rollup retention policy.
+     * 
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    public static Date getCoverageStart(InfluxDbClient client) throws SiteWhereException {
+	QueryResult response = client.getInflux().query(new Query("SELECT last(" + FIELD_COVERAGE_START + ") FROM \""
+		+ InfluxDbRetention.ROLLUP_RETENTION_POLICY + "\"." + COVERAGE_COLLECTION,
+		client.getConfiguration().getDatabase()), TimeUnit.MILLISECONDS);
+	InfluxDbDeviceEvent.handleError(response);
+	for (Result result : response.getResults()) {
+	    if (result.getSeries() == null) {
+		continue;
+	    }
+	    for (Series series : result.getSeries()) {
+		for (List<Object> values : series.getValues()) {
+		    Object start = InfluxDbDeviceEvent.getValueMap(series, values).get("last");
+		    if (start != null) {
+			return new Date((long) InfluxDbDeviceMeasurement.asDouble(start));
+		    }
+		}
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Record date from which rollups are maintained.
+     * 
+     * @param date
+     * @param client
+     * @throws SiteWhereException
+     */
+    public static void setCoverageStart(Date date, InfluxDbClient client) throws SiteWhereException {
+	BatchPoints batch = BatchPoints.database(client.getConfiguration().getDatabase())
+		.retentionPolicy(InfluxDbRetention.ROLLUP_RETENTION_POLICY).build();
+	batch.point(Point.measurement(COVERAGE_COLLECTION).time(System.currentTimeMillis(), TimeUnit.MILLISECONDS)
+		.addField(FIELD_COVERAGE_START, date.getTime()).build());
+	client.getInflux().write(batch);
+    }
+
+    /**
+     * Parse rollup from a value map.
+     * 
+     * @param values
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static MeasurementRollup parse(Map<String, Object> values) throws SiteWhereException {
+	MeasurementRollup rollup = new MeasurementRollup(
+		InfluxDbDeviceEvent.convertUUID((String) values.get(InfluxDbDeviceEvent.EVENT_ASSIGNMENT)),
+		(String) values.get(InfluxDbDeviceMeasurement.MX_NAME),
+		InfluxDbDeviceEvent.parseDateField(values, "time"));
+	rollup.setMin(InfluxDbDeviceMeasurement.asDouble(values.get(FIELD_MIN)));
+	rollup.setMax(InfluxDbDeviceMeasurement.asDouble(values.get(FIELD_MAX)));
+	rollup.setSum(InfluxDbDeviceMeasurement.asDouble(values.get(FIELD_SUM)));
+	rollup.setCount((long) InfluxDbDeviceMeasurement.asDouble(values.get(FIELD_COUNT)));
+	rollup.setLast(InfluxDbDeviceMeasurement.asDouble(values.get(FIELD_LAST)));
+	rollup.setLastDate(new Date((long) InfluxDbDeviceMeasurement.asDouble(values.get(FIELD_LAST_DATE))));
+	return rollup;
+    }
+}
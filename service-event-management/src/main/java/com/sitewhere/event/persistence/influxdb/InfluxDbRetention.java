@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.influxdb;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Result;
+import org.influxdb.dto.QueryResult.Series;
+
+import com.sitewhere.event.configuration.EventRetentionConfiguration;
+import com.sitewhere.influxdb.InfluxDbClient;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventType;
+
+/**
+ * Manages the InfluxDB retention policies owned by SiteWhere. When events are
+ * split by type, each type is written to its own policy with a duration equal
+ * to the retention for the type, so expired events are removed by dropping
+ * whole shards rather than by deletes. Measurement rollups are written to a
+ * separate policy so that they can be kept long after raw events have expired.
+ * The default policy for the database is never changed.
+ */
+public class InfluxDbRetention {
+
+    /** Retention policy for measurement rollups */
+    public static final String ROLLUP_RETENTION_POLICY = "sw_rollups";
+
+    /** Duration reported by InfluxDB for policies that never expire */
+    private static final String INFINITE_DURATION = "0s";
+
+    /** Number of hours in a day */
+    private static final int HOURS_PER_DAY = 24;
+
+    /**
+     * Create or update the retention policies owned by SiteWhere.
+     * 
+     * @param retention
+     * @param client
+     * @param schema
+     * @throws SiteWhereException
+     */
+    public static void apply(EventRetentionConfiguration retention, InfluxDbClient client,
+	    InfluxDbSchemaPlanner schema) throws SiteWhereException {
+	Map<String, String> durations = listPolicyDurations(client);
+	ensurePolicy(ROLLUP_RETENTION_POLICY, retention.getRollupDays(), durations, client);
+	if (schema.isSplitByType()) {
+	    for (DeviceEventType type : DeviceEventType.values()) {
+		ensurePolicy(schema.getRetentionPolicy(type), retention.getRetentionDays(type), durations, client);
+	    }
+	}
+    }
+
+    /**
+     * Create or alter a retention policy so that it has the given duration.
+     * 
+     * @param name
+     * @param days
+     * @param durations
+     * @param client
+     * @throws SiteWhereException
+     */
+    protected static void ensurePolicy(String name, int days, Map<String, String> durations, InfluxDbClient client)
+	    throws SiteWhereException {
+	String duration = (days > 0) ? (days * HOURS_PER_DAY) + "h0m0s" : INFINITE_DURATION;
+	String existing = durations.get(name);
+	if (duration.equals(existing)) {
+	    return;
+	}
+	String settings = " ON \"" + client.getConfiguration().getDatabase() + "\" DURATION "
+		+ ((days > 0) ? days + "d" : "INF") + " REPLICATION 1 SHARD DURATION " + getShardDuration(days);
+	if (existing == null) {
+	    execute("CREATE RETENTION POLICY \"" + name + "\"" + settings, client);
+	} else {
+	    execute("ALTER RETENTION POLICY \"" + name + "\"" + settings, client);
+	}
+	durations.put(name, duration);
+    }
+
+    /**
+     * Get shard group duration recommended for a policy duration.
+     * 
+     * @param days
+     * @return
+     */
+    protected static String getShardDuration(int days) {
+	if (days > 0 && days < 2) {
+	    return "1h";
+	} else if (days > 0 && days <= 180) {
+	    return "1d";
+	}
+	return "7d";
+    }
+
+    /**
+     * Get durations of existing retention policies by name.
+     * 
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static Map<String, String> listPolicyDurations(InfluxDbClient client) throws SiteWhereException {
+	Map<String, String> durations = new HashMap<>();
+	QueryResult response = execute(
+		"SHOW RETENTION POLICIES ON \"" + client.getConfiguration().getDatabase() + "\"", client);
+	for (Result result : response.getResults()) {
+	    if (result.getSeries() == null) {
+		continue;
+	    }
+	    for (Series series : result.getSeries()) {
+		for (List<Object> values : series.getValues()) {
+		    Map<String, Object> valueMap = InfluxDbDeviceEvent.getValueMap(series, values);
+		    durations.put((String) valueMap.get("name"), (String) valueMap.get("duration"));
+		}
+	    }
+	}
+	return durations;
+    }
+
+    /**
+     * Execute a statement against the configured database.
+     * 
+     * @param statement
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static QueryResult execute(String statement, InfluxDbClient client) throws SiteWhereException {
+	QueryResult response = client.getInflux()
+		.query(new Query(statement, client.getConfiguration().getDatabase()));
+	InfluxDbDeviceEvent.handleError(response);
+	for (Result result : response.getResults()) {
+	    if (result.getError() != null) {
+		throw new SiteWhereException("Error executing '" + statement + "': " + result.getError());
+	    }
+	}
+	return response;
+    }
+}
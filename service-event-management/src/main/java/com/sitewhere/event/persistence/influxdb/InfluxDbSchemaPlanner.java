@@ -0,0 +1,416 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.influxdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.dto.Point;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Result;
+import org.influxdb.dto.QueryResult.Series;
+
+import com.sitewhere.event.configuration.EventRetentionConfiguration;
+import com.sitewhere.event.configuration.InfluxDbSchemaConfiguration;
+import com.sitewhere.event.configuration.InfluxDbSchemaConfiguration.TagOverflowAction;
+import com.sitewhere.influxdb.InfluxDbClient;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventType;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
+
+import io.prometheus.client.Counter;
+
+/**
+ * Decides how events are laid out when written to InfluxDB. Chooses the
+ * measurement and retention policy for each event type and whether optional
+ * values are written as tags or fields. Event types are kept apart whenever
+ * they are configured that way or have limited retention, so each type is
+ * expired by dropping shards of its own policy. Each optional tag key may take
+ * a limited number of distinct values; once a key exceeds the budget it is
+ * demoted to a field (or writes using it are rejected). The budget is counted
+ * from the tag values stored in InfluxDB, so it is shared by all replicas and
+ * kept across restarts. Series cardinality for the database is checked
+ * periodically and all optional tags are demoted while it is over budget, so
+ * series growth depends only on the number of devices.
+ */
+public class InfluxDbSchemaPlanner extends TenantEngineLifecycleComponent {
+
+    /** Counter for optional tag values written as fields */
+    private static final Counter TAGS_DEMOTED = TenantEngineLifecycleComponent
+	    .createCounterMetric("influxdb_tag_demoted_count", "Count of tag values written as fields");
+
+    /** Counter for writes rejected because of tag cardinality */
+    private static final Counter TAGS_REJECTED = TenantEngineLifecycleComponent
+	    .createCounterMetric("influxdb_tag_rejected_count", "Count of writes rejected for tag cardinality");
+
+    /** Prefix for retention policies that hold a single event type */
+    public static final String EVENT_RETENTION_POLICY_PREFIX = "sw_events_";
+
+    /** Tags written for every event of a type, which are not subject to the budget */
+    private static final Set<String> CORE_TAGS = new HashSet<>(Arrays.asList(InfluxDbDeviceEvent.EVENT_TYPE,
+	    InfluxDbDeviceEvent.EVENT_DEVICE, InfluxDbDeviceEvent.EVENT_ASSIGNMENT, InfluxDbDeviceEvent.EVENT_CUSTOMER,
+	    InfluxDbDeviceEvent.EVENT_AREA, InfluxDbDeviceEvent.EVENT_ASSET, InfluxDbDeviceAlert.ALERT_SOURCE,
+	    InfluxDbDeviceAlert.ALERT_LEVEL, InfluxDbDeviceCommandInvocation.CMD_INITIATOR,
+	    InfluxDbDeviceCommandInvocation.CMD_TARGET));
+
+    /** Fraction of series budget cardinality must fall below to restore tags */
+    private static final double SERIES_RECOVERY_RATIO = 0.9;
+
+    /** Client */
+    private InfluxDbClient client;
+
+    /** Schema settings */
+    private InfluxDbSchemaConfiguration configuration;
+
+    /** Retention settings */
+    private EventRetentionConfiguration retention;
+
+    /** Budget for optional tags */
+    private InfluxDbTagBudget tagBudget;
+
+    /** Indicates series cardinality is over budget */
+    private volatile boolean seriesOverBudget = false;
+
+    /** Last series cardinality reported by InfluxDB */
+    private volatile long seriesCardinality = -1;
+
+    /** Runs cardinality checks */
+    private ScheduledExecutorService executor;
+
+    public InfluxDbSchemaPlanner(InfluxDbClient client, InfluxDbSchemaConfiguration configuration,
+	    EventRetentionConfiguration retention) {
+	super(LifecycleComponentType.Other);
+	this.client = client;
+	this.configuration = (configuration != null) ? configuration : new InfluxDbSchemaConfiguration();
+	this.retention = (retention != null) ? retention : new EventRetentionConfiguration();
+	this.tagBudget = new InfluxDbTagBudget(this.configuration.getMaxTagKeys(),
+		this.configuration.getMaxTagValues());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Load tag budget before any events are written.
+	try {
+	    checkTagCardinality();
+	} catch (SiteWhereException e) {
+	    getLogger().warn("Unable to check InfluxDB tag cardinality.", e);
+	}
+	long interval = Math.max(1, getConfiguration().getCardinalityCheckMinutes());
+	this.executor = Executors.newSingleThreadScheduledExecutor(new CardinalityThreadFactory());
+	executor.scheduleWithFixedDelay(() -> {
+	    try {
+		checkSeriesCardinality();
+		checkTagCardinality();
+	    } catch (Throwable t) {
+		getLogger().warn("Unable to check InfluxDB cardinality.", t);
+	    }
+	}, 0, interval, TimeUnit.MINUTES);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (executor != null) {
+	    executor.shutdownNow();
+	}
+    }
+
+    /**
+     * Create a point builder for an event type.
+     * 
+     * @param type
+     * @return
+     */
+    public Point.Builder createBuilder(DeviceEventType type) {
+	return Point.measurement(getCollection(type));
+    }
+
+    /**
+     * Indicates whether each event type has its own measurement and retention
+     * policy.
+     * 
+     * @return
+     */
+    public boolean isSplitByType() {
+	return getConfiguration().isMeasurementPerEventType() || getRetention().isRetentionLimited();
+    }
+
+    /**
+     * Get measurement events of the given type are written to.
+     * 
+     * @param type
+     * @return
+     */
+    public String getCollection(DeviceEventType type) {
+	if (isSplitByType()) {
+	    return InfluxDbDeviceEvent.COLLECTION_EVENTS + "_" + type.name().toLowerCase();
+	}
+	return InfluxDbDeviceEvent.COLLECTION_EVENTS;
+    }
+
+    /**
+     * Get retention policy events of the given type are written to.
+     * 
+     * @param type
+     * @return
+     */
+    public String getRetentionPolicy(DeviceEventType type) {
+	if (isSplitByType()) {
+	    return EVENT_RETENTION_POLICY_PREFIX + type.name().toLowerCase();
+	}
+	return getClient().getConfiguration().getRetention();
+    }
+
+    /**
+     * Get qualified measurement events of the given type are read from.
+     * 
+     * @param type
+     * @return
+     */
+    public String getSource(DeviceEventType type) {
+	return qualify(getRetentionPolicy(type), getCollection(type));
+    }
+
+    /**
+     * Get qualified measurements that hold events of all types.
+     * 
+     * @return
+     */
+    public String getSources() {
+	if (!isSplitByType()) {
+	    return getSource(DeviceEventType.Measurement);
+	}
+	List<String> sources = new ArrayList<>();
+	for (DeviceEventType type : DeviceEventType.values()) {
+	    sources.add(getSource(type));
+	}
+	return String.join(",", sources);
+    }
+
+    /**
+     * Get measurement qualified by retention policy.
+     * 
+     * @param policy
+     * @param collection
+     * @return
+     */
+    public static String qualify(String policy, String collection) {
+	return "\"" + policy + "\".\"" + collection + "\"";
+    }
+
+    /**
+     * Add an optional tag, writing it as a field if the key is over budget.
+     * 
+     * @param builder
+     * @param key
+     * @param value
+     * @throws SiteWhereException
+     */
+    public void tag(Point.Builder builder, String key, String value) throws SiteWhereException {
+	if (value == null) {
+	    return;
+	}
+	if (isSeriesOverBudget() || !admit(key, value)) {
+	    overflow(builder, key, value);
+	    return;
+	}
+	builder.tag(key, value);
+    }
+
+    /**
+     * Record a tag value against the budget for its key.
+     * 
+     * @param key
+     * @param value
+     * @return true if the value may be written as a tag
+     */
+    protected boolean admit(String key, String value) {
+	return getTagBudget().admit(key, value);
+    }
+
+    /**
+     * Handle a tag value that is over budget.
+     * 
+     * @param builder
+     * @param key
+     * @param value
+     * @throws SiteWhereException
+     */
+    protected void overflow(Point.Builder builder, String key, String value) throws SiteWhereException {
+	if (getConfiguration().getOverflowAction() == TagOverflowAction.Reject) {
+	    TAGS_REJECTED.labels(buildLabels()).inc();
+	    throw new SiteWhereException(
+		    String.format("Event rejected since InfluxDB tag '%s' exceeds the cardinality budget.", key));
+	}
+	TAGS_DEMOTED.labels(buildLabels()).inc();
+	builder.addField(InfluxDbDeviceEvent.DEMOTED_TAG_PREFIX + key, value);
+    }
+
+    /**
+     * Read series cardinality for the database and demote optional tags while
+     * it is over budget.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void checkSeriesCardinality() throws SiteWhereException {
+	QueryResult response = getClient().getInflux()
+		.query(new Query("SHOW SERIES CARDINALITY", getClient().getConfiguration().getDatabase()));
+	InfluxDbDeviceEvent.handleError(response);
+	long cardinality = 0;
+	for (Result result : response.getResults()) {
+	    if (result.getSeries() != null) {
+		for (Series series : result.getSeries()) {
+		    for (List<Object> values : series.getValues()) {
+			if (!values.isEmpty() && values.get(0) instanceof Number) {
+			    cardinality += ((Number) values.get(0)).longValue();
+			}
+		    }
+		}
+	    }
+	}
+	this.seriesCardinality = cardinality;
+	long budget = getConfiguration().getMaxSeries();
+	if (!seriesOverBudget && cardinality > budget) {
+	    this.seriesOverBudget = true;
+	    getLogger().warn(String.format(
+		    "InfluxDB series cardinality %d exceeds budget of %d. Optional tags will be written as fields.",
+		    cardinality, budget));
+	} else if (seriesOverBudget && cardinality < budget * SERIES_RECOVERY_RATIO) {
+	    this.seriesOverBudget = false;
+	    getLogger().info(String.format(
+		    "InfluxDB series cardinality %d is within budget. Optional tags will be written as tags.",
+		    cardinality));
+	}
+    }
+
+    /**
+     * Refresh the tag budget from the optional tag values stored for events.
+     * Values are listed up to one more than the budget for each key.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void checkTagCardinality() throws SiteWhereException {
+	String database = getClient().getConfiguration().getDatabase();
+	List<String> keys = new ArrayList<>();
+	for (List<Object> row : rows(getClient().getInflux()
+		.query(new Query("SHOW TAG KEYS FROM " + getSources(), database)).getResults())) {
+	    String key = (String) row.get(0);
+	    if (!CORE_TAGS.contains(key) && !keys.contains(key)) {
+		keys.add(key);
+	    }
+	}
+	Map<String, Set<String>> stored = new HashMap<>();
+	if (!keys.isEmpty()) {
+	    List<String> statements = new ArrayList<>();
+	    for (String key : keys) {
+		statements.add("SHOW TAG VALUES FROM " + getSources() + " WITH KEY = \"" + key + "\" LIMIT "
+			+ (getConfiguration().getMaxTagValues() + 1));
+	    }
+	    List<Result> results = getClient().getInflux().query(new Query(String.join(";", statements), database))
+		    .getResults();
+	    for (int i = 0; i < keys.size() && i < results.size(); i++) {
+		Set<String> values = new HashSet<>();
+		for (List<Object> row : rows(Collections.singletonList(results.get(i)))) {
+		    values.add((String) row.get(1));
+		}
+		stored.put(keys.get(i), values);
+	    }
+	}
+	getTagBudget().refresh(stored);
+    }
+
+    /**
+     * Get rows of all series in query results.
+     * 
+     * @param results
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static List<List<Object>> rows(List<Result> results) throws SiteWhereException {
+	List<List<Object>> rows = new ArrayList<>();
+	for (Result result : results) {
+	    if (result.getError() != null) {
+		throw new SiteWhereException("InfluxDB query failed: " + result.getError());
+	    }
+	    if (result.getSeries() != null) {
+		for (Series series : result.getSeries()) {
+		    rows.addAll(series.getValues());
+		}
+	    }
+	}
+	return rows;
+    }
+
+    /**
+     * Used for naming cardinality check thread.
+     */
+    private class CardinalityThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "InfluxDB Cardinality");
+	}
+    }
+
+    public boolean isSeriesOverBudget() {
+	return seriesOverBudget;
+    }
+
+    public long getSeriesCardinality() {
+	return seriesCardinality;
+    }
+
+    public Set<String> getDemotedKeys() {
+	return getTagBudget().getDemotedKeys();
+    }
+
+    protected InfluxDbTagBudget getTagBudget() {
+	return tagBudget;
+    }
+
+    protected InfluxDbClient getClient() {
+	return client;
+    }
+
+    protected InfluxDbSchemaConfiguration getConfiguration() {
+	return configuration;
+    }
+
+    protected EventRetentionConfiguration getRetention() {
+	return retention;
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.influxdb;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Limits the number of optional tag keys and the number of distinct values for
+ * each key. Counts are refreshed from the values InfluxDB already holds, so
+ * every replica works from the same budget and it survives restarts. Between
+ * refreshes each replica also counts the values it has admitted itself, so the
+ * budget can only be exceeded by values that replicas admit concurrently
+ * within one refresh interval. A key over budget is demoted and stays demoted
+ * while InfluxDB holds too many values for it.
+ */
+public class InfluxDbTagBudget {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(InfluxDbTagBudget.class);
+
+    /** Maximum number of optional tag keys */
+    private int maxKeys;
+
+    /** Maximum distinct values for an optional tag key */
+    private int maxValues;
+
+    /** Distinct values known for each optional tag key */
+    private Map<String, Set<String>> tagValues = new ConcurrentHashMap<>();
+
+    /** Optional tag keys that exceeded the budget */
+    private Set<String> demotedKeys = ConcurrentHashMap.newKeySet();
+
+    public InfluxDbTagBudget(int maxKeys, int maxValues) {
+	this.maxKeys = maxKeys;
+	this.maxValues = maxValues;
+    }
+
+    /**
+     * Record a tag value against the budget for its key.
+     * 
+     * @param key
+     * @param value
+     * @return true if the value may be written as a tag
+     */
+    public boolean admit(String key, String value) {
+	if (getDemotedKeys().contains(key)) {
+	    return false;
+	}
+	Set<String> values = getTagValues().get(key);
+	if (values == null) {
+	    if (getTagValues().size() >= getMaxKeys()) {
+		demote(key, "too many optional tag keys");
+		return false;
+	    }
+	    values = getTagValues().computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+	}
+	if (values.contains(value)) {
+	    return true;
+	}
+	if (values.size() >= getMaxValues()) {
+	    demote(key, String.format("more than %d distinct values", getMaxValues()));
+	    return false;
+	}
+	values.add(value);
+	return true;
+    }
+
+    /**
+     * Refresh counts from the optional tag values held by InfluxDB. Values each
+     * key holds need only be listed up to one more than the budget. Values
+     * admitted since the last refresh that are not stored yet are counted
+     * again when next written.
+     * 
+     * @param stored
+     *            values by key for all optional tag keys in InfluxDB
+     */
+    public void refresh(Map<String, Set<String>> stored) {
+	getTagValues().keySet().retainAll(stored.keySet());
+	for (Map.Entry<String, Set<String>> entry : stored.entrySet()) {
+	    String key = entry.getKey();
+	    int count = entry.getValue().size();
+	    if (count > getMaxValues()) {
+		demote(key, String.format("%d distinct values stored", count));
+		continue;
+	    }
+	    if (getDemotedKeys().contains(key)) {
+		// Key was demoted on reaching the budget, so keep it demoted until values expire.
+		if (count >= getMaxValues()) {
+		    continue;
+		}
+		undemote(key);
+	    }
+	    Set<String> values = ConcurrentHashMap.newKeySet();
+	    values.addAll(entry.getValue());
+	    getTagValues().put(key, values);
+	}
+
+	// Keys demoted because there were too many keys are restored once there is room.
+	for (String key : getDemotedKeys()) {
+	    if (!stored.containsKey(key) && getTagValues().size() < getMaxKeys()) {
+		undemote(key);
+	    }
+	}
+    }
+
+    /**
+     * Stop writing a key as a tag.
+     * 
+     * @param key
+     * @param reason
+     */
+    protected void demote(String key, String reason) {
+	if (getDemotedKeys().add(key)) {
+	    getTagValues().remove(key);
+	    LOGGER.warn(String.format("InfluxDB tag '%s' is no longer written as a tag (%s).", key, reason));
+	}
+    }
+
+    /**
+     * Resume writing a key as a tag.
+     * 
+     * @param key
+     */
+    protected void undemote(String key) {
+	if (getDemotedKeys().remove(key)) {
+	    LOGGER.info(String.format("InfluxDB tag '%s' is within budget and will be written as a tag.", key));
+	}
+    }
+
+    public Set<String> getDemotedKeys() {
+	return demotedKeys;
+    }
+
+    protected Map<String, Set<String>> getTagValues() {
+	return tagValues;
+    }
+
+    protected int getMaxKeys() {
+	return maxKeys;
+    }
+
+    protected int getMaxValues() {
+	return maxValues;
+    }
+}
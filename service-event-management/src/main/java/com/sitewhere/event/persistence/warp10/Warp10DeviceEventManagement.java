@@ -16,13 +16,21 @@
 package com.sitewhere.event.persistence.warp10;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import com.google.inject.Inject;
 import com.sitewhere.event.persistence.DeviceEventManagementPersistence;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollup;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupTier;
 import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation;
+import com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria;
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
 import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.microservice.api.event.IDeviceEventManagement;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
@@ -32,8 +40,6 @@ import com.sitewhere.rest.model.device.event.DeviceCommandResponse;
 import com.sitewhere.rest.model.device.event.DeviceLocation;
 import com.sitewhere.rest.model.device.event.DeviceMeasurement;
 import com.sitewhere.rest.model.device.event.DeviceStateChange;
-import com.sitewhere.rest.model.search.DeviceMeasurementsSearchResults;
-import com.sitewhere.rest.model.search.SearchResults;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.device.command.IDeviceCommand;
 import com.sitewhere.spi.device.event.DeviceEventIndex;
@@ -59,7 +65,6 @@ import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
 import com.sitewhere.spi.search.IDateRangeSearchCriteria;
 import com.sitewhere.spi.search.ISearchResults;
 import com.sitewhere.warp10.Warp10Client;
-import com.sitewhere.warp10.Warp10Persistence;
 import com.sitewhere.warp10.rest.GTSInput;
 import com.sitewhere.warp10.rest.GTSOutput;
 import com.sitewhere.warp10.rest.QueryParams;
@@ -67,7 +72,13 @@ import com.sitewhere.warp10.rest.QueryParams;
 /**
  * Implementation of {@link IDeviceEventManagement} that interacts with Warp 10.
  */
-public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent implements IDeviceEventManagement {
+public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent
+	implements IDeviceEventManagement, IDeviceMeasurementAggregation, IMeasurementRollupStore, IDeviceEventExport {
+
+    /** Event types included in exports */
+    private static final String EXPORTED_EVENT_TYPES = String.join("|", DeviceEventType.Measurement.name(),
+	    DeviceEventType.Location.name(), DeviceEventType.Alert.name(), DeviceEventType.CommandInvocation.name(),
+	    DeviceEventType.CommandResponse.name(), DeviceEventType.StateChange.name());
 
     /** Warp 10 client */
     private Warp10Client client;
@@ -151,20 +162,76 @@ public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent
     @Override
     public ISearchResults<IDeviceMeasurement> listDeviceMeasurementsForIndex(DeviceEventIndex index,
 	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
-	QueryParams queryParams = QueryParams.builder();
-	queryParams.addParameter(Warp10DeviceEvent.PROP_EVENT_TYPE, DeviceEventType.Measurement.name());
-	queryParams.addParameter(getFieldForIndex(index),
-		entityIds.stream().map(Object::toString).collect(Collectors.joining("|")));
-	Warp10Persistence.addDateSearchCriteria(queryParams, criteria);
-
-	List<IDeviceMeasurement> results = new ArrayList<>();
-	List<GTSOutput> fetch = getClient().findGTS(queryParams);
-	for (GTSOutput gtsOutput : fetch) {
-	    DeviceMeasurement deviceMeasurement = Warp10DeviceMeasurement.fromGTS(gtsOutput, false);
-	    results.add(deviceMeasurement);
-	}
+	return Warp10EventPaging.search(Warp10EventPaging.labels(DeviceEventType.Measurement.name(),
+		getFieldForIndex(index), entityIds), criteria, getClient(), IDeviceMeasurement.class);
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IDeviceMeasurementAggregation#
+     * aggregateMeasurements(com.sitewhere.spi.device.event.DeviceEventIndex,
+     * java.util.List,
+     * com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria)
+     */
+    @Override
+    public List<IMeasurementSeries> aggregateMeasurements(DeviceEventIndex index, List<UUID> entityIds,
+	    IMeasurementAggregationCriteria criteria) throws SiteWhereException {
+	return Warp10MeasurementAggregation.aggregate(getFieldForIndex(index), entityIds, criteria, getClient());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IMeasurementRollupStore#
+     * saveMeasurementRollups(com.sitewhere.event.persistence.aggregate.
+     * MeasurementRollupTier, java.util.List)
+     */
+    @Override
+    public void saveMeasurementRollups(MeasurementRollupTier tier, List<MeasurementRollup> rollups)
+	    throws SiteWhereException {
+	Warp10MeasurementRollup.save(tier, rollups, getClient());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IMeasurementRollupStore#
+     * listMeasurementRollups(com.sitewhere.event.persistence.aggregate.
+     * MeasurementRollupTier, java.util.List, java.util.List, java.util.Date,
+     * java.util.Date)
+     */
+    @Override
+    public List<MeasurementRollup> listMeasurementRollups(MeasurementRollupTier tier, List<UUID> assignmentIds,
+	    List<String> names, Date startDate, Date endDate) throws SiteWhereException {
+	return Warp10MeasurementRollup.list(tier, assignmentIds, names, startDate, endDate, getClient());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IMeasurementRollupStore#
+     * getRollupCoverageStart()
+     */
+    @Override
+    public Date getRollupCoverageStart() throws SiteWhereException {
+	return Warp10MeasurementRollup.getCoverageStart(getClient());
+    }
 
-	return new DeviceMeasurementsSearchResults(results);
+    /*
+     * @see com.sitewhere.event.spi.persistence.IMeasurementRollupStore#
+     * setRollupCoverageStart(java.util.Date)
+     */
+    @Override
+    public void setRollupCoverageStart(Date date) throws SiteWhereException {
+	Warp10MeasurementRollup.setCoverageStart(date, getClient());
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.persistence.IDeviceEventExport#
+     * listDeviceEventsForExport(java.util.List, java.util.Date, java.util.Date,
+     * int)
+     */
+    @Override
+    public List<IDeviceEvent> listDeviceEventsForExport(List<UUID> assignmentIds, Date startDate, Date endDate,
+	    int maxResults) throws SiteWhereException {
+	boolean filtered = (assignmentIds != null && !assignmentIds.isEmpty());
+	return Warp10EventPaging.list(
+		Warp10EventPaging.labels(EXPORTED_EVENT_TYPES,
+			filtered ? Warp10DeviceEvent.PROP_DEVICE_ASSIGNMENT_ID : null, assignmentIds),
+		startDate, endDate, maxResults, getClient());
     }
 
     /*
@@ -195,19 +262,8 @@ public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent
     @Override
     public ISearchResults<IDeviceLocation> listDeviceLocationsForIndex(DeviceEventIndex index, List<UUID> entityIds,
 	    IDateRangeSearchCriteria criteria) throws SiteWhereException {
-	QueryParams queryParams = QueryParams.builder();
-	queryParams.addParameter(Warp10DeviceEvent.PROP_EVENT_TYPE, DeviceEventType.Location.name());
-	queryParams.addParameter(getFieldForIndex(index),
-		entityIds.stream().map(Object::toString).collect(Collectors.joining("|")));
-	Warp10Persistence.addDateSearchCriteria(queryParams, criteria);
-
-	List<IDeviceLocation> results = new ArrayList<>();
-	List<GTSOutput> fetch = getClient().findGTS(queryParams);
-	for (GTSOutput gtsOutput : fetch) {
-	    DeviceLocation deviceLocation = Warp10DeviceLocation.fromGTS(gtsOutput, false);
-	    results.add(deviceLocation);
-	}
-	return new SearchResults<IDeviceLocation>(results);
+	return Warp10EventPaging.search(Warp10EventPaging.labels(DeviceEventType.Location.name(),
+		getFieldForIndex(index), entityIds), criteria, getClient(), IDeviceLocation.class);
     }
 
     /*
@@ -239,19 +295,8 @@ public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent
     @Override
     public ISearchResults<IDeviceAlert> listDeviceAlertsForIndex(DeviceEventIndex index, List<UUID> entityIds,
 	    IDateRangeSearchCriteria criteria) throws SiteWhereException {
-	QueryParams queryParams = QueryParams.builder();
-	queryParams.addParameter(Warp10DeviceEvent.PROP_EVENT_TYPE, DeviceEventType.Alert.name());
-	queryParams.addParameter(getFieldForIndex(index),
-		entityIds.stream().map(Object::toString).collect(Collectors.joining("|")));
-	Warp10Persistence.addDateSearchCriteria(queryParams, criteria);
-
-	List<IDeviceAlert> results = new ArrayList<>();
-	List<GTSOutput> fetch = getClient().findGTS(queryParams);
-	for (GTSOutput gtsOutput : fetch) {
-	    DeviceAlert deviceAlert = Warp10DeviceAlert.fromGTS(gtsOutput, false);
-	    results.add(deviceAlert);
-	}
-	return new SearchResults<IDeviceAlert>(results);
+	return Warp10EventPaging.search(Warp10EventPaging.labels(DeviceEventType.Alert.name(),
+		getFieldForIndex(index), entityIds), criteria, getClient(), IDeviceAlert.class);
     }
 
     /*
@@ -289,20 +334,8 @@ public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent
     @Override
     public ISearchResults<IDeviceCommandInvocation> listDeviceCommandInvocationsForIndex(DeviceEventIndex index,
 	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
-
-	QueryParams queryParams = QueryParams.builder();
-	queryParams.addParameter(Warp10DeviceEvent.PROP_EVENT_TYPE, DeviceEventType.CommandInvocation.name());
-	queryParams.addParameter(getFieldForIndex(index),
-		entityIds.stream().map(Object::toString).collect(Collectors.joining("|")));
-	Warp10Persistence.addDateSearchCriteria(queryParams, criteria);
-
-	List<IDeviceCommandInvocation> results = new ArrayList<>();
-	List<GTSOutput> fetch = getClient().findGTS(queryParams);
-	for (GTSOutput gtsOutput : fetch) {
-	    DeviceCommandInvocation deviceCommandInvocation = Warp10DeviceCommandInvocation.fromGTS(gtsOutput);
-	    results.add(deviceCommandInvocation);
-	}
-	return new SearchResults<IDeviceCommandInvocation>(results);
+	return Warp10EventPaging.search(Warp10EventPaging.labels(DeviceEventType.CommandInvocation.name(),
+		getFieldForIndex(index), entityIds), criteria, getClient(), IDeviceCommandInvocation.class);
     }
 
     /*
@@ -334,18 +367,10 @@ public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent
     @Override
     public ISearchResults<IDeviceCommandResponse> listDeviceCommandInvocationResponses(UUID invocationId)
 	    throws SiteWhereException {
-	QueryParams queryParams = QueryParams.builder();
-	queryParams.addParameter(Warp10DeviceEvent.PROP_EVENT_TYPE, DeviceEventType.CommandResponse.name());
-	queryParams.addParameter(Warp10DeviceCommandResponse.PROP_ORIGINATING_EVENT_ID,
-		DeviceEventType.CommandResponse.name());
-
-	List<IDeviceCommandResponse> results = new ArrayList<>();
-	List<GTSOutput> fetch = getClient().findGTS(queryParams);
-	for (GTSOutput gtsOutput : fetch) {
-	    DeviceCommandResponse deviceCommandResponse = Warp10DeviceCommandResponse.fromGTS(gtsOutput);
-	    results.add(deviceCommandResponse);
-	}
-	return new SearchResults<IDeviceCommandResponse>(results);
+	return Warp10EventPaging.search(
+		Warp10EventPaging.labels(DeviceEventType.CommandResponse.name(),
+			Warp10DeviceCommandResponse.PROP_ORIGINATING_EVENT_ID, Collections.singletonList(invocationId)),
+		null, getClient(), IDeviceCommandResponse.class);
     }
 
     /*
@@ -357,19 +382,8 @@ public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent
     @Override
     public ISearchResults<IDeviceCommandResponse> listDeviceCommandResponsesForIndex(DeviceEventIndex index,
 	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
-	QueryParams queryParams = QueryParams.builder();
-	queryParams.addParameter(Warp10DeviceEvent.PROP_EVENT_TYPE, DeviceEventType.CommandResponse.name());
-	queryParams.addParameter(getFieldForIndex(index),
-		entityIds.stream().map(Object::toString).collect(Collectors.joining("|")));
-	Warp10Persistence.addDateSearchCriteria(queryParams, criteria);
-
-	List<IDeviceCommandResponse> results = new ArrayList<>();
-	List<GTSOutput> fetch = getClient().findGTS(queryParams);
-	for (GTSOutput gtsOutput : fetch) {
-	    DeviceCommandResponse deviceCommandResponse = Warp10DeviceCommandResponse.fromGTS(gtsOutput);
-	    results.add(deviceCommandResponse);
-	}
-	return new SearchResults<IDeviceCommandResponse>(results);
+	return Warp10EventPaging.search(Warp10EventPaging.labels(DeviceEventType.CommandResponse.name(),
+		getFieldForIndex(index), entityIds), criteria, getClient(), IDeviceCommandResponse.class);
     }
 
     /*
@@ -402,22 +416,8 @@ public class Warp10DeviceEventManagement extends TenantEngineLifecycleComponent
     @Override
     public ISearchResults<IDeviceStateChange> listDeviceStateChangesForIndex(DeviceEventIndex index,
 	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
-
-	QueryParams queryParams = QueryParams.builder();
-	queryParams.addParameter(Warp10DeviceEvent.PROP_EVENT_TYPE, DeviceEventType.StateChange.name());
-	queryParams.addParameter(getFieldForIndex(index),
-		entityIds.stream().map(Object::toString).collect(Collectors.joining("|")));
-	Warp10Persistence.addDateSearchCriteria(queryParams, criteria);
-
-	List<IDeviceStateChange> results = new ArrayList<>();
-	List<GTSOutput> fetch = getClient().findGTS(queryParams);
-
-	for (GTSOutput gtsOutput : fetch) {
-	    DeviceStateChange deviceStateChange = Warp10DeviceStateChange.fromGTS(gtsOutput);
-	    results.add(deviceStateChange);
-	}
-
-	return new SearchResults<IDeviceStateChange>(results);
+	return Warp10EventPaging.search(Warp10EventPaging.labels(DeviceEventType.StateChange.name(),
+		getFieldForIndex(index), entityIds), criteria, getClient(), IDeviceStateChange.class);
     }
 
     /*
@@ -0,0 +1,447 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.warp10;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.joda.time.format.ISODateTimeFormat;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sitewhere.rest.model.search.DateRangeSearchCriteria;
+import com.sitewhere.rest.model.search.SearchResults;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.search.IDateRangeSearchCriteria;
+import com.sitewhere.warp10.Warp10Client;
+import com.sitewhere.warp10.Warp10Persistence;
+import com.sitewhere.warp10.rest.GTSOutput;
+import com.sitewhere.warp10.rest.QueryParams;
+
+/**
+ * Pages through events stored in Warp 10. Each event is stored as its own GTS,
+ * so a WarpScript run on the server fetches the matching series, counts them,
+ * orders them by timestamp and event id and returns only the keys of events on
+ * the requested page. The key of the last event is kept as a continuation, so
+ * the next page starts right after it rather than at an offset and is not
+ * shifted by events added in the meantime. The page is then fetched by id, so
+ * memory use depends on the page size rather than on the number of events in
+ * the range.
+ */
+public class Warp10EventPaging {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(Warp10EventPaging.class);
+
+    /** Path of WarpScript endpoint relative to API base URL */
+    private static final String EXEC_PATH = "/exec";
+
+    /** Maximum number of ids included in a single fetch */
+    private static final int FETCH_CHUNK_SIZE = 100;
+
+    /** Shared JSON factory for streaming responses */
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /** Milliseconds allowed to connect to Warp 10 */
+    private static final int CONNECT_TIMEOUT_MS = 10 * 1000;
+
+    /** Milliseconds allowed between reads of a script response */
+    private static final int READ_TIMEOUT_MS = 60 * 1000;
+
+    /** Added to ticks so that dates before the epoch still sort as digits */
+    private static final long KEY_TICK_OFFSET = 100000000000000000L;
+
+    /** Number of digits the tick is padded to in a sort key */
+    private static final int KEY_TICK_DIGITS = 19;
+
+    /** Maximum number of page continuations kept */
+    private static final int MAX_CONTINUATIONS = 1000;
+
+    /** Sort key of the last event on recently read pages */
+    private static final Map<String, String> CONTINUATIONS = Collections
+	    .synchronizedMap(new ContinuationCache(MAX_CONTINUATIONS));
+
+    /**
+     * Search for events matching label criteria, newest first, using paging
+     * information from the criteria.
+     * 
+     * @param labels
+     * @param criteria
+     * @param client
+     * @param clazz
+     * @return
+     * @throws SiteWhereException
+     */
+    public static <T> SearchResults<T> search(Map<String, String> labels, IDateRangeSearchCriteria criteria,
+	    Warp10Client client, Class<T> clazz) throws SiteWhereException {
+	Date startDate = (criteria != null) ? criteria.getStartDate() : null;
+	Date endDate = (criteria != null) ? criteria.getEndDate() : null;
+	int limit = 0;
+	int number = 1;
+	if (criteria != null && criteria.getPageSize() != null && criteria.getPageSize() > 0) {
+	    limit = criteria.getPageSize();
+	    number = (criteria.getPageNumber() != null) ? Math.max(1, criteria.getPageNumber()) : 1;
+	}
+
+	// Continue after the previous page if it was read, otherwise skip to the offset.
+	String query = getQueryKey(labels, startDate, endDate, limit, client);
+	String continuation = (number > 1) ? CONTINUATIONS.get(query + number) : null;
+	int offset = (continuation != null) ? 0 : (number - 1) * limit;
+	Page page = findPage(labels, startDate, endDate, true, continuation, offset, limit, client);
+	if (limit > 0 && page.getContinuation() != null) {
+	    CONTINUATIONS.put(query + (number + 1), page.getContinuation());
+	}
+	List<T> results = new ArrayList<>();
+	for (IDeviceEvent event : fetchById(labels, page.getIds(), startDate, endDate, client)) {
+	    results.add(clazz.cast(event));
+	}
+	return new SearchResults<T>(results, page.getTotal());
+    }
+
+    /**
+     * List events matching label criteria in a date range, oldest first.
+     * 
+     * @param labels
+     * @param startDate
+     * @param endDate
+     * @param maxResults
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IDeviceEvent> list(Map<String, String> labels, Date startDate, Date endDate, int maxResults,
+	    Warp10Client client) throws SiteWhereException {
+	Page page = findPage(labels, startDate, endDate, false, null, 0, maxResults, client);
+	return fetchById(labels, page.getIds(), startDate, endDate, client);
+    }
+
+    /**
+     * Run a WarpScript that selects the sort keys of events on a page and counts
+     * all matching events. Events are ordered by a key made of the tick and the
+     * event id, so events with the same timestamp have a stable order.
+     * 
+     * @param labels
+     * @param startDate
+     * @param endDate
+     * @param newestFirst
+     * @param continuation
+     *            key of the event the page follows (null to use offset)
+     * @param offset
+     * @param limit
+     *            maximum events on page (zero for all)
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static Page findPage(Map<String, String> labels, Date startDate, Date endDate, boolean newestFirst,
+	    String continuation, int offset, int limit, Warp10Client client) throws SiteWhereException {
+	StringBuilder script = new StringBuilder();
+	script.append("{ 'token' ").append(quote(client.getConfiguration().getTokenSecret()));
+	script.append(" 'class' '~.*' 'labels' {");
+	for (Map.Entry<String, String> label : labels.entrySet()) {
+	    script.append(" ").append(quote(label.getKey())).append(" ").append(quote(selector(label.getValue())));
+	}
+	script.append(" }");
+	script.append(" 'start' ").append((startDate != null) ? quote(iso(startDate)) : "0");
+	script.append(" 'end' ").append((endDate != null) ? quote(iso(endDate)) : "MAXLONG");
+	script.append(" } FETCH\n");
+	script.append("DUP SIZE 'total' STORE\n");
+	script.append("<% DUP LASTTICK ").append(KEY_TICK_OFFSET).append(" + TOSTRING ")
+		.append(quote(String.join("", Collections.nCopies(KEY_TICK_DIGITS, "0"))))
+		.append(" SWAP + DUP SIZE ").append(KEY_TICK_DIGITS).append(" - ").append(KEY_TICK_DIGITS)
+		.append(" SUBSTRING SWAP LABELS ").append(quote(Warp10DeviceEvent.PROP_ID))
+		.append(" GET + %> 'key' STORE\n");
+	script.append("$key SORTBY").append(newestFirst ? " REVERSE" : "").append("\n");
+	if (continuation != null) {
+	    script.append("<% @key ").append(quote(continuation)).append(newestFirst ? " <" : " >")
+		    .append(" %> FILTERBY\n");
+	    if (limit > 0) {
+		script.append("<% DUP SIZE ").append(limit).append(" > %> <% [ 0 ").append(limit - 1)
+			.append(" ] SUBLIST %> IFT\n");
+	    }
+	} else if (limit > 0) {
+	    script.append("<% ").append(offset).append(" $total < %>");
+	    script.append(" <% [ ").append(offset).append(" ").append((long) offset + limit)
+		    .append(" $total MIN 1 - ] SUBLIST %>");
+	    script.append(" <% DROP [] %> IFTE\n");
+	}
+	script.append("<% DROP @key %> LMAP\n");
+	script.append("$total\n");
+	return execute(script.toString(), client, Warp10EventPaging::parsePage);
+    }
+
+    /**
+     * Fetch events by id, keeping the order in which ids were given.
+     * 
+     * @param labels
+     * @param ids
+     * @param startDate
+     * @param endDate
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static List<IDeviceEvent> fetchById(Map<String, String> labels, List<String> ids, Date startDate,
+	    Date endDate, Warp10Client client) throws SiteWhereException {
+	Map<String, IDeviceEvent> byId = new LinkedHashMap<>();
+	for (String id : ids) {
+	    byId.put(id, null);
+	}
+	for (int i = 0; i < ids.size(); i += FETCH_CHUNK_SIZE) {
+	    List<String> chunk = ids.subList(i, Math.min(ids.size(), i + FETCH_CHUNK_SIZE));
+	    QueryParams queryParams = QueryParams.builder();
+	    for (Map.Entry<String, String> label : labels.entrySet()) {
+		queryParams.addParameter(label.getKey(), label.getValue());
+	    }
+	    queryParams.addParameter(Warp10DeviceEvent.PROP_ID, String.join("|", chunk));
+	    Warp10Persistence.addDateSearchCriteria(queryParams, new DateRangeSearchCriteria(1, 0, startDate, endDate));
+	    for (GTSOutput gtsOutput : client.findGTS(queryParams)) {
+		String id = gtsOutput.getLabels().get(Warp10DeviceEvent.PROP_ID);
+		if (byId.containsKey(id)) {
+		    byId.put(id, Warp10DeviceEventManagementPersistence.unmarshalEvent(gtsOutput));
+		}
+	    }
+	}
+	return byId.values().stream().filter(event -> event != null).collect(Collectors.toList());
+    }
+
+    /**
+     * Execute a WarpScript, reading the resulting stack as it streams in.
+     * 
+     * @param script
+     * @param client
+     * @param reader
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static <T> T execute(String script, Warp10Client client, StackReader<T> reader)
+	    throws SiteWhereException {
+	LOGGER.debug("WarpScript: " + script);
+	HttpURLConnection connection = null;
+	try {
+	    connection = (HttpURLConnection) new URL(client.getConfiguration().getHostname() + EXEC_PATH)
+		    .openConnection();
+	    connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+	    connection.setReadTimeout(READ_TIMEOUT_MS);
+	    connection.setRequestMethod("POST");
+	    connection.setDoOutput(true);
+	    connection.setRequestProperty("Content-Type", "text/plain; charset=UTF-8");
+	    try (OutputStream output = connection.getOutputStream()) {
+		output.write(script.getBytes(StandardCharsets.UTF_8));
+	    }
+	    int status = connection.getResponseCode();
+	    if (status != 200) {
+		throw new SiteWhereException(String.format("Warp 10 script failed with status %d (%s).", status,
+			connection.getHeaderField("X-Warp10-Error-Message")));
+	    }
+	    try (InputStream input = connection.getInputStream(); JsonParser parser = JSON.createParser(input)) {
+		return reader.read(parser);
+	    }
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to execute Warp 10 script.", e);
+	} finally {
+	    if (connection != null) {
+		connection.disconnect();
+	    }
+	}
+    }
+
+    /**
+     * Parse stack returned by a paging script. The top of the stack is listed
+     * first, so the count precedes the list of sort keys.
+     * 
+     * @param parser
+     * @return
+     * @throws IOException
+     * @throws SiteWhereException
+     */
+    protected static Page parsePage(JsonParser parser) throws IOException, SiteWhereException {
+	if (parser.nextToken() != JsonToken.START_ARRAY || !parser.nextToken().isNumeric()) {
+	    throw new SiteWhereException("Unexpected response to Warp 10 paging script.");
+	}
+	Page page = new Page(parser.getLongValue());
+	if (parser.nextToken() != JsonToken.START_ARRAY) {
+	    throw new SiteWhereException("Unexpected response to Warp 10 paging script.");
+	}
+	while (parser.nextToken() == JsonToken.VALUE_STRING) {
+	    String key = parser.getText();
+	    page.getIds().add(key.substring(KEY_TICK_DIGITS));
+	    page.setContinuation(key);
+	}
+	return page;
+    }
+
+    /**
+     * Get key identifying a paged query for tracking continuations.
+     * 
+     * @param labels
+     * @param startDate
+     * @param endDate
+     * @param limit
+     * @param client
+     * @return
+     */
+    protected static String getQueryKey(Map<String, String> labels, Date startDate, Date endDate, int limit,
+	    Warp10Client client) {
+	return System.identityHashCode(client) + ":" + labels + ":" + ((startDate != null) ? startDate.getTime() : "")
+		+ ":" + ((endDate != null) ? endDate.getTime() : "") + ":" + limit + ":";
+    }
+
+    /**
+     * Convert a label value in query parameter form, where alternatives are
+     * separated by '|', to a WarpScript label selector.
+     * 
+     * @param value
+     * @return
+     */
+    protected static String selector(String value) {
+	return value.contains("|") ? "~(" + value + ")" : value;
+    }
+
+    /**
+     * Quote a value as a WarpScript string literal. String literals are URL
+     * decoded, so characters that would end the literal are percent encoded.
+     * 
+     * @param value
+     * @return
+     */
+    protected static String quote(String value) {
+	return "'" + value.replace("%", "%25").replace("'", "%27").replace("\n", "%0A") + "'";
+    }
+
+    /**
+     * Format a date as ISO 8601.
+     * 
+     * @param date
+     * @return
+     */
+    protected static String iso(Date date) {
+	return ISODateTimeFormat.dateTime().withZoneUTC().print(date.getTime());
+    }
+
+    /**
+     * Label criteria for events of a type. Values use the query parameter form,
+     * where alternatives are separated by '|'.
+     * 
+     * @param type
+     * @param label
+     *            additional label (null for none)
+     * @param ids
+     *            values for additional label
+     * @return
+     */
+    public static Map<String, String> labels(String type, String label, List<UUID> ids) {
+	Map<String, String> labels = new LinkedHashMap<>();
+	labels.put(Warp10DeviceEvent.PROP_EVENT_TYPE, type);
+	if (label != null) {
+	    labels.put(label, ids.stream().map(Object::toString).collect(Collectors.joining("|")));
+	}
+	return labels;
+    }
+
+    /**
+     * Reads the stack returned by a WarpScript.
+     */
+    @FunctionalInterface
+    protected static interface StackReader<T> {
+
+	/**
+	 * Read stack from a parser positioned before the start of the response.
+	 * 
+	 * @param parser
+	 * @return
+	 * @throws IOException
+	 * @throws SiteWhereException
+	 */
+	public T read(JsonParser parser) throws IOException, SiteWhereException;
+    }
+
+    /**
+     * Ids of events on a page along with the total number of matches.
+     */
+    protected static class Page {
+
+	/** Total number of matching events */
+	private long total;
+
+	/** Ids of events on page in order */
+	private List<String> ids = new ArrayList<>();
+
+	/** Sort key of the last event on page */
+	private String continuation;
+
+	public Page(long total) {
+	    this.total = total;
+	}
+
+	public long getTotal() {
+	    return total;
+	}
+
+	public List<String> getIds() {
+	    return ids;
+	}
+
+	public String getContinuation() {
+	    return continuation;
+	}
+
+	public void setContinuation(String continuation) {
+	    this.continuation = continuation;
+	}
+    }
+
+    /**
+     * Keeps the most recently used continuations.
+     */
+    private static class ContinuationCache extends LinkedHashMap<String, String> {
+
+	/** Serial version UID */
+	private static final long serialVersionUID = -3916250847061329712L;
+
+	/** Maximum number of entries */
+	private int maxEntries;
+
+	public ContinuationCache(int maxEntries) {
+	    super(16, 0.75f, true);
+	    this.maxEntries = maxEntries;
+	}
+
+	/*
+	 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+	 */
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+	    return size() > maxEntries;
+	}
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.warp10;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sitewhere.event.persistence.aggregate.MeasurementBucket;
+import com.sitewhere.event.persistence.aggregate.MeasurementSeries;
+import com.sitewhere.event.spi.persistence.IMeasurementAggregationCriteria;
+import com.sitewhere.event.spi.persistence.IMeasurementSeries;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventType;
+import com.sitewhere.warp10.Warp10Client;
+
+/**
+ * Aggregates measurements on the Warp 10 server. Each measurement is stored as
+ * its own GTS, so a WarpScript fetches the matching series, merges them per
+ * entity and measurement name, then uses BUCKETIZE to compute each statistic
+ * per interval. Only bucket values are returned to the caller.
+ */
+public class Warp10MeasurementAggregation {
+
+    /** Reads script results into a tree */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Label holding entity id after relabeling */
+    private static final String LABEL_ENTITY = "e";
+
+    /** Label holding measurement name after relabeling */
+    private static final String LABEL_NAME = "n";
+
+    /** Bucketizers in the order their values are returned */
+    private static final String[] BUCKETIZERS = { "bucketizer.min", "bucketizer.max", "bucketizer.mean",
+	    "bucketizer.count", "bucketizer.last" };
+
+    /**
+     * Compute min/max/avg/count/last per interval for each measurement name on
+     * each entity.
+     * 
+     * @param indexLabel
+     *            label holding entity id for the index
+     * @param entityIds
+     * @param criteria
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IMeasurementSeries> aggregate(String indexLabel, List<UUID> entityIds,
+	    IMeasurementAggregationCriteria criteria, Warp10Client client) throws SiteWhereException {
+	if (entityIds.isEmpty()) {
+	    return new ArrayList<>();
+	}
+	long interval = criteria.getResolvedIntervalMs();
+	String script = buildScript(indexLabel, entityIds, criteria, interval,
+		client.getConfiguration().getTokenSecret());
+	return Warp10EventPaging.execute(script, client, parser -> parseSeries(parser, interval));
+    }
+
+    /**
+     * Build script that leaves a list of series on the stack. Each series is a
+     * list holding entity id, measurement name, bucket start dates in
+     * milliseconds, then one list of values per bucketizer. Buckets are aligned
+     * to the epoch, matching InfluxDB time grouping.
+     * 
+     * @param indexLabel
+     * @param entityIds
+     * @param criteria
+     * @param interval
+     * @param token
+     * @return
+     */
+    protected static String buildScript(String indexLabel, List<UUID> entityIds,
+	    IMeasurementAggregationCriteria criteria, long interval, String token) {
+	long start = criteria.getResolvedStartDate().getTime();
+	long end = criteria.getResolvedEndDate().getTime();
+	long firstBucket = Math.floorDiv(start, interval);
+	long lastBucket = Math.floorDiv(end, interval);
+	List<String> names = criteria.getMeasurementNames();
+	String classSelector = (names == null || names.isEmpty()) ? "~.*"
+		: "~(" + names.stream().map(Pattern::quote).collect(Collectors.joining("|")) + ")";
+
+	StringBuilder script = new StringBuilder();
+	script.append("1 ms 'tpm' STORE\n");
+	script.append("{ 'token' ").append(Warp10EventPaging.quote(token));
+	script.append(" 'class' ").append(Warp10EventPaging.quote(classSelector));
+	script.append(" 'labels' { ").append(Warp10EventPaging.quote(Warp10DeviceEvent.PROP_EVENT_TYPE)).append(" ")
+		.append(Warp10EventPaging.quote(DeviceEventType.Measurement.name()));
+	script.append(" ").append(Warp10EventPaging.quote(indexLabel)).append(" ")
+		.append(Warp10EventPaging.quote(Warp10EventPaging.selector(
+			entityIds.stream().map(Object::toString).collect(Collectors.joining("|")))));
+	script.append(" }");
+	script.append(" 'start' ").append(Warp10EventPaging.quote(Warp10EventPaging.iso(new Date(start))));
+	script.append(" 'end' ").append(Warp10EventPaging.quote(Warp10EventPaging.iso(new Date(end))));
+	script.append(" } FETCH\n");
+
+	// Keep only entity and name so that series group by them.
+	script.append("<% DROP DUP LABELS ").append(Warp10EventPaging.quote(indexLabel)).append(" GET 'entity' STORE");
+	script.append(" DUP NAME 'name' STORE { NULL NULL '").append(LABEL_ENTITY).append("' $entity '")
+		.append(LABEL_NAME).append("' $name } RELABEL %> LMAP\n");
+	script.append("[ '").append(LABEL_ENTITY).append("' '").append(LABEL_NAME).append("' ] PARTITION\n");
+
+	// Buckets end on the tick before the next interval starts.
+	script.append((lastBucket + 1) * interval).append(" $tpm * 1 - 'lastbucket' STORE\n");
+	script.append(interval).append(" $tpm * 'span' STORE\n");
+	script.append(lastBucket - firstBucket + 1).append(" 'count' STORE\n");
+	script.append("[] 'result' STORE\n");
+	script.append("<% MERGE 'gts' STORE 'key' STORE\n");
+	script.append("  [ $key '").append(LABEL_ENTITY).append("' GET $key '").append(LABEL_NAME).append("' GET\n");
+	script.append("    [ $gts bucketizer.count $lastbucket $span $count ] BUCKETIZE 0 GET SORT TICKLIST");
+	script.append(" <% DROP 1 + $tpm / ").append(interval).append(" - %> LMAP\n");
+	for (String bucketizer : BUCKETIZERS) {
+	    script.append("    [ $gts ").append(bucketizer)
+		    .append(" $lastbucket $span $count ] BUCKETIZE 0 GET SORT VALUES\n");
+	}
+	script.append("  ] $result SWAP +! DROP\n");
+	script.append("%> FOREACH\n");
+	script.append("$result\n");
+	return script.toString();
+    }
+
+    /**
+     * Parse series from the stack returned by an aggregation script.
+     * 
+     * @param parser
+     * @param interval
+     * @return
+     * @throws IOException
+     * @throws SiteWhereException
+     */
+    protected static List<IMeasurementSeries> parseSeries(JsonParser parser, long interval)
+	    throws IOException, SiteWhereException {
+	JsonNode stack = MAPPER.readTree(parser);
+	if (stack == null || !stack.isArray() || stack.size() == 0 || !stack.get(0).isArray()) {
+	    throw new SiteWhereException("Unexpected response to Warp 10 aggregation script.");
+	}
+	List<IMeasurementSeries> results = new ArrayList<>();
+	for (JsonNode entry : stack.get(0)) {
+	    MeasurementSeries series = new MeasurementSeries();
+	    series.setEntityId(UUID.fromString(entry.get(0).asText()));
+	    series.setName(entry.get(1).asText());
+	    series.setIntervalMs(interval);
+	    JsonNode starts = entry.get(2);
+	    for (int i = 0; i < starts.size(); i++) {
+		MeasurementBucket bucket = new MeasurementBucket();
+		bucket.setDate(new Date(starts.get(i).asLong()));
+		bucket.setMin(entry.get(3).get(i).asDouble());
+		bucket.setMax(entry.get(4).get(i).asDouble());
+		bucket.setAvg(entry.get(5).get(i).asDouble());
+		bucket.setCount(entry.get(6).get(i).asLong());
+		bucket.setLast(entry.get(7).get(i).asDouble());
+		series.getBuckets().add(bucket);
+	    }
+	    results.add(series);
+	}
+	return results;
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.warp10;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollup;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupTier;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.warp10.Warp10Client;
+import com.sitewhere.warp10.rest.GTSInput;
+
+/**
+ * Stores measurement rollups in Warp 10. Each statistic for an assignment,
+ * measurement name and tier is its own GTS named after the measurement, with
+ * one datapoint per bucket at the bucket start. Writing a bucket again
+ * replaces its datapoints. Rollups written by earlier versions as one GTS per
+ * bucket are still read.
+ */
+public class Warp10MeasurementRollup {
+
+    /** Event type label value for rollups */
+    public static final String ROLLUP_EVENT_TYPE = "MeasurementRollup";
+
+    /** Event type label value for coverage marker */
+    public static final String COVERAGE_EVENT_TYPE = "MeasurementRollupCoverage";
+
+    /** Class name for coverage marker */
+    public static final String COVERAGE_CLASS = "coverage";
+
+    /** Label for tier */
+    public static final String PROP_TIER = "rltr";
+
+    /** Label for statistic */
+    public static final String PROP_STAT = "rlst";
+
+    /** Label for bucket start (one GTS per bucket layout) */
+    public static final String PROP_BUCKET = "rlbk";
+
+    /** Minimum value statistic */
+    public static final String STAT_MIN = "rmin";
+
+    /** Maximum value statistic */
+    public static final String STAT_MAX = "rmax";
+
+    /** Sum of values statistic */
+    public static final String STAT_SUM = "rsum";
+
+    /** Number of values statistic */
+    public static final String STAT_COUNT = "rcnt";
+
+    /** Most recent value statistic */
+    public static final String STAT_LAST = "rlst";
+
+    /** Event date of most recent value statistic */
+    public static final String STAT_LAST_DATE = "rlsd";
+
+    /** Reads script results into a tree */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Convert a rollup to one datapoint per statistic.
+     * 
+     * @param tier
+     * @param source
+     * @return
+     */
+    public static List<GTSInput> toGTS(MeasurementRollupTier tier, MeasurementRollup source) {
+	Date lastDate = (source.getLastDate() != null) ? source.getLastDate() : source.getDate();
+	Map<String, Double> stats = new LinkedHashMap<>();
+	stats.put(STAT_MIN, source.getMin());
+	stats.put(STAT_MAX, source.getMax());
+	stats.put(STAT_SUM, source.getSum());
+	stats.put(STAT_COUNT, (double) source.getCount());
+	stats.put(STAT_LAST, source.getLast());
+	stats.put(STAT_LAST_DATE, (double) lastDate.getTime());
+
+	List<GTSInput> results = new ArrayList<>();
+	for (Map.Entry<String, Double> stat : stats.entrySet()) {
+	    GTSInput target = GTSInput.builder();
+	    target.setName(source.getName());
+	    target.setTs(source.getDate().getTime());
+	    target.setValue(stat.getValue());
+	    Map<String, String> labels = new HashMap<>();
+	    labels.put(Warp10DeviceEvent.PROP_EVENT_TYPE, ROLLUP_EVENT_TYPE);
+	    labels.put(PROP_TIER, tier.getSuffix());
+	    labels.put(Warp10DeviceEvent.PROP_DEVICE_ASSIGNMENT_ID, source.getAssignmentId().toString());
+	    labels.put(PROP_STAT, stat.getKey());
+	    target.setLabels(labels);
+	    target.setAttributes(new HashMap<>());
+	    results.add(target);
+	}
+	return results;
+    }
+
+    /**
+     * Save rollups for a tier.
+     * 
+     * @param tier
+     * @param rollups
+     * @param client
+     * @throws SiteWhereException
+     */
+    public static void save(MeasurementRollupTier tier, List<MeasurementRollup> rollups, Warp10Client client)
+	    throws SiteWhereException {
+	for (MeasurementRollup rollup : rollups) {
+	    for (GTSInput input : toGTS(tier, rollup)) {
+		int ingress = client.insertGTS(input);
+		if (ingress != 200) {
+		    throw new SiteWhereException(
+			    String.format("Unable to store measurement rollup (status %d).", ingress));
+		}
+	    }
+	}
+    }
+
+    /**
+     * List rollups for a tier with bucket start in the given range.
+     * 
+     * @param tier
+     * @param assignmentIds
+     * @param names
+     * @param startDate
+     * @param endDate
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<MeasurementRollup> list(MeasurementRollupTier tier, List<UUID> assignmentIds,
+	    List<String> names, Date startDate, Date endDate, Warp10Client client) throws SiteWhereException {
+	if (assignmentIds.isEmpty()) {
+	    return new ArrayList<>();
+	}
+	String classSelector = (names == null || names.isEmpty()) ? "~.*"
+		: "~(" + names.stream().map(Pattern::quote).collect(Collectors.joining("|")) + ")";
+	StringBuilder script = new StringBuilder();
+	script.append("1 ms 'tpm' STORE\n");
+	script.append("{ 'token' ").append(Warp10EventPaging.quote(client.getConfiguration().getTokenSecret()));
+	script.append(" 'class' ").append(Warp10EventPaging.quote(classSelector));
+	script.append(" 'labels' { ").append(Warp10EventPaging.quote(Warp10DeviceEvent.PROP_EVENT_TYPE)).append(" ")
+		.append(Warp10EventPaging.quote(ROLLUP_EVENT_TYPE));
+	script.append(" ").append(Warp10EventPaging.quote(PROP_TIER)).append(" ")
+		.append(Warp10EventPaging.quote(tier.getSuffix()));
+	script.append(" ").append(Warp10EventPaging.quote(Warp10DeviceEvent.PROP_DEVICE_ASSIGNMENT_ID)).append(" ")
+		.append(Warp10EventPaging.quote(Warp10EventPaging.selector(
+			assignmentIds.stream().map(Object::toString).collect(Collectors.joining("|")))));
+	script.append(" }");
+	script.append(" 'start' ").append(Warp10EventPaging.quote(Warp10EventPaging.iso(startDate)));
+	script.append(" 'end' ").append(Warp10EventPaging.quote(Warp10EventPaging.iso(endDate)));
+	script.append(" } FETCH\n");
+	script.append("<% DROP 'gts' STORE [ $gts NAME $gts LABELS $gts ATTRIBUTES");
+	script.append(" $gts TICKLIST <% DROP $tpm / %> LMAP $gts VALUES ] %> LMAP\n");
+	return Warp10EventPaging.execute(script.toString(), client, Warp10MeasurementRollup::parseRollups);
+    }
+
+    /**
+     * Parse rollups from a list of series, each holding class name, labels,
+     * attributes, bucket starts in milliseconds and values.
+     * 
+     * @param parser
+     * @return
+     * @throws IOException
+     * @throws SiteWhereException
+     */
+    protected static List<MeasurementRollup> parseRollups(JsonParser parser) throws IOException, SiteWhereException {
+	JsonNode stack = MAPPER.readTree(parser);
+	if (stack == null || !stack.isArray() || stack.size() == 0 || !stack.get(0).isArray()) {
+	    throw new SiteWhereException("Unexpected response to Warp 10 rollup script.");
+	}
+	Map<String, MeasurementRollup> current = new LinkedHashMap<>();
+	Map<String, MeasurementRollup> legacy = new LinkedHashMap<>();
+	for (JsonNode series : stack.get(0)) {
+	    String name = series.get(0).asText();
+	    JsonNode labels = series.get(1);
+	    JsonNode attributes = series.get(2);
+	    JsonNode ticks = series.get(3);
+	    JsonNode values = series.get(4);
+	    UUID assignmentId = UUID.fromString(labels.path(Warp10DeviceEvent.PROP_DEVICE_ASSIGNMENT_ID).asText());
+	    String stat = labels.path(PROP_STAT).asText(null);
+	    for (int i = 0; i < ticks.size(); i++) {
+		long bucket = ticks.get(i).asLong();
+		String key = assignmentId + ":" + name + ":" + bucket;
+		if (stat != null) {
+		    MeasurementRollup rollup = current.computeIfAbsent(key,
+			    k -> new MeasurementRollup(assignmentId, name, new Date(bucket)));
+		    setStat(rollup, stat, values.get(i).asDouble());
+		} else if (labels.has(PROP_BUCKET)) {
+		    MeasurementRollup rollup = new MeasurementRollup(assignmentId, name, new Date(bucket));
+		    for (String legacyStat : new String[] { STAT_MIN, STAT_MAX, STAT_SUM, STAT_COUNT, STAT_LAST,
+			    STAT_LAST_DATE }) {
+			setStat(rollup, legacyStat, attributes.path(legacyStat).asDouble());
+		    }
+		    legacy.put(key, rollup);
+		}
+	    }
+	}
+	for (Map.Entry<String, MeasurementRollup> entry : legacy.entrySet()) {
+	    current.putIfAbsent(entry.getKey(), entry.getValue());
+	}
+	return new ArrayList<>(current.values());
+    }
+
+    /**
+     * Set a statistic on a rollup.
+     * 
+     * @param rollup
+     * @param stat
+     * @param value
+     */
+    protected static void setStat(MeasurementRollup rollup, String stat, double value) {
+	switch (stat) {
+	case STAT_MIN:
+	    rollup.setMin(value);
+	    break;
+	case STAT_MAX:
+	    rollup.setMax(value);
+	    break;
+	case STAT_SUM:
+	    rollup.setSum(value);
+	    break;
+	case STAT_COUNT:
+	    rollup.setCount((long) value);
+	    break;
+	case STAT_LAST:
+	    rollup.setLast(value);
+	    break;
+	case STAT_LAST_DATE:
+	    rollup.setLastDate(new Date((long) value));
+	    break;
+	}
+    }
+
+    /**
+     * Get date from which rollups are maintained. The marker is a GTS whose
+     * most recent value holds the date.
+     * 
+     * @param client
+     * @return
+     * @throws SiteWhereException
+     */
+    public static Date getCoverageStart(Warp10Client client) throws SiteWhereException {
+	StringBuilder script = new StringBuilder();
+	script.append("{ 'token' ").append(Warp10EventPaging.quote(client.getConfiguration().getTokenSecret()));
+	script.append(" 'class' ").append(Warp10EventPaging.quote(COVERAGE_CLASS));
+	script.append(" 'labels' { ").append(Warp10EventPaging.quote(Warp10DeviceEvent.PROP_EVENT_TYPE)).append(" ")
+		.append(Warp10EventPaging.quote(COVERAGE_EVENT_TYPE)).append(" }");
+	script.append(" 'end' MAXLONG 'count' 1 } FETCH\n");
+	script.append("<% DROP VALUES %> LMAP FLATTEN\n");
+	return Warp10EventPaging.execute(script.toString(), client, parser -> {
+	    JsonNode stack = MAPPER.readTree(parser);
+	    JsonNode values = (stack != null && stack.isArray() && stack.size() > 0) ? stack.get(0) : null;
+	    if (values == null || !values.isArray() || values.size() == 0) {
+		return null;
+	    }
+	    return new Date(values.get(values.size() - 1).asLong());
+	});
+    }
+
+    /**
+     * Record date from which rollups are maintained.
+     * 
+     * @param date
+     * @param client
+     * @throws SiteWhereException
+     */
+    public static void setCoverageStart(Date date, Warp10Client client) throws SiteWhereException {
+	GTSInput marker = GTSInput.builder();
+	marker.setName(COVERAGE_CLASS);
+	marker.setTs(System.currentTimeMillis());
+	marker.setValue((double) date.getTime());
+	Map<String, String> labels = new HashMap<>();
+	labels.put(Warp10DeviceEvent.PROP_EVENT_TYPE, COVERAGE_EVENT_TYPE);
+	marker.setLabels(labels);
+	marker.setAttributes(new HashMap<>());
+	int ingress = client.insertGTS(marker);
+	if (ingress != 200) {
+	    throw new SiteWhereException(String.format("Unable to store rollup coverage (status %d).", ingress));
+	}
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decides whether a persistence failure means the datastore could not be
+ * reached, in which case the event should be buffered and retried. Only
+ * connectivity and timeout errors qualify. Anything else, such as a rejected
+ * write or a bug in event handling, would fail again on every retry.
+ */
+public class DatastoreFailures {
+
+    /** Driver exceptions that indicate the datastore is unreachable or overloaded */
+    private static final Set<String> UNAVAILABLE_EXCEPTIONS = new HashSet<>(Arrays.asList("NoHostAvailableException",
+	    "OperationTimedOutException", "ReadTimeoutException", "WriteTimeoutException", "UnavailableException",
+	    "OverloadedException", "BusyPoolException", "BusyConnectionException", "ConnectionException",
+	    "InfluxDBIOException"));
+
+    /**
+     * Indicates whether an exception or any of its causes is a connectivity or
+     * timeout error.
+     * 
+     * @param e
+     * @return
+     */
+    public static boolean isUnavailable(Throwable e) {
+	for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+	    if (cause instanceof IOException || cause instanceof TimeoutException) {
+		return true;
+	    }
+	    for (Class<?> type = cause.getClass(); type != null; type = type.getSuperclass()) {
+		if (UNAVAILABLE_EXCEPTIONS.contains(type.getSimpleName())) {
+		    return true;
+		}
+	    }
+	}
+	return false;
+    }
+}
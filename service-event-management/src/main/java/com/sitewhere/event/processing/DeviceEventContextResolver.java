@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import com.sitewhere.microservice.api.device.IDeviceManagement;
+import com.sitewhere.microservice.api.event.DeviceEventRequestBuilder;
+import com.sitewhere.rest.model.device.event.DeviceEventContext;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDeviceAssignment;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.device.event.IDeviceEventContext;
+
+/**
+ * Rebuilds the event context for stored events so they can be delivered in the
+ * same form as newly persisted events. Contexts are looked up once per
+ * assignment and kept in a bounded cache, so reading a long range of events
+ * only calls device management for each assignment it encounters.
+ */
+public class DeviceEventContextResolver {
+
+    /** Maximum number of cached contexts */
+    private static final int MAX_CACHED_CONTEXTS = 10000;
+
+    /** Device management API */
+    private IDeviceManagement deviceManagement;
+
+    /** Contexts by assignment id, least recently used first */
+    private Map<UUID, IDeviceEventContext> contexts = new LinkedHashMap<UUID, IDeviceEventContext>(256, 0.75f,
+	    true) {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<UUID, IDeviceEventContext> eldest) {
+	    return size() > MAX_CACHED_CONTEXTS;
+	}
+    };
+
+    public DeviceEventContextResolver(IDeviceManagement deviceManagement) {
+	this.deviceManagement = deviceManagement;
+    }
+
+    /**
+     * Get context for a stored event. Falls back to the ids stored with the event
+     * if its assignment no longer exists.
+     * 
+     * @param event
+     * @return
+     * @throws SiteWhereException
+     */
+    public IDeviceEventContext resolve(IDeviceEvent event) throws SiteWhereException {
+	IDeviceEventContext context = getContexts().get(event.getDeviceAssignmentId());
+	if (context == null) {
+	    IDeviceAssignment assignment = (event.getDeviceAssignmentId() != null)
+		    ? getDeviceManagement().getDeviceAssignment(event.getDeviceAssignmentId())
+		    : null;
+	    if (assignment != null) {
+		context = DeviceEventRequestBuilder.getContextForAssignment(getDeviceManagement(), assignment);
+	    } else {
+		DeviceEventContext fallback = new DeviceEventContext();
+		fallback.setDeviceId(event.getDeviceId());
+		fallback.setDeviceAssignmentId(event.getDeviceAssignmentId());
+		fallback.setCustomerId(event.getCustomerId());
+		fallback.setAreaId(event.getAreaId());
+		fallback.setAssetId(event.getAssetId());
+		context = fallback;
+	    }
+	    if (event.getDeviceAssignmentId() != null) {
+		getContexts().put(event.getDeviceAssignmentId(), context);
+	    }
+	}
+	return context;
+    }
+
+    protected IDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    protected Map<UUID, IDeviceEventContext> getContexts() {
+	return contexts;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Progress of an event replay. The cursor is updated as events are published
+ * and can be passed to a new replay of the same range to resume it.
+ */
+public class EventReplay {
+
+    /** Replay states */
+    public static enum State {
+	Queued, Running, Completed, Failed, Cancelled
+    }
+
+    /** Unique id */
+    private UUID id;
+
+    /** Original request */
+    private EventReplayRequest request;
+
+    /** Current state */
+    private State state = State.Queued;
+
+    /** Number of events published */
+    private long eventCount;
+
+    /** Position after the last event published */
+    private String cursor;
+
+    /** Error message if replay failed */
+    private String error;
+
+    /** Date replay was requested */
+    private Date createdDate;
+
+    /** Date replay started running */
+    private Date startedDate;
+
+    /** Date replay finished */
+    private Date finishedDate;
+
+    public UUID getId() {
+	return id;
+    }
+
+    public void setId(UUID id) {
+	this.id = id;
+    }
+
+    public EventReplayRequest getRequest() {
+	return request;
+    }
+
+    public void setRequest(EventReplayRequest request) {
+	this.request = request;
+    }
+
+    public State getState() {
+	return state;
+    }
+
+    public void setState(State state) {
+	this.state = state;
+    }
+
+    public long getEventCount() {
+	return eventCount;
+    }
+
+    public void setEventCount(long eventCount) {
+	this.eventCount = eventCount;
+    }
+
+    public String getCursor() {
+	return cursor;
+    }
+
+    public void setCursor(String cursor) {
+	this.cursor = cursor;
+    }
+
+    public String getError() {
+	return error;
+    }
+
+    public void setError(String error) {
+	this.error = error;
+    }
+
+    public Date getCreatedDate() {
+	return createdDate;
+    }
+
+    public void setCreatedDate(Date createdDate) {
+	this.createdDate = createdDate;
+    }
+
+    public Date getStartedDate() {
+	return startedDate;
+    }
+
+    public void setStartedDate(Date startedDate) {
+	this.startedDate = startedDate;
+    }
+
+    public Date getFinishedDate() {
+	return finishedDate;
+    }
+
+    public void setFinishedDate(Date finishedDate) {
+	this.finishedDate = finishedDate;
+    }
+
+    /**
+     * Create a copy that is safe to hand out while the replay is running.
+     * 
+     * @return
+     */
+    public synchronized EventReplay copy() {
+	EventReplay copy = new EventReplay();
+	copy.setId(getId());
+	copy.setRequest(getRequest());
+	copy.setState(getState());
+	copy.setEventCount(getEventCount());
+	copy.setCursor(getCursor());
+	copy.setError(getError());
+	copy.setCreatedDate(getCreatedDate());
+	copy.setStartedDate(getStartedDate());
+	copy.setFinishedDate(getFinishedDate());
+	return copy;
+    }
+}
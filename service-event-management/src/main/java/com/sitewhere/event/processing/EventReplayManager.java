@@ -0,0 +1,333 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.sitewhere.event.persistence.export.DeviceEventCursor;
+import com.sitewhere.event.persistence.export.DeviceEventExportReader;
+import com.sitewhere.event.spi.microservice.IEventManagementMicroservice;
+import com.sitewhere.event.spi.microservice.IEventManagementTenantEngine;
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.event.spi.processing.IEventReplayManager;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.microservice.security.SystemUserRunnable;
+import com.sitewhere.shared.event.ReplayedEvents;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
+
+import io.prometheus.client.Counter;
+
+/**
+ * Replays stored events to the outbound events topic. Events are read in date
+ * order one page at a time, so memory use does not depend on the size of the
+ * range, and are published at the requested rate or as fast as the datastore
+ * can read them. Replayed events are marked with {@link ReplayedEvents} so that
+ * rollups and device state ignore them and only the requested outbound
+ * connectors process them.
+ * 
+ * Replay status is kept in memory by the replica that accepted the replay, so
+ * it is only listed or cancelled through that replica and is lost when the
+ * replica stops. Progress is reported as a cursor that can be passed to a new
+ * replay to resume after a failure or restart.
+ */
+public class EventReplayManager extends TenantEngineLifecycleComponent implements IEventReplayManager {
+
+    /** Counter for replayed events */
+    private static final Counter EVENTS_REPLAYED = TenantEngineLifecycleComponent
+	    .createCounterMetric("event_replay_event_count", "Count of events republished by replays");
+
+    /** Maximum number of finished replays kept for reporting */
+    private static final int MAX_FINISHED_REPLAYS = 20;
+
+    /** Datastore access */
+    private IDeviceEventExport export;
+
+    /** Replays by id in the order requested */
+    private Map<UUID, EventReplay> replays = new LinkedHashMap<>();
+
+    /** Runs replays one at a time */
+    private ExecutorService executor;
+
+    public EventReplayManager(IDeviceEventExport export) {
+	super(LifecycleComponentType.Other);
+	this.export = export;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	this.executor = Executors.newSingleThreadExecutor(new ReplayThreadFactory());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	synchronized (replays) {
+	    for (EventReplay replay : replays.values()) {
+		synchronized (replay) {
+		    if (replay.getState() == EventReplay.State.Queued
+			    || replay.getState() == EventReplay.State.Running) {
+			finish(replay, EventReplay.State.Cancelled, "Event management was stopped.");
+			getLogger().info(String.format("Stopped event replay %s at cursor '%s'.", replay.getId(),
+				replay.getCursor()));
+		    }
+		}
+	    }
+	}
+	if (executor != null) {
+	    executor.shutdownNow();
+	}
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.processing.IEventReplayManager#startReplay(com.
+     * sitewhere.event.processing.EventReplayRequest)
+     */
+    @Override
+    public EventReplay startReplay(EventReplayRequest request) throws SiteWhereException {
+	if (request.getStartDate() == null) {
+	    throw new SiteWhereException("Start date is required for event replay.");
+	}
+	if (executor == null) {
+	    throw new SiteWhereException("Event replay manager is not started.");
+	}
+	DeviceEventCursor.parse(request.getCursor());
+	EventReplay replay = new EventReplay();
+	replay.setId(UUID.randomUUID());
+	replay.setRequest(request);
+	replay.setCursor(request.getCursor());
+	replay.setCreatedDate(new Date());
+	synchronized (replays) {
+	    replays.put(replay.getId(), replay);
+	    prune();
+	}
+	executor.execute(new ReplayRunner(replay));
+	return replay.copy();
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.processing.IEventReplayManager#listReplays()
+     */
+    @Override
+    public List<EventReplay> listReplays() throws SiteWhereException {
+	List<EventReplay> results = new ArrayList<>();
+	synchronized (replays) {
+	    for (EventReplay replay : replays.values()) {
+		results.add(replay.copy());
+	    }
+	}
+	return results;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.event.spi.processing.IEventReplayManager#cancelReplay(java.util
+     * .UUID)
+     */
+    @Override
+    public EventReplay cancelReplay(UUID id) throws SiteWhereException {
+	EventReplay replay;
+	synchronized (replays) {
+	    replay = replays.get(id);
+	}
+	if (replay == null) {
+	    throw new SiteWhereException("Event replay not found: " + id);
+	}
+	synchronized (replay) {
+	    if (replay.getState() == EventReplay.State.Queued || replay.getState() == EventReplay.State.Running) {
+		finish(replay, EventReplay.State.Cancelled, null);
+	    }
+	}
+	return replay.copy();
+    }
+
+    /**
+     * Drop the oldest finished replays beyond the reporting limit.
+     */
+    protected void prune() {
+	int finished = 0;
+	for (EventReplay replay : replays.values()) {
+	    if (isFinished(replay)) {
+		finished++;
+	    }
+	}
+	List<UUID> removed = new ArrayList<>();
+	for (EventReplay replay : replays.values()) {
+	    if (finished <= MAX_FINISHED_REPLAYS) {
+		break;
+	    }
+	    if (isFinished(replay)) {
+		removed.add(replay.getId());
+		finished--;
+	    }
+	}
+	for (UUID id : removed) {
+	    replays.remove(id);
+	}
+    }
+
+    /**
+     * Indicates whether a replay has stopped running.
+     * 
+     * @param replay
+     * @return
+     */
+    protected static boolean isFinished(EventReplay replay) {
+	synchronized (replay) {
+	    return replay.getState() != EventReplay.State.Queued && replay.getState() != EventReplay.State.Running;
+	}
+    }
+
+    /**
+     * Mark a replay as finished. Caller must hold the replay lock.
+     * 
+     * @param replay
+     * @param state
+     * @param error
+     */
+    protected static void finish(EventReplay replay, EventReplay.State state, String error) {
+	replay.setState(state);
+	replay.setError(error);
+	replay.setFinishedDate(new Date());
+    }
+
+    protected IDeviceEventExport getExport() {
+	return export;
+    }
+
+    protected IEventManagementTenantEngine getEventManagementTenantEngine() {
+	return (IEventManagementTenantEngine) getTenantEngine();
+    }
+
+    /**
+     * Publishes events for a single replay.
+     */
+    private class ReplayRunner extends SystemUserRunnable {
+
+	/** Replay being run */
+	private EventReplay replay;
+
+	public ReplayRunner(EventReplay replay) {
+	    super(EventReplayManager.this);
+	    this.replay = replay;
+	}
+
+	/*
+	 * @see com.sitewhere.microservice.security.SystemUserRunnable#
+	 * runAsSystemUser()
+	 */
+	@Override
+	public void runAsSystemUser() throws SiteWhereException {
+	    EventReplayRequest request = replay.getRequest();
+	    synchronized (replay) {
+		if (replay.getState() != EventReplay.State.Queued) {
+		    return;
+		}
+		replay.setState(EventReplay.State.Running);
+		replay.setStartedDate(new Date());
+	    }
+	    getLogger().info(String.format("Starting event replay %s.", replay.getId()));
+	    try {
+		DeviceEventExportReader reader = new DeviceEventExportReader(getExport(), request.getAssignmentIds(),
+			request.getStartDate(), request.getEndDate(), DeviceEventCursor.parse(request.getCursor()));
+		DeviceEventContextResolver resolver = new DeviceEventContextResolver(
+			((IEventManagementMicroservice) getMicroservice()).getDeviceManagement());
+		RateLimiter limiter = (request.getEventsPerSecond() > 0)
+			? RateLimiter.create(request.getEventsPerSecond())
+			: null;
+		DeviceEventCursor published = DeviceEventCursor.parse(request.getCursor());
+		while (true) {
+		    List<IDeviceEvent> page = reader.nextPage();
+		    if (page.isEmpty()) {
+			break;
+		    }
+		    for (IDeviceEvent event : page) {
+			if (isCancelled()) {
+			    return;
+			}
+			if (limiter != null) {
+			    limiter.acquire();
+			}
+			ReplayedEvents.mark(event, request.getConnectorIds());
+			OutboundPayloadEnrichmentLogic.redeliver(getEventManagementTenantEngine(),
+				resolver.resolve(event), event);
+			published.advance(event);
+			EVENTS_REPLAYED.labels(buildLabels()).inc();
+			synchronized (replay) {
+			    replay.setEventCount(replay.getEventCount() + 1);
+			    replay.setCursor(published.toString());
+			}
+		    }
+		}
+		synchronized (replay) {
+		    if (replay.getState() == EventReplay.State.Running) {
+			finish(replay, EventReplay.State.Completed, null);
+		    }
+		}
+		getLogger().info(String.format("Completed event replay %s after %d events.", replay.getId(),
+			replay.copy().getEventCount()));
+	    } catch (Throwable t) {
+		getLogger().error(String.format("Event replay %s failed.", replay.getId()), t);
+		synchronized (replay) {
+		    if (replay.getState() == EventReplay.State.Running) {
+			finish(replay, EventReplay.State.Failed, t.getMessage());
+		    }
+		}
+	    }
+	}
+
+	/**
+	 * Indicates whether the replay was cancelled.
+	 * 
+	 * @return
+	 */
+	protected boolean isCancelled() {
+	    synchronized (replay) {
+		return replay.getState() != EventReplay.State.Running;
+	    }
+	}
+    }
+
+    /**
+     * Names thread used to run replays.
+     */
+    private class ReplayThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Event Replay");
+	}
+    }
+}
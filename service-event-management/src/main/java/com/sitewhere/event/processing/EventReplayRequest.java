@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request to republish stored events for a time range to the outbound events
+ * topic.
+ */
+public class EventReplayRequest {
+
+    /** Assignments to replay (null or empty for all) */
+    private List<UUID> assignmentIds;
+
+    /** Start of the range */
+    private Date startDate;
+
+    /** End of the range (defaults to now) */
+    private Date endDate;
+
+    /** Maximum events published per second (zero for no limit) */
+    private double eventsPerSecond;
+
+    /** Cursor reported by an earlier replay of the same range to resume from */
+    private String cursor;
+
+    /** Outbound connectors that process replayed events (null or empty for all) */
+    private List<String> connectorIds;
+
+    public List<UUID> getAssignmentIds() {
+	return assignmentIds;
+    }
+
+    public void setAssignmentIds(List<UUID> assignmentIds) {
+	this.assignmentIds = assignmentIds;
+    }
+
+    public Date getStartDate() {
+	return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+	this.startDate = startDate;
+    }
+
+    public Date getEndDate() {
+	return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+	this.endDate = endDate;
+    }
+
+    public double getEventsPerSecond() {
+	return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(double eventsPerSecond) {
+	this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public String getCursor() {
+	return cursor;
+    }
+
+    public void setCursor(String cursor) {
+	this.cursor = cursor;
+    }
+
+    public List<String> getConnectorIds() {
+	return connectorIds;
+    }
+
+    public void setConnectorIds(List<String> connectorIds) {
+	this.connectorIds = connectorIds;
+    }
+}
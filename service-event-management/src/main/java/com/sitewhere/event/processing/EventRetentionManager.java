@@ -0,0 +1,204 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.sitewhere.event.configuration.EventRetentionConfiguration;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupBackfill;
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.event.spi.persistence.IDeviceEventRetention;
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.event.spi.processing.IEventRetentionManager;
+import com.sitewhere.event.spi.processing.IMaintenanceLease;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.microservice.security.SystemUserRunnable;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventType;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
+
+/**
+ * Applies tenant retention settings to the event datastore at the configured
+ * interval. Only the replica holding the maintenance lease does the work; a
+ * replica that acquires the lease applies retention within a minute. If
+ * measurements expire and rollups are maintained, raw measurements older than
+ * the rollup coverage date are rolled up back to the retention boundary before
+ * they expire so that long-term tiers cover the full history.
+ */
+public class EventRetentionManager extends TenantEngineLifecycleComponent implements IEventRetentionManager {
+
+    /** Seconds between checks of the maintenance lease */
+    private static final int LEASE_CHECK_INTERVAL_SECONDS = 60;
+
+    /** Retention settings */
+    private EventRetentionConfiguration retention;
+
+    /** Datastore retention support (null if not supported) */
+    private IDeviceEventRetention datastore;
+
+    /** Source of raw measurements for backfill (null if not supported) */
+    private IDeviceEventExport export;
+
+    /** Rollup store (null if rollups are not maintained) */
+    private IMeasurementRollupStore rollupStore;
+
+    /** Lease that must be held to apply retention */
+    private IMaintenanceLease lease;
+
+    /** Runs retention checks */
+    private ScheduledExecutorService executor;
+
+    /** Time retention was last applied while holding the lease */
+    private long lastApplied = 0;
+
+    public EventRetentionManager(EventRetentionConfiguration retention, IDeviceEventRetention datastore,
+	    IDeviceEventExport export, IMeasurementRollupStore rollupStore, IMaintenanceLease lease) {
+	super(LifecycleComponentType.Other);
+	this.retention = (retention != null) ? retention : new EventRetentionConfiguration();
+	this.datastore = datastore;
+	this.export = export;
+	this.rollupStore = rollupStore;
+	this.lease = lease;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	this.executor = Executors.newSingleThreadScheduledExecutor(new RetentionThreadFactory());
+	executor.scheduleWithFixedDelay(new RetentionRunner(), 0, LEASE_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (executor != null) {
+	    executor.shutdownNow();
+	}
+    }
+
+    /**
+     * Apply retention if this replica holds the lease and the check interval
+     * has passed since it was last applied here. Losing the lease resets the
+     * interval so the next holder applies retention promptly.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void checkRetention() throws SiteWhereException {
+	if (getLease() != null && !getLease().isHeld()) {
+	    this.lastApplied = 0;
+	    return;
+	}
+	long now = System.currentTimeMillis();
+	long interval = TimeUnit.MINUTES.toMillis(Math.max(1, getRetention().getCheckIntervalMinutes()));
+	if (now - lastApplied < interval) {
+	    return;
+	}
+	this.lastApplied = now;
+	applyRetention();
+    }
+
+    /**
+     * Apply retention settings and roll up measurements that are about to
+     * expire.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void applyRetention() throws SiteWhereException {
+	int days = getRetention().getRetentionDays(DeviceEventType.Measurement);
+	if (getRetention().isDownsampleMeasurements() && days > 0 && getExport() != null
+		&& getRollupStore() != null) {
+	    long expiry = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+	    long count = new MeasurementRollupBackfill(getExport(), getRollupStore()).backfill(new Date(expiry));
+	    if (count > 0) {
+		getLogger().info(String.format("Rolled up %d measurements ahead of expiry.", count));
+	    }
+	}
+	if (getDatastore() != null) {
+	    getDatastore().applyRetention(getRetention());
+	}
+    }
+
+    /**
+     * Runs a retention check.
+     */
+    private class RetentionRunner extends SystemUserRunnable {
+
+	public RetentionRunner() {
+	    super(EventRetentionManager.this);
+	}
+
+	/*
+	 * @see com.sitewhere.microservice.security.SystemUserRunnable#
+	 * runAsSystemUser()
+	 */
+	@Override
+	public void runAsSystemUser() throws SiteWhereException {
+	    try {
+		checkRetention();
+	    } catch (Throwable t) {
+		getLogger().error("Unable to apply event retention settings.", t);
+	    }
+	}
+    }
+
+    /**
+     * Used for naming retention thread.
+     */
+    private class RetentionThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Event Retention");
+	}
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.processing.IEventRetentionManager#
+     * getRetention()
+     */
+    @Override
+    public EventRetentionConfiguration getRetention() {
+	return retention;
+    }
+
+    protected IDeviceEventRetention getDatastore() {
+	return datastore;
+    }
+
+    protected IDeviceEventExport getExport() {
+	return export;
+    }
+
+    protected IMeasurementRollupStore getRollupStore() {
+	return rollupStore;
+    }
+
+    protected IMaintenanceLease getLease() {
+	return lease;
+    }
+}
@@ -0,0 +1,350 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.sitewhere.event.configuration.EventSpillConfiguration;
+import com.sitewhere.event.spi.processing.IEventSpillBuffer;
+import com.sitewhere.event.spi.processing.IEventSpillHandler;
+import com.sitewhere.grpc.model.DeviceEventModel.GPreprocessedEventPayload;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
+
+import io.prometheus.client.Counter;
+
+/**
+ * Implementation of {@link IEventSpillBuffer} that keeps events in an
+ * {@link EventSpillLog} under a per-tenant directory. Buffered events are
+ * replayed on a single thread at a limited rate. If the datastore is still
+ * unavailable, replay stops and is retried after the configured interval, so
+ * a recovering datastore sees steady load rather than a burst of the whole
+ * backlog. An event that keeps failing while a later event can be persisted
+ * is discarded after the configured number of attempts so that it does not
+ * hold up the rest of the buffer. Appended events are forced to disk together
+ * at a fixed interval rather than one at a time.
+ */
+public class EventSpillBuffer extends TenantEngineLifecycleComponent implements IEventSpillBuffer {
+
+    /** Counter for events added to buffer */
+    private static final Counter EVENTS_SPILLED = TenantEngineLifecycleComponent
+	    .createCounterMetric("event_spill_write_count", "Count of events buffered after failed persistence");
+
+    /** Counter for bytes added to buffer */
+    private static final Counter BYTES_SPILLED = TenantEngineLifecycleComponent
+	    .createCounterMetric("event_spill_write_bytes", "Count of bytes buffered after failed persistence");
+
+    /** Counter for events replayed from buffer */
+    private static final Counter EVENTS_REPLAYED = TenantEngineLifecycleComponent
+	    .createCounterMetric("event_spill_replay_count", "Count of buffered events replayed");
+
+    /** Counter for bytes replayed from buffer */
+    private static final Counter BYTES_REPLAYED = TenantEngineLifecycleComponent
+	    .createCounterMetric("event_spill_replay_bytes", "Count of buffered bytes replayed");
+
+    /** Counter for events that could not be buffered or replayed */
+    private static final Counter EVENTS_DROPPED = TenantEngineLifecycleComponent
+	    .createCounterMetric("event_spill_drop_count", "Count of events dropped by spill buffer");
+
+    /** Number of bytes in a megabyte */
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    /** Buffer settings */
+    private EventSpillConfiguration configuration;
+
+    /** Persists replayed events */
+    private IEventSpillHandler handler;
+
+    /** Log holding buffered events (null if not available) */
+    private volatile EventSpillLog log;
+
+    /** Limits rate of replay */
+    private RateLimiter limiter;
+
+    /** Runs replay and sync */
+    private ScheduledExecutorService executor;
+
+    /** Indicates the datastore accepted the last event written to it */
+    private volatile boolean available = true;
+
+    /** Number of failed attempts to replay the event at the head of the log */
+    private int headAttempts;
+
+    public EventSpillBuffer(EventSpillConfiguration configuration, IEventSpillHandler handler) {
+	super(LifecycleComponentType.Other);
+	this.configuration = (configuration != null) ? configuration : new EventSpillConfiguration();
+	this.handler = handler;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (!getConfiguration().isEnabled()) {
+	    getLogger().info("Event spill buffer disabled. Events that fail to persist will be dropped.");
+	    return;
+	}
+	Path directory = Paths.get(getConfiguration().getDirectory(),
+		getTenantEngine().getTenantResource().getMetadata().getName(), "persistence");
+	EventSpillLog opened = new EventSpillLog(directory,
+		Math.max(1, getConfiguration().getSegmentMegabytes()) * BYTES_PER_MEGABYTE,
+		Math.max(1, getConfiguration().getMaxMegabytes()) * BYTES_PER_MEGABYTE);
+	try {
+	    opened.open();
+	} catch (IOException e) {
+	    getLogger().error(String.format(
+		    "Unable to open event spill buffer in '%s'. Events that fail to persist will be dropped.",
+		    directory), e);
+	    return;
+	}
+	if (!opened.isEmpty()) {
+	    getLogger().info(String.format("Found %d buffered events (%d bytes) waiting to be persisted.",
+		    opened.getBufferedEventCount(), opened.getBufferedBytes()));
+	}
+	this.log = opened;
+	this.limiter = RateLimiter.create(Math.max(1, getConfiguration().getReplayEventsPerSecond()));
+	long interval = Math.max(1, getConfiguration().getRetryIntervalSeconds());
+	long syncInterval = Math.max(1, getConfiguration().getSyncIntervalMillis());
+	this.executor = Executors.newScheduledThreadPool(2, new ReplayThreadFactory());
+	executor.scheduleWithFixedDelay(() -> replay(), interval, interval, TimeUnit.SECONDS);
+	executor.scheduleWithFixedDelay(() -> sync(), syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (executor != null) {
+	    executor.shutdownNow();
+	    try {
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+	if (getLog() != null) {
+	    try {
+		getLog().close();
+	    } catch (IOException e) {
+		getLogger().error("Unable to close event spill buffer.", e);
+	    }
+	    this.log = null;
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.event.spi.processing.IEventSpillBuffer#spill(com.sitewhere.
+     * grpc.model.DeviceEventModel.GPreprocessedEventPayload)
+     */
+    @Override
+    public boolean spill(GPreprocessedEventPayload payload) {
+	EventSpillLog current = getLog();
+	if (current == null) {
+	    return false;
+	}
+	this.available = false;
+	byte[] data = payload.toByteArray();
+	try {
+	    if (current.append(data)) {
+		EVENTS_SPILLED.labels(buildLabels()).inc();
+		BYTES_SPILLED.labels(buildLabels()).inc(data.length);
+		return true;
+	    }
+	    getLogger().error(String.format("Event spill buffer is full (%d events). Dropping event.",
+		    current.getBufferedEventCount()));
+	} catch (IOException e) {
+	    getLogger().error("Unable to write event to spill buffer.", e);
+	}
+	EVENTS_DROPPED.labels(buildLabels()).inc();
+	return false;
+    }
+
+    /**
+     * Force appended events to disk.
+     */
+    protected void sync() {
+	EventSpillLog current = getLog();
+	try {
+	    if (current != null) {
+		current.sync();
+	    }
+	} catch (Throwable t) {
+	    getLogger().error("Unable to sync event spill buffer.", t);
+	}
+    }
+
+    /**
+     * Replay buffered events in order until the buffer is empty or the
+     * datastore rejects an event.
+     */
+    protected void replay() {
+	EventSpillLog current = getLog();
+	try {
+	    long replayed = 0;
+	    byte[] data;
+	    while (!Thread.currentThread().isInterrupted() && (data = current.peek()) != null) {
+		GPreprocessedEventPayload payload;
+		try {
+		    payload = GPreprocessedEventPayload.parseFrom(data);
+		} catch (InvalidProtocolBufferException e) {
+		    getLogger().error("Discarding buffered event that could not be parsed.", e);
+		    EVENTS_DROPPED.labels(buildLabels()).inc();
+		    current.commit(data);
+		    this.headAttempts = 0;
+		    continue;
+		}
+		getLimiter().acquire();
+		if (getHandler().replay(payload)) {
+		    replayed(current, data);
+		    replayed++;
+		    continue;
+		}
+		if (++headAttempts < getConfiguration().getMaxReplayAttempts() || !skipHead(current, data)) {
+		    getLogger().warn(String.format(
+			    "Datastore still unavailable after replaying %d events. %d events (%d bytes) buffered.",
+			    replayed, current.getBufferedEventCount(), current.getBufferedBytes()));
+		    return;
+		}
+		replayed++;
+	    }
+	    if (replayed > 0 && current.isEmpty()) {
+		getLogger().info(String.format("Persisted %d buffered events.", replayed));
+	    }
+	} catch (Throwable t) {
+	    getLogger().error("Unable to replay buffered events.", t);
+	}
+    }
+
+    /**
+     * Persist the event after the head of the log to find out whether the head
+     * keeps failing because of the datastore or because of the event itself.
+     * If the later event is persisted, the head is discarded.
+     * 
+     * @param current
+     * @param head
+     * @return true if the head was discarded and the later event persisted
+     * @throws IOException
+     */
+    protected boolean skipHead(EventSpillLog current, byte[] head) throws IOException {
+	byte[] next = current.peekNext();
+	if (next == null) {
+	    return false;
+	}
+	GPreprocessedEventPayload payload;
+	try {
+	    payload = GPreprocessedEventPayload.parseFrom(next);
+	} catch (InvalidProtocolBufferException e) {
+	    return false;
+	}
+	getLimiter().acquire();
+	if (!getHandler().replay(payload)) {
+	    return false;
+	}
+	getLogger().error(String.format(
+		"Discarding buffered event after %d failed attempts while later events were persisted.", headAttempts));
+	EVENTS_DROPPED.labels(buildLabels()).inc();
+	current.commit(head);
+	this.headAttempts = 0;
+	replayed(current, current.peek());
+	return true;
+    }
+
+    /**
+     * Remove a persisted event from the head of the log.
+     * 
+     * @param current
+     * @param data
+     * @throws IOException
+     */
+    protected void replayed(EventSpillLog current, byte[] data) throws IOException {
+	current.commit(data);
+	this.headAttempts = 0;
+	this.available = true;
+	EVENTS_REPLAYED.labels(buildLabels()).inc();
+	BYTES_REPLAYED.labels(buildLabels()).inc(data.length);
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.processing.IEventSpillBuffer#isActive()
+     */
+    @Override
+    public boolean isActive() {
+	EventSpillLog current = getLog();
+	return (current != null) && !available;
+    }
+
+    /*
+     * @see com.sitewhere.event.spi.processing.IEventSpillBuffer#getBufferedBytes()
+     */
+    @Override
+    public long getBufferedBytes() {
+	EventSpillLog current = getLog();
+	return (current != null) ? current.getBufferedBytes() : 0;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.event.spi.processing.IEventSpillBuffer#getBufferedEventCount()
+     */
+    @Override
+    public long getBufferedEventCount() {
+	EventSpillLog current = getLog();
+	return (current != null) ? current.getBufferedEventCount() : 0;
+    }
+
+    /**
+     * Used for naming replay thread.
+     */
+    private class ReplayThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Event Spill Worker");
+	}
+    }
+
+    protected EventSpillConfiguration getConfiguration() {
+	return configuration;
+    }
+
+    protected IEventSpillHandler getHandler() {
+	return handler;
+    }
+
+    protected EventSpillLog getLog() {
+	return log;
+    }
+
+    protected RateLimiter getLimiter() {
+	return limiter;
+    }
+}
@@ -0,0 +1,402 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Append-only log of serialized events split across numbered segment files.
+ * Each record is written as its length, a CRC32 checksum and the data. Appends
+ * are not forced to disk individually; {@link #sync()} forces everything
+ * appended since the last call, so callers can group many appends into one
+ * fsync. A new segment is started each time the log is opened, so a record torn by a crash can only be found at the
+ * end of an older segment, where it is skipped. Segments are deleted once all
+ * of their records have been read and the read position is checkpointed so
+ * that reading resumes where it left off after a restart.
+ */
+public class EventSpillLog {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(EventSpillLog.class);
+
+    /** Prefix for segment file names */
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /** Suffix for segment file names */
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /** File holding the read position */
+    private static final String CHECKPOINT_FILE = "replay.checkpoint";
+
+    /** Bytes for record length and checksum */
+    private static final int HEADER_BYTES = 12;
+
+    /** Number of records read between checkpoints */
+    private static final int CHECKPOINT_INTERVAL = 100;
+
+    /** Directory containing segments */
+    private Path directory;
+
+    /** Size at which a new segment is started */
+    private long segmentBytes;
+
+    /** Maximum bytes waiting to be read */
+    private long maxBytes;
+
+    /** Segment files by sequence number */
+    private TreeMap<Long, Path> segments = new TreeMap<>();
+
+    /** Sequence number of segment being written */
+    private long writeSequence;
+
+    /** Channel for segment being written */
+    private FileChannel writer;
+
+    /** Bytes written to current segment */
+    private long writeOffset;
+
+    /** Sequence number of segment being read */
+    private long readSequence;
+
+    /** Channel for segment being read */
+    private FileChannel reader;
+
+    /** Offset of next record in segment being read */
+    private long readOffset;
+
+    /** Bytes waiting to be read */
+    private long bufferedBytes;
+
+    /** Records waiting to be read */
+    private long bufferedEvents;
+
+    /** Records read since last checkpoint */
+    private int uncheckpointed;
+
+    /** Indicates records were appended since the last sync */
+    private boolean unsynced;
+
+    public EventSpillLog(Path directory, long segmentBytes, long maxBytes) {
+	this.directory = directory;
+	this.segmentBytes = segmentBytes;
+	this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Open the log, counting records left from an earlier run.
+     * 
+     * @throws IOException
+     */
+    public synchronized void open() throws IOException {
+	Files.createDirectories(getDirectory());
+	try (DirectoryStream<Path> stream = Files.newDirectoryStream(getDirectory(),
+		SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+	    for (Path path : stream) {
+		String name = path.getFileName().toString();
+		try {
+		    segments.put(Long.parseLong(
+			    name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), path);
+		} catch (NumberFormatException e) {
+		    LOGGER.warn(String.format("Ignoring unexpected file '%s' in event spill directory.", name));
+		}
+	    }
+	}
+
+	// Drop segments that were fully read before the checkpoint.
+	long[] checkpoint = readCheckpoint();
+	if (checkpoint != null) {
+	    while (!segments.isEmpty() && segments.firstKey() < checkpoint[0]) {
+		Files.deleteIfExists(segments.pollFirstEntry().getValue());
+	    }
+	    if (!segments.isEmpty() && segments.firstKey() == checkpoint[0]) {
+		this.readOffset = checkpoint[1];
+	    }
+	}
+
+	for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+	    long start = (segment.getKey().longValue() == segments.firstKey()) ? readOffset : 0;
+	    try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+		long position = start;
+		byte[] data;
+		while ((data = readRecord(channel, position)) != null) {
+		    position += HEADER_BYTES + data.length;
+		    bufferedEvents++;
+		}
+		bufferedBytes += position - start;
+	    }
+	}
+
+	startSegment(segments.isEmpty() ? 0 : segments.lastKey() + 1);
+	this.readSequence = segments.firstKey();
+	if (readSequence == writeSequence) {
+	    this.readOffset = 0;
+	}
+    }
+
+    /**
+     * Append a record.
+     * 
+     * @param data
+     * @return false if the log is full
+     * @throws IOException
+     */
+    public synchronized boolean append(byte[] data) throws IOException {
+	long size = HEADER_BYTES + data.length;
+	if (bufferedBytes + size > maxBytes) {
+	    return false;
+	}
+	if (writeOffset > 0 && writeOffset + size > segmentBytes) {
+	    sync();
+	    writer.close();
+	    startSegment(writeSequence + 1);
+	}
+	CRC32 crc = new CRC32();
+	crc.update(data);
+	ByteBuffer buffer = ByteBuffer.allocate((int) size);
+	buffer.putInt(data.length).putLong(crc.getValue()).put(data).flip();
+	while (buffer.hasRemaining()) {
+	    writer.write(buffer);
+	}
+	this.unsynced = true;
+	writeOffset += size;
+	bufferedBytes += size;
+	bufferedEvents++;
+	return true;
+    }
+
+    /**
+     * Force appended records to disk.
+     * 
+     * @throws IOException
+     */
+    public synchronized void sync() throws IOException {
+	if (unsynced && writer != null) {
+	    writer.force(false);
+	    this.unsynced = false;
+	}
+    }
+
+    /**
+     * Get the next record without removing it.
+     * 
+     * @return record data or null if no records are waiting
+     * @throws IOException
+     */
+    public synchronized byte[] peek() throws IOException {
+	while (true) {
+	    if (reader == null) {
+		this.reader = FileChannel.open(segments.get(readSequence), StandardOpenOption.READ);
+	    }
+	    byte[] data = readRecord(reader, readOffset);
+	    if (data != null) {
+		return data;
+	    }
+	    if (readSequence == writeSequence) {
+		return null;
+	    }
+	    if (readOffset < reader.size()) {
+		LOGGER.warn(String.format("Skipped %d bytes of incomplete record at end of event spill segment %d.",
+			reader.size() - readOffset, readSequence));
+	    }
+	    reader.close();
+	    this.reader = null;
+	    Files.deleteIfExists(segments.remove(readSequence));
+	    this.readSequence = segments.firstKey();
+	    this.readOffset = 0;
+	    writeCheckpoint();
+	}
+    }
+
+    /**
+     * Get the record after the one returned by {@link #peek()} without removing
+     * either.
+     * 
+     * @return record data or null if fewer than two records are waiting
+     * @throws IOException
+     */
+    public synchronized byte[] peekNext() throws IOException {
+	byte[] head = peek();
+	if (head == null) {
+	    return null;
+	}
+	byte[] data = readRecord(reader, readOffset + HEADER_BYTES + head.length);
+	Long sequence = readSequence;
+	while (data == null && (sequence = segments.higherKey(sequence)) != null) {
+	    try (FileChannel channel = FileChannel.open(segments.get(sequence), StandardOpenOption.READ)) {
+		data = readRecord(channel, 0);
+	    }
+	}
+	return data;
+    }
+
+    /**
+     * Remove the record returned by {@link #peek()}.
+     * 
+     * @param data
+     * @throws IOException
+     */
+    public synchronized void commit(byte[] data) throws IOException {
+	long size = HEADER_BYTES + data.length;
+	readOffset += size;
+	bufferedBytes -= size;
+	bufferedEvents--;
+	if (++uncheckpointed >= CHECKPOINT_INTERVAL) {
+	    writeCheckpoint();
+	}
+    }
+
+    /**
+     * Close the log, saving the read position.
+     * 
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+	sync();
+	writeCheckpoint();
+	if (reader != null) {
+	    reader.close();
+	    this.reader = null;
+	}
+	if (writer != null) {
+	    writer.close();
+	    this.writer = null;
+	}
+    }
+
+    /**
+     * Start writing a new segment.
+     * 
+     * @param sequence
+     * @throws IOException
+     */
+    protected void startSegment(long sequence) throws IOException {
+	Path path = getDirectory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+	this.writer = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+	this.writeSequence = sequence;
+	this.writeOffset = 0;
+	segments.put(sequence, path);
+    }
+
+    /**
+     * Read the saved read position.
+     * 
+     * @return segment sequence and offset or null if not saved
+     */
+    protected long[] readCheckpoint() {
+	Path path = getDirectory().resolve(CHECKPOINT_FILE);
+	if (!Files.exists(path)) {
+	    return null;
+	}
+	try {
+	    String[] parts = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim().split(" ");
+	    return new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]) };
+	} catch (Exception e) {
+	    LOGGER.warn("Unable to read event spill checkpoint. Replaying from start of oldest segment.", e);
+	    return null;
+	}
+    }
+
+    /**
+     * Save the read position.
+     * 
+     * @throws IOException
+     */
+    protected void writeCheckpoint() throws IOException {
+	Path path = getDirectory().resolve(CHECKPOINT_FILE);
+	Path temp = getDirectory().resolve(CHECKPOINT_FILE + ".tmp");
+	Files.write(temp, (readSequence + " " + readOffset).getBytes(StandardCharsets.UTF_8));
+	Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	this.uncheckpointed = 0;
+    }
+
+    /**
+     * Read the record at a position.
+     * 
+     * @param channel
+     * @param position
+     * @return record data or null if no complete record is at the position
+     * @throws IOException
+     */
+    protected static byte[] readRecord(FileChannel channel, long position) throws IOException {
+	long size = channel.size();
+	if (position + HEADER_BYTES > size) {
+	    return null;
+	}
+	ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+	readFully(channel, header, position);
+	header.flip();
+	int length = header.getInt();
+	long checksum = header.getLong();
+	if (length < 0 || position + HEADER_BYTES + length > size) {
+	    return null;
+	}
+	ByteBuffer data = ByteBuffer.allocate(length);
+	readFully(channel, data, position + HEADER_BYTES);
+	CRC32 crc = new CRC32();
+	crc.update(data.array());
+	if (crc.getValue() != checksum) {
+	    return null;
+	}
+	return data.array();
+    }
+
+    /**
+     * Fill a buffer from a channel.
+     * 
+     * @param channel
+     * @param buffer
+     * @param position
+     * @throws IOException
+     */
+    protected static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+	while (buffer.hasRemaining()) {
+	    if (channel.read(buffer, position + buffer.position()) < 0) {
+		throw new EOFException();
+	    }
+	}
+    }
+
+    public synchronized boolean isEmpty() {
+	return bufferedEvents == 0;
+    }
+
+    public synchronized long getBufferedBytes() {
+	return bufferedBytes;
+    }
+
+    public synchronized long getBufferedEventCount() {
+	return bufferedEvents;
+    }
+
+    protected Path getDirectory() {
+	return directory;
+    }
+}
@@ -47,14 +47,8 @@ public class OutboundPayloadEnrichmentLogic {
     public static void enrichAndDeliver(IEventManagementTenantEngine engine, IDeviceEventContext context,
 	    IDeviceEvent event) throws SiteWhereException {
 	try {
-	    // Build processed payload.
-	    ProcessedEventPayload enriched = new ProcessedEventPayload();
-	    enriched.setEventContext(context);
-	    enriched.setEvent(event);
-
 	    // Send enriched payload to topic.
-	    GProcessedEventPayload grpc = EventModelConverter.asGrpcProcessedEventPayload(enriched);
-	    byte[] message = EventModelMarshaler.buildProcessedEventPayloadMessage(grpc);
+	    byte[] message = buildPayloadMessage(context, event);
 	    engine.getOutboundEventsProducer().send(context.getDeviceId(), message);
 	    LOGGER.debug("Delivered payload to outbound events producer.");
 
@@ -69,4 +63,54 @@ public class OutboundPayloadEnrichmentLogic {
 	    throw new SiteWhereException("Unhandled exception in event enrichment logic.", t);
 	}
     }
+
+    /**
+     * Deliver a previously persisted event to the outbound events topic again.
+     * Command invocations are not forwarded for delivery so that replaying
+     * history does not resend commands to devices.
+     * 
+     * @param engine
+     * @param context
+     * @param event
+     * @throws SiteWhereException
+     */
+    public static void redeliver(IEventManagementTenantEngine engine, IDeviceEventContext context,
+	    IDeviceEvent event) throws SiteWhereException {
+	try {
+	    engine.getOutboundEventsProducer().send(context.getDeviceId(), buildPayloadMessage(context, event));
+	} catch (SiteWhereException e) {
+	    throw e;
+	} catch (Throwable t) {
+	    throw new SiteWhereException("Unhandled exception in event redelivery.", t);
+	}
+    }
+
+    /**
+     * Build processed payload message for an event.
+     * 
+     * @param context
+     * @param event
+     * @return
+     * @throws SiteWhereException
+     */
+    public static byte[] buildPayloadMessage(IDeviceEventContext context, IDeviceEvent event)
+	    throws SiteWhereException {
+	return EventModelMarshaler.buildProcessedEventPayloadMessage(buildPayload(context, event));
+    }
+
+    /**
+     * Build processed payload for an event.
+     * 
+     * @param context
+     * @param event
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GProcessedEventPayload buildPayload(IDeviceEventContext context, IDeviceEvent event)
+	    throws SiteWhereException {
+	ProcessedEventPayload enriched = new ProcessedEventPayload();
+	enriched.setEventContext(context);
+	enriched.setEvent(event);
+	return EventModelConverter.asGrpcProcessedEventPayload(enriched);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.grpc;
+
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregationRequest;
+import com.sitewhere.event.persistence.aggregate.MeasurementAggregationResponse;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Handles measurement rollup requests received over GRPC.
+ */
+public interface IMeasurementAggregationService extends IGrpcApiImplementation {
+
+    /**
+     * Compute measurement rollups.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void aggregateMeasurements(MeasurementAggregationRequest request,
+	    StreamObserver<MeasurementAggregationResponse> responseObserver);
+}
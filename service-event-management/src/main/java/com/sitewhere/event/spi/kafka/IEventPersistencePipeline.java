@@ -15,10 +15,26 @@
  */
 package com.sitewhere.event.spi.kafka;
 
+import com.sitewhere.event.spi.processing.IEventSpillBuffer;
+import com.sitewhere.event.spi.processing.IMaintenanceLease;
 import com.sitewhere.spi.microservice.kafka.IKafkaStreamPipeline;
 
 /**
  * Kafka stream pipeline for persisting decoded, preprocessed events.
  */
 public interface IEventPersistencePipeline extends IKafkaStreamPipeline {
+
+    /**
+     * Get buffer holding events that could not be persisted.
+     * 
+     * @return
+     */
+    public IEventSpillBuffer getEventSpillBuffer();
+
+    /**
+     * Get lease held by the replica responsible for tenant maintenance.
+     * 
+     * @return
+     */
+    public IMaintenanceLease getMaintenanceLease();
 }
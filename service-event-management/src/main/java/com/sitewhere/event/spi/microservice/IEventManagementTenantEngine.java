@@ -16,9 +16,16 @@
 package com.sitewhere.event.spi.microservice;
 
 import com.sitewhere.event.configuration.EventManagementTenantConfiguration;
+import com.sitewhere.event.grpc.EventExportImpl;
+import com.sitewhere.event.grpc.EventStreamingImpl;
+import com.sitewhere.event.spi.grpc.IMeasurementAggregationService;
 import com.sitewhere.event.spi.kafka.IEventPersistencePipeline;
+import com.sitewhere.event.spi.kafka.IMeasurementRollupPipeline;
 import com.sitewhere.event.spi.kafka.IOutboundCommandInvocationsProducer;
 import com.sitewhere.event.spi.kafka.IOutboundEventsProducer;
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.event.spi.processing.IEventReplayManager;
+import com.sitewhere.event.spi.processing.IEventRetentionManager;
 import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
 import com.sitewhere.microservice.api.event.IDeviceEventManagement;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
@@ -43,6 +50,43 @@ public interface IEventManagementTenantEngine extends IMicroserviceTenantEngine<
      */
     public DeviceEventManagementGrpc.DeviceEventManagementImplBase getEventManagementImpl();
 
+    /**
+     * Get implementation class that handles measurement rollup requests.
+     * 
+     * @return
+     */
+    public IMeasurementAggregationService getMeasurementAggregationImpl();
+
+    /**
+     * Get implementation class that handles streaming event list requests.
+     * 
+     * @return
+     */
+    public EventStreamingImpl getEventStreamingImpl();
+
+    /**
+     * Get implementation class that handles bulk event export and replay
+     * requests.
+     * 
+     * @return
+     */
+    public EventExportImpl getEventExportImpl();
+
+    /**
+     * Get component that republishes stored events to the outbound events topic
+     * (null if not supported by the configured datastore).
+     * 
+     * @return
+     */
+    public IEventReplayManager getEventReplayManager();
+
+    /**
+     * Get component that applies event retention settings.
+     * 
+     * @return
+     */
+    public IEventRetentionManager getEventRetentionManager();
+
     /**
      * Get Kafka Streams pipeline for events prepared by inbound processing logic.
      * 
@@ -50,6 +94,20 @@ public interface IEventManagementTenantEngine extends IMicroserviceTenantEngine<
      */
     public IEventPersistencePipeline getPreprocessedEventsPipeline();
 
+    /**
+     * Get store for measurement rollup tiers.
+     * 
+     * @return store or null if rollups are not maintained
+     */
+    public IMeasurementRollupStore getMeasurementRollupStore();
+
+    /**
+     * Get Kafka Streams pipeline that maintains measurement rollup tiers.
+     * 
+     * @return pipeline or null if rollups are not maintained
+     */
+    public IMeasurementRollupPipeline getMeasurementRollupPipeline();
+
     /**
      * Get Kafka producer that sends enriched, persisted events to a topic.
      * 
@@ -0,0 +1,44 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.persistence;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+
+/**
+ * Optional datastore support for reading events of all types in date order so
+ * that they can be exported or replayed in bulk.
+ */
+public interface IDeviceEventExport {
+
+    /**
+     * List events of all types with event dates in the given range (inclusive),
+     * ordered by event date with the oldest first.
+     * 
+     * @param assignmentIds assignments to include (null or empty for all)
+     * @param startDate
+     * @param endDate
+     * @param maxResults
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<? extends IDeviceEvent> listDeviceEventsForExport(List<UUID> assignmentIds, Date startDate,
+	    Date endDate, int maxResults) throws SiteWhereException;
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.persistence;
+
+import com.sitewhere.event.configuration.EventRetentionConfiguration;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Optional datastore support for expiring events using native retention
+ * features of the underlying store.
+ */
+public interface IDeviceEventRetention {
+
+    /**
+     * Apply retention settings. Called when the tenant engine starts and
+     * periodically afterward, so implementations should only make changes that
+     * are needed to bring the datastore in line with the settings.
+     * 
+     * @param retention
+     * @throws SiteWhereException
+     */
+    public void applyRetention(EventRetentionConfiguration retention) throws SiteWhereException;
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.persistence;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventIndex;
+
+/**
+ * Computes time-bucketed rollups of measurement events so that chart queries
+ * return a bounded number of points regardless of raw sample count.
+ */
+public interface IDeviceMeasurementAggregation {
+
+    /**
+     * Compute min/max/avg/count/last for each measurement name per interval for
+     * each entity in an index.
+     * 
+     * @param index
+     * @param entityIds
+     * @param criteria
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IMeasurementSeries> aggregateMeasurements(DeviceEventIndex index, List<UUID> entityIds,
+	    IMeasurementAggregationCriteria criteria) throws SiteWhereException;
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.persistence;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Criteria for a measurement rollup query.
+ */
+public interface IMeasurementAggregationCriteria {
+
+    /**
+     * Get measurement names to include (empty for all).
+     * 
+     * @return
+     */
+    public List<String> getMeasurementNames();
+
+    /**
+     * Get start of range.
+     * 
+     * @return
+     */
+    public Date getStartDate();
+
+    /**
+     * Get end of range.
+     * 
+     * @return
+     */
+    public Date getEndDate();
+
+    /**
+     * Get bucket interval in milliseconds (null to derive from range).
+     * 
+     * @return
+     */
+    public Long getIntervalMs();
+
+    /**
+     * Get maximum points per series when deriving interval.
+     * 
+     * @return
+     */
+    public int getMaxPoints();
+
+    /**
+     * Get end of range, defaulting to now.
+     * 
+     * @return
+     */
+    public Date getResolvedEndDate();
+
+    /**
+     * Get start of range, defaulting to a fixed period before the end.
+     * 
+     * @return
+     */
+    public Date getResolvedStartDate();
+
+    /**
+     * Get bucket interval, widened if needed to stay within the maximum number
+     * of points.
+     * 
+     * @return
+     */
+    public long getResolvedIntervalMs();
+}
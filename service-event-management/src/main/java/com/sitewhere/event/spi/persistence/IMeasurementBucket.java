@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.persistence;
+
+import java.util.Date;
+
+/**
+ * Rollup of measurement values within a single interval.
+ */
+public interface IMeasurementBucket {
+
+    /**
+     * Get start of interval.
+     * 
+     * @return
+     */
+    public Date getDate();
+
+    /**
+     * Get minimum value.
+     * 
+     * @return
+     */
+    public double getMin();
+
+    /**
+     * Get maximum value.
+     * 
+     * @return
+     */
+    public double getMax();
+
+    /**
+     * Get average value.
+     * 
+     * @return
+     */
+    public double getAvg();
+
+    /**
+     * Get number of values.
+     * 
+     * @return
+     */
+    public long getCount();
+
+    /**
+     * Get most recent value.
+     * 
+     * @return
+     */
+    public double getLast();
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.persistence;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.event.persistence.aggregate.MeasurementRollup;
+import com.sitewhere.event.persistence.aggregate.MeasurementRollupTier;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Stores measurement rollups maintained at fixed resolutions so that long
+ * range queries read pre-aggregated buckets instead of raw samples.
+ */
+public interface IMeasurementRollupStore {
+
+    /**
+     * Save rollups for a tier. A rollup replaces any stored rollup for the same
+     * assignment, measurement name and bucket.
+     * 
+     * @param tier
+     * @param rollups
+     * @throws SiteWhereException
+     */
+    public void saveMeasurementRollups(MeasurementRollupTier tier, List<MeasurementRollup> rollups)
+	    throws SiteWhereException;
+
+    /**
+     * List rollups for a tier with bucket start in the given range.
+     * 
+     * @param tier
+     * @param assignmentIds
+     * @param names
+     *            names to include (null or empty for all)
+     * @param startDate
+     * @param endDate
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<MeasurementRollup> listMeasurementRollups(MeasurementRollupTier tier, List<UUID> assignmentIds,
+	    List<String> names, Date startDate, Date endDate) throws SiteWhereException;
+
+    /**
+     * Get date from which rollups are maintained. Events before that date are
+     * only available in raw form.
+     * 
+     * @return date or null if rollups have never been maintained
+     * @throws SiteWhereException
+     */
+    public Date getRollupCoverageStart() throws SiteWhereException;
+
+    /**
+     * Record date from which rollups are maintained.
+     * 
+     * @param date
+     * @throws SiteWhereException
+     */
+    public void setRollupCoverageStart(Date date) throws SiteWhereException;
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.persistence;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rollups for a single measurement name on a single indexed entity, ordered by
+ * interval start.
+ */
+public interface IMeasurementSeries {
+
+    /**
+     * Get id of entity for index.
+     * 
+     * @return
+     */
+    public UUID getEntityId();
+
+    /**
+     * Get measurement name.
+     * 
+     * @return
+     */
+    public String getName();
+
+    /**
+     * Get interval length in milliseconds.
+     * 
+     * @return
+     */
+    public long getIntervalMs();
+
+    /**
+     * Get buckets in date order.
+     * 
+     * @return
+     */
+    public List<IMeasurementBucket> getBuckets();
+}
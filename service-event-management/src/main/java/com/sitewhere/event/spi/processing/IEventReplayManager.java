@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.processing;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.sitewhere.event.processing.EventReplay;
+import com.sitewhere.event.processing.EventReplayRequest;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
+
+/**
+ * Republishes stored events to the outbound events topic so that outbound
+ * connectors can reprocess history. Replays run one at a time in the order
+ * they were requested.
+ */
+public interface IEventReplayManager extends ITenantEngineLifecycleComponent {
+
+    /**
+     * Queue a replay of a time range.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventReplay startReplay(EventReplayRequest request) throws SiteWhereException;
+
+    /**
+     * List queued, running and recently finished replays.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<EventReplay> listReplays() throws SiteWhereException;
+
+    /**
+     * Cancel a queued or running replay.
+     * 
+     * @param id
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventReplay cancelReplay(UUID id) throws SiteWhereException;
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.processing;
+
+import com.sitewhere.event.configuration.EventRetentionConfiguration;
+import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
+
+/**
+ * Periodically applies tenant retention settings to the event datastore and
+ * rolls up raw measurements that would otherwise expire without being
+ * included in long-term rollups.
+ */
+public interface IEventRetentionManager extends ITenantEngineLifecycleComponent {
+
+    /**
+     * Get retention settings being applied.
+     * 
+     * @return
+     */
+    public EventRetentionConfiguration getRetention();
+}
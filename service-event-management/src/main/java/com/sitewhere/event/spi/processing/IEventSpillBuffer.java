@@ -0,0 +1,60 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.processing;
+
+import com.sitewhere.grpc.model.DeviceEventModel.GPreprocessedEventPayload;
+import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
+
+/**
+ * Durable local buffer for events that could not be persisted because the
+ * datastore was unavailable. Buffered events are replayed in the order they
+ * were added once the datastore recovers.
+ */
+public interface IEventSpillBuffer extends ITenantEngineLifecycleComponent {
+
+    /**
+     * Add an event to the buffer.
+     * 
+     * @param payload
+     * @return false if the buffer is disabled or full and the event was not added
+     */
+    public boolean spill(GPreprocessedEventPayload payload);
+
+    /**
+     * Indicates the datastore failed the last time an event was written to it.
+     * New events should be added to the buffer rather than persisted directly
+     * until a buffered event is replayed successfully. After that, new events
+     * are persisted directly while the rest of the buffer drains, so they may
+     * be stored before older buffered events.
+     * 
+     * @return
+     */
+    public boolean isActive();
+
+    /**
+     * Get number of bytes waiting to be replayed.
+     * 
+     * @return
+     */
+    public long getBufferedBytes();
+
+    /**
+     * Get number of events waiting to be replayed.
+     * 
+     * @return
+     */
+    public long getBufferedEventCount();
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.processing;
+
+import com.sitewhere.grpc.model.DeviceEventModel.GPreprocessedEventPayload;
+
+/**
+ * Persists events replayed from an {@link IEventSpillBuffer}.
+ */
+public interface IEventSpillHandler {
+
+    /**
+     * Persist a buffered event.
+     * 
+     * @param payload
+     * @return false if the datastore is still unavailable and the event should
+     *         be retried later, true if the event was persisted or discarded
+     */
+    public boolean replay(GPreprocessedEventPayload payload);
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.spi.processing;
+
+/**
+ * Indicates whether this replica is responsible for tenant-wide maintenance
+ * such as retention and rollup backfill, so that the work runs on only one
+ * replica at a time.
+ */
+public interface IMaintenanceLease {
+
+    /**
+     * Indicates whether the lease is currently held by this replica.
+     * 
+     * @return
+     */
+    public boolean isHeld();
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.configuration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import com.google.inject.Binding;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.ProviderKeyBinding;
+import com.sitewhere.cassandra.CassandraClient;
+import com.sitewhere.event.configuration.providers.CassandraClientProvider;
+import com.sitewhere.event.configuration.providers.TimeSeriesProvider;
+import com.sitewhere.event.persistence.cassandra.CassandraDeviceEventManagement;
+import com.sitewhere.event.persistence.influxdb.InfluxDbDeviceEventManagement;
+import com.sitewhere.event.persistence.warp10.Warp10DeviceEventManagement;
+import com.sitewhere.event.spi.microservice.IEventManagementTenantEngine;
+import com.sitewhere.microservice.api.event.IDeviceEventManagement;
+import com.sitewhere.microservice.datastore.DatastoreDefinition;
+
+/**
+ * Test cases for {@link EventManagementTenantEngineModule}.
+ */
+public class EventManagementTenantEngineModuleTests {
+
+    @Test
+    public void testCassandraBinding() {
+	Injector injector = createInjector(TimeSeriesProvider.CASSANDRA);
+	assertEquals(CassandraDeviceEventManagement.class, getImplementation(injector));
+	Binding<CassandraClient> client = injector.getBinding(CassandraClient.class);
+	assertEquals(CassandraClientProvider.class,
+		((ProviderKeyBinding<?>) client).getProviderKey().getTypeLiteral().getRawType());
+    }
+
+    @Test
+    public void testInfluxDbBinding() {
+	assertEquals(InfluxDbDeviceEventManagement.class,
+		getImplementation(createInjector(TimeSeriesProvider.INFLUX_DB)));
+    }
+
+    @Test
+    public void testWarp10Binding() {
+	assertEquals(Warp10DeviceEventManagement.class, getImplementation(createInjector(TimeSeriesProvider.WARP_10)));
+    }
+
+    @Test(expected = CreationException.class)
+    public void testUnknownProviderFails() {
+	createInjector("unknown");
+    }
+
+    /**
+     * Create an injector for a tenant using a local datastore of the given type.
+     * Implementations are only bound, not created, so no datastore is needed.
+     * 
+     * @param type
+     * @return
+     */
+    protected static Injector createInjector(String type) {
+	DatastoreDefinition datastore = new DatastoreDefinition();
+	datastore.setType(type);
+	EventManagementTenantConfiguration configuration = new EventManagementTenantConfiguration();
+	configuration.setDatastore(datastore);
+	IEventManagementTenantEngine tenantEngine = (IEventManagementTenantEngine) Proxy.newProxyInstance(
+		IEventManagementTenantEngine.class.getClassLoader(),
+		new Class<?>[] { IEventManagementTenantEngine.class }, (proxy, method, args) -> {
+		    switch (method.getName()) {
+		    case "hashCode":
+			return System.identityHashCode(proxy);
+		    case "equals":
+			return proxy == args[0];
+		    case "toString":
+			return "tenant engine";
+		    default:
+			return null;
+		    }
+		});
+	return Guice.createInjector(new EventManagementTenantEngineModule(tenantEngine, configuration));
+    }
+
+    /**
+     * Get the class bound as the event management implementation.
+     * 
+     * @param injector
+     * @return
+     */
+    protected static Class<?> getImplementation(Injector injector) {
+	Binding<IDeviceEventManagement> binding = injector.getBinding(IDeviceEventManagement.class);
+	return ((LinkedKeyBinding<?>) binding).getLinkedKey().getTypeLiteral().getRawType();
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.device.event.DeviceMeasurement;
+import com.sitewhere.rest.model.search.DateRangeSearchCriteria;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceMeasurement;
+import com.sitewhere.spi.search.IDateRangeSearchCriteria;
+
+/**
+ * Test cases for {@link EventStreamer.KeysetPageSource}.
+ */
+public class KeysetPageSourceTests {
+
+    /** Base time for events */
+    private static final long BASE = 1600000000000L;
+
+    @Test
+    public void testReadsAllEventsNewestFirst() throws Exception {
+	Datastore store = new Datastore();
+	for (int i = 0; i < 1200; i++) {
+	    store.add(BASE + (i % 300) * 1000);
+	}
+	List<IDeviceMeasurement> events = readAll(
+		new EventStreamer.KeysetPageSource<>(criteria(1, 0, new Date(BASE + 3600000)), store));
+	assertEquals(1200, events.size());
+	Set<UUID> ids = new HashSet<>();
+	for (int i = 0; i < events.size(); i++) {
+	    ids.add(events.get(i).getId());
+	    if (i > 0) {
+		assertTrue(!events.get(i).getEventDate().after(events.get(i - 1).getEventDate()));
+	    }
+	}
+	assertEquals(1200, ids.size());
+    }
+
+    @Test
+    public void testManyEventsWithSameDate() throws Exception {
+	Datastore store = new Datastore();
+	for (int i = 0; i < 2 * EventStreamer.CHUNK_SIZE + 10; i++) {
+	    store.add(BASE);
+	}
+	store.add(BASE - 1000);
+	List<IDeviceMeasurement> events = readAll(
+		new EventStreamer.KeysetPageSource<>(criteria(1, 0, new Date(BASE)), store));
+	assertEquals(2 * EventStreamer.CHUNK_SIZE + 11, events.size());
+    }
+
+    @Test
+    public void testRequestedPageIsStreamed() throws Exception {
+	Datastore store = new Datastore();
+	for (int i = 0; i < 10; i++) {
+	    store.add(BASE + i * 1000);
+	}
+	DateRangeSearchCriteria criteria = criteria(2, 3, new Date(BASE + 9000));
+	List<IDeviceMeasurement> events = readAll(new EventStreamer.KeysetPageSource<>(criteria, store));
+	assertEquals(3, events.size());
+	assertEquals(BASE + 6000, events.get(0).getEventDate().getTime());
+	assertEquals(BASE + 4000, events.get(2).getEventDate().getTime());
+    }
+
+    @Test
+    public void testNewEventsDoNotShiftPages() throws Exception {
+	Datastore store = new Datastore();
+	for (int i = 0; i < 1000; i++) {
+	    store.add(BASE + i);
+	}
+	EventStreamer.KeysetPageSource<IDeviceMeasurement> source = new EventStreamer.KeysetPageSource<>(
+		criteria(1, 0, new Date(BASE + 2000)), store);
+	List<IDeviceMeasurement> events = new ArrayList<>(source.next());
+	for (int i = 0; i < 100; i++) {
+	    store.add(BASE + 1000 + i);
+	}
+	events.addAll(readAll(source));
+	assertEquals(1000, events.size());
+	Set<UUID> ids = new HashSet<>();
+	for (IDeviceMeasurement event : events) {
+	    ids.add(event.getId());
+	}
+	assertEquals(1000, ids.size());
+	assertEquals(BASE, events.get(999).getEventDate().getTime());
+    }
+
+    @Test
+    public void testSparseRangeUsesFewQueries() throws Exception {
+	Datastore store = new Datastore();
+	store.add(BASE);
+	store.add(BASE - 365L * 24 * 60 * 60 * 1000);
+	List<IDeviceMeasurement> events = readAll(
+		new EventStreamer.KeysetPageSource<>(criteria(1, 0, new Date(BASE)), store));
+	assertEquals(2, events.size());
+	assertTrue(store.queries < 100);
+    }
+
+    /**
+     * Build criteria starting at the epoch.
+     * 
+     * @param page
+     * @param pageSize
+     * @param endDate
+     * @return
+     */
+    protected static DateRangeSearchCriteria criteria(int page, int pageSize, Date endDate) {
+	return new DateRangeSearchCriteria(page, pageSize, null, endDate);
+    }
+
+    /**
+     * Read every page from a source.
+     * 
+     * @param source
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static List<IDeviceMeasurement> readAll(EventStreamer.IPageSource<IDeviceMeasurement> source)
+	    throws SiteWhereException {
+	List<IDeviceMeasurement> events = new ArrayList<>();
+	while (true) {
+	    List<? extends IDeviceMeasurement> page = source.next();
+	    if (page.isEmpty()) {
+		return events;
+	    }
+	    events.addAll(page);
+	}
+    }
+
+    /**
+     * Datastore that lists events newest first and only honors the first page.
+     */
+    private static class Datastore implements EventStreamer.IPageLoader<IDeviceMeasurement> {
+
+	/** Stored events */
+	private List<DeviceMeasurement> events = new ArrayList<>();
+
+	/** Number of queries */
+	private int queries;
+
+	public void add(long time) {
+	    DeviceMeasurement event = new DeviceMeasurement();
+	    event.setId(UUID.randomUUID());
+	    event.setEventDate(new Date(time));
+	    events.add(event);
+	}
+
+	/*
+	 * @see com.sitewhere.event.grpc.EventStreamer.IPageLoader#load(com.sitewhere.
+	 * spi.search.IDateRangeSearchCriteria)
+	 */
+	@Override
+	public List<? extends IDeviceMeasurement> load(IDateRangeSearchCriteria criteria) throws SiteWhereException {
+	    queries++;
+	    assertEquals(1, criteria.getPageNumber().intValue());
+	    List<DeviceMeasurement> matches = new ArrayList<>();
+	    for (DeviceMeasurement event : events) {
+		long time = event.getEventDate().getTime();
+		if (time >= criteria.getStartDate().getTime() && time <= criteria.getEndDate().getTime()) {
+		    matches.add(event);
+		}
+	    }
+	    matches.sort((a, b) -> b.getEventDate().compareTo(a.getEventDate()));
+	    return matches.subList(0, Math.min(criteria.getPageSize(), matches.size()));
+	}
+    }
+}
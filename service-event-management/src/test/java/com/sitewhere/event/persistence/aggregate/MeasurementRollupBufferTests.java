@@ -0,0 +1,195 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.aggregate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.sitewhere.event.spi.persistence.IMeasurementRollupStore;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Test cases for {@link MeasurementRollupBuffer}.
+ */
+public class MeasurementRollupBufferTests {
+
+    /** Assignment used for values */
+    private static final UUID ASSIGNMENT = UUID.randomUUID();
+
+    /** Time of first value */
+    private static final long NOW = 1600000000000L;
+
+    @Test
+    public void testFlushWritesCompleteTotalsOnce() throws Exception {
+	MeasurementRollupBuffer buffer = new MeasurementRollupBuffer(new MeasurementRollupBuffer.MemoryState(), false);
+	buffer.add(ASSIGNMENT, "temp", new Date(NOW), 10, 0, 1);
+	buffer.add(ASSIGNMENT, "temp", new Date(NOW + 1000), 20, 0, 2);
+	RollupStore store = new RollupStore();
+	assertEquals(3, buffer.flush(store));
+	MeasurementRollup minute = store.get(MeasurementRollupTier.Minute, NOW);
+	assertEquals(2, minute.getCount());
+	assertEquals(30, minute.getSum(), 0);
+	assertEquals(10, minute.getMin(), 0);
+	assertEquals(20, minute.getMax(), 0);
+	assertEquals(20, minute.getLast(), 0);
+	assertEquals(0, buffer.flush(store));
+    }
+
+    @Test
+    public void testWritesReplaceStoredTotals() throws Exception {
+	MeasurementRollupBuffer buffer = new MeasurementRollupBuffer(new MeasurementRollupBuffer.MemoryState(), false);
+	RollupStore store = new RollupStore();
+	buffer.add(ASSIGNMENT, "temp", new Date(NOW), 10, 0, 1);
+	buffer.flush(store);
+	buffer.add(ASSIGNMENT, "temp", new Date(NOW), 5, 0, 2);
+	buffer.flush(store);
+	MeasurementRollup hour = store.get(MeasurementRollupTier.Hour, NOW);
+	assertEquals(2, hour.getCount());
+	assertEquals(15, hour.getSum(), 0);
+	assertEquals(2, store.writes);
+    }
+
+    @Test
+    public void testReplayedRecordsAreNotCountedTwice() throws Exception {
+	MeasurementRollupBuffer.MemoryState state = new MeasurementRollupBuffer.MemoryState();
+	MeasurementRollupBuffer buffer = new MeasurementRollupBuffer(state, false);
+	buffer.add(ASSIGNMENT, "temp", new Date(NOW), 10, 0, 7);
+	buffer.add(ASSIGNMENT, "temp", new Date(NOW), 12, 1, 3);
+
+	// Restart over the same state and replay from an earlier offset.
+	MeasurementRollupBuffer restarted = new MeasurementRollupBuffer(state, false);
+	restarted.add(ASSIGNMENT, "temp", new Date(NOW), 10, 0, 7);
+	restarted.add(ASSIGNMENT, "temp", new Date(NOW), 14, 0, 8);
+	RollupStore store = new RollupStore();
+	restarted.flush(store);
+	MeasurementRollup day = store.get(MeasurementRollupTier.Day, NOW);
+	assertEquals(3, day.getCount());
+	assertEquals(36, day.getSum(), 0);
+    }
+
+    @Test
+    public void testUnwrittenBucketsSurviveRestart() throws Exception {
+	MeasurementRollupBuffer.MemoryState state = new MeasurementRollupBuffer.MemoryState();
+	new MeasurementRollupBuffer(state, false).add(ASSIGNMENT, "temp", new Date(NOW), 10, 0, 1);
+	MeasurementRollupBuffer restarted = new MeasurementRollupBuffer(state, false);
+	assertEquals(3, restarted.getDirtyCount());
+	RollupStore store = new RollupStore();
+	assertEquals(3, restarted.flush(store));
+	assertEquals(1, store.get(MeasurementRollupTier.Minute, NOW).getCount());
+    }
+
+    @Test
+    public void testFailedWriteIsRetried() throws Exception {
+	MeasurementRollupBuffer buffer = new MeasurementRollupBuffer(new MeasurementRollupBuffer.MemoryState(), false);
+	buffer.add(ASSIGNMENT, "temp", new Date(NOW), 10, 0, 1);
+	RollupStore store = new RollupStore();
+	store.failing = true;
+	try {
+	    buffer.flush(store);
+	    fail("Expected write to fail.");
+	} catch (SiteWhereException e) {
+	    assertEquals(3, buffer.getDirtyCount());
+	}
+	store.failing = false;
+	assertEquals(3, buffer.flush(store));
+	assertEquals(0, buffer.getDirtyCount());
+    }
+
+    @Test
+    public void testLiveBufferSkipsLateValuesAndEvicts() throws Exception {
+	MeasurementRollupBuffer.MemoryState state = new MeasurementRollupBuffer.MemoryState();
+	long[] clock = { NOW };
+	MeasurementRollupBuffer buffer = new MeasurementRollupBuffer(state, true) {
+
+	    @Override
+	    protected long now() {
+		return clock[0];
+	    }
+	};
+	buffer.add(ASSIGNMENT, "temp", new Date(NOW), 10, 0, 1);
+	RollupStore store = new RollupStore();
+	buffer.flush(store);
+	assertEquals(3, state.size());
+
+	// Minute buckets stop accepting values after an hour, hour buckets after three.
+	clock[0] = NOW + 2 * MeasurementRollupTier.Hour.getIntervalMs();
+	assertEquals(1, buffer.add(ASSIGNMENT, "temp", new Date(NOW), 11, 0, 2));
+	clock[0] = NOW + 5 * MeasurementRollupTier.Hour.getIntervalMs();
+	assertEquals(2, buffer.add(ASSIGNMENT, "temp", new Date(NOW), 12, 0, 3));
+	buffer.flush(store);
+	assertEquals(1, state.size());
+	assertEquals(3, store.get(MeasurementRollupTier.Day, NOW).getCount());
+	assertEquals(2, store.get(MeasurementRollupTier.Hour, NOW).getCount());
+	assertEquals(1, store.get(MeasurementRollupTier.Minute, NOW).getCount());
+    }
+
+    /**
+     * Rollup store that keeps the last write per bucket.
+     */
+    private static class RollupStore implements IMeasurementRollupStore {
+
+	/** Stored rollups by tier and bucket */
+	private Map<String, MeasurementRollup> rollups = new HashMap<>();
+
+	/** Number of writes */
+	private int writes;
+
+	/** Indicates writes should fail */
+	private boolean failing;
+
+	public MeasurementRollup get(MeasurementRollupTier tier, long time) {
+	    return rollups.get(tier.getSuffix() + ":" + tier.getBucketStart(time));
+	}
+
+	@Override
+	public void saveMeasurementRollups(MeasurementRollupTier tier, List<MeasurementRollup> values)
+		throws SiteWhereException {
+	    if (failing) {
+		throw new SiteWhereException("Store unavailable.");
+	    }
+	    for (MeasurementRollup rollup : values) {
+		if (tier == MeasurementRollupTier.Minute) {
+		    writes++;
+		}
+		rollups.put(tier.getSuffix() + ":" + rollup.getDate().getTime(), rollup);
+	    }
+	}
+
+	@Override
+	public List<MeasurementRollup> listMeasurementRollups(MeasurementRollupTier tier, List<UUID> assignmentIds,
+		List<String> names, Date startDate, Date endDate) throws SiteWhereException {
+	    return new ArrayList<>();
+	}
+
+	@Override
+	public Date getRollupCoverageStart() throws SiteWhereException {
+	    return null;
+	}
+
+	@Override
+	public void setRollupCoverageStart(Date date) throws SiteWhereException {
+	}
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.device.event.DeviceMeasurement;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Test cases for {@link DeviceEventCursor}.
+ */
+public class DeviceEventCursorTests {
+
+    @Test
+    public void testEventsAtCursorDateAreRead() {
+	DeviceEventCursor cursor = new DeviceEventCursor();
+	DeviceMeasurement first = event(1000);
+	DeviceMeasurement second = event(1000);
+	cursor.advance(first);
+	assertTrue(cursor.isAlreadyRead(first));
+	assertFalse(cursor.isAlreadyRead(second));
+	cursor.advance(second);
+	assertTrue(cursor.isAlreadyRead(second));
+	assertEquals(2, cursor.getEventIds().size());
+    }
+
+    @Test
+    public void testAdvancingToNewDateForgetsIds() {
+	DeviceEventCursor cursor = new DeviceEventCursor();
+	DeviceMeasurement first = event(1000);
+	cursor.advance(first);
+	cursor.advance(event(2000));
+	assertEquals(2000, cursor.getDate().getTime());
+	assertEquals(1, cursor.getEventIds().size());
+	assertFalse(cursor.isAlreadyRead(first));
+    }
+
+    @Test
+    public void testStringFormRoundTrips() throws Exception {
+	DeviceEventCursor cursor = new DeviceEventCursor();
+	DeviceMeasurement first = event(1000);
+	DeviceMeasurement second = event(1000);
+	cursor.advance(first);
+	cursor.advance(second);
+	DeviceEventCursor parsed = DeviceEventCursor.parse(cursor.toString());
+	assertEquals(cursor.getDate(), parsed.getDate());
+	assertEquals(cursor.getEventIds(), parsed.getEventIds());
+	assertTrue(parsed.isAlreadyRead(first));
+	assertTrue(parsed.isAlreadyRead(second));
+    }
+
+    @Test
+    public void testParseDateOnlyAndEmpty() throws Exception {
+	DeviceEventCursor dateOnly = DeviceEventCursor.parse("1000");
+	assertEquals(1000, dateOnly.getDate().getTime());
+	assertTrue(dateOnly.getEventIds().isEmpty());
+	assertNull(DeviceEventCursor.parse("").getDate());
+	assertNull(DeviceEventCursor.parse(null).getDate());
+	assertEquals("", new DeviceEventCursor().toString());
+    }
+
+    @Test(expected = SiteWhereException.class)
+    public void testParseInvalidCursor() throws Exception {
+	DeviceEventCursor.parse("1000:not-a-uuid");
+    }
+
+    /**
+     * Create an event with a random id.
+     * 
+     * @param time
+     * @return
+     */
+    protected static DeviceMeasurement event(long time) {
+	DeviceMeasurement event = new DeviceMeasurement();
+	event.setId(UUID.randomUUID());
+	event.setEventDate(new Date(time));
+	return event;
+    }
+}
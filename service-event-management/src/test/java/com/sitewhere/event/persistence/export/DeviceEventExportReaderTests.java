@@ -0,0 +1,207 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.sitewhere.event.spi.persistence.IDeviceEventExport;
+import com.sitewhere.rest.model.device.event.DeviceMeasurement;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+
+/**
+ * Test cases for {@link DeviceEventExportReader}.
+ */
+public class DeviceEventExportReaderTests {
+
+    /** Base time for events */
+    private static final long BASE = 1600000000000L;
+
+    /** Number of milliseconds in an hour */
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @Test
+    public void testReadsAllEventsOldestFirst() throws Exception {
+	Datastore store = new Datastore();
+	for (int i = 0; i < 1000; i++) {
+	    store.add(BASE + (i % 250) * 1000, null);
+	}
+	List<IDeviceEvent> events = readAll(reader(store, null, null, 100));
+	assertEquals(1000, events.size());
+	assertUnique(events);
+	for (int i = 1; i < events.size(); i++) {
+	    assertFalse(events.get(i).getEventDate().before(events.get(i - 1).getEventDate()));
+	}
+    }
+
+    @Test
+    public void testManyEventsWithSameDate() throws Exception {
+	Datastore store = new Datastore();
+	for (int i = 0; i < 250; i++) {
+	    store.add(BASE, null);
+	}
+	store.add(BASE + 1000, null);
+	List<IDeviceEvent> events = readAll(reader(store, null, null, 100));
+	assertEquals(251, events.size());
+	assertUnique(events);
+	assertEquals(BASE + 1000, events.get(250).getEventDate().getTime());
+    }
+
+    @Test
+    public void testResumesFromSavedCursor() throws Exception {
+	Datastore store = new Datastore();
+	for (int i = 0; i < 500; i++) {
+	    store.add(BASE + (i % 50) * 1000, null);
+	}
+	DeviceEventExportReader first = reader(store, null, null, 100);
+	List<IDeviceEvent> events = new ArrayList<>();
+	while (events.size() < 200) {
+	    events.addAll(first.nextPage());
+	}
+
+	DeviceEventCursor saved = DeviceEventCursor.parse(first.getCursor().toString());
+	events.addAll(readAll(reader(store, null, saved, 100)));
+	assertEquals(500, events.size());
+	assertUnique(events);
+    }
+
+    @Test
+    public void testReadsOnlyRequestedAssignments() throws Exception {
+	Datastore store = new Datastore();
+	UUID wanted = UUID.randomUUID();
+	for (int i = 0; i < 300; i++) {
+	    store.add(BASE + i * 1000, (i % 3 == 0) ? wanted : UUID.randomUUID());
+	}
+	List<UUID> ids = new ArrayList<>();
+	ids.add(wanted);
+	List<IDeviceEvent> events = readAll(reader(store, ids, null, 25));
+	assertEquals(100, events.size());
+	for (IDeviceEvent event : events) {
+	    assertEquals(wanted, event.getDeviceAssignmentId());
+	}
+    }
+
+    @Test
+    public void testSparseRangeUsesFewQueries() throws Exception {
+	Datastore store = new Datastore();
+	store.add(BASE, null);
+	store.add(BASE + 30 * 24 * HOUR, null);
+	DeviceEventExportReader reader = new DeviceEventExportReader(store, null, new Date(BASE),
+		new Date(BASE + 31 * 24 * HOUR), null, 100, HOUR);
+	List<IDeviceEvent> events = readAll(reader);
+	assertEquals(2, events.size());
+	assertTrue(reader.isExhausted());
+	assertTrue("Too many queries: " + store.queries, store.queries < 50);
+    }
+
+    /**
+     * Create a reader covering all stored events.
+     * 
+     * @param store
+     * @param assignmentIds
+     * @param cursor
+     * @param pageSize
+     * @return
+     */
+    protected static DeviceEventExportReader reader(Datastore store, List<UUID> assignmentIds,
+	    DeviceEventCursor cursor, int pageSize) {
+	return new DeviceEventExportReader(store, assignmentIds, new Date(BASE - HOUR), new Date(BASE + HOUR),
+		cursor, pageSize, DeviceEventExportReader.DEFAULT_WINDOW_MS);
+    }
+
+    /**
+     * Read every page from a reader.
+     * 
+     * @param reader
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static List<IDeviceEvent> readAll(DeviceEventExportReader reader) throws SiteWhereException {
+	List<IDeviceEvent> events = new ArrayList<>();
+	while (true) {
+	    List<IDeviceEvent> page = reader.nextPage();
+	    if (page.isEmpty()) {
+		return events;
+	    }
+	    events.addAll(page);
+	}
+    }
+
+    /**
+     * Assert that no event was returned twice.
+     * 
+     * @param events
+     */
+    protected static void assertUnique(List<IDeviceEvent> events) {
+	Set<UUID> ids = new HashSet<>();
+	for (IDeviceEvent event : events) {
+	    assertTrue("Event returned twice: " + event.getId(), ids.add(event.getId()));
+	}
+    }
+
+    /**
+     * Datastore that lists events oldest first, returning events that share a
+     * date in the order they were added.
+     */
+    private static class Datastore implements IDeviceEventExport {
+
+	/** Stored events */
+	private List<DeviceMeasurement> events = new ArrayList<>();
+
+	/** Number of queries */
+	private int queries;
+
+	public void add(long time, UUID assignmentId) {
+	    DeviceMeasurement event = new DeviceMeasurement();
+	    event.setId(UUID.randomUUID());
+	    event.setDeviceAssignmentId(assignmentId);
+	    event.setEventDate(new Date(time));
+	    events.add(event);
+	}
+
+	/*
+	 * @see com.sitewhere.event.spi.persistence.IDeviceEventExport#
+	 * listDeviceEventsForExport(java.util.List, java.util.Date, java.util.Date,
+	 * int)
+	 */
+	@Override
+	public List<? extends IDeviceEvent> listDeviceEventsForExport(List<UUID> assignmentIds, Date startDate,
+		Date endDate, int maxResults) throws SiteWhereException {
+	    queries++;
+	    List<DeviceMeasurement> matches = new ArrayList<>();
+	    for (DeviceMeasurement event : events) {
+		long time = event.getEventDate().getTime();
+		if (time >= startDate.getTime() && time <= endDate.getTime() && (assignmentIds == null
+			|| assignmentIds.isEmpty() || assignmentIds.contains(event.getDeviceAssignmentId()))) {
+		    matches.add(event);
+		}
+	    }
+	    matches.sort((a, b) -> a.getEventDate().compareTo(b.getEventDate()));
+	    return matches.subList(0, Math.min(maxResults, matches.size()));
+	}
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.influxdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.sitewhere.event.configuration.EventRetentionConfiguration;
+import com.sitewhere.event.configuration.InfluxDbSchemaConfiguration;
+import com.sitewhere.spi.device.event.DeviceEventType;
+
+/**
+ * Test cases for {@link InfluxDbSchemaPlanner}.
+ */
+public class InfluxDbSchemaPlannerTests {
+
+    @Test
+    public void testLimitedRetentionSplitsByType() {
+	EventRetentionConfiguration retention = new EventRetentionConfiguration();
+	retention.setMeasurementDays(30);
+	InfluxDbSchemaPlanner planner = new InfluxDbSchemaPlanner(null, new InfluxDbSchemaConfiguration(), retention);
+	assertTrue(planner.isSplitByType());
+	assertEquals("events_measurement", planner.getCollection(DeviceEventType.Measurement));
+	assertEquals("sw_events_measurement", planner.getRetentionPolicy(DeviceEventType.Measurement));
+	assertEquals("\"sw_events_alert\".\"events_alert\"", planner.getSource(DeviceEventType.Alert));
+    }
+
+    @Test
+    public void testSourcesCoverAllTypes() {
+	InfluxDbSchemaConfiguration schema = new InfluxDbSchemaConfiguration();
+	schema.setMeasurementPerEventType(true);
+	InfluxDbSchemaPlanner planner = new InfluxDbSchemaPlanner(null, schema, new EventRetentionConfiguration());
+	String sources = planner.getSources();
+	for (DeviceEventType type : DeviceEventType.values()) {
+	    assertTrue(sources.contains(planner.getSource(type)));
+	}
+	assertEquals(DeviceEventType.values().length, sources.split(",").length);
+    }
+
+    @Test
+    public void testUnlimitedRetentionUsesSingleMeasurement() {
+	InfluxDbSchemaPlanner planner = new InfluxDbSchemaPlanner(null, new InfluxDbSchemaConfiguration(),
+		new EventRetentionConfiguration());
+	assertFalse(planner.isSplitByType());
+	assertEquals(InfluxDbDeviceEvent.COLLECTION_EVENTS, planner.getCollection(DeviceEventType.Location));
+    }
+
+    @Test
+    public void testTagsAdmittedWithinBudget() {
+	InfluxDbSchemaConfiguration schema = new InfluxDbSchemaConfiguration();
+	schema.setMaxTagValues(2);
+	InfluxDbSchemaPlanner planner = new InfluxDbSchemaPlanner(null, schema, new EventRetentionConfiguration());
+	assertTrue(planner.admit("zone", "a"));
+	assertTrue(planner.admit("zone", "b"));
+	assertFalse(planner.admit("zone", "c"));
+	assertTrue(planner.getDemotedKeys().contains("zone"));
+    }
+}
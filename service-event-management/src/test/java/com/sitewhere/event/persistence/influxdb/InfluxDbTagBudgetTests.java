@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.persistence.influxdb;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test cases for {@link InfluxDbTagBudget}.
+ */
+public class InfluxDbTagBudgetTests {
+
+    @Test
+    public void testKeyDemotedWhenValuesExceedBudget() {
+	InfluxDbTagBudget budget = new InfluxDbTagBudget(10, 3);
+	assertTrue(budget.admit("zone", "a"));
+	assertTrue(budget.admit("zone", "b"));
+	assertTrue(budget.admit("zone", "c"));
+	assertTrue(budget.admit("zone", "a"));
+	assertFalse(budget.admit("zone", "d"));
+	assertFalse(budget.admit("zone", "a"));
+	assertTrue(budget.getDemotedKeys().contains("zone"));
+    }
+
+    @Test
+    public void testKeyDemotedWhenTooManyKeys() {
+	InfluxDbTagBudget budget = new InfluxDbTagBudget(2, 10);
+	assertTrue(budget.admit("a", "1"));
+	assertTrue(budget.admit("b", "1"));
+	assertFalse(budget.admit("c", "1"));
+	assertTrue(budget.admit("a", "2"));
+    }
+
+    @Test
+    public void testStoredValuesCountAgainstBudget() {
+	InfluxDbTagBudget budget = new InfluxDbTagBudget(10, 3);
+	budget.refresh(stored("zone", "a", "b"));
+	assertTrue(budget.admit("zone", "a"));
+	assertTrue(budget.admit("zone", "c"));
+	assertFalse(budget.admit("zone", "d"));
+    }
+
+    @Test
+    public void testBudgetSharedByReplicas() {
+	// Each replica admits values the other has not seen.
+	InfluxDbTagBudget first = new InfluxDbTagBudget(10, 3);
+	InfluxDbTagBudget second = new InfluxDbTagBudget(10, 3);
+	assertTrue(first.admit("zone", "a"));
+	assertTrue(first.admit("zone", "b"));
+	assertTrue(second.admit("zone", "c"));
+	assertTrue(second.admit("zone", "d"));
+
+	// Once stored values are refreshed, both replicas demote the key.
+	Map<String, Set<String>> stored = stored("zone", "a", "b", "c", "d");
+	first.refresh(stored);
+	second.refresh(stored);
+	assertFalse(first.admit("zone", "a"));
+	assertFalse(second.admit("zone", "c"));
+    }
+
+    @Test
+    public void testDemotionSurvivesRestart() {
+	InfluxDbTagBudget budget = new InfluxDbTagBudget(10, 3);
+	assertTrue(budget.admit("zone", "a"));
+	assertTrue(budget.admit("zone", "b"));
+	assertTrue(budget.admit("zone", "c"));
+	assertFalse(budget.admit("zone", "d"));
+
+	// Budget is rebuilt from the values stored before the restart.
+	InfluxDbTagBudget restarted = new InfluxDbTagBudget(10, 3);
+	restarted.refresh(stored("zone", "a", "b", "c"));
+	assertTrue(restarted.admit("zone", "a"));
+	assertFalse(restarted.admit("zone", "d"));
+
+	// A key demoted at the budget stays demoted while the values are stored.
+	budget.refresh(stored("zone", "a", "b", "c"));
+	assertFalse(budget.admit("zone", "a"));
+    }
+
+    @Test
+    public void testDemotedKeyRestoredWhenValuesExpire() {
+	InfluxDbTagBudget budget = new InfluxDbTagBudget(10, 3);
+	budget.refresh(stored("zone", "a", "b", "c", "d"));
+	assertFalse(budget.admit("zone", "a"));
+	budget.refresh(stored("zone", "a"));
+	assertTrue(budget.admit("zone", "a"));
+	assertTrue(budget.admit("zone", "b"));
+    }
+
+    @Test
+    public void testStoredKeysCountAgainstKeyBudget() {
+	InfluxDbTagBudget budget = new InfluxDbTagBudget(2, 10);
+	Map<String, Set<String>> stored = stored("a", "1");
+	stored.putAll(stored("b", "1"));
+	budget.refresh(stored);
+	assertFalse(budget.admit("c", "1"));
+	budget.refresh(stored("a", "1"));
+	assertTrue(budget.admit("c", "1"));
+    }
+
+    /**
+     * Build stored values for a key.
+     * 
+     * @param key
+     * @param values
+     * @return
+     */
+    protected static Map<String, Set<String>> stored(String key, String... values) {
+	Map<String, Set<String>> stored = new HashMap<>();
+	stored.put(key, new HashSet<>(Arrays.asList(values)));
+	return stored;
+    }
+}
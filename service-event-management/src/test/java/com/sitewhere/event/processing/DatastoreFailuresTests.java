@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+/**
+ * Test cases for {@link DatastoreFailures}.
+ */
+public class DatastoreFailuresTests {
+
+    @Test
+    public void testConnectivityErrorsAreUnavailable() {
+	assertTrue(DatastoreFailures.isUnavailable(new ConnectException("Connection refused")));
+	assertTrue(DatastoreFailures.isUnavailable(new SocketTimeoutException("Read timed out")));
+	assertTrue(DatastoreFailures.isUnavailable(new TimeoutException()));
+    }
+
+    @Test
+    public void testWrappedErrorsAreUnavailable() {
+	assertTrue(DatastoreFailures.isUnavailable(new RuntimeException(new IOException("Broken pipe"))));
+	assertTrue(DatastoreFailures.isUnavailable(new RuntimeException(new NoHostAvailableException())));
+    }
+
+    @Test
+    public void testDriverErrorsMatchBySuperclass() {
+	assertTrue(DatastoreFailures.isUnavailable(new NoHostAvailableException()));
+	assertTrue(DatastoreFailures.isUnavailable(new AllHostsDownException()));
+    }
+
+    @Test
+    public void testOtherErrorsAreNotUnavailable() {
+	assertFalse(DatastoreFailures.isUnavailable(new NullPointerException()));
+	assertFalse(DatastoreFailures.isUnavailable(new IllegalArgumentException("400 Bad Request")));
+	assertFalse(DatastoreFailures.isUnavailable(new RuntimeException(new IllegalStateException())));
+    }
+
+    /**
+     * Stands in for a driver exception matched by name.
+     */
+    private static class NoHostAvailableException extends RuntimeException {
+
+	/** Serial version UID */
+	private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Subclass of a driver exception matched by name.
+     */
+    private static class AllHostsDownException extends NoHostAvailableException {
+
+	/** Serial version UID */
+	private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.event.processing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test cases for {@link EventSpillLog}.
+ */
+public class EventSpillLogTests {
+
+    /** Size limit that keeps all records in one segment */
+    private static final long LARGE = 1024 * 1024;
+
+    /** Size limit that puts each test record in its own segment */
+    private static final long SMALL = 32;
+
+    @Test
+    public void testRecordsAreReadInOrder() throws Exception {
+	Path directory = Files.createTempDirectory("spill");
+	try {
+	    EventSpillLog log = open(directory, LARGE, LARGE);
+	    assertTrue(log.append(record(1)));
+	    assertTrue(log.append(record(2)));
+	    assertEquals(2, log.getBufferedEventCount());
+	    assertEquals("event-1", read(log));
+	    assertEquals("event-2", read(log));
+	    assertNull(log.peek());
+	    assertTrue(log.isEmpty());
+	    assertEquals(0, log.getBufferedBytes());
+	    log.close();
+	} finally {
+	    delete(directory);
+	}
+    }
+
+    @Test
+    public void testRecordsSurviveReopen() throws Exception {
+	Path directory = Files.createTempDirectory("spill");
+	try {
+	    EventSpillLog log = open(directory, LARGE, LARGE);
+	    for (int i = 1; i <= 3; i++) {
+		log.append(record(i));
+	    }
+	    assertEquals("event-1", read(log));
+	    log.close();
+
+	    EventSpillLog reopened = open(directory, LARGE, LARGE);
+	    assertEquals(2, reopened.getBufferedEventCount());
+	    reopened.append(record(4));
+	    assertEquals("event-2", read(reopened));
+	    assertEquals("event-3", read(reopened));
+	    assertEquals("event-4", read(reopened));
+	    assertTrue(reopened.isEmpty());
+	    reopened.close();
+	} finally {
+	    delete(directory);
+	}
+    }
+
+    @Test
+    public void testCheckpointLimitsReplayAfterCrash() throws Exception {
+	Path directory = Files.createTempDirectory("spill");
+	try {
+	    EventSpillLog log = open(directory, LARGE, LARGE);
+	    for (int i = 0; i < 150; i++) {
+		log.append(record(i));
+	    }
+	    for (int i = 0; i < 120; i++) {
+		read(log);
+	    }
+	    log.sync();
+
+	    // Reopen without closing. Records read after the last checkpoint are
+	    // read again.
+	    EventSpillLog reopened = open(directory, LARGE, LARGE);
+	    assertEquals(50, reopened.getBufferedEventCount());
+	    assertEquals("event-100", read(reopened));
+	    reopened.close();
+	    log.close();
+	} finally {
+	    delete(directory);
+	}
+    }
+
+    @Test
+    public void testCorruptRecordIsSkipped() throws Exception {
+	Path directory = Files.createTempDirectory("spill");
+	try {
+	    EventSpillLog log = open(directory, LARGE, LARGE);
+	    log.append(record(1));
+	    log.append(record(2));
+	    log.close();
+
+	    // Flip the last byte of the second record.
+	    Path segment = segments(directory).get(0);
+	    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+		ByteBuffer last = ByteBuffer.allocate(1);
+		channel.read(last, channel.size() - 1);
+		last.put(0, (byte) ~last.get(0));
+		last.rewind();
+		channel.write(last, channel.size() - 1);
+	    }
+
+	    EventSpillLog reopened = open(directory, LARGE, LARGE);
+	    assertEquals(1, reopened.getBufferedEventCount());
+	    reopened.append(record(3));
+	    assertEquals("event-1", read(reopened));
+	    assertEquals("event-3", read(reopened));
+	    assertNull(reopened.peek());
+	    reopened.close();
+	} finally {
+	    delete(directory);
+	}
+    }
+
+    @Test
+    public void testSegmentsRollAndAreDeletedOnceRead() throws Exception {
+	Path directory = Files.createTempDirectory("spill");
+	try {
+	    EventSpillLog log = open(directory, SMALL, LARGE);
+	    for (int i = 1; i <= 3; i++) {
+		log.append(record(i));
+	    }
+	    assertEquals(3, segments(directory).size());
+	    assertEquals("event-1", read(log));
+	    assertEquals("event-2", read(log));
+	    assertEquals("event-3", new String(log.peek(), StandardCharsets.UTF_8));
+	    assertEquals(1, segments(directory).size());
+	    log.close();
+	} finally {
+	    delete(directory);
+	}
+    }
+
+    @Test
+    public void testPeekNextCrossesSegments() throws Exception {
+	Path directory = Files.createTempDirectory("spill");
+	try {
+	    EventSpillLog log = open(directory, SMALL, LARGE);
+	    log.append(record(1));
+	    assertNull(log.peekNext());
+	    log.append(record(2));
+	    assertEquals("event-2", new String(log.peekNext(), StandardCharsets.UTF_8));
+	    assertEquals("event-1", new String(log.peek(), StandardCharsets.UTF_8));
+	    assertEquals(2, log.getBufferedEventCount());
+	    log.close();
+	} finally {
+	    delete(directory);
+	}
+    }
+
+    @Test
+    public void testFullLogRejectsAppend() throws Exception {
+	Path directory = Files.createTempDirectory("spill");
+	try {
+	    long size = 12 + record(1).length;
+	    EventSpillLog log = open(directory, LARGE, 2 * size);
+	    assertTrue(log.append(record(1)));
+	    assertTrue(log.append(record(2)));
+	    assertFalse(log.append(record(3)));
+	    assertEquals(2, log.getBufferedEventCount());
+	    read(log);
+	    assertTrue(log.append(record(3)));
+	    log.close();
+	} finally {
+	    delete(directory);
+	}
+    }
+
+    /**
+     * Open a log in a directory.
+     * 
+     * @param directory
+     * @param segmentBytes
+     * @param maxBytes
+     * @return
+     * @throws IOException
+     */
+    protected static EventSpillLog open(Path directory, long segmentBytes, long maxBytes) throws IOException {
+	EventSpillLog log = new EventSpillLog(directory, segmentBytes, maxBytes);
+	log.open();
+	return log;
+    }
+
+    /**
+     * Build record data.
+     * 
+     * @param index
+     * @return
+     */
+    protected static byte[] record(int index) {
+	return ("event-" + index).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read and remove the next record.
+     * 
+     * @param log
+     * @return
+     * @throws IOException
+     */
+    protected static String read(EventSpillLog log) throws IOException {
+	byte[] data = log.peek();
+	log.commit(data);
+	return new String(data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * List segment files in order.
+     * 
+     * @param directory
+     * @return
+     * @throws IOException
+     */
+    protected static List<Path> segments(Path directory) throws IOException {
+	List<Path> segments = new ArrayList<>();
+	try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.log")) {
+	    for (Path path : stream) {
+		if (Files.size(path) > 0) {
+		    segments.add(path);
+		}
+	    }
+	}
+	Collections.sort(segments);
+	return segments;
+    }
+
+    /**
+     * Delete a directory and its files.
+     * 
+     * @param directory
+     * @throws IOException
+     */
+    protected static void delete(Path directory) throws IOException {
+	try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+	    for (Path path : stream) {
+		Files.delete(path);
+	    }
+	}
+	Files.delete(directory);
+    }
+}
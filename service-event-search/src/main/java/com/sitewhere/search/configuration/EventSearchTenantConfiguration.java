@@ -15,10 +15,22 @@
  */
 package com.sitewhere.search.configuration;
 
+import com.sitewhere.solr.SolrConfiguration;
 import com.sitewhere.spi.microservice.multitenant.ITenantEngineConfiguration;
 
 /**
  * Maps event search YAML configuration to objects.
  */
 public class EventSearchTenantConfiguration implements ITenantEngineConfiguration {
+
+    /** Solr connection used by the Solr search provider (null if not used) */
+    private SolrConfiguration solr;
+
+    public SolrConfiguration getSolr() {
+	return solr;
+    }
+
+    public void setSolr(SolrConfiguration solr) {
+	this.solr = solr;
+    }
 }
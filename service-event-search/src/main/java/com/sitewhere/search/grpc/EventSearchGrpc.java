@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.grpc;
+
+import java.util.Map;
+
+import com.sitewhere.search.solr.SolrSearchPage;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Descriptors for event search calls. There is no protocol definition for
+ * event search, so messages use JSON payloads and the service definition is
+ * built by {@link EventSearchRouter}.
+ */
+public class EventSearchGrpc {
+
+    /** Name of event search service */
+    public static final String SERVICE_NAME = "com.sitewhere.grpc.service.EventSearch";
+
+    /** Method for reading one page of a query with a cursor mark */
+    private static final MethodDescriptor<EventSearchRequest, SolrSearchPage> SEARCH_EVENTS = unary("SearchEvents",
+	    EventSearchRequest.class, SolrSearchPage.class);
+
+    /** Method for streaming every event matching a query */
+    private static final MethodDescriptor<EventSearchRequest, IDeviceEvent> STREAM_EVENTS = streaming("StreamEvents",
+	    EventSearchRequest.class, IDeviceEvent.class);
+
+    /** Method for streaming selected fields through the export handler */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static final MethodDescriptor<EventSearchRequest, Map<String, Object>> EXPORT_EVENTS = streaming(
+	    "ExportEvents", EventSearchRequest.class, (Class) Map.class);
+
+    /** Method for counting events matching a query by field value */
+    private static final MethodDescriptor<EventSearchRequest, FacetCounts> GET_FACET_COUNTS = unary("GetFacetCounts",
+	    EventSearchRequest.class, FacetCounts.class);
+
+    /** Method for reading one page of locations near a point */
+    private static final MethodDescriptor<LocationSearchRequest, SolrSearchPage> GET_LOCATIONS_NEAR = unary(
+	    "GetLocationsNear", LocationSearchRequest.class, SolrSearchPage.class);
+
+    /** Method for streaming every location near a point */
+    private static final MethodDescriptor<LocationSearchRequest, IDeviceEvent> STREAM_LOCATIONS_NEAR = streaming(
+	    "StreamLocationsNear", LocationSearchRequest.class, IDeviceEvent.class);
+
+    /** Method for counting locations near a point by field value */
+    private static final MethodDescriptor<LocationSearchRequest, FacetCounts> GET_LOCATIONS_NEAR_FACET_COUNTS = unary(
+	    "GetLocationsNearFacetCounts", LocationSearchRequest.class, FacetCounts.class);
+
+    public static MethodDescriptor<EventSearchRequest, SolrSearchPage> getSearchEventsMethod() {
+	return SEARCH_EVENTS;
+    }
+
+    public static MethodDescriptor<EventSearchRequest, IDeviceEvent> getStreamEventsMethod() {
+	return STREAM_EVENTS;
+    }
+
+    public static MethodDescriptor<EventSearchRequest, Map<String, Object>> getExportEventsMethod() {
+	return EXPORT_EVENTS;
+    }
+
+    public static MethodDescriptor<EventSearchRequest, FacetCounts> getGetFacetCountsMethod() {
+	return GET_FACET_COUNTS;
+    }
+
+    public static MethodDescriptor<LocationSearchRequest, SolrSearchPage> getGetLocationsNearMethod() {
+	return GET_LOCATIONS_NEAR;
+    }
+
+    public static MethodDescriptor<LocationSearchRequest, IDeviceEvent> getStreamLocationsNearMethod() {
+	return STREAM_LOCATIONS_NEAR;
+    }
+
+    public static MethodDescriptor<LocationSearchRequest, FacetCounts> getGetLocationsNearFacetCountsMethod() {
+	return GET_LOCATIONS_NEAR_FACET_COUNTS;
+    }
+
+    /**
+     * Create a unary method with JSON payloads.
+     * 
+     * @param name
+     * @param request
+     * @param response
+     * @return
+     */
+    protected static <Q, R> MethodDescriptor<Q, R> unary(String name, Class<Q> request, Class<R> response) {
+	return build(MethodDescriptor.MethodType.UNARY, name, request, response);
+    }
+
+    /**
+     * Create a server streaming method with JSON payloads.
+     * 
+     * @param name
+     * @param request
+     * @param response
+     * @return
+     */
+    protected static <Q, R> MethodDescriptor<Q, R> streaming(String name, Class<Q> request, Class<R> response) {
+	return build(MethodDescriptor.MethodType.SERVER_STREAMING, name, request, response);
+    }
+
+    /**
+     * Create a method with JSON payloads.
+     * 
+     * @param type
+     * @param name
+     * @param request
+     * @param response
+     * @return
+     */
+    protected static <Q, R> MethodDescriptor<Q, R> build(MethodDescriptor.MethodType type, String name,
+	    Class<Q> request, Class<R> response) {
+	return MethodDescriptor.<Q, R>newBuilder().setType(type)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<>(request))
+		.setResponseMarshaller(new JsonMarshaller<>(response)).build();
+    }
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.grpc;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
+import com.sitewhere.microservice.api.search.ISearchProvider;
+import com.sitewhere.rest.model.search.DateRangeSearchCriteria;
+import com.sitewhere.search.solr.SolrSearchPage;
+import com.sitewhere.search.solr.SolrSearchProvider;
+import com.sitewhere.search.spi.ISearchProvidersManager;
+import com.sitewhere.search.spi.microservice.IEventSearchMicroservice;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.search.IDateRangeSearchCriteria;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for event search requests.
+ */
+public class EventSearchImpl implements IGrpcApiImplementation {
+
+    /** Parent microservice */
+    private IEventSearchMicroservice microservice;
+
+    /** Search providers for the tenant */
+    private ISearchProvidersManager searchProvidersManager;
+
+    public EventSearchImpl(IEventSearchMicroservice microservice, ISearchProvidersManager searchProvidersManager) {
+	this.microservice = microservice;
+	this.searchProvidersManager = searchProvidersManager;
+    }
+
+    /**
+     * Read one page of events matching a query.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void searchEvents(EventSearchRequest request, StreamObserver<SolrSearchPage> responseObserver) {
+	MethodDescriptor<EventSearchRequest, SolrSearchPage> method = EventSearchGrpc.getSearchEventsMethod();
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, method);
+	    responseObserver.onNext(getSolrProvider(request.getProviderId()).executeQueryPage(request.getQuery(),
+		    request.getCursorMark(), request.getPageSize()));
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(method, e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(method);
+	}
+    }
+
+    /**
+     * Stream every event matching a query.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamEvents(EventSearchRequest request, StreamObserver<IDeviceEvent> responseObserver) {
+	MethodDescriptor<EventSearchRequest, IDeviceEvent> method = EventSearchGrpc.getStreamEventsMethod();
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, method);
+	    SolrSearchProvider provider = getSolrProvider(request.getProviderId());
+	    new SearchResultStreamer<IDeviceEvent>(method, responseObserver,
+		    handler -> provider.streamQuery(request.getQuery(), request.getPageSize(), handler)).start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(method, e, responseObserver);
+	    GrpcUtils.handleServerMethodExit(method);
+	}
+    }
+
+    /**
+     * Stream selected fields of every document matching a query.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void exportEvents(EventSearchRequest request, StreamObserver<Map<String, Object>> responseObserver) {
+	MethodDescriptor<EventSearchRequest, Map<String, Object>> method = EventSearchGrpc.getExportEventsMethod();
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, method);
+	    SolrSearchProvider provider = getSolrProvider(request.getProviderId());
+	    new SearchResultStreamer<Map<String, Object>>(method, responseObserver,
+		    handler -> provider.exportQuery(request.getQuery(), handler)).start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(method, e, responseObserver);
+	    GrpcUtils.handleServerMethodExit(method);
+	}
+    }
+
+    /**
+     * Count events matching a query by field value.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getFacetCounts(EventSearchRequest request, StreamObserver<FacetCounts> responseObserver) {
+	MethodDescriptor<EventSearchRequest, FacetCounts> method = EventSearchGrpc.getGetFacetCountsMethod();
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, method);
+	    FacetCounts counts = new FacetCounts();
+	    counts.setCounts(getSolrProvider(request.getProviderId()).getFacetCounts(request.getQuery(),
+		    requireFacetField(request.getFacetField()), request.getFacetLimit()));
+	    responseObserver.onNext(counts);
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(method, e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(method);
+	}
+    }
+
+    /**
+     * Read one page of locations near a point.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getLocationsNear(LocationSearchRequest request, StreamObserver<SolrSearchPage> responseObserver) {
+	MethodDescriptor<LocationSearchRequest, SolrSearchPage> method = EventSearchGrpc.getGetLocationsNearMethod();
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, method);
+	    IDateRangeSearchCriteria criteria = buildCriteria(request);
+	    SolrSearchPage page = new SolrSearchPage();
+	    page.setResults(new ArrayList<>(getSolrProvider(request.getProviderId()).getLocationsNear(
+		    request.getLatitude(), request.getLongitude(), request.getDistance(), criteria)));
+	    page.setComplete(page.getResults().size() < criteria.getPageSize());
+	    responseObserver.onNext(page);
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(method, e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(method);
+	}
+    }
+
+    /**
+     * Stream every location near a point, nearest first.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamLocationsNear(LocationSearchRequest request, StreamObserver<IDeviceEvent> responseObserver) {
+	MethodDescriptor<LocationSearchRequest, IDeviceEvent> method = EventSearchGrpc.getStreamLocationsNearMethod();
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, method);
+	    SolrSearchProvider provider = getSolrProvider(request.getProviderId());
+	    IDateRangeSearchCriteria criteria = buildCriteria(request);
+	    new SearchResultStreamer<IDeviceEvent>(method, responseObserver,
+		    handler -> provider.streamLocationsNear(request.getLatitude(), request.getLongitude(),
+			    request.getDistance(), criteria, location -> handler.handle(location))).start();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(method, e, responseObserver);
+	    GrpcUtils.handleServerMethodExit(method);
+	}
+    }
+
+    /**
+     * Count locations near a point by field value.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getLocationsNearFacetCounts(LocationSearchRequest request,
+	    StreamObserver<FacetCounts> responseObserver) {
+	MethodDescriptor<LocationSearchRequest, FacetCounts> method = EventSearchGrpc
+		.getGetLocationsNearFacetCountsMethod();
+	try {
+	    GrpcUtils.handleServerMethodEntry(this, method);
+	    FacetCounts counts = new FacetCounts();
+	    counts.setCounts(getSolrProvider(request.getProviderId()).getLocationsNearFacetCounts(
+		    request.getLatitude(), request.getLongitude(), request.getDistance(), buildCriteria(request),
+		    requireFacetField(request.getFacetField()), request.getFacetLimit()));
+	    responseObserver.onNext(counts);
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(method, e, responseObserver);
+	} finally {
+	    GrpcUtils.handleServerMethodExit(method);
+	}
+    }
+
+    /**
+     * Get a Solr search provider by id.
+     * 
+     * @param providerId
+     * @return
+     * @throws SiteWhereException
+     */
+    protected SolrSearchProvider getSolrProvider(String providerId) throws SiteWhereException {
+	ISearchProvider provider = getSearchProvidersManager().getSearchProvider(providerId);
+	if (provider == null) {
+	    throw new SiteWhereException(String.format("Invalid search provider id '%s'.", providerId));
+	}
+	if (!(provider instanceof SolrSearchProvider)) {
+	    throw new SiteWhereException(
+		    String.format("Search provider '%s' does not support this type of search.", providerId));
+	}
+	return (SolrSearchProvider) provider;
+    }
+
+    /**
+     * Build date range and paging criteria for a location search. Page size is
+     * limited to {@link SolrSearchProvider#MAX_LOCATIONS_PAGE_SIZE}.
+     * 
+     * @param request
+     * @return
+     */
+    protected static IDateRangeSearchCriteria buildCriteria(LocationSearchRequest request) {
+	int pageSize = (request.getPageSize() > 0)
+		? Math.min(request.getPageSize(), SolrSearchProvider.MAX_LOCATIONS_PAGE_SIZE)
+		: SolrSearchProvider.MAX_LOCATIONS_PAGE_SIZE;
+	return new DateRangeSearchCriteria(Math.max(1, request.getPageNumber()), pageSize, request.getStartDate(),
+		request.getEndDate());
+    }
+
+    /**
+     * Check that a facet request names a field.
+     * 
+     * @param field
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static String requireFacetField(String field) throws SiteWhereException {
+	if (field == null || field.trim().isEmpty()) {
+	    throw new SiteWhereException("Facet field is required.");
+	}
+	return field;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation#getMicroservice()
+     */
+    @Override
+    public IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected ISearchProvidersManager getSearchProvidersManager() {
+	return searchProvidersManager;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.grpc;
+
+/**
+ * Request for a query against a search provider. The query is a URL query
+ * string of provider parameters.
+ */
+public class EventSearchRequest {
+
+    /** Search provider id */
+    private String providerId;
+
+    /** Query string */
+    private String query;
+
+    /** Cursor mark from the previous page (null for the first page) */
+    private String cursorMark;
+
+    /** Number of results per page */
+    private int pageSize;
+
+    /** Field counted by facet requests */
+    private String facetField;
+
+    /** Most facet values returned (zero for all) */
+    private int facetLimit;
+
+    public String getProviderId() {
+	return providerId;
+    }
+
+    public void setProviderId(String providerId) {
+	this.providerId = providerId;
+    }
+
+    public String getQuery() {
+	return query;
+    }
+
+    public void setQuery(String query) {
+	this.query = query;
+    }
+
+    public String getCursorMark() {
+	return cursorMark;
+    }
+
+    public void setCursorMark(String cursorMark) {
+	this.cursorMark = cursorMark;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public String getFacetField() {
+	return facetField;
+    }
+
+    public void setFacetField(String facetField) {
+	this.facetField = facetField;
+    }
+
+    public int getFacetLimit() {
+	return facetLimit;
+    }
+
+    public void setFacetLimit(int facetLimit) {
+	this.facetLimit = facetLimit;
+    }
+}
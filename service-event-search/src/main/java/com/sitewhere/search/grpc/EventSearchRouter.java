@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.grpc;
+
+import java.util.Map;
+
+import com.sitewhere.microservice.grpc.GrpcTenantEngineProvider;
+import com.sitewhere.search.solr.SolrSearchPage;
+import com.sitewhere.search.spi.microservice.IEventSearchMicroservice;
+import com.sitewhere.search.spi.microservice.IEventSearchTenantEngine;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.microservice.grpc.ITenantEngineCallback;
+
+import io.grpc.BindableService;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Routes GRPC calls to service implementations in tenants.
+ */
+public class EventSearchRouter implements BindableService {
+
+    /** Parent microservice */
+    private IEventSearchMicroservice microservice;
+
+    /** Tenant engine provider */
+    private GrpcTenantEngineProvider<IEventSearchTenantEngine> grpcTenantEngineProvider;
+
+    public EventSearchRouter(IEventSearchMicroservice microservice) {
+	this.microservice = microservice;
+	this.grpcTenantEngineProvider = new GrpcTenantEngineProvider<>(microservice);
+    }
+
+    /**
+     * Handle request for a page of events.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void searchEvents(EventSearchRequest request, StreamObserver<SolrSearchPage> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventSearchTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventSearchTenantEngine tenantEngine) {
+		tenantEngine.getEventSearchImpl().searchEvents(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to stream events.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamEvents(EventSearchRequest request, StreamObserver<IDeviceEvent> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventSearchTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventSearchTenantEngine tenantEngine) {
+		tenantEngine.getEventSearchImpl().streamEvents(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to export events.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void exportEvents(EventSearchRequest request, StreamObserver<Map<String, Object>> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventSearchTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventSearchTenantEngine tenantEngine) {
+		tenantEngine.getEventSearchImpl().exportEvents(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for facet counts.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getFacetCounts(EventSearchRequest request, StreamObserver<FacetCounts> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventSearchTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventSearchTenantEngine tenantEngine) {
+		tenantEngine.getEventSearchImpl().getFacetCounts(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for a page of locations near a point.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getLocationsNear(LocationSearchRequest request, StreamObserver<SolrSearchPage> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventSearchTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventSearchTenantEngine tenantEngine) {
+		tenantEngine.getEventSearchImpl().getLocationsNear(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request to stream locations near a point.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void streamLocationsNear(LocationSearchRequest request, StreamObserver<IDeviceEvent> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventSearchTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventSearchTenantEngine tenantEngine) {
+		tenantEngine.getEventSearchImpl().streamLocationsNear(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /**
+     * Handle request for facet counts of locations near a point.
+     * 
+     * @param request
+     * @param responseObserver
+     */
+    public void getLocationsNearFacetCounts(LocationSearchRequest request,
+	    StreamObserver<FacetCounts> responseObserver) {
+	getGrpcTenantEngineProvider().executeInTenantEngine(new ITenantEngineCallback<IEventSearchTenantEngine>() {
+
+	    @Override
+	    public void executeInTenantEngine(IEventSearchTenantEngine tenantEngine) {
+		tenantEngine.getEventSearchImpl().getLocationsNearFacetCounts(request, responseObserver);
+	    }
+	}, responseObserver);
+    }
+
+    /*
+     * @see io.grpc.BindableService#bindService()
+     */
+    @Override
+    public ServerServiceDefinition bindService() {
+	return ServerServiceDefinition.builder(EventSearchGrpc.SERVICE_NAME)
+		.addMethod(EventSearchGrpc.getSearchEventsMethod(), ServerCalls.asyncUnaryCall(this::searchEvents))
+		.addMethod(EventSearchGrpc.getStreamEventsMethod(),
+			ServerCalls.asyncServerStreamingCall(this::streamEvents))
+		.addMethod(EventSearchGrpc.getExportEventsMethod(),
+			ServerCalls.asyncServerStreamingCall(this::exportEvents))
+		.addMethod(EventSearchGrpc.getGetFacetCountsMethod(), ServerCalls.asyncUnaryCall(this::getFacetCounts))
+		.addMethod(EventSearchGrpc.getGetLocationsNearMethod(),
+			ServerCalls.asyncUnaryCall(this::getLocationsNear))
+		.addMethod(EventSearchGrpc.getStreamLocationsNearMethod(),
+			ServerCalls.asyncServerStreamingCall(this::streamLocationsNear))
+		.addMethod(EventSearchGrpc.getGetLocationsNearFacetCountsMethod(),
+			ServerCalls.asyncUnaryCall(this::getLocationsNearFacetCounts))
+		.build();
+    }
+
+    protected IEventSearchMicroservice getMicroservice() {
+	return microservice;
+    }
+
+    protected GrpcTenantEngineProvider<IEventSearchTenantEngine> getGrpcTenantEngineProvider() {
+	return grpcTenantEngineProvider;
+    }
+}
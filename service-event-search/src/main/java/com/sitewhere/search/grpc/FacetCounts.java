@@ -0,0 +1,36 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.grpc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Number of matching documents for each value of a field.
+ */
+public class FacetCounts {
+
+    /** Counts by field value, largest first */
+    private Map<String, Long> counts = new LinkedHashMap<>();
+
+    public Map<String, Long> getCounts() {
+	return counts;
+    }
+
+    public void setCounts(Map<String, Long> counts) {
+	this.counts = counts;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.grpc;
+
+import java.util.Date;
+
+/**
+ * Request for locations within a distance of a point.
+ */
+public class LocationSearchRequest {
+
+    /** Search provider id */
+    private String providerId;
+
+    /** Latitude of point */
+    private double latitude;
+
+    /** Longitude of point */
+    private double longitude;
+
+    /** Distance from point in kilometers */
+    private double distance;
+
+    /** Earliest event date (null for no limit) */
+    private Date startDate;
+
+    /** Latest event date (null for no limit) */
+    private Date endDate;
+
+    /** Page number starting at one */
+    private int pageNumber = 1;
+
+    /** Number of locations per page */
+    private int pageSize;
+
+    /** Field counted by facet requests */
+    private String facetField;
+
+    /** Most facet values returned (zero for all) */
+    private int facetLimit;
+
+    public String getProviderId() {
+	return providerId;
+    }
+
+    public void setProviderId(String providerId) {
+	this.providerId = providerId;
+    }
+
+    public double getLatitude() {
+	return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+	this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+	return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+	this.longitude = longitude;
+    }
+
+    public double getDistance() {
+	return distance;
+    }
+
+    public void setDistance(double distance) {
+	this.distance = distance;
+    }
+
+    public Date getStartDate() {
+	return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+	this.startDate = startDate;
+    }
+
+    public Date getEndDate() {
+	return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+	this.endDate = endDate;
+    }
+
+    public int getPageNumber() {
+	return pageNumber;
+    }
+
+    public void setPageNumber(int pageNumber) {
+	this.pageNumber = pageNumber;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public String getFacetField() {
+	return facetField;
+    }
+
+    public void setFacetField(String facetField) {
+	this.facetField = facetField;
+    }
+
+    public int getFacetLimit() {
+	return facetLimit;
+    }
+
+    public void setFacetLimit(int facetLimit) {
+	this.facetLimit = facetLimit;
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.grpc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.search.spi.ISearchResultHandler;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Streams search results to a client as a search provider produces them. The
+ * search runs on a worker thread that waits whenever the client is not ready
+ * for more messages, so a slow client holds back the provider rather than
+ * results building up in memory. Search providers push results to a handler
+ * (the Solr export handler cannot be paged), which is why the worker blocks
+ * instead of loading pages on demand.
+ *
+ * @param <T>
+ */
+public class SearchResultStreamer<T> implements ISearchResultHandler<T> {
+
+    /** Number of searches streamed at once. Later calls wait for a worker */
+    private static final int WORKER_THREADS = 8;
+
+    /** Runs searches for all streams */
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(WORKER_THREADS,
+	    new WorkerThreadFactory());
+
+    /** Method being streamed */
+    private MethodDescriptor<?, T> method;
+
+    /** Observer for sending results */
+    private ServerCallStreamObserver<T> observer;
+
+    /** Runs the search, passing results to the streamer */
+    private ISearch<T> search;
+
+    /** Indicates the client cancelled the call */
+    private boolean cancelled = false;
+
+    public SearchResultStreamer(MethodDescriptor<?, T> method, StreamObserver<T> observer, ISearch<T> search) {
+	this.method = method;
+	this.observer = (ServerCallStreamObserver<T>) observer;
+	this.search = search;
+    }
+
+    /**
+     * Start streaming. Must be called from the server method so that handlers
+     * are registered before the call is started.
+     */
+    public void start() {
+	getObserver().setOnCancelHandler(this::cancel);
+	getObserver().setOnReadyHandler(this::ready);
+	WORKERS.execute(this::run);
+    }
+
+    /**
+     * Run the search and complete the call.
+     */
+    protected void run() {
+	try {
+	    getSearch().run(this);
+	    synchronized (this) {
+		if (!cancelled) {
+		    getObserver().onCompleted();
+		}
+	    }
+	} catch (Throwable e) {
+	    synchronized (this) {
+		if (!cancelled) {
+		    GrpcUtils.handleServerMethodException(getMethod(), e, getObserver());
+		}
+	    }
+	} finally {
+	    GrpcUtils.handleServerMethodExit(getMethod());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.search.spi.ISearchResultHandler#handle(java.lang.Object)
+     */
+    @Override
+    public synchronized void handle(T result) throws SiteWhereException {
+	try {
+	    while (!cancelled && !getObserver().isReady()) {
+		wait();
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while streaming search results.", e);
+	}
+	if (cancelled) {
+	    throw new SiteWhereException("Search results stream was cancelled.");
+	}
+	getObserver().onNext(result);
+    }
+
+    /**
+     * Wake the worker when the client is ready for more messages.
+     */
+    protected synchronized void ready() {
+	notifyAll();
+    }
+
+    /**
+     * Stop the search when the client cancels the call.
+     */
+    protected synchronized void cancel() {
+	cancelled = true;
+	notifyAll();
+    }
+
+    protected MethodDescriptor<?, T> getMethod() {
+	return method;
+    }
+
+    protected ServerCallStreamObserver<T> getObserver() {
+	return observer;
+    }
+
+    protected ISearch<T> getSearch() {
+	return search;
+    }
+
+    /**
+     * Runs a search, passing each result to a handler.
+     */
+    @FunctionalInterface
+    public static interface ISearch<T> {
+
+	public void run(ISearchResultHandler<T> handler) throws SiteWhereException;
+    }
+
+    /**
+     * Used for naming worker threads.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+	/** Counter for thread names */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "Event Search Stream " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+}
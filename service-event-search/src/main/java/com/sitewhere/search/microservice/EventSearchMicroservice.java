@@ -17,14 +17,19 @@ package com.sitewhere.search.microservice;
 
 import javax.enterprise.context.ApplicationScoped;
 
+import com.sitewhere.microservice.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.microservice.multitenant.MultitenantMicroservice;
 import com.sitewhere.search.configuration.EventSearchConfiguration;
 import com.sitewhere.search.configuration.EventSearchModule;
+import com.sitewhere.search.grpc.EventSearchGrpcServer;
+import com.sitewhere.search.spi.grpc.IEventSearchGrpcServer;
 import com.sitewhere.search.spi.microservice.IEventSearchMicroservice;
 import com.sitewhere.search.spi.microservice.IEventSearchTenantEngine;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.MicroserviceIdentifier;
 import com.sitewhere.spi.microservice.configuration.IMicroserviceModule;
+import com.sitewhere.spi.microservice.lifecycle.ICompositeLifecycleStep;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 
 import io.sitewhere.k8s.crd.tenant.engine.SiteWhereTenantEngine;
 
@@ -36,6 +41,9 @@ public class EventSearchMicroservice
 	extends MultitenantMicroservice<MicroserviceIdentifier, EventSearchConfiguration, IEventSearchTenantEngine>
 	implements IEventSearchMicroservice {
 
+    /** Provides server for event search GRPC requests */
+    private IEventSearchGrpcServer eventSearchGrpcServer;
+
     /*
      * @see com.sitewhere.spi.microservice.IMicroservice#getName()
      */
@@ -77,4 +85,67 @@ public class EventSearchMicroservice
     public IEventSearchTenantEngine createTenantEngine(SiteWhereTenantEngine engine) throws SiteWhereException {
 	return new EventSearchTenantEngine(engine);
     }
-}
\ No newline at end of file
+
+    /*
+     * @see
+     * com.sitewhere.microservice.multitenant.MultitenantMicroservice#initialize(com
+     * .sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.initialize(monitor);
+
+	// Create event search GRPC server.
+	this.eventSearchGrpcServer = new EventSearchGrpcServer(this);
+
+	// Create step that will initialize components.
+	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getName());
+
+	// Initialize event search GRPC server.
+	init.addInitializeStep(this, getEventSearchGrpcServer(), true);
+
+	// Execute initialization steps.
+	init.execute(monitor);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.multitenant.MultitenantMicroservice#start(com.
+     * sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.start(monitor);
+
+	// Create step that will start components.
+	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getName());
+
+	// Start event search GRPC server.
+	start.addStartStep(this, getEventSearchGrpcServer(), true);
+
+	// Execute startup steps.
+	start.execute(monitor);
+    }
+
+    /*
+     * @see com.sitewhere.microservice.multitenant.MultitenantMicroservice#stop(com.
+     * sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Create step that will stop components.
+	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getName());
+
+	// Stop event search GRPC server.
+	stop.addStopStep(this, getEventSearchGrpcServer());
+
+	// Execute shutdown steps.
+	stop.execute(monitor);
+
+	super.stop(monitor);
+    }
+
+    public IEventSearchGrpcServer getEventSearchGrpcServer() {
+	return eventSearchGrpcServer;
+    }
+}
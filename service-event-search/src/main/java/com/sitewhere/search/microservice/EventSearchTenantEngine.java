@@ -17,9 +17,13 @@ package com.sitewhere.search.microservice;
 
 import com.sitewhere.microservice.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.microservice.multitenant.MicroserviceTenantEngine;
+import com.sitewhere.search.SearchProviderManager;
 import com.sitewhere.search.configuration.EventSearchTenantConfiguration;
 import com.sitewhere.search.configuration.EventSearchTenantEngineModule;
+import com.sitewhere.search.grpc.EventSearchImpl;
+import com.sitewhere.search.solr.SolrSearchProvider;
 import com.sitewhere.search.spi.ISearchProvidersManager;
+import com.sitewhere.search.spi.microservice.IEventSearchMicroservice;
 import com.sitewhere.search.spi.microservice.IEventSearchTenantEngine;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.lifecycle.ICompositeLifecycleStep;
@@ -36,9 +40,15 @@ import io.sitewhere.k8s.crd.tenant.engine.SiteWhereTenantEngine;
 public class EventSearchTenantEngine extends MicroserviceTenantEngine<EventSearchTenantConfiguration>
 	implements IEventSearchTenantEngine {
 
-    /** Manages the outbound connectors for this tenant */
+    /** Id of the Solr search provider */
+    public static final String SOLR_PROVIDER_ID = "solr";
+
+    /** Manages the search providers for this tenant */
     private ISearchProvidersManager searchProvidersManager;
 
+    /** Handles event search GRPC requests */
+    private EventSearchImpl eventSearchImpl;
+
     public EventSearchTenantEngine(SiteWhereTenantEngine engine) {
 	super(engine);
     }
@@ -68,9 +78,18 @@ public class EventSearchTenantEngine extends MicroserviceTenantEngine<EventSearc
      */
     @Override
     public void tenantInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	// // Create search providers manager.
-	// this.searchProvidersManager = (ISearchProvidersManager) getModuleContext()
-	// .getBean(EventSearchBeans.BEAN_SEARCH_PROVIDERS_MANAGER);
+	// Create search providers manager.
+	SearchProviderManager manager = new SearchProviderManager();
+	if (getActiveConfiguration().getSolr() != null) {
+	    SolrSearchProvider solr = new SolrSearchProvider();
+	    solr.setId(SOLR_PROVIDER_ID);
+	    solr.setSolrConfiguration(getActiveConfiguration().getSolr());
+	    manager.getSearchProviders().add(solr);
+	}
+	this.searchProvidersManager = manager;
+
+	// Create GRPC API implementation.
+	this.eventSearchImpl = new EventSearchImpl((IEventSearchMicroservice) getMicroservice(), manager);
 
 	// Create step that will initialize components.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getComponentName());
@@ -128,4 +147,13 @@ public class EventSearchTenantEngine extends MicroserviceTenantEngine<EventSearc
     protected void setSearchProvidersManager(ISearchProvidersManager searchProvidersManager) {
 	this.searchProvidersManager = searchProvidersManager;
     }
+
+    /*
+     * @see com.sitewhere.search.spi.microservice.IEventSearchTenantEngine#
+     * getEventSearchImpl()
+     */
+    @Override
+    public EventSearchImpl getEventSearchImpl() {
+	return eventSearchImpl;
+    }
 }
\ No newline at end of file
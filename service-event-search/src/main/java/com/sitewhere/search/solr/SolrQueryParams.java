@@ -0,0 +1,205 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.solr;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.search.IDateRangeSearchCriteria;
+
+/**
+ * Helper methods for building Solr query parameters for event searches.
+ */
+public class SolrQueryParams {
+
+    /** Unique key field */
+    public static final String FIELD_ID = "id";
+
+    /** Event type field */
+    public static final String FIELD_EVENT_TYPE = "eventType";
+
+    /** Event date field */
+    public static final String FIELD_EVENT_DATE = "eventDate";
+
+    /** Location field (indexed as a spatial point) */
+    public static final String FIELD_LOCATION = "location";
+
+    /** Event type value for locations */
+    public static final String EVENT_TYPE_LOCATION = "Location";
+
+    /**
+     * Parse a URL query string such as <code>q=*:*&amp;fq=eventType:Alert</code>
+     * into Solr parameters. Parameters may repeat. A string without any
+     * parameter names is treated as the main query.
+     * 
+     * @param queryString
+     * @return
+     * @throws SiteWhereException
+     */
+    public static ModifiableSolrParams parse(String queryString) throws SiteWhereException {
+	ModifiableSolrParams params = new ModifiableSolrParams();
+	if (queryString == null || queryString.trim().isEmpty()) {
+	    params.set(CommonParams.Q, "*:*");
+	    return params;
+	}
+	String trimmed = queryString.trim();
+	if (trimmed.startsWith("?")) {
+	    trimmed = trimmed.substring(1);
+	}
+	if (!trimmed.contains("=")) {
+	    params.set(CommonParams.Q, trimmed);
+	    return params;
+	}
+	for (String pair : trimmed.split("&")) {
+	    if (pair.isEmpty()) {
+		continue;
+	    }
+	    int equals = pair.indexOf('=');
+	    String name = decode((equals < 0) ? pair : pair.substring(0, equals));
+	    String value = (equals < 0) ? "" : decode(pair.substring(equals + 1));
+	    params.add(name, value);
+	}
+	if (params.get(CommonParams.Q) == null) {
+	    params.set(CommonParams.Q, "*:*");
+	}
+	return params;
+    }
+
+    /**
+     * Prepare parameters for deep paging with a cursor. Cursors require a sort
+     * that ends with the unique key and do not allow a start offset.
+     * 
+     * @param source
+     * @param cursorMark
+     * @param rows
+     * @return
+     */
+    public static ModifiableSolrParams forCursor(SolrParams source, String cursorMark, int rows) {
+	ModifiableSolrParams params = new ModifiableSolrParams(source);
+	params.remove(CommonParams.START);
+	params.set(CommonParams.ROWS, rows);
+	params.set(CommonParams.SORT, withUniqueKeySort(source.get(CommonParams.SORT)));
+	params.set(CursorMarkParams.CURSOR_MARK_PARAM,
+		(cursorMark != null) ? cursorMark : CursorMarkParams.CURSOR_MARK_START);
+	return params;
+    }
+
+    /**
+     * Prepare parameters for the export handler. Export requires a field list
+     * and a sort on fields with doc values.
+     * 
+     * @param source
+     * @return
+     * @throws SiteWhereException
+     */
+    public static ModifiableSolrParams forExport(SolrParams source) throws SiteWhereException {
+	ModifiableSolrParams params = new ModifiableSolrParams(source);
+	if (params.get(CommonParams.FL) == null || "*".equals(params.get(CommonParams.FL).trim())) {
+	    throw new SiteWhereException("Export queries require an explicit field list (fl).");
+	}
+	if (params.get(CommonParams.SORT) == null) {
+	    params.set(CommonParams.SORT, FIELD_EVENT_DATE + " asc");
+	}
+	params.remove(CommonParams.START);
+	params.remove(CommonParams.ROWS);
+	params.remove(CursorMarkParams.CURSOR_MARK_PARAM);
+	params.set(CommonParams.WT, "json");
+	return params;
+    }
+
+    /**
+     * Add a filter on event date for the range in the given criteria.
+     * 
+     * @param params
+     * @param criteria
+     */
+    public static void addDateRangeFilter(ModifiableSolrParams params, IDateRangeSearchCriteria criteria) {
+	if (criteria == null || (criteria.getStartDate() == null && criteria.getEndDate() == null)) {
+	    return;
+	}
+	params.add(CommonParams.FQ, FIELD_EVENT_DATE + ":[" + formatDate(criteria.getStartDate()) + " TO "
+		+ formatDate(criteria.getEndDate()) + "]");
+    }
+
+    /**
+     * Add a filter for points within a distance of a location. Results are
+     * sorted nearest first.
+     * 
+     * @param params
+     * @param latitude
+     * @param longitude
+     * @param distanceKm
+     */
+    public static void addGeoFilter(ModifiableSolrParams params, double latitude, double longitude,
+	    double distanceKm) {
+	params.set("sfield", FIELD_LOCATION);
+	params.set("pt", String.format(Locale.ROOT, "%f,%f", latitude, longitude));
+	params.set("d", String.format(Locale.ROOT, "%f", distanceKm));
+	params.add(CommonParams.FQ, "{!geofilt}");
+	params.set(CommonParams.SORT, "geodist() asc," + FIELD_ID + " asc");
+    }
+
+    /**
+     * Ensure a sort ends with the unique key so cursors are stable.
+     * 
+     * @param sort
+     * @return
+     */
+    protected static String withUniqueKeySort(String sort) {
+	if (sort == null || sort.trim().isEmpty()) {
+	    return FIELD_ID + " asc";
+	}
+	for (String clause : sort.split(",")) {
+	    if (clause.trim().startsWith(FIELD_ID + " ")) {
+		return sort;
+	    }
+	}
+	return sort + "," + FIELD_ID + " asc";
+    }
+
+    /**
+     * Format a date for a range query.
+     * 
+     * @param date
+     * @return
+     */
+    protected static String formatDate(Date date) {
+	return (date != null) ? date.toInstant().toString() : "*";
+    }
+
+    /**
+     * Decode a URL-encoded value.
+     * 
+     * @param value
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static String decode(String value) throws SiteWhereException {
+	try {
+	    return URLDecoder.decode(value, "UTF-8");
+	} catch (UnsupportedEncodingException | IllegalArgumentException e) {
+	    throw new SiteWhereException("Invalid query string value: " + value, e);
+	}
+    }
+}
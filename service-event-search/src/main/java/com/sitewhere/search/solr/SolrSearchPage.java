@@ -0,0 +1,72 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.search.solr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sitewhere.spi.device.event.IDeviceEvent;
+
+/**
+ * Page of events returned by a cursor query. The next cursor mark is passed to
+ * the following query to continue where this page ended.
+ */
+public class SolrSearchPage {
+
+    /** Events in page */
+    private List<IDeviceEvent> results = new ArrayList<>();
+
+    /** Total number of matching documents */
+    private long numFound;
+
+    /** Cursor mark for the next page */
+    private String nextCursorMark;
+
+    /** Indicates no more pages are available */
+    private boolean complete;
+
+    public List<IDeviceEvent> getResults() {
+	return results;
+    }
+
+    public void setResults(List<IDeviceEvent> results) {
+	this.results = results;
+    }
+
+    public long getNumFound() {
+	return numFound;
+    }
+
+    public void setNumFound(long numFound) {
+	this.numFound = numFound;
+    }
+
+    public String getNextCursorMark() {
+	return nextCursorMark;
+    }
+
+    public void setNextCursorMark(String nextCursorMark) {
+	this.nextCursorMark = nextCursorMark;
+    }
+
+    public boolean isComplete() {
+	return complete;
+    }
+
+    public void setComplete(boolean complete) {
+	this.complete = complete;
+    }
+}
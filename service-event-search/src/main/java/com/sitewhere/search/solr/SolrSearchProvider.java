@@ -16,26 +16,36 @@
 package com.sitewhere.search.solr;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.InputStreamResponseParser;
 import org.apache.solr.client.solrj.impl.NoOpResponseParser;
 import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.SolrPingResponse;
 import org.apache.solr.common.SolrDocument;
-import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.FacetParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
-import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sitewhere.microservice.api.search.IDeviceEventSearchProvider;
 import com.sitewhere.microservice.api.search.ISearchProvider;
 import com.sitewhere.microservice.lifecycle.LifecycleComponent;
+import com.sitewhere.search.spi.ISearchResultHandler;
 import com.sitewhere.solr.SiteWhereSolrFactory;
 import com.sitewhere.solr.SolrConfiguration;
 import com.sitewhere.solr.SolrConnection;
@@ -48,13 +58,35 @@ import com.sitewhere.spi.search.IDateRangeSearchCriteria;
 
 /**
  * Implementation of {@link ISearchProvider} that executes queries against a
- * Solr server.
+ * Solr server. Queries are passed as URL query strings of Solr parameters.
+ * Large result sets can be read page by page with cursor marks, streamed at
+ * constant memory, or exported through the Solr export handler when only
+ * selected fields are needed.
  */
 public class SolrSearchProvider extends LifecycleComponent implements IDeviceEventSearchProvider {
 
     /** Name returned for provider */
     private static final String DEFAULT_NAME = "Solr Search Provider";
 
+    /** Rows returned by a plain query unless the query sets them */
+    private static final int DEFAULT_MAX_ROWS = 1000;
+
+    /** Most locations returned by a single call to {@link #getLocationsNear} */
+    public static final int MAX_LOCATIONS_PAGE_SIZE = 1000;
+
+    /** Rows requested per page when streaming results */
+    private static final int DEFAULT_STREAM_PAGE_SIZE = 500;
+
+    /** Path of the Solr export handler */
+    private static final String EXPORT_PATH = "/export";
+
+    /** Field reported by the export handler when it fails mid-stream */
+    private static final String EXPORT_EXCEPTION = "EXCEPTION";
+
+    /** Type for exported documents */
+    private static final TypeReference<Map<String, Object>> DOCUMENT_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
     /** Provider id */
     private String id;
 
@@ -107,17 +139,10 @@ public class SolrSearchProvider extends LifecycleComponent implements IDeviceEve
      * 
      * @param queryString
      * @return
+     * @throws SiteWhereException
      */
-    protected SolrParams createParamsFromQueryString(String queryString) {
-	// MultiValueMap<String, String> parsed =
-	// UriComponentsBuilder.fromHttpUrl("http://localhost?" + queryString)
-	// .build().getQueryParams();
-	// Map<String, String[]> params = new HashMap<String, String[]>();
-	// for (String key : parsed.keySet()) {
-	// params.put(key, parsed.get(key).toArray(new String[0]));
-	// }
-	// return new ModifiableSolrParams(params);
-	return null;
+    protected ModifiableSolrParams createParamsFromQueryString(String queryString) throws SiteWhereException {
+	return SolrQueryParams.parse(queryString);
     }
 
     /*
@@ -129,12 +154,13 @@ public class SolrSearchProvider extends LifecycleComponent implements IDeviceEve
     public List<IDeviceEvent> executeQuery(String queryString) throws SiteWhereException {
 	try {
 	    getLogger().debug("About to execute Solr search with query string: " + queryString);
+	    ModifiableSolrParams params = createParamsFromQueryString(queryString);
+	    if (params.get(CommonParams.ROWS) == null) {
+		params.set(CommonParams.ROWS, DEFAULT_MAX_ROWS);
+	    }
 	    List<IDeviceEvent> results = new ArrayList<IDeviceEvent>();
-	    SolrQuery solrQuery = new SolrQuery();
-	    solrQuery.setQuery(queryString);
-	    QueryResponse response = getSolrConnection().getSolrClient().query(solrQuery);
-	    SolrDocumentList docs = response.getResults();
-	    for (SolrDocument doc : docs) {
+	    QueryResponse response = getSolrConnection().getSolrClient().query(params, METHOD.POST);
+	    for (SolrDocument doc : response.getResults()) {
 		results.add(SiteWhereSolrFactory.parseDocument(doc));
 	    }
 	    return results;
@@ -157,9 +183,7 @@ public class SolrSearchProvider extends LifecycleComponent implements IDeviceEve
 	    NoOpResponseParser rawJsonResponseParser = new NoOpResponseParser();
 	    rawJsonResponseParser.setWriterType("json");
 
-	    SolrQuery query = new SolrQuery();
-	    query.add(createParamsFromQueryString(queryString));
-	    QueryRequest request = new QueryRequest(query);
+	    QueryRequest request = new QueryRequest(createParamsFromQueryString(queryString), METHOD.POST);
 	    request.setResponseParser(rawJsonResponseParser);
 	    NamedList<?> results = getSolrConnection().getSolrClient().request(request);
 	    return MAPPER.readTree((String) results.get("response"));
@@ -170,7 +194,127 @@ public class SolrSearchProvider extends LifecycleComponent implements IDeviceEve
 	}
     }
 
-    /*
+    /**
+     * Execute a query and return one page of results using cursor based paging.
+     * Pass null as the cursor mark for the first page and the returned cursor
+     * mark for each following page. Unlike start offsets, the cost of a page
+     * does not grow with its depth.
+     * 
+     * @param queryString
+     * @param cursorMark
+     * @param pageSize
+     * @return
+     * @throws SiteWhereException
+     */
+    public SolrSearchPage executeQueryPage(String queryString, String cursorMark, int pageSize)
+	    throws SiteWhereException {
+	return executeCursorQuery(createParamsFromQueryString(queryString), cursorMark, pageSize);
+    }
+
+    /**
+     * Execute a query and pass every matching event to a handler. Results are
+     * read one page at a time with cursor marks so memory use does not depend
+     * on the number of matches.
+     * 
+     * @param queryString
+     * @param pageSize
+     * @param handler
+     * @return number of events handled
+     * @throws SiteWhereException
+     */
+    public long streamQuery(String queryString, int pageSize, ISearchResultHandler<IDeviceEvent> handler)
+	    throws SiteWhereException {
+	return streamCursorQuery(createParamsFromQueryString(queryString), pageSize, handler);
+    }
+
+    /**
+     * Stream selected fields of all matching documents through the Solr export
+     * handler. The query must include a field list (fl) and may include a sort
+     * on fields with doc values (defaults to event date). Each document is
+     * passed to the handler as a map of field values as it is read from the
+     * response.
+     * 
+     * @param queryString
+     * @param handler
+     * @return number of documents handled
+     * @throws SiteWhereException
+     */
+    public long exportQuery(String queryString, ISearchResultHandler<Map<String, Object>> handler)
+	    throws SiteWhereException {
+	ModifiableSolrParams params = SolrQueryParams.forExport(createParamsFromQueryString(queryString));
+	getLogger().debug("About to execute Solr export with parameters: " + params);
+	QueryRequest request = new QueryRequest(params, METHOD.POST);
+	request.setPath(EXPORT_PATH);
+	request.setResponseParser(new InputStreamResponseParser("json"));
+	try {
+	    NamedList<Object> response = getSolrConnection().getSolrClient().request(request);
+	    try (InputStream input = (InputStream) response.get("stream");
+		    JsonParser parser = MAPPER.getFactory().createParser(input)) {
+		return readExportedDocuments(parser, handler);
+	    }
+	} catch (SolrServerException e) {
+	    throw new SiteWhereException("Unable to execute export query.", e);
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to execute export query.", e);
+	}
+    }
+
+    /**
+     * Read documents from an export response, passing each to the handler.
+     * 
+     * @param parser
+     * @param handler
+     * @return
+     * @throws IOException
+     * @throws SiteWhereException
+     */
+    protected long readExportedDocuments(JsonParser parser, ISearchResultHandler<Map<String, Object>> handler)
+	    throws IOException, SiteWhereException {
+	long count = 0;
+	while (parser.nextToken() != null) {
+	    if (parser.getCurrentToken() != JsonToken.FIELD_NAME) {
+		continue;
+	    }
+	    String field = parser.getCurrentName();
+	    if ("error".equals(field)) {
+		parser.nextToken();
+		JsonNode error = parser.readValueAsTree();
+		throw new SiteWhereException("Solr export failed: " + error.path("msg").asText(error.toString()));
+	    }
+	    if ("docs".equals(field) && parser.nextToken() == JsonToken.START_ARRAY) {
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+		    Map<String, Object> document = parser.readValueAs(DOCUMENT_TYPE);
+		    if (document.containsKey(EXPORT_EXCEPTION)) {
+			throw new SiteWhereException("Solr export failed: " + document.get(EXPORT_EXCEPTION));
+		    }
+		    handler.handle(document);
+		    count++;
+		}
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * Count documents matching a query for each value of a field.
+     * 
+     * @param queryString
+     * @param field
+     * @param limit
+     * @return counts by field value, largest first
+     * @throws SiteWhereException
+     */
+    public Map<String, Long> getFacetCounts(String queryString, String field, int limit) throws SiteWhereException {
+	return executeFacetQuery(createParamsFromQueryString(queryString), field, limit);
+    }
+
+    /**
+     * Get one page of locations within a distance of a point. Pages are limited
+     * to {@link #MAX_LOCATIONS_PAGE_SIZE} locations, which is also the page size
+     * used when the criteria do not set one. Use
+     * {@link #streamLocationsNear(double, double, double, IDateRangeSearchCriteria, ISearchResultHandler)}
+     * to read every match.
+     * 
      * @see
      * com.sitewhere.spi.search.IDeviceEventSearchProvider#getLocationsNear(double,
      * double, double, com.sitewhere.spi.search.IDateRangeSearchCriteria)
@@ -178,15 +322,19 @@ public class SolrSearchProvider extends LifecycleComponent implements IDeviceEve
     @Override
     public List<IDeviceLocation> getLocationsNear(double latitude, double longitude, double distance,
 	    IDateRangeSearchCriteria criteria) throws SiteWhereException {
-	ModifiableSolrParams params = new ModifiableSolrParams();
+	List<IDeviceLocation> results = new ArrayList<IDeviceLocation>();
+	ModifiableSolrParams params = createLocationsNearParams(latitude, longitude, distance, criteria);
+	int pageSize = (criteria != null && criteria.getPageSize() != null && criteria.getPageSize() > 0)
+		? Math.min(criteria.getPageSize(), MAX_LOCATIONS_PAGE_SIZE)
+		: MAX_LOCATIONS_PAGE_SIZE;
+	int page = (criteria != null && criteria.getPageNumber() != null) ? Math.max(1, criteria.getPageNumber()) : 1;
+	params.set(CommonParams.START, (page - 1) * pageSize);
+	params.set(CommonParams.ROWS, pageSize);
 	try {
-	    QueryResponse response = getSolrConnection().getSolrClient().query(params);
-	    SolrDocumentList docs = response.getResults();
-	    while (docs.iterator().hasNext()) {
-		SolrDocument doc = docs.iterator().next();
-		doc.getFieldNames();
+	    QueryResponse response = getSolrConnection().getSolrClient().query(params, METHOD.POST);
+	    for (SolrDocument doc : response.getResults()) {
+		results.add((IDeviceLocation) SiteWhereSolrFactory.parseDocument(doc));
 	    }
-	    List<IDeviceLocation> results = new ArrayList<IDeviceLocation>();
 	    return results;
 	} catch (SolrServerException e) {
 	    throw new SiteWhereException("Unable to execute 'getLocationsNear' query.", e);
@@ -195,6 +343,155 @@ public class SolrSearchProvider extends LifecycleComponent implements IDeviceEve
 	}
     }
 
+    /**
+     * Pass every location within a distance of a point to a handler, nearest
+     * first, at constant memory.
+     * 
+     * @param latitude
+     * @param longitude
+     * @param distance
+     * @param criteria
+     * @param handler
+     * @return number of locations handled
+     * @throws SiteWhereException
+     */
+    public long streamLocationsNear(double latitude, double longitude, double distance,
+	    IDateRangeSearchCriteria criteria, ISearchResultHandler<IDeviceLocation> handler)
+	    throws SiteWhereException {
+	return streamCursorQuery(createLocationsNearParams(latitude, longitude, distance, criteria),
+		DEFAULT_STREAM_PAGE_SIZE, event -> handler.handle((IDeviceLocation) event));
+    }
+
+    /**
+     * Count locations within a distance of a point for each value of a field
+     * (for instance the device assignment) without returning the locations.
+     * 
+     * @param latitude
+     * @param longitude
+     * @param distance
+     * @param criteria
+     * @param field
+     * @param limit
+     * @return counts by field value, largest first
+     * @throws SiteWhereException
+     */
+    public Map<String, Long> getLocationsNearFacetCounts(double latitude, double longitude, double distance,
+	    IDateRangeSearchCriteria criteria, String field, int limit) throws SiteWhereException {
+	return executeFacetQuery(createLocationsNearParams(latitude, longitude, distance, criteria), field, limit);
+    }
+
+    /**
+     * Create parameters matching locations within a distance (in kilometers) of
+     * a point.
+     * 
+     * @param latitude
+     * @param longitude
+     * @param distance
+     * @param criteria
+     * @return
+     */
+    protected ModifiableSolrParams createLocationsNearParams(double latitude, double longitude, double distance,
+	    IDateRangeSearchCriteria criteria) {
+	ModifiableSolrParams params = new ModifiableSolrParams();
+	params.set(CommonParams.Q, "*:*");
+	params.add(CommonParams.FQ, SolrQueryParams.FIELD_EVENT_TYPE + ":" + SolrQueryParams.EVENT_TYPE_LOCATION);
+	SolrQueryParams.addGeoFilter(params, latitude, longitude, distance);
+	SolrQueryParams.addDateRangeFilter(params, criteria);
+	return params;
+    }
+
+    /**
+     * Execute a single cursor query.
+     * 
+     * @param params
+     * @param cursorMark
+     * @param pageSize
+     * @return
+     * @throws SiteWhereException
+     */
+    protected SolrSearchPage executeCursorQuery(ModifiableSolrParams params, String cursorMark, int pageSize)
+	    throws SiteWhereException {
+	ModifiableSolrParams cursor = SolrQueryParams.forCursor(params, cursorMark, Math.max(1, pageSize));
+	try {
+	    QueryResponse response = getSolrConnection().getSolrClient().query(cursor, METHOD.POST);
+	    SolrSearchPage page = new SolrSearchPage();
+	    for (SolrDocument doc : response.getResults()) {
+		page.getResults().add(SiteWhereSolrFactory.parseDocument(doc));
+	    }
+	    page.setNumFound(response.getResults().getNumFound());
+	    page.setNextCursorMark(response.getNextCursorMark());
+	    page.setComplete(page.getResults().isEmpty()
+		    || response.getNextCursorMark().equals(cursor.get(CursorMarkParams.CURSOR_MARK_PARAM)));
+	    return page;
+	} catch (SolrServerException e) {
+	    throw new SiteWhereException("Unable to execute query.", e);
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to execute query.", e);
+	}
+    }
+
+    /**
+     * Read all pages of a cursor query, passing each event to a handler.
+     * 
+     * @param params
+     * @param pageSize
+     * @param handler
+     * @return
+     * @throws SiteWhereException
+     */
+    protected long streamCursorQuery(ModifiableSolrParams params, int pageSize,
+	    ISearchResultHandler<IDeviceEvent> handler) throws SiteWhereException {
+	long count = 0;
+	String cursorMark = null;
+	while (true) {
+	    SolrSearchPage page = executeCursorQuery(params, cursorMark,
+		    (pageSize > 0) ? pageSize : DEFAULT_STREAM_PAGE_SIZE);
+	    for (IDeviceEvent event : page.getResults()) {
+		handler.handle(event);
+		count++;
+	    }
+	    if (page.isComplete()) {
+		return count;
+	    }
+	    cursorMark = page.getNextCursorMark();
+	}
+    }
+
+    /**
+     * Execute a query that only returns facet counts for a field.
+     * 
+     * @param params
+     * @param field
+     * @param limit
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<String, Long> executeFacetQuery(ModifiableSolrParams params, String field, int limit)
+	    throws SiteWhereException {
+	ModifiableSolrParams facet = new ModifiableSolrParams(params);
+	facet.set(CommonParams.ROWS, 0);
+	facet.remove(CommonParams.SORT);
+	facet.set(FacetParams.FACET, true);
+	facet.set(FacetParams.FACET_FIELD, field);
+	facet.set(FacetParams.FACET_LIMIT, (limit > 0) ? limit : -1);
+	facet.set(FacetParams.FACET_MINCOUNT, 1);
+	try {
+	    QueryResponse response = getSolrConnection().getSolrClient().query(facet, METHOD.POST);
+	    Map<String, Long> counts = new LinkedHashMap<>();
+	    FacetField values = response.getFacetField(field);
+	    if (values != null) {
+		for (FacetField.Count count : values.getValues()) {
+		    counts.put(count.getName(), count.getCount());
+		}
+	    }
+	    return counts;
+	} catch (SolrServerException e) {
+	    throw new SiteWhereException("Unable to execute facet query.", e);
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to execute facet query.", e);
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -16,6 +16,7 @@
 package com.sitewhere.search.spi.microservice;
 
 import com.sitewhere.search.configuration.EventSearchTenantConfiguration;
+import com.sitewhere.search.grpc.EventSearchImpl;
 import com.sitewhere.search.spi.ISearchProvidersManager;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 
@@ -31,4 +32,11 @@ public interface IEventSearchTenantEngine extends IMicroserviceTenantEngine<Even
      * @return
      */
     public ISearchProvidersManager getSearchProvidersManager();
+
+    /**
+     * Get implementation class that handles event search GRPC requests.
+     * 
+     * @return
+     */
+    public EventSearchImpl getEventSearchImpl();
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Consumed;
 import org.apache.kafka.streams.kstream.KStream;
@@ -107,11 +108,14 @@ public class DecodedEventsPipeline extends KafkaStreamPipeline implements IDecod
 	KStream<UUID, InboundEventContext> deviceFoundBranch = deviceBranches[0];
 	KStream<UUID, InboundEventContext> deviceNotFoundBranch = deviceBranches[1];
 
-	// Route unresolved device tokens to their own topic.
+	// Route unresolved device tokens to their own topic keyed by device token so
+	// all events for a device land on the partition that buffers them.
 	String unregisteredTopic = getMicroservice().getKafkaTopicNaming()
 		.getUnregisteredDeviceEventsTopic(getTenantEngine().getTenantResource());
-	deviceNotFoundBranch.mapValues((key, value) -> value.getDecodedEventPayload()).to(unregisteredTopic,
-		Produced.with(Serdes.UUID(), SiteWhereSerdes.forDecodedEventPayload()));
+	deviceNotFoundBranch
+		.map((key, value) -> KeyValue.pair(value.getDecodedEventPayload().getDeviceToken(),
+			value.getDecodedEventPayload()))
+		.to(unregisteredTopic, Produced.with(Serdes.String(), SiteWhereSerdes.forDecodedEventPayload()));
 
 	// Create separate "preprocessed event" payloads for each assignment and
 	// forward to inbound events topic.
@@ -0,0 +1,188 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.asset;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sitewhere.grpc.client.spi.client.IAssetManagementApiChannel;
+import com.sitewhere.grpc.service.AssetManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the bulk asset and asset type calls served by asset management.
+ * The calls are not part of the generated asset management stubs, so they are
+ * invoked directly on the API channel with JSON payloads. Large requests are
+ * split into chunks so that each call stays well under message size limits.
+ */
+public class AssetBulkClient {
+
+    /** Number of entries sent in each call */
+    private static final int CHUNK_SIZE = 1000;
+
+    /** Timeout for each call */
+    private static final long TIMEOUT_MS = 5 * 60 * 1000;
+
+    /** Method for creating or updating asset types in bulk */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> BULK_UPSERT_ASSET_TYPES = buildMethod(
+	    "BulkUpsertAssetTypes");
+
+    /** Method for creating or updating assets in bulk */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> BULK_UPSERT_ASSETS = buildMethod(
+	    "BulkUpsertAssets");
+
+    /** Asset management API channel */
+    private IAssetManagementApiChannel<?> channel;
+
+    public AssetBulkClient(IAssetManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Create or update asset types in bulk.
+     * 
+     * @param mode
+     * @param entries
+     * @param includeResults
+     *            include results for successful entries (failures are always
+     *            included)
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode bulkUpsertAssetTypes(String mode, List<?> entries, boolean includeResults)
+	    throws SiteWhereException {
+	return upsert(BULK_UPSERT_ASSET_TYPES, mode, entries, includeResults);
+    }
+
+    /**
+     * Create or update assets in bulk.
+     * 
+     * @param mode
+     * @param entries
+     * @param includeResults
+     *            include results for successful entries (failures are always
+     *            included)
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode bulkUpsertAssets(String mode, List<?> entries, boolean includeResults) throws SiteWhereException {
+	return upsert(BULK_UPSERT_ASSETS, mode, entries, includeResults);
+    }
+
+    /**
+     * Convert bulk mode from a REST request to the value expected by asset
+     * management.
+     * 
+     * @param mode
+     * @return
+     * @throws SiteWhereException
+     */
+    public static String parseBulkMode(String mode) throws SiteWhereException {
+	if (mode == null || "upsert".equalsIgnoreCase(mode)) {
+	    return "Upsert";
+	} else if ("create".equalsIgnoreCase(mode)) {
+	    return "Create";
+	} else if ("update".equalsIgnoreCase(mode)) {
+	    return "Update";
+	}
+	throw new SiteWhereException("Unsupported bulk mode: " + mode);
+    }
+
+    /**
+     * Send entries in chunks and combine the results. Result indexes refer to
+     * positions in the full list of entries.
+     * 
+     * @param method
+     * @param mode
+     * @param entries
+     * @param includeResults
+     * @return
+     * @throws SiteWhereException
+     */
+    protected JsonNode upsert(MethodDescriptor<Map<String, Object>, JsonNode> method, String mode, List<?> entries,
+	    boolean includeResults) throws SiteWhereException {
+	ObjectNode response = JsonNodeFactory.instance.objectNode();
+	ArrayNode results = JsonNodeFactory.instance.arrayNode();
+	long created = 0, updated = 0, failed = 0;
+	for (int start = 0; start < entries.size(); start += CHUNK_SIZE) {
+	    Map<String, Object> request = new HashMap<>();
+	    request.put("mode", mode);
+	    request.put("entries", entries.subList(start, Math.min(start + CHUNK_SIZE, entries.size())));
+	    JsonNode chunk = call(method, request);
+	    created += chunk.path("createdCount").asLong();
+	    updated += chunk.path("updatedCount").asLong();
+	    failed += chunk.path("failedCount").asLong();
+	    for (JsonNode result : chunk.path("results")) {
+		if (includeResults || "Failed".equals(result.path("action").asText())) {
+		    ((ObjectNode) result).put("index", start + result.path("index").asInt());
+		    results.add(result);
+		}
+	    }
+	}
+	response.put("createdCount", created);
+	response.put("updatedCount", updated);
+	response.put("failedCount", failed);
+	response.set("results", results);
+	return response;
+    }
+
+    /**
+     * Make a single bulk call.
+     * 
+     * @param method
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    protected JsonNode call(MethodDescriptor<Map<String, Object>, JsonNode> method, Map<String, Object> request)
+	    throws SiteWhereException {
+	try {
+	    return ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(), method,
+		    CallOptions.DEFAULT.withDeadlineAfter(TIMEOUT_MS, TimeUnit.MILLISECONDS), request);
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException("Unable to store assets in bulk.", e);
+	}
+    }
+
+    /**
+     * Build descriptor for a bulk method.
+     * 
+     * @param name
+     * @return
+     */
+    protected static MethodDescriptor<Map<String, Object>, JsonNode> buildMethod(String name) {
+	return MethodDescriptor.<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(AssetManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+		.setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+    }
+
+    protected IAssetManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.device;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the bulk alarm and open alarm count calls served by device
+ * management. The calls are not part of the generated device management
+ * stubs, so they are invoked directly on the API channel with JSON payloads.
+ * Large bulk requests are split into chunks so that each call stays well under
+ * message size limits.
+ */
+public class DeviceAlarmClient {
+
+    /** Number of entries sent in each call */
+    private static final int CHUNK_SIZE = 5000;
+
+    /** Timeout for each bulk call */
+    private static final long TIMEOUT_MS = 5 * 60 * 1000;
+
+    /** Method for raising, acknowledging or resolving alarms in bulk */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> BULK_UPDATE_DEVICE_ALARMS = buildMethod(
+	    "BulkUpdateDeviceAlarms");
+
+    /** Method for getting open alarm counts */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> GET_OPEN_DEVICE_ALARM_COUNTS = buildMethod(
+	    "GetOpenDeviceAlarmCounts");
+
+    /** Device management API channel */
+    private IDeviceManagementApiChannel<?> channel;
+
+    public DeviceAlarmClient(IDeviceManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Raise, acknowledge or resolve alarms in bulk. Entries are sent in chunks
+     * and the results are combined. Result indexes refer to positions in the full
+     * list of entries.
+     * 
+     * @param operation
+     * @param entries
+     *            alarms to raise or ids of alarms to acknowledge or resolve
+     * @param date
+     * @param includeResults
+     *            include results for successful entries (failures are always
+     *            included)
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode bulkUpdateDeviceAlarms(String operation, List<?> entries, Date date, boolean includeResults)
+	    throws SiteWhereException {
+	String field = "Raise".equals(operation) ? "alarms" : "alarmIds";
+	ObjectNode response = JsonNodeFactory.instance.objectNode();
+	ArrayNode results = JsonNodeFactory.instance.arrayNode();
+	long created = 0, deduplicated = 0, updated = 0, unchanged = 0, failed = 0;
+	for (int start = 0; start < entries.size(); start += CHUNK_SIZE) {
+	    Map<String, Object> request = new HashMap<>();
+	    request.put("operation", operation);
+	    request.put(field, entries.subList(start, Math.min(start + CHUNK_SIZE, entries.size())));
+	    request.put("date", date);
+	    JsonNode chunk = call(BULK_UPDATE_DEVICE_ALARMS, request, TIMEOUT_MS);
+	    created += chunk.path("createdCount").asLong();
+	    deduplicated += chunk.path("deduplicatedCount").asLong();
+	    updated += chunk.path("updatedCount").asLong();
+	    unchanged += chunk.path("unchangedCount").asLong();
+	    failed += chunk.path("failedCount").asLong();
+	    for (JsonNode result : chunk.path("results")) {
+		if (includeResults || "Failed".equals(result.path("action").asText())) {
+		    ((ObjectNode) result).put("index", start + result.path("index").asInt());
+		    results.add(result);
+		}
+	    }
+	}
+	response.put("createdCount", created);
+	response.put("deduplicatedCount", deduplicated);
+	response.put("updatedCount", updated);
+	response.put("unchangedCount", unchanged);
+	response.put("failedCount", failed);
+	response.set("results", results);
+	return response;
+    }
+
+    /**
+     * Get open alarm counts by area, device type and state.
+     * 
+     * @param areaToken
+     * @param deviceTypeToken
+     * @param state
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode getOpenDeviceAlarmCounts(String areaToken, String deviceTypeToken, String state)
+	    throws SiteWhereException {
+	Map<String, Object> request = new HashMap<>();
+	request.put("areaToken", areaToken);
+	request.put("deviceTypeToken", deviceTypeToken);
+	request.put("state", state);
+	return call(GET_OPEN_DEVICE_ALARM_COUNTS, request, 0);
+    }
+
+    /**
+     * Make a single call.
+     * 
+     * @param method
+     * @param request
+     * @param timeoutMs
+     *            deadline for call (0 for none)
+     * @return
+     * @throws SiteWhereException
+     */
+    protected JsonNode call(MethodDescriptor<Map<String, Object>, JsonNode> method, Map<String, Object> request,
+	    long timeoutMs) throws SiteWhereException {
+	CallOptions options = (timeoutMs > 0)
+		? CallOptions.DEFAULT.withDeadlineAfter(timeoutMs, TimeUnit.MILLISECONDS)
+		: CallOptions.DEFAULT;
+	try {
+	    return ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(), method, options,
+		    request);
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException("Unable to process device alarm request.", e);
+	}
+    }
+
+    /**
+     * Build descriptor for an alarm method.
+     * 
+     * @param name
+     * @return
+     */
+    protected static MethodDescriptor<Map<String, Object>, JsonNode> buildMethod(String name) {
+	return MethodDescriptor.<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+		.setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+    }
+
+    protected IDeviceManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
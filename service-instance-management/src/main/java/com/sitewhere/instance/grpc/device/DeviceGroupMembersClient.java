@@ -0,0 +1,136 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.device;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the device group membership call served by device management.
+ * Nested groups and role filters are resolved on the server, which returns
+ * distinct device ids in ascending order one page at a time.
+ */
+public class DeviceGroupMembersClient {
+
+    /** Method for getting a page of devices in device groups */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> RESOLVE_DEVICE_GROUP_MEMBERS = MethodDescriptor
+	    .<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME,
+		    "ResolveDeviceGroupMembers"))
+	    .setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+	    .setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+
+    /** Device management API channel */
+    private IDeviceManagementApiChannel<?> channel;
+
+    public DeviceGroupMembersClient(IDeviceManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Open a cursor over devices in the given groups and all nested groups. If
+     * roles are specified, only elements with one of the roles are followed.
+     * 
+     * @param groupTokens
+     * @param roles
+     * @param pageSize
+     * @return
+     */
+    public Cursor open(List<String> groupTokens, List<String> roles, int pageSize) {
+	return new Cursor(groupTokens, (roles != null) ? roles : Collections.emptyList(), pageSize);
+    }
+
+    protected IDeviceManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+
+    /**
+     * Reads device ids one page at a time. Only the current page is held in
+     * memory.
+     */
+    public class Cursor {
+
+	/** Tokens of groups to resolve */
+	private List<String> groupTokens;
+
+	/** Roles used to filter elements */
+	private List<String> roles;
+
+	/** Number of ids requested per page */
+	private int pageSize;
+
+	/** Last device id returned */
+	private UUID afterDeviceId;
+
+	/** Indicates no more pages are available */
+	private boolean exhausted = false;
+
+	protected Cursor(List<String> groupTokens, List<String> roles, int pageSize) {
+	    this.groupTokens = groupTokens;
+	    this.roles = roles;
+	    this.pageSize = pageSize;
+	}
+
+	/**
+	 * Get the next page of device ids. An empty list indicates that all devices
+	 * have been returned.
+	 * 
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public List<UUID> nextPage() throws SiteWhereException {
+	    if (exhausted) {
+		return Collections.emptyList();
+	    }
+	    Map<String, Object> request = new HashMap<>();
+	    request.put("groupTokens", groupTokens);
+	    request.put("roles", roles);
+	    request.put("afterDeviceId", (afterDeviceId != null) ? afterDeviceId.toString() : null);
+	    request.put("pageSize", pageSize);
+	    JsonNode response;
+	    try {
+		response = ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(),
+			RESOLVE_DEVICE_GROUP_MEMBERS, CallOptions.DEFAULT, request);
+	    } catch (StatusRuntimeException e) {
+		throw new SiteWhereException("Unable to resolve devices in groups " + groupTokens + ".", e);
+	    }
+	    List<UUID> ids = new ArrayList<>();
+	    for (JsonNode id : response.path("deviceIds")) {
+		ids.add(UUID.fromString(id.asText()));
+	    }
+	    if (!ids.isEmpty()) {
+		afterDeviceId = ids.get(ids.size() - 1);
+	    }
+	    exhausted = ids.isEmpty() || !response.path("hasMore").asBoolean();
+	    return ids;
+	}
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.device;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the area and customer subtree calls served by device management.
+ * Each call resolves a whole subtree with a single query against the hierarchy
+ * closure tables instead of one call per level.
+ */
+public class DeviceHierarchyClient {
+
+    /** Method for getting an area and all nested areas */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> GET_AREA_SUBTREE = buildSubtreeMethod(
+	    "GetAreaSubtree");
+
+    /** Method for getting a customer and all nested customers */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> GET_CUSTOMER_SUBTREE = buildSubtreeMethod(
+	    "GetCustomerSubtree");
+
+    /** Device management API channel */
+    private IDeviceManagementApiChannel<?> channel;
+
+    public DeviceHierarchyClient(IDeviceManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Get tokens for an area and (optionally) all nested areas. Returns an empty
+     * list if the area does not exist.
+     * 
+     * @param areaToken
+     * @param recursive
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<String> getAreaTokens(String areaToken, boolean recursive) throws SiteWhereException {
+	return getTokens(call(GET_AREA_SUBTREE, areaToken), recursive);
+    }
+
+    /**
+     * Get ids for an area and (optionally) all nested areas. Returns an empty
+     * list if the area does not exist.
+     * 
+     * @param areaToken
+     * @param recursive
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<UUID> getAreaIds(String areaToken, boolean recursive) throws SiteWhereException {
+	return getIds(call(GET_AREA_SUBTREE, areaToken), recursive);
+    }
+
+    /**
+     * Get tokens for a customer and (optionally) all nested customers. Returns an
+     * empty list if the customer does not exist.
+     * 
+     * @param customerToken
+     * @param recursive
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<String> getCustomerTokens(String customerToken, boolean recursive) throws SiteWhereException {
+	return getTokens(call(GET_CUSTOMER_SUBTREE, customerToken), recursive);
+    }
+
+    /**
+     * Get ids for a customer and (optionally) all nested customers. Returns an
+     * empty list if the customer does not exist.
+     * 
+     * @param customerToken
+     * @param recursive
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<UUID> getCustomerIds(String customerToken, boolean recursive) throws SiteWhereException {
+	return getIds(call(GET_CUSTOMER_SUBTREE, customerToken), recursive);
+    }
+
+    /**
+     * Extract tokens from subtree nodes.
+     * 
+     * @param nodes
+     * @param recursive
+     * @return
+     */
+    protected static List<String> getTokens(JsonNode nodes, boolean recursive) {
+	List<String> tokens = new ArrayList<>();
+	for (JsonNode node : nodes) {
+	    if (recursive || node.path("depth").asInt() == 0) {
+		tokens.add(node.path("token").asText());
+	    }
+	}
+	return tokens;
+    }
+
+    /**
+     * Extract ids from subtree nodes.
+     * 
+     * @param nodes
+     * @param recursive
+     * @return
+     */
+    protected static List<UUID> getIds(JsonNode nodes, boolean recursive) {
+	List<UUID> ids = new ArrayList<>();
+	for (JsonNode node : nodes) {
+	    if (recursive || node.path("depth").asInt() == 0) {
+		ids.add(UUID.fromString(node.path("id").asText()));
+	    }
+	}
+	return ids;
+    }
+
+    /**
+     * Make a subtree call and return the list of nodes.
+     * 
+     * @param method
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected JsonNode call(MethodDescriptor<Map<String, Object>, JsonNode> method, String token)
+	    throws SiteWhereException {
+	Map<String, Object> request = new HashMap<>();
+	request.put("token", token);
+	try {
+	    JsonNode response = ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(), method,
+		    CallOptions.DEFAULT, request);
+	    return response.path("nodes");
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException(String.format("Unable to resolve hierarchy below '%s'.", token), e);
+	}
+    }
+
+    /**
+     * Build descriptor for a subtree method.
+     * 
+     * @param name
+     * @return
+     */
+    protected static MethodDescriptor<Map<String, Object>, JsonNode> buildSubtreeMethod(String name) {
+	return MethodDescriptor.<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+		.setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+    }
+
+    protected IDeviceManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.device;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.web.rest.model.DeviceAssignmentQueryRequest;
+import com.sitewhere.web.rest.model.DeviceAssignmentSummaryQueryRequest;
+import com.sitewhere.web.rest.model.DeviceQueryRequest;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the indexed device and assignment search calls served by device
+ * management, including assignment summary pages read from the denormalized
+ * summary table. Each call returns one keyset page. The created date and id of
+ * the last entry are passed back to request the next page.
+ */
+public class DeviceSearchClient {
+
+    /** Method for searching devices */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> SEARCH_DEVICES = buildMethod(
+	    "SearchDevices");
+
+    /** Method for searching device assignments */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> SEARCH_DEVICE_ASSIGNMENTS = buildMethod(
+	    "SearchDeviceAssignments");
+
+    /** Method for listing device assignment summaries */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> LIST_DEVICE_ASSIGNMENT_SUMMARIES = buildMethod(
+	    "ListDeviceAssignmentSummaryProjections");
+
+    /** Device management API channel */
+    private IDeviceManagementApiChannel<?> channel;
+
+    public DeviceSearchClient(IDeviceManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Get a page of devices matching a query.
+     * 
+     * @param query
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode searchDevices(DeviceQueryRequest query) throws SiteWhereException {
+	Map<String, Object> request = new HashMap<>();
+	request.put("text", query.getText());
+	request.put("metadata", asPredicates(query.getMetadata()));
+	request.put("deviceTypeToken", query.getDeviceTypeToken());
+	request.put("status", query.getStatus());
+	request.put("areaToken", query.getAreaToken());
+	request.put("customerToken", query.getCustomerToken());
+	request.put("assignmentState", query.getAssignmentState());
+	request.put("afterCreatedDate", query.getAfterCreatedDate());
+	request.put("afterDeviceId", query.getAfterDeviceId());
+	request.put("pageSize", query.getPageSize());
+	request.put("includeMetadata", query.isIncludeMetadata());
+	return call(SEARCH_DEVICES, request);
+    }
+
+    /**
+     * Get a page of device assignments matching a query.
+     * 
+     * @param query
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode searchDeviceAssignments(DeviceAssignmentQueryRequest query) throws SiteWhereException {
+	Map<String, Object> request = new HashMap<>();
+	request.put("text", query.getText());
+	request.put("metadata", asPredicates(query.getMetadata()));
+	request.put("deviceTypeToken", query.getDeviceTypeToken());
+	request.put("areaToken", query.getAreaToken());
+	request.put("customerToken", query.getCustomerToken());
+	request.put("status", query.getStatus());
+	request.put("afterCreatedDate", query.getAfterCreatedDate());
+	request.put("afterAssignmentId", query.getAfterAssignmentId());
+	request.put("pageSize", query.getPageSize());
+	request.put("includeMetadata", query.isIncludeMetadata());
+	return call(SEARCH_DEVICE_ASSIGNMENTS, request);
+    }
+
+    /**
+     * Get a page of device assignment summaries with display fields and open
+     * alarm highlights.
+     * 
+     * @param query
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode listDeviceAssignmentSummaries(DeviceAssignmentSummaryQueryRequest query)
+	    throws SiteWhereException {
+	Map<String, Object> request = new HashMap<>();
+	request.put("deviceTypeToken", query.getDeviceTypeToken());
+	request.put("areaToken", query.getAreaToken());
+	request.put("customerToken", query.getCustomerToken());
+	request.put("status", query.getStatus());
+	request.put("openAlarmsOnly", query.isOpenAlarmsOnly());
+	request.put("afterCreatedDate", query.getAfterCreatedDate());
+	request.put("afterAssignmentId", query.getAfterAssignmentId());
+	request.put("pageSize", query.getPageSize());
+	return call(LIST_DEVICE_ASSIGNMENT_SUMMARIES, request);
+    }
+
+    /**
+     * Convert metadata key/value pairs to search predicates.
+     * 
+     * @param metadata
+     * @return
+     */
+    protected static List<Map<String, String>> asPredicates(Map<String, String> metadata) {
+	List<Map<String, String>> predicates = new ArrayList<>();
+	if (metadata != null) {
+	    for (Map.Entry<String, String> entry : metadata.entrySet()) {
+		Map<String, String> predicate = new HashMap<>();
+		predicate.put("key", entry.getKey());
+		predicate.put("value", entry.getValue());
+		predicates.add(predicate);
+	    }
+	}
+	return predicates;
+    }
+
+    /**
+     * Make a search call.
+     * 
+     * @param method
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    protected JsonNode call(MethodDescriptor<Map<String, Object>, JsonNode> method, Map<String, Object> request)
+	    throws SiteWhereException {
+	try {
+	    return ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(), method,
+		    CallOptions.DEFAULT, request);
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException("Unable to execute search.", e);
+	}
+    }
+
+    /**
+     * Build descriptor for a search method.
+     * 
+     * @param name
+     * @return
+     */
+    protected static MethodDescriptor<Map<String, Object>, JsonNode> buildMethod(String name) {
+	return MethodDescriptor.<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+		.setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+    }
+
+    protected IDeviceManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.event;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiChannel;
+import com.sitewhere.grpc.model.DeviceEventModel.GProcessedEventPayload;
+import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.CallOptions;
+import io.grpc.Context;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the bulk event export and replay calls served by event
+ * management. The calls are not part of the generated device event management
+ * stubs, so they are invoked directly on the API channel. Exported events are
+ * streamed as processed event payloads and pulled from the server as they are
+ * consumed.
+ */
+public class EventExportClient {
+
+    /** Timeout for replay control calls */
+    private static final long TIMEOUT_MS = 30 * 1000;
+
+    /** Method for exporting events */
+    private static final MethodDescriptor<Map<String, Object>, GProcessedEventPayload> EXPORT_EVENTS = MethodDescriptor
+	    .<Map<String, Object>, GProcessedEventPayload>newBuilder()
+	    .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+	    .setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceEventManagementGrpc.SERVICE_NAME,
+		    "ExportEvents"))
+	    .setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+	    .setResponseMarshaller(ProtoUtils.marshaller(GProcessedEventPayload.getDefaultInstance())).build();
+
+    /** Method for starting a replay */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> START_EVENT_REPLAY = unary(
+	    "StartEventReplay");
+
+    /** Method for listing replays */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> LIST_EVENT_REPLAYS = unary(
+	    "ListEventReplays");
+
+    /** Method for cancelling a replay */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> CANCEL_EVENT_REPLAY = unary(
+	    "CancelEventReplay");
+
+    /** Event management API channel */
+    private IDeviceEventManagementApiChannel<?> channel;
+
+    public EventExportClient(IDeviceEventManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Stream events for a time range, oldest first. Each payload carries the
+     * device context for its event. The stream must be closed if it is not read
+     * to the end.
+     * 
+     * @param assignmentIds
+     * @param startDate
+     * @param endDate
+     * @param cursor
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventStream<GProcessedEventPayload, GProcessedEventPayload> exportEvents(List<UUID> assignmentIds,
+	    Date startDate, Date endDate, String cursor) throws SiteWhereException {
+	Map<String, Object> request = createRangeRequest(assignmentIds, startDate, endDate, cursor);
+	Context.CancellableContext context = Context.current().withCancellation();
+	Context previous = context.attach();
+	try {
+	    return new EventStream<>(context, ClientCalls.blockingServerStreamingCall(
+		    getChannel().getGrpcChannel().getChannel(), EXPORT_EVENTS, CallOptions.DEFAULT, request),
+		    payload -> payload);
+	} catch (StatusRuntimeException e) {
+	    context.cancel(e);
+	    throw new SiteWhereException("Unable to export events.", e);
+	} finally {
+	    context.detach(previous);
+	}
+    }
+
+    /**
+     * Start republishing events for a time range to the outbound events topic.
+     * 
+     * @param assignmentIds
+     * @param startDate
+     * @param endDate
+     * @param eventsPerSecond
+     * @param cursor
+     * @param connectorIds
+     *            outbound connectors that process replayed events (null or empty
+     *            for all)
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode startEventReplay(List<UUID> assignmentIds, Date startDate, Date endDate, double eventsPerSecond,
+	    String cursor, List<String> connectorIds) throws SiteWhereException {
+	Map<String, Object> request = createRangeRequest(assignmentIds, startDate, endDate, cursor);
+	request.put("eventsPerSecond", eventsPerSecond);
+	request.put("connectorIds", connectorIds);
+	return call(START_EVENT_REPLAY, request, "Unable to start event replay.");
+    }
+
+    /**
+     * List running and recently finished replays.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode listEventReplays() throws SiteWhereException {
+	return call(LIST_EVENT_REPLAYS, new HashMap<>(), "Unable to list event replays.").get("replays");
+    }
+
+    /**
+     * Cancel a replay.
+     * 
+     * @param id
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode cancelEventReplay(UUID id) throws SiteWhereException {
+	Map<String, Object> request = new HashMap<>();
+	request.put("id", id);
+	return call(CANCEL_EVENT_REPLAY, request, "Unable to cancel event replay.");
+    }
+
+    /**
+     * Build request for a range of events.
+     * 
+     * @param assignmentIds
+     * @param startDate
+     * @param endDate
+     * @param cursor
+     * @return
+     */
+    protected Map<String, Object> createRangeRequest(List<UUID> assignmentIds, Date startDate, Date endDate,
+	    String cursor) {
+	Map<String, Object> request = new HashMap<>();
+	request.put("assignmentIds", assignmentIds);
+	request.put("startDate", (startDate != null) ? startDate.getTime() : null);
+	request.put("endDate", (endDate != null) ? endDate.getTime() : null);
+	request.put("cursor", cursor);
+	return request;
+    }
+
+    /**
+     * Make a unary replay control call.
+     * 
+     * @param method
+     * @param request
+     * @param message
+     * @return
+     * @throws SiteWhereException
+     */
+    protected JsonNode call(MethodDescriptor<Map<String, Object>, JsonNode> method, Map<String, Object> request,
+	    String message) throws SiteWhereException {
+	try {
+	    return ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(), method,
+		    CallOptions.DEFAULT.withDeadlineAfter(TIMEOUT_MS, TimeUnit.MILLISECONDS), request);
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException(message, e);
+	}
+    }
+
+    /**
+     * Create a unary descriptor using JSON marshalling.
+     * 
+     * @param name
+     * @return
+     */
+    protected static MethodDescriptor<Map<String, Object>, JsonNode> unary(String name) {
+	return MethodDescriptor.<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(
+			MethodDescriptor.generateFullMethodName(DeviceEventManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+		.setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+    }
+
+    protected IDeviceEventManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.event;
+
+import java.util.Iterator;
+
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.Context;
+
+/**
+ * Iterator over events received from a server-streaming call. Messages are
+ * requested from the server as they are consumed, so only a small number are
+ * buffered at any time. Closing the stream before it is exhausted cancels the
+ * call so the server stops reading from the datastore.
+ *
+ * @param <G> GRPC event type
+ * @param <A> API event type
+ */
+public class EventStream<G, A> implements Iterator<A>, AutoCloseable {
+
+    /** Context the call was started in */
+    private Context.CancellableContext context;
+
+    /** Messages received from the server */
+    private Iterator<G> messages;
+
+    /** Converts messages to API events */
+    private IConverter<G, A> converter;
+
+    public EventStream(Context.CancellableContext context, Iterator<G> messages, IConverter<G, A> converter) {
+	this.context = context;
+	this.messages = messages;
+	this.converter = converter;
+    }
+
+    /*
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+	return getMessages().hasNext();
+    }
+
+    /*
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public A next() {
+	try {
+	    return getConverter().convert(getMessages().next());
+	} catch (SiteWhereException e) {
+	    throw new RuntimeException("Unable to convert streamed event.", e);
+	}
+    }
+
+    /*
+     * @see java.lang.AutoCloseable#close()
+     */
+    @Override
+    public void close() {
+	getContext().cancel(null);
+    }
+
+    protected Context.CancellableContext getContext() {
+	return context;
+    }
+
+    protected Iterator<G> getMessages() {
+	return messages;
+    }
+
+    protected IConverter<G, A> getConverter() {
+	return converter;
+    }
+
+    /**
+     * Converts a GRPC message to an API event.
+     */
+    @FunctionalInterface
+    public static interface IConverter<G, A> {
+
+	public A convert(G message) throws SiteWhereException;
+    }
+}
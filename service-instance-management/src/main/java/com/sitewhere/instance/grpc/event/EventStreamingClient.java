@@ -0,0 +1,260 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.event;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.google.protobuf.Message;
+import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiChannel;
+import com.sitewhere.grpc.common.CommonModelConverter;
+import com.sitewhere.grpc.event.EventModelConverter;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceAlert;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandInvocation;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandResponse;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceLocation;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceMeasurement;
+import com.sitewhere.grpc.model.DeviceEventModel.GDeviceStateChange;
+import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
+import com.sitewhere.grpc.service.GListAlertsForIndexRequest;
+import com.sitewhere.grpc.service.GListCommandInvocationsForIndexRequest;
+import com.sitewhere.grpc.service.GListCommandResponsesForIndexRequest;
+import com.sitewhere.grpc.service.GListLocationsForIndexRequest;
+import com.sitewhere.grpc.service.GListMeasurementsForIndexRequest;
+import com.sitewhere.grpc.service.GListStateChangesForIndexRequest;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventIndex;
+import com.sitewhere.spi.device.event.IDeviceAlert;
+import com.sitewhere.spi.device.event.IDeviceCommandInvocation;
+import com.sitewhere.spi.device.event.IDeviceCommandResponse;
+import com.sitewhere.spi.device.event.IDeviceLocation;
+import com.sitewhere.spi.device.event.IDeviceMeasurement;
+import com.sitewhere.spi.device.event.IDeviceStateChange;
+import com.sitewhere.spi.search.IDateRangeSearchCriteria;
+
+import io.grpc.CallOptions;
+import io.grpc.Context;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the server-streaming event list calls served by event management.
+ * The calls are not part of the generated device event management stubs, so
+ * they are invoked directly on the API channel. Results are returned as
+ * iterators that pull events from the server as they are consumed, so exports
+ * of any size run in constant memory.
+ * 
+ * Paging in the criteria selects the window that is streamed. A page size of
+ * zero streams every matching event.
+ */
+public class EventStreamingClient {
+
+    /** Method for streaming measurements */
+    private static final MethodDescriptor<GListMeasurementsForIndexRequest, GDeviceMeasurement> STREAM_MEASUREMENTS = create(
+	    "StreamMeasurementsForIndex", GListMeasurementsForIndexRequest.getDefaultInstance(),
+	    GDeviceMeasurement.getDefaultInstance());
+
+    /** Method for streaming locations */
+    private static final MethodDescriptor<GListLocationsForIndexRequest, GDeviceLocation> STREAM_LOCATIONS = create(
+	    "StreamLocationsForIndex", GListLocationsForIndexRequest.getDefaultInstance(),
+	    GDeviceLocation.getDefaultInstance());
+
+    /** Method for streaming alerts */
+    private static final MethodDescriptor<GListAlertsForIndexRequest, GDeviceAlert> STREAM_ALERTS = create(
+	    "StreamAlertsForIndex", GListAlertsForIndexRequest.getDefaultInstance(),
+	    GDeviceAlert.getDefaultInstance());
+
+    /** Method for streaming command invocations */
+    private static final MethodDescriptor<GListCommandInvocationsForIndexRequest, GDeviceCommandInvocation> STREAM_COMMAND_INVOCATIONS = create(
+	    "StreamCommandInvocationsForIndex", GListCommandInvocationsForIndexRequest.getDefaultInstance(),
+	    GDeviceCommandInvocation.getDefaultInstance());
+
+    /** Method for streaming command responses */
+    private static final MethodDescriptor<GListCommandResponsesForIndexRequest, GDeviceCommandResponse> STREAM_COMMAND_RESPONSES = create(
+	    "StreamCommandResponsesForIndex", GListCommandResponsesForIndexRequest.getDefaultInstance(),
+	    GDeviceCommandResponse.getDefaultInstance());
+
+    /** Method for streaming state changes */
+    private static final MethodDescriptor<GListStateChangesForIndexRequest, GDeviceStateChange> STREAM_STATE_CHANGES = create(
+	    "StreamStateChangesForIndex", GListStateChangesForIndexRequest.getDefaultInstance(),
+	    GDeviceStateChange.getDefaultInstance());
+
+    /** Event management API channel */
+    private IDeviceEventManagementApiChannel<?> channel;
+
+    public EventStreamingClient(IDeviceEventManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Stream measurements for an index.
+     * 
+     * @param index
+     * @param entityIds
+     * @param criteria
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventStream<GDeviceMeasurement, IDeviceMeasurement> streamMeasurementsForIndex(DeviceEventIndex index,
+	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
+	GListMeasurementsForIndexRequest.Builder request = GListMeasurementsForIndexRequest.newBuilder();
+	request.setIndex(EventModelConverter.asGrpcDeviceEventIndex(index));
+	request.addAllEntityIds(CommonModelConverter.asGrpcUuids(entityIds));
+	request.setCriteria(CommonModelConverter.asGrpcDateRangeSearchCriteria(criteria));
+	return stream(STREAM_MEASUREMENTS, request.build(), EventModelConverter::asApiDeviceMeasurement);
+    }
+
+    /**
+     * Stream locations for an index.
+     * 
+     * @param index
+     * @param entityIds
+     * @param criteria
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventStream<GDeviceLocation, IDeviceLocation> streamLocationsForIndex(DeviceEventIndex index,
+	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
+	GListLocationsForIndexRequest.Builder request = GListLocationsForIndexRequest.newBuilder();
+	request.setIndex(EventModelConverter.asGrpcDeviceEventIndex(index));
+	request.addAllEntityIds(CommonModelConverter.asGrpcUuids(entityIds));
+	request.setCriteria(CommonModelConverter.asGrpcDateRangeSearchCriteria(criteria));
+	return stream(STREAM_LOCATIONS, request.build(), EventModelConverter::asApiDeviceLocation);
+    }
+
+    /**
+     * Stream alerts for an index.
+     * 
+     * @param index
+     * @param entityIds
+     * @param criteria
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventStream<GDeviceAlert, IDeviceAlert> streamAlertsForIndex(DeviceEventIndex index, List<UUID> entityIds,
+	    IDateRangeSearchCriteria criteria) throws SiteWhereException {
+	GListAlertsForIndexRequest.Builder request = GListAlertsForIndexRequest.newBuilder();
+	request.setIndex(EventModelConverter.asGrpcDeviceEventIndex(index));
+	request.addAllEntityIds(CommonModelConverter.asGrpcUuids(entityIds));
+	request.setCriteria(CommonModelConverter.asGrpcDateRangeSearchCriteria(criteria));
+	return stream(STREAM_ALERTS, request.build(), EventModelConverter::asApiDeviceAlert);
+    }
+
+    /**
+     * Stream command invocations for an index.
+     * 
+     * @param index
+     * @param entityIds
+     * @param criteria
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventStream<GDeviceCommandInvocation, IDeviceCommandInvocation> streamCommandInvocationsForIndex(
+	    DeviceEventIndex index, List<UUID> entityIds, IDateRangeSearchCriteria criteria)
+	    throws SiteWhereException {
+	GListCommandInvocationsForIndexRequest.Builder request = GListCommandInvocationsForIndexRequest.newBuilder();
+	request.setIndex(EventModelConverter.asGrpcDeviceEventIndex(index));
+	request.addAllEntityIds(CommonModelConverter.asGrpcUuids(entityIds));
+	request.setCriteria(CommonModelConverter.asGrpcDateRangeSearchCriteria(criteria));
+	return stream(STREAM_COMMAND_INVOCATIONS, request.build(), EventModelConverter::asApiDeviceCommandInvocation);
+    }
+
+    /**
+     * Stream command responses for an index.
+     * 
+     * @param index
+     * @param entityIds
+     * @param criteria
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventStream<GDeviceCommandResponse, IDeviceCommandResponse> streamCommandResponsesForIndex(
+	    DeviceEventIndex index, List<UUID> entityIds, IDateRangeSearchCriteria criteria)
+	    throws SiteWhereException {
+	GListCommandResponsesForIndexRequest.Builder request = GListCommandResponsesForIndexRequest.newBuilder();
+	request.setIndex(EventModelConverter.asGrpcDeviceEventIndex(index));
+	request.addAllEntityIds(CommonModelConverter.asGrpcUuids(entityIds));
+	request.setCriteria(CommonModelConverter.asGrpcDateRangeSearchCriteria(criteria));
+	return stream(STREAM_COMMAND_RESPONSES, request.build(), EventModelConverter::asApiDeviceCommandResponse);
+    }
+
+    /**
+     * Stream state changes for an index.
+     * 
+     * @param index
+     * @param entityIds
+     * @param criteria
+     * @return
+     * @throws SiteWhereException
+     */
+    public EventStream<GDeviceStateChange, IDeviceStateChange> streamStateChangesForIndex(DeviceEventIndex index,
+	    List<UUID> entityIds, IDateRangeSearchCriteria criteria) throws SiteWhereException {
+	GListStateChangesForIndexRequest.Builder request = GListStateChangesForIndexRequest.newBuilder();
+	request.setIndex(EventModelConverter.asGrpcDeviceEventIndex(index));
+	request.addAllEntityIds(CommonModelConverter.asGrpcUuids(entityIds));
+	request.setCriteria(CommonModelConverter.asGrpcDateRangeSearchCriteria(criteria));
+	return stream(STREAM_STATE_CHANGES, request.build(), EventModelConverter::asApiDeviceStateChange);
+    }
+
+    /**
+     * Start a server-streaming call. The call is started in a cancellable
+     * context so that closing the stream cancels it. Credentials are attached by
+     * the channel interceptors from the calling thread.
+     * 
+     * @param method
+     * @param request
+     * @param converter
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <Q, G, A> EventStream<G, A> stream(MethodDescriptor<Q, G> method, Q request,
+	    EventStream.IConverter<G, A> converter) throws SiteWhereException {
+	Context.CancellableContext context = Context.current().withCancellation();
+	Context previous = context.attach();
+	try {
+	    return new EventStream<>(context, ClientCalls.blockingServerStreamingCall(
+		    getChannel().getGrpcChannel().getChannel(), method, CallOptions.DEFAULT, request), converter);
+	} catch (StatusRuntimeException e) {
+	    context.cancel(e);
+	    throw new SiteWhereException("Unable to stream events.", e);
+	} finally {
+	    context.detach(previous);
+	}
+    }
+
+    /**
+     * Create a server-streaming descriptor using protobuf marshalling.
+     * 
+     * @param name
+     * @param request
+     * @param response
+     * @return
+     */
+    protected static <Q extends Message, R extends Message> MethodDescriptor<Q, R> create(String name, Q request,
+	    R response) {
+	return MethodDescriptor.<Q, R>newBuilder().setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+		.setFullMethodName(
+			MethodDescriptor.generateFullMethodName(DeviceEventManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(ProtoUtils.marshaller(request))
+		.setResponseMarshaller(ProtoUtils.marshaller(response)).build();
+    }
+
+    protected IDeviceEventManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.instance.grpc.event;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiChannel;
+import com.sitewhere.grpc.service.DeviceEventManagementGrpc;
+import com.sitewhere.shared.grpc.JsonMarshaller;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.DeviceEventIndex;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the measurement rollup call served by event management. The call
+ * is not part of the generated device event management stubs, so it is
+ * invoked directly on the API channel with JSON payloads.
+ */
+public class MeasurementAggregationClient {
+
+    /** Timeout for rollup calls */
+    private static final long TIMEOUT_MS = 30 * 1000;
+
+    /** Method for aggregating measurements */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> AGGREGATE_MEASUREMENTS = MethodDescriptor
+	    .<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceEventManagementGrpc.SERVICE_NAME,
+		    "AggregateMeasurements"))
+	    .setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+	    .setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+
+    /** Event management API channel */
+    private IDeviceEventManagementApiChannel<?> channel;
+
+    public MeasurementAggregationClient(IDeviceEventManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Get min/max/avg/count/last per measurement name per interval for a list
+     * of indexed entities.
+     * 
+     * @param index
+     * @param entityIds
+     * @param measurementNames
+     * @param startDate
+     * @param endDate
+     * @param intervalMs
+     * @param maxPoints
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode aggregateMeasurements(DeviceEventIndex index, List<UUID> entityIds, List<String> measurementNames,
+	    Date startDate, Date endDate, Long intervalMs, int maxPoints) throws SiteWhereException {
+	Map<String, Object> criteria = new HashMap<>();
+	criteria.put("measurementNames", measurementNames);
+	criteria.put("startDate", (startDate != null) ? startDate.getTime() : null);
+	criteria.put("endDate", (endDate != null) ? endDate.getTime() : null);
+	criteria.put("intervalMs", intervalMs);
+	criteria.put("maxPoints", maxPoints);
+	Map<String, Object> request = new HashMap<>();
+	request.put("index", index.name());
+	request.put("entityIds", entityIds);
+	request.put("criteria", criteria);
+	try {
+	    JsonNode response = ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(),
+		    AGGREGATE_MEASUREMENTS, CallOptions.DEFAULT.withDeadlineAfter(TIMEOUT_MS, TimeUnit.MILLISECONDS),
+		    request);
+	    return response.get("series");
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException("Unable to aggregate measurements.", e);
+	}
+    }
+
+    protected IDeviceEventManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
@@ -74,12 +74,18 @@ public class InstanceManagementMicroservice extends
     /** Device management API channel */
     private CachedDeviceManagementApiChannel deviceManagementApiChannel;
 
+    /** Device management API channel without caching */
+    private IDeviceManagementApiChannel<?> uncachedDeviceManagementApiChannel;
+
     /** Device event management API channel */
     private IDeviceEventManagementApiChannel<?> deviceEventManagementApiChannel;
 
     /** Asset management API channel */
     private CachedAssetManagementApiChannel assetManagementApiChannel;
 
+    /** Asset management API channel without caching */
+    private IAssetManagementApiChannel<?> uncachedAssetManagementApiChannel;
+
     /** Batch management API channel */
     private IBatchManagementApiChannel<?> batchManagementApiChannel;
 
@@ -199,6 +205,7 @@ public class InstanceManagementMicroservice extends
 
 	// Device management.
 	IDeviceManagementApiChannel<?> deviceManagement = new DeviceManagementApiChannel(getInstanceSettings());
+	this.uncachedDeviceManagementApiChannel = deviceManagement;
 	this.deviceManagementApiChannel = new CachedDeviceManagementApiChannel(deviceManagement,
 		new CachedDeviceManagementApiChannel.CacheSettings());
 
@@ -207,6 +214,7 @@ public class InstanceManagementMicroservice extends
 
 	// Asset management.
 	IAssetManagementApiChannel<?> assetManagement = new AssetManagementApiChannel(getInstanceSettings());
+	this.uncachedAssetManagementApiChannel = assetManagement;
 	this.assetManagementApiChannel = new CachedAssetManagementApiChannel(assetManagement,
 		new CachedAssetManagementApiChannel.CacheSettings());
 
@@ -351,6 +359,15 @@ public class InstanceManagementMicroservice extends
 	return deviceManagementApiChannel;
     }
 
+    /*
+     * @see com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice#
+     * getDeviceManagementApiChannel()
+     */
+    @Override
+    public IDeviceManagementApiChannel<?> getDeviceManagementApiChannel() {
+	return uncachedDeviceManagementApiChannel;
+    }
+
     /*
      * @see com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice#
      * getDeviceEventManagementApiChannel()
@@ -369,6 +386,15 @@ public class InstanceManagementMicroservice extends
 	return assetManagementApiChannel;
     }
 
+    /*
+     * @see com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice#
+     * getAssetManagementApiChannel()
+     */
+    @Override
+    public IAssetManagementApiChannel<?> getAssetManagementApiChannel() {
+	return uncachedAssetManagementApiChannel;
+    }
+
     /*
      * @see com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice#
      * getBatchManagementApiChannel()
@@ -15,8 +15,10 @@
  */
 package com.sitewhere.instance.spi.microservice;
 
+import com.sitewhere.grpc.client.spi.client.IAssetManagementApiChannel;
 import com.sitewhere.grpc.client.spi.client.IBatchManagementApiChannel;
 import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiChannel;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
 import com.sitewhere.grpc.client.spi.client.IDeviceStateApiChannel;
 import com.sitewhere.grpc.client.spi.client.ILabelGenerationApiChannel;
 import com.sitewhere.grpc.client.spi.client.IScheduleManagementApiChannel;
@@ -62,6 +64,13 @@ public interface IInstanceManagementMicroservice extends
      */
     public IDeviceManagement getDeviceManagement();
 
+    /**
+     * Device management API access via GRPC channel without caching.
+     * 
+     * @return
+     */
+    public IDeviceManagementApiChannel<?> getDeviceManagementApiChannel();
+
     /**
      * Device event management API access via GRPC channel.
      * 
@@ -76,6 +85,13 @@ public interface IInstanceManagementMicroservice extends
      */
     public IAssetManagement getAssetManagement();
 
+    /**
+     * Asset management API access via GRPC channel without caching.
+     * 
+     * @return
+     */
+    public IAssetManagementApiChannel<?> getAssetManagementApiChannel();
+
     /**
      * Batch management API access via GRPC channel.
      * 
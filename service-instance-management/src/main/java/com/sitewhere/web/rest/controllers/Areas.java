@@ -17,9 +17,7 @@ package com.sitewhere.web.rest.controllers;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -46,6 +44,7 @@ import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirements;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import com.sitewhere.instance.grpc.device.DeviceHierarchyClient;
 import com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
 import com.sitewhere.microservice.api.device.AreaMarshalHelper;
@@ -301,7 +300,7 @@ public class Areas {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceManagement());
+	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceMeasurement> results = getDeviceEventManagement()
@@ -336,7 +335,7 @@ public class Areas {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceManagement());
+	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceLocation> results = getDeviceEventManagement()
@@ -374,7 +373,7 @@ public class Areas {
 	    throws SiteWhereException {
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
-	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceManagement());
+	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceHierarchy());
 	ISearchResults<IDeviceAlert> results = getDeviceEventManagement()
 		.listDeviceAlertsForIndex(DeviceEventIndex.Area, areas, criteria);
 
@@ -407,7 +406,7 @@ public class Areas {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceManagement());
+	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceCommandInvocation> results = getDeviceEventManagement()
@@ -443,7 +442,7 @@ public class Areas {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceManagement());
+	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceCommandResponse> results = getDeviceEventManagement()
@@ -478,7 +477,7 @@ public class Areas {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceManagement());
+	List<UUID> areas = resolveAreaIdsRecursive(areaToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceStateChange> results = getDeviceEventManagement()
@@ -524,7 +523,7 @@ public class Areas {
 	if (decodedStatus != null) {
 	    criteria.setAssignmentStatuses(Collections.singletonList(decodedStatus));
 	}
-	List<String> areas = resolveAreaTokensRecursive(areaToken, true, getDeviceManagement());
+	List<String> areas = resolveAreaTokensRecursive(areaToken, true, getDeviceHierarchy());
 	criteria.setAreaTokens(areas);
 
 	ISearchResults<? extends IDeviceAssignment> matches = getDeviceManagement().listDeviceAssignments(criteria);
@@ -567,7 +566,7 @@ public class Areas {
 	if (decodedStatus != null) {
 	    criteria.setAssignmentStatuses(Collections.singletonList(decodedStatus));
 	}
-	List<String> areas = resolveAreaTokensRecursive(areaToken, true, getDeviceManagement());
+	List<String> areas = resolveAreaTokensRecursive(areaToken, true, getDeviceHierarchy());
 	criteria.setAreaTokens(areas);
 
 	ISearchResults<? extends IDeviceAssignmentSummary> matches = getDeviceManagement()
@@ -602,18 +601,13 @@ public class Areas {
      * 
      * @param areaToken
      * @param recursive
-     * @param deviceManagement
+     * @param hierarchy
      * @return
      * @throws SiteWhereException
      */
     public static List<String> resolveAreaTokensRecursive(String areaToken, boolean recursive,
-	    IDeviceManagement deviceManagement) throws SiteWhereException {
-	List<IArea> areas = resolveAreas(areaToken, recursive, deviceManagement);
-	List<String> tokens = new ArrayList<>();
-	for (IArea area : areas) {
-	    tokens.add(area.getToken());
-	}
-	return tokens;
+	    DeviceHierarchyClient hierarchy) throws SiteWhereException {
+	return hierarchy.getAreaTokens(areaToken, recursive);
     }
 
     /**
@@ -621,64 +615,23 @@ public class Areas {
      * 
      * @param areaToken
      * @param recursive
-     * @param deviceManagement
+     * @param hierarchy
      * @return
      * @throws SiteWhereException
      */
     public static List<UUID> resolveAreaIdsRecursive(String areaToken, boolean recursive,
-	    IDeviceManagement deviceManagement) throws SiteWhereException {
-	List<IArea> areas = resolveAreas(areaToken, recursive, deviceManagement);
-	List<UUID> ids = new ArrayList<>();
-	for (IArea area : areas) {
-	    ids.add(area.getId());
-	}
-	return ids;
-    }
-
-    /**
-     * Resolve areas including nested areas.
-     * 
-     * @param areaToken
-     * @param recursive
-     * @param deviceManagement
-     * @return
-     * @throws SiteWhereException
-     */
-    public static List<IArea> resolveAreas(String areaToken, boolean recursive, IDeviceManagement deviceManagement)
-	    throws SiteWhereException {
-	IArea existing = deviceManagement.getAreaByToken(areaToken);
-	if (existing == null) {
-	    return new ArrayList<IArea>();
-	}
-	Map<String, IArea> resolved = new HashMap<>();
-	resolveAreasRecursively(existing, recursive, resolved, deviceManagement);
-	List<IArea> response = new ArrayList<>();
-	response.addAll(resolved.values());
-	return response;
-    }
-
-    /**
-     * Resolve areas recursively.
-     * 
-     * @param current
-     * @param recursive
-     * @param matches
-     * @param deviceManagement
-     * @throws SiteWhereException
-     */
-    protected static void resolveAreasRecursively(IArea current, boolean recursive, Map<String, IArea> matches,
-	    IDeviceManagement deviceManagement) throws SiteWhereException {
-	matches.put(current.getToken(), current);
-	List<? extends IArea> children = deviceManagement.getAreaChildren(current.getToken());
-	for (IArea child : children) {
-	    resolveAreasRecursively(child, recursive, matches, deviceManagement);
-	}
+	    DeviceHierarchyClient hierarchy) throws SiteWhereException {
+	return hierarchy.getAreaIds(areaToken, recursive);
     }
 
     protected IDeviceManagement getDeviceManagement() {
 	return getMicroservice().getDeviceManagement();
     }
 
+    protected DeviceHierarchyClient getDeviceHierarchy() {
+	return new DeviceHierarchyClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
     protected IDeviceEventManagement getDeviceEventManagement() {
 	return getMicroservice().getDeviceEventManagementApiChannel();
     }
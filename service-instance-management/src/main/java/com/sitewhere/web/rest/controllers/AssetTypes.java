@@ -16,6 +16,7 @@
 package com.sitewhere.web.rest.controllers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -40,6 +41,7 @@ import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirements;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import com.sitewhere.instance.grpc.asset.AssetBulkClient;
 import com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice;
 import com.sitewhere.microservice.api.asset.AssetTypeMarshalHelper;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
@@ -54,6 +56,7 @@ import com.sitewhere.spi.error.ErrorCode;
 import com.sitewhere.spi.error.ErrorLevel;
 import com.sitewhere.spi.label.ILabel;
 import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.web.rest.model.AssetTypeBulkCreateRequest;
 
 import io.swagger.annotations.Api;
 
@@ -86,6 +89,28 @@ public class AssetTypes {
 	return Response.ok(getAssetManagement().createAssetType(request)).build();
     }
 
+    /**
+     * Create or update asset types in bulk. Mode 'create' rejects tokens that
+     * already exist, 'update' rejects tokens that do not exist and 'upsert' (the
+     * default) accepts both. Entries that fail are reported individually and do
+     * not prevent other entries from being stored.
+     * 
+     * @param request
+     * @param includeResults
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/bulk")
+    @Operation(summary = "Create or update asset types in bulk", description = "Create or update many asset types in one call")
+    public Response bulkUpsertAssetTypes(@RequestBody AssetTypeBulkCreateRequest request,
+	    @Parameter(description = "Include results for successful entries", required = false) @QueryParam("includeResults") @DefaultValue("false") boolean includeResults)
+	    throws SiteWhereException {
+	String mode = AssetBulkClient.parseBulkMode(request.getMode());
+	List<?> entries = (request.getEntries() != null) ? request.getEntries() : Collections.emptyList();
+	return Response.ok(getAssetBulk().bulkUpsertAssetTypes(mode, entries, includeResults)).build();
+    }
+
     /**
      * Get information for an asset type based on token.
      * 
@@ -210,6 +235,10 @@ public class AssetTypes {
 	return getMicroservice().getAssetManagement();
     }
 
+    protected AssetBulkClient getAssetBulk() {
+	return new AssetBulkClient(getMicroservice().getAssetManagementApiChannel());
+    }
+
     protected ILabelGeneration getLabelGeneration() {
 	return getMicroservice().getLabelGenerationApiChannel();
     }
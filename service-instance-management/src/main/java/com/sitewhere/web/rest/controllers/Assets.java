@@ -16,6 +16,7 @@
 package com.sitewhere.web.rest.controllers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -40,6 +41,7 @@ import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirements;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import com.sitewhere.instance.grpc.asset.AssetBulkClient;
 import com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice;
 import com.sitewhere.microservice.api.asset.AssetMarshalHelper;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
@@ -54,6 +56,7 @@ import com.sitewhere.spi.error.ErrorCode;
 import com.sitewhere.spi.error.ErrorLevel;
 import com.sitewhere.spi.label.ILabel;
 import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.web.rest.model.AssetBulkCreateRequest;
 
 import io.swagger.annotations.Api;
 
@@ -86,6 +89,28 @@ public class Assets {
 	return Response.ok(getAssetManagement().createAsset(request)).build();
     }
 
+    /**
+     * Create or update assets in bulk. Mode 'create' rejects tokens that
+     * already exist, 'update' rejects tokens that do not exist and 'upsert' (the
+     * default) accepts both. Entries that fail are reported individually and do
+     * not prevent other entries from being stored.
+     * 
+     * @param request
+     * @param includeResults
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/bulk")
+    @Operation(summary = "Create or update assets in bulk", description = "Create or update many assets in one call")
+    public Response bulkUpsertAssets(@RequestBody AssetBulkCreateRequest request,
+	    @Parameter(description = "Include results for successful entries", required = false) @QueryParam("includeResults") @DefaultValue("false") boolean includeResults)
+	    throws SiteWhereException {
+	String mode = AssetBulkClient.parseBulkMode(request.getMode());
+	List<?> entries = (request.getEntries() != null) ? request.getEntries() : Collections.emptyList();
+	return Response.ok(getAssetBulk().bulkUpsertAssets(mode, entries, includeResults)).build();
+    }
+
     /**
      * Get information for an asset based on token.
      * 
@@ -217,6 +242,10 @@ public class Assets {
 	return getMicroservice().getAssetManagement();
     }
 
+    protected AssetBulkClient getAssetBulk() {
+	return new AssetBulkClient(getMicroservice().getAssetManagementApiChannel());
+    }
+
     protected ILabelGeneration getLabelGeneration() {
 	return getMicroservice().getLabelGenerationApiChannel();
     }
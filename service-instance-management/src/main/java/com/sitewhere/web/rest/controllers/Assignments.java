@@ -15,15 +15,21 @@
  */
 package com.sitewhere.web.rest.controllers;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
@@ -39,6 +45,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -50,7 +57,15 @@ import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirements;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiChannel;
+import com.sitewhere.instance.grpc.asset.PreloadedAssetManagement;
+import com.sitewhere.instance.grpc.device.DeviceAlarmClient;
+import com.sitewhere.instance.grpc.device.DeviceHierarchyClient;
+import com.sitewhere.instance.grpc.device.DeviceSearchClient;
+import com.sitewhere.instance.grpc.event.EventStream;
+import com.sitewhere.instance.grpc.event.EventStreamingClient;
+import com.sitewhere.instance.grpc.event.MeasurementAggregationClient;
 import com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
 import com.sitewhere.microservice.api.device.ChartBuilder;
@@ -63,6 +78,7 @@ import com.sitewhere.microservice.api.label.ILabelGeneration;
 import com.sitewhere.microservice.api.schedule.IScheduleManagement;
 import com.sitewhere.microservice.api.schedule.ScheduledJobHelper;
 import com.sitewhere.microservice.util.DataUtils;
+import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.rest.model.device.event.DeviceCommandResponse;
 import com.sitewhere.rest.model.device.event.request.DeviceAlertCreateRequest;
 import com.sitewhere.rest.model.device.event.request.DeviceCommandInvocationCreateRequest;
@@ -75,6 +91,8 @@ import com.sitewhere.rest.model.device.request.DeviceAssignmentCreateRequest;
 import com.sitewhere.rest.model.search.DateRangeSearchCriteria;
 import com.sitewhere.rest.model.search.SearchResults;
 import com.sitewhere.rest.model.search.device.DeviceAssignmentSearchCriteria;
+import com.sitewhere.shared.grpc.AssetLookupClient;
+import com.sitewhere.shared.grpc.DeviceLookupClient;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.device.DeviceAssignmentStatus;
@@ -93,6 +111,9 @@ import com.sitewhere.spi.label.ILabel;
 import com.sitewhere.spi.scheduling.request.IScheduledJobCreateRequest;
 import com.sitewhere.spi.search.IDateRangeSearchCriteria;
 import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.web.rest.model.DeviceAlarmBulkUpdateRequest;
+import com.sitewhere.web.rest.model.DeviceAssignmentQueryRequest;
+import com.sitewhere.web.rest.model.DeviceAssignmentSummaryQueryRequest;
 
 import io.swagger.annotations.Api;
 
@@ -265,13 +286,13 @@ public class Assignments {
 	// If limiting by customer, look up customer and contained customers.
 	if (customerToken != null) {
 	    List<String> customers = Customers.resolveCustomerTokensRecursive(customerToken, true,
-		    getDeviceManagement());
+		    getDeviceHierarchy());
 	    criteria.setCustomerTokens(customers);
 	}
 
 	// If limiting by area, look up area and contained areas.
 	if (areaToken != null) {
-	    List<String> areas = Areas.resolveAreaTokensRecursive(areaToken, true, getDeviceManagement());
+	    List<String> areas = Areas.resolveAreaTokensRecursive(areaToken, true, getDeviceHierarchy());
 	    criteria.setAreaTokens(areas);
 	}
 
@@ -288,9 +309,11 @@ public class Assignments {
 	helper.setIncludeArea(includeArea);
 	helper.setIncludeAsset(includeAsset);
 
+	IAssetManagement assets = getAssetManagement(includeAsset, matches.getResults(),
+		IDeviceAssignment::getAssetId);
 	List<IDeviceAssignment> results = new ArrayList<>();
 	for (IDeviceAssignment assn : matches.getResults()) {
-	    results.add(helper.convert(assn, getAssetManagement()));
+	    results.add(helper.convert(assn, assets));
 	}
 	return Response.ok(new SearchResults<IDeviceAssignment>(results, matches.getNumResults())).build();
     }
@@ -335,13 +358,95 @@ public class Assignments {
 	helper.setIncludeArea(includeArea);
 	helper.setIncludeAsset(includeAsset);
 
+	IAssetManagement assets = getAssetManagement(includeAsset, matches.getResults(),
+		IDeviceAssignment::getAssetId);
 	List<IDeviceAssignment> results = new ArrayList<>();
 	for (IDeviceAssignment assn : matches.getResults()) {
-	    results.add(helper.convert(assn, getAssetManagement()));
+	    results.add(helper.convert(assn, assets));
 	}
 	return Response.ok(new SearchResults<IDeviceAssignment>(results, matches.getNumResults())).build();
     }
 
+    /**
+     * Search device assignments using indexed text, metadata, area and customer
+     * criteria. Results are returned one keyset page at a time. The created date
+     * and id of the last assignment are passed back to get the next page.
+     * 
+     * @param query
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/query")
+    @Operation(summary = "Indexed device assignment search", description = "Search device assignments by text, metadata, area, customer and status")
+    public Response queryDeviceAssignments(@RequestBody DeviceAssignmentQueryRequest query)
+	    throws SiteWhereException {
+	return Response.ok(getDeviceSearch().searchDeviceAssignments(query)).build();
+    }
+
+    /**
+     * List device assignment summaries one keyset page at a time. Device type,
+     * area, customer and asset names are read from the denormalized summary
+     * table along with open alarm highlights, so no per-row lookups are made.
+     * 
+     * @param query
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/summaries/query")
+    @Operation(summary = "List device assignment summaries", description = "List device assignment summaries with display fields and open alarm highlights")
+    public Response queryDeviceAssignmentSummaries(@RequestBody DeviceAssignmentSummaryQueryRequest query)
+	    throws SiteWhereException {
+	return Response.ok(getDeviceSearch().listDeviceAssignmentSummaries(query)).build();
+    }
+
+    /**
+     * Raise, acknowledge or resolve many alarms in one call. Repeated triggers
+     * for an assignment and message with an open alarm update that alarm instead
+     * of creating a new one. Entries that fail are reported individually and do
+     * not prevent other entries from being stored.
+     * 
+     * @param request
+     * @param includeResults
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/bulk/alarms")
+    @Operation(summary = "Raise, acknowledge or resolve alarms in bulk", description = "Raise, acknowledge or resolve many device alarms in one call")
+    public Response bulkUpdateDeviceAlarms(@RequestBody DeviceAlarmBulkUpdateRequest request,
+	    @Parameter(description = "Include results for successful entries", required = false) @QueryParam("includeResults") @DefaultValue("false") boolean includeResults)
+	    throws SiteWhereException {
+	String operation = parseAlarmOperation(request.getOperation());
+	List<?> entries = "Raise".equals(operation) ? request.getAlarms() : request.getAlarmIds();
+	entries = (entries != null) ? entries : Collections.emptyList();
+	return Response
+		.ok(getDeviceAlarms().bulkUpdateDeviceAlarms(operation, entries, request.getDate(), includeResults))
+		.build();
+    }
+
+    /**
+     * Get counts of open alarms by area, device type and state. Counts are kept
+     * up to date as alarms are written, so this does not scan alarms.
+     * 
+     * @param areaToken
+     * @param deviceTypeToken
+     * @param state
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/alarms/counts")
+    @Operation(summary = "Get open alarm counts", description = "Get open alarm counts by area, device type and state")
+    public Response getOpenDeviceAlarmCounts(
+	    @Parameter(description = "Area token (includes nested areas)", required = false) @QueryParam("areaToken") String areaToken,
+	    @Parameter(description = "Device type token", required = false) @QueryParam("deviceTypeToken") String deviceTypeToken,
+	    @Parameter(description = "Alarm state", required = false) @QueryParam("state") String state)
+	    throws SiteWhereException {
+	return Response.ok(getDeviceAlarms().getOpenDeviceAlarmCounts(areaToken, deviceTypeToken, state)).build();
+    }
+
     /**
      * Search device assignments for summary information.
      * 
@@ -374,9 +479,11 @@ public class Assignments {
 	DeviceAssignmentSummaryMarshalHelper helper = new DeviceAssignmentSummaryMarshalHelper();
 	helper.setIncludeAsset(includeAsset);
 
+	IAssetManagement assets = getAssetManagement(includeAsset, matches.getResults(),
+		IDeviceAssignmentSummary::getAssetId);
 	List<IDeviceAssignmentSummary> results = new ArrayList<>();
 	for (IDeviceAssignmentSummary assn : matches.getResults()) {
-	    results.add(helper.convert(assn, getAssetManagement()));
+	    results.add(helper.convert(assn, assets));
 	}
 	return Response.ok(new SearchResults<IDeviceAssignmentSummary>(results, matches.getNumResults())).build();
     }
@@ -435,6 +542,33 @@ public class Assignments {
 		Collections.singletonList(assignment.getId()), criteria)).build();
     }
 
+    /**
+     * Export measurement events for a given assignment. Events are streamed from
+     * event management and written as they arrive rather than being collected
+     * into a single result.
+     * 
+     * @param token
+     * @param limit
+     * @param startDate
+     * @param endDate
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/{token}/measurements/export")
+    @Operation(summary = "Export measurement events for device assignment", description = "Stream measurement events for device assignment as a JSON array")
+    public Response exportMeasurementsForAssignment(
+	    @Parameter(description = "Assignment token", required = true) @PathParam("token") String token,
+	    @Parameter(description = "Maximum number of events (0 for all)", required = false) @QueryParam("limit") @DefaultValue("0") int limit,
+	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
+	    throws SiteWhereException {
+	IDeviceAssignment assignment = assertDeviceAssignment(token);
+	IDateRangeSearchCriteria criteria = createDateRangeSearchCriteria(1, limit, startDate, endDate);
+	return streamEvents(getEventStreaming().streamMeasurementsForIndex(DeviceEventIndex.Assignment,
+		Collections.singletonList(assignment.getId()), criteria));
+    }
+
     /**
      * List measurement events for multiple assignments as chart series data.
      * 
@@ -446,10 +580,13 @@ public class Assignments {
      * @param bulk
      * @return
      * @throws SiteWhereException
+     * @deprecated loads raw measurements for each assignment in turn. Use
+     *             {@link #getMeasurementRollupsForAssignments} instead.
      */
+    @Deprecated
     @GET
     @Path("/bulk/measurements/series")
-    @Operation(summary = "List measurements for multiple assignments as chart series", description = "List measurements for multiple assignments as chart series")
+    @Operation(summary = "List measurements for multiple assignments as chart series", description = "Deprecated. Use /bulk/measurements/rollup which aggregates measurements in event management")
     public Response listMeasurementsForAssignmentsAsChartSeries(
 	    @Parameter(description = "Page number", required = false) @QueryParam("page") @DefaultValue("1") int page,
 	    @Parameter(description = "Page size", required = false) @QueryParam("pageSize") @DefaultValue("100") int pageSize,
@@ -480,10 +617,13 @@ public class Assignments {
      * @param measurementIds
      * @return
      * @throws SiteWhereException
+     * @deprecated loads raw measurements. Use
+     *             {@link #getMeasurementRollupsForAssignment} instead.
      */
+    @Deprecated
     @GET
     @Path("/{token}/measurements/series")
-    @Operation(summary = "List assignment measurements as chart series", description = "List assignment measurements as chart series")
+    @Operation(summary = "List assignment measurements as chart series", description = "Deprecated. Use /{token}/measurements/rollup which aggregates measurements in event management")
     public Response listMeasurementsForAssignmentAsChartSeries(
 	    @Parameter(description = "Assignment token", required = true) @PathParam("token") String token,
 	    @Parameter(description = "Page number", required = false) @QueryParam("page") @DefaultValue("1") int page,
@@ -500,6 +640,83 @@ public class Assignments {
 	return Response.ok(builder.process(measurements.getResults(), measurementIds)).build();
     }
 
+    /**
+     * Get measurement rollups for multiple assignments. Values are aggregated
+     * into time buckets by event management rather than returned raw.
+     * 
+     * @param startDate
+     * @param endDate
+     * @param intervalMs
+     * @param maxPoints
+     * @param measurementIds
+     * @param bulk
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/bulk/measurements/rollup")
+    @Operation(summary = "Get measurement rollups for multiple assignments", description = "Get min/max/avg/count/last per measurement per interval for multiple assignments")
+    public Response getMeasurementRollupsForAssignments(
+	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate,
+	    @Parameter(description = "Interval in milliseconds", required = false) @QueryParam("intervalMs") Long intervalMs,
+	    @Parameter(description = "Maximum points per series", required = false) @QueryParam("maxPoints") @DefaultValue("300") int maxPoints,
+	    @Parameter(description = "Measurement Ids", required = false) @QueryParam("measurementIds") List<String> measurementIds,
+	    @RequestBody DeviceAssignmentBulkRequest bulk) throws SiteWhereException {
+	Map<UUID, String> tokensById = new HashMap<>();
+	for (Map.Entry<String, UUID> entry : getDeviceAssignmentIdsByToken(bulk.getDeviceAssignmentTokens())
+		.entrySet()) {
+	    tokensById.put(entry.getValue(), entry.getKey());
+	}
+	JsonNode series = getMeasurementAggregation().aggregateMeasurements(DeviceEventIndex.Assignment,
+		new ArrayList<>(tokensById.keySet()), measurementIds, parseDateOrFail(startDate),
+		parseDateOrFail(endDate), intervalMs, maxPoints);
+	Map<String, List<JsonNode>> results = new HashMap<>();
+	for (String token : bulk.getDeviceAssignmentTokens()) {
+	    results.put(token, new ArrayList<>());
+	}
+	if (series != null) {
+	    for (JsonNode current : series) {
+		String token = tokensById.get(UUID.fromString(current.path("entityId").asText()));
+		if (token != null) {
+		    results.get(token).add(current);
+		}
+	    }
+	}
+	return Response.ok(results).build();
+    }
+
+    /**
+     * Get measurement rollups for a given assignment. Values are aggregated into
+     * time buckets by event management rather than returned raw.
+     * 
+     * @param token
+     * @param startDate
+     * @param endDate
+     * @param intervalMs
+     * @param maxPoints
+     * @param measurementIds
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/{token}/measurements/rollup")
+    @Operation(summary = "Get measurement rollups for assignment", description = "Get min/max/avg/count/last per measurement per interval for assignment")
+    public Response getMeasurementRollupsForAssignment(
+	    @Parameter(description = "Assignment token", required = true) @PathParam("token") String token,
+	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate,
+	    @Parameter(description = "Interval in milliseconds", required = false) @QueryParam("intervalMs") Long intervalMs,
+	    @Parameter(description = "Maximum points per series", required = false) @QueryParam("maxPoints") @DefaultValue("300") int maxPoints,
+	    @Parameter(description = "Measurement Ids", required = false) @QueryParam("measurementIds") List<String> measurementIds)
+	    throws SiteWhereException {
+	IDeviceAssignment assignment = assertDeviceAssignment(token);
+	JsonNode series = getMeasurementAggregation().aggregateMeasurements(DeviceEventIndex.Assignment,
+		Collections.singletonList(assignment.getId()), measurementIds, parseDateOrFail(startDate),
+		parseDateOrFail(endDate), intervalMs, maxPoints);
+	return Response.ok(series).build();
+    }
+
     /**
      * Create measurements to be associated with a device assignment.
      * 
@@ -574,6 +791,33 @@ public class Assignments {
 		Collections.singletonList(assignment.getId()), criteria)).build();
     }
 
+    /**
+     * Export location events for a given assignment. Events are streamed from
+     * event management and written as they arrive rather than being collected
+     * into a single result.
+     * 
+     * @param token
+     * @param limit
+     * @param startDate
+     * @param endDate
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/{token}/locations/export")
+    @Operation(summary = "Export location events for device assignment", description = "Stream location events for device assignment as a JSON array")
+    public Response exportLocationsForAssignment(
+	    @Parameter(description = "Assignment token", required = true) @PathParam("token") String token,
+	    @Parameter(description = "Maximum number of events (0 for all)", required = false) @QueryParam("limit") @DefaultValue("0") int limit,
+	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
+	    throws SiteWhereException {
+	IDeviceAssignment assignment = assertDeviceAssignment(token);
+	IDateRangeSearchCriteria criteria = createDateRangeSearchCriteria(1, limit, startDate, endDate);
+	return streamEvents(getEventStreaming().streamLocationsForIndex(DeviceEventIndex.Assignment,
+		Collections.singletonList(assignment.getId()), criteria));
+    }
+
     /**
      * Create location to be associated with a device assignment.
      * 
@@ -648,6 +892,33 @@ public class Assignments {
 		Collections.singletonList(assignment.getId()), criteria)).build();
     }
 
+    /**
+     * Export alert events for a given assignment. Events are streamed from
+     * event management and written as they arrive rather than being collected
+     * into a single result.
+     * 
+     * @param token
+     * @param limit
+     * @param startDate
+     * @param endDate
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/{token}/alerts/export")
+    @Operation(summary = "Export alert events for device assignment", description = "Stream alert events for device assignment as a JSON array")
+    public Response exportAlertsForAssignment(
+	    @Parameter(description = "Assignment token", required = true) @PathParam("token") String token,
+	    @Parameter(description = "Maximum number of events (0 for all)", required = false) @QueryParam("limit") @DefaultValue("0") int limit,
+	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
+	    throws SiteWhereException {
+	IDeviceAssignment assignment = assertDeviceAssignment(token);
+	IDateRangeSearchCriteria criteria = createDateRangeSearchCriteria(1, limit, startDate, endDate);
+	return streamEvents(getEventStreaming().streamAlertsForIndex(DeviceEventIndex.Assignment,
+		Collections.singletonList(assignment.getId()), criteria));
+    }
+
     /**
      * Create alert to be associated with a device assignment.
      * 
@@ -786,6 +1057,33 @@ public class Assignments {
 	return Response.ok(new SearchResults<IDeviceCommandInvocation>(converted)).build();
     }
 
+    /**
+     * Export command invocation events for a given assignment. Events are streamed from
+     * event management and written as they arrive rather than being collected
+     * into a single result.
+     * 
+     * @param token
+     * @param limit
+     * @param startDate
+     * @param endDate
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/{token}/invocations/export")
+    @Operation(summary = "Export command invocation events for device assignment", description = "Stream command invocation events for device assignment as a JSON array")
+    public Response exportCommandInvocationsForAssignment(
+	    @Parameter(description = "Assignment token", required = true) @PathParam("token") String token,
+	    @Parameter(description = "Maximum number of events (0 for all)", required = false) @QueryParam("limit") @DefaultValue("0") int limit,
+	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
+	    throws SiteWhereException {
+	IDeviceAssignment assignment = assertDeviceAssignment(token);
+	IDateRangeSearchCriteria criteria = createDateRangeSearchCriteria(1, limit, startDate, endDate);
+	return streamEvents(getEventStreaming().streamCommandInvocationsForIndex(DeviceEventIndex.Assignment,
+		Collections.singletonList(assignment.getId()), criteria));
+    }
+
     /**
      * Create state change to be associated with a device assignment.
      * 
@@ -860,6 +1158,33 @@ public class Assignments {
 		Collections.singletonList(assignment.getId()), criteria)).build();
     }
 
+    /**
+     * Export state change events for a given assignment. Events are streamed from
+     * event management and written as they arrive rather than being collected
+     * into a single result.
+     * 
+     * @param token
+     * @param limit
+     * @param startDate
+     * @param endDate
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/{token}/statechanges/export")
+    @Operation(summary = "Export state change events for device assignment", description = "Stream state change events for device assignment as a JSON array")
+    public Response exportStateChangesForAssignment(
+	    @Parameter(description = "Assignment token", required = true) @PathParam("token") String token,
+	    @Parameter(description = "Maximum number of events (0 for all)", required = false) @QueryParam("limit") @DefaultValue("0") int limit,
+	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
+	    throws SiteWhereException {
+	IDeviceAssignment assignment = assertDeviceAssignment(token);
+	IDateRangeSearchCriteria criteria = createDateRangeSearchCriteria(1, limit, startDate, endDate);
+	return streamEvents(getEventStreaming().streamStateChangesForIndex(DeviceEventIndex.Assignment,
+		Collections.singletonList(assignment.getId()), criteria));
+    }
+
     /**
      * Create command response to be associated with a device assignment.
      * 
@@ -934,6 +1259,33 @@ public class Assignments {
 		Collections.singletonList(assignment.getId()), criteria)).build();
     }
 
+    /**
+     * Export command response events for a given assignment. Events are streamed from
+     * event management and written as they arrive rather than being collected
+     * into a single result.
+     * 
+     * @param token
+     * @param limit
+     * @param startDate
+     * @param endDate
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/{token}/responses/export")
+    @Operation(summary = "Export command response events for device assignment", description = "Stream command response events for device assignment as a JSON array")
+    public Response exportCommandResponsesForAssignment(
+	    @Parameter(description = "Assignment token", required = true) @PathParam("token") String token,
+	    @Parameter(description = "Maximum number of events (0 for all)", required = false) @QueryParam("limit") @DefaultValue("0") int limit,
+	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
+	    throws SiteWhereException {
+	IDeviceAssignment assignment = assertDeviceAssignment(token);
+	IDateRangeSearchCriteria criteria = createDateRangeSearchCriteria(1, limit, startDate, endDate);
+	return streamEvents(getEventStreaming().streamCommandResponsesForIndex(DeviceEventIndex.Assignment,
+		Collections.singletonList(assignment.getId()), criteria));
+    }
+
     /**
      * End an existing device assignment.
      * 
@@ -1026,14 +1378,62 @@ public class Assignments {
      * @throws SiteWhereException
      */
     protected List<UUID> getDeviceAssignmentIds(DeviceAssignmentBulkRequest bulk) throws SiteWhereException {
+	Map<String, UUID> ids = getDeviceAssignmentIdsByToken(bulk.getDeviceAssignmentTokens());
 	List<UUID> results = new ArrayList<UUID>();
 	for (String token : bulk.getDeviceAssignmentTokens()) {
-	    IDeviceAssignment assignment = assertDeviceAssignment(token);
-	    results.add(assignment.getId());
+	    results.add(ids.get(token));
+	}
+	return results;
+    }
+
+    /**
+     * Get assignment ids for tokens with a single lookup call.
+     * 
+     * @param tokens
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<String, UUID> getDeviceAssignmentIdsByToken(List<String> tokens) throws SiteWhereException {
+	Map<String, UUID> results = new LinkedHashMap<>();
+	for (Map.Entry<String, JsonNode> entry : getDeviceLookup()
+		.getByTokens(DeviceLookupClient.EntityType.DeviceAssignment, tokens).entrySet()) {
+	    if (entry.getValue() == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidDeviceAssignmentToken, ErrorLevel.ERROR);
+	    }
+	    results.put(entry.getKey(), UUID.fromString(entry.getValue().path("id").asText()));
 	}
 	return results;
     }
 
+    /**
+     * Get asset management for marshaling a page of assignments. When assets are
+     * included, all assets referenced by the page are resolved with one batch
+     * lookup rather than one call per row.
+     * 
+     * @param includeAsset
+     * @param assignments
+     * @param assetId
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <T> IAssetManagement getAssetManagement(boolean includeAsset, List<? extends T> assignments,
+	    Function<T, UUID> assetId) throws SiteWhereException {
+	if (!includeAsset) {
+	    return getAssetManagement();
+	}
+	Set<UUID> assetIds = new LinkedHashSet<>();
+	for (T assignment : assignments) {
+	    UUID id = assetId.apply(assignment);
+	    if (id != null) {
+		assetIds.add(id);
+	    }
+	}
+	if (assetIds.isEmpty()) {
+	    return getAssetManagement();
+	}
+	return new PreloadedAssetManagement(getAssetManagement(), getAssetLookup().getAssetsById(assetIds));
+    }
+
     /**
      * Create date range search criteria.
      * 
@@ -1051,6 +1451,37 @@ public class Assignments {
 	return new DateRangeSearchCriteria(page, pageSize, parsedStartDate, parsedEndDate);
     }
 
+    /**
+     * Build a response that writes events from a stream as a JSON array. The
+     * stream is consumed while the response is written and is closed when
+     * writing completes or fails, which cancels the call if the client
+     * disconnects early.
+     * 
+     * @param events
+     * @return
+     */
+    protected static Response streamEvents(EventStream<?, ?> events) {
+	StreamingOutput output = (OutputStream out) -> {
+	    try {
+		out.write('[');
+		boolean first = true;
+		while (events.hasNext()) {
+		    if (!first) {
+			out.write(',');
+		    }
+		    out.write(MarshalUtils.marshalJson(events.next()));
+		    first = false;
+		}
+		out.write(']');
+	    } catch (RuntimeException e) {
+		throw new IOException("Unable to export events.", e);
+	    } finally {
+		events.close();
+	    }
+	};
+	return Response.ok(output).build();
+    }
+
     /**
      * Parse date or throw exception if invalid.
      * 
@@ -1074,10 +1505,57 @@ public class Assignments {
 	return getMicroservice().getDeviceManagement();
     }
 
+    protected DeviceHierarchyClient getDeviceHierarchy() {
+	return new DeviceHierarchyClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
+    /**
+     * Convert bulk alarm operation from request to the value expected by device
+     * management.
+     * 
+     * @param operation
+     * @return
+     * @throws SiteWhereException
+     */
+    protected String parseAlarmOperation(String operation) throws SiteWhereException {
+	if (operation == null || "raise".equalsIgnoreCase(operation)) {
+	    return "Raise";
+	} else if ("acknowledge".equalsIgnoreCase(operation)) {
+	    return "Acknowledge";
+	} else if ("resolve".equalsIgnoreCase(operation)) {
+	    return "Resolve";
+	}
+	throw new SiteWhereException("Unsupported bulk alarm operation: " + operation);
+    }
+
+    protected DeviceAlarmClient getDeviceAlarms() {
+	return new DeviceAlarmClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
+    protected DeviceSearchClient getDeviceSearch() {
+	return new DeviceSearchClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
+    protected DeviceLookupClient getDeviceLookup() {
+	return new DeviceLookupClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
+    protected AssetLookupClient getAssetLookup() {
+	return new AssetLookupClient(getMicroservice().getAssetManagementApiChannel());
+    }
+
     protected IDeviceEventManagementApiChannel<?> getDeviceEventManagement() {
 	return getMicroservice().getDeviceEventManagementApiChannel();
     }
 
+    protected MeasurementAggregationClient getMeasurementAggregation() {
+	return new MeasurementAggregationClient(getDeviceEventManagement());
+    }
+
+    protected EventStreamingClient getEventStreaming() {
+	return new EventStreamingClient(getDeviceEventManagement());
+    }
+
     protected IAssetManagement getAssetManagement() {
 	return getMicroservice().getAssetManagement();
     }
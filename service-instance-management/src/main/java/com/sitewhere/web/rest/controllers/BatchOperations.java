@@ -16,7 +16,9 @@
 package com.sitewhere.web.rest.controllers;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -50,15 +52,19 @@ import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.microservice.api.schedule.IScheduleManagement;
 import com.sitewhere.microservice.api.schedule.ScheduledJobHelper;
 import com.sitewhere.rest.model.batch.request.BatchCommandInvocationRequest;
+import com.sitewhere.rest.model.batch.request.BatchOperationCreateRequest;
 import com.sitewhere.rest.model.batch.request.InvocationByAssignmentCriteriaRequest;
 import com.sitewhere.rest.model.batch.request.InvocationByDeviceCriteriaRequest;
 import com.sitewhere.rest.model.search.SearchResults;
 import com.sitewhere.rest.model.search.batch.BatchOperationSearchCriteria;
 import com.sitewhere.rest.model.search.device.BatchElementSearchCriteria;
+import com.sitewhere.shared.batch.BatchOperationParameters;
+import com.sitewhere.shared.batch.BatchOperationTypes;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.device.command.IDeviceCommand;
 import com.sitewhere.spi.error.ErrorCode;
 import com.sitewhere.spi.error.ErrorLevel;
@@ -203,18 +209,23 @@ public class BatchOperations {
 		    .createBatchCommandInvocationJobForDeviceCriteria(request, scheduleToken);
 	    return Response.ok(getScheduleManagement().createScheduledJob(job)).build();
 	} else {
-	    // Resolve tokens for devices matching criteria.
-	    List<String> deviceTokens = BatchUtils.resolveDeviceTokensForDeviceCriteria(request, getDeviceManagement(),
-		    getAssetManagement());
-
-	    // Create batch command invocation.
-	    BatchCommandInvocationRequest invoke = new BatchCommandInvocationRequest();
+	    // Devices matching criteria are resolved incrementally by batch operations.
+	    BatchOperationCreateRequest invoke = new BatchOperationCreateRequest();
 	    invoke.setToken(request.getToken());
-	    invoke.setCommandToken(request.getCommandToken());
-	    invoke.setParameterValues(request.getParameterValues());
-	    invoke.setDeviceTokens(deviceTokens);
+	    invoke.setOperationType(BatchOperationTypes.OPERATION_BATCH_COMMAND_INVOCATION);
+	    invoke.getParameters().put(IBatchCommandInvocationRequest.PARAM_COMMAND_TOKEN, request.getCommandToken());
+	    invoke.getParameters().put(BatchOperationParameters.PARAM_RESOLVE_DEVICE_CRITERIA, String.valueOf(true));
+	    if (request.getDeviceTypeToken() != null) {
+		invoke.getParameters().put(BatchOperationParameters.PARAM_CRITERIA_DEVICE_TYPE_TOKEN,
+			request.getDeviceTypeToken());
+	    }
+	    Map<String, String> values = new HashMap<String, String>();
+	    if (request.getParameterValues() != null) {
+		values.putAll(request.getParameterValues());
+	    }
+	    invoke.setMetadata(values);
 
-	    IBatchOperation result = getBatchManagement().createBatchCommandInvocation(invoke);
+	    IBatchOperation result = getBatchManagement().createBatchOperation(invoke);
 	    BatchOperationMarshalHelper helper = new BatchOperationMarshalHelper();
 	    return Response.ok(helper.convert(result)).build();
 	}
@@ -17,9 +17,7 @@ package com.sitewhere.web.rest.controllers;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -46,6 +44,7 @@ import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirements;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import com.sitewhere.instance.grpc.device.DeviceHierarchyClient;
 import com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
 import com.sitewhere.microservice.api.device.CustomerMarshalHelper;
@@ -298,7 +297,7 @@ public class Customers {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceManagement());
+	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceMeasurement> results = getDeviceEventManagement()
@@ -331,7 +330,7 @@ public class Customers {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceManagement());
+	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceLocation> results = getDeviceEventManagement()
@@ -366,7 +365,7 @@ public class Customers {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceManagement());
+	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceAlert> results = getDeviceEventManagement()
@@ -401,7 +400,7 @@ public class Customers {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceManagement());
+	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceCommandInvocation> results = getDeviceEventManagement()
@@ -436,7 +435,7 @@ public class Customers {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceManagement());
+	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceCommandResponse> results = getDeviceEventManagement()
@@ -471,7 +470,7 @@ public class Customers {
 	    @Parameter(description = "Start date", required = false) @QueryParam("startDate") String startDate,
 	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate)
 	    throws SiteWhereException {
-	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceManagement());
+	List<UUID> customers = resolveCustomerIdsRecursive(customerToken, true, getDeviceHierarchy());
 	IDateRangeSearchCriteria criteria = Assignments.createDateRangeSearchCriteria(page, pageSize, startDate,
 		endDate);
 	ISearchResults<IDeviceStateChange> results = getDeviceEventManagement()
@@ -517,7 +516,7 @@ public class Customers {
 	if (decodedStatus != null) {
 	    criteria.setAssignmentStatuses(Collections.singletonList(decodedStatus));
 	}
-	List<String> customers = resolveCustomerTokensRecursive(customerToken, true, getDeviceManagement());
+	List<String> customers = resolveCustomerTokensRecursive(customerToken, true, getDeviceHierarchy());
 	criteria.setCustomerTokens(customers);
 
 	ISearchResults<? extends IDeviceAssignment> matches = getDeviceManagement().listDeviceAssignments(criteria);
@@ -559,7 +558,7 @@ public class Customers {
 	if (decodedStatus != null) {
 	    criteria.setAssignmentStatuses(Collections.singletonList(decodedStatus));
 	}
-	List<String> customers = resolveCustomerTokensRecursive(customerToken, true, getDeviceManagement());
+	List<String> customers = resolveCustomerTokensRecursive(customerToken, true, getDeviceHierarchy());
 	criteria.setCustomerTokens(customers);
 
 	ISearchResults<? extends IDeviceAssignmentSummary> matches = getDeviceManagement()
@@ -578,18 +577,13 @@ public class Customers {
      * 
      * @param customerToken
      * @param recursive
-     * @param deviceManagement
+     * @param hierarchy
      * @return
      * @throws SiteWhereException
      */
     public static List<String> resolveCustomerTokensRecursive(String customerToken, boolean recursive,
-	    IDeviceManagement deviceManagement) throws SiteWhereException {
-	List<ICustomer> customers = resolveCustomers(customerToken, recursive, deviceManagement);
-	List<String> ids = new ArrayList<>();
-	for (ICustomer customer : customers) {
-	    ids.add(customer.getToken());
-	}
-	return ids;
+	    DeviceHierarchyClient hierarchy) throws SiteWhereException {
+	return hierarchy.getCustomerTokens(customerToken, recursive);
     }
 
     /**
@@ -597,58 +591,13 @@ public class Customers {
      * 
      * @param customerToken
      * @param recursive
-     * @param deviceManagement
+     * @param hierarchy
      * @return
      * @throws SiteWhereException
      */
     public static List<UUID> resolveCustomerIdsRecursive(String customerToken, boolean recursive,
-	    IDeviceManagement deviceManagement) throws SiteWhereException {
-	List<ICustomer> customers = resolveCustomers(customerToken, recursive, deviceManagement);
-	List<UUID> ids = new ArrayList<>();
-	for (ICustomer customer : customers) {
-	    ids.add(customer.getId());
-	}
-	return ids;
-    }
-
-    /**
-     * Resolve areas including nested areas.
-     * 
-     * @param areaToken
-     * @param recursive
-     * @param deviceManagement
-     * @return
-     * @throws SiteWhereException
-     */
-    public static List<ICustomer> resolveCustomers(String customerToken, boolean recursive,
-	    IDeviceManagement deviceManagement) throws SiteWhereException {
-	ICustomer existing = deviceManagement.getCustomerByToken(customerToken);
-	if (existing == null) {
-	    return new ArrayList<ICustomer>();
-	}
-	Map<String, ICustomer> resolved = new HashMap<>();
-	resolveCustomersRecursively(existing, recursive, resolved, deviceManagement);
-	List<ICustomer> response = new ArrayList<>();
-	response.addAll(resolved.values());
-	return response;
-    }
-
-    /**
-     * Resolve customers recursively.
-     * 
-     * @param current
-     * @param recursive
-     * @param matches
-     * @param deviceManagement
-     * @throws SiteWhereException
-     */
-    protected static void resolveCustomersRecursively(ICustomer current, boolean recursive,
-	    Map<String, ICustomer> matches, IDeviceManagement deviceManagement) throws SiteWhereException {
-	matches.put(current.getToken(), current);
-	List<? extends ICustomer> children = deviceManagement.getCustomerChildren(current.getToken());
-	for (ICustomer child : children) {
-	    resolveCustomersRecursively(child, recursive, matches, deviceManagement);
-	}
+	    DeviceHierarchyClient hierarchy) throws SiteWhereException {
+	return hierarchy.getCustomerIds(customerToken, recursive);
     }
 
     /**
@@ -670,6 +619,10 @@ public class Customers {
 	return getMicroservice().getDeviceManagement();
     }
 
+    protected DeviceHierarchyClient getDeviceHierarchy() {
+	return new DeviceHierarchyClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
     protected IDeviceEventManagement getDeviceEventManagement() {
 	return getMicroservice().getDeviceEventManagementApiChannel();
     }
@@ -15,28 +15,51 @@
  */
 package com.sitewhere.web.rest.controllers;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirements;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import com.sitewhere.grpc.event.EventModelConverter;
+import com.sitewhere.grpc.model.DeviceEventModel.GProcessedEventPayload;
+import com.sitewhere.instance.grpc.event.EventExportClient;
+import com.sitewhere.instance.grpc.event.EventStream;
 import com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice;
+import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.microservice.api.event.IDeviceEventManagement;
+import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
+import com.sitewhere.spi.device.IDeviceAssignment;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
+import com.sitewhere.web.rest.model.EventReplayCreateRequest;
 
 import io.swagger.annotations.Api;
 
@@ -57,6 +80,15 @@ public class DeviceEvents {
     @SuppressWarnings("unused")
     private static Log LOGGER = LogFactory.getLog(DeviceEvents.class);
 
+    /** Export format for newline-delimited JSON */
+    private static final String FORMAT_NDJSON = "ndjson";
+
+    /** Export format for length-delimited protobuf */
+    private static final String FORMAT_PROTOBUF = "protobuf";
+
+    /** Buffer size for compressed exports */
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     @Inject
     private IInstanceManagementMicroservice microservice;
 
@@ -92,6 +124,143 @@ public class DeviceEvents {
 	return Response.ok(getDeviceEventManagement().getDeviceEventByAlternateId(alternateId)).build();
     }
 
+    /**
+     * Export events for a time range as a gzip-compressed file. Events are
+     * written oldest first as they are streamed from event management, either
+     * as newline-delimited JSON or as length-delimited protobuf processed event
+     * payloads. An interrupted export can be resumed by passing the date (in
+     * milliseconds) and id of the last event received as the cursor.
+     * 
+     * @param assignmentTokens
+     * @param startDate
+     * @param endDate
+     * @param format
+     * @param cursor
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/export")
+    @Produces("application/gzip")
+    @Operation(summary = "Export events for a time range", description = "Stream events for a time range as a compressed NDJSON or protobuf file")
+    public Response exportEvents(
+	    @Parameter(description = "Assignment tokens (all assignments if not set)", required = false) @QueryParam("assignmentTokens") List<String> assignmentTokens,
+	    @Parameter(description = "Start date", required = true) @QueryParam("startDate") String startDate,
+	    @Parameter(description = "End date", required = false) @QueryParam("endDate") String endDate,
+	    @Parameter(description = "File format (ndjson or protobuf)", required = false) @QueryParam("format") @DefaultValue(FORMAT_NDJSON) String format,
+	    @Parameter(description = "Cursor in the form '<event date millis>:<event id>' to resume after", required = false) @QueryParam("cursor") String cursor)
+	    throws SiteWhereException {
+	boolean protobuf = FORMAT_PROTOBUF.equals(format);
+	if (!protobuf && !FORMAT_NDJSON.equals(format)) {
+	    throw new SiteWhereException("Unsupported export format: " + format);
+	}
+	Date start = Assignments.parseDateOrFail(startDate);
+	if (start == null) {
+	    throw new SiteWhereException("Start date is required for event export.");
+	}
+	EventStream<GProcessedEventPayload, GProcessedEventPayload> events = getEventExport().exportEvents(
+		getDeviceAssignmentIds(assignmentTokens), start, Assignments.parseDateOrFail(endDate), cursor);
+	StreamingOutput output = (OutputStream out) -> {
+	    try (GZIPOutputStream gzip = new GZIPOutputStream(out, EXPORT_BUFFER_SIZE)) {
+		while (events.hasNext()) {
+		    GProcessedEventPayload payload = events.next();
+		    if (protobuf) {
+			payload.writeDelimitedTo(gzip);
+		    } else {
+			gzip.write(MarshalUtils.marshalJson(EventModelConverter.asApiProcessedEventPayload(payload)));
+			gzip.write('\n');
+		    }
+		}
+	    } catch (SiteWhereException | RuntimeException e) {
+		throw new IOException("Unable to export events.", e);
+	    } finally {
+		events.close();
+	    }
+	};
+	String filename = "events." + (protobuf ? "pb" : "ndjson") + ".gz";
+	return Response.ok(output).header("Content-Disposition", "attachment; filename=\"" + filename + "\"").build();
+    }
+
+    /**
+     * Start republishing stored events for a time range to the outbound events
+     * topic.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/replays")
+    @Operation(summary = "Replay events for a time range", description = "Republish stored events for a time range to outbound connectors at a controlled rate. Replayed events do not update rollups or device state and are only processed by the listed connectors (all connectors if none are listed). Replay status is held in memory by the event management replica that runs the replay and is lost if it restarts. Resume by starting a new replay with the last reported cursor")
+    public Response startEventReplay(@RequestBody EventReplayCreateRequest request) throws SiteWhereException {
+	Date start = Assignments.parseDateOrFail(request.getStartDate());
+	if (start == null) {
+	    throw new SiteWhereException("Start date is required for event replay.");
+	}
+	return Response.ok(getEventExport().startEventReplay(getDeviceAssignmentIds(request.getAssignmentTokens()),
+		start, Assignments.parseDateOrFail(request.getEndDate()), request.getEventsPerSecond(),
+		request.getCursor(), request.getConnectorIds())).build();
+    }
+
+    /**
+     * List running and recently finished event replays.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/replays")
+    @Operation(summary = "List event replays", description = "List running and recently finished event replays known to the event management replica that handles the request")
+    public Response listEventReplays() throws SiteWhereException {
+	return Response.ok(getEventExport().listEventReplays()).build();
+    }
+
+    /**
+     * Cancel an event replay. The replay status includes a cursor that can be
+     * used to resume it later.
+     * 
+     * @param replayId
+     * @return
+     * @throws SiteWhereException
+     */
+    @DELETE
+    @Path("/replays/{replayId}")
+    @Operation(summary = "Cancel event replay", description = "Cancel a running event replay")
+    public Response cancelEventReplay(
+	    @Parameter(description = "Replay id", required = true) @PathParam("replayId") String replayId)
+	    throws SiteWhereException {
+	return Response.ok(getEventExport().cancelEventReplay(UUID.fromString(replayId))).build();
+    }
+
+    /**
+     * Get list of assignment ids based on assignment tokens.
+     * 
+     * @param tokens
+     * @return
+     * @throws SiteWhereException
+     */
+    protected List<UUID> getDeviceAssignmentIds(List<String> tokens) throws SiteWhereException {
+	List<UUID> results = new ArrayList<>();
+	if (tokens != null) {
+	    for (String token : tokens) {
+		IDeviceAssignment assignment = getDeviceManagement().getDeviceAssignmentByToken(token);
+		if (assignment == null) {
+		    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceAssignmentToken, ErrorLevel.ERROR);
+		}
+		results.add(assignment.getId());
+	    }
+	}
+	return results;
+    }
+
+    protected IDeviceManagement getDeviceManagement() {
+	return getMicroservice().getDeviceManagement();
+    }
+
+    protected EventExportClient getEventExport() {
+	return new EventExportClient(getMicroservice().getDeviceEventManagementApiChannel());
+    }
+
     protected IDeviceEventManagement getDeviceEventManagement() {
 	return getMicroservice().getDeviceEventManagementApiChannel();
     }
@@ -15,8 +15,16 @@
  */
 package com.sitewhere.web.rest.controllers;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -33,6 +41,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -43,6 +52,8 @@ import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirements;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.instance.grpc.device.DeviceGroupMembersClient;
 import com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
 import com.sitewhere.microservice.api.device.DeviceGroupElementMarshalHelper;
@@ -53,9 +64,9 @@ import com.sitewhere.rest.model.device.request.DeviceGroupCreateRequest;
 import com.sitewhere.rest.model.device.request.DeviceGroupElementCreateRequest;
 import com.sitewhere.rest.model.search.SearchCriteria;
 import com.sitewhere.rest.model.search.SearchResults;
+import com.sitewhere.shared.grpc.DeviceLookupClient;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
-import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.group.IDeviceGroup;
 import com.sitewhere.spi.device.group.IDeviceGroupElement;
 import com.sitewhere.spi.device.request.IDeviceGroupElementCreateRequest;
@@ -63,6 +74,7 @@ import com.sitewhere.spi.error.ErrorCode;
 import com.sitewhere.spi.error.ErrorLevel;
 import com.sitewhere.spi.label.ILabel;
 import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.web.rest.view.LabelSheetBuilder;
 
 import io.swagger.annotations.Api;
 
@@ -83,6 +95,12 @@ public class DeviceGroups {
     @SuppressWarnings("unused")
     private static Log LOGGER = LogFactory.getLog(DeviceGroups.class);
 
+    /** Page size used when resolving devices for a label sheet */
+    private static final int LABEL_SHEET_PAGE_SIZE = 500;
+
+    /** Page size used when streaming ids of devices in a group */
+    private static final int MEMBER_PAGE_SIZE = 5000;
+
     @Inject
     private IInstanceManagementMicroservice microservice;
 
@@ -157,6 +175,57 @@ public class DeviceGroups {
 	return Response.ok(label.getContent()).build();
     }
 
+    /**
+     * Get a sheet with labels for all devices in a device group based on a
+     * specific generator. Devices in nested groups are included.
+     * 
+     * @param groupToken
+     * @param generatorId
+     * @param format
+     * @param columns
+     * @param rows
+     * @param page
+     * @return
+     * @throws SiteWhereException
+     */
+    @GET
+    @Path("/{groupToken}/labels/{generatorId}")
+    @Produces({ "application/pdf", "image/png" })
+    @Operation(summary = "Get label sheet for devices in group", description = "Get label sheet for devices in group and all nested groups")
+    public Response getDeviceGroupLabelSheet(
+	    @Parameter(description = "Device group token", required = true) @PathParam("groupToken") String groupToken,
+	    @Parameter(description = "Generator id", required = true) @PathParam("generatorId") String generatorId,
+	    @Parameter(description = "Output format (pdf or png)", required = false) @QueryParam("format") @DefaultValue("pdf") String format,
+	    @Parameter(description = "Labels per row", required = false) @QueryParam("columns") @DefaultValue("4") int columns,
+	    @Parameter(description = "Rows per page", required = false) @QueryParam("rows") @DefaultValue("6") int rows,
+	    @Parameter(description = "Page rendered for png output", required = false) @QueryParam("page") @DefaultValue("1") int page)
+	    throws SiteWhereException {
+	assureDeviceGroup(groupToken);
+	DeviceGroupMembersClient.Cursor cursor = new DeviceGroupMembersClient(
+		getMicroservice().getDeviceManagementApiChannel()).open(Collections.singletonList(groupToken), null,
+			LABEL_SHEET_PAGE_SIZE);
+	DeviceLookupClient lookup = getDeviceLookup();
+	LabelSheetBuilder sheet = new LabelSheetBuilder(columns, rows);
+	for (List<UUID> deviceIds = cursor.nextPage(); !deviceIds.isEmpty(); deviceIds = cursor.nextPage()) {
+	    if (sheet.size() + deviceIds.size() > LabelSheetBuilder.MAX_LABELS) {
+		return LabelSheetBuilder.buildLimitResponse(sheet.size() + deviceIds.size());
+	    }
+	    Map<UUID, JsonNode> devices = lookup.getByIds(DeviceLookupClient.EntityType.Device, deviceIds);
+	    for (UUID deviceId : deviceIds) {
+		JsonNode device = devices.get(deviceId);
+		String caption = (device != null) ? device.path("token").asText() : deviceId.toString();
+		sheet.add(() -> {
+		    ILabel label = getLabelGeneration().getDeviceLabel(generatorId, deviceId);
+		    if (label == null) {
+			return null;
+		    }
+		    return new LabelSheetBuilder.SheetLabel(caption, label.getContent());
+		});
+	    }
+	}
+	return sheet.buildResponse(format, page);
+    }
+
     /**
      * Delete an existing device group.
      * 
@@ -256,9 +325,7 @@ public class DeviceGroups {
 		.setIncludeDetails(false);
 	List<IDeviceGroupElementCreateRequest> elements = (List<IDeviceGroupElementCreateRequest>) (List<? extends IDeviceGroupElementCreateRequest>) request;
 
-	// Validate the list of new elements.
-	validateDeviceGroupElements(request, getDeviceManagement());
-
+	// Referenced devices and nested groups are validated in bulk when stored.
 	IDeviceGroup group = assureDeviceGroup(groupToken);
 	List<? extends IDeviceGroupElement> results = getDeviceManagement().addDeviceGroupElements(group.getId(),
 		elements, true);
@@ -270,28 +337,52 @@ public class DeviceGroups {
     }
 
     /**
-     * Validate new elements to assure they reference real objects.
+     * Stream distinct ids of all devices in a device group, including devices
+     * in nested groups, as a JSON array. Ids are read from device management in
+     * pages, so only one page is held in memory at a time.
      * 
-     * @param elements
-     * @param deviceManagement
+     * @param groupToken
+     * @param roles
+     * @return
      * @throws SiteWhereException
      */
-    protected void validateDeviceGroupElements(List<DeviceGroupElementCreateRequest> elements,
-	    IDeviceManagement deviceManagement) throws SiteWhereException {
-	for (DeviceGroupElementCreateRequest request : elements) {
-	    if (request.getDeviceToken() != null) {
-		IDevice device = deviceManagement.getDeviceByToken(request.getDeviceToken());
-		if (device == null) {
-		    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceToken, ErrorLevel.ERROR);
-		}
-	    }
-	    if (request.getNestedGroupToken() != null) {
-		IDeviceGroup group = deviceManagement.getDeviceGroupByToken(request.getNestedGroupToken());
-		if (group == null) {
-		    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceGroupToken, ErrorLevel.ERROR);
+    @GET
+    @Path("/{groupToken}/devices/ids")
+    @Operation(summary = "Stream ids of devices in a device group", description = "Stream distinct ids of devices in a device group and all nested groups")
+    public Response streamDeviceGroupMemberIds(
+	    @Parameter(description = "Unique token that identifies device group", required = true) @PathParam("groupToken") String groupToken,
+	    @Parameter(description = "Only follow elements with one of these roles", required = false) @QueryParam("roles") List<String> roles)
+	    throws SiteWhereException {
+	DeviceGroupMembersClient.Cursor cursor = new DeviceGroupMembersClient(
+		getMicroservice().getDeviceManagementApiChannel()).open(Collections.singletonList(groupToken), roles,
+			MEMBER_PAGE_SIZE);
+
+	// Read first page before streaming so lookup errors produce an error response.
+	List<UUID> first = cursor.nextPage();
+	StreamingOutput output = (OutputStream out) -> {
+	    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+	    try {
+		writer.write('[');
+		boolean separate = false;
+		for (List<UUID> page = first; !page.isEmpty(); page = cursor.nextPage()) {
+		    for (UUID id : page) {
+			if (separate) {
+			    writer.write(',');
+			}
+			writer.write('"');
+			writer.write(id.toString());
+			writer.write('"');
+			separate = true;
+		    }
+		    writer.flush();
 		}
+		writer.write(']');
+		writer.flush();
+	    } catch (SiteWhereException e) {
+		throw new IOException("Unable to resolve devices in device group.", e);
 	    }
-	}
+	};
+	return Response.ok(output).build();
     }
 
     /**
@@ -358,6 +449,10 @@ public class DeviceGroups {
 	return getMicroservice().getDeviceManagement();
     }
 
+    protected DeviceLookupClient getDeviceLookup() {
+	return new DeviceLookupClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
     protected IAssetManagement getAssetManagement() {
 	return getMicroservice().getAssetManagement();
     }
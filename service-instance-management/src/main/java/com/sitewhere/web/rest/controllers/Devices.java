@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -46,6 +47,8 @@ import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirements;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.instance.grpc.device.DeviceSearchClient;
 import com.sitewhere.instance.spi.microservice.IInstanceManagementMicroservice;
 import com.sitewhere.microservice.api.asset.IAssetManagement;
 import com.sitewhere.microservice.api.device.DeviceAssignmentMarshalHelper;
@@ -67,6 +70,8 @@ import com.sitewhere.rest.model.device.request.DeviceCreateRequest;
 import com.sitewhere.rest.model.search.SearchResults;
 import com.sitewhere.rest.model.search.device.DeviceAssignmentSearchCriteria;
 import com.sitewhere.rest.model.search.device.DeviceSearchCriteria;
+import com.sitewhere.shared.grpc.DeviceBulkClient;
+import com.sitewhere.shared.grpc.DeviceLookupClient;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.device.IDevice;
@@ -83,6 +88,9 @@ import com.sitewhere.spi.error.ErrorLevel;
 import com.sitewhere.spi.label.ILabel;
 import com.sitewhere.spi.search.ISearchResults;
 import com.sitewhere.spi.search.device.IDeviceSearchCriteria;
+import com.sitewhere.web.rest.model.DeviceBulkCreateRequest;
+import com.sitewhere.web.rest.model.DeviceQueryRequest;
+import com.sitewhere.web.rest.view.LabelSheetBuilder;
 
 import io.swagger.annotations.Api;
 
@@ -122,6 +130,29 @@ public class Devices {
 	return Response.ok(helper.convert(result, getAssetManagement())).build();
     }
 
+    /**
+     * Create or update devices (with optional assignments) in bulk. Mode
+     * 'create' rejects tokens that already exist, 'update' rejects tokens that
+     * do not exist and 'upsert' (the default) accepts both. Entries that fail
+     * are reported individually and do not prevent other entries from being
+     * stored.
+     * 
+     * @param request
+     * @param includeResults
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/bulk")
+    @Operation(summary = "Create or update devices in bulk", description = "Create or update many devices and their assignments in one call")
+    public Response bulkProvisionDevices(@RequestBody DeviceBulkCreateRequest request,
+	    @Parameter(description = "Include results for successful entries", required = false) @QueryParam("includeResults") @DefaultValue("false") boolean includeResults)
+	    throws SiteWhereException {
+	String mode = parseBulkMode(request.getMode());
+	List<?> entries = (request.getEntries() != null) ? request.getEntries() : Collections.emptyList();
+	return Response.ok(getDeviceBulk().bulkProvisionDevices(mode, entries, includeResults)).build();
+    }
+
     /**
      * Get device by unique token.
      * 
@@ -194,6 +225,50 @@ public class Devices {
 	return Response.ok(label.getContent()).build();
     }
 
+    /**
+     * Get a sheet with labels for a list of devices based on a specific
+     * generator. Devices are resolved with a single batch lookup.
+     * 
+     * @param generatorId
+     * @param format
+     * @param columns
+     * @param rows
+     * @param page
+     * @param deviceTokens
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/labels/{generatorId}")
+    @Produces({ "application/pdf", "image/png" })
+    @Operation(summary = "Get label sheet for devices", description = "Get label sheet for a list of devices")
+    public Response getDeviceLabelSheet(
+	    @Parameter(description = "Generator id", required = true) @PathParam("generatorId") String generatorId,
+	    @Parameter(description = "Output format (pdf or png)", required = false) @QueryParam("format") @DefaultValue("pdf") String format,
+	    @Parameter(description = "Labels per row", required = false) @QueryParam("columns") @DefaultValue("4") int columns,
+	    @Parameter(description = "Rows per page", required = false) @QueryParam("rows") @DefaultValue("6") int rows,
+	    @Parameter(description = "Page rendered for png output", required = false) @QueryParam("page") @DefaultValue("1") int page,
+	    @RequestBody List<String> deviceTokens) throws SiteWhereException {
+	if (deviceTokens.size() > LabelSheetBuilder.MAX_LABELS) {
+	    return LabelSheetBuilder.buildLimitResponse(deviceTokens.size());
+	}
+	Map<String, JsonNode> devices = new DeviceLookupClient(getMicroservice().getDeviceManagementApiChannel())
+		.getByTokens(DeviceLookupClient.EntityType.Device, deviceTokens);
+	LabelSheetBuilder sheet = new LabelSheetBuilder(columns, rows);
+	for (String deviceToken : deviceTokens) {
+	    JsonNode device = devices.get(deviceToken);
+	    if (device == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidDeviceToken, ErrorLevel.ERROR);
+	    }
+	    UUID deviceId = UUID.fromString(device.path("id").asText());
+	    sheet.add(() -> {
+		ILabel label = getLabelGeneration().getDeviceLabel(generatorId, deviceId);
+		return (label != null) ? new LabelSheetBuilder.SheetLabel(deviceToken, label.getContent()) : null;
+	    });
+	}
+	return sheet.buildResponse(format, page);
+    }
+
     /**
      * Delete device identified by token.
      * 
@@ -417,6 +492,22 @@ public class Devices {
 	return Response.ok(new SearchResults<DeviceSummary>(converted, results.getNumResults())).build();
     }
 
+    /**
+     * Search devices using indexed text, metadata, area, customer and assignment
+     * criteria. Results are returned one keyset page at a time. The created date
+     * and id of the last device are passed back to get the next page.
+     * 
+     * @param query
+     * @return
+     * @throws SiteWhereException
+     */
+    @POST
+    @Path("/query")
+    @Operation(summary = "Indexed device search", description = "Search devices by text, metadata, type, area, customer, status and assignment state")
+    public Response queryDevices(@RequestBody DeviceQueryRequest query) throws SiteWhereException {
+	return Response.ok(getDeviceSearch().searchDevices(query)).build();
+    }
+
     /**
      * List devices assigned to a group.
      * 
@@ -575,6 +666,24 @@ public class Devices {
 	return result;
     }
 
+    /**
+     * Convert bulk mode from request to the value expected by device management.
+     * 
+     * @param mode
+     * @return
+     * @throws SiteWhereException
+     */
+    protected String parseBulkMode(String mode) throws SiteWhereException {
+	if (mode == null || "upsert".equalsIgnoreCase(mode)) {
+	    return "Upsert";
+	} else if ("create".equalsIgnoreCase(mode)) {
+	    return "Create";
+	} else if ("update".equalsIgnoreCase(mode)) {
+	    return "Update";
+	}
+	throw new SiteWhereException("Unsupported bulk mode: " + mode);
+    }
+
     /**
      * Gets a device assignment by token and throws an exception if not found.
      * 
@@ -609,6 +718,14 @@ public class Devices {
 	return getMicroservice().getDeviceManagement();
     }
 
+    protected DeviceBulkClient getDeviceBulk() {
+	return new DeviceBulkClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
+    protected DeviceSearchClient getDeviceSearch() {
+	return new DeviceSearchClient(getMicroservice().getDeviceManagementApiChannel());
+    }
+
     protected IDeviceEventManagement getDeviceEventManagement() {
 	return getMicroservice().getDeviceEventManagementApiChannel();
     }
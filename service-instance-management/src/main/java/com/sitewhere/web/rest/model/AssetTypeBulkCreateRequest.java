@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.web.rest.model;
+
+import java.util.List;
+
+import com.sitewhere.rest.model.asset.request.AssetTypeCreateRequest;
+
+/**
+ * Request to create or update many asset types in one call.
+ */
+public class AssetTypeBulkCreateRequest {
+
+    /** Bulk mode ('create', 'update' or 'upsert') */
+    private String mode;
+
+    /** Asset types to create or update */
+    private List<AssetTypeCreateRequest> entries;
+
+    public String getMode() {
+	return mode;
+    }
+
+    public void setMode(String mode) {
+	this.mode = mode;
+    }
+
+    public List<AssetTypeCreateRequest> getEntries() {
+	return entries;
+    }
+
+    public void setEntries(List<AssetTypeCreateRequest> entries) {
+	this.entries = entries;
+    }
+}
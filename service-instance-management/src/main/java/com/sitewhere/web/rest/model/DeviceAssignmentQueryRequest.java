@@ -0,0 +1,137 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.web.rest.model;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Indexed search for device assignments. All criteria that are set must match.
+ * Area and customer filters include areas and customers nested below the one
+ * given.
+ */
+public class DeviceAssignmentQueryRequest {
+
+    /** Text contained in assignment or device token (case-insensitive) */
+    private String text;
+
+    /** Metadata entries that must be present (null value matches any value) */
+    private Map<String, String> metadata;
+
+    /** Device type token */
+    private String deviceTypeToken;
+
+    /** Area token */
+    private String areaToken;
+
+    /** Customer token */
+    private String customerToken;
+
+    /** Assignment status */
+    private String status;
+
+    /** Created date of last assignment on previous page */
+    private Date afterCreatedDate;
+
+    /** Id of last assignment on previous page */
+    private String afterAssignmentId;
+
+    /** Maximum number of assignments returned */
+    private int pageSize;
+
+    /** Indicates whether metadata is returned */
+    private boolean includeMetadata;
+
+    public String getText() {
+	return text;
+    }
+
+    public void setText(String text) {
+	this.text = text;
+    }
+
+    public Map<String, String> getMetadata() {
+	return metadata;
+    }
+
+    public void setMetadata(Map<String, String> metadata) {
+	this.metadata = metadata;
+    }
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+
+    public String getAreaToken() {
+	return areaToken;
+    }
+
+    public void setAreaToken(String areaToken) {
+	this.areaToken = areaToken;
+    }
+
+    public String getCustomerToken() {
+	return customerToken;
+    }
+
+    public void setCustomerToken(String customerToken) {
+	this.customerToken = customerToken;
+    }
+
+    public String getStatus() {
+	return status;
+    }
+
+    public void setStatus(String status) {
+	this.status = status;
+    }
+
+    public Date getAfterCreatedDate() {
+	return afterCreatedDate;
+    }
+
+    public void setAfterCreatedDate(Date afterCreatedDate) {
+	this.afterCreatedDate = afterCreatedDate;
+    }
+
+    public String getAfterAssignmentId() {
+	return afterAssignmentId;
+    }
+
+    public void setAfterAssignmentId(String afterAssignmentId) {
+	this.afterAssignmentId = afterAssignmentId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public boolean isIncludeMetadata() {
+	return includeMetadata;
+    }
+
+    public void setIncludeMetadata(boolean includeMetadata) {
+	this.includeMetadata = includeMetadata;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.web.rest.model;
+
+import java.util.Date;
+
+/**
+ * Query for a page of device assignment summaries. All criteria that are set
+ * must match. Area and customer filters include areas and customers nested
+ * below the one given.
+ */
+public class DeviceAssignmentSummaryQueryRequest {
+
+    /** Device type token */
+    private String deviceTypeToken;
+
+    /** Area token */
+    private String areaToken;
+
+    /** Customer token */
+    private String customerToken;
+
+    /** Assignment status */
+    private String status;
+
+    /** Indicates whether only assignments with open alarms are returned */
+    private boolean openAlarmsOnly;
+
+    /** Created date of last assignment on previous page */
+    private Date afterCreatedDate;
+
+    /** Id of last assignment on previous page */
+    private String afterAssignmentId;
+
+    /** Maximum number of assignments returned */
+    private int pageSize;
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+
+    public String getAreaToken() {
+	return areaToken;
+    }
+
+    public void setAreaToken(String areaToken) {
+	this.areaToken = areaToken;
+    }
+
+    public String getCustomerToken() {
+	return customerToken;
+    }
+
+    public void setCustomerToken(String customerToken) {
+	this.customerToken = customerToken;
+    }
+
+    public String getStatus() {
+	return status;
+    }
+
+    public void setStatus(String status) {
+	this.status = status;
+    }
+
+    public boolean isOpenAlarmsOnly() {
+	return openAlarmsOnly;
+    }
+
+    public void setOpenAlarmsOnly(boolean openAlarmsOnly) {
+	this.openAlarmsOnly = openAlarmsOnly;
+    }
+
+    public Date getAfterCreatedDate() {
+	return afterCreatedDate;
+    }
+
+    public void setAfterCreatedDate(Date afterCreatedDate) {
+	this.afterCreatedDate = afterCreatedDate;
+    }
+
+    public String getAfterAssignmentId() {
+	return afterAssignmentId;
+    }
+
+    public void setAfterAssignmentId(String afterAssignmentId) {
+	this.afterAssignmentId = afterAssignmentId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+}
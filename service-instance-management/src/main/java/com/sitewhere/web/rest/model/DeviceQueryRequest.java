@@ -0,0 +1,148 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.web.rest.model;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Indexed search for devices. All criteria that are set must match. Area and
+ * customer filters match devices actively assigned in the area or customer or
+ * below it.
+ */
+public class DeviceQueryRequest {
+
+    /** Text contained in token or comments (case-insensitive) */
+    private String text;
+
+    /** Metadata entries that must be present (null value matches any value) */
+    private Map<String, String> metadata;
+
+    /** Device type token */
+    private String deviceTypeToken;
+
+    /** Device status */
+    private String status;
+
+    /** Area token */
+    private String areaToken;
+
+    /** Customer token */
+    private String customerToken;
+
+    /** Assignment state ('Assigned' or 'Unassigned') */
+    private String assignmentState;
+
+    /** Created date of last device on previous page */
+    private Date afterCreatedDate;
+
+    /** Id of last device on previous page */
+    private String afterDeviceId;
+
+    /** Maximum number of devices returned */
+    private int pageSize;
+
+    /** Indicates whether metadata is returned */
+    private boolean includeMetadata;
+
+    public String getText() {
+	return text;
+    }
+
+    public void setText(String text) {
+	this.text = text;
+    }
+
+    public Map<String, String> getMetadata() {
+	return metadata;
+    }
+
+    public void setMetadata(Map<String, String> metadata) {
+	this.metadata = metadata;
+    }
+
+    public String getDeviceTypeToken() {
+	return deviceTypeToken;
+    }
+
+    public void setDeviceTypeToken(String deviceTypeToken) {
+	this.deviceTypeToken = deviceTypeToken;
+    }
+
+    public String getStatus() {
+	return status;
+    }
+
+    public void setStatus(String status) {
+	this.status = status;
+    }
+
+    public String getAreaToken() {
+	return areaToken;
+    }
+
+    public void setAreaToken(String areaToken) {
+	this.areaToken = areaToken;
+    }
+
+    public String getCustomerToken() {
+	return customerToken;
+    }
+
+    public void setCustomerToken(String customerToken) {
+	this.customerToken = customerToken;
+    }
+
+    public String getAssignmentState() {
+	return assignmentState;
+    }
+
+    public void setAssignmentState(String assignmentState) {
+	this.assignmentState = assignmentState;
+    }
+
+    public Date getAfterCreatedDate() {
+	return afterCreatedDate;
+    }
+
+    public void setAfterCreatedDate(Date afterCreatedDate) {
+	this.afterCreatedDate = afterCreatedDate;
+    }
+
+    public String getAfterDeviceId() {
+	return afterDeviceId;
+    }
+
+    public void setAfterDeviceId(String afterDeviceId) {
+	this.afterDeviceId = afterDeviceId;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public boolean isIncludeMetadata() {
+	return includeMetadata;
+    }
+
+    public void setIncludeMetadata(boolean includeMetadata) {
+	this.includeMetadata = includeMetadata;
+    }
+}
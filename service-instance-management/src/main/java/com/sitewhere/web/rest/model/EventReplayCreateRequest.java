@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.web.rest.model;
+
+import java.util.List;
+
+/**
+ * Request to republish stored events for a time range to the outbound events
+ * topic.
+ */
+public class EventReplayCreateRequest {
+
+    /** Tokens of assignments to replay (null or empty for all) */
+    private List<String> assignmentTokens;
+
+    /** Start of the range */
+    private String startDate;
+
+    /** End of the range (defaults to now) */
+    private String endDate;
+
+    /** Maximum events published per second (zero for no limit) */
+    private double eventsPerSecond;
+
+    /** Cursor reported by an earlier replay of the same range to resume from */
+    private String cursor;
+
+    /** Ids of outbound connectors that process replayed events (null or empty for all) */
+    private List<String> connectorIds;
+
+    public List<String> getAssignmentTokens() {
+	return assignmentTokens;
+    }
+
+    public void setAssignmentTokens(List<String> assignmentTokens) {
+	this.assignmentTokens = assignmentTokens;
+    }
+
+    public String getStartDate() {
+	return startDate;
+    }
+
+    public void setStartDate(String startDate) {
+	this.startDate = startDate;
+    }
+
+    public String getEndDate() {
+	return endDate;
+    }
+
+    public void setEndDate(String endDate) {
+	this.endDate = endDate;
+    }
+
+    public double getEventsPerSecond() {
+	return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(double eventsPerSecond) {
+	this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public String getCursor() {
+	return cursor;
+    }
+
+    public void setCursor(String cursor) {
+	this.cursor = cursor;
+    }
+
+    public List<String> getConnectorIds() {
+	return connectorIds;
+    }
+
+    public void setConnectorIds(List<String> connectorIds) {
+	this.connectorIds = connectorIds;
+    }
+}
@@ -0,0 +1,405 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.web.rest.view;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.sitewhere.microservice.security.SiteWhereAuthentication;
+import com.sitewhere.microservice.security.UserContext;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.web.ISiteWhereWebConstants;
+import com.sitewhere.web.rest.exceptions.ExceptionDetail;
+
+/**
+ * Renders labels for many entities onto a sheet laid out as pages with a grid
+ * of labels and a caption under each label. Labels are loaded one page at a
+ * time in parallel on a bounded pool, so only a single page is held in memory.
+ * PDF output streams every page into one document. PNG output renders a
+ * single page, selected by page number, with the page count returned in a
+ * response header.
+ */
+public class LabelSheetBuilder {
+
+    /** Format for multi-page PDF output */
+    public static final String FORMAT_PDF = "pdf";
+
+    /** Format for single image output */
+    public static final String FORMAT_PNG = "png";
+
+    /** Response header containing number of pages in the sheet */
+    public static final String HEADER_PAGE_COUNT = "X-SiteWhere-Label-Pages";
+
+    /** Maximum number of labels on a sheet */
+    public static final int MAX_LABELS = 10000;
+
+    /** Maximum number of labels on a page */
+    public static final int MAX_LABELS_PER_PAGE = 200;
+
+    /** Maximum number of threads used to load labels */
+    private static final int MAX_THREADS = 8;
+
+    /** Padding around each cell in pixels */
+    private static final int PADDING = 16;
+
+    /** Height reserved for caption in pixels */
+    private static final int CAPTION_HEIGHT = 20;
+
+    /** Resolution used to size PDF pages */
+    private static final int DPI = 150;
+
+    /** Number of label columns per page */
+    private int columns;
+
+    /** Number of label rows per page */
+    private int rows;
+
+    /** Sources for labels in sheet order */
+    private List<ILabelSource> sources = new ArrayList<>();
+
+    public LabelSheetBuilder(int columns, int rows) {
+	this.columns = Math.max(1, Math.min(columns, MAX_LABELS_PER_PAGE));
+	this.rows = Math.max(1, Math.min(rows, MAX_LABELS_PER_PAGE / this.columns));
+    }
+
+    /**
+     * Loads content and caption for a single label.
+     */
+    @FunctionalInterface
+    public static interface ILabelSource {
+
+	/**
+	 * Load label (null if no label is available).
+	 * 
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public SheetLabel load() throws SiteWhereException;
+    }
+
+    /**
+     * Label content and caption.
+     */
+    public static class SheetLabel {
+
+	/** Caption shown under label */
+	private String caption;
+
+	/** Label image content */
+	private byte[] content;
+
+	public SheetLabel(String caption, byte[] content) {
+	    this.caption = caption;
+	    this.content = content;
+	}
+
+	public String getCaption() {
+	    return caption;
+	}
+
+	public byte[] getContent() {
+	    return content;
+	}
+    }
+
+    /**
+     * Add a label to the sheet.
+     * 
+     * @param source
+     * @return
+     */
+    public LabelSheetBuilder add(ILabelSource source) {
+	sources.add(source);
+	return this;
+    }
+
+    /**
+     * Get number of labels added to the sheet.
+     * 
+     * @return
+     */
+    public int size() {
+	return sources.size();
+    }
+
+    /**
+     * Get number of pages in the sheet.
+     * 
+     * @return
+     */
+    public int getPageCount() {
+	int perPage = columns * rows;
+	return Math.max(1, (sources.size() + perPage - 1) / perPage);
+    }
+
+    /**
+     * Build a response that streams the sheet in the given format. Requests run
+     * with the authentication of the calling thread.
+     * 
+     * @param format
+     * @param page
+     *            page rendered for PNG output (starting at 1)
+     * @return
+     */
+    public Response buildResponse(String format, int page) {
+	if (sources.size() > MAX_LABELS) {
+	    return buildLimitResponse(sources.size());
+	}
+	SiteWhereAuthentication auth = UserContext.getCurrentUser();
+	StreamingOutput output;
+	if (FORMAT_PNG.equalsIgnoreCase(format)) {
+	    if (page < 1 || page > getPageCount()) {
+		return buildErrorResponse(
+			String.format("Label sheet page %d is not between 1 and %d.", page, getPageCount()));
+	    }
+	    output = (OutputStream out) -> writePng(auth, page - 1, out);
+	} else {
+	    output = (OutputStream out) -> writePdf(auth, out);
+	}
+	return Response.ok(output, getContentType(format)).header(HEADER_PAGE_COUNT, getPageCount()).build();
+    }
+
+    /**
+     * Build response for a sheet with too many labels.
+     * 
+     * @param requested
+     * @return
+     */
+    public static Response buildLimitResponse(int requested) {
+	return buildErrorResponse(
+		String.format("Label sheet limited to %d labels (%d requested).", MAX_LABELS, requested));
+    }
+
+    /**
+     * Build a bad request response with an error message.
+     * 
+     * @param message
+     * @return
+     */
+    protected static Response buildErrorResponse(String message) {
+	ExceptionDetail detail = new ExceptionDetail();
+	detail.setMessage(message);
+	return Response.status(Status.BAD_REQUEST).type(MediaType.APPLICATION_JSON).entity(detail)
+		.header(ISiteWhereWebConstants.HEADER_SITEWHERE_ERROR, message).build();
+    }
+
+    /**
+     * Get content type for sheets rendered in the given format.
+     * 
+     * @param format
+     * @return
+     */
+    public static String getContentType(String format) {
+	return FORMAT_PNG.equalsIgnoreCase(format) ? "image/png" : "application/pdf";
+    }
+
+    /**
+     * Write all pages as a PDF document.
+     * 
+     * @param auth
+     * @param out
+     * @throws IOException
+     */
+    public void writePdf(SiteWhereAuthentication auth, OutputStream out) throws IOException {
+	ExecutorService executor = createExecutor();
+	try {
+	    PdfImageWriter writer = new PdfImageWriter(out, DPI);
+	    for (int page = 0; page < getPageCount(); page++) {
+		writer.addPage(layout(loadPage(auth, executor, page), columns, rows));
+	    }
+	    writer.finish();
+	} finally {
+	    executor.shutdownNow();
+	}
+    }
+
+    /**
+     * Write a single page as a PNG image. The last page only has as many rows as
+     * needed.
+     * 
+     * @param auth
+     * @param page
+     * @param out
+     * @throws IOException
+     */
+    public void writePng(SiteWhereAuthentication auth, int page, OutputStream out) throws IOException {
+	ExecutorService executor = createExecutor();
+	try {
+	    List<BufferedImage> cells = loadPage(auth, executor, page);
+	    int neededRows = Math.max(1, Math.min(rows, (cells.size() + columns - 1) / columns));
+	    ImageIO.write(layout(cells, columns, neededRows), "png", out);
+	    out.flush();
+	} finally {
+	    executor.shutdownNow();
+	}
+    }
+
+    /**
+     * Create pool used to load labels.
+     * 
+     * @return
+     */
+    protected ExecutorService createExecutor() {
+	return Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_THREADS, Math.min(sources.size(), columns * rows))));
+    }
+
+    /**
+     * Load labels for a page in parallel and render each into a captioned cell
+     * image. Labels that are not available leave an empty cell so that pages
+     * stay aligned with label order.
+     * 
+     * @param auth
+     * @param executor
+     * @param page
+     * @return
+     * @throws IOException
+     */
+    protected List<BufferedImage> loadPage(SiteWhereAuthentication auth, ExecutorService executor, int page)
+	    throws IOException {
+	int perPage = columns * rows;
+	List<ILabelSource> pageSources = sources.subList(Math.min(page * perPage, sources.size()),
+		Math.min((page + 1) * perPage, sources.size()));
+	List<Future<BufferedImage>> futures = new ArrayList<>();
+	for (ILabelSource source : pageSources) {
+	    futures.add(executor.submit(() -> {
+		UserContext.setContext(auth);
+		try {
+		    return toCell(source.load());
+		} finally {
+		    UserContext.setContext(null);
+		}
+	    }));
+	}
+	List<BufferedImage> cells = new ArrayList<>();
+	try {
+	    for (Future<BufferedImage> future : futures) {
+		cells.add(future.get());
+	    }
+	    return cells;
+	} catch (ExecutionException e) {
+	    throw new IOException("Unable to load label.", e.getCause());
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new IOException("Interrupted while loading labels.", e);
+	}
+    }
+
+    /**
+     * Decode label content and draw it with its caption.
+     * 
+     * @param label
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static BufferedImage toCell(SheetLabel label) throws SiteWhereException {
+	if (label == null || label.getContent() == null) {
+	    return null;
+	}
+	BufferedImage image;
+	try {
+	    image = ImageIO.read(new ByteArrayInputStream(label.getContent()));
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to decode label image.", e);
+	}
+	if (image == null) {
+	    throw new SiteWhereException("Label content is not a supported image format.");
+	}
+	BufferedImage cell = new BufferedImage(image.getWidth(), image.getHeight() + CAPTION_HEIGHT,
+		BufferedImage.TYPE_INT_RGB);
+	Graphics2D g = cell.createGraphics();
+	try {
+	    g.setColor(Color.WHITE);
+	    g.fillRect(0, 0, cell.getWidth(), cell.getHeight());
+	    g.drawImage(image, 0, 0, null);
+	    if (label.getCaption() != null) {
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setColor(Color.BLACK);
+		g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+		FontMetrics metrics = g.getFontMetrics();
+		String caption = label.getCaption();
+		while (caption.length() > 1 && metrics.stringWidth(caption) > cell.getWidth()) {
+		    caption = caption.substring(0, caption.length() - 1);
+		}
+		int x = Math.max(0, (cell.getWidth() - metrics.stringWidth(caption)) / 2);
+		g.drawString(caption, x, image.getHeight() + metrics.getAscent());
+	    }
+	} finally {
+	    g.dispose();
+	}
+	return cell;
+    }
+
+    /**
+     * Lay out cells in a grid sized to the largest cell. Null cells are left
+     * empty.
+     * 
+     * @param cells
+     * @param gridColumns
+     * @param gridRows
+     * @return
+     */
+    protected static BufferedImage layout(List<BufferedImage> cells, int gridColumns, int gridRows) {
+	int cellWidth = 1;
+	int cellHeight = 1;
+	for (BufferedImage cell : cells) {
+	    if (cell == null) {
+		continue;
+	    }
+	    cellWidth = Math.max(cellWidth, cell.getWidth());
+	    cellHeight = Math.max(cellHeight, cell.getHeight());
+	}
+	cellWidth += 2 * PADDING;
+	cellHeight += 2 * PADDING;
+	BufferedImage sheet = new BufferedImage(cellWidth * gridColumns, cellHeight * gridRows,
+		BufferedImage.TYPE_INT_RGB);
+	Graphics2D g = sheet.createGraphics();
+	try {
+	    g.setColor(Color.WHITE);
+	    g.fillRect(0, 0, sheet.getWidth(), sheet.getHeight());
+	    for (int i = 0; i < cells.size(); i++) {
+		BufferedImage cell = cells.get(i);
+		if (cell == null) {
+		    continue;
+		}
+		int x = (i % gridColumns) * cellWidth + (cellWidth - cell.getWidth()) / 2;
+		int y = (i / gridColumns) * cellHeight + PADDING;
+		g.drawImage(cell, x, y, null);
+	    }
+	} finally {
+	    g.dispose();
+	}
+	return sheet;
+    }
+}
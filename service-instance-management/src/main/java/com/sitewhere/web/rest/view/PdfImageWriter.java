@@ -0,0 +1,195 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.web.rest.view;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a minimal PDF document containing one full-page image per page.
+ * Images are stored as Flate-compressed RGB so no PDF library is required.
+ * Pages are written to the output as they are added, so only the page being
+ * written is held in memory.
+ */
+public class PdfImageWriter {
+
+    /** Object id of document catalog */
+    private static final int CATALOG_ID = 1;
+
+    /** Object id of page tree */
+    private static final int PAGES_ID = 2;
+
+    /** Output stream */
+    private OutputStream output;
+
+    /** Resolution used to size pages */
+    private int dpi;
+
+    /** Number of bytes written */
+    private long position = 0;
+
+    /** Byte offsets of objects by id for cross-reference table */
+    private Map<Integer, Long> offsets = new TreeMap<>();
+
+    /** Object ids of pages in order */
+    private List<Integer> pageIds = new ArrayList<>();
+
+    /** Next object id to assign */
+    private int nextId = PAGES_ID + 1;
+
+    public PdfImageWriter(OutputStream output, int dpi) throws IOException {
+	this.output = output;
+	this.dpi = dpi;
+	ascii("%PDF-1.4\n%âãÏÓ\n");
+    }
+
+    /**
+     * Write a page containing an image. Each page uses a page, content stream
+     * and image object.
+     * 
+     * @param image
+     * @throws IOException
+     */
+    public void addPage(BufferedImage image) throws IOException {
+	int pageId = nextId;
+	nextId += 3;
+	pageIds.add(pageId);
+	float width = image.getWidth() * 72f / dpi;
+	float height = image.getHeight() * 72f / dpi;
+	object(pageId,
+		String.format(Locale.ROOT,
+			"<< /Type /Page /Parent %d 0 R /MediaBox [0 0 %.2f %.2f] "
+				+ "/Resources << /XObject << /Im0 %d 0 R >> >> /Contents %d 0 R >>",
+			PAGES_ID, width, height, pageId + 2, pageId + 1));
+	byte[] content = String.format(Locale.ROOT, "q %.2f 0 0 %.2f 0 0 cm /Im0 Do Q", width, height)
+		.getBytes(StandardCharsets.US_ASCII);
+	stream(pageId + 1, "", content);
+	stream(pageId + 2, String.format(
+		"/Type /XObject /Subtype /Image /Width %d /Height %d /ColorSpace /DeviceRGB "
+			+ "/BitsPerComponent 8 /Filter /FlateDecode ",
+		image.getWidth(), image.getHeight()), deflate(toRgb(image)));
+	output.flush();
+    }
+
+    /**
+     * Write page tree, catalog and cross-reference table after the last page.
+     * 
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+	StringBuilder kids = new StringBuilder();
+	for (int pageId : pageIds) {
+	    kids.append(pageId).append(" 0 R ");
+	}
+	object(PAGES_ID,
+		String.format("<< /Type /Pages /Kids [%s] /Count %d >>", kids.toString().trim(), pageIds.size()));
+	object(CATALOG_ID, String.format("<< /Type /Catalog /Pages %d 0 R >>", PAGES_ID));
+
+	long xref = position;
+	ascii(String.format("xref\n0 %d\n0000000000 65535 f \n", offsets.size() + 1));
+	for (long offset : offsets.values()) {
+	    ascii(String.format("%010d 00000 n \n", offset));
+	}
+	ascii(String.format("trailer\n<< /Size %d /Root %d 0 R >>\nstartxref\n%d\n%%%%EOF\n", offsets.size() + 1,
+		CATALOG_ID, xref));
+	output.flush();
+    }
+
+    /**
+     * Write a dictionary object.
+     * 
+     * @param id
+     * @param dictionary
+     * @throws IOException
+     */
+    protected void object(int id, String dictionary) throws IOException {
+	offsets.put(id, position);
+	ascii(String.format("%d 0 obj\n%s\nendobj\n", id, dictionary));
+    }
+
+    /**
+     * Write a stream object.
+     * 
+     * @param id
+     * @param entries
+     * @param data
+     * @throws IOException
+     */
+    protected void stream(int id, String entries, byte[] data) throws IOException {
+	offsets.put(id, position);
+	ascii(String.format("%d 0 obj\n<< %s/Length %d >>\nstream\n", id, entries, data.length));
+	write(data);
+	ascii("\nendstream\nendobj\n");
+    }
+
+    protected void ascii(String value) throws IOException {
+	write(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    protected void write(byte[] data) throws IOException {
+	output.write(data, 0, data.length);
+	position += data.length;
+    }
+
+    /**
+     * Extract packed 8-bit RGB samples from an image.
+     * 
+     * @param image
+     * @return
+     */
+    protected static byte[] toRgb(BufferedImage image) {
+	int width = image.getWidth();
+	int height = image.getHeight();
+	byte[] rgb = new byte[width * height * 3];
+	int[] row = new int[width];
+	int index = 0;
+	for (int y = 0; y < height; y++) {
+	    image.getRGB(0, y, width, 1, row, 0, width);
+	    for (int pixel : row) {
+		rgb[index++] = (byte) (pixel >> 16);
+		rgb[index++] = (byte) (pixel >> 8);
+		rgb[index++] = (byte) pixel;
+	    }
+	}
+	return rgb;
+    }
+
+    protected static byte[] deflate(byte[] data) {
+	Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	try {
+	    deflater.setInput(data);
+	    deflater.finish();
+	    ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 8));
+	    byte[] buffer = new byte[64 * 1024];
+	    while (!deflater.finished()) {
+		int count = deflater.deflate(buffer);
+		compressed.write(buffer, 0, count);
+	    }
+	    return compressed.toByteArray();
+	} finally {
+	    deflater.end();
+	}
+    }
+}
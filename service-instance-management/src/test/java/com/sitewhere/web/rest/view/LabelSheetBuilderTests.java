@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.web.rest.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+/**
+ * Test cases for {@link LabelSheetBuilder}.
+ */
+public class LabelSheetBuilderTests {
+
+    /** Size of generated label images */
+    private static final int LABEL_SIZE = 40;
+
+    @Test
+    public void testPageCount() throws Exception {
+	assertEquals(1, createSheet(0, 2, 2).getPageCount());
+	assertEquals(1, createSheet(4, 2, 2).getPageCount());
+	assertEquals(2, createSheet(5, 2, 2).getPageCount());
+    }
+
+    @Test
+    public void testPdfContainsEveryPageWithValidOffsets() throws Exception {
+	LabelSheetBuilder sheet = createSheet(7, 2, 2);
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	sheet.writePdf(null, out);
+	String pdf = new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+
+	Matcher count = Pattern.compile("/Count (\\d+)").matcher(pdf);
+	assertTrue(count.find());
+	assertEquals("2", count.group(1));
+
+	// Every cross-reference entry must point at the start of its object.
+	int xref = Integer.parseInt(pdf.substring(pdf.lastIndexOf("startxref\n") + 10).trim().split("\n")[0]);
+	assertTrue(pdf.startsWith("xref\n", xref));
+	Matcher entries = Pattern.compile("(\\d{10}) 00000 n").matcher(pdf.substring(xref));
+	int id = 1;
+	while (entries.find()) {
+	    int offset = Integer.parseInt(entries.group(1));
+	    assertTrue(pdf.startsWith(id + " 0 obj", offset));
+	    id++;
+	}
+	assertEquals(2 + (2 * 3) + 1, id);
+	assertTrue(pdf.endsWith("%%EOF\n"));
+    }
+
+    @Test
+    public void testPngRendersSinglePage() throws Exception {
+	LabelSheetBuilder sheet = createSheet(5, 2, 2);
+	ByteArrayOutputStream first = new ByteArrayOutputStream();
+	sheet.writePng(null, 0, first);
+	BufferedImage full = ImageIO.read(new ByteArrayInputStream(first.toByteArray()));
+	ByteArrayOutputStream last = new ByteArrayOutputStream();
+	sheet.writePng(null, 1, last);
+	BufferedImage partial = ImageIO.read(new ByteArrayInputStream(last.toByteArray()));
+
+	assertNotNull(full);
+	assertNotNull(partial);
+	assertEquals(full.getWidth(), partial.getWidth());
+	assertEquals(full.getHeight() / 2, partial.getHeight());
+    }
+
+    @Test
+    public void testMissingLabelsLeaveEmptyCells() throws Exception {
+	LabelSheetBuilder sheet = new LabelSheetBuilder(2, 2);
+	sheet.add(() -> null);
+	sheet.add(() -> new LabelSheetBuilder.SheetLabel("label", createLabel()));
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	sheet.writePng(null, 0, out);
+	BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+	assertNotNull(image);
+	assertEquals(0xffffffff, image.getRGB(image.getWidth() / 4, image.getHeight() / 2));
+    }
+
+    /**
+     * Create a sheet with the given number of labels.
+     * 
+     * @param labels
+     * @param columns
+     * @param rows
+     * @return
+     * @throws IOException
+     */
+    protected LabelSheetBuilder createSheet(int labels, int columns, int rows) throws IOException {
+	byte[] content = createLabel();
+	LabelSheetBuilder sheet = new LabelSheetBuilder(columns, rows);
+	for (int i = 0; i < labels; i++) {
+	    String caption = "device-" + i;
+	    sheet.add(() -> new LabelSheetBuilder.SheetLabel(caption, content));
+	}
+	return sheet;
+    }
+
+    /**
+     * Create a solid black label image.
+     * 
+     * @return
+     * @throws IOException
+     */
+    protected byte[] createLabel() throws IOException {
+	BufferedImage image = new BufferedImage(LABEL_SIZE, LABEL_SIZE, BufferedImage.TYPE_INT_RGB);
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	ImageIO.write(image, "png", out);
+	return out.toByteArray();
+    }
+}
@@ -22,4 +22,43 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  */
 @JsonSerialize
 public class LabelGenerationManagerConfiguration {
+
+    /** Default maximum bytes of rendered labels held in memory */
+    public static final long DEFAULT_CACHE_MAX_MEMORY_BYTES = 64 * 1024 * 1024;
+
+    /** Default maximum bytes of rendered labels spilled to disk */
+    public static final long DEFAULT_CACHE_MAX_DISK_BYTES = 1024 * 1024 * 1024;
+
+    /** Maximum bytes of rendered labels held in memory */
+    private long cacheMaxMemoryBytes = DEFAULT_CACHE_MAX_MEMORY_BYTES;
+
+    /** Directory rendered labels are spilled to (null to disable) */
+    private String cacheSpillDirectory;
+
+    /** Maximum bytes of rendered labels spilled to disk */
+    private long cacheMaxDiskBytes = DEFAULT_CACHE_MAX_DISK_BYTES;
+
+    public long getCacheMaxMemoryBytes() {
+	return cacheMaxMemoryBytes;
+    }
+
+    public void setCacheMaxMemoryBytes(long cacheMaxMemoryBytes) {
+	this.cacheMaxMemoryBytes = cacheMaxMemoryBytes;
+    }
+
+    public String getCacheSpillDirectory() {
+	return cacheSpillDirectory;
+    }
+
+    public void setCacheSpillDirectory(String cacheSpillDirectory) {
+	this.cacheSpillDirectory = cacheSpillDirectory;
+    }
+
+    public long getCacheMaxDiskBytes() {
+	return cacheMaxDiskBytes;
+    }
+
+    public void setCacheMaxDiskBytes(long cacheMaxDiskBytes) {
+	this.cacheMaxDiskBytes = cacheMaxDiskBytes;
+    }
 }
@@ -0,0 +1,313 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.labels.manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sitewhere.labels.spi.manager.ILabelCache;
+
+/**
+ * Content-addressed cache for rendered labels. Entries are keyed by a digest
+ * of everything that affects the rendered image, so a label is only rendered
+ * once per entity and generator settings. Memory use is bounded by total image
+ * size with least-recently-used eviction. When a spill directory is configured,
+ * entries evicted from memory are written to disk (also bounded by size) and
+ * promoted back to memory when requested again.
+ */
+public class LabelCache implements ILabelCache {
+
+    /** Static logger instance */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LabelCache.class);
+
+    /** Suffix for files in spill directory */
+    private static final String SPILL_SUFFIX = ".label";
+
+    /** Maximum bytes held in memory */
+    private long maxMemoryBytes;
+
+    /** Directory evicted entries are spilled to (null if disabled) */
+    private File spillDirectory;
+
+    /** Maximum bytes held in spill directory */
+    private long maxDiskBytes;
+
+    /** Entries held in memory in access order */
+    private LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Bytes held in memory */
+    private long memoryBytes;
+
+    /** Sizes of entries held on disk in access order */
+    private LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Bytes held on disk */
+    private long diskBytes;
+
+    public LabelCache(long maxMemoryBytes, File spillDirectory, long maxDiskBytes) {
+	this.maxMemoryBytes = maxMemoryBytes;
+	this.spillDirectory = spillDirectory;
+	this.maxDiskBytes = maxDiskBytes;
+	if (spillDirectory != null) {
+	    loadSpillDirectory();
+	}
+    }
+
+    /**
+     * Build a cache key from the generator id, settings that affect rendering
+     * and entity URI.
+     * 
+     * @param parts
+     * @return
+     */
+    public static String key(Object... parts) {
+	try {
+	    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+	    for (Object part : parts) {
+		digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	    }
+	    StringBuilder hex = new StringBuilder();
+	    for (byte b : digest.digest()) {
+		hex.append(String.format("%02x", b));
+	    }
+	    return hex.toString();
+	} catch (NoSuchAlgorithmException e) {
+	    throw new IllegalStateException("SHA-256 digest not available.", e);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.labels.spi.manager.ILabelCache#get(java.lang.String,
+     * java.util.function.Supplier)
+     */
+    @Override
+    public byte[] get(String key, Supplier<byte[]> renderer) {
+	byte[] content;
+	synchronized (this) {
+	    content = getMemory().get(key);
+	}
+	if (content != null) {
+	    return content;
+	}
+	content = readSpilled(key);
+	if (content == null) {
+	    content = renderer.get();
+	}
+	put(key, content);
+	return content;
+    }
+
+    /**
+     * Add content to the in-memory cache, evicting least recently used entries
+     * as needed.
+     * 
+     * @param key
+     * @param content
+     */
+    protected void put(String key, byte[] content) {
+	if (content.length > getMaxMemoryBytes()) {
+	    spill(key, content);
+	    return;
+	}
+	Map<String, byte[]> evicted = new LinkedHashMap<>();
+	synchronized (this) {
+	    byte[] existing = getMemory().put(key, content);
+	    if (existing != null) {
+		memoryBytes -= existing.length;
+	    }
+	    memoryBytes += content.length;
+	    Iterator<Map.Entry<String, byte[]>> it = getMemory().entrySet().iterator();
+	    while (memoryBytes > getMaxMemoryBytes() && it.hasNext()) {
+		Map.Entry<String, byte[]> eldest = it.next();
+		it.remove();
+		memoryBytes -= eldest.getValue().length;
+		evicted.put(eldest.getKey(), eldest.getValue());
+	    }
+	}
+	for (Map.Entry<String, byte[]> entry : evicted.entrySet()) {
+	    spill(entry.getKey(), entry.getValue());
+	}
+    }
+
+    /**
+     * Write an entry evicted from memory to the spill directory.
+     * 
+     * @param key
+     * @param content
+     */
+    protected void spill(String key, byte[] content) {
+	if (getSpillDirectory() == null || content.length > getMaxDiskBytes()) {
+	    return;
+	}
+	synchronized (this) {
+	    if (getDisk().containsKey(key)) {
+		return;
+	    }
+	}
+	try {
+	    File target = getSpillFile(key);
+	    File temp = new File(getSpillDirectory(), key + ".tmp");
+	    Files.write(temp.toPath(), content);
+	    Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+		    StandardCopyOption.ATOMIC_MOVE);
+	    synchronized (this) {
+		Long existing = getDisk().put(key, (long) content.length);
+		if (existing != null) {
+		    diskBytes -= existing;
+		}
+		diskBytes += content.length;
+		trimDisk();
+	    }
+	} catch (IOException e) {
+	    LOGGER.warn("Unable to spill label to disk.", e);
+	}
+    }
+
+    /**
+     * Read an entry from the spill directory.
+     * 
+     * @param key
+     * @return
+     */
+    protected byte[] readSpilled(String key) {
+	if (getSpillDirectory() == null) {
+	    return null;
+	}
+	synchronized (this) {
+	    if (!getDisk().containsKey(key)) {
+		return null;
+	    }
+	}
+	try {
+	    return Files.readAllBytes(getSpillFile(key).toPath());
+	} catch (IOException e) {
+	    synchronized (this) {
+		Long size = getDisk().remove(key);
+		if (size != null) {
+		    diskBytes -= size;
+		}
+	    }
+	    return null;
+	}
+    }
+
+    /**
+     * Remove least recently used files until disk usage is within bounds. Must
+     * be called while holding the cache lock.
+     */
+    protected void trimDisk() {
+	Iterator<Map.Entry<String, Long>> it = getDisk().entrySet().iterator();
+	while (diskBytes > getMaxDiskBytes() && it.hasNext()) {
+	    Map.Entry<String, Long> eldest = it.next();
+	    it.remove();
+	    diskBytes -= eldest.getValue();
+	    if (!getSpillFile(eldest.getKey()).delete()) {
+		LOGGER.debug(String.format("Unable to delete spilled label '%s'.", eldest.getKey()));
+	    }
+	}
+    }
+
+    /**
+     * Index labels spilled by a previous run. Since keys are content-addressed,
+     * they remain valid across restarts.
+     */
+    protected void loadSpillDirectory() {
+	if (!getSpillDirectory().exists() && !getSpillDirectory().mkdirs()) {
+	    LOGGER.warn(String.format("Unable to create label spill directory '%s'. Disk spill disabled.",
+		    getSpillDirectory().getAbsolutePath()));
+	    this.spillDirectory = null;
+	    return;
+	}
+	File[] files = getSpillDirectory().listFiles((dir, name) -> name.endsWith(SPILL_SUFFIX));
+	if (files == null) {
+	    return;
+	}
+	Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+	synchronized (this) {
+	    for (File file : files) {
+		String key = file.getName().substring(0, file.getName().length() - SPILL_SUFFIX.length());
+		getDisk().put(key, file.length());
+		diskBytes += file.length();
+	    }
+	    trimDisk();
+	}
+	LOGGER.info(String.format("Indexed %d spilled labels (%d bytes).", getDisk().size(), diskBytes));
+    }
+
+    /*
+     * @see com.sitewhere.labels.spi.manager.ILabelCache#clear()
+     */
+    @Override
+    public synchronized void clear() {
+	getMemory().clear();
+	memoryBytes = 0;
+    }
+
+    protected File getSpillFile(String key) {
+	return new File(getSpillDirectory(), key + SPILL_SUFFIX);
+    }
+
+    /*
+     * @see com.sitewhere.labels.spi.manager.ILabelCache#getMemoryBytes()
+     */
+    @Override
+    public synchronized long getMemoryBytes() {
+	return memoryBytes;
+    }
+
+    /*
+     * @see com.sitewhere.labels.spi.manager.ILabelCache#getDiskBytes()
+     */
+    @Override
+    public synchronized long getDiskBytes() {
+	return diskBytes;
+    }
+
+    protected long getMaxMemoryBytes() {
+	return maxMemoryBytes;
+    }
+
+    protected File getSpillDirectory() {
+	return spillDirectory;
+    }
+
+    protected long getMaxDiskBytes() {
+	return maxDiskBytes;
+    }
+
+    protected LinkedHashMap<String, byte[]> getMemory() {
+	return memory;
+    }
+
+    protected LinkedHashMap<String, Long> getDisk() {
+	return disk;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.sitewhere.labels.manager;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -22,7 +23,9 @@ import java.util.Map;
 
 import com.google.inject.Inject;
 import com.sitewhere.labels.configuration.LabelGenerationTenantConfiguration;
+import com.sitewhere.labels.configuration.manager.LabelGenerationManagerConfiguration;
 import com.sitewhere.labels.spi.ILabelGenerator;
+import com.sitewhere.labels.spi.manager.ILabelCache;
 import com.sitewhere.labels.spi.manager.ILabelGeneratorManager;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
@@ -43,6 +46,9 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
     /** Map of label generators by unique id */
     private Map<String, ILabelGenerator> generatorsById = new HashMap<String, ILabelGenerator>();
 
+    /** Cache of rendered labels shared by generators */
+    private ILabelCache labelCache;
+
     @Inject
     public LabelGeneratorManager(LabelGenerationTenantConfiguration configuration) {
 	super(LifecycleComponentType.LabelGeneratorManager);
@@ -55,7 +61,8 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	this.labelGenerators = LabelGeneratorsParser.parse(this, configuration);
+	this.labelCache = createLabelCache();
+	this.labelGenerators = LabelGeneratorsParser.parse(this, configuration, getLabelCache());
 
 	for (ILabelGenerator generator : getLabelGenerators()) {
 	    initializeNestedComponent(generator, monitor, true);
@@ -90,6 +97,23 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
 	}
     }
 
+    /**
+     * Create label cache based on manager configuration. Spilled labels are
+     * kept in a subdirectory per tenant.
+     * 
+     * @return
+     */
+    protected ILabelCache createLabelCache() {
+	LabelGenerationManagerConfiguration manager = configuration.getManager() != null ? configuration.getManager()
+		: new LabelGenerationManagerConfiguration();
+	File spill = null;
+	if (manager.getCacheSpillDirectory() != null) {
+	    spill = new File(manager.getCacheSpillDirectory(),
+		    getTenantEngine().getTenantResource().getMetadata().getName());
+	}
+	return new LabelCache(manager.getCacheMaxMemoryBytes(), spill, manager.getCacheMaxDiskBytes());
+    }
+
     /*
      * @see com.sitewhere.spi.label.ILabelGeneratorManager#getLabelGenerators()
      */
@@ -108,6 +132,15 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
 	return getGeneratorsById().get(id);
     }
 
+    /*
+     * @see
+     * com.sitewhere.labels.spi.manager.ILabelGeneratorManager#getLabelCache()
+     */
+    @Override
+    public ILabelCache getLabelCache() {
+	return labelCache;
+    }
+
     protected Map<String, ILabelGenerator> getGeneratorsById() {
 	return generatorsById;
     }
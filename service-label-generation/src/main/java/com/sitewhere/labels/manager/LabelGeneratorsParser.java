@@ -26,6 +26,7 @@ import com.sitewhere.labels.configuration.manager.LabelGeneratorGenericConfigura
 import com.sitewhere.labels.configuration.qrcode.QrCodeGeneratorConfiguration;
 import com.sitewhere.labels.qrcode.QrCodeGenerator;
 import com.sitewhere.labels.spi.ILabelGenerator;
+import com.sitewhere.labels.spi.manager.ILabelCache;
 import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
@@ -46,16 +47,17 @@ public class LabelGeneratorsParser {
      * 
      * @param component
      * @param configuration
+     * @param cache
      * @return
      * @throws SiteWhereException
      */
     public static List<ILabelGenerator> parse(ITenantEngineLifecycleComponent component,
-	    LabelGenerationTenantConfiguration configuration) throws SiteWhereException {
+	    LabelGenerationTenantConfiguration configuration, ILabelCache cache) throws SiteWhereException {
 	List<ILabelGenerator> generators = new ArrayList<>();
 	for (LabelGeneratorGenericConfiguration genConfig : configuration.getGenerators()) {
 	    switch (genConfig.getType()) {
 	    case TYPE_QRCODE: {
-		generators.add(createQrCodeGenerator(component, genConfig));
+		generators.add(createQrCodeGenerator(component, genConfig, cache));
 		break;
 	    }
 	    default: {
@@ -73,16 +75,17 @@ public class LabelGeneratorsParser {
      * 
      * @param component
      * @param genConfig
+     * @param cache
      * @return
      * @throws SiteWhereException
      */
     protected static QrCodeGenerator createQrCodeGenerator(ITenantEngineLifecycleComponent component,
-	    LabelGeneratorGenericConfiguration genConfig) throws SiteWhereException {
+	    LabelGeneratorGenericConfiguration genConfig, ILabelCache cache) throws SiteWhereException {
 	QrCodeGeneratorConfiguration qrConfig = new QrCodeGeneratorConfiguration(component);
 	qrConfig.apply(genConfig);
 	LOGGER.info(String.format("Creating QR code label generator with configuration:\n%s\n\n",
 		MarshalUtils.marshalJsonAsPrettyString(qrConfig)));
-	QrCodeGenerator generator = new QrCodeGenerator(qrConfig);
+	QrCodeGenerator generator = new QrCodeGenerator(qrConfig, cache);
 	return generator;
     }
 }
@@ -18,8 +18,10 @@ package com.sitewhere.labels.qrcode;
 import java.net.URI;
 
 import com.sitewhere.labels.configuration.qrcode.QrCodeGeneratorConfiguration;
+import com.sitewhere.labels.manager.LabelCache;
 import com.sitewhere.labels.spi.IEntityUriProvider;
 import com.sitewhere.labels.spi.ILabelGenerator;
+import com.sitewhere.labels.spi.manager.ILabelCache;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.area.IArea;
@@ -46,9 +48,13 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     /** Configuration */
     private QrCodeGeneratorConfiguration configuration;
 
-    public QrCodeGenerator(QrCodeGeneratorConfiguration configuration) {
+    /** Cache of rendered labels */
+    private ILabelCache cache;
+
+    public QrCodeGenerator(QrCodeGeneratorConfiguration configuration, ILabelCache cache) {
 	super(LifecycleComponentType.LabelGenerator);
 	this.configuration = configuration;
+	this.cache = cache;
     }
 
     /*
@@ -183,7 +189,33 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
 	return configuration;
     }
 
+    protected ILabelCache getCache() {
+	return cache;
+    }
+
+    /**
+     * Get QR code image for a URI, using a cached rendering if available.
+     * 
+     * @param uri
+     * @return
+     */
     protected byte[] toQrCodeImage(URI uri) {
+	if (getCache() == null) {
+	    return renderQrCodeImage(uri);
+	}
+	String key = LabelCache.key(getConfiguration().getId(), getConfiguration().getWidth(),
+		getConfiguration().getHeight(), getConfiguration().getForegroundColor(),
+		getConfiguration().getBackgroundColor(), uri);
+	return getCache().get(key, () -> renderQrCodeImage(uri));
+    }
+
+    /**
+     * Render QR code image for a URI.
+     * 
+     * @param uri
+     * @return
+     */
+    protected byte[] renderQrCodeImage(URI uri) {
 	return QRCode.from(uri.toString()).withSize(getConfiguration().getWidth(), getConfiguration().getHeight())
 		.withColor(parse(getConfiguration().getForegroundColor()),
 			parse(getConfiguration().getBackgroundColor()))
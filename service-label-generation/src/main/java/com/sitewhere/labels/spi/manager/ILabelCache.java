@@ -0,0 +1,52 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.labels.spi.manager;
+
+import java.util.function.Supplier;
+
+/**
+ * Cache of rendered labels shared by label generators.
+ */
+public interface ILabelCache {
+
+    /**
+     * Get label content for a key, rendering and caching it if not present.
+     * 
+     * @param key
+     * @param renderer
+     * @return
+     */
+    byte[] get(String key, Supplier<byte[]> renderer);
+
+    /**
+     * Remove all entries held in memory.
+     */
+    void clear();
+
+    /**
+     * Get number of bytes held in memory.
+     * 
+     * @return
+     */
+    long getMemoryBytes();
+
+    /**
+     * Get number of bytes held on disk.
+     * 
+     * @return
+     */
+    long getDiskBytes();
+}
@@ -42,4 +42,11 @@ public interface ILabelGeneratorManager extends ITenantEngineLifecycleComponent
      * @throws SiteWhereException
      */
     ILabelGenerator getLabelGenerator(String id) throws SiteWhereException;
+
+    /**
+     * Get cache of rendered labels shared by generators.
+     * 
+     * @return
+     */
+    ILabelCache getLabelCache();
 }
\ No newline at end of file
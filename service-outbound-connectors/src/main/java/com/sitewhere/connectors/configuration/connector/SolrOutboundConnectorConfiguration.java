@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.connectors.configuration.connector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.connectors.solr.SolrIndexingConfiguration;
+import com.sitewhere.solr.SolrConfiguration;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
+
+/**
+ * Configuration for a Solr outbound connector. Indexing settings that are not
+ * configured keep the defaults from {@link SolrIndexingConfiguration}.
+ */
+public class SolrOutboundConnectorConfiguration extends OutboundConnectorConfiguration {
+
+    /** Default Solr server URL */
+    public static final String DEFAULT_SOLR_SERVER_URL = "http://solr:8983/solr/SiteWhere";
+
+    /** Solr connection settings */
+    private SolrConfiguration solrConfiguration;
+
+    /** Indexing settings */
+    private SolrIndexingConfiguration indexingConfiguration;
+
+    public SolrOutboundConnectorConfiguration(ITenantEngineLifecycleComponent component) {
+	super(component);
+    }
+
+    /*
+     * @see com.sitewhere.connectors.configuration.connector.
+     * OutboundConnectorConfiguration#loadFrom(com.fasterxml.jackson.databind.
+     * JsonNode)
+     */
+    @Override
+    public void loadFrom(JsonNode json) throws SiteWhereException {
+	this.solrConfiguration = new SolrConfiguration();
+	getSolrConfiguration().setSolrServerUrl(configurableString("solrServerUrl", json, DEFAULT_SOLR_SERVER_URL));
+
+	SolrIndexingConfiguration defaults = new SolrIndexingConfiguration();
+	this.indexingConfiguration = new SolrIndexingConfiguration();
+	getIndexingConfiguration().setMaxBufferedDocuments(
+		configurableInt("maxBufferedDocuments", json, defaults.getMaxBufferedDocuments()));
+	getIndexingConfiguration()
+		.setMinBatchSize(configurableInt("minBatchSize", json, defaults.getMinBatchSize()));
+	getIndexingConfiguration()
+		.setMaxBatchSize(configurableInt("maxBatchSize", json, defaults.getMaxBatchSize()));
+	getIndexingConfiguration()
+		.setInitialBatchSize(configurableInt("initialBatchSize", json, defaults.getInitialBatchSize()));
+	getIndexingConfiguration()
+		.setTargetLatencyMs(configurableInt("targetLatencyMs", json, defaults.getTargetLatencyMs()));
+	getIndexingConfiguration()
+		.setMaxBatchWaitMs(configurableInt("maxBatchWaitMs", json, defaults.getMaxBatchWaitMs()));
+	getIndexingConfiguration().setMaxConcurrentRequests(
+		configurableInt("maxConcurrentRequests", json, defaults.getMaxConcurrentRequests()));
+	getIndexingConfiguration().setMaxAttempts(configurableInt("maxAttempts", json, defaults.getMaxAttempts()));
+	getIndexingConfiguration()
+		.setCommitWithinMs(configurableInt("commitWithinMs", json, defaults.getCommitWithinMs()));
+	getIndexingConfiguration().setSoftCommitIntervalMs(
+		configurableInt("softCommitIntervalMs", json, defaults.getSoftCommitIntervalMs()));
+    }
+
+    public SolrConfiguration getSolrConfiguration() {
+	return solrConfiguration;
+    }
+
+    public void setSolrConfiguration(SolrConfiguration solrConfiguration) {
+	this.solrConfiguration = solrConfiguration;
+    }
+
+    public SolrIndexingConfiguration getIndexingConfiguration() {
+	return indexingConfiguration;
+    }
+
+    public void setIndexingConfiguration(SolrIndexingConfiguration indexingConfiguration) {
+	this.indexingConfiguration = indexingConfiguration;
+    }
+}
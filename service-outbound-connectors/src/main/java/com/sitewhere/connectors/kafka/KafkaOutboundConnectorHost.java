@@ -38,6 +38,7 @@ import com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer;
 import com.sitewhere.microservice.security.SystemUserRunnable;
 import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.rest.model.device.event.kafka.ProcessedEventPayload;
+import com.sitewhere.shared.event.ReplayedEvents;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.device.event.kafka.IProcessedEventPayload;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
@@ -46,7 +47,8 @@ import com.sitewhere.spi.microservice.lifecycle.LifecycleStatus;
 
 /**
  * Kafka host container that reads from the enriched events topic and forwards
- * the messages to a wrapped outbound connector.
+ * the messages to a wrapped outbound connector. Events republished by a replay
+ * are only forwarded when the replay targets the connector.
  */
 public class KafkaOutboundConnectorHost extends MicroserviceKafkaConsumer {
 
@@ -212,6 +214,9 @@ public class KafkaOutboundConnectorHost extends MicroserviceKafkaConsumer {
 		try {
 		    GProcessedEventPayload grpc = EventModelMarshaler.parseProcessedEventPayloadMessage(record.value());
 		    ProcessedEventPayload payload = EventModelConverter.asApiProcessedEventPayload(grpc);
+		    if (!ReplayedEvents.isDeliveredTo(payload.getEvent(), getOutboundConnector().getConnectorId())) {
+			continue;
+		    }
 		    if (getLogger().isDebugEnabled()) {
 			getLogger().debug("Received enriched event payload:\n\n"
 				+ MarshalUtils.marshalJsonAsPrettyString(payload));
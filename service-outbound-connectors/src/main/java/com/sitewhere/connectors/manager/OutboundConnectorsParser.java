@@ -24,7 +24,9 @@ import org.slf4j.LoggerFactory;
 import com.sitewhere.connectors.configuration.OutboundConnectorGenericConfiguration;
 import com.sitewhere.connectors.configuration.OutboundConnectorsTenantConfiguration;
 import com.sitewhere.connectors.configuration.connector.MqttOutboundConnectorConfiguration;
+import com.sitewhere.connectors.configuration.connector.SolrOutboundConnectorConfiguration;
 import com.sitewhere.connectors.mqtt.MqttOutboundConnector;
+import com.sitewhere.connectors.solr.SolrOutboundConnector;
 import com.sitewhere.connectors.spi.IOutboundConnector;
 import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.spi.SiteWhereException;
@@ -41,6 +43,9 @@ public class OutboundConnectorsParser {
     /** Type for MQTT event source */
     public static final String TYPE_MQTT = "mqtt";
 
+    /** Type for Solr indexing connector */
+    public static final String TYPE_SOLR = "solr";
+
     /**
      * Parse outbound connector configurations in order to build components.
      * 
@@ -58,6 +63,10 @@ public class OutboundConnectorsParser {
 		connectors.add(createMqttOutboundConnector(component, connConfig));
 		break;
 	    }
+	    case TYPE_SOLR: {
+		connectors.add(createSolrOutboundConnector(component, connConfig));
+		break;
+	    }
 	    default: {
 		throw new SiteWhereException(
 			String.format("Unknown outbound connector type '%s' for connector with id '%s'",
@@ -84,4 +93,25 @@ public class OutboundConnectorsParser {
 	MqttOutboundConnector connector = new MqttOutboundConnector(mqttConfig);
 	return connector;
     }
+
+    /**
+     * Create a Solr indexing connector.
+     * 
+     * @param component
+     * @param connConfig
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static IOutboundConnector createSolrOutboundConnector(ITenantEngineLifecycleComponent component,
+	    OutboundConnectorGenericConfiguration connConfig) throws SiteWhereException {
+	SolrOutboundConnectorConfiguration solrConfig = new SolrOutboundConnectorConfiguration(component);
+	solrConfig.apply(connConfig);
+	LOGGER.info(String.format("Creating Solr outbound connector with configuration:\n%s\n\n",
+		MarshalUtils.marshalJsonAsPrettyString(solrConfig)));
+	SolrOutboundConnector connector = new SolrOutboundConnector();
+	connector.setConnectorId(solrConfig.getId());
+	connector.setSolrConfiguration(solrConfig.getSolrConfiguration());
+	connector.setIndexingConfiguration(solrConfig.getIndexingConfiguration());
+	return connector;
+    }
 }
@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.connectors.solr;
+
+/**
+ * Adjusts the number of documents sent per update request based on observed
+ * Solr latency. Size grows gradually while full batches complete under the
+ * target latency and is halved when a request is slow or fails, so batches
+ * track what Solr can currently absorb.
+ */
+public class SolrBatchSizer {
+
+    /** Fraction by which batch size grows after a fast full batch */
+    private static final double GROWTH_FACTOR = 1.25;
+
+    /** Smallest batch size */
+    private int minSize;
+
+    /** Largest batch size */
+    private int maxSize;
+
+    /** Latency size is tuned toward */
+    private long targetLatencyMs;
+
+    /** Current batch size */
+    private int size;
+
+    public SolrBatchSizer(int minSize, int maxSize, int initialSize, long targetLatencyMs) {
+	this.minSize = Math.max(1, minSize);
+	this.maxSize = Math.max(this.minSize, maxSize);
+	this.targetLatencyMs = Math.max(1, targetLatencyMs);
+	this.size = Math.min(this.maxSize, Math.max(this.minSize, initialSize));
+    }
+
+    /**
+     * Record a completed update request.
+     * 
+     * @param batchSize
+     * @param latencyMs
+     */
+    public synchronized void onSuccess(int batchSize, long latencyMs) {
+	if (latencyMs > targetLatencyMs) {
+	    shrink();
+	} else if (batchSize >= size) {
+	    size = Math.min(maxSize, Math.max(size + 1, (int) (size * GROWTH_FACTOR)));
+	}
+    }
+
+    /**
+     * Record a failed update request.
+     */
+    public synchronized void onFailure() {
+	shrink();
+    }
+
+    /**
+     * Halve the batch size.
+     */
+    protected void shrink() {
+	size = Math.max(minSize, size / 2);
+    }
+
+    public synchronized int getSize() {
+	return size;
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.connectors.solr;
+
+/**
+ * Settings that control how the Solr outbound connector sends documents to
+ * Solr.
+ */
+public class SolrIndexingConfiguration {
+
+    /** Default maximum documents held in memory before callers block */
+    private static final int DEFAULT_MAX_BUFFERED_DOCUMENTS = 20000;
+
+    /** Default smallest batch size */
+    private static final int DEFAULT_MIN_BATCH_SIZE = 50;
+
+    /** Default largest batch size */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 5000;
+
+    /** Default batch size used until latency has been observed */
+    private static final int DEFAULT_INITIAL_BATCH_SIZE = 500;
+
+    /** Default update latency batch size is tuned toward */
+    private static final int DEFAULT_TARGET_LATENCY_MS = 250;
+
+    /** Default longest wait to fill a batch */
+    private static final int DEFAULT_MAX_BATCH_WAIT_MS = 500;
+
+    /** Default number of update requests in flight */
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    /** Default number of attempts for a failed batch */
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** Default commit within interval */
+    private static final int DEFAULT_COMMIT_WITHIN_MS = 10000;
+
+    /** Maximum documents held in memory before callers block */
+    private int maxBufferedDocuments = DEFAULT_MAX_BUFFERED_DOCUMENTS;
+
+    /** Smallest batch size */
+    private int minBatchSize = DEFAULT_MIN_BATCH_SIZE;
+
+    /** Largest batch size */
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    /** Batch size used until latency has been observed */
+    private int initialBatchSize = DEFAULT_INITIAL_BATCH_SIZE;
+
+    /** Update latency batch size is tuned toward */
+    private int targetLatencyMs = DEFAULT_TARGET_LATENCY_MS;
+
+    /** Longest wait to fill a batch */
+    private int maxBatchWaitMs = DEFAULT_MAX_BATCH_WAIT_MS;
+
+    /** Number of update requests in flight */
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+    /** Number of attempts for a failed batch */
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    /** Milliseconds within which Solr should make documents visible (0 to skip) */
+    private int commitWithinMs = DEFAULT_COMMIT_WITHIN_MS;
+
+    /** Milliseconds between explicit soft commits (0 to rely on Solr settings) */
+    private int softCommitIntervalMs = 0;
+
+    public int getMaxBufferedDocuments() {
+	return maxBufferedDocuments;
+    }
+
+    public void setMaxBufferedDocuments(int maxBufferedDocuments) {
+	this.maxBufferedDocuments = maxBufferedDocuments;
+    }
+
+    public int getMinBatchSize() {
+	return minBatchSize;
+    }
+
+    public void setMinBatchSize(int minBatchSize) {
+	this.minBatchSize = minBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+	return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+	this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getInitialBatchSize() {
+	return initialBatchSize;
+    }
+
+    public void setInitialBatchSize(int initialBatchSize) {
+	this.initialBatchSize = initialBatchSize;
+    }
+
+    public int getTargetLatencyMs() {
+	return targetLatencyMs;
+    }
+
+    public void setTargetLatencyMs(int targetLatencyMs) {
+	this.targetLatencyMs = targetLatencyMs;
+    }
+
+    public int getMaxBatchWaitMs() {
+	return maxBatchWaitMs;
+    }
+
+    public void setMaxBatchWaitMs(int maxBatchWaitMs) {
+	this.maxBatchWaitMs = maxBatchWaitMs;
+    }
+
+    public int getMaxConcurrentRequests() {
+	return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+	this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public int getMaxAttempts() {
+	return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+	this.maxAttempts = maxAttempts;
+    }
+
+    public int getCommitWithinMs() {
+	return commitWithinMs;
+    }
+
+    public void setCommitWithinMs(int commitWithinMs) {
+	this.commitWithinMs = commitWithinMs;
+    }
+
+    public int getSoftCommitIntervalMs() {
+	return softCommitIntervalMs;
+    }
+
+    public void setSoftCommitIntervalMs(int softCommitIntervalMs) {
+	this.softCommitIntervalMs = softCommitIntervalMs;
+    }
+}
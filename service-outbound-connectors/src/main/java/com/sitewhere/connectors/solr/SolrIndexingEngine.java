@@ -0,0 +1,368 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.connectors.solr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.solr.SolrConnection;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+
+/**
+ * Sends documents to Solr in batches from a bounded in-memory queue. Callers
+ * block once the queue is full, which pushes back on the connector host
+ * rather than growing memory. A dispatcher thread forms batches sized by a
+ * {@link SolrBatchSizer} and hands them to a pool of senders, limiting the
+ * number of update requests in flight. Failed batches are retried with a
+ * smaller size before being dropped.
+ */
+public class SolrIndexingEngine extends TenantEngineLifecycleComponent {
+
+    /** Counter for documents indexed */
+    private static final Counter DOCUMENTS_INDEXED = TenantEngineLifecycleComponent
+	    .createCounterMetric("solr_indexed_document_count", "Count of documents indexed in Solr");
+
+    /** Counter for documents that could not be indexed */
+    private static final Counter DOCUMENTS_FAILED = TenantEngineLifecycleComponent
+	    .createCounterMetric("solr_failed_document_count", "Count of documents that could not be indexed in Solr");
+
+    /** Histogram for update request latency */
+    private static final Histogram UPDATE_TIMER = TenantEngineLifecycleComponent
+	    .createHistogramMetric("solr_update_timer", "Timer for Solr update requests");
+
+    /** Delay before retrying a failed batch */
+    private static final long RETRY_DELAY_MS = 1000;
+
+    /** Time allowed for in-flight requests to complete on stop */
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    /** Indexing settings */
+    private SolrIndexingConfiguration configuration;
+
+    /** Connection to Solr */
+    private SolrConnection connection;
+
+    /** Documents waiting to be sent */
+    private BlockingQueue<SolrInputDocument> queue;
+
+    /** Tunes batch size from observed latency */
+    private SolrBatchSizer sizer;
+
+    /** Limits update requests in flight */
+    private Semaphore inFlight;
+
+    /** Forms batches from queued documents */
+    private ExecutorService dispatcher;
+
+    /** Sends batches to Solr */
+    private ExecutorService senders;
+
+    /** Issues explicit soft commits */
+    private ScheduledExecutorService committer;
+
+    /** Indicates engine is accepting documents */
+    private volatile boolean running = false;
+
+    public SolrIndexingEngine(SolrIndexingConfiguration configuration, SolrConnection connection) {
+	super(LifecycleComponentType.Other);
+	this.configuration = (configuration != null) ? configuration : new SolrIndexingConfiguration();
+	this.connection = connection;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	int concurrency = Math.max(1, getConfiguration().getMaxConcurrentRequests());
+	this.queue = new LinkedBlockingQueue<>(Math.max(1, getConfiguration().getMaxBufferedDocuments()));
+	this.sizer = new SolrBatchSizer(getConfiguration().getMinBatchSize(), getConfiguration().getMaxBatchSize(),
+		getConfiguration().getInitialBatchSize(), getConfiguration().getTargetLatencyMs());
+	this.inFlight = new Semaphore(concurrency);
+	this.senders = Executors.newFixedThreadPool(concurrency, new IndexingThreadFactory("Solr Indexer"));
+	this.dispatcher = Executors.newSingleThreadExecutor(new IndexingThreadFactory("Solr Dispatcher"));
+	this.running = true;
+	getDispatcher().execute(() -> dispatch());
+	if (getConfiguration().getSoftCommitIntervalMs() > 0) {
+	    long interval = getConfiguration().getSoftCommitIntervalMs();
+	    this.committer = Executors.newSingleThreadScheduledExecutor(new IndexingThreadFactory("Solr Committer"));
+	    committer.scheduleWithFixedDelay(() -> softCommit(), interval, interval, TimeUnit.MILLISECONDS);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	this.running = false;
+	try {
+	    if (getDispatcher() != null) {
+		getDispatcher().shutdown();
+		getDispatcher().awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+	    }
+	    if (getSenders() != null) {
+		getSenders().shutdown();
+		getSenders().awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+	if (committer != null) {
+	    committer.shutdownNow();
+	}
+	if (getQueue() != null && !getQueue().isEmpty()) {
+	    getLogger().warn(String.format("Discarded %d documents not indexed before shutdown.", getQueue().size()));
+	    DOCUMENTS_FAILED.labels(buildLabels()).inc(getQueue().size());
+	    getQueue().clear();
+	}
+    }
+
+    /**
+     * Queue a document for indexing, blocking while the queue is full.
+     * 
+     * @param document
+     * @throws SiteWhereException
+     */
+    public void index(SolrInputDocument document) throws SiteWhereException {
+	if (!running) {
+	    throw new SiteWhereException("Solr indexing engine is not running.");
+	}
+	try {
+	    getQueue().put(document);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted during indexing.", e);
+	}
+    }
+
+    /**
+     * Form batches from queued documents until stopped and the queue is empty.
+     */
+    protected void dispatch() {
+	getLogger().info("Started Solr indexing dispatcher.");
+	while (running || !getQueue().isEmpty()) {
+	    try {
+		List<SolrInputDocument> batch = nextBatch(getSizer().getSize());
+		if (batch.isEmpty()) {
+		    continue;
+		}
+		getInFlight().acquire();
+		try {
+		    getSenders().execute(() -> {
+			try {
+			    send(batch);
+			} finally {
+			    getInFlight().release();
+			}
+		    });
+		} catch (Throwable t) {
+		    getInFlight().release();
+		    throw t;
+		}
+	    } catch (InterruptedException e) {
+		getLogger().warn("Solr indexing dispatcher interrupted.");
+		return;
+	    } catch (Throwable t) {
+		getLogger().error("Unhandled exception dispatching Solr documents.", t);
+	    }
+	}
+    }
+
+    /**
+     * Wait for up to the configured time to fill a batch.
+     * 
+     * @param size
+     * @return
+     * @throws InterruptedException
+     */
+    protected List<SolrInputDocument> nextBatch(int size) throws InterruptedException {
+	List<SolrInputDocument> batch = new ArrayList<>(size);
+	long deadline = System.currentTimeMillis() + Math.max(1, getConfiguration().getMaxBatchWaitMs());
+	while (batch.size() < size) {
+	    if (getQueue().drainTo(batch, size - batch.size()) > 0) {
+		continue;
+	    }
+	    long remaining = deadline - System.currentTimeMillis();
+	    if (remaining <= 0 || !running) {
+		break;
+	    }
+	    SolrInputDocument document = getQueue().poll(remaining, TimeUnit.MILLISECONDS);
+	    if (document != null) {
+		batch.add(document);
+	    }
+	}
+	return batch;
+    }
+
+    /**
+     * Send a batch, splitting and retrying on failure.
+     * 
+     * @param batch
+     */
+    protected void send(List<SolrInputDocument> batch) {
+	int attempt = 0;
+	List<SolrInputDocument> remaining = batch;
+	while (!remaining.isEmpty()) {
+	    // Retries use the reduced batch size.
+	    int size = (attempt == 0) ? remaining.size() : Math.min(remaining.size(), getSizer().getSize());
+	    List<SolrInputDocument> chunk = remaining.subList(0, size);
+	    if (sendChunk(chunk)) {
+		remaining = remaining.subList(size, remaining.size());
+		attempt = 0;
+		continue;
+	    }
+	    if (++attempt >= Math.max(1, getConfiguration().getMaxAttempts())) {
+		getLogger().error(String.format("Dropping %d documents after %d failed attempts to index them.",
+			chunk.size(), attempt));
+		DOCUMENTS_FAILED.labels(buildLabels()).inc(chunk.size());
+		remaining = remaining.subList(size, remaining.size());
+		attempt = 0;
+		continue;
+	    }
+	    try {
+		Thread.sleep(RETRY_DELAY_MS * attempt);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		DOCUMENTS_FAILED.labels(buildLabels()).inc(remaining.size());
+		return;
+	    }
+	}
+    }
+
+    /**
+     * Send a single update request and record its latency.
+     * 
+     * @param chunk
+     * @return true if successful
+     */
+    protected boolean sendChunk(List<SolrInputDocument> chunk) {
+	long start = System.currentTimeMillis();
+	Histogram.Timer timer = UPDATE_TIMER.labels(buildLabels()).startTimer();
+	try {
+	    int commitWithin = getConfiguration().getCommitWithinMs();
+	    UpdateResponse response = (commitWithin > 0)
+		    ? getConnection().getSolrClient().add(new ArrayList<>(chunk), commitWithin)
+		    : getConnection().getSolrClient().add(new ArrayList<>(chunk));
+	    if (response.getStatus() != 0) {
+		getLogger().warn("Bad response code indexing documents: " + response.getStatus());
+		getSizer().onFailure();
+		return false;
+	    }
+	    getSizer().onSuccess(chunk.size(), System.currentTimeMillis() - start);
+	    DOCUMENTS_INDEXED.labels(buildLabels()).inc(chunk.size());
+	    getLogger().debug(String.format("Indexed %d documents in Solr (batch size now %d).", chunk.size(),
+		    getSizer().getSize()));
+	    return true;
+	} catch (Throwable t) {
+	    getLogger().warn(String.format("Unable to index %d documents in Solr.", chunk.size()), t);
+	    getSizer().onFailure();
+	    return false;
+	} finally {
+	    timer.observeDuration();
+	}
+    }
+
+    /**
+     * Issue a soft commit so indexed documents become searchable.
+     */
+    protected void softCommit() {
+	try {
+	    getConnection().getSolrClient().commit(false, false, true);
+	} catch (Throwable t) {
+	    getLogger().warn("Unable to issue Solr soft commit.", t);
+	}
+    }
+
+    /**
+     * Get number of documents waiting to be sent.
+     * 
+     * @return
+     */
+    public int getQueuedDocumentCount() {
+	return (getQueue() != null) ? getQueue().size() : 0;
+    }
+
+    /**
+     * Names threads used for indexing.
+     */
+    private class IndexingThreadFactory implements ThreadFactory {
+
+	/** Name prefix */
+	private String prefix;
+
+	/** Counts threads created */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public IndexingThreadFactory(String prefix) {
+	    this.prefix = prefix;
+	}
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, prefix + " " + counter.incrementAndGet());
+	}
+    }
+
+    protected SolrIndexingConfiguration getConfiguration() {
+	return configuration;
+    }
+
+    protected SolrConnection getConnection() {
+	return connection;
+    }
+
+    protected BlockingQueue<SolrInputDocument> getQueue() {
+	return queue;
+    }
+
+    protected SolrBatchSizer getSizer() {
+	return sizer;
+    }
+
+    protected Semaphore getInFlight() {
+	return inFlight;
+    }
+
+    protected ExecutorService getDispatcher() {
+	return dispatcher;
+    }
+
+    protected ExecutorService getSenders() {
+	return senders;
+    }
+}
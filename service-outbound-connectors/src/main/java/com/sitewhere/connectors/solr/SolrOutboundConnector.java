@@ -16,17 +16,9 @@
 package com.sitewhere.connectors.solr;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.SolrPingResponse;
-import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrInputDocument;
 
 import com.sitewhere.connectors.SerialOutboundConnector;
@@ -43,34 +35,23 @@ import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 
 /**
  * {@link IOutboundConnector} implementation that takes saved events and indexes
- * them in Apache Solr for advanced analytics processing.
+ * them in Apache Solr for advanced analytics processing. Documents are sent by
+ * a {@link SolrIndexingEngine}, which blocks event delivery when indexing
+ * falls behind.
  */
 public class SolrOutboundConnector extends SerialOutboundConnector {
 
-    /** Number of documents to buffer before blocking calls */
-    private static final int BUFFER_SIZE = 1000;
-
-    /** Interval at which batches are written */
-    private static final int BATCH_INTERVAL = 2 * 1000;
-
-    /** Maximum count of documents to send in a batch */
-    private static final int MAX_BATCH_SIZE = 200;
-
-    /** Interval by which documents should be committed */
-    private static final int COMMIT_INTERVAL = 60 * 1000;
-
     /** Injected Solr configuration */
     private SolrConfiguration solrConfiguration;
 
+    /** Indexing settings */
+    private SolrIndexingConfiguration indexingConfiguration = new SolrIndexingConfiguration();
+
     /** Connection to Solr instance */
     private SolrConnection solrConnection;
 
-    /** Bounded queue that holds documents to be processed */
-    private BlockingQueue<SolrInputDocument> queue = new ArrayBlockingQueue<SolrInputDocument>(BUFFER_SIZE);
-
-    /** Used to execute Solr indexing in a separate thread */
-    /** TODO: Use a better approach for scalability */
-    private ExecutorService executor = Executors.newSingleThreadExecutor();
+    /** Sends documents to Solr */
+    private SolrIndexingEngine indexingEngine;
 
     /*
      * @see
@@ -101,7 +82,22 @@ public class SolrOutboundConnector extends SerialOutboundConnector {
 	}
 	getLogger().info(
 		"Solr event processor indexing events to server at: " + getSolrConfiguration().getSolrServerUrl());
-	executor.execute(new SolrDocumentQueueProcessor());
+	this.indexingEngine = new SolrIndexingEngine(getIndexingConfiguration(), getSolrConnection());
+	initializeNestedComponent(getIndexingEngine(), monitor, true);
+	startNestedComponent(getIndexingEngine(), monitor, true);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.connectors.FilteredOutboundConnector#stop(com.sitewhere.spi.
+     * microservice.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (getIndexingEngine() != null) {
+	    stopNestedComponent(getIndexingEngine(), monitor);
+	}
+	super.stop(monitor);
     }
 
     /*
@@ -113,11 +109,7 @@ public class SolrOutboundConnector extends SerialOutboundConnector {
     @Override
     public void onMeasurement(IDeviceEventContext context, IDeviceMeasurement mx) throws SiteWhereException {
 	SolrInputDocument document = SiteWhereSolrFactory.createDocumentFromMeasurement(mx);
-	try {
-	    queue.put(document);
-	} catch (InterruptedException e) {
-	    throw new SiteWhereException("Interrupted during indexing.", e);
-	}
+	getIndexingEngine().index(document);
     }
 
     /*
@@ -129,11 +121,7 @@ public class SolrOutboundConnector extends SerialOutboundConnector {
     @Override
     public void onLocation(IDeviceEventContext context, IDeviceLocation location) throws SiteWhereException {
 	SolrInputDocument document = SiteWhereSolrFactory.createDocumentFromLocation(location);
-	try {
-	    queue.put(document);
-	} catch (InterruptedException e) {
-	    throw new SiteWhereException("Interrupted during indexing.", e);
-	}
+	getIndexingEngine().index(document);
     }
 
     /*
@@ -145,56 +133,7 @@ public class SolrOutboundConnector extends SerialOutboundConnector {
     @Override
     public void onAlert(IDeviceEventContext context, IDeviceAlert alert) throws SiteWhereException {
 	SolrInputDocument document = SiteWhereSolrFactory.createDocumentFromAlert(alert);
-	try {
-	    queue.put(document);
-	} catch (InterruptedException e) {
-	    throw new SiteWhereException("Interrupted during indexing.", e);
-	}
-    }
-
-    /**
-     * Class that processes documents in the queue asynchronously.
-     */
-    private class SolrDocumentQueueProcessor implements Runnable {
-
-	@Override
-	public void run() {
-	    getLogger().info("Started Solr indexing thread.");
-	    boolean interrupted = false;
-
-	    while (!interrupted) {
-		long start = System.currentTimeMillis();
-		List<SolrInputDocument> batch = new ArrayList<SolrInputDocument>();
-
-		while (((System.currentTimeMillis() - start) < BATCH_INTERVAL) && (batch.size() <= MAX_BATCH_SIZE)) {
-		    try {
-			SolrInputDocument document = queue.poll(BATCH_INTERVAL, TimeUnit.MILLISECONDS);
-			if (document != null) {
-			    batch.add(document);
-			}
-		    } catch (InterruptedException e) {
-			getLogger().error("Solr indexing thread interrupted.", e);
-			interrupted = true;
-			break;
-		    }
-		}
-		if (!batch.isEmpty()) {
-		    try {
-			UpdateResponse response = getSolrConnection().getSolrClient().add(batch, COMMIT_INTERVAL);
-			if (response.getStatus() != 0) {
-			    getLogger().warn("Bad response code indexing documents: " + response.getStatus());
-			}
-			getLogger().debug("Indexed " + batch.size() + " documents in Solr.");
-		    } catch (SolrServerException e) {
-			getLogger().error("Exception indexing SiteWhere document.", e);
-		    } catch (IOException e) {
-			getLogger().error("IOException indexing SiteWhere document.", e);
-		    } catch (Throwable e) {
-			getLogger().error("Unhandled exception indexing SiteWhere document.", e);
-		    }
-		}
-	    }
-	}
+	getIndexingEngine().index(document);
     }
 
     public SolrConfiguration getSolrConfiguration() {
@@ -205,6 +144,14 @@ public class SolrOutboundConnector extends SerialOutboundConnector {
 	this.solrConfiguration = solrConfiguration;
     }
 
+    public SolrIndexingConfiguration getIndexingConfiguration() {
+	return indexingConfiguration;
+    }
+
+    public void setIndexingConfiguration(SolrIndexingConfiguration indexingConfiguration) {
+	this.indexingConfiguration = indexingConfiguration;
+    }
+
     public SolrConnection getSolrConnection() {
 	return solrConnection;
     }
@@ -212,4 +159,8 @@ public class SolrOutboundConnector extends SerialOutboundConnector {
     public void setSolrConnection(SolrConnection solrConnection) {
 	this.solrConnection = solrConnection;
     }
+
+    public SolrIndexingEngine getIndexingEngine() {
+	return indexingEngine;
+    }
 }
\ No newline at end of file
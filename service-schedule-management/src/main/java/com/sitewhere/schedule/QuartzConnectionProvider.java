@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.schedule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.quartz.utils.ConnectionProvider;
+
+import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
+
+/**
+ * Quartz {@link ConnectionProvider} that borrows connections from the pool
+ * used by the tenant RDB entity manager, so the job store shares the tenant
+ * datastore without separate connection settings.
+ */
+public class QuartzConnectionProvider implements ConnectionProvider {
+
+    /** Tenant entity manager provider */
+    private IRdbEntityManagerProvider entityManagerProvider;
+
+    /** Hibernate connection provider resolved on first use */
+    private org.hibernate.engine.jdbc.connections.spi.ConnectionProvider delegate;
+
+    public QuartzConnectionProvider(IRdbEntityManagerProvider entityManagerProvider) {
+	this.entityManagerProvider = entityManagerProvider;
+    }
+
+    /*
+     * @see org.quartz.utils.ConnectionProvider#getConnection()
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+	return getDelegate().getConnection();
+    }
+
+    /*
+     * @see org.quartz.utils.ConnectionProvider#initialize()
+     */
+    @Override
+    public void initialize() throws SQLException {
+    }
+
+    /*
+     * @see org.quartz.utils.ConnectionProvider#shutdown()
+     */
+    @Override
+    public void shutdown() throws SQLException {
+	// Pool is owned by the tenant entity manager.
+	this.delegate = null;
+    }
+
+    /**
+     * Resolve the connection provider backing the tenant entity manager.
+     *
+     * @return
+     * @throws SQLException
+     */
+    protected synchronized org.hibernate.engine.jdbc.connections.spi.ConnectionProvider getDelegate()
+	    throws SQLException {
+	if (delegate == null) {
+	    try {
+		SessionFactoryImplementor factory = getEntityManagerProvider().getEntityManager()
+			.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+		this.delegate = factory.getServiceRegistry()
+			.getService(org.hibernate.engine.jdbc.connections.spi.ConnectionProvider.class);
+	    } catch (Exception e) {
+		throw new SQLException("Unable to access tenant datastore for job store.", e);
+	    }
+	}
+	return delegate;
+    }
+
+    protected IRdbEntityManagerProvider getEntityManagerProvider() {
+	return entityManagerProvider;
+    }
+}
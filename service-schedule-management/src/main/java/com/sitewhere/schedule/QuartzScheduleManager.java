@@ -15,43 +15,99 @@
  */
 package com.sitewhere.schedule;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 import org.quartz.JobDetail;
+import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
 import org.quartz.impl.DirectSchedulerFactory;
+import org.quartz.impl.jdbcjobstore.JobStoreTX;
+import org.quartz.impl.jdbcjobstore.PostgreSQLDelegate;
 import org.quartz.simpl.RAMJobStore;
 import org.quartz.simpl.SimpleThreadPool;
+import org.quartz.spi.JobStore;
+import org.quartz.utils.DBConnectionManager;
 
 import com.sitewhere.microservice.api.schedule.IScheduleManagement;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.rest.model.search.SearchCriteria;
 import com.sitewhere.schedule.jobs.QuartzBuilder;
+import com.sitewhere.schedule.configuration.manager.ScheduleManagerConfiguration;
 import com.sitewhere.schedule.spi.IScheduleManager;
+import com.sitewhere.schedule.spi.MisfirePolicy;
+import com.sitewhere.schedule.spi.microservice.IScheduleManagementTenantEngine;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.microservice.lifecycle.LifecycleComponentType;
-import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 import com.sitewhere.spi.scheduling.ISchedule;
 import com.sitewhere.spi.scheduling.IScheduledJob;
 import com.sitewhere.spi.search.ISearchResults;
 
 /**
  * Implementation of {@link IScheduleManager} that uses Quartz to handle
- * schedule management.
+ * schedule management. When clustered, jobs are persisted in the tenant RDB
+ * and replicas share them through Quartz clustering. Each replica checks in
+ * periodically and triggers are acquired under database row locks, so a job
+ * fires on exactly one replica and jobs owned by a replica that stops checking
+ * in are recovered by the others. Schedules are always read from schedule
+ * management rather than cached, since they may be changed through any
+ * replica.
  */
 public class QuartzScheduleManager extends TenantEngineLifecycleComponent implements IScheduleManager {
 
-    /** Instance id common to all schedulers */
-    private static final String INSTANCE_ID = "sitewhere";
+    /** Scheduler context key for the tenant engine */
+    public static final String CONTEXT_TENANT_ENGINE = "tenantEngine";
+
+    /** Scheduler context key for the number of firings that may reuse targets */
+    public static final String CONTEXT_MAX_TARGET_REUSE = "maxTargetReuse";
+
+    /** Scheduler context key for the age after which targets are not reused */
+    public static final String CONTEXT_MAX_TARGET_REUSE_AGE = "maxTargetReuseAgeMs";
 
     /** Default number of threads used to process scheduled tasks */
-    private static final int DEFAULT_THREAD_COUNT = 5;
+    private static final int DEFAULT_THREAD_COUNT = 25;
+
+    /** Default interval at which replicas check in */
+    private static final long DEFAULT_CLUSTER_CHECKIN_INTERVAL_MS = 15 * 1000;
+
+    /** Default time after which a late trigger is misfired */
+    private static final long DEFAULT_MISFIRE_THRESHOLD_MS = 60 * 1000;
+
+    /** Default number of triggers acquired per scheduler pass */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 25;
+
+    /** Default window for acquiring triggers ahead of fire time */
+    private static final long DEFAULT_BATCH_TIME_WINDOW_MS = 1000;
+
+    /** Idle time between scheduler passes when no triggers are due */
+    private static final long IDLE_WAIT_TIME_MS = 30 * 1000;
+
+    /**
+     * Default number of consecutive criteria job firings that reuse targets.
+     * Reused targets still include devices deleted or retyped since the last
+     * full resolution, so this is kept small. A job firing every five minutes
+     * resolves from scratch once an hour.
+     */
+    private static final int DEFAULT_MAX_TARGET_REUSE = 12;
+
+    /**
+     * Default age of the last full resolution after which targets are resolved
+     * from scratch. Bounds staleness for jobs that fire more often than every
+     * five minutes.
+     */
+    private static final long DEFAULT_MAX_TARGET_REUSE_AGE_MS = 60 * 60 * 1000;
+
+    /** Retry interval after losing datastore connectivity */
+    private static final long DB_FAILURE_RETRY_INTERVAL_MS = 15 * 1000;
+
+    /** Prefix for Quartz tables in the tenant schema */
+    private static final String TABLE_PREFIX = "schedulemanagement.qrtz_";
 
     /** Schedule management implementation */
     private IScheduleManagement scheduleManagement;
@@ -59,29 +115,116 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
     /** Number of threads used for processing */
     private int numProcessingThreads = DEFAULT_THREAD_COUNT;
 
-    /** Cache schedules by token */
-    private Map<UUID, ISchedule> schedulesById = new HashMap<UUID, ISchedule>();
+    /** Indicates whether jobs are persisted and shared across replicas */
+    private boolean clustered = true;
+
+    /** Interval at which replicas check in */
+    private long clusterCheckinIntervalMs = DEFAULT_CLUSTER_CHECKIN_INTERVAL_MS;
+
+    /** Time after which a late trigger is misfired */
+    private long misfireThresholdMs = DEFAULT_MISFIRE_THRESHOLD_MS;
+
+    /** Policy applied to misfired triggers */
+    private MisfirePolicy misfirePolicy = MisfirePolicy.FireOnce;
+
+    /** Number of triggers acquired per scheduler pass */
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    /** Window for acquiring triggers ahead of fire time */
+    private long batchTimeWindowMs = DEFAULT_BATCH_TIME_WINDOW_MS;
+
+    /** Consecutive criteria job firings that reuse targets (zero disables reuse) */
+    private int maxTargetReuse = DEFAULT_MAX_TARGET_REUSE;
+
+    /** Age of the last full resolution after which targets are not reused */
+    private long maxTargetReuseAgeMs = DEFAULT_MAX_TARGET_REUSE_AGE_MS;
 
     public QuartzScheduleManager(IScheduleManagement scheduleManagement) {
 	super(LifecycleComponentType.ScheduleManager);
 	this.scheduleManagement = scheduleManagement;
     }
 
+    /**
+     * Apply settings from tenant configuration.
+     * 
+     * @param configuration
+     */
+    public void configure(ScheduleManagerConfiguration configuration) {
+	if (configuration == null) {
+	    return;
+	}
+	if (configuration.getThreadCount() > 0) {
+	    this.numProcessingThreads = configuration.getThreadCount();
+	}
+	this.clustered = configuration.isClustered();
+	if (configuration.getClusterCheckinIntervalMs() > 0) {
+	    this.clusterCheckinIntervalMs = configuration.getClusterCheckinIntervalMs();
+	}
+	if (configuration.getMisfireThresholdMs() > 0) {
+	    this.misfireThresholdMs = configuration.getMisfireThresholdMs();
+	}
+	this.misfirePolicy = MisfirePolicy.parse(configuration.getMisfirePolicy(), MisfirePolicy.FireOnce);
+	if (configuration.getMaxBatchSize() > 0) {
+	    this.maxBatchSize = configuration.getMaxBatchSize();
+	}
+	if (configuration.getBatchTimeWindowMs() > 0) {
+	    this.batchTimeWindowMs = configuration.getBatchTimeWindowMs();
+	}
+	if (configuration.getMaxTargetReuse() != null) {
+	    this.maxTargetReuse = Math.max(0, configuration.getMaxTargetReuse());
+	}
+	if (configuration.getMaxTargetReuseAgeMs() > 0) {
+	    this.maxTargetReuseAgeMs = configuration.getMaxTargetReuseAgeMs();
+	}
+    }
+
     /*
      * @see
-     * com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent#setTenantEngine
-     * (com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine)
+     * com.sitewhere.microservice.lifecycle.LifecycleComponent#initialize(com.
+     * sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor)
      */
     @Override
-    public void setTenantEngine(IMicroserviceTenantEngine<?> tenantEngine) {
-	super.setTenantEngine(tenantEngine);
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	try {
-	    DirectSchedulerFactory.getInstance().createScheduler(
-		    tenantEngine.getTenantResource().getMetadata().getName(), INSTANCE_ID,
-		    new SimpleThreadPool(getNumProcessingThreads(), Thread.NORM_PRIORITY), new RAMJobStore());
+	    SimpleThreadPool threadPool = new SimpleThreadPool(getNumProcessingThreads(), Thread.NORM_PRIORITY);
+	    threadPool.setThreadNamePrefix(getSchedulerName() + " Job");
+	    DirectSchedulerFactory.getInstance().createScheduler(getSchedulerName(), getSchedulerInstanceId(),
+		    threadPool, createJobStore(), null, null, 0, IDLE_WAIT_TIME_MS, DB_FAILURE_RETRY_INTERVAL_MS,
+		    false, null, getMaxBatchSize(), getBatchTimeWindowMs());
+	    getScheduler().getContext().put(CONTEXT_TENANT_ENGINE, getTenantEngine());
+	    getScheduler().getContext().put(CONTEXT_MAX_TARGET_REUSE, getMaxTargetReuse());
+	    getScheduler().getContext().put(CONTEXT_MAX_TARGET_REUSE_AGE, getMaxTargetReuseAgeMs());
 	} catch (SchedulerException e) {
-	    throw new RuntimeException("Unable to create Quartz scheduler for schedule manager.", e);
+	    throw new SiteWhereException("Unable to create Quartz scheduler for schedule manager.", e);
+	}
+    }
+
+    /**
+     * Create job store based on configuration.
+     * 
+     * @return
+     * @throws SchedulerException
+     */
+    protected JobStore createJobStore() throws SchedulerException {
+	if (!isClustered()) {
+	    RAMJobStore store = new RAMJobStore();
+	    store.setMisfireThreshold(getMisfireThresholdMs());
+	    return store;
 	}
+	String dataSource = getSchedulerName() + "-jobstore";
+	DBConnectionManager.getInstance().addConnectionProvider(dataSource, new QuartzConnectionProvider(
+		((IScheduleManagementTenantEngine) getTenantEngine()).getRdbEntityManagerProvider()));
+
+	JobStoreTX store = new JobStoreTX();
+	store.setDataSource(dataSource);
+	store.setTablePrefix(TABLE_PREFIX);
+	store.setDriverDelegateClass(PostgreSQLDelegate.class.getName());
+	store.setUseProperties(Boolean.TRUE.toString());
+	store.setIsClustered(true);
+	store.setClusterCheckinInterval(getClusterCheckinIntervalMs());
+	store.setMisfireThreshold(getMisfireThresholdMs());
+	store.setAcquireTriggersWithinLock(true);
+	return store;
     }
 
     /*
@@ -95,7 +238,6 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	try {
 	    getScheduler().start();
-	    cacheSchedules();
 	    scheduleJobs();
 	} catch (SchedulerException e) {
 	    throw new SiteWhereException("Unable to start scheduler instance.", e);
@@ -103,29 +245,55 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
     }
 
     /**
-     * Cache the list of schedules by unique token.
+     * Schedule all jobs registered in the system. Jobs already persisted by
+     * another replica keep their fire times unless the job or its schedule has
+     * changed since they were scheduled.
      * 
      * @throws SiteWhereException
      */
-    protected void cacheSchedules() throws SiteWhereException {
-	Map<UUID, ISchedule> updated = new HashMap<UUID, ISchedule>();
+    protected void scheduleJobs() throws SiteWhereException {
+	Map<UUID, ISchedule> schedulesById = new HashMap<UUID, ISchedule>();
 	ISearchResults<? extends ISchedule> schedules = getScheduleManagement().listSchedules(SearchCriteria.ALL);
 	for (ISchedule schedule : schedules.getResults()) {
-	    updated.put(schedule.getId(), schedule);
+	    schedulesById.put(schedule.getId(), schedule);
+	}
+	ISearchResults<? extends IScheduledJob> jobs = getScheduleManagement().listScheduledJobs(SearchCriteria.ALL);
+	for (IScheduledJob job : jobs.getResults()) {
+	    try {
+		ISchedule schedule = schedulesById.get(job.getScheduleId());
+		if (schedule == null) {
+		    throw new SiteWhereException(
+			    String.format("Job references unknown schedule: %s", job.getScheduleId().toString()));
+		}
+		if (isScheduled(job, schedule)) {
+		    continue;
+		}
+		scheduleJob(job, schedule);
+	    } catch (SiteWhereException e) {
+		getLogger().error(String.format("Unable to schedule job %s.", job.getToken()), e);
+	    }
 	}
-	this.schedulesById = updated;
-	getLogger().info("Updated cache with " + getSchedulesById().size() + " schedules.");
     }
 
     /**
-     * Schedule all jobs registered in the system.
+     * Indicates whether the scheduler already holds a trigger built from the
+     * current job and schedule.
      * 
+     * @param job
+     * @param schedule
+     * @return
      * @throws SiteWhereException
      */
-    protected void scheduleJobs() throws SiteWhereException {
-	ISearchResults<? extends IScheduledJob> jobs = getScheduleManagement().listScheduledJobs(SearchCriteria.ALL);
-	for (IScheduledJob job : jobs.getResults()) {
-	    scheduleJob(job);
+    protected boolean isScheduled(IScheduledJob job, ISchedule schedule) throws SiteWhereException {
+	try {
+	    Trigger existing = getScheduler().getTrigger(new TriggerKey(job.getToken()));
+	    if (existing == null) {
+		return false;
+	    }
+	    String signature = existing.getJobDataMap().getString(QuartzBuilder.DATA_SIGNATURE);
+	    return QuartzBuilder.buildSignature(job, schedule).equals(signature);
+	} catch (SchedulerException e) {
+	    throw new SiteWhereException("Unable to check for existing job.", e);
 	}
     }
 
@@ -154,7 +322,22 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void scheduleAdded(ISchedule schedule) throws SiteWhereException {
-	cacheSchedules();
+	// Jobs that use the schedule are scheduled when they are created.
+    }
+
+    /*
+     * @see
+     * com.sitewhere.schedule.spi.IScheduleManager#scheduleUpdated(com.sitewhere.
+     * spi.scheduling.ISchedule)
+     */
+    @Override
+    public void scheduleUpdated(ISchedule schedule) throws SiteWhereException {
+	ISearchResults<? extends IScheduledJob> jobs = getScheduleManagement().listScheduledJobs(SearchCriteria.ALL);
+	for (IScheduledJob job : jobs.getResults()) {
+	    if (schedule.getId().equals(job.getScheduleId())) {
+		scheduleJob(job, schedule);
+	    }
+	}
     }
 
     /*
@@ -165,7 +348,7 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void scheduleRemoved(ISchedule schedule) throws SiteWhereException {
-	cacheSchedules();
+	// Jobs keep the triggers built from the schedule until they are deleted.
     }
 
     /*
@@ -176,17 +359,28 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void scheduleJob(IScheduledJob job) throws SiteWhereException {
-	JobDetail detail = QuartzBuilder.buildJobDetail(job);
-	ISchedule schedule = getSchedulesById().get(job.getScheduleId());
+	ISchedule schedule = getScheduleManagement().getSchedule(job.getScheduleId());
 	if (schedule == null) {
 	    throw new SiteWhereException(
 		    String.format("Job references unknown schedule: %s", job.getScheduleId().toString()));
 	}
+	scheduleJob(job, schedule);
+    }
 
+    /**
+     * Schedule a job with a trigger built from the given schedule, replacing any
+     * existing job with the same token.
+     * 
+     * @param job
+     * @param schedule
+     * @throws SiteWhereException
+     */
+    protected void scheduleJob(IScheduledJob job, ISchedule schedule) throws SiteWhereException {
+	JobDetail detail = QuartzBuilder.buildJobDetail(job);
 	getLogger().info("Scheduling job " + job.getToken() + " for '" + schedule.getName() + "'.");
-	Trigger trigger = QuartzBuilder.buildTrigger(job, schedule);
+	Trigger trigger = QuartzBuilder.buildTrigger(job, schedule, getMisfirePolicy());
 	try {
-	    getScheduler().scheduleJob(detail, trigger);
+	    getScheduler().scheduleJob(detail, Collections.singleton(trigger), true);
 	} catch (SchedulerException e) {
 	    throw new SiteWhereException("Unable to schedule job.", e);
 	}
@@ -202,7 +396,7 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
     @Override
     public void unscheduleJob(IScheduledJob job) throws SiteWhereException {
 	try {
-	    getScheduler().unscheduleJob(new TriggerKey(job.getToken()));
+	    getScheduler().deleteJob(new JobKey(job.getToken()));
 	} catch (SchedulerException e) {
 	    throw new SiteWhereException("Unable to unschedule job.", e);
 	}
@@ -216,13 +410,31 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
      */
     public Scheduler getScheduler() throws SiteWhereException {
 	try {
-	    return DirectSchedulerFactory.getInstance()
-		    .getScheduler(getTenantEngine().getTenantResource().getMetadata().getName());
+	    return DirectSchedulerFactory.getInstance().getScheduler(getSchedulerName());
 	} catch (SchedulerException e) {
 	    throw new SiteWhereException("Unable to get scheduler instance.", e);
 	}
     }
 
+    /**
+     * Get scheduler name, which is shared by all replicas for a tenant.
+     * 
+     * @return
+     */
+    protected String getSchedulerName() {
+	return getTenantEngine().getTenantResource().getMetadata().getName();
+    }
+
+    /**
+     * Get scheduler instance id, which must be unique per replica when clustered.
+     * 
+     * @return
+     */
+    protected String getSchedulerInstanceId() {
+	String hostname = System.getenv("HOSTNAME");
+	return (hostname != null ? hostname : "sitewhere") + "-" + UUID.randomUUID().toString();
+    }
+
     protected IScheduleManagement getScheduleManagement() {
 	return scheduleManagement;
     }
@@ -231,7 +443,35 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
 	return numProcessingThreads;
     }
 
-    protected Map<UUID, ISchedule> getSchedulesById() {
-	return schedulesById;
+    protected boolean isClustered() {
+	return clustered;
+    }
+
+    protected long getClusterCheckinIntervalMs() {
+	return clusterCheckinIntervalMs;
+    }
+
+    protected long getMisfireThresholdMs() {
+	return misfireThresholdMs;
+    }
+
+    protected MisfirePolicy getMisfirePolicy() {
+	return misfirePolicy;
+    }
+
+    protected int getMaxBatchSize() {
+	return maxBatchSize;
+    }
+
+    protected long getBatchTimeWindowMs() {
+	return batchTimeWindowMs;
+    }
+
+    protected int getMaxTargetReuse() {
+	return maxTargetReuse;
+    }
+
+    protected long getMaxTargetReuseAgeMs() {
+	return maxTargetReuseAgeMs;
     }
 }
\ No newline at end of file
@@ -49,6 +49,18 @@ public class ScheduleManagementTriggers extends ScheduleManagementDecorator {
 	return schedule;
     }
 
+    /*
+     * @see
+     * com.sitewhere.schedule.ScheduleManagementDecorator#updateSchedule(java.util.
+     * UUID, com.sitewhere.spi.scheduling.request.IScheduleCreateRequest)
+     */
+    @Override
+    public ISchedule updateSchedule(UUID scheduleId, IScheduleCreateRequest request) throws SiteWhereException {
+	ISchedule schedule = super.updateSchedule(scheduleId, request);
+	getScheduleManager().scheduleUpdated(schedule);
+	return schedule;
+    }
+
     /*
      * @see
      * com.sitewhere.schedule.ScheduleManagementDecorator#deleteSchedule(java.util.
@@ -73,6 +85,19 @@ public class ScheduleManagementTriggers extends ScheduleManagementDecorator {
 	return job;
     }
 
+    /*
+     * @see
+     * com.sitewhere.schedule.ScheduleManagementDecorator#updateScheduledJob(java.
+     * util.UUID, com.sitewhere.spi.scheduling.request.IScheduledJobCreateRequest)
+     */
+    @Override
+    public IScheduledJob updateScheduledJob(UUID scheduledJobId, IScheduledJobCreateRequest request)
+	    throws SiteWhereException {
+	IScheduledJob job = super.updateScheduledJob(scheduledJobId, request);
+	getScheduleManager().scheduleJob(job);
+	return job;
+    }
+
     /*
      * @see
      * com.sitewhere.schedule.ScheduleManagementDecorator#deleteScheduledJob(java.
@@ -16,6 +16,7 @@
 package com.sitewhere.schedule.configuration;
 
 import com.sitewhere.microservice.datastore.DatastoreDefinition;
+import com.sitewhere.schedule.configuration.manager.ScheduleManagerConfiguration;
 import com.sitewhere.spi.microservice.multitenant.ITenantEngineConfiguration;
 
 import io.quarkus.runtime.annotations.RegisterForReflection;
@@ -29,6 +30,9 @@ public class ScheduleManagementTenantConfiguration implements ITenantEngineConfi
     /** Datastore definition */
     private DatastoreDefinition datastore;
 
+    /** Schedule manager configuration */
+    private ScheduleManagerConfiguration scheduleManager = new ScheduleManagerConfiguration();
+
     public DatastoreDefinition getDatastore() {
 	return datastore;
     }
@@ -36,4 +40,12 @@ public class ScheduleManagementTenantConfiguration implements ITenantEngineConfi
     public void setDatastore(DatastoreDefinition datastore) {
 	this.datastore = datastore;
     }
+
+    public ScheduleManagerConfiguration getScheduleManager() {
+	return scheduleManager;
+    }
+
+    public void setScheduleManager(ScheduleManagerConfiguration scheduleManager) {
+	this.scheduleManager = scheduleManager;
+    }
 }
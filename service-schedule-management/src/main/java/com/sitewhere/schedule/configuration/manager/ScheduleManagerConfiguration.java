@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.schedule.configuration.manager;
+
+/**
+ * Schedule manager configuration.
+ */
+public class ScheduleManagerConfiguration {
+
+    /** Number of threads used to execute jobs */
+    private int threadCount;
+
+    /** Indicates whether jobs are shared across replicas via the tenant RDB */
+    private boolean clustered = true;
+
+    /** Interval at which replicas renew their lease in milliseconds */
+    private long clusterCheckinIntervalMs;
+
+    /** Time after which a late trigger is considered misfired in milliseconds */
+    private long misfireThresholdMs;
+
+    /** Policy applied to misfired triggers */
+    private String misfirePolicy;
+
+    /** Maximum number of triggers acquired per scheduler pass */
+    private int maxBatchSize;
+
+    /** Consecutive firings of a criteria job that reuse targets (null for default) */
+    private Integer maxTargetReuse;
+
+    /** Age after which a criteria job resolves targets from scratch in milliseconds */
+    private long maxTargetReuseAgeMs;
+
+    /** Window for acquiring triggers ahead of their fire time in milliseconds */
+    private long batchTimeWindowMs;
+
+    public int getThreadCount() {
+	return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+	this.threadCount = threadCount;
+    }
+
+    public boolean isClustered() {
+	return clustered;
+    }
+
+    public void setClustered(boolean clustered) {
+	this.clustered = clustered;
+    }
+
+    public long getClusterCheckinIntervalMs() {
+	return clusterCheckinIntervalMs;
+    }
+
+    public void setClusterCheckinIntervalMs(long clusterCheckinIntervalMs) {
+	this.clusterCheckinIntervalMs = clusterCheckinIntervalMs;
+    }
+
+    public long getMisfireThresholdMs() {
+	return misfireThresholdMs;
+    }
+
+    public void setMisfireThresholdMs(long misfireThresholdMs) {
+	this.misfireThresholdMs = misfireThresholdMs;
+    }
+
+    public String getMisfirePolicy() {
+	return misfirePolicy;
+    }
+
+    public void setMisfirePolicy(String misfirePolicy) {
+	this.misfirePolicy = misfirePolicy;
+    }
+
+    public int getMaxBatchSize() {
+	return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+	this.maxBatchSize = maxBatchSize;
+    }
+
+    public Integer getMaxTargetReuse() {
+	return maxTargetReuse;
+    }
+
+    public void setMaxTargetReuse(Integer maxTargetReuse) {
+	this.maxTargetReuse = maxTargetReuse;
+    }
+
+    public long getMaxTargetReuseAgeMs() {
+	return maxTargetReuseAgeMs;
+    }
+
+    public void setMaxTargetReuseAgeMs(long maxTargetReuseAgeMs) {
+	this.maxTargetReuseAgeMs = maxTargetReuseAgeMs;
+    }
+
+    public long getBatchTimeWindowMs() {
+	return batchTimeWindowMs;
+    }
+
+    public void setBatchTimeWindowMs(long batchTimeWindowMs) {
+	this.batchTimeWindowMs = batchTimeWindowMs;
+    }
+}
@@ -16,34 +16,67 @@
 package com.sitewhere.schedule.jobs;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.PersistJobDataAfterExecution;
+import org.quartz.SchedulerException;
 
-import com.sitewhere.microservice.api.asset.IAssetManagement;
-import com.sitewhere.microservice.api.batch.BatchUtils;
 import com.sitewhere.microservice.api.batch.IBatchManagement;
-import com.sitewhere.microservice.api.device.IDeviceManagement;
 import com.sitewhere.microservice.api.schedule.BatchCommandInvocationJobParser;
-import com.sitewhere.rest.model.batch.request.BatchCommandInvocationRequest;
+import com.sitewhere.microservice.security.SystemUserRunnable;
+import com.sitewhere.rest.model.batch.request.BatchOperationCreateRequest;
+import com.sitewhere.schedule.QuartzScheduleManager;
+import com.sitewhere.schedule.spi.microservice.IScheduleManagementMicroservice;
+import com.sitewhere.schedule.spi.microservice.IScheduleManagementTenantEngine;
+import com.sitewhere.shared.batch.BatchOperationParameters;
+import com.sitewhere.shared.batch.BatchOperationTypes;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IInvocationByDeviceCriteriaRequest;
 
 /**
  * Creates a batch command invocation (based on devices matching criteria) as
- * the result of a Quartz schedule.
+ * the result of a Quartz schedule. Devices are not resolved in the scheduler
+ * thread. Instead a batch operation is submitted that resolves matching devices
+ * incrementally, so firing costs a single call regardless of how many devices
+ * match. The operation created by a firing is recorded in the job data and
+ * later firings with the same criteria reuse its targets, only resolving
+ * devices created since. A full resolution is forced after a configurable
+ * number of reusing firings, or once the last full resolution is older than a
+ * configurable age, so that deleted or retyped devices are dropped within a
+ * bounded time.
  */
+@DisallowConcurrentExecution
+@PersistJobDataAfterExecution
 public class InvocationByDeviceCriteriaJob implements Job {
 
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(InvocationByDeviceCriteriaJob.class);
 
+    /** Prefix for job data entries that hold state between firings */
+    private static final String STATE_PREFIX = "state.";
+
+    /** Id of batch operation created by the last firing */
+    private static final String STATE_LAST_OPERATION_ID = STATE_PREFIX + "lastBatchOperationId";
+
+    /** Device type token used by the last firing (empty for all device types) */
+    private static final String STATE_LAST_DEVICE_TYPE_TOKEN = STATE_PREFIX + "lastDeviceTypeToken";
+
+    /** Number of consecutive firings that reused targets */
+    private static final String STATE_REUSE_COUNT = STATE_PREFIX + "reuseCount";
+
+    /** Time of the last firing that resolved all targets */
+    private static final String STATE_LAST_RESOLVED_TIME = STATE_PREFIX + "lastResolvedTime";
+
     /*
      * (non-Javadoc)
      * 
@@ -54,46 +87,202 @@ public class InvocationByDeviceCriteriaJob implements Job {
 	Map<String, String> data = new HashMap<String, String>();
 	JobDataMap jobData = context.getJobDetail().getJobDataMap();
 	for (String key : jobData.keySet()) {
-	    String value = jobData.getString(key);
-	    data.put(key, value);
+	    if (!key.startsWith(STATE_PREFIX)) {
+		data.put(key, jobData.getString(key));
+	    }
 	}
 
 	IInvocationByDeviceCriteriaRequest criteria = BatchCommandInvocationJobParser
 		.parseInvocationByDeviceCriteria(data);
-	if (criteria.getDeviceTypeToken() == null) {
-	    throw new JobExecutionException("Device type token not provided.");
-	}
 	if (criteria.getCommandToken() == null) {
 	    throw new JobExecutionException("Command token not provided.");
 	}
-	try {
-	    // Resolve tokens for devices matching criteria.
-	    List<String> deviceTokens = BatchUtils.resolveDeviceTokensForDeviceCriteria(criteria, getDeviceManagement(),
-		    getAssetManagement());
 
-	    // Create batch command invocation.
-	    BatchCommandInvocationRequest invoke = new BatchCommandInvocationRequest();
-	    invoke.setCommandToken(criteria.getCommandToken());
-	    invoke.setParameterValues(criteria.getParameterValues());
-	    invoke.setDeviceTokens(deviceTokens);
+	// Reuse targets from the last firing if criteria have not changed.
+	int maxTargetReuse = getMaxTargetReuse(context);
+	long now = System.currentTimeMillis();
+	long lastResolved = parseTime(jobData.getString(STATE_LAST_RESOLVED_TIME));
+	boolean expired = (now - lastResolved) >= getMaxTargetReuseAgeMs(context);
+	String deviceTypeToken = (criteria.getDeviceTypeToken() != null) ? criteria.getDeviceTypeToken() : "";
+	int reuseCount = 0;
+	String reuseFrom = null;
+	if (Objects.equals(deviceTypeToken, jobData.getString(STATE_LAST_DEVICE_TYPE_TOKEN))) {
+	    reuseCount = parseReuseCount(jobData.getString(STATE_REUSE_COUNT), maxTargetReuse);
+	    if ((reuseCount < maxTargetReuse) && !expired) {
+		reuseFrom = jobData.getString(STATE_LAST_OPERATION_ID);
+	    }
+	}
+
+	BatchOperationCreateRequest request = new BatchOperationCreateRequest();
+	request.setOperationType(BatchOperationTypes.OPERATION_BATCH_COMMAND_INVOCATION);
+	request.getParameters().put(IBatchCommandInvocationRequest.PARAM_COMMAND_TOKEN, criteria.getCommandToken());
+	request.getParameters().put(BatchOperationParameters.PARAM_RESOLVE_DEVICE_CRITERIA, String.valueOf(true));
+	if (criteria.getDeviceTypeToken() != null) {
+	    request.getParameters().put(BatchOperationParameters.PARAM_CRITERIA_DEVICE_TYPE_TOKEN,
+		    criteria.getDeviceTypeToken());
+	}
+	if (reuseFrom != null) {
+	    request.getParameters().put(BatchOperationParameters.PARAM_REUSE_TARGETS_FROM, reuseFrom);
+	}
+	Map<String, String> values = new HashMap<String, String>();
+	if (criteria.getParameterValues() != null) {
+	    values.putAll(criteria.getParameterValues());
+	}
+	request.setMetadata(values);
+
+	BatchOperationSubmitter submitter = new BatchOperationSubmitter(getTenantEngine(context), request);
+	submitter.run();
+	if (submitter.getCreated() == null) {
+	    throw new JobExecutionException("Unable to create batch command invocation.", submitter.getError());
+	}
+
+	// Record operation so later firings can reuse its targets.
+	jobData.put(STATE_LAST_OPERATION_ID, submitter.getCreated().getId().toString());
+	jobData.put(STATE_LAST_DEVICE_TYPE_TOKEN, deviceTypeToken);
+	jobData.put(STATE_REUSE_COUNT, String.valueOf(reuseFrom != null ? reuseCount + 1 : 0));
+	jobData.put(STATE_LAST_RESOLVED_TIME, String.valueOf(reuseFrom != null ? lastResolved : now));
+
+	LOGGER.info(String.format("Executed batch command invocation job (%s targets).",
+		reuseFrom != null ? "reused" : "resolved"));
+    }
+
+    /**
+     * Parse number of consecutive firings that reused targets. An unreadable
+     * value forces a full resolution.
+     * 
+     * @param value
+     * @param maxTargetReuse
+     * @return
+     */
+    protected static int parseReuseCount(String value, int maxTargetReuse) {
+	if (value == null) {
+	    return 0;
+	}
+	try {
+	    return Integer.parseInt(value);
+	} catch (NumberFormatException e) {
+	    return maxTargetReuse;
+	}
+    }
 
-	    getBatchManagement().createBatchCommandInvocation(invoke);
+    /**
+     * Parse time of the last full resolution. A missing or unreadable value
+     * forces a full resolution.
+     * 
+     * @param value
+     * @return
+     */
+    protected static long parseTime(String value) {
+	if (value == null) {
+	    return 0;
+	}
+	try {
+	    return Long.parseLong(value);
+	} catch (NumberFormatException e) {
+	    return 0;
+	}
+    }
 
-	    LOGGER.info("Executed batch command invocation job.");
-	} catch (SiteWhereException e) {
-	    throw new JobExecutionException("Unable to create batch command invocation.", e);
+    /**
+     * Get number of consecutive firings that may reuse targets before devices
+     * are resolved from scratch.
+     * 
+     * @param context
+     * @return
+     * @throws JobExecutionException
+     */
+    protected int getMaxTargetReuse(JobExecutionContext context) throws JobExecutionException {
+	try {
+	    Object value = context.getScheduler().getContext().get(QuartzScheduleManager.CONTEXT_MAX_TARGET_REUSE);
+	    return (value instanceof Integer) ? (Integer) value : 0;
+	} catch (SchedulerException e) {
+	    throw new JobExecutionException("Unable to access scheduler context.", e);
 	}
     }
 
-    private IDeviceManagement getDeviceManagement() {
-	return null;
+    /**
+     * Get age of the last full resolution after which targets are resolved
+     * from scratch.
+     * 
+     * @param context
+     * @return
+     * @throws JobExecutionException
+     */
+    protected long getMaxTargetReuseAgeMs(JobExecutionContext context) throws JobExecutionException {
+	try {
+	    Object value = context.getScheduler().getContext().get(QuartzScheduleManager.CONTEXT_MAX_TARGET_REUSE_AGE);
+	    return (value instanceof Long) ? (Long) value : 0;
+	} catch (SchedulerException e) {
+	    throw new JobExecutionException("Unable to access scheduler context.", e);
+	}
     }
 
-    private IAssetManagement getAssetManagement() {
-	return null;
+    /**
+     * Get tenant engine that owns the scheduler.
+     * 
+     * @param context
+     * @return
+     * @throws JobExecutionException
+     */
+    protected IScheduleManagementTenantEngine getTenantEngine(JobExecutionContext context)
+	    throws JobExecutionException {
+	try {
+	    Object engine = context.getScheduler().getContext().get(QuartzScheduleManager.CONTEXT_TENANT_ENGINE);
+	    if (engine == null) {
+		throw new JobExecutionException("Scheduler context does not reference a tenant engine.");
+	    }
+	    return (IScheduleManagementTenantEngine) engine;
+	} catch (SchedulerException e) {
+	    throw new JobExecutionException("Unable to access scheduler context.", e);
+	}
     }
 
-    private IBatchManagement getBatchManagement() {
-	return null;
+    /**
+     * Submits the batch operation in the context of a system user for the
+     * tenant.
+     */
+    private static class BatchOperationSubmitter extends SystemUserRunnable {
+
+	/** Tenant engine */
+	private IScheduleManagementTenantEngine engine;
+
+	/** Operation to create */
+	private BatchOperationCreateRequest request;
+
+	/** Created operation */
+	private IBatchOperation created;
+
+	/** Error encountered while creating operation */
+	private SiteWhereException error;
+
+	public BatchOperationSubmitter(IScheduleManagementTenantEngine engine, BatchOperationCreateRequest request) {
+	    super(engine.getScheduleManager());
+	    this.engine = engine;
+	    this.request = request;
+	}
+
+	/*
+	 * @see com.sitewhere.microservice.security.SystemUserRunnable#runAsSystemUser()
+	 */
+	@Override
+	public void runAsSystemUser() throws SiteWhereException {
+	    try {
+		this.created = getBatchManagement().createBatchOperation(request);
+	    } catch (SiteWhereException e) {
+		this.error = e;
+	    }
+	}
+
+	protected IBatchManagement getBatchManagement() {
+	    return ((IScheduleManagementMicroservice) engine.getMicroservice()).getBatchManagementApiChannel();
+	}
+
+	public IBatchOperation getCreated() {
+	    return created;
+	}
+
+	public SiteWhereException getError() {
+	    return error;
+	}
     }
 }
\ No newline at end of file
@@ -15,6 +15,10 @@
  */
 package com.sitewhere.schedule.jobs;
 
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+import java.util.UUID;
+
 import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
@@ -25,6 +29,7 @@ import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 
+import com.sitewhere.schedule.spi.MisfirePolicy;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.scheduling.ISchedule;
 import com.sitewhere.spi.scheduling.IScheduledJob;
@@ -35,6 +40,9 @@ import com.sitewhere.spi.scheduling.TriggerConstants;
  */
 public class QuartzBuilder {
 
+    /** Trigger data key for the signature of the job and schedule it was built from */
+    public static final String DATA_SIGNATURE = "sitewhere.signature";
+
     /**
      * Build Quartz {@link JobDetail} information for an {@link IScheduledJob}.
      * 
@@ -69,16 +77,18 @@ public class QuartzBuilder {
      * 
      * @param job
      * @param schedule
+     * @param misfire
      * @return
      * @throws SiteWhereException
      */
-    public static Trigger buildTrigger(IScheduledJob job, ISchedule schedule) throws SiteWhereException {
+    public static Trigger buildTrigger(IScheduledJob job, ISchedule schedule, MisfirePolicy misfire)
+	    throws SiteWhereException {
 	switch (schedule.getTriggerType()) {
 	case SimpleTrigger: {
-	    return buildSimpleTrigger(job, schedule);
+	    return buildSimpleTrigger(job, schedule, misfire);
 	}
 	case CronTrigger: {
-	    return buildCronTrigger(job, schedule);
+	    return buildCronTrigger(job, schedule, misfire);
 	}
 	default: {
 	    throw new SiteWhereException("Unhandled trigger type: " + schedule.getTriggerType());
@@ -91,10 +101,12 @@ public class QuartzBuilder {
      * 
      * @param job
      * @param schedule
+     * @param misfire
      * @return
      * @throws SiteWhereException
      */
-    protected static Trigger buildSimpleTrigger(IScheduledJob job, ISchedule schedule) throws SiteWhereException {
+    protected static Trigger buildSimpleTrigger(IScheduledJob job, ISchedule schedule, MisfirePolicy misfire)
+	    throws SiteWhereException {
 	SimpleScheduleBuilder simple = SimpleScheduleBuilder.simpleSchedule();
 	String repeat = schedule.getTriggerConfiguration().get(TriggerConstants.SimpleTrigger.REPEAT_COUNT);
 	if (repeat != null) {
@@ -117,6 +129,16 @@ public class QuartzBuilder {
 		throw new SiteWhereException("Non-numeric value used for repeat interval.", e);
 	    }
 	}
+	switch (misfire) {
+	case Skip: {
+	    simple.withMisfireHandlingInstructionNextWithRemainingCount();
+	    break;
+	}
+	case FireOnce: {
+	    simple.withMisfireHandlingInstructionNowWithExistingCount();
+	    break;
+	}
+	}
 	TriggerBuilder<?> builder = TriggerBuilder.newTrigger().withIdentity(job.getToken()).withSchedule(simple);
 	addCommonFields(job, schedule, builder);
 	return builder.build();
@@ -127,10 +149,12 @@ public class QuartzBuilder {
      * 
      * @param job
      * @param schedule
+     * @param misfire
      * @return
      * @throws SiteWhereException
      */
-    protected static Trigger buildCronTrigger(IScheduledJob job, ISchedule schedule) throws SiteWhereException {
+    protected static Trigger buildCronTrigger(IScheduledJob job, ISchedule schedule, MisfirePolicy misfire)
+	    throws SiteWhereException {
 	String expression = schedule.getTriggerConfiguration().get(TriggerConstants.CronTrigger.CRON_EXPRESSION);
 	if (expression == null) {
 	    throw new SiteWhereException("Cron trigger did not specify expression.");
@@ -139,6 +163,16 @@ public class QuartzBuilder {
 	    throw new SiteWhereException("Cron expression is invalid.");
 	}
 	CronScheduleBuilder cron = CronScheduleBuilder.cronSchedule(expression);
+	switch (misfire) {
+	case Skip: {
+	    cron.withMisfireHandlingInstructionDoNothing();
+	    break;
+	}
+	case FireOnce: {
+	    cron.withMisfireHandlingInstructionFireAndProceed();
+	    break;
+	}
+	}
 	TriggerBuilder<?> builder = TriggerBuilder.newTrigger().withIdentity(job.getToken()).withSchedule(cron);
 	addCommonFields(job, schedule, builder);
 	return builder.build();
@@ -160,5 +194,26 @@ public class QuartzBuilder {
 	if (schedule.getEndDate() != null) {
 	    builder.endAt(schedule.getEndDate());
 	}
+	builder.usingJobData(DATA_SIGNATURE, buildSignature(job, schedule));
+    }
+
+    /**
+     * Build a signature of the fields a job and its trigger are built from. A
+     * persisted trigger whose signature differs is out of date and is replaced.
+     * 
+     * @param job
+     * @param schedule
+     * @return
+     */
+    public static String buildSignature(IScheduledJob job, ISchedule schedule) {
+	StringBuilder fields = new StringBuilder();
+	fields.append(job.getJobType()).append('|');
+	fields.append(new TreeMap<String, String>(job.getJobConfiguration())).append('|');
+	fields.append(schedule.getId()).append('|');
+	fields.append(schedule.getTriggerType()).append('|');
+	fields.append(new TreeMap<String, String>(schedule.getTriggerConfiguration())).append('|');
+	fields.append(schedule.getStartDate() != null ? schedule.getStartDate().getTime() : "").append('|');
+	fields.append(schedule.getEndDate() != null ? schedule.getEndDate().getTime() : "");
+	return UUID.nameUUIDFromBytes(fields.toString().getBytes(StandardCharsets.UTF_8)).toString();
     }
 }
\ No newline at end of file
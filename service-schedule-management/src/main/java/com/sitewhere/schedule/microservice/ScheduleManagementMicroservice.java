@@ -17,6 +17,8 @@ package com.sitewhere.schedule.microservice;
 
 import javax.enterprise.context.ApplicationScoped;
 
+import com.sitewhere.grpc.client.batch.BatchManagementApiChannel;
+import com.sitewhere.grpc.client.spi.client.IBatchManagementApiChannel;
 import com.sitewhere.microservice.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.microservice.multitenant.MultitenantMicroservice;
 import com.sitewhere.schedule.configuration.ScheduleManagementConfiguration;
@@ -44,6 +46,9 @@ public class ScheduleManagementMicroservice extends
     /** Provides server for schedule management GRPC requests */
     private IScheduleManagementGrpcServer scheduleManagementGrpcServer;
 
+    /** Batch management API channel */
+    private IBatchManagementApiChannel<?> batchManagementApiChannel;
+
     /*
      * @see com.sitewhere.spi.microservice.IMicroservice#getName()
      */
@@ -98,12 +103,18 @@ public class ScheduleManagementMicroservice extends
 	// Create schedule management GRPC server.
 	this.scheduleManagementGrpcServer = new ScheduleManagementGrpcServer(this);
 
+	// Batch management.
+	this.batchManagementApiChannel = new BatchManagementApiChannel(getInstanceSettings());
+
 	// Create step that will start components.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getName());
 
 	// Initialize schedule management GRPC server.
 	init.addInitializeStep(this, getScheduleManagementGrpcServer(), true);
 
+	// Initialize batch management API channel.
+	init.addInitializeStep(this, getBatchManagementApiChannel(), true);
+
 	// Execute initialization steps.
 	init.execute(monitor);
     }
@@ -123,6 +134,9 @@ public class ScheduleManagementMicroservice extends
 	// Start schedule management GRPC server.
 	start.addStartStep(this, getScheduleManagementGrpcServer(), true);
 
+	// Start batch management API channel.
+	start.addStartStep(this, getBatchManagementApiChannel(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
     }
@@ -139,6 +153,9 @@ public class ScheduleManagementMicroservice extends
 	// Stop schedule management GRPC server.
 	stop.addStopStep(this, getScheduleManagementGrpcServer());
 
+	// Stop batch management API channel.
+	stop.addStopStep(this, getBatchManagementApiChannel());
+
 	// Execute shutdown steps.
 	stop.execute(monitor);
 
@@ -153,4 +170,13 @@ public class ScheduleManagementMicroservice extends
     public IScheduleManagementGrpcServer getScheduleManagementGrpcServer() {
 	return scheduleManagementGrpcServer;
     }
+
+    /*
+     * @see com.sitewhere.schedule.spi.microservice.IScheduleManagementMicroservice#
+     * getBatchManagementApiChannel()
+     */
+    @Override
+    public IBatchManagementApiChannel<?> getBatchManagementApiChannel() {
+	return batchManagementApiChannel;
+    }
 }
\ No newline at end of file
@@ -24,9 +24,12 @@ import com.sitewhere.microservice.scripting.Binding;
 import com.sitewhere.rdb.RdbPersistenceOptions;
 import com.sitewhere.rdb.RdbTenantEngine;
 import com.sitewhere.rest.model.search.scheduling.ScheduleSearchCriteria;
+import com.sitewhere.schedule.QuartzScheduleManager;
+import com.sitewhere.schedule.ScheduleManagementTriggers;
 import com.sitewhere.schedule.configuration.ScheduleManagementTenantConfiguration;
 import com.sitewhere.schedule.configuration.ScheduleManagementTenantEngineModule;
 import com.sitewhere.schedule.grpc.ScheduleManagementImpl;
+import com.sitewhere.schedule.spi.IScheduleManager;
 import com.sitewhere.schedule.spi.microservice.IScheduleManagementMicroservice;
 import com.sitewhere.schedule.spi.microservice.IScheduleManagementTenantEngine;
 import com.sitewhere.spi.SiteWhereException;
@@ -50,6 +53,9 @@ public class ScheduleManagementTenantEngine extends RdbTenantEngine<ScheduleMana
     /** Schedule management persistence API */
     private IScheduleManagement scheduleManagement;
 
+    /** Executes scheduled jobs */
+    private IScheduleManager scheduleManager;
+
     /** Responds to schedule management GRPC requests */
     private ScheduleManagementGrpc.ScheduleManagementImplBase scheduleManagementImpl;
 
@@ -128,7 +134,11 @@ public class ScheduleManagementTenantEngine extends RdbTenantEngine<ScheduleMana
      */
     @Override
     public void loadEngineComponents() throws SiteWhereException {
-	this.scheduleManagement = getInjector().getInstance(IScheduleManagement.class);
+	IScheduleManagement implementation = getInjector().getInstance(IScheduleManagement.class);
+	QuartzScheduleManager manager = new QuartzScheduleManager(implementation);
+	manager.configure(getActiveConfiguration().getScheduleManager());
+	this.scheduleManager = manager;
+	this.scheduleManagement = new ScheduleManagementTriggers(implementation, getScheduleManager());
 	this.scheduleManagementImpl = new ScheduleManagementImpl((IScheduleManagementMicroservice) getMicroservice(),
 		getScheduleManagement());
     }
@@ -148,6 +158,9 @@ public class ScheduleManagementTenantEngine extends RdbTenantEngine<ScheduleMana
 	// Initialize schedule management persistence.
 	init.addInitializeStep(this, getScheduleManagement(), true);
 
+	// Initialize schedule manager.
+	init.addInitializeStep(this, getScheduleManager(), true);
+
 	// Execute initialization steps.
 	init.execute(monitor);
     }
@@ -167,6 +180,9 @@ public class ScheduleManagementTenantEngine extends RdbTenantEngine<ScheduleMana
 	// Start schedule management persistence.
 	start.addStartStep(this, getScheduleManagement(), true);
 
+	// Start schedule manager.
+	start.addStartStep(this, getScheduleManager(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
     }
@@ -183,6 +199,9 @@ public class ScheduleManagementTenantEngine extends RdbTenantEngine<ScheduleMana
 	// Create step that will stop components.
 	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getComponentName());
 
+	// Stop schedule manager.
+	stop.addStopStep(this, getScheduleManager());
+
 	// Stop schedule management persistence.
 	stop.addStopStep(this, getScheduleManagement());
 
@@ -199,6 +218,15 @@ public class ScheduleManagementTenantEngine extends RdbTenantEngine<ScheduleMana
 	return scheduleManagement;
     }
 
+    /*
+     * @see com.sitewhere.schedule.spi.microservice.IScheduleManagementTenantEngine#
+     * getScheduleManager()
+     */
+    @Override
+    public IScheduleManager getScheduleManager() {
+	return scheduleManager;
+    }
+
     /*
      * @see com.sitewhere.schedule.spi.microservice.IScheduleManagementTenantEngine#
      * getScheduleManagementImpl()
@@ -33,6 +33,15 @@ public interface IScheduleManager extends ITenantEngineLifecycleComponent {
      */
     public void scheduleAdded(ISchedule schedule) throws SiteWhereException;
 
+    /**
+     * Called when a schedule has been updated. Jobs using the schedule are
+     * rescheduled with triggers built from the updated schedule.
+     * 
+     * @param schedule
+     * @throws SiteWhereException
+     */
+    public void scheduleUpdated(ISchedule schedule) throws SiteWhereException;
+
     /**
      * Called when a schedule is removed.
      * 
@@ -42,7 +51,8 @@ public interface IScheduleManager extends ITenantEngineLifecycleComponent {
     public void scheduleRemoved(ISchedule schedule) throws SiteWhereException;
 
     /**
-     * Adds a job to the scheduler.
+     * Adds a job to the scheduler, replacing an existing job with the same
+     * token.
      * 
      * @param job
      * @throws SiteWhereException
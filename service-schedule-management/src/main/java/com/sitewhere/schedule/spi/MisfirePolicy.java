@@ -0,0 +1,46 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.schedule.spi;
+
+/**
+ * Indicates how a trigger that missed its fire time is handled.
+ */
+public enum MisfirePolicy {
+
+    /** Fire once as soon as possible, then continue on schedule */
+    FireOnce,
+
+    /** Skip missed executions and wait for the next scheduled time */
+    Skip;
+
+    /**
+     * Parse a policy from configuration, falling back to a default.
+     * 
+     * @param value
+     * @param fallback
+     * @return
+     */
+    public static MisfirePolicy parse(String value, MisfirePolicy fallback) {
+	if (value != null) {
+	    for (MisfirePolicy policy : values()) {
+		if (policy.name().equalsIgnoreCase(value)) {
+		    return policy;
+		}
+	    }
+	}
+	return fallback;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.sitewhere.schedule.spi.microservice;
 
+import com.sitewhere.grpc.client.spi.client.IBatchManagementApiChannel;
 import com.sitewhere.schedule.configuration.ScheduleManagementConfiguration;
 import com.sitewhere.schedule.spi.grpc.IScheduleManagementGrpcServer;
 import com.sitewhere.spi.microservice.MicroserviceIdentifier;
@@ -32,4 +33,11 @@ public interface IScheduleManagementMicroservice extends
      * @return
      */
     public IScheduleManagementGrpcServer getScheduleManagementGrpcServer();
+
+    /**
+     * Batch management API access via GRPC channel.
+     * 
+     * @return
+     */
+    public IBatchManagementApiChannel<?> getBatchManagementApiChannel();
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ import com.sitewhere.grpc.service.ScheduleManagementGrpc;
 import com.sitewhere.microservice.api.schedule.IScheduleManagement;
 import com.sitewhere.rdb.spi.IRdbEntityManagerProvider;
 import com.sitewhere.schedule.configuration.ScheduleManagementTenantConfiguration;
+import com.sitewhere.schedule.spi.IScheduleManager;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 
 /**
@@ -35,6 +36,13 @@ public interface IScheduleManagementTenantEngine
      */
     public IScheduleManagement getScheduleManagement();
 
+    /**
+     * Get manager that executes scheduled jobs.
+     * 
+     * @return
+     */
+    public IScheduleManager getScheduleManager();
+
     /**
      * Get implementation class that wraps schedule management with GRPC
      * conversions.
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.schedule.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.quartz.Trigger;
+
+import com.sitewhere.rest.model.scheduling.Schedule;
+import com.sitewhere.rest.model.scheduling.ScheduledJob;
+import com.sitewhere.schedule.spi.MisfirePolicy;
+import com.sitewhere.spi.scheduling.ScheduledJobType;
+import com.sitewhere.spi.scheduling.TriggerConstants;
+import com.sitewhere.spi.scheduling.TriggerType;
+
+/**
+ * Test cases for {@link QuartzBuilder}.
+ */
+public class QuartzBuilderTests {
+
+    @Test
+    public void testSignatureStableForSameInputs() throws Exception {
+	Schedule schedule = createCronSchedule("0 0/5 * * * ?");
+	ScheduledJob job = createJob(schedule);
+	assertEquals(QuartzBuilder.buildSignature(job, schedule),
+		QuartzBuilder.buildSignature(job, createCopy(schedule, "0 0/5 * * * ?")));
+    }
+
+    @Test
+    public void testSignatureChangesWithSchedule() throws Exception {
+	Schedule schedule = createCronSchedule("0 0/5 * * * ?");
+	ScheduledJob job = createJob(schedule);
+	String original = QuartzBuilder.buildSignature(job, schedule);
+	assertNotEquals(original, QuartzBuilder.buildSignature(job, createCopy(schedule, "0 0/10 * * * ?")));
+
+	Schedule ended = createCopy(schedule, "0 0/5 * * * ?");
+	ended.setEndDate(new Date(System.currentTimeMillis() + 60 * 60 * 1000));
+	assertNotEquals(original, QuartzBuilder.buildSignature(job, ended));
+    }
+
+    @Test
+    public void testSignatureChangesWithJobConfiguration() throws Exception {
+	Schedule schedule = createCronSchedule("0 0/5 * * * ?");
+	ScheduledJob job = createJob(schedule);
+	String original = QuartzBuilder.buildSignature(job, schedule);
+	job.getJobConfiguration().put("commandToken", "reboot");
+	assertNotEquals(original, QuartzBuilder.buildSignature(job, schedule));
+    }
+
+    @Test
+    public void testTriggerCarriesSignature() throws Exception {
+	Schedule schedule = createCronSchedule("0 0/5 * * * ?");
+	ScheduledJob job = createJob(schedule);
+	Trigger trigger = QuartzBuilder.buildTrigger(job, schedule, MisfirePolicy.FireOnce);
+	assertEquals(QuartzBuilder.buildSignature(job, schedule),
+		trigger.getJobDataMap().getString(QuartzBuilder.DATA_SIGNATURE));
+    }
+
+    protected static Schedule createCronSchedule(String expression) {
+	Schedule schedule = new Schedule();
+	schedule.setId(UUID.randomUUID());
+	schedule.setToken("every-few-minutes");
+	schedule.setTriggerType(TriggerType.CronTrigger);
+	Map<String, String> config = new HashMap<String, String>();
+	config.put(TriggerConstants.CronTrigger.CRON_EXPRESSION, expression);
+	schedule.setTriggerConfiguration(config);
+	return schedule;
+    }
+
+    protected static Schedule createCopy(Schedule source, String expression) {
+	Schedule schedule = createCronSchedule(expression);
+	schedule.setId(source.getId());
+	schedule.setToken(source.getToken());
+	schedule.setStartDate(source.getStartDate());
+	schedule.setEndDate(source.getEndDate());
+	return schedule;
+    }
+
+    protected static ScheduledJob createJob(Schedule schedule) {
+	ScheduledJob job = new ScheduledJob();
+	job.setId(UUID.randomUUID());
+	job.setToken("job-1");
+	job.setScheduleId(schedule.getId());
+	job.setJobType(ScheduledJobType.CommandInvocation);
+	Map<String, String> config = new HashMap<String, String>();
+	config.put("commandToken", "ping");
+	job.setJobConfiguration(config);
+	return job;
+    }
+}
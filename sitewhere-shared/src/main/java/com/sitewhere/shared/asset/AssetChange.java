@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.asset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Notification that an asset or asset type was updated or deleted. Published
+ * by asset management on a tenant topic so other services can refresh data
+ * they hold about the entity.
+ */
+public class AssetChange {
+
+    /** Suffix for topic name */
+    public static final String TOPIC_SUFFIX = "asset-management-asset-changes";
+
+    /** Kinds of entity that are published */
+    public static enum EntityType {
+	Asset, AssetType;
+    }
+
+    /** Kind of entity that changed */
+    private EntityType type;
+
+    /** Id of entity that changed */
+    private UUID entityId;
+
+    /** Tokens the entity had before and after the change */
+    private List<String> tokens = new ArrayList<>();
+
+    /** Id of the process that made the change */
+    private String origin;
+
+    public AssetChange() {
+    }
+
+    public AssetChange(EntityType type, UUID entityId, List<String> tokens, String origin) {
+	this.type = type;
+	this.entityId = entityId;
+	this.tokens = tokens;
+	this.origin = origin;
+    }
+
+    public EntityType getType() {
+	return type;
+    }
+
+    public void setType(EntityType type) {
+	this.type = type;
+    }
+
+    public UUID getEntityId() {
+	return entityId;
+    }
+
+    public void setEntityId(UUID entityId) {
+	this.entityId = entityId;
+    }
+
+    public List<String> getTokens() {
+	return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+	this.tokens = tokens;
+    }
+
+    public String getOrigin() {
+	return origin;
+    }
+
+    public void setOrigin(String origin) {
+	this.origin = origin;
+    }
+}
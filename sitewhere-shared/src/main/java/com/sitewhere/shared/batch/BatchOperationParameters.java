@@ -0,0 +1,31 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.batch;
+
+/**
+ * Constants for batch operation parameters.
+ */
+public interface BatchOperationParameters {
+
+    /** Indicates devices are resolved from criteria rather than a token list */
+    public static final String PARAM_RESOLVE_DEVICE_CRITERIA = "resolveDeviceCriteria";
+
+    /** Device type token used to resolve devices by criteria */
+    public static final String PARAM_CRITERIA_DEVICE_TYPE_TOKEN = "criteriaDeviceTypeToken";
+
+    /** Id of earlier operation with same criteria whose targets may be reused */
+    public static final String PARAM_REUSE_TARGETS_FROM = "reuseTargetsFrom";
+}
@@ -13,7 +13,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.sitewhere.batch;
+package com.sitewhere.shared.batch;
 
 /**
  * Constants for batch operation types.
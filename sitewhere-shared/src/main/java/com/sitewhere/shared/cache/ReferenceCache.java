@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.sitewhere.spi.SiteWhereException;
+
+import io.prometheus.client.Counter;
+
+/**
+ * Bounded cache of entities with least-recently-used eviction. Entries
+ * expire after a fixed time so that a missed change notification only leaves
+ * stale data for a limited period. Removing entries advances a generation
+ * counter, and values loaded under an older generation are not stored, so a
+ * lookup that races with a write can not cache the old value. Hits and misses
+ * are counted with metrics owned by the caller, since metric names must be
+ * unique per microservice.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class ReferenceCache<K, V> {
+
+    /** Meter for counting cache hits */
+    private Counter hits;
+
+    /** Meter for counting cache misses */
+    private Counter misses;
+
+    /** Metric label values */
+    private String[] labels;
+
+    /** Number of milliseconds an entry is kept */
+    private long expirationMs;
+
+    /** Entries by key, least recently used first */
+    private Map<K, Entry<V>> entries;
+
+    /** Incremented each time entries are removed */
+    private long generation;
+
+    public ReferenceCache(int maxEntries, long expirationMs, Counter hits, Counter misses, String[] labels) {
+	this.expirationMs = expirationMs;
+	this.hits = hits;
+	this.misses = misses;
+	this.labels = labels;
+	this.entries = new LinkedHashMap<K, Entry<V>>(256, 0.75f, true) {
+
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+		return size() > maxEntries;
+	    }
+	};
+    }
+
+    /**
+     * Get value for a key, loading and caching it if not present. Null values are
+     * not cached.
+     * 
+     * @param key
+     * @param loader
+     * @return
+     * @throws SiteWhereException
+     */
+    public V get(K key, Loader<K, V> loader) throws SiteWhereException {
+	long loadGeneration;
+	synchronized (this) {
+	    V value = getIfPresent(key);
+	    if (value != null) {
+		return value;
+	    }
+	    loadGeneration = generation;
+	}
+	V value = loader.load(key);
+	put(key, value, loadGeneration);
+	return value;
+    }
+
+    /**
+     * Get value for a key if cached. Returns null on a miss. Values loaded after
+     * a miss are stored with {@link #put(Object, Object, long)} using the
+     * generation read before loading.
+     * 
+     * @param key
+     * @return
+     */
+    public synchronized V getIfPresent(K key) {
+	Entry<V> entry = entries.get(key);
+	if (entry != null && entry.getExpires() > System.currentTimeMillis()) {
+	    hits.labels(labels).inc();
+	    return entry.getValue();
+	}
+	misses.labels(labels).inc();
+	return null;
+    }
+
+    /**
+     * Get the current generation.
+     * 
+     * @return
+     */
+    public synchronized long getGeneration() {
+	return generation;
+    }
+
+    /**
+     * Store a loaded value unless entries were removed since it was loaded. Null
+     * values are not cached.
+     * 
+     * @param key
+     * @param value
+     * @param loadGeneration
+     */
+    public synchronized void put(K key, V value, long loadGeneration) {
+	if (value != null && loadGeneration == generation) {
+	    entries.put(key, new Entry<V>(value, System.currentTimeMillis() + expirationMs));
+	}
+    }
+
+    /**
+     * Remove the entry for a key.
+     * 
+     * @param key
+     */
+    public synchronized void remove(K key) {
+	if (key != null) {
+	    entries.remove(key);
+	}
+	generation++;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+	entries.clear();
+	generation++;
+    }
+
+    /**
+     * Loads a value on cache miss.
+     *
+     * @param <K>
+     * @param <V>
+     */
+    public static interface Loader<K, V> {
+
+	/**
+	 * Load value for key.
+	 * 
+	 * @param key
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public V load(K key) throws SiteWhereException;
+    }
+
+    /**
+     * Cached value with expiration time.
+     *
+     * @param <V>
+     */
+    private static class Entry<V> {
+
+	/** Cached value */
+	private V value;
+
+	/** Time after which value is reloaded */
+	private long expires;
+
+	public Entry(V value, long expires) {
+	    this.value = value;
+	    this.expires = expires;
+	}
+
+	public V getValue() {
+	    return value;
+	}
+
+	public long getExpires() {
+	    return expires;
+	}
+    }
+}
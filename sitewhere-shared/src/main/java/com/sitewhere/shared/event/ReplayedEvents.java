@@ -0,0 +1,102 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.event;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import com.sitewhere.grpc.event.EventModelConverter;
+import com.sitewhere.grpc.model.DeviceEventModel.GProcessedEventPayload;
+import com.sitewhere.rest.model.device.event.DeviceEvent;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+
+/**
+ * Marks events that are republished from storage by an event replay. Replayed
+ * events share the outbound events topic with live events, so consumers that
+ * maintain state from live events (rollups, device state) skip them, and
+ * outbound connectors only process them when the replay targets the connector.
+ * The mark is carried in event metadata and is never persisted.
+ */
+public final class ReplayedEvents {
+
+    /** Metadata key holding replay targets */
+    public static final String METADATA_REPLAY = "sw.replay";
+
+    /** Replay target that includes all outbound connectors */
+    public static final String ALL_CONNECTORS = "*";
+
+    /** Separates connector ids */
+    private static final String SEPARATOR = ",";
+
+    private ReplayedEvents() {
+    }
+
+    /**
+     * Mark an event as replayed for the given outbound connectors.
+     * 
+     * @param event
+     * @param connectorIds
+     *            connectors that process the event (null or empty for all)
+     */
+    public static void mark(IDeviceEvent event, List<String> connectorIds) {
+	if (event.getMetadata() == null && event instanceof DeviceEvent) {
+	    ((DeviceEvent) event).setMetadata(new HashMap<>());
+	}
+	String targets = ((connectorIds == null) || connectorIds.isEmpty()) ? ALL_CONNECTORS
+		: String.join(SEPARATOR, connectorIds);
+	event.getMetadata().put(METADATA_REPLAY, targets);
+    }
+
+    /**
+     * Indicates whether an event was republished by a replay.
+     * 
+     * @param event
+     * @return
+     */
+    public static boolean isReplayed(IDeviceEvent event) {
+	return (event != null) && (event.getMetadata() != null) && event.getMetadata().containsKey(METADATA_REPLAY);
+    }
+
+    /**
+     * Indicates whether a processed event payload was republished by a replay.
+     * 
+     * @param payload
+     * @return
+     * @throws SiteWhereException
+     */
+    public static boolean isReplayed(GProcessedEventPayload payload) throws SiteWhereException {
+	return isReplayed(EventModelConverter.asApiProcessedEventPayload(payload).getEvent());
+    }
+
+    /**
+     * Indicates whether an outbound connector should process an event. Live
+     * events go to every connector and replayed events only go to the
+     * connectors targeted by the replay.
+     * 
+     * @param event
+     * @param connectorId
+     * @return
+     */
+    public static boolean isDeliveredTo(IDeviceEvent event, String connectorId) {
+	if (!isReplayed(event)) {
+	    return true;
+	}
+	String targets = event.getMetadata().get(METADATA_REPLAY);
+	return ALL_CONNECTORS.equals(targets) || Arrays.asList(targets.split(SEPARATOR)).contains(connectorId);
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.grpc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sitewhere.grpc.client.spi.client.IAssetManagementApiChannel;
+import com.sitewhere.grpc.service.AssetManagementGrpc;
+import com.sitewhere.rest.model.asset.Asset;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.asset.IAsset;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the batch asset lookup call served by asset management. Resolving
+ * a list of tokens or ids costs one round trip per thousand distinct keys
+ * rather than one per asset.
+ */
+public class AssetLookupClient {
+
+    /** Largest number of keys sent in a single call */
+    private static final int MAX_KEYS_PER_CALL = 1000;
+
+    /** Method for looking up assets */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> LOOKUP_ASSETS = MethodDescriptor
+	    .<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(AssetManagementGrpc.SERVICE_NAME, "LookupAssets"))
+	    .setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+	    .setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+
+    /** Reads asset entities, ignoring fields not present in the model */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+	    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /** Asset management API channel */
+    private IAssetManagementApiChannel<?> channel;
+
+    public AssetLookupClient(IAssetManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Get assets by token. Tokens that did not match are not included in the
+     * result.
+     * 
+     * @param tokens
+     * @return
+     * @throws SiteWhereException
+     */
+    public Map<String, IAsset> getAssetsByToken(Collection<String> tokens) throws SiteWhereException {
+	return lookupAll("tokens", tokens);
+    }
+
+    /**
+     * Get assets by id. Ids that did not match are not included in the result.
+     * 
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    public Map<UUID, IAsset> getAssetsById(Collection<UUID> ids) throws SiteWhereException {
+	List<String> keys = new ArrayList<>();
+	for (UUID id : ids) {
+	    if (id != null) {
+		keys.add(id.toString());
+	    }
+	}
+	Map<UUID, IAsset> results = new HashMap<>();
+	for (Map.Entry<String, IAsset> entry : lookupAll("ids", keys).entrySet()) {
+	    results.put(UUID.fromString(entry.getKey()), entry.getValue());
+	}
+	return results;
+    }
+
+    /**
+     * Look up distinct keys with one call per slice.
+     * 
+     * @param keyType
+     * @param keys
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<String, IAsset> lookupAll(String keyType, Collection<String> keys) throws SiteWhereException {
+	Set<String> distinct = new LinkedHashSet<>();
+	for (String key : keys) {
+	    if (key != null) {
+		distinct.add(key);
+	    }
+	}
+	Map<String, IAsset> found = new HashMap<>();
+	List<String> slice = new ArrayList<>();
+	for (String key : distinct) {
+	    slice.add(key);
+	    if (slice.size() == MAX_KEYS_PER_CALL) {
+		lookup(keyType, slice, found);
+		slice = new ArrayList<>();
+	    }
+	}
+	if (!slice.isEmpty()) {
+	    lookup(keyType, slice, found);
+	}
+	return found;
+    }
+
+    /**
+     * Execute a single lookup call and add matches to results.
+     * 
+     * @param keyType
+     * @param keys
+     * @param found
+     * @throws SiteWhereException
+     */
+    protected void lookup(String keyType, List<String> keys, Map<String, IAsset> found) throws SiteWhereException {
+	Map<String, Object> request = new HashMap<>();
+	request.put(keyType, keys);
+	JsonNode response;
+	try {
+	    response = ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(), LOOKUP_ASSETS,
+		    CallOptions.DEFAULT, request);
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException("Unable to execute asset lookup.", e);
+	}
+	for (JsonNode result : response.path("results")) {
+	    if (!result.path("found").asBoolean()) {
+		continue;
+	    }
+	    try {
+		found.put(result.path("key").asText(), MAPPER.treeToValue(result.get("entity"), Asset.class));
+	    } catch (JsonProcessingException e) {
+		throw new SiteWhereException("Unable to parse asset lookup result.", e);
+	    }
+	}
+    }
+
+    protected IAssetManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
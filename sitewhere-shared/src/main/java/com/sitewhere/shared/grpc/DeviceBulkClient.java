@@ -0,0 +1,142 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.grpc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the bulk device call served by device management. The call is not
+ * part of the generated device management stubs, so it is invoked directly on
+ * the API channel with JSON payloads. Large requests are split into chunks so
+ * that each call stays well under message size limits and is stored in a
+ * single transaction on the server.
+ */
+public class DeviceBulkClient {
+
+    /** Number of entries sent in each call */
+    private static final int CHUNK_SIZE = 1000;
+
+    /** Timeout for each call */
+    private static final long TIMEOUT_MS = 5 * 60 * 1000;
+
+    /** Method for creating or updating devices in bulk */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> BULK_PROVISION_DEVICES = MethodDescriptor
+	    .<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "BulkProvisionDevices"))
+	    .setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+	    .setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+
+    /** Device management API channel */
+    private IDeviceManagementApiChannel<?> channel;
+
+    public DeviceBulkClient(IDeviceManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Create or update devices and assignments in bulk. Entries are sent in
+     * chunks and the results are combined. Result indexes refer to positions in
+     * the full list of entries.
+     * 
+     * @param mode
+     * @param entries
+     * @param includeResults
+     *            include results for successful entries (failures are always
+     *            included)
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode bulkProvisionDevices(String mode, List<?> entries, boolean includeResults)
+	    throws SiteWhereException {
+	return bulkProvisionDevices(mode, entries, false, includeResults);
+    }
+
+    /**
+     * Create or update devices and assignments in bulk, optionally leaving the
+     * active assignments of existing devices unchanged.
+     * 
+     * @param mode
+     * @param entries
+     * @param preserveActiveAssignments
+     * @param includeResults
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode bulkProvisionDevices(String mode, List<?> entries, boolean preserveActiveAssignments,
+	    boolean includeResults) throws SiteWhereException {
+	ObjectNode response = JsonNodeFactory.instance.objectNode();
+	ArrayNode results = JsonNodeFactory.instance.arrayNode();
+	long created = 0, updated = 0, failed = 0;
+	for (int start = 0; start < entries.size(); start += CHUNK_SIZE) {
+	    Map<String, Object> request = new HashMap<>();
+	    request.put("mode", mode);
+	    request.put("preserveActiveAssignments", preserveActiveAssignments);
+	    request.put("entries", entries.subList(start, Math.min(start + CHUNK_SIZE, entries.size())));
+	    JsonNode chunk = call(request);
+	    created += chunk.path("createdCount").asLong();
+	    updated += chunk.path("updatedCount").asLong();
+	    failed += chunk.path("failedCount").asLong();
+	    for (JsonNode result : chunk.path("results")) {
+		if (includeResults || "Failed".equals(result.path("deviceAction").asText())) {
+		    ((ObjectNode) result).put("index", start + result.path("index").asInt());
+		    results.add(result);
+		}
+	    }
+	}
+	response.put("createdCount", created);
+	response.put("updatedCount", updated);
+	response.put("failedCount", failed);
+	response.set("results", results);
+	return response;
+    }
+
+    /**
+     * Make a single bulk call.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    protected JsonNode call(Map<String, Object> request) throws SiteWhereException {
+	try {
+	    return ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(), BULK_PROVISION_DEVICES,
+		    CallOptions.DEFAULT.withDeadlineAfter(TIMEOUT_MS, TimeUnit.MILLISECONDS), request);
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException("Unable to provision devices in bulk.", e);
+	}
+    }
+
+    protected IDeviceManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
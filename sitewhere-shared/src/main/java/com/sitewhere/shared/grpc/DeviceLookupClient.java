@@ -0,0 +1,320 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.grpc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the batch lookup calls served by device management. Keys are
+ * queued and resolved together, so a caller that needs many entities pays one
+ * round trip per thousand distinct keys rather than one per entity. Results
+ * are kept for the life of the client, which should not outlive the request
+ * that created it.
+ */
+public class DeviceLookupClient {
+
+    /** Largest number of keys sent in a single call */
+    private static final int MAX_KEYS_PER_CALL = 1000;
+
+    /** Reads entities into models, ignoring fields not present in the model */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+	    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /** Entity types that may be looked up */
+    public static enum EntityType {
+
+	Device("LookupDevices"), DeviceAssignment("LookupDeviceAssignments"), DeviceType("LookupDeviceTypes"),
+	DeviceCommand("LookupDeviceCommands"), Customer("LookupCustomers"), Area("LookupAreas");
+
+	/** Method used to look up entities of the type */
+	private MethodDescriptor<Map<String, Object>, JsonNode> method;
+
+	private EntityType(String methodName) {
+	    this.method = buildMethod(methodName);
+	}
+
+	public MethodDescriptor<Map<String, Object>, JsonNode> getMethod() {
+	    return method;
+	}
+    }
+
+    /** Device management API channel */
+    private IDeviceManagementApiChannel<?> channel;
+
+    /** Batches by entity type, key type and device type scope */
+    private Map<String, Batch> batches = new HashMap<>();
+
+    public DeviceLookupClient(IDeviceManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * Queue tokens to be resolved with the next lookup of the same entity type.
+     * 
+     * @param type
+     * @param tokens
+     */
+    public void queueTokens(EntityType type, Collection<String> tokens) {
+	getBatch(type, false, null).queue(tokens);
+    }
+
+    /**
+     * Get a single entity by token. Any queued tokens of the same type are
+     * resolved by the same call.
+     * 
+     * @param type
+     * @param token
+     * @return entity or null if not found
+     * @throws SiteWhereException
+     */
+    public JsonNode getByToken(EntityType type, String token) throws SiteWhereException {
+	return getBatch(type, false, null).get(token);
+    }
+
+    /**
+     * Get entities by token. Results are in request order and tokens that did
+     * not match have a null value.
+     * 
+     * @param type
+     * @param tokens
+     * @return
+     * @throws SiteWhereException
+     */
+    public Map<String, JsonNode> getByTokens(EntityType type, Collection<String> tokens) throws SiteWhereException {
+	return getBatch(type, false, null).getAll(tokens);
+    }
+
+    /**
+     * Get entities by token as model objects. Tokens that did not match are not
+     * included in the result.
+     * 
+     * @param type
+     * @param tokens
+     * @param modelClass
+     * @return
+     * @throws SiteWhereException
+     */
+    public <T> Map<String, T> getByTokens(EntityType type, Collection<String> tokens, Class<T> modelClass)
+	    throws SiteWhereException {
+	Map<String, T> results = new LinkedHashMap<>();
+	for (Map.Entry<String, JsonNode> entry : getByTokens(type, tokens).entrySet()) {
+	    if (entry.getValue() == null) {
+		continue;
+	    }
+	    try {
+		results.put(entry.getKey(), MAPPER.treeToValue(entry.getValue(), modelClass));
+	    } catch (JsonProcessingException e) {
+		throw new SiteWhereException("Unable to parse lookup result.", e);
+	    }
+	}
+	return results;
+    }
+
+    /**
+     * Get entities by id. Results are in request order and ids that did not
+     * match have a null value.
+     * 
+     * @param type
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    public Map<UUID, JsonNode> getByIds(EntityType type, Collection<UUID> ids) throws SiteWhereException {
+	List<String> keys = new ArrayList<>();
+	for (UUID id : ids) {
+	    keys.add(id.toString());
+	}
+	Map<String, JsonNode> found = getBatch(type, true, null).getAll(keys);
+	Map<UUID, JsonNode> results = new LinkedHashMap<>();
+	for (UUID id : ids) {
+	    results.put(id, found.get(id.toString()));
+	}
+	return results;
+    }
+
+    /**
+     * Get device commands by token. Command tokens are only unique within a
+     * device type.
+     * 
+     * @param deviceTypeToken
+     * @param tokens
+     * @return
+     * @throws SiteWhereException
+     */
+    public Map<String, JsonNode> getDeviceCommandsByToken(String deviceTypeToken, Collection<String> tokens)
+	    throws SiteWhereException {
+	return getBatch(EntityType.DeviceCommand, false, deviceTypeToken).getAll(tokens);
+    }
+
+    /**
+     * Get or create the batch for an entity type and key type.
+     * 
+     * @param type
+     * @param byId
+     * @param deviceTypeToken
+     * @return
+     */
+    protected Batch getBatch(EntityType type, boolean byId, String deviceTypeToken) {
+	String key = type.name() + (byId ? ":id" : ":token") + ((deviceTypeToken != null) ? ":" + deviceTypeToken : "");
+	return getBatches().computeIfAbsent(key, k -> new Batch(type, byId, deviceTypeToken));
+    }
+
+    /**
+     * Build descriptor for a lookup method.
+     * 
+     * @param name
+     * @return
+     */
+    protected static MethodDescriptor<Map<String, Object>, JsonNode> buildMethod(String name) {
+	return MethodDescriptor.<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+		.setFullMethodName(MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, name))
+		.setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+		.setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+    }
+
+    protected IDeviceManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+
+    protected Map<String, Batch> getBatches() {
+	return batches;
+    }
+
+    /**
+     * Queued and resolved keys for one kind of lookup.
+     */
+    protected class Batch {
+
+	/** Entity type */
+	private EntityType type;
+
+	/** Indicates keys are ids rather than tokens */
+	private boolean byId;
+
+	/** Device type scope for command token lookups */
+	private String deviceTypeToken;
+
+	/** Keys waiting to be resolved */
+	private Set<String> pending = new LinkedHashSet<>();
+
+	/** Resolved entities by key (null value if not found) */
+	private Map<String, JsonNode> resolved = new HashMap<>();
+
+	public Batch(EntityType type, boolean byId, String deviceTypeToken) {
+	    this.type = type;
+	    this.byId = byId;
+	    this.deviceTypeToken = deviceTypeToken;
+	}
+
+	/**
+	 * Queue keys that have not already been resolved.
+	 * 
+	 * @param keys
+	 */
+	public void queue(Collection<String> keys) {
+	    for (String key : keys) {
+		if (key != null && !resolved.containsKey(key)) {
+		    pending.add(key);
+		}
+	    }
+	}
+
+	/**
+	 * Get the entity for a key, resolving all queued keys.
+	 * 
+	 * @param key
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public JsonNode get(String key) throws SiteWhereException {
+	    if (key == null) {
+		return null;
+	    }
+	    queue(Collections.singletonList(key));
+	    dispatch();
+	    return resolved.get(key);
+	}
+
+	/**
+	 * Get entities for keys in request order, resolving all queued keys.
+	 * 
+	 * @param keys
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public Map<String, JsonNode> getAll(Collection<String> keys) throws SiteWhereException {
+	    queue(keys);
+	    dispatch();
+	    Map<String, JsonNode> results = new LinkedHashMap<>();
+	    for (String key : keys) {
+		results.put(key, (key != null) ? resolved.get(key) : null);
+	    }
+	    return results;
+	}
+
+	/**
+	 * Resolve queued keys with one call per slice.
+	 * 
+	 * @throws SiteWhereException
+	 */
+	protected void dispatch() throws SiteWhereException {
+	    List<String> keys = new ArrayList<>(pending);
+	    pending.clear();
+	    for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_CALL) {
+		List<String> slice = keys.subList(start, Math.min(start + MAX_KEYS_PER_CALL, keys.size()));
+		Map<String, Object> request = new HashMap<>();
+		request.put(byId ? "ids" : "tokens", slice);
+		request.put("deviceTypeToken", deviceTypeToken);
+		JsonNode response;
+		try {
+		    response = ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(),
+			    type.getMethod(), CallOptions.DEFAULT, request);
+		} catch (StatusRuntimeException e) {
+		    throw new SiteWhereException("Unable to execute lookup.", e);
+		}
+		for (JsonNode result : response.path("results")) {
+		    JsonNode entity = result.path("found").asBoolean() ? result.get("entity") : null;
+		    resolved.put(result.path("key").asText(), entity);
+		}
+		for (String key : slice) {
+		    resolved.putIfAbsent(key, null);
+		}
+	    }
+	}
+    }
+}
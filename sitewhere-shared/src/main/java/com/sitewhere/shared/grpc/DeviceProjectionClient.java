@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.grpc;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.service.DeviceManagementGrpc;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+
+/**
+ * Client for the device projection call served by device management. Devices
+ * are returned newest first, ordered by created date and then id, and each page
+ * starts after the (created date, id) of the last device of the previous page.
+ * The response holds a list of devices and a flag indicating whether more
+ * devices follow.
+ */
+public class DeviceProjectionClient {
+
+    /** Timeout for each call */
+    private static final long TIMEOUT_MS = 60 * 1000;
+
+    /** Method for listing device projections */
+    private static final MethodDescriptor<Map<String, Object>, JsonNode> LIST_DEVICE_PROJECTIONS = MethodDescriptor
+	    .<Map<String, Object>, JsonNode>newBuilder().setType(MethodDescriptor.MethodType.UNARY)
+	    .setFullMethodName(
+		    MethodDescriptor.generateFullMethodName(DeviceManagementGrpc.SERVICE_NAME, "ListDeviceProjections"))
+	    .setRequestMarshaller(new JsonMarshaller<Map<String, Object>>(null))
+	    .setResponseMarshaller(new JsonMarshaller<>(JsonNode.class)).build();
+
+    /** Device management API channel */
+    private IDeviceManagementApiChannel<?> channel;
+
+    public DeviceProjectionClient(IDeviceManagementApiChannel<?> channel) {
+	this.channel = channel;
+    }
+
+    /**
+     * List a page of devices without metadata or element mappings. If both keyset
+     * values are null, the page starts with the newest device.
+     * 
+     * @param deviceTypeToken
+     *            device type token (null for all device types)
+     * @param afterCreatedDate
+     *            created date of the last device already returned
+     * @param afterDeviceId
+     *            id of the last device already returned
+     * @param pageSize
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode listDevices(String deviceTypeToken, Date afterCreatedDate, UUID afterDeviceId, int pageSize)
+	    throws SiteWhereException {
+	Map<String, Object> request = new HashMap<>();
+	request.put("deviceTypeToken", deviceTypeToken);
+	request.put("afterCreatedDate", afterCreatedDate);
+	request.put("afterDeviceId", afterDeviceId);
+	request.put("pageSize", pageSize);
+	request.put("includeMetadata", false);
+	request.put("includeElementMappings", false);
+	try {
+	    return ClientCalls.blockingUnaryCall(getChannel().getGrpcChannel().getChannel(), LIST_DEVICE_PROJECTIONS,
+		    CallOptions.DEFAULT.withDeadlineAfter(TIMEOUT_MS, TimeUnit.MILLISECONDS), request);
+	} catch (StatusRuntimeException e) {
+	    throw new SiteWhereException("Unable to list device projections.", e);
+	}
+    }
+
+    protected IDeviceManagementApiChannel<?> getChannel() {
+	return channel;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.shared.grpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import com.google.common.io.ByteStreams;
+import com.sitewhere.microservice.util.MarshalUtils;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Marshals gRPC messages as JSON. Used for calls that are served alongside the
+ * generated service methods without a protobuf message definition.
+ */
+public class JsonMarshaller<T> implements MethodDescriptor.Marshaller<T> {
+
+    /** Type parsed from responses */
+    private Class<T> type;
+
+    public JsonMarshaller(Class<T> type) {
+	this.type = type;
+    }
+
+    /*
+     * @see io.grpc.MethodDescriptor.Marshaller#stream(java.lang.Object)
+     */
+    @Override
+    public InputStream stream(T value) {
+	return new ByteArrayInputStream(MarshalUtils.marshalJson(value));
+    }
+
+    /*
+     * @see io.grpc.MethodDescriptor.Marshaller#parse(java.io.InputStream)
+     */
+    @Override
+    public T parse(InputStream stream) {
+	try {
+	    return MarshalUtils.unmarshalJson(ByteStreams.toByteArray(stream), type);
+	} catch (IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+    }
+}